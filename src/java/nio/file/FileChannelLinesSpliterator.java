@@ -0,0 +1,334 @@
+/*
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+package java.nio.file;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * A file-based lines spliterator, leveraging a shared mapped byte buffer and
+ * associated file channel, covering lines of a file for character encodings
+ * where line feed characters can be easily identified from character encoded
+ * bytes.
+ *
+ * <p>
+ * When the root spliterator is first split a mapped byte buffer will be created
+ * over the file for its size that was observed when the stream was created.
+ * Thus a mapped byte buffer is only required for parallel stream execution.
+ * Sub-spliterators will share that mapped byte buffer.  Splitting will use the
+ * mapped byte buffer to find the closest line feed characters(s) to the left or
+ * right of the mid-point of covered range of bytes of the file.  Files larger
+ * than 1GB are mapped in segments of 1GB, so there is no limit on the size
+ * of the file; a line may span a segment boundary.
+ *
+ * <p>
+ * Traversal of the lines of a spliterator decodes lazily through a
+ * {@link BufferedReader} over a channel reading the covered range of bytes
+ * of the file by positional reads, which may proceed concurrently with
+ * those of other spliterators over the same file.  A spliterator stops
+ * using the mapped byte buffer once it starts traversal, and the buffer is
+ * unmapped when the last spliterator sharing it does so, rather than when
+ * the buffer is garbage collected.
+ *
+ * <p>
+ * The bytes of the file are not copied before decoding, unlike the
+ * spliterator of {@link java.io.BufferedReader#lines()}, which can only split
+ * by copying batches of lines into arrays.  Since each split covers about
+ * half of the bytes of its parent, parallel traversals scale with the
+ * number of processors as for array-based spliterators.
+ *
+ * <p>
+ * The spliterator assumes that the file is not modified, at least in the
+ * covered range of bytes, while it is in use.
+ */
+final class FileChannelLinesSpliterator implements Spliterator<String> {
+
+    static final Set<String> SUPPORTED_CHARSET_NAMES;
+    static {
+        SUPPORTED_CHARSET_NAMES = new HashSet<>();
+        SUPPORTED_CHARSET_NAMES.add(StandardCharsets.UTF_8.name());
+        SUPPORTED_CHARSET_NAMES.add(StandardCharsets.ISO_8859_1.name());
+        SUPPORTED_CHARSET_NAMES.add(StandardCharsets.US_ASCII.name());
+    }
+
+    /**
+     * Log2 of the size of a mapped segment.
+     */
+    private static final int SEGMENT_SHIFT = 30;
+
+    private static final long SEGMENT_MASK = (1L << SEGMENT_SHIFT) - 1;
+
+    /**
+     * The maximum distance from the mid point of the covered range that
+     * is scanned for a line separator when splitting.  A range with no
+     * line separator that close to its mid point is not split, rather
+     * than touching a large part of the mapped file for lines that are
+     * too long to be worth processing in parallel.
+     */
+    private static final int MAX_SPLIT_SCAN = 1 << 20;
+
+    private final FileChannel fc;
+    private final Charset cs;
+    private long index;
+    private final long fence;
+
+    // Null before first split, non-null when splitting, null when traversing
+    private MappedByteBuffer[] buffer;
+    // Non-null when traversing
+    private BufferedReader reader;
+
+    // Number of spliterators sharing the mapped buffer that have not yet
+    // started traversal; null until the first split
+    private AtomicInteger bufRefCount;
+
+    FileChannelLinesSpliterator(FileChannel fc, Charset cs, long index, long fence) {
+        this.fc = fc;
+        this.cs = cs;
+        this.index = index;
+        this.fence = fence;
+    }
+
+    private FileChannelLinesSpliterator(FileChannel fc, Charset cs,
+                                        long index, long fence,
+                                        MappedByteBuffer[] buffer,
+                                        AtomicInteger bufRefCount) {
+        this.fc = fc;
+        this.cs = cs;
+        this.index = index;
+        this.fence = fence;
+        this.buffer = buffer;
+        this.bufRefCount = bufRefCount;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super String> action) {
+        String line = readLine();
+        if (line != null) {
+            action.accept(line);
+            return true;
+        } else {
+            return false;
+        }
+    }
+
+    @Override
+    public void forEachRemaining(Consumer<? super String> action) {
+        String line;
+        while ((line = readLine()) != null) {
+            action.accept(line);
+        }
+    }
+
+    private BufferedReader getBufferedReader() {
+        /**
+         * A readable byte channel that reads bytes from an underlying
+         * file channel over a specified range.
+         */
+        ReadableByteChannel rrbc = new ReadableByteChannel() {
+            @Override
+            public int read(ByteBuffer dst) throws IOException {
+                long bytesToRead = fence - index;
+                if (bytesToRead == 0)
+                    return -1;
+
+                int bytesRead;
+                if (bytesToRead < dst.remaining()) {
+                    // The number of bytes to read is less than remaining
+                    // bytes in the buffer
+                    // Snapshot the limit, reduce it, read, then restore
+                    int oldLimit = dst.limit();
+                    dst.limit((int)(dst.position() + bytesToRead));
+                    bytesRead = fc.read(dst, index);
+                    dst.limit(oldLimit);
+                } else {
+                    bytesRead = fc.read(dst, index);
+                }
+                if (bytesRead == -1) {
+                    index = fence;
+                    return bytesRead;
+                }
+
+                index += bytesRead;
+                return bytesRead;
+            }
+
+            @Override
+            public boolean isOpen() {
+                return fc.isOpen();
+            }
+
+            @Override
+            public void close() throws IOException {
+                fc.close();
+            }
+        };
+        return new BufferedReader(Channels.newReader(rrbc, cs.newDecoder(), -1));
+    }
+
+    private String readLine() {
+        if (reader == null) {
+            reader = getBufferedReader();
+            unmap();
+        }
+
+        try {
+            return reader.readLine();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private MappedByteBuffer[] getMappedByteBuffer() {
+        // Map the whole file, in segments, from its start, so that the
+        // position of a byte in the file selects its segment and offset
+        try {
+            int n = (int)((fence + SEGMENT_MASK) >>> SEGMENT_SHIFT);
+            MappedByteBuffer[] segments = new MappedByteBuffer[n];
+            for (int i = 0; i < n; i++) {
+                long pos = (long)i << SEGMENT_SHIFT;
+                segments[i] = fc.map(FileChannel.MapMode.READ_ONLY, pos,
+                                     Math.min(SEGMENT_MASK + 1, fence - pos));
+            }
+            return segments;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static byte get(MappedByteBuffer[] b, long pos) {
+        return b[(int)(pos >>> SEGMENT_SHIFT)].get((int)(pos & SEGMENT_MASK));
+    }
+
+    @Override
+    public Spliterator<String> trySplit() {
+        // Cannot split after partial traverse
+        if (reader != null)
+            return null;
+
+        MappedByteBuffer[] b;
+        if ((b = buffer) == null) {
+            b = buffer = getMappedByteBuffer();
+            bufRefCount = new AtomicInteger(1);
+        }
+
+        final long hi = fence, lo = index;
+
+        // Check if line separator hits the mid point
+        long mid = (lo + hi) >>> 1;
+        int c = get(b, mid);
+        if (c == '\n') {
+            mid++;
+        } else if (c == '\r') {
+            // Check if a line separator of "\r\n"
+            if (++mid < hi && get(b, mid) == '\n') {
+                mid++;
+            }
+        } else {
+            // Scan to the left and right of the mid point, giving up
+            // after MAX_SPLIT_SCAN bytes on either side
+            long midL = mid - 1;
+            long midR = mid + 1;
+            long limit = Math.max(lo, mid - MAX_SPLIT_SCAN);
+            mid = 0;
+            while (midL > limit && midR < hi) {
+                // Sample to the left
+                c = get(b, midL--);
+                if (c == '\n' || c == '\r') {
+                    // If c is "\r" then no need to check for "\r\n"
+                    // since the subsequent value was previously checked
+                    mid = midL + 2;
+                    break;
+                }
+
+                // Sample to the right
+                c = get(b, midR++);
+                if (c == '\n' || c == '\r') {
+                    mid = midR;
+                    // Check if line-separator is "\r\n"
+                    if (c == '\r' && mid < hi && get(b, mid) == '\n') {
+                        mid++;
+                    }
+                    break;
+                }
+            }
+        }
+
+        // The left spliterator will have the line-separator at the end
+        if (mid > lo && mid < hi) {
+            bufRefCount.incrementAndGet();
+            return new FileChannelLinesSpliterator(fc, cs, lo, index = mid,
+                                                   b, bufRefCount);
+        }
+        return null;
+    }
+
+    @Override
+    public long estimateSize() {
+        // Use the number of bytes as an estimate.
+        // We could divide by a constant that is the average number of
+        // characters per-line, but that constant will be factored out.
+        return fence - index;
+    }
+
+    @Override
+    public long getExactSizeIfKnown() {
+        return -1;
+    }
+
+    @Override
+    public int characteristics() {
+        return Spliterator.ORDERED | Spliterator.NONNULL;
+    }
+
+    /**
+     * Releases this spliterator's reference to the mapped buffer, which
+     * is unmapped if no other spliterator still refers to it.
+     */
+    private void unmap() {
+        MappedByteBuffer[] b = buffer;
+        if (b != null) {
+            buffer = null;
+            if (bufRefCount.decrementAndGet() == 0) {
+                for (MappedByteBuffer s : b) {
+                    sun.misc.Cleaner cl = ((sun.nio.ch.DirectBuffer)s).cleaner();
+                    if (cl != null)
+                        cl.clean();
+                }
+            }
+        }
+    }
+}
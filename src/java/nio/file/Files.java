@@ -3720,6 +3720,24 @@ public final class Files {
      * {@link Stream#close close} method is invoked after the stream operations
      * are completed.
      *
+     * @implNote
+     * This implementation supports good parallel stream performance for the
+     * standard charsets {@link StandardCharsets#UTF_8 UTF-8},
+     * {@link StandardCharsets#US_ASCII US-ASCII} and
+     * {@link StandardCharsets#ISO_8859_1 ISO-8859-1} when the file is a
+     * regular file of the default file system.  Such line-optimal charsets
+     * have the property that the encoded bytes of a line feed ('\n') or a
+     * carriage return ('\r') are efficiently identifiable from other encoded
+     * characters when randomly accessing the bytes of the file.  The stream
+     * source then splits the file by memory-mapping it and searching for the
+     * line terminator nearest to the middle of each range of bytes, and the
+     * lines of each range are decoded lazily, only when they are traversed.
+     *
+     * <p> For non-line-optimal charsets, and other files, the stream source's
+     * spliterator has poor splitting properties, similar to that of a
+     * spliterator associated with an iterator or that associated with a
+     * stream returned from {@link BufferedReader#lines()}.  Poor splitting
+     * properties can result in poor parallel stream performance.
      *
      * @param   path
      *          the path to the file
@@ -3741,7 +3759,53 @@ public final class Files {
      * @since   1.8
      */
     public static Stream<String> lines(Path path, Charset cs) throws IOException {
-        BufferedReader br = Files.newBufferedReader(path, cs);
+        // Use the good splitting spliterator if:
+        // 1) the path is associated with the default file system;
+        // 2) the character set is supported; and
+        // 3) the file is a regular file of non-zero size that can be
+        //    opened as a file channel
+        if (path.getFileSystem() == FileSystems.getDefault() &&
+            FileChannelLinesSpliterator.SUPPORTED_CHARSET_NAMES.contains(cs.name())) {
+            FileChannel fc = FileChannel.open(path, StandardOpenOption.READ);
+
+            Stream<String> lines = createFileChannelLinesStream(fc, cs);
+            if (lines != null)
+                return lines;
+            fc.close();
+        }
+
+        return createBufferedReaderLinesStream(Files.newBufferedReader(path, cs));
+    }
+
+    private static Stream<String> createFileChannelLinesStream(FileChannel fc, Charset cs)
+        throws IOException
+    {
+        try {
+            // Obtaining the size from the FileChannel is much faster
+            // than obtaining using path.toFile().length()
+            long length = fc.size();
+            // FileChannel.size() may in certain circumstances return zero
+            // for a non-zero length file so disallow this case.
+            if (length > 0) {
+                Spliterator<String> s = new FileChannelLinesSpliterator(fc, cs, 0, length);
+                return StreamSupport.stream(s, false)
+                        .onClose(asUncheckedRunnable(fc));
+            }
+        } catch (Error|RuntimeException|IOException e) {
+            try {
+                fc.close();
+            } catch (IOException ex) {
+                try {
+                    e.addSuppressed(ex);
+                } catch (Throwable ignore) {
+                }
+            }
+            throw e;
+        }
+        return null;
+    }
+
+    private static Stream<String> createBufferedReaderLinesStream(BufferedReader br) {
         try {
             return br.lines().onClose(asUncheckedRunnable(br));
         } catch (Error|RuntimeException e) {
@@ -36,6 +36,9 @@ import java.util.function.IntToDoubleFunction;
 import java.util.function.IntToLongFunction;
 import java.util.function.IntUnaryOperator;
 import java.util.function.LongBinaryOperator;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToIntFunction;
+import java.util.function.ToLongFunction;
 import java.util.function.UnaryOperator;
 import java.util.stream.DoubleStream;
 import java.util.stream.IntStream;
@@ -78,6 +81,16 @@ public class Arrays {
      */
     private static final int MIN_ARRAY_SORT_GRAN = 1 << 13;
 
+    /**
+     * The minimum array length at which the parallel sorts of int,
+     * long, float and double arrays use a parallel radix sort instead
+     * of a parallel sort-merge.  Below this, the sort-merge's leaf
+     * sorts fit better in cache than the radix sort's scattered
+     * writes, and its extra passes over the data cost less than the
+     * radix sort's fixed four or eight.
+     */
+    private static final int MIN_ARRAY_RADIX_SORT = 1 << 22;
+
     // Suppresses default constructor, ensuring non-instantiability.
     private Arrays() {}
 
@@ -663,7 +676,9 @@ public class Arrays {
      * Arrays#sort(int[]) Arrays.sort} method. The algorithm requires a
      * working space no greater than the size of the original array. The
      * {@link ForkJoinPool#commonPool() ForkJoin common pool} is used to
-     * execute any parallel tasks.
+     * execute any parallel tasks. Arrays of at least four million
+     * elements are instead sorted by a parallel least-significant-digit
+     * radix sort, which requires the same working space.
      *
      * @param a the array to be sorted
      *
@@ -674,6 +689,8 @@ public class Arrays {
         if (n <= MIN_ARRAY_SORT_GRAN ||
             (p = ForkJoinPool.getCommonPoolParallelism()) == 1)
             DualPivotQuicksort.sort(a, 0, n - 1, null, 0, 0);
+        else if (n >= MIN_ARRAY_RADIX_SORT)
+            ArraysParallelRadixSort.sort(a, 0, n, p);
         else
             new ArraysParallelSortHelpers.FJInt.Sorter
                 (null, a, new int[n], 0, n, 0,
@@ -696,7 +713,9 @@ public class Arrays {
      * Arrays#sort(int[]) Arrays.sort} method. The algorithm requires a working
      * space no greater than the size of the specified range of the original
      * array. The {@link ForkJoinPool#commonPool() ForkJoin common pool} is
-     * used to execute any parallel tasks.
+     * used to execute any parallel tasks. Arrays of at least four million
+     * elements are instead sorted by a parallel least-significant-digit
+     * radix sort, which requires the same working space.
      *
      * @param a the array to be sorted
      * @param fromIndex the index of the first element, inclusive, to be sorted
@@ -714,6 +733,8 @@ public class Arrays {
         if (n <= MIN_ARRAY_SORT_GRAN ||
             (p = ForkJoinPool.getCommonPoolParallelism()) == 1)
             DualPivotQuicksort.sort(a, fromIndex, toIndex - 1, null, 0, 0);
+        else if (n >= MIN_ARRAY_RADIX_SORT)
+            ArraysParallelRadixSort.sort(a, fromIndex, toIndex, p);
         else
             new ArraysParallelSortHelpers.FJInt.Sorter
                 (null, a, new int[n], fromIndex, n, 0,
@@ -733,7 +754,9 @@ public class Arrays {
      * Arrays#sort(long[]) Arrays.sort} method. The algorithm requires a
      * working space no greater than the size of the original array. The
      * {@link ForkJoinPool#commonPool() ForkJoin common pool} is used to
-     * execute any parallel tasks.
+     * execute any parallel tasks. Arrays of at least four million
+     * elements are instead sorted by a parallel least-significant-digit
+     * radix sort, which requires the same working space.
      *
      * @param a the array to be sorted
      *
@@ -744,6 +767,8 @@ public class Arrays {
         if (n <= MIN_ARRAY_SORT_GRAN ||
             (p = ForkJoinPool.getCommonPoolParallelism()) == 1)
             DualPivotQuicksort.sort(a, 0, n - 1, null, 0, 0);
+        else if (n >= MIN_ARRAY_RADIX_SORT)
+            ArraysParallelRadixSort.sort(a, 0, n, p);
         else
             new ArraysParallelSortHelpers.FJLong.Sorter
                 (null, a, new long[n], 0, n, 0,
@@ -766,7 +791,9 @@ public class Arrays {
      * Arrays#sort(long[]) Arrays.sort} method. The algorithm requires a working
      * space no greater than the size of the specified range of the original
      * array. The {@link ForkJoinPool#commonPool() ForkJoin common pool} is
-     * used to execute any parallel tasks.
+     * used to execute any parallel tasks. Arrays of at least four million
+     * elements are instead sorted by a parallel least-significant-digit
+     * radix sort, which requires the same working space.
      *
      * @param a the array to be sorted
      * @param fromIndex the index of the first element, inclusive, to be sorted
@@ -784,6 +811,8 @@ public class Arrays {
         if (n <= MIN_ARRAY_SORT_GRAN ||
             (p = ForkJoinPool.getCommonPoolParallelism()) == 1)
             DualPivotQuicksort.sort(a, fromIndex, toIndex - 1, null, 0, 0);
+        else if (n >= MIN_ARRAY_RADIX_SORT)
+            ArraysParallelRadixSort.sort(a, fromIndex, toIndex, p);
         else
             new ArraysParallelSortHelpers.FJLong.Sorter
                 (null, a, new long[n], fromIndex, n, 0,
@@ -811,7 +840,9 @@ public class Arrays {
      * Arrays#sort(float[]) Arrays.sort} method. The algorithm requires a
      * working space no greater than the size of the original array. The
      * {@link ForkJoinPool#commonPool() ForkJoin common pool} is used to
-     * execute any parallel tasks.
+     * execute any parallel tasks. Arrays of at least four million
+     * elements are instead sorted by a parallel least-significant-digit
+     * radix sort, which requires the same working space.
      *
      * @param a the array to be sorted
      *
@@ -822,6 +853,8 @@ public class Arrays {
         if (n <= MIN_ARRAY_SORT_GRAN ||
             (p = ForkJoinPool.getCommonPoolParallelism()) == 1)
             DualPivotQuicksort.sort(a, 0, n - 1, null, 0, 0);
+        else if (n >= MIN_ARRAY_RADIX_SORT)
+            ArraysParallelRadixSort.sort(a, 0, n, p);
         else
             new ArraysParallelSortHelpers.FJFloat.Sorter
                 (null, a, new float[n], 0, n, 0,
@@ -852,7 +885,9 @@ public class Arrays {
      * Arrays#sort(float[]) Arrays.sort} method. The algorithm requires a working
      * space no greater than the size of the specified range of the original
      * array. The {@link ForkJoinPool#commonPool() ForkJoin common pool} is
-     * used to execute any parallel tasks.
+     * used to execute any parallel tasks. Arrays of at least four million
+     * elements are instead sorted by a parallel least-significant-digit
+     * radix sort, which requires the same working space.
      *
      * @param a the array to be sorted
      * @param fromIndex the index of the first element, inclusive, to be sorted
@@ -870,6 +905,8 @@ public class Arrays {
         if (n <= MIN_ARRAY_SORT_GRAN ||
             (p = ForkJoinPool.getCommonPoolParallelism()) == 1)
             DualPivotQuicksort.sort(a, fromIndex, toIndex - 1, null, 0, 0);
+        else if (n >= MIN_ARRAY_RADIX_SORT)
+            ArraysParallelRadixSort.sort(a, fromIndex, toIndex, p);
         else
             new ArraysParallelSortHelpers.FJFloat.Sorter
                 (null, a, new float[n], fromIndex, n, 0,
@@ -897,7 +934,9 @@ public class Arrays {
      * Arrays#sort(double[]) Arrays.sort} method. The algorithm requires a
      * working space no greater than the size of the original array. The
      * {@link ForkJoinPool#commonPool() ForkJoin common pool} is used to
-     * execute any parallel tasks.
+     * execute any parallel tasks. Arrays of at least four million
+     * elements are instead sorted by a parallel least-significant-digit
+     * radix sort, which requires the same working space.
      *
      * @param a the array to be sorted
      *
@@ -908,6 +947,8 @@ public class Arrays {
         if (n <= MIN_ARRAY_SORT_GRAN ||
             (p = ForkJoinPool.getCommonPoolParallelism()) == 1)
             DualPivotQuicksort.sort(a, 0, n - 1, null, 0, 0);
+        else if (n >= MIN_ARRAY_RADIX_SORT)
+            ArraysParallelRadixSort.sort(a, 0, n, p);
         else
             new ArraysParallelSortHelpers.FJDouble.Sorter
                 (null, a, new double[n], 0, n, 0,
@@ -938,7 +979,9 @@ public class Arrays {
      * Arrays#sort(double[]) Arrays.sort} method. The algorithm requires a working
      * space no greater than the size of the specified range of the original
      * array. The {@link ForkJoinPool#commonPool() ForkJoin common pool} is
-     * used to execute any parallel tasks.
+     * used to execute any parallel tasks. Arrays of at least four million
+     * elements are instead sorted by a parallel least-significant-digit
+     * radix sort, which requires the same working space.
      *
      * @param a the array to be sorted
      * @param fromIndex the index of the first element, inclusive, to be sorted
@@ -956,6 +999,8 @@ public class Arrays {
         if (n <= MIN_ARRAY_SORT_GRAN ||
             (p = ForkJoinPool.getCommonPoolParallelism()) == 1)
             DualPivotQuicksort.sort(a, fromIndex, toIndex - 1, null, 0, 0);
+        else if (n >= MIN_ARRAY_RADIX_SORT)
+            ArraysParallelRadixSort.sort(a, fromIndex, toIndex, p);
         else
             new ArraysParallelSortHelpers.FJDouble.Sorter
                 (null, a, new double[n], fromIndex, n, 0,
@@ -1180,6 +1225,141 @@ public class Arrays {
                  MIN_ARRAY_SORT_GRAN : g, cmp).invoke();
     }
 
+    /**
+     * Sorts the specified array of objects into ascending order of the
+     * {@code int} keys extracted from them by the given function.
+     * The key of each element is extracted once, and keys are compared
+     * as {@code int} values, without boxing.
+     *
+     * <p>This sort is guaranteed to be <i>stable</i>:  elements with
+     * equal keys will not be reordered as a result of the sort.
+     *
+     * @implNote The keys are extracted into a {@code int} array,
+     * which is sorted by a least-significant-digit radix sort that
+     * permutes the elements alongside it.  The {@link
+     * ForkJoinPool#commonPool() ForkJoin common pool} is used to execute
+     * any parallel tasks.  Arrays shorter than the minimum granularity
+     * of the other parallel sorts are instead sorted by {@link
+     * #sort(Object[], Comparator)} with a comparator on the keys.  The
+     * algorithm requires working space of two key arrays and one
+     * element array the size of the original array.
+     *
+     * @param <T> the class of the objects to be sorted
+     * @param a the array to be sorted
+     * @param keyExtractor the function used to extract the sort key
+     * @throws NullPointerException if the array or the function is null
+     *
+     * @since 1.9
+     */
+    public static <T> void parallelSortByIntKey(T[] a,
+                                                ToIntFunction<? super T> keyExtractor) {
+        Objects.requireNonNull(keyExtractor);
+        int n = a.length, p;
+        if (n <= MIN_ARRAY_SORT_GRAN)
+            TimSort.sort(a, 0, n, Comparator.comparingInt(keyExtractor), null, 0, 0);
+        else {
+            int[] keys = new int[n];
+            if ((p = ForkJoinPool.getCommonPoolParallelism()) > 1)
+                parallelSetAll(keys, i -> keyExtractor.applyAsInt(a[i]));
+            else {
+                for (int i = 0; i < n; ++i)
+                    keys[i] = keyExtractor.applyAsInt(a[i]);
+                p = 0;
+            }
+            ArraysParallelRadixSort.sort(keys, a, p);
+        }
+    }
+
+    /**
+     * Sorts the specified array of objects into ascending order of the
+     * {@code long} keys extracted from them by the given function.
+     * The key of each element is extracted once, and keys are compared
+     * as {@code long} values, without boxing.
+     *
+     * <p>This sort is guaranteed to be <i>stable</i>:  elements with
+     * equal keys will not be reordered as a result of the sort.
+     *
+     * @implNote The keys are extracted into a {@code long} array,
+     * which is sorted by a least-significant-digit radix sort that
+     * permutes the elements alongside it.  The {@link
+     * ForkJoinPool#commonPool() ForkJoin common pool} is used to execute
+     * any parallel tasks.  Arrays shorter than the minimum granularity
+     * of the other parallel sorts are instead sorted by {@link
+     * #sort(Object[], Comparator)} with a comparator on the keys.  The
+     * algorithm requires working space of two key arrays and one
+     * element array the size of the original array.
+     *
+     * @param <T> the class of the objects to be sorted
+     * @param a the array to be sorted
+     * @param keyExtractor the function used to extract the sort key
+     * @throws NullPointerException if the array or the function is null
+     *
+     * @since 1.9
+     */
+    public static <T> void parallelSortByLongKey(T[] a,
+                                                 ToLongFunction<? super T> keyExtractor) {
+        Objects.requireNonNull(keyExtractor);
+        int n = a.length, p;
+        if (n <= MIN_ARRAY_SORT_GRAN)
+            TimSort.sort(a, 0, n, Comparator.comparingLong(keyExtractor), null, 0, 0);
+        else {
+            long[] keys = new long[n];
+            if ((p = ForkJoinPool.getCommonPoolParallelism()) > 1)
+                parallelSetAll(keys, i -> keyExtractor.applyAsLong(a[i]));
+            else {
+                for (int i = 0; i < n; ++i)
+                    keys[i] = keyExtractor.applyAsLong(a[i]);
+                p = 0;
+            }
+            ArraysParallelRadixSort.sort(keys, a, p);
+        }
+    }
+
+    /**
+     * Sorts the specified array of objects into ascending order of the
+     * {@code double} keys extracted from them by the given function.
+     * The key of each element is extracted once, and keys are compared
+     * as {@code double} values, without boxing, in the order of {@link Double#compare}.
+     *
+     * <p>This sort is guaranteed to be <i>stable</i>:  elements with
+     * equal keys will not be reordered as a result of the sort.
+     *
+     * @implNote The keys are extracted into a {@code long} array,
+     * which is sorted by a least-significant-digit radix sort that
+     * permutes the elements alongside it.  The {@link
+     * ForkJoinPool#commonPool() ForkJoin common pool} is used to execute
+     * any parallel tasks.  Arrays shorter than the minimum granularity
+     * of the other parallel sorts are instead sorted by {@link
+     * #sort(Object[], Comparator)} with a comparator on the keys.  The
+     * algorithm requires working space of two key arrays and one
+     * element array the size of the original array.
+     *
+     * @param <T> the class of the objects to be sorted
+     * @param a the array to be sorted
+     * @param keyExtractor the function used to extract the sort key
+     * @throws NullPointerException if the array or the function is null
+     *
+     * @since 1.9
+     */
+    public static <T> void parallelSortByDoubleKey(T[] a,
+                                                   ToDoubleFunction<? super T> keyExtractor) {
+        Objects.requireNonNull(keyExtractor);
+        int n = a.length, p;
+        if (n <= MIN_ARRAY_SORT_GRAN)
+            TimSort.sort(a, 0, n, Comparator.comparingDouble(keyExtractor), null, 0, 0);
+        else {
+            long[] keys = new long[n];
+            if ((p = ForkJoinPool.getCommonPoolParallelism()) > 1)
+                parallelSetAll(keys, i -> ArraysParallelRadixSort.signedKey(keyExtractor.applyAsDouble(a[i])));
+            else {
+                for (int i = 0; i < n; ++i)
+                    keys[i] = ArraysParallelRadixSort.signedKey(keyExtractor.applyAsDouble(a[i]));
+                p = 0;
+            }
+            ArraysParallelRadixSort.sort(keys, a, p);
+        }
+    }
+
     /*
      * Sorting of complex type arrays.
      */
@@ -1758,6 +1938,327 @@ public class Arrays {
                     (null, op, array, fromIndex, toIndex).invoke();
     }
 
+    // Merging
+
+    /**
+     * Merges the specified sorted arrays of ints into a new sorted array.
+     * Each array must be sorted into ascending numerical order (as by the
+     * {@link #sort(int[])} method) prior to making this call.  If it is
+     * not, the contents of the result are unspecified.
+     *
+     * @implNote Two arrays are merged by a single linear pass.  More
+     * arrays are merged through a loser tree, taking about
+     * <i>log<sub>2</sub> k</i> comparisons per element for {@code k}
+     * arrays, without allocating per element.
+     *
+     * @param runs the sorted arrays to be merged
+     * @return a new array containing the elements of all of the given
+     *         arrays, in ascending numerical order
+     * @throws NullPointerException if {@code runs} or any of its
+     *         elements is null
+     * @throws OutOfMemoryError if the total length exceeds the maximum
+     *         array length
+     * @since 1.9
+     */
+    public static int[] merge(int[]... runs) {
+        return merge(runs, 1);
+    }
+
+    /**
+     * Merges the specified sorted arrays of ints into a new sorted array,
+     * in parallel for large inputs.  Each array must be sorted into
+     * ascending numerical order (as by the {@link #parallelSort(int[])} method)
+     * prior to making this call.  If it is not, the contents of the
+     * result are unspecified.
+     *
+     * @implNote The output is divided recursively into halves, the
+     * position of each split in every input array being found by binary
+     * searches ("co-ranking"), and the resulting pieces are merged
+     * independently as by {@link #merge(int[]...)}.  The {@link
+     * ForkJoinPool#commonPool() ForkJoin common pool} is used to execute
+     * the parallel tasks.  Inputs with at most the minimum granularity of
+     * {@link #parallelSort(int[])} in total are merged sequentially.
+     *
+     * @param runs the sorted arrays to be merged
+     * @return a new array containing the elements of all of the given
+     *         arrays, in ascending numerical order
+     * @throws NullPointerException if {@code runs} or any of its
+     *         elements is null
+     * @throws OutOfMemoryError if the total length exceeds the maximum
+     *         array length
+     * @since 1.9
+     */
+    public static int[] parallelMerge(int[]... runs) {
+        return merge(runs, ForkJoinPool.getCommonPoolParallelism());
+    }
+
+    private static int[] merge(int[][] runs, int parallelism) {
+        int k = runs.length;
+        int[] lo = new int[k], hi = new int[k];
+        long n = 0L;
+        for (int i = 0; i < k; ++i)
+            n += hi[i] = runs[i].length;
+        if (n > Integer.MAX_VALUE)
+            throw new OutOfMemoryError("Required array length too large");
+        int[] dst = new int[(int)n];
+        if (k > 0)
+            merge(new ArraysMergeHelpers.IntMerger(runs, dst),
+                  lo, hi, (int)n, parallelism);
+        return dst;
+    }
+
+    /**
+     * Merges the specified sorted arrays of longs into a new sorted array.
+     * Each array must be sorted into ascending numerical order (as by the
+     * {@link #sort(long[])} method) prior to making this call.  If it is
+     * not, the contents of the result are unspecified.
+     *
+     * @implNote Two arrays are merged by a single linear pass.  More
+     * arrays are merged through a loser tree, taking about
+     * <i>log<sub>2</sub> k</i> comparisons per element for {@code k}
+     * arrays, without allocating per element.
+     *
+     * @param runs the sorted arrays to be merged
+     * @return a new array containing the elements of all of the given
+     *         arrays, in ascending numerical order
+     * @throws NullPointerException if {@code runs} or any of its
+     *         elements is null
+     * @throws OutOfMemoryError if the total length exceeds the maximum
+     *         array length
+     * @since 1.9
+     */
+    public static long[] merge(long[]... runs) {
+        return merge(runs, 1);
+    }
+
+    /**
+     * Merges the specified sorted arrays of longs into a new sorted array,
+     * in parallel for large inputs.  Each array must be sorted into
+     * ascending numerical order (as by the {@link #parallelSort(long[])} method)
+     * prior to making this call.  If it is not, the contents of the
+     * result are unspecified.
+     *
+     * @implNote The output is divided recursively into halves, the
+     * position of each split in every input array being found by binary
+     * searches ("co-ranking"), and the resulting pieces are merged
+     * independently as by {@link #merge(long[]...)}.  The {@link
+     * ForkJoinPool#commonPool() ForkJoin common pool} is used to execute
+     * the parallel tasks.  Inputs with at most the minimum granularity of
+     * {@link #parallelSort(long[])} in total are merged sequentially.
+     *
+     * @param runs the sorted arrays to be merged
+     * @return a new array containing the elements of all of the given
+     *         arrays, in ascending numerical order
+     * @throws NullPointerException if {@code runs} or any of its
+     *         elements is null
+     * @throws OutOfMemoryError if the total length exceeds the maximum
+     *         array length
+     * @since 1.9
+     */
+    public static long[] parallelMerge(long[]... runs) {
+        return merge(runs, ForkJoinPool.getCommonPoolParallelism());
+    }
+
+    private static long[] merge(long[][] runs, int parallelism) {
+        int k = runs.length;
+        int[] lo = new int[k], hi = new int[k];
+        long n = 0L;
+        for (int i = 0; i < k; ++i)
+            n += hi[i] = runs[i].length;
+        if (n > Integer.MAX_VALUE)
+            throw new OutOfMemoryError("Required array length too large");
+        long[] dst = new long[(int)n];
+        if (k > 0)
+            merge(new ArraysMergeHelpers.LongMerger(runs, dst),
+                  lo, hi, (int)n, parallelism);
+        return dst;
+    }
+
+    /**
+     * Merges the specified sorted arrays of doubles into a new sorted array.
+     * Each array must be sorted into ascending numerical order (as by the
+     * {@link #sort(double[])} method) prior to making this call.  If it is
+     * not, the contents of the result are unspecified.
+     * Values are ordered as by {@link Double#compare}, as for the sort
+     * methods, so {@code -0.0d} precedes {@code 0.0d} and NaN values
+     * come last.
+     *
+     * @implNote Two arrays are merged by a single linear pass.  More
+     * arrays are merged through a loser tree, taking about
+     * <i>log<sub>2</sub> k</i> comparisons per element for {@code k}
+     * arrays, without allocating per element.
+     *
+     * @param runs the sorted arrays to be merged
+     * @return a new array containing the elements of all of the given
+     *         arrays, in ascending numerical order
+     * @throws NullPointerException if {@code runs} or any of its
+     *         elements is null
+     * @throws OutOfMemoryError if the total length exceeds the maximum
+     *         array length
+     * @since 1.9
+     */
+    public static double[] merge(double[]... runs) {
+        return merge(runs, 1);
+    }
+
+    /**
+     * Merges the specified sorted arrays of doubles into a new sorted array,
+     * in parallel for large inputs.  Each array must be sorted into
+     * ascending numerical order (as by the {@link #parallelSort(double[])} method)
+     * prior to making this call.  If it is not, the contents of the
+     * result are unspecified.
+     *
+     * @implNote The output is divided recursively into halves, the
+     * position of each split in every input array being found by binary
+     * searches ("co-ranking"), and the resulting pieces are merged
+     * independently as by {@link #merge(double[]...)}.  The {@link
+     * ForkJoinPool#commonPool() ForkJoin common pool} is used to execute
+     * the parallel tasks.  Inputs with at most the minimum granularity of
+     * {@link #parallelSort(double[])} in total are merged sequentially.
+     *
+     * @param runs the sorted arrays to be merged
+     * @return a new array containing the elements of all of the given
+     *         arrays, in ascending numerical order
+     * @throws NullPointerException if {@code runs} or any of its
+     *         elements is null
+     * @throws OutOfMemoryError if the total length exceeds the maximum
+     *         array length
+     * @since 1.9
+     */
+    public static double[] parallelMerge(double[]... runs) {
+        return merge(runs, ForkJoinPool.getCommonPoolParallelism());
+    }
+
+    private static double[] merge(double[][] runs, int parallelism) {
+        int k = runs.length;
+        int[] lo = new int[k], hi = new int[k];
+        long n = 0L;
+        for (int i = 0; i < k; ++i)
+            n += hi[i] = runs[i].length;
+        if (n > Integer.MAX_VALUE)
+            throw new OutOfMemoryError("Required array length too large");
+        double[] dst = new double[(int)n];
+        if (k > 0)
+            merge(new ArraysMergeHelpers.DoubleMerger(runs, dst),
+                  lo, hi, (int)n, parallelism);
+        return dst;
+    }
+
+    /**
+     * Merges the specified sorted arrays of objects into a new sorted
+     * array, according to the order induced by the specified comparator.
+     * Each array must be sorted according to that order (as by the
+     * {@link #sort(Object[], Comparator)} method) prior to making this
+     * call.  If it is not, the contents of the result are unspecified.
+     *
+     * <p>This merge is guaranteed to be <i>stable</i>:  equal elements
+     * appear in the order of the arrays they come from, and in their
+     * original order within each array.
+     *
+     * <p>The returned array has the component type that {@code runs}
+     * declares for its arrays, so that merging a {@code Number[][]}
+     * returns a {@code Number[]} even if the arrays it holds are all
+     * {@code Integer[]}s.
+     *
+     * @implNote Two arrays are merged by a single linear pass.  More
+     * arrays are merged through a loser tree, taking about
+     * <i>log<sub>2</sub> k</i> comparisons per element for {@code k}
+     * arrays, without allocating per element.
+     *
+     * @param <T> the class of the objects to be merged
+     * @param c the comparator to determine the order of the arrays.  A
+     *        {@code null} value indicates that the elements'
+     *        {@linkplain Comparable natural ordering} should be used.
+     * @param runs the sorted arrays to be merged
+     * @return a new array containing the elements of all of the given
+     *         arrays, in the order induced by the comparator
+     * @throws NullPointerException if {@code runs} or any of its
+     *         elements is null
+     * @throws ClassCastException if the arrays contain elements that are
+     *         not <i>mutually comparable</i> using the specified comparator
+     * @throws OutOfMemoryError if the total length exceeds the maximum
+     *         array length
+     * @since 1.9
+     */
+    public static <T> T[] merge(Comparator<? super T> c, T[][] runs) {
+        return merge(runs, c, 1);
+    }
+
+    /**
+     * Merges the specified sorted arrays of objects into a new sorted
+     * array, according to the order induced by the specified comparator,
+     * in parallel for large inputs.  Each array must be sorted according
+     * to that order (as by the {@link #parallelSort(Object[], Comparator)}
+     * method) prior to making this call.  If it is not, the contents of
+     * the result are unspecified.
+     *
+     * <p>This merge is guaranteed to be <i>stable</i>:  equal elements
+     * appear in the order of the arrays they come from, and in their
+     * original order within each array.
+     *
+     * @implNote The output is divided recursively into halves, the
+     * position of each split in every input array being found by binary
+     * searches ("co-ranking"), and the resulting pieces are merged
+     * independently as by {@link #merge(Comparator, Object[][])}.  The
+     * {@link ForkJoinPool#commonPool() ForkJoin common pool} is used to
+     * execute the parallel tasks.
+     *
+     * @param <T> the class of the objects to be merged
+     * @param c the comparator to determine the order of the arrays.  A
+     *        {@code null} value indicates that the elements'
+     *        {@linkplain Comparable natural ordering} should be used.
+     * @param runs the sorted arrays to be merged
+     * @return a new array containing the elements of all of the given
+     *         arrays, in the order induced by the comparator
+     * @throws NullPointerException if {@code runs} or any of its
+     *         elements is null
+     * @throws ClassCastException if the arrays contain elements that are
+     *         not <i>mutually comparable</i> using the specified comparator
+     * @throws OutOfMemoryError if the total length exceeds the maximum
+     *         array length
+     * @since 1.9
+     */
+    public static <T> T[] parallelMerge(Comparator<? super T> c,
+                                        T[][] runs) {
+        return merge(runs, c, ForkJoinPool.getCommonPoolParallelism());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T[] merge(T[][] runs, Comparator<? super T> c,
+                                 int parallelism) {
+        int k = runs.length;
+        int[] lo = new int[k], hi = new int[k];
+        long n = 0L;
+        for (int i = 0; i < k; ++i)
+            n += hi[i] = runs[i].length;
+        if (n > Integer.MAX_VALUE)
+            throw new OutOfMemoryError("Required array length too large");
+        if (c == null)
+            c = (Comparator<? super T>) Comparator.naturalOrder();
+        T[] dst = (T[]) Array.newInstance(runs.getClass().getComponentType()
+                                         .getComponentType(), (int)n);
+        if (k > 0)
+            merge(new ArraysMergeHelpers.ObjectMerger<>(runs, dst, c),
+                  lo, hi, (int)n, parallelism);
+        return dst;
+    }
+
+    /**
+     * Merges all of the runs of the given merger into its destination
+     * of length n, in parallel if parallelism is greater than one.
+     */
+    private static void merge(ArraysMergeHelpers.Merger m, int[] lo, int[] hi,
+                              int n, int parallelism) {
+        int g;
+        if (parallelism <= 1 || n <= MIN_ARRAY_SORT_GRAN)
+            m.merge(lo, hi, 0);
+        else
+            new ArraysMergeHelpers.MergeTask
+                (m, lo, hi, 0,
+                 ((g = n / (parallelism << 2)) <= MIN_ARRAY_SORT_GRAN) ?
+                 MIN_ARRAY_SORT_GRAN : g).invoke();
+    }
+
     // Searching
 
     /**
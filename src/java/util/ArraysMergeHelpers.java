@@ -0,0 +1,532 @@
+/*
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+package java.util;
+
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Consumer;
+
+/**
+ * Helper utilities for the merge methods in Arrays.merge and
+ * Arrays.parallelMerge, and for the merging iterators of
+ * Collections.mergeSorted and Spliterators.mergingSpliterator.
+ *
+ * A merge combines k sorted runs into one sorted sequence.  It is
+ * stable in the sense that equal elements keep their order within a
+ * run, and equal elements of an earlier run precede those of a later
+ * one, so the elements are totally ordered by (value, run, index).
+ *
+ * Two runs are merged by the usual two-finger loop.  More runs are
+ * merged through a loser tree (a tournament tree that stores at each
+ * internal node the loser of the match played there, and the overall
+ * winner at node 0).  With k leaves numbered k..2k-1 and internal
+ * nodes 1..k-1, every internal node has two children for any k, so
+ * no padding to a power of two is needed.  Taking the winner replays
+ * only the matches on the path from its leaf to the root, so each
+ * element costs about log2(k) comparisons, against 2 log2(k) for a
+ * binary heap.  Exhausted runs lose every match.  The tree state is
+ * a few int arrays per merge and nothing is allocated per element.
+ *
+ * Parallel merges split the output range in halves recursively.  The
+ * split points in the k runs for an output rank r ("co-ranking") are
+ * found by locating the element of rank r: for a candidate element x
+ * at index m of run i, its rank is its offset within run i, plus the
+ * number of elements of earlier runs that are not greater than x,
+ * plus the number of elements of later runs less than x.  The rank
+ * is strictly increasing in m, so a binary search over each run finds
+ * the one run containing rank r, and the same counts then give the
+ * split points of all runs.  Each half is then merged independently
+ * into its own disjoint part of the destination.  Splitting costs
+ * O(k^2 log^2 n) comparisons, which is negligible for halves of at
+ * least the minimum granularity.
+ *
+ * The primitive mergers are identical to each other except for type
+ * declarations and comparisons; double values are ordered as by
+ * Double.compare, consistently with Arrays.sort.
+ */
+/*package*/ final class ArraysMergeHelpers {
+
+    private ArraysMergeHelpers() {}
+
+    /**
+     * A set of sorted runs to be merged into a destination array.
+     * Positions are absolute indices into the runs; a range of each
+     * run is given by two vectors lo and hi of k positions.
+     */
+    abstract static class Merger {
+        final int k;
+
+        Merger(int k) { this.k = k; }
+
+        /**
+         * Compares element x of run i with element y of run j by value.
+         */
+        abstract int compare(int i, int x, int j, int y);
+
+        /**
+         * Merges the given ranges of the runs into the destination
+         * starting at index d.
+         */
+        abstract void merge(int[] lo, int[] hi, int d);
+
+        /**
+         * Returns the first index in [lo, hi) of run j whose element
+         * is greater than (if inclusive) or not less than element m of
+         * run i, or hi if none.
+         */
+        final int bound(int j, int lo, int hi, int i, int m, boolean inclusive) {
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1, c = compare(j, mid, i, m);
+                if (c < 0 || (inclusive && c == 0))
+                    lo = mid + 1;
+                else
+                    hi = mid;
+            }
+            return lo;
+        }
+
+        /**
+         * Returns the rank, among the given ranges, of element m of run
+         * i, storing into split (if non-null) the split points of all
+         * runs below that element.
+         */
+        final long rank(int[] lo, int[] hi, int i, int m, int[] split) {
+            long r = m - lo[i];
+            for (int j = 0; j < k; ++j) {
+                if (j != i) {
+                    int b = bound(j, lo[j], hi[j], i, m, j < i);
+                    r += b - lo[j];
+                    if (split != null)
+                        split[j] = b;
+                }
+            }
+            if (split != null)
+                split[i] = m;
+            return r;
+        }
+
+        /**
+         * Stores into split the positions dividing the given ranges
+         * into the first r merged elements and the rest.
+         */
+        final void split(int[] lo, int[] hi, long r, int[] split) {
+            for (int i = 0; i < k; ++i) {
+                int a = lo[i], b = hi[i];
+                while (a < b) {   // first m with rank(m) >= r
+                    int m = (a + b) >>> 1;
+                    if (rank(lo, hi, i, m, null) < r)
+                        a = m + 1;
+                    else
+                        b = m;
+                }
+                if (a < hi[i] && rank(lo, hi, i, a, split) == r)
+                    return;
+            }
+            System.arraycopy(hi, 0, split, 0, k); // r is the total
+        }
+
+        /**
+         * Builds a loser tree over runs with the given heads and limits
+         * into tree, returning the winner of the subtree at node.
+         */
+        final int build(int[] tree, int[] pos, int[] hi, int node) {
+            if (node >= k)
+                return node - k;
+            int a = build(tree, pos, hi, node << 1);
+            int b = build(tree, pos, hi, (node << 1) + 1);
+            if (beats(pos, hi, a, b)) {
+                tree[node] = b;
+                return a;
+            }
+            tree[node] = a;
+            return b;
+        }
+
+        /**
+         * Returns true if the head of run a precedes the head of run b.
+         */
+        final boolean beats(int[] pos, int[] hi, int a, int b) {
+            int x = pos[a], y = pos[b];
+            if (x >= hi[a])
+                return false;
+            if (y >= hi[b])
+                return true;
+            int c = compare(a, x, b, y);
+            return c < 0 || (c == 0 && a < b);
+        }
+    }
+
+    /**
+     * Task merging ranges of runs, splitting by output rank until
+     * ranges hold at most gran elements.
+     */
+    static final class MergeTask extends RecursiveAction {
+        private static final long serialVersionUID = 2446542900576103244L;
+        final Merger merger;
+        final int[] lo, hi;
+        final int d, gran;
+        MergeTask(Merger merger, int[] lo, int[] hi, int d, int gran) {
+            this.merger = merger; this.lo = lo; this.hi = hi;
+            this.d = d; this.gran = gran;
+        }
+        public final void compute() {
+            Merger m = merger; int[] lo = this.lo, hi = this.hi;
+            long n = 0L;
+            for (int i = 0; i < m.k; ++i)
+                n += hi[i] - lo[i];
+            if (n <= gran)
+                m.merge(lo, hi, d);
+            else {
+                int h = (int)(n >>> 1);
+                int[] mid = new int[m.k];
+                m.split(lo, hi, h, mid);
+                invokeAll(new MergeTask(m, lo, mid, d, gran),
+                          new MergeTask(m, mid, hi, d + h, gran));
+            }
+        }
+    }
+
+    static final class IntMerger extends Merger {
+        final int[][] runs; final int[] dst;
+        IntMerger(int[][] runs, int[] dst) {
+            super(runs.length); this.runs = runs; this.dst = dst;
+        }
+        int compare(int i, int x, int j, int y) {
+            return Integer.compare(runs[i][x], runs[j][y]);
+        }
+        void merge(int[] lo, int[] hi, int d) {
+            int[][] runs = this.runs; int[] dst = this.dst; int k = this.k;
+            if (k == 1)
+                System.arraycopy(runs[0], lo[0], dst, d, hi[0] - lo[0]);
+            else if (k == 2) {
+                int[] a = runs[0], b = runs[1];
+                int i = lo[0], ie = hi[0], j = lo[1], je = hi[1];
+                while (i < ie && j < je)
+                    dst[d++] = (b[j] < a[i]) ? b[j++] : a[i++];
+                if (i < ie)
+                    System.arraycopy(a, i, dst, d, ie - i);
+                else
+                    System.arraycopy(b, j, dst, d, je - j);
+            }
+            else {
+                int[] pos = lo.clone(), tree = new int[k];
+                int n = 0;
+                for (int i = 0; i < k; ++i)
+                    n += hi[i] - lo[i];
+                int w = build(tree, pos, hi, 1);
+                for (int end = d + n; d < end; ) {
+                    dst[d++] = runs[w][pos[w]++];
+                    for (int node = (w + k) >>> 1; node > 0; node >>>= 1) {
+                        int t = tree[node], x = pos[t], y = pos[w];
+                        if (x < hi[t] &&
+                            (y >= hi[w] || runs[t][x] < runs[w][y] ||
+                             (runs[t][x] == runs[w][y] && t < w))) {
+                            tree[node] = w;
+                            w = t;
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    static final class LongMerger extends Merger {
+        final long[][] runs; final long[] dst;
+        LongMerger(long[][] runs, long[] dst) {
+            super(runs.length); this.runs = runs; this.dst = dst;
+        }
+        int compare(int i, int x, int j, int y) {
+            return Long.compare(runs[i][x], runs[j][y]);
+        }
+        void merge(int[] lo, int[] hi, int d) {
+            long[][] runs = this.runs; long[] dst = this.dst; int k = this.k;
+            if (k == 1)
+                System.arraycopy(runs[0], lo[0], dst, d, hi[0] - lo[0]);
+            else if (k == 2) {
+                long[] a = runs[0], b = runs[1];
+                int i = lo[0], ie = hi[0], j = lo[1], je = hi[1];
+                while (i < ie && j < je)
+                    dst[d++] = (b[j] < a[i]) ? b[j++] : a[i++];
+                if (i < ie)
+                    System.arraycopy(a, i, dst, d, ie - i);
+                else
+                    System.arraycopy(b, j, dst, d, je - j);
+            }
+            else {
+                int[] pos = lo.clone(), tree = new int[k];
+                int n = 0;
+                for (int i = 0; i < k; ++i)
+                    n += hi[i] - lo[i];
+                int w = build(tree, pos, hi, 1);
+                for (int end = d + n; d < end; ) {
+                    dst[d++] = runs[w][pos[w]++];
+                    for (int node = (w + k) >>> 1; node > 0; node >>>= 1) {
+                        int t = tree[node], x = pos[t], y = pos[w];
+                        if (x < hi[t] &&
+                            (y >= hi[w] || runs[t][x] < runs[w][y] ||
+                             (runs[t][x] == runs[w][y] && t < w))) {
+                            tree[node] = w;
+                            w = t;
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    static final class DoubleMerger extends Merger {
+        final double[][] runs; final double[] dst;
+        DoubleMerger(double[][] runs, double[] dst) {
+            super(runs.length); this.runs = runs; this.dst = dst;
+        }
+        int compare(int i, int x, int j, int y) {
+            return Double.compare(runs[i][x], runs[j][y]);
+        }
+        void merge(int[] lo, int[] hi, int d) {
+            double[][] runs = this.runs; double[] dst = this.dst; int k = this.k;
+            if (k == 1)
+                System.arraycopy(runs[0], lo[0], dst, d, hi[0] - lo[0]);
+            else if (k == 2) {
+                double[] a = runs[0], b = runs[1];
+                int i = lo[0], ie = hi[0], j = lo[1], je = hi[1];
+                while (i < ie && j < je)
+                    dst[d++] = (Double.compare(b[j], a[i]) < 0) ? b[j++] : a[i++];
+                if (i < ie)
+                    System.arraycopy(a, i, dst, d, ie - i);
+                else
+                    System.arraycopy(b, j, dst, d, je - j);
+            }
+            else {
+                int[] pos = lo.clone(), tree = new int[k];
+                int n = 0;
+                for (int i = 0; i < k; ++i)
+                    n += hi[i] - lo[i];
+                int w = build(tree, pos, hi, 1);
+                for (int end = d + n; d < end; ) {
+                    dst[d++] = runs[w][pos[w]++];
+                    for (int node = (w + k) >>> 1; node > 0; node >>>= 1) {
+                        int t = tree[node], x = pos[t], y = pos[w], c;
+                        if (x < hi[t] &&
+                            (y >= hi[w] ||
+                             (c = Double.compare(runs[t][x], runs[w][y])) < 0 ||
+                             (c == 0 && t < w))) {
+                            tree[node] = w;
+                            w = t;
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    static final class ObjectMerger<T> extends Merger {
+        final T[][] runs; final T[] dst; final Comparator<? super T> cmp;
+        ObjectMerger(T[][] runs, T[] dst, Comparator<? super T> cmp) {
+            super(runs.length); this.runs = runs; this.dst = dst; this.cmp = cmp;
+        }
+        int compare(int i, int x, int j, int y) {
+            return cmp.compare(runs[i][x], runs[j][y]);
+        }
+        void merge(int[] lo, int[] hi, int d) {
+            T[][] runs = this.runs; T[] dst = this.dst; int k = this.k;
+            Comparator<? super T> cmp = this.cmp;
+            if (k == 1)
+                System.arraycopy(runs[0], lo[0], dst, d, hi[0] - lo[0]);
+            else if (k == 2) {
+                T[] a = runs[0], b = runs[1];
+                int i = lo[0], ie = hi[0], j = lo[1], je = hi[1];
+                while (i < ie && j < je)
+                    dst[d++] = (cmp.compare(b[j], a[i]) < 0) ? b[j++] : a[i++];
+                if (i < ie)
+                    System.arraycopy(a, i, dst, d, ie - i);
+                else
+                    System.arraycopy(b, j, dst, d, je - j);
+            }
+            else {
+                int[] pos = lo.clone(), tree = new int[k];
+                int n = 0;
+                for (int i = 0; i < k; ++i)
+                    n += hi[i] - lo[i];
+                int w = build(tree, pos, hi, 1);
+                for (int end = d + n; d < end; ) {
+                    dst[d++] = runs[w][pos[w]++];
+                    for (int node = (w + k) >>> 1; node > 0; node >>>= 1) {
+                        int t = tree[node], x = pos[t], y = pos[w], c;
+                        if (x < hi[t] &&
+                            (y >= hi[w] ||
+                             (c = cmp.compare(runs[t][x], runs[w][y])) < 0 ||
+                             (c == 0 && t < w))) {
+                            tree[node] = w;
+                            w = t;
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * An iterator merging sorted source iterators through a loser
+     * tree over their current heads.  A source is advanced only once
+     * its head has been returned, so at most one element per source
+     * is buffered.
+     */
+    static final class MergingIterator<T> implements Iterator<T> {
+        final Iterator<? extends T>[] sources;
+        final Object[] heads;
+        final boolean[] live;
+        final int[] tree;
+        final Comparator<? super T> cmp;
+        final int k;
+
+        @SuppressWarnings("unchecked")
+        MergingIterator(Collection<? extends Iterator<? extends T>> sources,
+                        Comparator<? super T> cmp) {
+            @SuppressWarnings({"rawtypes", "unchecked"})
+            Iterator<? extends T>[] its = sources.toArray(new Iterator[0]);
+            int k = its.length;
+            this.k = k;
+            this.sources = its;
+            this.heads = new Object[k];
+            this.live = new boolean[k];
+            this.tree = new int[Math.max(k, 1)];
+            this.cmp = (cmp != null) ? cmp :
+                (Comparator<? super T>) Comparator.naturalOrder();
+            for (int i = 0; i < k; ++i) {
+                Iterator<? extends T> it = Objects.requireNonNull(its[i]);
+                if (live[i] = it.hasNext())
+                    heads[i] = it.next();
+            }
+            if (k > 0)
+                tree[0] = build(1);
+        }
+
+        @SuppressWarnings("unchecked")
+        private boolean beats(int a, int b) {
+            if (!live[a])
+                return false;
+            if (!live[b])
+                return true;
+            int c = cmp.compare((T)heads[a], (T)heads[b]);
+            return c < 0 || (c == 0 && a < b);
+        }
+
+        private int build(int node) {
+            if (node >= k)
+                return node - k;
+            int a = build(node << 1), b = build((node << 1) + 1);
+            if (beats(a, b)) {
+                tree[node] = b;
+                return a;
+            }
+            tree[node] = a;
+            return b;
+        }
+
+        public boolean hasNext() {
+            return k > 0 && live[tree[0]];
+        }
+
+        @SuppressWarnings("unchecked")
+        public T next() {
+            int w;
+            if (k == 0 || !live[w = tree[0]])
+                throw new NoSuchElementException();
+            T e = (T)heads[w];
+            Iterator<? extends T> it = sources[w];
+            if (it.hasNext())
+                heads[w] = it.next();
+            else {
+                heads[w] = null;
+                live[w] = false;
+            }
+            for (int node = (w + k) >>> 1; node > 0; node >>>= 1) {
+                int t = tree[node];
+                if (beats(t, w)) {
+                    tree[node] = w;
+                    w = t;
+                }
+            }
+            tree[0] = w;
+            return e;
+        }
+    }
+
+    /**
+     * A spliterator over a MergingIterator, splitting off batches of
+     * increasing size into arrays as does the spliterator of
+     * Spliterators.spliteratorUnknownSize.  Only the (unsplit)
+     * remainder reports SORTED, since the order of the batches
+     * relative to each other is carried by their encounter order.
+     */
+    static final class MergingSpliterator<T> implements Spliterator<T> {
+        static final int BATCH_UNIT = 1 << 10;  // batch array size increment
+        static final int MAX_BATCH = 1 << 25;  // max batch array size;
+        final MergingIterator<T> it;
+        final Comparator<? super T> comparator; // as supplied
+        int batch;
+
+        MergingSpliterator(Collection<? extends Iterator<? extends T>> sources,
+                           Comparator<? super T> comparator) {
+            this.it = new MergingIterator<T>(sources, comparator);
+            this.comparator = comparator;
+        }
+
+        public boolean tryAdvance(Consumer<? super T> action) {
+            if (action == null) throw new NullPointerException();
+            if (it.hasNext()) {
+                action.accept(it.next());
+                return true;
+            }
+            return false;
+        }
+
+        public void forEachRemaining(Consumer<? super T> action) {
+            if (action == null) throw new NullPointerException();
+            while (it.hasNext())
+                action.accept(it.next());
+        }
+
+        public Spliterator<T> trySplit() {
+            MergingIterator<T> i = it;
+            if (i.hasNext()) {
+                int n = batch + BATCH_UNIT;
+                if (n > MAX_BATCH)
+                    n = MAX_BATCH;
+                Object[] a = new Object[n];
+                int j = 0;
+                do { a[j] = i.next(); } while (++j < n && i.hasNext());
+                batch = j;
+                return Spliterators.spliterator(a, 0, j, ORDERED);
+            }
+            return null;
+        }
+
+        public long estimateSize() { return Long.MAX_VALUE; }
+
+        public int characteristics() { return ORDERED | SORTED; }
+
+        public Comparator<? super T> getComparator() { return comparator; }
+    }
+}
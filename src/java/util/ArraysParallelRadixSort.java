@@ -0,0 +1,429 @@
+/*
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+package java.util;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Parallel least-significant-digit radix sorts for the large-array
+ * paths of Arrays.parallelSort on int, long, float and double arrays,
+ * and for the Arrays.parallelSortBy*Key methods on object arrays.
+ *
+ * Keys are sorted as unsigned integers, eight bits per pass, after an
+ * order-preserving mapping of the element type: flipping the sign
+ * bit for int and long, and for float and double additionally
+ * flipping all other bits of negative values (of the canonical
+ * floatToIntBits/doubleToLongBits representation, so that -0.0 sorts
+ * before 0.0 and all NaNs sort last, as for Arrays.sort).  The
+ * mapped key is recomputed from each element on each pass rather
+ * than stored, so elements, including NaN payloads, are moved intact.
+ *
+ * Each pass has two parallel phases over a fixed partition of the
+ * source into blocks: a histogram phase, in which each block counts
+ * the digits of its elements, and a scatter phase, in which each
+ * block moves its elements to the destination, starting at offsets
+ * computed (sequentially, over blocks * 256 counters) from all block
+ * histograms such that elements of each digit appear in block order.
+ * The sort is therefore stable, which matters only for the object
+ * variants.  Passes in which all elements share the same digit, as
+ * for the high digits of small non-negative values, are skipped.
+ * Source and destination alternate between the array and a workspace
+ * of the same length; if the result ends up in the workspace, a
+ * final parallel phase copies it back.
+ *
+ * As for the other helpers, the four sorters are identical to each
+ * other except for type declarations and key mappings.
+ */
+/*package*/ final class ArraysParallelRadixSort {
+
+    private ArraysParallelRadixSort() {}
+
+    /**
+     * The number of key bits per pass.
+     */
+    static final int RADIX_BITS = 8;
+
+    /**
+     * The number of distinct digits per pass.
+     */
+    static final int RADIX = 1 << RADIX_BITS;
+
+    /**
+     * The minimum number of elements per block.  Smaller blocks make
+     * the histogram combining step dominate.
+     */
+    static final int MIN_BLOCK_LENGTH = 1 << 16;
+
+    // Phases
+    static final int HISTOGRAM = 0, SCATTER = 1, COPY = 2;
+
+    /**
+     * Returns the number of blocks for sorting n elements with the
+     * given target parallelism.
+     */
+    static int blocksFor(int n, int parallelism) {
+        return Math.max(1, Math.min(n / MIN_BLOCK_LENGTH, parallelism << 2));
+    }
+
+    static void sort(int[] a, int from, int to, int parallelism) {
+        int n = to - from;
+        new IntSorter(a, null, from, n, blocksFor(n, parallelism)).sort();
+    }
+
+    static void sort(long[] a, int from, int to, int parallelism) {
+        int n = to - from;
+        new LongSorter(a, null, from, n, blocksFor(n, parallelism)).sort();
+    }
+
+    static void sort(float[] a, int from, int to, int parallelism) {
+        int n = to - from;
+        new FloatSorter(a, from, n, blocksFor(n, parallelism)).sort();
+    }
+
+    static void sort(double[] a, int from, int to, int parallelism) {
+        int n = to - from;
+        new DoubleSorter(a, from, n, blocksFor(n, parallelism)).sort();
+    }
+
+    /**
+     * Sorts keys, permuting the elements of items identically.
+     */
+    static void sort(int[] keys, Object[] items, int parallelism) {
+        int n = keys.length;
+        new IntSorter(keys, items, 0, n, blocksFor(n, parallelism)).sort();
+    }
+
+    /**
+     * Sorts keys, permuting the elements of items identically.
+     */
+    static void sort(long[] keys, Object[] items, int parallelism) {
+        int n = keys.length;
+        new LongSorter(keys, items, 0, n, blocksFor(n, parallelism)).sort();
+    }
+
+    /**
+     * Returns a long whose signed order is the Arrays.sort order of
+     * the given double.
+     */
+    static long signedKey(double d) {
+        long b = Double.doubleToLongBits(d);
+        return b ^ ((b >> 63) & Long.MAX_VALUE);
+    }
+
+    /**
+     * Driver shared by the sorters.  Blocks b cover positions
+     * [start(b), start(b + 1)) relative to the sorted range.
+     */
+    abstract static class Sorter {
+        final int n, blocks;
+        final int[][] counts;  // per block: digit counts, then offsets
+
+        Sorter(int n, int blocks) {
+            this.n = n;
+            this.blocks = blocks;
+            this.counts = new int[blocks][RADIX];
+        }
+
+        final int start(int b) {
+            return (int)((long)b * n / blocks);
+        }
+
+        /** Counts the digits at shift of the elements of block b. */
+        abstract void histogram(int b, int shift);
+        /** Moves the elements of block b to their offsets in counts. */
+        abstract void scatter(int b, int shift);
+        /** Copies block b of the workspace back to the array. */
+        abstract void copyBack(int b);
+        /** Exchanges source and destination. */
+        abstract void swap();
+        /** Returns true if the source is the array being sorted. */
+        abstract boolean inArray();
+
+        final void sort(int keyBits) {
+            for (int shift = 0; shift < keyBits; shift += RADIX_BITS) {
+                phase(HISTOGRAM, shift);
+                if (offsets()) {
+                    phase(SCATTER, shift);
+                    swap();
+                }
+            }
+            if (!inArray())
+                phase(COPY, 0);
+        }
+
+        /**
+         * Replaces counts by starting offsets, in digit-major,
+         * block-minor order.  Returns false, leaving counts unchanged,
+         * if all elements have the same digit, so the pass is not
+         * needed.
+         */
+        private boolean offsets() {
+            int[][] cs = counts;
+            int nb = blocks;
+            for (int d = 0; d < RADIX; ++d) {
+                int t = 0;
+                for (int b = 0; b < nb; ++b)
+                    t += cs[b][d];
+                if (t == n)
+                    return false;
+                if (t != 0)
+                    break;
+            }
+            int sum = 0;
+            for (int d = 0; d < RADIX; ++d) {
+                for (int b = 0; b < nb; ++b) {
+                    int[] c = cs[b];
+                    int k = c[d];
+                    c[d] = sum;
+                    sum += k;
+                }
+            }
+            return true;
+        }
+
+        final void phase(int phase, int shift) {
+            if (blocks == 1)
+                run(phase, 0, shift);
+            else
+                ForkJoinPool.commonPool().invoke
+                    (new Phase(this, phase, shift, 0, blocks));
+        }
+
+        final void run(int phase, int b, int shift) {
+            switch (phase) {
+            case HISTOGRAM:
+                Arrays.fill(counts[b], 0);
+                histogram(b, shift);
+                break;
+            case SCATTER:
+                scatter(b, shift);
+                break;
+            default:
+                copyBack(b);
+                break;
+            }
+        }
+    }
+
+    /**
+     * Runs a phase over a range of blocks, splitting in halves.
+     */
+    static final class Phase extends RecursiveAction {
+        static final long serialVersionUID = 2446542900576103244L;
+        final Sorter sorter;
+        final int phase, shift, lo, hi;
+        Phase(Sorter sorter, int phase, int shift, int lo, int hi) {
+            this.sorter = sorter; this.phase = phase; this.shift = shift;
+            this.lo = lo; this.hi = hi;
+        }
+        public final void compute() {
+            int l = lo, h = hi;
+            if (h - l == 1)
+                sorter.run(phase, l, shift);
+            else {
+                int m = (l + h) >>> 1;
+                invokeAll(new Phase(sorter, phase, shift, l, m),
+                          new Phase(sorter, phase, shift, m, h));
+            }
+        }
+    }
+
+    /** int keys, with optional items permuted alongside */
+    static final class IntSorter extends Sorter {
+        final int[] a; final Object[] items; final int base;
+        int[] src, dst; Object[] isrc, idst; int sb, db;
+        IntSorter(int[] a, Object[] items, int base, int n, int blocks) {
+            super(n, blocks);
+            this.a = a; this.items = items; this.base = base;
+            src = a; sb = base; dst = new int[n]; db = 0;
+            isrc = items; idst = (items == null) ? null : new Object[n];
+        }
+        void sort() { sort(32); }
+        void histogram(int b, int shift) {
+            int[] c = counts[b], s = src;
+            for (int i = sb + start(b), e = sb + start(b + 1); i < e; ++i)
+                ++c[((s[i] ^ Integer.MIN_VALUE) >>> shift) & (RADIX - 1)];
+        }
+        void scatter(int b, int shift) {
+            int[] c = counts[b], s = src, d = dst;
+            int o = db;
+            Object[] is = isrc, id = idst;
+            int i = sb + start(b), e = sb + start(b + 1);
+            if (is == null) {
+                for (; i < e; ++i) {
+                    int v = s[i];
+                    d[o + c[((v ^ Integer.MIN_VALUE) >>> shift) & (RADIX - 1)]++] = v;
+                }
+            }
+            else {
+                for (int j = i - sb; i < e; ++i, ++j) {
+                    int v = s[i], k;
+                    k = o + c[((v ^ Integer.MIN_VALUE) >>> shift) & (RADIX - 1)]++;
+                    d[k] = v;
+                    id[k] = is[j];
+                }
+            }
+        }
+        void copyBack(int b) {
+            int lo = start(b), len = start(b + 1) - lo;
+            System.arraycopy(src, lo, a, base + lo, len);
+            if (items != null)
+                System.arraycopy(isrc, lo, items, lo, len);
+        }
+        void swap() {
+            int[] t = src; src = dst; dst = t;
+            int tb = sb; sb = db; db = tb;
+            Object[] ti = isrc; isrc = idst; idst = ti;
+        }
+        boolean inArray() { return src == a; }
+    }
+
+    /** long keys, with optional items permuted alongside */
+    static final class LongSorter extends Sorter {
+        final long[] a; final Object[] items; final int base;
+        long[] src, dst; Object[] isrc, idst; int sb, db;
+        LongSorter(long[] a, Object[] items, int base, int n, int blocks) {
+            super(n, blocks);
+            this.a = a; this.items = items; this.base = base;
+            src = a; sb = base; dst = new long[n]; db = 0;
+            isrc = items; idst = (items == null) ? null : new Object[n];
+        }
+        void sort() { sort(64); }
+        void histogram(int b, int shift) {
+            int[] c = counts[b]; long[] s = src;
+            for (int i = sb + start(b), e = sb + start(b + 1); i < e; ++i)
+                ++c[(int)((s[i] ^ Long.MIN_VALUE) >>> shift) & (RADIX - 1)];
+        }
+        void scatter(int b, int shift) {
+            int[] c = counts[b]; long[] s = src, d = dst;
+            int o = db;
+            Object[] is = isrc, id = idst;
+            int i = sb + start(b), e = sb + start(b + 1);
+            if (is == null) {
+                for (; i < e; ++i) {
+                    long v = s[i];
+                    d[o + c[(int)((v ^ Long.MIN_VALUE) >>> shift) & (RADIX - 1)]++] = v;
+                }
+            }
+            else {
+                for (int j = i - sb; i < e; ++i, ++j) {
+                    long v = s[i]; int k;
+                    k = o + c[(int)((v ^ Long.MIN_VALUE) >>> shift) & (RADIX - 1)]++;
+                    d[k] = v;
+                    id[k] = is[j];
+                }
+            }
+        }
+        void copyBack(int b) {
+            int lo = start(b), len = start(b + 1) - lo;
+            System.arraycopy(src, lo, a, base + lo, len);
+            if (items != null)
+                System.arraycopy(isrc, lo, items, lo, len);
+        }
+        void swap() {
+            long[] t = src; src = dst; dst = t;
+            int tb = sb; sb = db; db = tb;
+            Object[] ti = isrc; isrc = idst; idst = ti;
+        }
+        boolean inArray() { return src == a; }
+    }
+
+    /** float */
+    static final class FloatSorter extends Sorter {
+        final float[] a; final int base;
+        float[] src, dst; int sb, db;
+        FloatSorter(float[] a, int base, int n, int blocks) {
+            super(n, blocks);
+            this.a = a; this.base = base;
+            src = a; sb = base; dst = new float[n]; db = 0;
+        }
+        static int key(float f) {
+            int x = Float.floatToIntBits(f);
+            return x ^ ((x >> 31) | Integer.MIN_VALUE);
+        }
+        void sort() { sort(32); }
+        void histogram(int b, int shift) {
+            int[] c = counts[b]; float[] s = src;
+            for (int i = sb + start(b), e = sb + start(b + 1); i < e; ++i)
+                ++c[(key(s[i]) >>> shift) & (RADIX - 1)];
+        }
+        void scatter(int b, int shift) {
+            int[] c = counts[b]; float[] s = src, d = dst;
+            int o = db;
+            for (int i = sb + start(b), e = sb + start(b + 1); i < e; ++i) {
+                float v = s[i];
+                d[o + c[(key(v) >>> shift) & (RADIX - 1)]++] = v;
+            }
+        }
+        void copyBack(int b) {
+            int lo = start(b);
+            System.arraycopy(src, lo, a, base + lo, start(b + 1) - lo);
+        }
+        void swap() {
+            float[] t = src; src = dst; dst = t;
+            int tb = sb; sb = db; db = tb;
+        }
+        boolean inArray() { return src == a; }
+    }
+
+    /** double */
+    static final class DoubleSorter extends Sorter {
+        final double[] a; final int base;
+        double[] src, dst; int sb, db;
+        DoubleSorter(double[] a, int base, int n, int blocks) {
+            super(n, blocks);
+            this.a = a; this.base = base;
+            src = a; sb = base; dst = new double[n]; db = 0;
+        }
+        static long key(double v) {
+            long x = Double.doubleToLongBits(v);
+            return x ^ ((x >> 63) | Long.MIN_VALUE);
+        }
+        void sort() { sort(64); }
+        void histogram(int b, int shift) {
+            int[] c = counts[b]; double[] s = src;
+            for (int i = sb + start(b), e = sb + start(b + 1); i < e; ++i)
+                ++c[(int)(key(s[i]) >>> shift) & (RADIX - 1)];
+        }
+        void scatter(int b, int shift) {
+            int[] c = counts[b]; double[] s = src, d = dst;
+            int o = db;
+            for (int i = sb + start(b), e = sb + start(b + 1); i < e; ++i) {
+                double v = s[i];
+                d[o + c[(int)(key(v) >>> shift) & (RADIX - 1)]++] = v;
+            }
+        }
+        void copyBack(int b) {
+            int lo = start(b);
+            System.arraycopy(src, lo, a, base + lo, start(b + 1) - lo);
+        }
+        void swap() {
+            double[] t = src; src = dst; dst = t;
+            int tb = sb; sb = db; db = tb;
+        }
+        boolean inArray() { return src == a; }
+    }
+}
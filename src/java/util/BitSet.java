@@ -29,6 +29,7 @@ import java.io.*;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 import java.nio.LongBuffer;
+import java.util.function.IntConsumer;
 import java.util.stream.IntStream;
 import java.util.stream.StreamSupport;
 
@@ -1209,6 +1210,11 @@ public class BitSet implements Cloneable, java.io.Serializable {
      * is the number of bits in the set state, equal to the value
      * returned by the {@link #cardinality()} method.
      *
+     * <p>The stream binds to this bit set when the terminal stream
+     * operation commences.  Its spliterator splits the range of
+     * words in use into halves, so parallel streams over large bit
+     * sets divide the work evenly among threads.
+     *
      * <p>The bit set must remain constant during the execution of the
      * terminal stream operation.  Otherwise, the result of the terminal
      * stream operation is undefined.
@@ -1217,32 +1223,114 @@ public class BitSet implements Cloneable, java.io.Serializable {
      * @since 1.8
      */
     public IntStream stream() {
-        class BitSetIterator implements PrimitiveIterator.OfInt {
-            int next = nextSetBit(0);
+        return StreamSupport.intStream(new BitSetSpliterator(0, -1, 0, true),
+                                       false);
+    }
+
+    /**
+     * A late-binding spliterator over the set bits of a range of
+     * words.  Splits halve the range at a word boundary.  The size is
+     * exact, and reported as such, only until the first split, since
+     * counting the bits of each half would cost a pass over the words.
+     */
+    private final class BitSetSpliterator implements Spliterator.OfInt {
+        private int index; // current word index
+        private int fence; // one past last word index; -1 until bound
+        private long word; // unvisited bits of the current word
+        private int est;   // size estimate
+        private boolean root; // true if not split, so est is exact
+
+        BitSetSpliterator(int origin, int fence, int est, boolean root) {
+            this.index = origin;
+            this.fence = fence;
+            this.est = est;
+            this.root = root;
+            if (fence >= 0 && origin < fence)
+                word = words[origin];
+        }
 
-            @Override
-            public boolean hasNext() {
-                return next != -1;
+        private int getFence() {
+            int hi;
+            if ((hi = fence) < 0) {
+                hi = fence = wordsInUse;
+                est = cardinality();
+                if (index < hi)
+                    word = words[index];
             }
+            return hi;
+        }
 
-            @Override
-            public int nextInt() {
-                if (next != -1) {
-                    int ret = next;
-                    next = nextSetBit(next+1);
-                    return ret;
-                } else {
-                    throw new NoSuchElementException();
+        public boolean tryAdvance(IntConsumer action) {
+            if (action == null)
+                throw new NullPointerException();
+            int hi = getFence();
+            for (int u = index; u < hi; word = (++u < hi) ? words[u] : 0L) {
+                long w;
+                if ((w = word) != 0L) {
+                    word = w & (w - 1);
+                    index = u;
+                    if (est > 0)
+                        --est;
+                    action.accept((u << ADDRESS_BITS_PER_WORD) +
+                                  Long.numberOfTrailingZeros(w));
+                    return true;
                 }
+                index = u + 1;
             }
+            return false;
         }
 
-        return StreamSupport.intStream(
-                () -> Spliterators.spliterator(
-                        new BitSetIterator(), cardinality(),
-                        Spliterator.ORDERED | Spliterator.DISTINCT | Spliterator.SORTED),
-                Spliterator.SIZED | Spliterator.SUBSIZED |
-                        Spliterator.ORDERED | Spliterator.DISTINCT | Spliterator.SORTED,
-                false);
+        public void forEachRemaining(IntConsumer action) {
+            if (action == null)
+                throw new NullPointerException();
+            int hi = getFence(), u = index;
+            if (u < hi) {
+                long[] ws = words;
+                long w = word;
+                index = hi;
+                word = 0L;
+                est = 0;
+                for (;;) {
+                    while (w != 0L) {
+                        action.accept((u << ADDRESS_BITS_PER_WORD) +
+                                      Long.numberOfTrailingZeros(w));
+                        w &= w - 1;
+                    }
+                    if (++u >= hi)
+                        break;
+                    w = ws[u];
+                }
+            }
+        }
+
+        public Spliterator.OfInt trySplit() {
+            int hi = getFence(), lo = index;
+            if (hi - lo < 2)
+                return null;
+            int mid = (lo + 1 + hi) >>> 1;
+            // prefix takes the partly consumed current word
+            BitSetSpliterator prefix =
+                new BitSetSpliterator(lo, mid, est >>>= 1, false);
+            prefix.word = word;
+            index = mid;
+            word = words[mid];
+            root = false;
+            return prefix;
+        }
+
+        public long estimateSize() {
+            getFence();
+            return est;
+        }
+
+        public int characteristics() {
+            return (root ? Spliterator.SIZED : 0) |
+                Spliterator.ORDERED | Spliterator.DISTINCT |
+                Spliterator.SORTED;
+        }
+
+        public Comparator<? super Integer> getComparator() {
+            return null;
+        }
     }
 }
@@ -4155,6 +4155,49 @@ public class Collections {
         }
     }
 
+    // Merging
+
+    /**
+     * Returns an iterator over the elements of the specified iterators,
+     * each of which must return its elements in ascending order according
+     * to the specified comparator, in ascending order according to that
+     * comparator.  If some iterator does not return its elements in
+     * that order, the order of the returned elements is unspecified.
+     *
+     * <p>The merge is <i>stable</i>:  equal elements are returned in the
+     * encounter order of the iterators in the specified collection, and
+     * in their original order within each iterator.
+     *
+     * <p>The first element of each iterator is read when this method is
+     * called, and each later one only after the previous element of the
+     * same iterator has been returned, so that at most one element per
+     * iterator is held at a time.  The specified iterators must not be
+     * used after this method is called.  The returned iterator does not
+     * support {@code remove}.
+     *
+     * @implNote The iterators are merged through a loser tree, taking
+     * about <i>log<sub>2</sub> k</i> comparisons per element for {@code
+     * k} iterators, without allocating per element.
+     *
+     * @param <T> the class of the elements
+     * @param iterators the iterators to be merged
+     * @param c the comparator determining the order of the elements.  A
+     *        {@code null} value indicates that the elements'
+     *        {@linkplain Comparable natural ordering} should be used.
+     * @return an iterator over the merged elements
+     * @throws NullPointerException if {@code iterators} or any of its
+     *         elements is null
+     * @throws ClassCastException if the iterators contain elements that
+     *         are not <i>mutually comparable</i> using the specified
+     *         comparator
+     * @see Spliterators#mergingSpliterator(Collection, Comparator)
+     * @since 1.9
+     */
+    public static <T> Iterator<T> mergeSorted(Collection<? extends Iterator<? extends T>> iterators,
+                                              Comparator<? super T> c) {
+        return new ArraysMergeHelpers.MergingIterator<>(iterators, c);
+    }
+
     // Empty collections
 
     /**
@@ -0,0 +1,976 @@
+/*
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+package java.util;
+
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.Serializable;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+
+/**
+ * Hash table based implementation of the {@code Map} interface, with
+ * predictable iteration order, laid out for minimal footprint.  This
+ * class behaves like {@link LinkedHashMap} in its default
+ * (insertion-order) mode: it permits {@code null} keys and values,
+ * and its collection views iterate in the order in which keys were
+ * first inserted into the map.  (Re-inserting a key that is already
+ * present does not change its position.)
+ *
+ * <p>Unlike {@code HashMap} and {@code LinkedHashMap}, which allocate
+ * an entry object of 32 or 40 bytes per mapping, this class keeps no
+ * per-mapping objects.  Keys, values and cached hash codes are
+ * appended to three parallel arrays in insertion order, and a
+ * separate open-addressing index table of {@code short} elements
+ * (or {@code int} elements once the map holds more than 65535
+ * entries) maps hash codes to positions in those arrays.  A map of
+ * a few mappings, typical of maps used as records, thus takes a
+ * fraction of the space of a {@code HashMap}, and iteration is a
+ * sequential scan of arrays rather than a traversal of linked nodes.
+ *
+ * <p>This class offers constant-time performance for the basic
+ * operations ({@code get}, {@code put}, {@code containsKey} and
+ * {@code remove}), assuming the hash function disperses the elements
+ * properly.  Removing a mapping leaves a hole in the entry arrays
+ * that is reclaimed when they next fill, so removal-heavy workloads
+ * are better served by {@code HashMap}.  Since there are no
+ * collision trees, keys with many colliding hash codes degrade
+ * lookups to linear time.
+ *
+ * <p>The entries returned by the iterator of the {@code entrySet}
+ * view are created on demand and read through to the map:
+ * {@code getValue} and {@code setValue} on an entry whose mapping
+ * is still present access the map's current value.
+ *
+ * <p><strong>Note that this implementation is not
+ * synchronized.</strong> If multiple threads access a compact hash
+ * map concurrently, and at least one of the threads modifies the map
+ * structurally, it <i>must</i> be synchronized externally.
+ *
+ * <p>The iterators returned by the {@code iterator} method of the
+ * collections returned by all of this class's collection view
+ * methods are <em>fail-fast</em>, as for {@code HashMap}, and the
+ * spliterators, created from these iterators, additionally report
+ * {@link Spliterator#ORDERED}.
+ *
+ * @param <K> the type of keys maintained by this map
+ * @param <V> the type of mapped values
+ *
+ * @see     HashMap
+ * @see     LinkedHashMap
+ * @since   1.9
+ */
+public class CompactHashMap<K,V> extends AbstractMap<K,V>
+    implements Map<K,V>, Cloneable, Serializable {
+
+    private static final long serialVersionUID = 5237823432087412306L;
+
+    /*
+     * Implementation notes.
+     *
+     * Entries occupy indices [0, used) of the keys, vals and hashes
+     * arrays, in insertion order.  A removed entry's key is replaced
+     * by the REMOVED sentinel, and its value cleared, leaving a hole;
+     * holes at the end are trimmed immediately, and the rest are
+     * squeezed out when an insertion finds the arrays full (in place,
+     * if holes make up a quarter of the arrays, else while copying
+     * them into larger ones).  Entry indices are therefore stable
+     * except across insertions, which is what lets iterators remove
+     * entries without disturbing their traversal.
+     *
+     * The index table holds, for each entry, its index plus one,
+     * zero marking free slots, probed linearly from the entry's hash
+     * masked to the table length.  The table has at least twice as
+     * many slots as the entry arrays have elements, so its load
+     * factor never exceeds one half.  It is a short[] (read as
+     * unsigned) when the entry arrays have at most MAX_SHORT_ENTRIES
+     * elements, and an int[] otherwise; exactly one of shortIndex and
+     * intIndex is non-null once the arrays are allocated.  Removal
+     * from the index uses backward shifting, as in LongHashSet, so
+     * holes in the entry arrays never need index slots.
+     *
+     * Hash codes are spread as in HashMap and cached, so that
+     * probing compares keys only when full hashes match and
+     * rebuilding the index calls no hashCode methods.
+     */
+
+    /**
+     * The capacity of the entry arrays on first insertion into a map
+     * created with no initial capacity.
+     */
+    static final int DEFAULT_CAPACITY = 8;
+
+    /**
+     * The maximum capacity of the entry arrays, chosen so that the
+     * index table length fits in a positive int.
+     */
+    static final int MAXIMUM_CAPACITY = 1 << 29;
+
+    /**
+     * The largest entry array capacity for which a short[] index is
+     * used.
+     */
+    static final int MAX_SHORT_ENTRIES = 0xffff;
+
+    /**
+     * Shared empty arrays for maps that have not yet been inserted
+     * into.
+     */
+    private static final Object[] EMPTY_ENTRIES = {};
+    private static final int[] EMPTY_HASHES = {};
+
+    /**
+     * The key of removed entries.
+     */
+    static final Object REMOVED = new Object();
+
+    /**
+     * The keys, in insertion order, or REMOVED.
+     */
+    transient Object[] keys;
+
+    /**
+     * The values, indexed as for keys.
+     */
+    transient Object[] vals;
+
+    /**
+     * The spread hash codes of the keys, indexed as for keys.
+     */
+    transient int[] hashes;
+
+    /**
+     * The index table, if the entry arrays are small enough.
+     */
+    transient short[] shortIndex;
+
+    /**
+     * The index table, if the entry arrays are too large for
+     * shortIndex.
+     */
+    transient int[] intIndex;
+
+    /**
+     * The number of elements of the entry arrays in use, including
+     * holes.
+     */
+    transient int used;
+
+    /**
+     * The number of key-value mappings contained in this map.
+     */
+    transient int size;
+
+    /**
+     * The number of times this map has been structurally modified.
+     */
+    transient int modCount;
+
+    /**
+     * The capacity to allocate on first insertion.
+     */
+    transient int initialCapacity;
+
+    /**
+     * The entry set view, created lazily.
+     */
+    transient Set<Map.Entry<K,V>> entrySet;
+
+    /**
+     * Constructs an empty map with room for the specified number of
+     * mappings.
+     *
+     * @param  initialCapacity the number of mappings the map should
+     *         be able to hold without resizing
+     * @throws IllegalArgumentException if the initial capacity is negative
+     */
+    public CompactHashMap(int initialCapacity) {
+        if (initialCapacity < 0)
+            throw new IllegalArgumentException("Illegal initial capacity: " +
+                                               initialCapacity);
+        this.initialCapacity = Math.min(initialCapacity, MAXIMUM_CAPACITY);
+        keys = vals = EMPTY_ENTRIES;
+        hashes = EMPTY_HASHES;
+    }
+
+    /**
+     * Constructs an empty map with room for eight mappings.
+     */
+    public CompactHashMap() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Constructs a map with the same mappings as the specified map,
+     * inserted in the order returned by its entry set iterator.
+     *
+     * @param  m the map whose mappings are to be placed in this map
+     * @throws NullPointerException if the specified map is null
+     */
+    public CompactHashMap(Map<? extends K, ? extends V> m) {
+        this(Math.max(m.size(), DEFAULT_CAPACITY));
+        putAll(m);
+    }
+
+    // Index table access
+
+    private int indexLength() {
+        short[] s;
+        return ((s = shortIndex) != null) ? s.length : intIndex.length;
+    }
+
+    private int slot(int j) {
+        short[] s;
+        return ((s = shortIndex) != null) ? s[j] & 0xffff : intIndex[j];
+    }
+
+    private void setSlot(int j, int v) {
+        short[] s;
+        if ((s = shortIndex) != null)
+            s[j] = (short)v;
+        else
+            intIndex[j] = v;
+    }
+
+    /**
+     * Returns the index table position referring to the entry for the
+     * given key, or -1 if absent.
+     */
+    final int slotFor(Object key, int h) {
+        if (size == 0)
+            return -1;
+        Object[] ks = keys;
+        int[] hs = hashes;
+        int mask = indexLength() - 1;
+        for (int j = h & mask;; j = (j + 1) & mask) {
+            int s, i; Object k;
+            if ((s = slot(j)) == 0)
+                return -1;
+            if (hs[i = s - 1] == h &&
+                ((k = ks[i]) == key || (key != null && key.equals(k))))
+                return j;
+        }
+    }
+
+    /**
+     * Returns the entry index for the given key, or -1 if absent.
+     */
+    final int indexOf(Object key) {
+        int j = slotFor(key, HashMap.hash(key));
+        return (j < 0) ? -1 : slot(j) - 1;
+    }
+
+    /**
+     * Returns the number of key-value mappings in this map.
+     *
+     * @return the number of key-value mappings in this map
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns <tt>true</tt> if this map contains no key-value mappings.
+     *
+     * @return <tt>true</tt> if this map contains no key-value mappings
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Returns the value to which the specified key is mapped,
+     * or {@code null} if this map contains no mapping for the key.
+     *
+     * <p>A return value of {@code null} does not <i>necessarily</i>
+     * indicate that the map contains no mapping for the key; it's also
+     * possible that the map explicitly maps the key to {@code null}.
+     * The {@link #containsKey containsKey} operation may be used to
+     * distinguish these two cases.
+     *
+     * @see #put(Object, Object)
+     */
+    @SuppressWarnings("unchecked")
+    public V get(Object key) {
+        int i;
+        return ((i = indexOf(key)) < 0) ? null : (V)vals[i];
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V getOrDefault(Object key, V defaultValue) {
+        int i;
+        return ((i = indexOf(key)) < 0) ? defaultValue : (V)vals[i];
+    }
+
+    /**
+     * Returns <tt>true</tt> if this map contains a mapping for the
+     * specified key.
+     *
+     * @param   key   The key whose presence in this map is to be tested
+     * @return <tt>true</tt> if this map contains a mapping for the specified
+     * key.
+     */
+    public boolean containsKey(Object key) {
+        return indexOf(key) >= 0;
+    }
+
+    /**
+     * Associates the specified value with the specified key in this map.
+     * If the map previously contained a mapping for the key, the old
+     * value is replaced, and the mapping keeps its position in the
+     * iteration order.
+     *
+     * @param key key with which the specified value is to be associated
+     * @param value value to be associated with the specified key
+     * @return the previous value associated with <tt>key</tt>, or
+     *         <tt>null</tt> if there was no mapping for <tt>key</tt>.
+     *         (A <tt>null</tt> return can also indicate that the map
+     *         previously associated <tt>null</tt> with <tt>key</tt>.)
+     */
+    public V put(K key, V value) {
+        return putVal(HashMap.hash(key), key, value, false);
+    }
+
+    @Override
+    public V putIfAbsent(K key, V value) {
+        return putVal(HashMap.hash(key), key, value, true);
+    }
+
+    /**
+     * Implements Map.put and related methods.
+     *
+     * @param h hash for key
+     * @param key the key
+     * @param value the value to put
+     * @param onlyIfAbsent if true, don't change existing non-null value
+     * @return previous value, or null if none
+     */
+    @SuppressWarnings("unchecked")
+    final V putVal(int h, K key, V value, boolean onlyIfAbsent) {
+        int j, i;
+        if ((j = slotFor(key, h)) >= 0) {
+            V old = (V)vals[i = slot(j) - 1];
+            if (!onlyIfAbsent || old == null)
+                vals[i] = value;
+            return old;
+        }
+        if (used == keys.length)
+            makeRoom();
+        keys[i = used++] = key;
+        vals[i] = value;
+        hashes[i] = h;
+        int mask = indexLength() - 1;
+        for (j = h & mask; slot(j) != 0; j = (j + 1) & mask)
+            ;
+        setSlot(j, i + 1);
+        ++size;
+        ++modCount;
+        return null;
+    }
+
+    /**
+     * Makes room for an insertion into full entry arrays, by squeezing
+     * out holes if there are enough of them, else by growing.
+     */
+    private void makeRoom() {
+        int cap = keys.length, holes = used - size, newCap;
+        if (cap == 0)
+            newCap = Math.max(initialCapacity, 1);
+        else if (holes > 0 && holes >= (cap >>> 2))
+            newCap = cap;
+        else if (cap >= MAXIMUM_CAPACITY)
+            throw new OutOfMemoryError("Map capacity exceeded");
+        else
+            newCap = (int)Math.min(cap + (cap >> 1) + 1L, MAXIMUM_CAPACITY);
+        resize(newCap);
+    }
+
+    /**
+     * Moves the entries, without holes, into arrays of the given
+     * capacity, which may be the current arrays, and rebuilds the
+     * index table.
+     */
+    final void resize(int newCap) {
+        Object[] oks = keys, ovs = vals, ks, vs;
+        int[] ohs = hashes, hs;
+        int n = used, k = 0;
+        if (newCap == oks.length) {
+            ks = oks; vs = ovs; hs = ohs;
+        }
+        else {
+            ks = new Object[newCap];
+            vs = new Object[newCap];
+            hs = new int[newCap];
+        }
+        for (int i = 0; i < n; ++i) {
+            Object key;
+            if ((key = oks[i]) != REMOVED) {
+                ks[k] = key;
+                vs[k] = ovs[i];
+                hs[k] = ohs[i];
+                ++k;
+            }
+        }
+        if (ks == oks) {
+            Arrays.fill(ks, k, n, null);
+            Arrays.fill(vs, k, n, null);
+        }
+        keys = ks;
+        vals = vs;
+        hashes = hs;
+        used = k;
+
+        int len = (newCap == 0) ? 1 : HashMap.tableSizeFor(newCap << 1);
+        if (newCap <= MAX_SHORT_ENTRIES) {
+            short[] s;
+            if ((s = shortIndex) != null && s.length == len)
+                Arrays.fill(s, (short)0);
+            else
+                shortIndex = new short[len];
+            intIndex = null;
+        }
+        else {
+            int[] t;
+            if ((t = intIndex) != null && t.length == len)
+                Arrays.fill(t, 0);
+            else
+                intIndex = new int[len];
+            shortIndex = null;
+        }
+        int mask = len - 1;
+        for (int i = 0; i < k; ++i) {
+            int j;
+            for (j = hs[i] & mask; slot(j) != 0; j = (j + 1) & mask)
+                ;
+            setSlot(j, i + 1);
+        }
+    }
+
+    /**
+     * Removes the entry referred to by index table position j.
+     */
+    final void removeAt(int j) {
+        int i = slot(j) - 1, mask = indexLength() - 1;
+        int[] hs = hashes;
+        for (int k = j;;) {
+            int s;
+            if ((s = slot(k = (k + 1) & mask)) == 0)
+                break;
+            int home = hs[s - 1] & mask;
+            if (((k - home) & mask) >= ((k - j) & mask)) {
+                setSlot(j, s);
+                j = k;
+            }
+        }
+        setSlot(j, 0);
+        Object[] ks = keys;
+        ks[i] = REMOVED;
+        vals[i] = null;
+        if (i == used - 1) {
+            int u = i;
+            while (u > 0 && ks[u - 1] == REMOVED)
+                --u;
+            Arrays.fill(ks, u, used, null);
+            used = u;
+        }
+        --size;
+        ++modCount;
+    }
+
+    /**
+     * Removes the entry at index i.
+     */
+    final void removeEntry(int i) {
+        int mask = indexLength() - 1, j;
+        for (j = hashes[i] & mask; slot(j) != i + 1; j = (j + 1) & mask)
+            ;
+        removeAt(j);
+    }
+
+    /**
+     * Removes the mapping for the specified key from this map if present.
+     *
+     * @param  key key whose mapping is to be removed from the map
+     * @return the previous value associated with <tt>key</tt>, or
+     *         <tt>null</tt> if there was no mapping for <tt>key</tt>.
+     *         (A <tt>null</tt> return can also indicate that the map
+     *         previously associated <tt>null</tt> with <tt>key</tt>.)
+     */
+    @SuppressWarnings("unchecked")
+    public V remove(Object key) {
+        int j;
+        if ((j = slotFor(key, HashMap.hash(key))) < 0)
+            return null;
+        V old = (V)vals[slot(j) - 1];
+        removeAt(j);
+        return old;
+    }
+
+    @Override
+    public boolean remove(Object key, Object value) {
+        int j;
+        if ((j = slotFor(key, HashMap.hash(key))) < 0 ||
+            !Objects.equals(vals[slot(j) - 1], value))
+            return false;
+        removeAt(j);
+        return true;
+    }
+
+    /**
+     * Removes all of the mappings from this map.
+     * The map will be empty after this call returns.
+     */
+    public void clear() {
+        modCount++;
+        if (used > 0) {
+            Arrays.fill(keys, 0, used, null);
+            Arrays.fill(vals, 0, used, null);
+            short[] s;
+            if ((s = shortIndex) != null)
+                Arrays.fill(s, (short)0);
+            else
+                Arrays.fill(intIndex, 0);
+            used = size = 0;
+        }
+    }
+
+    /**
+     * Trims the entry arrays and index table of this map to hold just
+     * its current mappings, squeezing out any holes left by removals.
+     */
+    public void trimToSize() {
+        if (size < keys.length) {
+            modCount++;
+            resize(size);
+        }
+    }
+
+    /**
+     * Returns <tt>true</tt> if this map maps one or more keys to the
+     * specified value.
+     *
+     * @param value value whose presence in this map is to be tested
+     * @return <tt>true</tt> if this map maps one or more keys to the
+     *         specified value
+     */
+    public boolean containsValue(Object value) {
+        Object[] ks = keys, vs = vals;
+        for (int i = 0, n = used; i < n; ++i) {
+            Object v;
+            if (ks[i] != REMOVED &&
+                ((v = vs[i]) == value || (value != null && value.equals(v))))
+                return true;
+        }
+        return false;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void forEach(BiConsumer<? super K, ? super V> action) {
+        if (action == null)
+            throw new NullPointerException();
+        int mc = modCount;
+        Object[] ks = keys, vs = vals;
+        for (int i = 0, n = used; i < n && modCount == mc; ++i) {
+            Object k;
+            if ((k = ks[i]) != REMOVED)
+                action.accept((K)k, (V)vs[i]);
+        }
+        if (modCount != mc)
+            throw new ConcurrentModificationException();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void replaceAll(BiFunction<? super K, ? super V, ? extends V> function) {
+        if (function == null)
+            throw new NullPointerException();
+        int mc = modCount;
+        Object[] ks = keys, vs = vals;
+        for (int i = 0, n = used; i < n && modCount == mc; ++i) {
+            Object k;
+            if ((k = ks[i]) != REMOVED)
+                vs[i] = function.apply((K)k, (V)vs[i]);
+        }
+        if (modCount != mc)
+            throw new ConcurrentModificationException();
+    }
+
+    @Override
+    public int hashCode() {
+        Object[] ks = keys, vs = vals;
+        int h = 0;
+        for (int i = 0, n = used; i < n; ++i) {
+            Object k;
+            if ((k = ks[i]) != REMOVED)
+                h += Objects.hashCode(k) ^ Objects.hashCode(vs[i]);
+        }
+        return h;
+    }
+
+    /**
+     * Returns a shallow copy of this map: the keys and values
+     * themselves are not cloned.  The copy has no holes.
+     *
+     * @return a shallow copy of this map
+     */
+    @SuppressWarnings("unchecked")
+    @Override
+    public Object clone() {
+        CompactHashMap<K,V> result;
+        try {
+            result = (CompactHashMap<K,V>)super.clone();
+        } catch (CloneNotSupportedException e) {
+            // this shouldn't happen, since we are Cloneable
+            throw new InternalError(e);
+        }
+        result.keySet = null;
+        result.values = null;
+        result.entrySet = null;
+        result.modCount = 0;
+        result.keys = keys.clone();
+        result.vals = vals.clone();
+        result.hashes = hashes.clone();
+        result.shortIndex = null;
+        result.intIndex = null;
+        result.resize(Math.max(size, 1));
+        return result;
+    }
+
+    // Views
+
+    /**
+     * Returns a {@link Set} view of the keys contained in this map,
+     * in insertion order.  The set is backed by the map, so changes
+     * to the map are reflected in the set, and vice-versa.  If the
+     * map is modified while an iteration over the set is in progress
+     * (except through the iterator's own <tt>remove</tt> operation),
+     * the results of the iteration are undefined.  The set supports
+     * element removal, but not the <tt>add</tt> or <tt>addAll</tt>
+     * operations.
+     *
+     * @return a set view of the keys contained in this map
+     */
+    public Set<K> keySet() {
+        Set<K> ks;
+        return ((ks = keySet) == null) ? (keySet = new KeySet()) : ks;
+    }
+
+    final class KeySet extends AbstractSet<K> {
+        public final int size()                 { return size; }
+        public final void clear()               { CompactHashMap.this.clear(); }
+        public final Iterator<K> iterator()     { return new KeyIterator(); }
+        public final boolean contains(Object o) { return containsKey(o); }
+        public final boolean remove(Object key) {
+            int j;
+            if ((j = slotFor(key, HashMap.hash(key))) < 0)
+                return false;
+            removeAt(j);
+            return true;
+        }
+        public final Spliterator<K> spliterator()  {
+            return Spliterators.spliterator(this, Spliterator.SIZED |
+                                            Spliterator.ORDERED |
+                                            Spliterator.DISTINCT);
+        }
+        public final void forEach(Consumer<? super K> action) {
+            if (action == null)
+                throw new NullPointerException();
+            CompactHashMap.this.forEach((k, v) -> action.accept(k));
+        }
+    }
+
+    /**
+     * Returns a {@link Collection} view of the values contained in
+     * this map, in the insertion order of their keys.  The collection
+     * is backed by the map, so changes to the map are reflected in
+     * the collection, and vice-versa.  If the map is modified while
+     * an iteration over the collection is in progress (except through
+     * the iterator's own <tt>remove</tt> operation), the results of
+     * the iteration are undefined.  The collection supports element
+     * removal, but not the <tt>add</tt> or <tt>addAll</tt> operations.
+     *
+     * @return a view of the values contained in this map
+     */
+    public Collection<V> values() {
+        Collection<V> vs;
+        return ((vs = values) == null) ? (values = new Values()) : vs;
+    }
+
+    final class Values extends AbstractCollection<V> {
+        public final int size()                 { return size; }
+        public final void clear()               { CompactHashMap.this.clear(); }
+        public final Iterator<V> iterator()     { return new ValueIterator(); }
+        public final boolean contains(Object o) { return containsValue(o); }
+        public final Spliterator<V> spliterator() {
+            return Spliterators.spliterator(this, Spliterator.SIZED |
+                                            Spliterator.ORDERED);
+        }
+        public final void forEach(Consumer<? super V> action) {
+            if (action == null)
+                throw new NullPointerException();
+            CompactHashMap.this.forEach((k, v) -> action.accept(v));
+        }
+    }
+
+    /**
+     * Returns a {@link Set} view of the mappings contained in this
+     * map, in insertion order.  The set is backed by the map, so
+     * changes to the map are reflected in the set, and vice-versa.
+     * If the map is modified while an iteration over the set is in
+     * progress (except through the iterator's own <tt>remove</tt>
+     * operation, or through the <tt>setValue</tt> operation on a map
+     * entry returned by the iterator) the results of the iteration
+     * are undefined.  The set supports element removal, but not the
+     * <tt>add</tt> or <tt>addAll</tt> operations.
+     *
+     * @return a set view of the mappings contained in this map
+     */
+    public Set<Map.Entry<K,V>> entrySet() {
+        Set<Map.Entry<K,V>> es;
+        return ((es = entrySet) == null) ? (entrySet = new EntrySet()) : es;
+    }
+
+    final class EntrySet extends AbstractSet<Map.Entry<K,V>> {
+        public final int size()                 { return size; }
+        public final void clear()               { CompactHashMap.this.clear(); }
+        public final Iterator<Map.Entry<K,V>> iterator() {
+            return new EntryIterator();
+        }
+        public final boolean contains(Object o) {
+            if (!(o instanceof Map.Entry))
+                return false;
+            Map.Entry<?,?> e = (Map.Entry<?,?>) o;
+            int i = indexOf(e.getKey());
+            return i >= 0 && Objects.equals(vals[i], e.getValue());
+        }
+        public final boolean remove(Object o) {
+            if (o instanceof Map.Entry) {
+                Map.Entry<?,?> e = (Map.Entry<?,?>) o;
+                return CompactHashMap.this.remove(e.getKey(), e.getValue());
+            }
+            return false;
+        }
+        public final Spliterator<Map.Entry<K,V>> spliterator() {
+            return Spliterators.spliterator(this, Spliterator.SIZED |
+                                            Spliterator.ORDERED |
+                                            Spliterator.DISTINCT);
+        }
+    }
+
+    /**
+     * A map entry returned by the entry set iterator, referring to
+     * the map's entry arrays while the mapping remains at the index
+     * it was returned at, and otherwise relocating it by key.
+     */
+    final class Entry implements Map.Entry<K,V> {
+        final K key;
+        V value;    // the value when last read or written
+        int index;
+
+        Entry(int index) {
+            this.index = index;
+            this.key = keyAt(index);
+            this.value = valueAt(index);
+        }
+
+        /**
+         * Returns the current index of the mapping, or -1 if it has
+         * been removed.
+         */
+        private int index() {
+            int i = index;
+            if (i >= used || keys[i] != key)
+                index = i = indexOf(key);
+            return i;
+        }
+
+        public K getKey()        { return key; }
+
+        public V getValue() {
+            int i;
+            if ((i = index()) >= 0)
+                value = valueAt(i);
+            return value;
+        }
+
+        public V setValue(V value) {
+            V old = getValue();
+            int i;
+            if ((i = index()) >= 0)
+                vals[i] = value;
+            this.value = value;
+            return old;
+        }
+
+        public boolean equals(Object o) {
+            if (!(o instanceof Map.Entry))
+                return false;
+            Map.Entry<?,?> e = (Map.Entry<?,?>)o;
+            return Objects.equals(key, e.getKey()) &&
+                Objects.equals(getValue(), e.getValue());
+        }
+
+        public int hashCode() {
+            return Objects.hashCode(key) ^ Objects.hashCode(getValue());
+        }
+
+        public String toString() {
+            return key + "=" + getValue();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    final K keyAt(int i) {
+        return (K)keys[i];
+    }
+
+    @SuppressWarnings("unchecked")
+    final V valueAt(int i) {
+        return (V)vals[i];
+    }
+
+    // Iterators
+
+    abstract class CompactIterator {
+        int next;               // index of next entry to return
+        int lastReturned = -1;  // index of last entry returned, or -1
+        int expectedModCount;   // for fast-fail
+
+        CompactIterator() {
+            expectedModCount = modCount;
+            next = advance(0);
+        }
+
+        /**
+         * Returns the first index at or after i that is not a hole,
+         * or used if none.
+         */
+        private int advance(int i) {
+            Object[] ks = keys;
+            for (int n = used; i < n && ks[i] == REMOVED; ++i)
+                ;
+            return i;
+        }
+
+        public final boolean hasNext() {
+            // Insertions may squeeze out holes, and removals of trailing
+            // entries lower used, either of which invalidates next
+            if (modCount != expectedModCount)
+                throw new ConcurrentModificationException();
+            return next < used;
+        }
+
+        final int nextIndex() {
+            if (modCount != expectedModCount)
+                throw new ConcurrentModificationException();
+            int i;
+            if ((i = next) >= used)
+                throw new NoSuchElementException();
+            next = advance(i + 1);
+            return lastReturned = i;
+        }
+
+        public final void remove() {
+            int i;
+            if ((i = lastReturned) < 0)
+                throw new IllegalStateException();
+            if (modCount != expectedModCount)
+                throw new ConcurrentModificationException();
+            lastReturned = -1;
+            removeEntry(i);
+            expectedModCount = modCount;
+        }
+    }
+
+    final class KeyIterator extends CompactIterator
+        implements Iterator<K> {
+        public final K next() { return keyAt(nextIndex()); }
+    }
+
+    final class ValueIterator extends CompactIterator
+        implements Iterator<V> {
+        public final V next() { return valueAt(nextIndex()); }
+    }
+
+    final class EntryIterator extends CompactIterator
+        implements Iterator<Map.Entry<K,V>> {
+        public final Map.Entry<K,V> next() { return new Entry(nextIndex()); }
+    }
+
+    // Serialization
+
+    /**
+     * Saves this map to a stream (that is, serializes it).
+     *
+     * @param s the stream
+     * @throws IOException if an I/O error occurs
+     * @serialData The number of key-value mappings (<tt>int</tt>),
+     *             followed by the key (Object) and value (Object)
+     *             for each key-value mapping, in insertion order.
+     */
+    private void writeObject(java.io.ObjectOutputStream s)
+        throws IOException {
+        int mc = modCount;
+        s.defaultWriteObject();
+        s.writeInt(size);
+        Object[] ks = keys, vs = vals;
+        for (int i = 0, n = used; i < n; ++i) {
+            Object k;
+            if ((k = ks[i]) != REMOVED) {
+                s.writeObject(k);
+                s.writeObject(vs[i]);
+            }
+        }
+        if (modCount != mc)
+            throw new ConcurrentModificationException();
+    }
+
+    /**
+     * Reconstitutes this map from a stream (that is, deserializes it).
+     *
+     * @param s the stream
+     * @throws ClassNotFoundException if the class of a serialized object
+     *         could not be found
+     * @throws IOException if an I/O error occurs
+     */
+    @SuppressWarnings("unchecked")
+    private void readObject(java.io.ObjectInputStream s)
+        throws IOException, ClassNotFoundException {
+        s.defaultReadObject();
+        int n = s.readInt();
+        if (n < 0 || n > MAXIMUM_CAPACITY)
+            throw new InvalidObjectException("Illegal mappings count: " + n);
+        initialCapacity = Math.max(n, 1);
+        keys = vals = EMPTY_ENTRIES;
+        hashes = EMPTY_HASHES;
+        for (int i = 0; i < n; ++i) {
+            K key = (K) s.readObject();
+            V value = (V) s.readObject();
+            putVal(HashMap.hash(key), key, value, false);
+        }
+    }
+}
@@ -0,0 +1,1692 @@
+/*
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+package java.util;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+import java.util.stream.StreamSupport;
+
+/**
+ * A compressed set of non-negative {@code int} indices, providing
+ * most of the functionality of {@link BitSet} in space proportional
+ * to the number and clustering of its set bits rather than to its
+ * largest index.
+ *
+ * <p>The index space is divided into chunks of 65536 bits, and only
+ * chunks containing set bits are stored, each in the most compact of
+ * three <em>containers</em>, as in "Roaring" bitmaps: a sorted array
+ * of 16-bit offsets for sparse chunks (at most 4096 bits), a 1024-word
+ * bitmap for dense chunks, or, after {@link #optimize}, a sorted list
+ * of runs for chunks made of long runs of set bits.  A set with a
+ * handful of bits spread over the whole {@code int} range thus takes
+ * a few hundred bytes, where a {@code BitSet} would take 256 MB.
+ *
+ * <p>The bulk operations {@link #and}, {@link #or}, {@link #andNot}
+ * and {@link #xor} combine matching chunks independently, and do so
+ * in parallel in the {@link ForkJoinPool#commonPool() common pool}
+ * when both operands together have enough chunks to benefit.  The
+ * operations {@link #rank} and {@link #select}, which convert between
+ * indices and positions in the ordered sequence of set bits, take
+ * time logarithmic in the number of chunks plus linear in the size
+ * of a single chunk, using cumulative counts that are computed on
+ * first use after a modification.  The {@link #stream} method
+ * returns a stream whose spliterator splits by chunks and reports
+ * exact sizes, so that parallel streams over large sets scale.
+ *
+ * <p>Unless otherwise noted, passing a null parameter to any of the
+ * methods in a {@code CompressedBitSet} will result in a
+ * {@code NullPointerException}.
+ *
+ * <p>A {@code CompressedBitSet} is not safe for multithreaded use
+ * without external synchronization.
+ *
+ * @see     BitSet
+ * @since   1.9
+ */
+public class CompressedBitSet implements Cloneable, java.io.Serializable {
+    private static final long serialVersionUID = 3620139431297361853L;
+
+    /*
+     * Implementation overview.
+     *
+     * The set is a sorted array of 16-bit chunk keys (the high bits of
+     * the indices in each chunk), and a parallel array of Containers
+     * holding the low 16 bits.  Only non-empty containers are kept.
+     * Since indices are non-negative, keys are below 0x8000.
+     *
+     * ArrayContainers hold at most ARRAY_MAX elements; a
+     * BitmapContainer that drops to ARRAY_MAX elements is converted
+     * to an array and vice versa, so each non-run container always
+     * uses at most 8KB.  RunContainers are created only by range
+     * operations on absent chunks and by optimize().  They are
+     * materialized back into array or bitmap form by any other
+     * mutation, and before taking part in bulk operations, which
+     * keeps the bulk operations down to the four array/bitmap
+     * combinations.
+     *
+     * Bulk operations first merge the key arrays, pairing the
+     * containers to combine (which is cheap: there are at most 32768
+     * keys), then compute the resulting container for each pair,
+     * which is where the time goes, in a ForkJoin task when there are
+     * at least PARALLEL_THRESHOLD pairs, and finally squeeze out
+     * empty results.  Container operations never modify their
+     * arguments, so the other set's containers may be read
+     * concurrently; a container of the other set that is copied
+     * into this one is cloned.
+     *
+     * The cumulative cardinalities used by rank, select, cardinality
+     * and stream sizing are cached in the transient field cumulative,
+     * which every mutation clears.
+     */
+
+    /**
+     * The maximum cardinality of an ArrayContainer.
+     */
+    static final int ARRAY_MAX = 4096;
+
+    /**
+     * The number of words of a BitmapContainer.
+     */
+    static final int BITMAP_WORDS = 1024;
+
+    /**
+     * The minimum number of container pairs for which bulk operations
+     * are performed in parallel.
+     */
+    static final int PARALLEL_THRESHOLD = 64;
+
+    /**
+     * The number of container pairs below which a parallel bulk task
+     * does not split further.
+     */
+    static final int PARALLEL_GRAIN = 16;
+
+    // Bulk operation codes
+    static final int AND = 0, OR = 1, ANDNOT = 2, XOR = 3;
+
+    /**
+     * The chunk keys, sorted, in elements [0, size).
+     */
+    char[] keys;
+
+    /**
+     * The containers, indexed as for keys.
+     */
+    Container[] containers;
+
+    /**
+     * The number of chunks.
+     */
+    int size;
+
+    /**
+     * Cumulative cardinalities: cumulative[i] is the number of set
+     * bits in containers [0, i).  Null if not yet computed since the
+     * last modification.
+     */
+    transient int[] cumulative;
+
+    /**
+     * Creates a new empty compressed bit set.
+     */
+    public CompressedBitSet() {
+        keys = new char[4];
+        containers = new Container[4];
+    }
+
+    /**
+     * Returns a new compressed bit set containing all the bits set in
+     * the given bit set.
+     *
+     * @param bs a bit set
+     * @return a {@code CompressedBitSet} containing all the bits of
+     *         {@code bs}
+     */
+    public static CompressedBitSet valueOf(BitSet bs) {
+        long[] words = bs.toLongArray();
+        CompressedBitSet r = new CompressedBitSet();
+        for (int w = 0, key = 0; w < words.length; w += BITMAP_WORDS, ++key) {
+            BitmapContainer b = new BitmapContainer();
+            int n = Math.min(BITMAP_WORDS, words.length - w);
+            System.arraycopy(words, w, b.words, 0, n);
+            b.recount();
+            if (b.card > 0)
+                r.append((char)key, b.normalize());
+        }
+        return r;
+    }
+
+    /**
+     * Returns a new {@link BitSet} containing all the bits set in this
+     * compressed bit set.
+     *
+     * @return a {@code BitSet} containing all the bits of this set
+     */
+    public BitSet toBitSet() {
+        int n = size;
+        long[] words = new long[(n == 0) ? 0 :
+                                keys[n - 1] * BITMAP_WORDS +
+                                (containers[n - 1].last() >>> 6) + 1];
+        for (int i = 0; i < n; ++i)
+            containers[i].orInto(words, keys[i] * BITMAP_WORDS);
+        return BitSet.valueOf(words);
+    }
+
+    // Chunk bookkeeping
+
+    private int indexOfKey(int key) {
+        return Arrays.binarySearch(keys, 0, size, (char)key);
+    }
+
+    /**
+     * Appends a chunk with a key greater than all present.
+     */
+    private void append(char key, Container c) {
+        insertAt(size, key, c);
+    }
+
+    private void insertAt(int i, char key, Container c) {
+        int n = size;
+        if (n == keys.length) {
+            int cap = n + (n >> 1) + 1;
+            keys = Arrays.copyOf(keys, cap);
+            containers = Arrays.copyOf(containers, cap);
+        }
+        System.arraycopy(keys, i, keys, i + 1, n - i);
+        System.arraycopy(containers, i, containers, i + 1, n - i);
+        keys[i] = key;
+        containers[i] = c;
+        size = n + 1;
+    }
+
+    private void removeAt(int i) {
+        int n = size - 1;
+        System.arraycopy(keys, i + 1, keys, i, n - i);
+        System.arraycopy(containers, i + 1, containers, i, n - i);
+        containers[n] = null;
+        size = n;
+    }
+
+    /**
+     * Stores c as container i, removing the chunk if c is empty.
+     */
+    private void update(int i, Container c) {
+        if (c.cardinality() == 0)
+            removeAt(i);
+        else
+            containers[i] = c;
+    }
+
+    /**
+     * Returns the cumulative cardinalities, computing them if needed.
+     */
+    final int[] cumulative() {
+        int[] cum;
+        if ((cum = cumulative) == null) {
+            int n = size;
+            cum = new int[n + 1];
+            for (int i = 0; i < n; ++i)
+                cum[i + 1] = cum[i] + containers[i].cardinality();
+            cumulative = cum;
+        }
+        return cum;
+    }
+
+    private static void checkIndex(int bitIndex) {
+        if (bitIndex < 0)
+            throw new IndexOutOfBoundsException("bitIndex < 0: " + bitIndex);
+    }
+
+    private static void checkRange(int fromIndex, int toIndex) {
+        if (fromIndex < 0)
+            throw new IndexOutOfBoundsException("fromIndex < 0: " + fromIndex);
+        if (toIndex < 0)
+            throw new IndexOutOfBoundsException("toIndex < 0: " + toIndex);
+        if (fromIndex > toIndex)
+            throw new IndexOutOfBoundsException("fromIndex: " + fromIndex +
+                                                " > toIndex: " + toIndex);
+    }
+
+    // Single-bit and range operations
+
+    /**
+     * Returns the value of the bit with the specified index.
+     *
+     * @param  bitIndex the bit index
+     * @return the value of the bit with the specified index
+     * @throws IndexOutOfBoundsException if the specified index is negative
+     */
+    public boolean get(int bitIndex) {
+        checkIndex(bitIndex);
+        int i = indexOfKey(bitIndex >>> 16);
+        return i >= 0 && containers[i].contains(bitIndex & 0xffff);
+    }
+
+    /**
+     * Sets the bit at the specified index to {@code true}.
+     *
+     * @param  bitIndex a bit index
+     * @throws IndexOutOfBoundsException if the specified index is negative
+     */
+    public void set(int bitIndex) {
+        checkIndex(bitIndex);
+        cumulative = null;
+        int key = bitIndex >>> 16, i = indexOfKey(key);
+        if (i >= 0)
+            containers[i] = containers[i].add(bitIndex & 0xffff);
+        else {
+            ArrayContainer c = new ArrayContainer(4);
+            c.add(bitIndex & 0xffff);
+            insertAt(-i - 1, (char)key, c);
+        }
+    }
+
+    /**
+     * Sets the bit at the specified index to the specified value.
+     *
+     * @param  bitIndex a bit index
+     * @param  value a boolean value to set
+     * @throws IndexOutOfBoundsException if the specified index is negative
+     */
+    public void set(int bitIndex, boolean value) {
+        if (value)
+            set(bitIndex);
+        else
+            clear(bitIndex);
+    }
+
+    /**
+     * Sets the bits from the specified {@code fromIndex} (inclusive) to the
+     * specified {@code toIndex} (exclusive) to {@code true}.
+     *
+     * @param  fromIndex index of the first bit to be set
+     * @param  toIndex index after the last bit to be set
+     * @throws IndexOutOfBoundsException if {@code fromIndex} is negative,
+     *         or {@code toIndex} is negative, or {@code fromIndex} is
+     *         larger than {@code toIndex}
+     */
+    public void set(int fromIndex, int toIndex) {
+        checkRange(fromIndex, toIndex);
+        if (fromIndex == toIndex)
+            return;
+        cumulative = null;
+        long last = (long)toIndex - 1L;
+        for (int key = fromIndex >>> 16, end = (int)(last >>> 16);
+             key <= end; ++key) {
+            int lo = (key == fromIndex >>> 16) ? fromIndex & 0xffff : 0;
+            int hi = (key == end) ? (int)(last & 0xffff) + 1 : 0x10000;
+            int i = indexOfKey(key);
+            if (i >= 0)
+                containers[i] = containers[i].addRange(lo, hi);
+            else
+                insertAt(-i - 1, (char)key, RunContainer.ofRange(lo, hi));
+        }
+    }
+
+    /**
+     * Sets the bit specified by the index to {@code false}.
+     *
+     * @param  bitIndex the index of the bit to be cleared
+     * @throws IndexOutOfBoundsException if the specified index is negative
+     */
+    public void clear(int bitIndex) {
+        checkIndex(bitIndex);
+        int i = indexOfKey(bitIndex >>> 16);
+        if (i >= 0) {
+            cumulative = null;
+            update(i, containers[i].remove(bitIndex & 0xffff));
+        }
+    }
+
+    /**
+     * Sets the bits from the specified {@code fromIndex} (inclusive) to the
+     * specified {@code toIndex} (exclusive) to {@code false}.
+     *
+     * @param  fromIndex index of the first bit to be cleared
+     * @param  toIndex index after the last bit to be cleared
+     * @throws IndexOutOfBoundsException if {@code fromIndex} is negative,
+     *         or {@code toIndex} is negative, or {@code fromIndex} is
+     *         larger than {@code toIndex}
+     */
+    public void clear(int fromIndex, int toIndex) {
+        checkRange(fromIndex, toIndex);
+        if (fromIndex == toIndex)
+            return;
+        cumulative = null;
+        long last = (long)toIndex - 1L;
+        int first = fromIndex >>> 16, end = (int)(last >>> 16);
+        int i = indexOfKey(first);
+        if (i < 0)
+            i = -i - 1;
+        while (i < size && keys[i] <= end) {
+            int key = keys[i];
+            int lo = (key == first) ? fromIndex & 0xffff : 0;
+            int hi = (key == end) ? (int)(last & 0xffff) + 1 : 0x10000;
+            Container c = containers[i].removeRange(lo, hi);
+            if (c.cardinality() == 0)
+                removeAt(i);
+            else
+                containers[i++] = c;
+        }
+    }
+
+    /**
+     * Sets all of the bits in this set to {@code false}.
+     */
+    public void clear() {
+        Arrays.fill(containers, 0, size, null);
+        size = 0;
+        cumulative = null;
+    }
+
+    // Queries
+
+    /**
+     * Returns the number of bits set to {@code true} in this set.
+     *
+     * @return the number of bits set to {@code true} in this set
+     */
+    public int cardinality() {
+        return cumulative()[size];
+    }
+
+    /**
+     * Returns true if this set contains no bits that are set
+     * to {@code true}.
+     *
+     * @return boolean indicating whether this set is empty
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Returns the "logical size" of this set: the index of the
+     * highest set bit plus one.  Returns zero if the set contains no
+     * set bits.
+     *
+     * @return the logical size of this set
+     */
+    public int length() {
+        int n;
+        return ((n = size) == 0) ? 0 :
+            ((keys[n - 1] << 16) | containers[n - 1].last()) + 1;
+    }
+
+    /**
+     * Returns the index of the first bit that is set to {@code true}
+     * that occurs on or after the specified starting index. If no such
+     * bit exists then {@code -1} is returned.
+     *
+     * @param  fromIndex the index to start checking from (inclusive)
+     * @return the index of the next set bit, or {@code -1} if there
+     *         is no such bit
+     * @throws IndexOutOfBoundsException if the specified index is negative
+     */
+    public int nextSetBit(int fromIndex) {
+        if (fromIndex < 0)
+            throw new IndexOutOfBoundsException("fromIndex < 0: " + fromIndex);
+        int key = fromIndex >>> 16, i = indexOfKey(key), low;
+        if (i >= 0)
+            low = fromIndex & 0xffff;
+        else {
+            i = -i - 1;
+            low = 0;
+        }
+        for (; i < size; ++i, low = 0) {
+            int b;
+            if ((b = containers[i].nextSetBit(low)) >= 0)
+                return (keys[i] << 16) | b;
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the index of the nearest bit that is set to {@code true}
+     * that occurs on or before the specified starting index.
+     * If no such bit exists, or if {@code -1} is given as the
+     * starting index, then {@code -1} is returned.
+     *
+     * @param  fromIndex the index to start checking from (inclusive)
+     * @return the index of the previous set bit, or {@code -1} if there
+     *         is no such bit
+     * @throws IndexOutOfBoundsException if the specified index is less
+     *         than {@code -1}
+     */
+    public int previousSetBit(int fromIndex) {
+        if (fromIndex < 0) {
+            if (fromIndex == -1)
+                return -1;
+            throw new IndexOutOfBoundsException(
+                "fromIndex < -1: " + fromIndex);
+        }
+        int key = fromIndex >>> 16, i = indexOfKey(key), low;
+        if (i >= 0)
+            low = fromIndex & 0xffff;
+        else {
+            i = -i - 2;
+            low = 0xffff;
+        }
+        for (; i >= 0; --i, low = 0xffff) {
+            int b;
+            if ((b = containers[i].previousSetBit(low)) >= 0)
+                return (keys[i] << 16) | b;
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the number of bits set to {@code true} at indices less
+     * than the specified index, that is, the position that the bit
+     * would have in the ordered sequence of set bits if it were set.
+     *
+     * @param  bitIndex a bit index
+     * @return the number of set bits at lower indices
+     * @throws IndexOutOfBoundsException if the specified index is negative
+     */
+    public int rank(int bitIndex) {
+        checkIndex(bitIndex);
+        int[] cum = cumulative();
+        int i = indexOfKey(bitIndex >>> 16);
+        return (i >= 0) ?
+            cum[i] + containers[i].rank(bitIndex & 0xffff) :
+            cum[-i - 1];
+    }
+
+    /**
+     * Returns the index of the set bit at the given position in the
+     * ordered sequence of set bits: {@code select(0)} is the lowest
+     * set bit, and {@code select(cardinality() - 1)} the highest.
+     * For each {@code n} in range, {@code rank(select(n)) == n}.
+     *
+     * @param  n the position of the set bit, counting from zero
+     * @return the index of the {@code n}th set bit
+     * @throws IndexOutOfBoundsException if {@code n} is negative or not
+     *         less than {@link #cardinality}
+     */
+    public int select(int n) {
+        int[] cum = cumulative();
+        if (n < 0 || n >= cum[size])
+            throw new IndexOutOfBoundsException("n: " + n);
+        // find last i with cum[i] <= n
+        int lo = 0, hi = size - 1;
+        while (lo < hi) {
+            int mid = (lo + hi + 1) >>> 1;
+            if (cum[mid] <= n)
+                lo = mid;
+            else
+                hi = mid - 1;
+        }
+        return (keys[lo] << 16) | containers[lo].select(n - cum[lo]);
+    }
+
+    // Bulk operations
+
+    /**
+     * Performs a logical <b>AND</b> of this target set with the
+     * argument set, so that this set retains only the bits that are
+     * also set in the argument.
+     *
+     * @param set a compressed bit set
+     */
+    public void and(CompressedBitSet set) {
+        if (set != this)
+            bulk(set, AND);
+    }
+
+    /**
+     * Performs a logical <b>OR</b> of this set with the argument set,
+     * so that this set also contains all the bits set in the argument.
+     *
+     * @param set a compressed bit set
+     */
+    public void or(CompressedBitSet set) {
+        if (set != this)
+            bulk(set, OR);
+    }
+
+    /**
+     * Clears all of the bits in this set whose corresponding bit is
+     * set in the specified set.
+     *
+     * @param set the compressed bit set with which to mask this set
+     */
+    public void andNot(CompressedBitSet set) {
+        if (set == this)
+            clear();
+        else
+            bulk(set, ANDNOT);
+    }
+
+    /**
+     * Performs a logical <b>XOR</b> of this set with the argument set,
+     * so that this set contains the bits that are set in exactly one
+     * of the two sets.
+     *
+     * @param set a compressed bit set
+     */
+    public void xor(CompressedBitSet set) {
+        if (set == this)
+            clear();
+        else
+            bulk(set, XOR);
+    }
+
+    /**
+     * Returns true if the specified set has any bits set to
+     * {@code true} that are also set to {@code true} in this set.
+     *
+     * @param  set set to intersect with
+     * @return boolean indicating whether this set intersects the
+     *         specified set
+     */
+    public boolean intersects(CompressedBitSet set) {
+        char[] ak = keys, bk = set.keys;
+        for (int i = 0, j = 0, na = size, nb = set.size; i < na && j < nb; ) {
+            int a = ak[i], b = bk[j];
+            if (a < b)
+                ++i;
+            else if (a > b)
+                ++j;
+            else if (combine(AND, containers[i++], set.containers[j++]) != null)
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Replaces the contents of this set with the result of combining
+     * it chunk by chunk with the given set.
+     */
+    private void bulk(CompressedBitSet set, int op) {
+        char[] ak = keys, bk = set.keys;
+        Container[] ac = containers, bc = set.containers;
+        int na = size, nb = set.size;
+        boolean keepA = op != AND, keepB = op == OR || op == XOR;
+        int cap = keepB ? na + nb : keepA ? na : Math.min(na, nb);
+        char[] rk = new char[Math.max(cap, 4)];
+        Container[] xs = new Container[rk.length], ys = new Container[cap];
+        int n = 0, i = 0, j = 0;
+        while (i < na && j < nb) {
+            char a = ak[i], b = bk[j];
+            if (a == b) {
+                rk[n] = a;
+                xs[n] = ac[i++];
+                ys[n++] = bc[j++];
+            }
+            else if (a < b) {
+                if (keepA) {
+                    rk[n] = a;
+                    xs[n++] = ac[i];
+                }
+                ++i;
+            }
+            else {
+                if (keepB) {
+                    rk[n] = b;
+                    ys[n++] = bc[j];
+                }
+                ++j;
+            }
+        }
+        for (; keepA && i < na; ++i) {
+            rk[n] = ak[i];
+            xs[n++] = ac[i];
+        }
+        for (; keepB && j < nb; ++j) {
+            rk[n] = bk[j];
+            ys[n++] = bc[j];
+        }
+
+        if (n >= PARALLEL_THRESHOLD &&
+            ForkJoinPool.getCommonPoolParallelism() > 1)
+            ForkJoinPool.commonPool().invoke(new BulkTask(op, xs, ys, 0, n));
+        else
+            combineRange(op, xs, ys, 0, n);
+
+        int k = 0;
+        for (int r = 0; r < n; ++r) {
+            Container c;
+            if ((c = xs[r]) != null) {
+                rk[k] = rk[r];
+                xs[k++] = c;
+            }
+        }
+        Arrays.fill(xs, k, n, null);
+        keys = rk;
+        containers = xs;
+        size = k;
+        cumulative = null;
+    }
+
+    /**
+     * Replaces xs[i] with the combination of xs[i] and ys[i], either
+     * of which may be null, for each i in [lo, hi).
+     */
+    static void combineRange(int op, Container[] xs, Container[] ys,
+                             int lo, int hi) {
+        for (int i = lo; i < hi; ++i) {
+            Container x = xs[i], y = ys[i];
+            xs[i] = (y == null) ? x : (x == null) ? y.clone() :
+                combine(op, x, y);
+        }
+    }
+
+    /**
+     * ForkJoin task performing combineRange in parallel.
+     */
+    static final class BulkTask extends RecursiveAction {
+        private static final long serialVersionUID = -1383591453278372474L;
+        final int op;
+        final Container[] xs, ys;
+        final int lo, hi;
+
+        BulkTask(int op, Container[] xs, Container[] ys, int lo, int hi) {
+            this.op = op; this.xs = xs; this.ys = ys;
+            this.lo = lo; this.hi = hi;
+        }
+
+        public void compute() {
+            int l = lo, h = hi;
+            if (h - l <= PARALLEL_GRAIN)
+                combineRange(op, xs, ys, l, h);
+            else {
+                int mid = (l + h) >>> 1;
+                invokeAll(new BulkTask(op, xs, ys, l, mid),
+                          new BulkTask(op, xs, ys, mid, h));
+            }
+        }
+    }
+
+    /**
+     * Returns the combination of two non-null containers, or null if
+     * empty.  Neither argument is modified.
+     */
+    static Container combine(int op, Container x, Container y) {
+        x = x.materialize();
+        y = y.materialize();
+        Container r;
+        if (x instanceof ArrayContainer) {
+            ArrayContainer a = (ArrayContainer)x;
+            if (y instanceof ArrayContainer)
+                r = a.combine(op, (ArrayContainer)y);
+            else {
+                BitmapContainer b = (BitmapContainer)y;
+                switch (op) {
+                case AND:    r = a.filter(b, true); break;
+                case ANDNOT: r = a.filter(b, false); break;
+                default:     r = b.clone().flipOrSet(a, op == XOR); break;
+                }
+            }
+        }
+        else {
+            BitmapContainer a = (BitmapContainer)x;
+            if (y instanceof ArrayContainer) {
+                ArrayContainer b = (ArrayContainer)y;
+                switch (op) {
+                case AND:    r = b.filter(a, true); break;
+                case ANDNOT: r = a.clone().clearAll(b); break;
+                default:     r = a.clone().flipOrSet(b, op == XOR); break;
+                }
+            }
+            else
+                r = a.combine(op, (BitmapContainer)y);
+        }
+        return (r.cardinality() == 0) ? null : r;
+    }
+
+    /**
+     * Converts each chunk to its most compact representation,
+     * including run-length encoding for chunks dominated by runs of
+     * set bits.  Invoking this method after loading a set reduces its
+     * footprint; run-encoded chunks are expanded again by subsequent
+     * modification.
+     */
+    public void optimize() {
+        for (int i = 0; i < size; ++i)
+            containers[i] = containers[i].optimize();
+    }
+
+    /**
+     * Returns an estimate of the number of bytes of memory used to
+     * represent the bits of this set.
+     *
+     * @return the estimated number of bytes used by this set
+     */
+    public long sizeInBytes() {
+        long n = 2L * keys.length + 4L * containers.length;
+        for (int i = 0; i < size; ++i)
+            n += containers[i].sizeInBytes();
+        return n;
+    }
+
+    /**
+     * Returns a stream of indices for which this set contains a bit
+     * in the set state, in order from lowest to highest.  The size of
+     * the stream is the number of bits in the set state, equal to the
+     * value returned by the {@link #cardinality()} method.
+     *
+     * <p>The stream binds to this set when the terminal stream
+     * operation commences, and its spliterator splits by chunks,
+     * reporting exact sizes for each split, so that parallel streams
+     * scale with the number of chunks.
+     *
+     * <p>The set must remain constant during the execution of the
+     * terminal stream operation.  Otherwise, the result of the terminal
+     * stream operation is undefined.
+     *
+     * @return a stream of integers representing set indices
+     */
+    public IntStream stream() {
+        return StreamSupport.intStream(new ChunkSpliterator(this, 0, -1, 0),
+                                       false);
+    }
+
+    /**
+     * Spliterator over the set bits of a range of chunks.
+     */
+    static final class ChunkSpliterator implements Spliterator.OfInt {
+        final CompressedBitSet set;
+        int index;      // current chunk
+        int fence;      // one past last chunk; -1 until bound
+        int low;        // next candidate offset in current chunk
+        int remaining;  // exact number of bits not yet traversed
+
+        ChunkSpliterator(CompressedBitSet set, int origin, int fence,
+                         int remaining) {
+            this.set = set;
+            this.index = origin;
+            this.fence = fence;
+            this.remaining = remaining;
+        }
+
+        private int getFence() {
+            int hi;
+            if ((hi = fence) < 0) {
+                CompressedBitSet s = set;
+                hi = fence = s.size;
+                remaining = s.cumulative()[hi];
+            }
+            return hi;
+        }
+
+        public boolean tryAdvance(IntConsumer action) {
+            if (action == null)
+                throw new NullPointerException();
+            int hi = getFence();
+            for (; index < hi; ++index, low = 0) {
+                int b;
+                if (low <= 0xffff &&
+                    (b = set.containers[index].nextSetBit(low)) >= 0) {
+                    low = b + 1;
+                    --remaining;
+                    action.accept((set.keys[index] << 16) | b);
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        public void forEachRemaining(IntConsumer action) {
+            if (action == null)
+                throw new NullPointerException();
+            int hi = getFence(), i = index;
+            if (i < hi) {
+                char[] ks = set.keys;
+                Container[] cs = set.containers;
+                int l = low;
+                index = hi;
+                low = 0;
+                remaining = 0;
+                if (l > 0) {
+                    Container c = cs[i];
+                    int base = ks[i] << 16;
+                    for (int b; l <= 0xffff && (b = c.nextSetBit(l)) >= 0;
+                         l = b + 1)
+                        action.accept(base | b);
+                    ++i;
+                }
+                for (; i < hi; ++i)
+                    cs[i].forEach(ks[i] << 16, action);
+            }
+        }
+
+        public Spliterator.OfInt trySplit() {
+            int hi = getFence(), lo = index, mid = (lo + 1 + hi) >>> 1;
+            if (hi - lo < 2)
+                return null;
+            int[] cum = set.cumulative();
+            int suffix = cum[hi] - cum[mid];
+            ChunkSpliterator prefix =
+                new ChunkSpliterator(set, lo, mid, remaining - suffix);
+            prefix.low = low;
+            index = mid;
+            low = 0;
+            remaining = suffix;
+            return prefix;
+        }
+
+        public long estimateSize() {
+            getFence();
+            return remaining;
+        }
+
+        public int characteristics() {
+            return Spliterator.SIZED | Spliterator.SUBSIZED |
+                Spliterator.ORDERED | Spliterator.DISTINCT |
+                Spliterator.SORTED;
+        }
+
+        public Comparator<? super Integer> getComparator() {
+            return null;
+        }
+    }
+
+    // Object methods
+
+    /**
+     * Compares this object against the specified object.  The result
+     * is {@code true} if and only if the argument is a {@code
+     * CompressedBitSet} with exactly the same set bits, regardless of
+     * how they are represented.
+     *
+     * @param  obj the object to compare with
+     * @return {@code true} if the objects are the same;
+     *         {@code false} otherwise
+     */
+    public boolean equals(Object obj) {
+        if (obj == this)
+            return true;
+        if (!(obj instanceof CompressedBitSet))
+            return false;
+        CompressedBitSet set = (CompressedBitSet)obj;
+        int n = size;
+        if (n != set.size)
+            return false;
+        for (int i = 0; i < n; ++i) {
+            if (keys[i] != set.keys[i] ||
+                !containers[i].sameBits(set.containers[i]))
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Returns the hash code value for this set, which depends only on
+     * which bits are set.
+     *
+     * @return the hash code value for this set
+     */
+    public int hashCode() {
+        int h = 1;
+        for (int i = 0; i < size; ++i) {
+            Container c = containers[i];
+            h = 31 * h + keys[i];
+            for (int b = c.nextSetBit(0); b >= 0;
+                 b = (b < 0xffff) ? c.nextSetBit(b + 1) : -1)
+                h = 31 * h + b;
+        }
+        return h;
+    }
+
+    /**
+     * Cloning this {@code CompressedBitSet} produces a new set that
+     * is equal to it, sharing no mutable state with it.
+     *
+     * @return a clone of this set
+     */
+    public Object clone() {
+        try {
+            CompressedBitSet result = (CompressedBitSet) super.clone();
+            result.keys = keys.clone();
+            Container[] cs = containers.clone();
+            for (int i = 0; i < size; ++i)
+                cs[i] = cs[i].clone();
+            result.containers = cs;
+            result.cumulative = null;
+            return result;
+        } catch (CloneNotSupportedException e) {
+            throw new InternalError(e);
+        }
+    }
+
+    /**
+     * Returns a string representation of this set, in the same form
+     * as {@link BitSet#toString}.
+     *
+     * @return a string representation of this set
+     */
+    public String toString() {
+        StringBuilder b = new StringBuilder("{");
+        for (int i = nextSetBit(0); i >= 0; ) {
+            b.append(i);
+            if (i == Integer.MAX_VALUE || (i = nextSetBit(i + 1)) < 0)
+                break;
+            b.append(", ");
+        }
+        return b.append('}').toString();
+    }
+
+    // Containers
+
+    /**
+     * The low 16 bits of the indices of one chunk.  Offsets passed to
+     * and returned by containers are in [0, 0x10000), and range ends
+     * in [0, 0x10000].  Mutators return the resulting container,
+     * which may be this one or a different representation.
+     */
+    abstract static class Container implements Cloneable, java.io.Serializable {
+        private static final long serialVersionUID = 6513849412875934101L;
+
+        abstract int cardinality();
+        abstract boolean contains(int x);
+        abstract Container add(int x);
+        abstract Container remove(int x);
+        abstract Container addRange(int from, int to);
+        abstract Container removeRange(int from, int to);
+        /** Returns the least element at or above x, or -1. */
+        abstract int nextSetBit(int x);
+        /** Returns the greatest element at or below x, or -1. */
+        abstract int previousSetBit(int x);
+        abstract int last();
+        /** Returns the number of elements below x. */
+        abstract int rank(int x);
+        /** Returns the element of the given rank. */
+        abstract int select(int j);
+        abstract void forEach(int base, IntConsumer action);
+        /** Sets the bits of this container in words starting at base. */
+        abstract void orInto(long[] words, int base);
+        /** Returns an array or bitmap container with the same bits. */
+        abstract Container materialize();
+        /** Returns the most compact container with the same bits. */
+        abstract Container optimize();
+        abstract long sizeInBytes();
+
+        /**
+         * Returns the number of runs of consecutive elements.
+         */
+        abstract int numberOfRuns();
+
+        public Container clone() {
+            try {
+                return (Container) super.clone();
+            } catch (CloneNotSupportedException e) {
+                throw new InternalError(e);
+            }
+        }
+
+        final boolean sameBits(Container c) {
+            if (cardinality() != c.cardinality())
+                return false;
+            for (int b = nextSetBit(0); b >= 0;
+                 b = (b < 0xffff) ? nextSetBit(b + 1) : -1) {
+                if (!c.contains(b))
+                    return false;
+            }
+            return true;
+        }
+
+        /**
+         * Returns the most compact of this container's array or
+         * bitmap form, given its cardinality, and a run form.
+         */
+        final Container compactForm() {
+            int card = cardinality(), runs = numberOfRuns();
+            long flat = (card <= ARRAY_MAX) ? 2L * card : 8L * BITMAP_WORDS;
+            if (4L * runs < flat)
+                return (this instanceof RunContainer) ? this :
+                    RunContainer.of(this, runs);
+            return materialize();
+        }
+    }
+
+    /**
+     * A sorted array of at most ARRAY_MAX elements.
+     */
+    static final class ArrayContainer extends Container {
+        private static final long serialVersionUID = -8165287584413282291L;
+        char[] content;
+        int card;
+
+        ArrayContainer(int capacity) {
+            content = new char[capacity];
+        }
+
+        ArrayContainer(char[] content, int card) {
+            this.content = content;
+            this.card = card;
+        }
+
+        /**
+         * Returns the first index of an element at or above x.
+         */
+        private int lowerBound(int x) {
+            if (x > 0xffff)
+                return card;
+            int i = Arrays.binarySearch(content, 0, card, (char)x);
+            return (i >= 0) ? i : -i - 1;
+        }
+
+        int cardinality() { return card; }
+
+        boolean contains(int x) {
+            return Arrays.binarySearch(content, 0, card, (char)x) >= 0;
+        }
+
+        Container add(int x) {
+            int i = Arrays.binarySearch(content, 0, card, (char)x);
+            if (i >= 0)
+                return this;
+            if (card >= ARRAY_MAX)
+                return toBitmap().add(x);
+            i = -i - 1;
+            if (card == content.length)
+                content = Arrays.copyOf(content, Math.min(ARRAY_MAX,
+                                                          card + (card >> 1) + 4));
+            System.arraycopy(content, i, content, i + 1, card - i);
+            content[i] = (char)x;
+            ++card;
+            return this;
+        }
+
+        Container remove(int x) {
+            int i = Arrays.binarySearch(content, 0, card, (char)x);
+            if (i >= 0) {
+                System.arraycopy(content, i + 1, content, i, card - i - 1);
+                --card;
+            }
+            return this;
+        }
+
+        Container addRange(int from, int to) {
+            int lo = lowerBound(from), hi = lowerBound(to);
+            int n = lo + (to - from) + (card - hi);
+            if (n > ARRAY_MAX)
+                return toBitmap().addRange(from, to);
+            char[] c = (n <= content.length) ? content : new char[n];
+            System.arraycopy(content, hi, c, lo + (to - from), card - hi);
+            if (c != content)
+                System.arraycopy(content, 0, c, 0, lo);
+            for (int k = lo, x = from; x < to; ++k, ++x)
+                c[k] = (char)x;
+            content = c;
+            card = n;
+            return this;
+        }
+
+        Container removeRange(int from, int to) {
+            int lo = lowerBound(from), hi = lowerBound(to);
+            System.arraycopy(content, hi, content, lo, card - hi);
+            card -= hi - lo;
+            return this;
+        }
+
+        int nextSetBit(int x) {
+            int i = lowerBound(x);
+            return (i < card) ? content[i] : -1;
+        }
+
+        int previousSetBit(int x) {
+            int i = lowerBound(x + 1) - 1;
+            return (i >= 0) ? content[i] : -1;
+        }
+
+        int last() { return content[card - 1]; }
+
+        int rank(int x) { return lowerBound(x); }
+
+        int select(int j) { return content[j]; }
+
+        void forEach(int base, IntConsumer action) {
+            char[] c = content;
+            for (int i = 0, n = card; i < n; ++i)
+                action.accept(base | c[i]);
+        }
+
+        void orInto(long[] words, int base) {
+            char[] c = content;
+            for (int i = 0, n = card; i < n; ++i)
+                words[base + (c[i] >>> 6)] |= 1L << c[i];
+        }
+
+        Container materialize() { return this; }
+
+        Container optimize() {
+            Container c = compactForm();
+            if (c == this && content.length > card)
+                content = Arrays.copyOf(content, card);
+            return c;
+        }
+
+        long sizeInBytes() { return 2L * content.length; }
+
+        int numberOfRuns() {
+            int runs = 0;
+            for (int i = 0, prev = -2; i < card; prev = content[i++])
+                if (content[i] != prev + 1)
+                    ++runs;
+            return runs;
+        }
+
+        public ArrayContainer clone() {
+            ArrayContainer c = (ArrayContainer) super.clone();
+            c.content = Arrays.copyOf(content, card);
+            return c;
+        }
+
+        BitmapContainer toBitmap() {
+            BitmapContainer b = new BitmapContainer();
+            orInto(b.words, 0);
+            b.card = card;
+            return b;
+        }
+
+        /**
+         * Returns the elements that are (if keep) or are not in b.
+         */
+        ArrayContainer filter(BitmapContainer b, boolean keep) {
+            char[] c = content, r = new char[card];
+            long[] w = b.words;
+            int n = 0;
+            for (int i = 0; i < card; ++i) {
+                int x = c[i];
+                if (((w[x >>> 6] & (1L << x)) != 0L) == keep)
+                    r[n++] = (char)x;
+            }
+            return new ArrayContainer(r, n);
+        }
+
+        /**
+         * Merges the sorted contents of two arrays according to op.
+         */
+        Container combine(int op, ArrayContainer y) {
+            char[] a = content, b = y.content;
+            int na = card, nb = y.card;
+            int cap = (op == AND) ? Math.min(na, nb) :
+                (op == ANDNOT) ? na : na + nb;
+            char[] r = new char[cap];
+            int n = 0, i = 0, j = 0;
+            while (i < na && j < nb) {
+                char p = a[i], q = b[j];
+                if (p == q) {
+                    if (op == AND || op == OR)
+                        r[n++] = p;
+                    ++i; ++j;
+                }
+                else if (p < q) {
+                    if (op != AND)
+                        r[n++] = p;
+                    ++i;
+                }
+                else {
+                    if (op == OR || op == XOR)
+                        r[n++] = q;
+                    ++j;
+                }
+            }
+            if (op != AND) {
+                System.arraycopy(a, i, r, n, na - i);
+                n += na - i;
+            }
+            if (op == OR || op == XOR) {
+                System.arraycopy(b, j, r, n, nb - j);
+                n += nb - j;
+            }
+            ArrayContainer c = new ArrayContainer(r, n);
+            return (n > ARRAY_MAX) ? c.toBitmap() : c;
+        }
+    }
+
+    /**
+     * A bitmap of 65536 bits, holding more than ARRAY_MAX elements
+     * except transiently during construction.
+     */
+    static final class BitmapContainer extends Container {
+        private static final long serialVersionUID = 2391958284130734283L;
+        long[] words = new long[BITMAP_WORDS];
+        int card;
+
+        void recount() {
+            int n = 0;
+            for (long w : words)
+                n += Long.bitCount(w);
+            card = n;
+        }
+
+        /**
+         * Returns an array container if small enough, else this.
+         */
+        Container normalize() {
+            if (card > ARRAY_MAX)
+                return this;
+            char[] c = new char[card];
+            int n = 0;
+            for (int u = 0; u < BITMAP_WORDS; ++u) {
+                for (long w = words[u]; w != 0L; w &= w - 1)
+                    c[n++] = (char)((u << 6) + Long.numberOfTrailingZeros(w));
+            }
+            return new ArrayContainer(c, n);
+        }
+
+        int cardinality() { return card; }
+
+        boolean contains(int x) {
+            return (words[x >>> 6] & (1L << x)) != 0L;
+        }
+
+        Container add(int x) {
+            long w = words[x >>> 6], m = 1L << x;
+            if ((w & m) == 0L) {
+                words[x >>> 6] = w | m;
+                ++card;
+            }
+            return this;
+        }
+
+        Container remove(int x) {
+            long w = words[x >>> 6], m = 1L << x;
+            if ((w & m) != 0L) {
+                words[x >>> 6] = w & ~m;
+                --card;
+            }
+            return normalize();
+        }
+
+        private int count(int si, int ei) {
+            int n = 0;
+            for (int u = si; u <= ei; ++u)
+                n += Long.bitCount(words[u]);
+            return n;
+        }
+
+        Container addRange(int from, int to) {
+            if (from < to) {
+                int si = from >>> 6, ei = (to - 1) >>> 6;
+                int before = count(si, ei);
+                long first = -1L << from, last = -1L >>> -to;
+                if (si == ei)
+                    words[si] |= first & last;
+                else {
+                    words[si] |= first;
+                    for (int u = si + 1; u < ei; ++u)
+                        words[u] = -1L;
+                    words[ei] |= last;
+                }
+                card += count(si, ei) - before;
+            }
+            return this;
+        }
+
+        Container removeRange(int from, int to) {
+            if (from < to) {
+                int si = from >>> 6, ei = (to - 1) >>> 6;
+                int before = count(si, ei);
+                long first = -1L << from, last = -1L >>> -to;
+                if (si == ei)
+                    words[si] &= ~(first & last);
+                else {
+                    words[si] &= ~first;
+                    for (int u = si + 1; u < ei; ++u)
+                        words[u] = 0L;
+                    words[ei] &= ~last;
+                }
+                card += count(si, ei) - before;
+            }
+            return normalize();
+        }
+
+        int nextSetBit(int x) {
+            int u = x >>> 6;
+            long w = words[u] & (-1L << x);
+            for (;;) {
+                if (w != 0L)
+                    return (u << 6) + Long.numberOfTrailingZeros(w);
+                if (++u == BITMAP_WORDS)
+                    return -1;
+                w = words[u];
+            }
+        }
+
+        int previousSetBit(int x) {
+            int u = x >>> 6;
+            long w = words[u] & (-1L >>> -(x + 1));
+            for (;;) {
+                if (w != 0L)
+                    return (u + 1) * 64 - 1 - Long.numberOfLeadingZeros(w);
+                if (u-- == 0)
+                    return -1;
+                w = words[u];
+            }
+        }
+
+        int last() { return previousSetBit(0xffff); }
+
+        int rank(int x) {
+            int u = x >>> 6, n = 0;
+            long[] ws = words;
+            for (int i = 0; i < u; ++i)
+                n += Long.bitCount(ws[i]);
+            if (u < BITMAP_WORDS && (x & 63) != 0)
+                n += Long.bitCount(ws[u] & ((1L << x) - 1L));
+            return n;
+        }
+
+        int select(int j) {
+            long[] ws = words;
+            for (int u = 0;; ++u) {
+                long w = ws[u];
+                int c = Long.bitCount(w);
+                if (j < c) {
+                    for (; j > 0; --j)
+                        w &= w - 1;
+                    return (u << 6) + Long.numberOfTrailingZeros(w);
+                }
+                j -= c;
+            }
+        }
+
+        void forEach(int base, IntConsumer action) {
+            long[] ws = words;
+            for (int u = 0; u < BITMAP_WORDS; ++u) {
+                for (long w = ws[u]; w != 0L; w &= w - 1)
+                    action.accept(base | ((u << 6) +
+                                          Long.numberOfTrailingZeros(w)));
+            }
+        }
+
+        void orInto(long[] dst, int base) {
+            int n = Math.min(BITMAP_WORDS, dst.length - base);
+            for (int u = 0; u < n; ++u)
+                dst[base + u] |= words[u];
+        }
+
+        Container materialize() { return this; }
+
+        Container optimize() { return compactForm(); }
+
+        long sizeInBytes() { return 8L * BITMAP_WORDS; }
+
+        int numberOfRuns() {
+            int runs = 0;
+            long carry = 0L; // high bit of previous word, moved to bit 0
+            for (long w : words) {
+                runs += Long.bitCount(w & ~((w << 1) | carry));
+                carry = w >>> 63;
+            }
+            return runs;
+        }
+
+        public BitmapContainer clone() {
+            BitmapContainer c = (BitmapContainer) super.clone();
+            c.words = words.clone();
+            return c;
+        }
+
+        /**
+         * Sets, or if flip toggles, the elements of a, and returns
+         * the normalized result.
+         */
+        Container flipOrSet(ArrayContainer a, boolean flip) {
+            long[] ws = words;
+            char[] c = a.content;
+            int n = card;
+            for (int i = 0; i < a.card; ++i) {
+                int x = c[i];
+                long w = ws[x >>> 6], m = 1L << x;
+                if ((w & m) == 0L) {
+                    ws[x >>> 6] = w | m;
+                    ++n;
+                }
+                else if (flip) {
+                    ws[x >>> 6] = w & ~m;
+                    --n;
+                }
+            }
+            card = n;
+            return normalize();
+        }
+
+        /**
+         * Clears the elements of a, and returns the normalized result.
+         */
+        Container clearAll(ArrayContainer a) {
+            long[] ws = words;
+            char[] c = a.content;
+            int n = card;
+            for (int i = 0; i < a.card; ++i) {
+                int x = c[i];
+                long w = ws[x >>> 6], m = 1L << x;
+                if ((w & m) != 0L) {
+                    ws[x >>> 6] = w & ~m;
+                    --n;
+                }
+            }
+            card = n;
+            return normalize();
+        }
+
+        /**
+         * Combines two bitmaps word by word according to op.
+         */
+        Container combine(int op, BitmapContainer y) {
+            BitmapContainer r = new BitmapContainer();
+            long[] a = words, b = y.words, c = r.words;
+            int n = 0;
+            switch (op) {
+            case AND:
+                for (int u = 0; u < BITMAP_WORDS; ++u)
+                    n += Long.bitCount(c[u] = a[u] & b[u]);
+                break;
+            case OR:
+                for (int u = 0; u < BITMAP_WORDS; ++u)
+                    n += Long.bitCount(c[u] = a[u] | b[u]);
+                break;
+            case ANDNOT:
+                for (int u = 0; u < BITMAP_WORDS; ++u)
+                    n += Long.bitCount(c[u] = a[u] & ~b[u]);
+                break;
+            default:
+                for (int u = 0; u < BITMAP_WORDS; ++u)
+                    n += Long.bitCount(c[u] = a[u] ^ b[u]);
+                break;
+            }
+            r.card = n;
+            return r.normalize();
+        }
+    }
+
+    /**
+     * A sorted sequence of disjoint, non-adjacent runs, each held as a
+     * start offset and a length minus one.  Mutations other than
+     * merging a range into a single-run container convert to array or
+     * bitmap form.
+     */
+    static final class RunContainer extends Container {
+        private static final long serialVersionUID = -4390471384522394725L;
+        char[] runs;    // start, length - 1, start, length - 1, ...
+        int nruns;
+        int card;
+
+        RunContainer(char[] runs, int nruns, int card) {
+            this.runs = runs;
+            this.nruns = nruns;
+            this.card = card;
+        }
+
+        static RunContainer ofRange(int from, int to) {
+            return new RunContainer(new char[] { (char)from, (char)(to - from - 1) },
+                                    1, to - from);
+        }
+
+        static RunContainer of(Container c, int nruns) {
+            char[] r = new char[2 * nruns];
+            int n = 0;
+            for (int b = c.nextSetBit(0); b >= 0; ) {
+                int e = b;
+                while (e < 0xffff && c.contains(e + 1))
+                    ++e;
+                r[n++] = (char)b;
+                r[n++] = (char)(e - b);
+                b = (e < 0xffff) ? c.nextSetBit(e + 1) : -1;
+            }
+            return new RunContainer(r, nruns, c.cardinality());
+        }
+
+        private int start(int i) { return runs[2 * i]; }
+        private int end(int i)   { return runs[2 * i] + runs[2 * i + 1]; }
+
+        /**
+         * Returns the index of the last run starting at or below x,
+         * or -1.
+         */
+        private int runFor(int x) {
+            int lo = 0, hi = nruns - 1;
+            while (lo <= hi) {
+                int mid = (lo + hi) >>> 1;
+                if (start(mid) <= x)
+                    lo = mid + 1;
+                else
+                    hi = mid - 1;
+            }
+            return hi;
+        }
+
+        int cardinality() { return card; }
+
+        boolean contains(int x) {
+            int i = runFor(x);
+            return i >= 0 && x <= end(i);
+        }
+
+        Container add(int x) {
+            return contains(x) ? this : materialize().add(x);
+        }
+
+        Container remove(int x) {
+            return contains(x) ? materialize().remove(x) : this;
+        }
+
+        Container addRange(int from, int to) {
+            if (nruns == 1 && from <= end(0) + 1 && to >= start(0)) {
+                int s = Math.min(from, start(0)), e = Math.max(to - 1, end(0));
+                runs[0] = (char)s;
+                runs[1] = (char)(e - s);
+                card = e - s + 1;
+                return this;
+            }
+            return materialize().addRange(from, to);
+        }
+
+        Container removeRange(int from, int to) {
+            return materialize().removeRange(from, to);
+        }
+
+        int nextSetBit(int x) {
+            int i = runFor(x);
+            if (i >= 0 && x <= end(i))
+                return x;
+            return (i + 1 < nruns) ? start(i + 1) : -1;
+        }
+
+        int previousSetBit(int x) {
+            int i = runFor(x);
+            return (i < 0) ? -1 : Math.min(x, end(i));
+        }
+
+        int last() { return end(nruns - 1); }
+
+        int rank(int x) {
+            int n = 0;
+            for (int i = 0; i < nruns; ++i) {
+                int s = start(i);
+                if (s >= x)
+                    break;
+                n += Math.min(x - 1, end(i)) - s + 1;
+            }
+            return n;
+        }
+
+        int select(int j) {
+            for (int i = 0;; ++i) {
+                int len = runs[2 * i + 1] + 1;
+                if (j < len)
+                    return start(i) + j;
+                j -= len;
+            }
+        }
+
+        void forEach(int base, IntConsumer action) {
+            for (int i = 0; i < nruns; ++i) {
+                for (int x = start(i), e = end(i); x <= e; ++x)
+                    action.accept(base | x);
+            }
+        }
+
+        void orInto(long[] words, int base) {
+            int n = Math.min(BITMAP_WORDS, words.length - base);
+            for (int i = 0; i < nruns; ++i) {
+                int s = start(i), e = end(i);
+                for (int x = s; x <= e; ++x) {
+                    if ((x >>> 6) < n)
+                        words[base + (x >>> 6)] |= 1L << x;
+                }
+            }
+        }
+
+        Container materialize() {
+            if (card <= ARRAY_MAX) {
+                char[] c = new char[card];
+                int k = 0;
+                for (int i = 0; i < nruns; ++i) {
+                    for (int x = start(i), e = end(i); x <= e; ++x)
+                        c[k++] = (char)x;
+                }
+                return new ArrayContainer(c, k);
+            }
+            BitmapContainer b = new BitmapContainer();
+            for (int i = 0; i < nruns; ++i)
+                b.addRange(start(i), end(i) + 1);
+            return b;
+        }
+
+        Container optimize() {
+            Container c = compactForm();
+            if (c == this && runs.length > 2 * nruns)
+                runs = Arrays.copyOf(runs, 2 * nruns);
+            return c;
+        }
+
+        long sizeInBytes() { return 2L * runs.length; }
+
+        int numberOfRuns() { return nruns; }
+
+        public RunContainer clone() {
+            RunContainer c = (RunContainer) super.clone();
+            c.runs = runs.clone();
+            return c;
+        }
+    }
+}
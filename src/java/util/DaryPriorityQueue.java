@@ -0,0 +1,708 @@
+/*
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+package java.util;
+
+import java.util.function.Consumer;
+
+/**
+ * An unbounded priority {@linkplain Queue queue} based on a
+ * <i>d</i>-ary heap.  This class is a drop-in alternative to {@link
+ * PriorityQueue}, with the same ordering, null-handling, iteration
+ * and concurrency properties, except that each node of its heap has
+ * up to <i>d</i> children rather than two.  The <i>arity</i> d is a
+ * power of two between 2 and 64 fixed at construction, by default 4.
+ *
+ * <p>A higher arity makes the heap shallower, so that insertions
+ * ({@code offer}) perform fewer comparisons and moves, at the price
+ * of more comparisons per level in removals ({@code poll}).  Because
+ * the children of a node are adjacent in the backing array, they
+ * usually share a cache line, so for large queues a 4-ary or 8-ary
+ * heap typically incurs fewer cache misses per operation than a
+ * binary one.
+ *
+ * <p>The <em>head</em> of this queue is the <em>least</em> element
+ * with respect to the specified ordering.  If multiple elements are
+ * tied for least value, the head is one of those elements -- ties are
+ * broken arbitrarily.
+ *
+ * <p>This class and its iterator implement all of the
+ * <em>optional</em> methods of the {@link Collection} and {@link
+ * Iterator} interfaces.  The Iterator provided in method {@link
+ * #iterator()} is <em>not</em> guaranteed to traverse the elements of
+ * the priority queue in any particular order.
+ *
+ * <p><strong>Note that this implementation is not synchronized.</strong>
+ * Multiple threads should not access a {@code DaryPriorityQueue}
+ * instance concurrently if any of the threads modifies the queue.
+ *
+ * <p>Implementation note: this implementation provides
+ * O(log<sub>d</sub>(n)) time for {@code offer} and {@code add};
+ * O(d log<sub>d</sub>(n)) time for {@code poll} and {@code remove()};
+ * linear time for the {@code remove(Object)} and {@code contains(Object)}
+ * methods; and constant time for the retrieval methods
+ * ({@code peek}, {@code element}, and {@code size}).  To remove or
+ * reprioritize elements in logarithmic time, use an {@link
+ * IndexedPriorityQueue}.
+ *
+ * @param <E> the type of elements held in this collection
+ * @see PriorityQueue
+ * @see IndexedPriorityQueue
+ * @since 1.9
+ */
+public class DaryPriorityQueue<E> extends AbstractQueue<E>
+    implements java.io.Serializable {
+
+    private static final long serialVersionUID = 5179231851263312437L;
+
+    private static final int DEFAULT_INITIAL_CAPACITY = 16;
+
+    /**
+     * The default arity.
+     */
+    static final int DEFAULT_ARITY = 4;
+
+    /**
+     * Priority queue represented as a balanced d-ary heap, d being
+     * 1 << shift: the children of queue[n] are queue[d*n+1] through
+     * queue[d*n+d].  The priority queue is ordered by comparator, or
+     * by the elements' natural ordering, if comparator is null: For
+     * each node n in the heap and each descendant c of n, n <= c.
+     * The element with the lowest value is in queue[0], assuming the
+     * queue is nonempty.
+     */
+    transient Object[] queue; // non-private to simplify nested class access
+
+    /**
+     * The number of elements in the priority queue.
+     */
+    private int size;
+
+    /**
+     * Log2 of the arity of the heap.
+     */
+    private final int shift;
+
+    /**
+     * The comparator, or null if priority queue uses elements'
+     * natural ordering.
+     */
+    private final Comparator<? super E> comparator;
+
+    /**
+     * The number of times this priority queue has been
+     * <i>structurally modified</i>.  See AbstractList for gory details.
+     */
+    transient int modCount; // non-private to simplify nested class access
+
+    /**
+     * Creates a {@code DaryPriorityQueue} with the default initial
+     * capacity and arity that orders its elements according to their
+     * {@linkplain Comparable natural ordering}.
+     */
+    public DaryPriorityQueue() {
+        this(DEFAULT_INITIAL_CAPACITY, DEFAULT_ARITY, null);
+    }
+
+    /**
+     * Creates a {@code DaryPriorityQueue} with the specified initial
+     * capacity and the default arity that orders its elements
+     * according to their {@linkplain Comparable natural ordering}.
+     *
+     * @param initialCapacity the initial capacity for this priority queue
+     * @throws IllegalArgumentException if {@code initialCapacity} is less
+     *         than 1
+     */
+    public DaryPriorityQueue(int initialCapacity) {
+        this(initialCapacity, DEFAULT_ARITY, null);
+    }
+
+    /**
+     * Creates a {@code DaryPriorityQueue} with the default initial
+     * capacity and arity whose elements are ordered according to the
+     * specified comparator.
+     *
+     * @param  comparator the comparator that will be used to order this
+     *         priority queue.  If {@code null}, the {@linkplain Comparable
+     *         natural ordering} of the elements will be used.
+     */
+    public DaryPriorityQueue(Comparator<? super E> comparator) {
+        this(DEFAULT_INITIAL_CAPACITY, DEFAULT_ARITY, comparator);
+    }
+
+    /**
+     * Creates a {@code DaryPriorityQueue} with the specified initial
+     * capacity and arity that orders its elements according to the
+     * specified comparator.
+     *
+     * @param  initialCapacity the initial capacity for this priority queue
+     * @param  arity the maximum number of children of each node of the
+     *         heap, a power of two between 2 and 64
+     * @param  comparator the comparator that will be used to order this
+     *         priority queue.  If {@code null}, the {@linkplain Comparable
+     *         natural ordering} of the elements will be used.
+     * @throws IllegalArgumentException if {@code initialCapacity} is
+     *         less than 1, or {@code arity} is not a power of two
+     *         between 2 and 64
+     */
+    public DaryPriorityQueue(int initialCapacity, int arity,
+                             Comparator<? super E> comparator) {
+        if (initialCapacity < 1)
+            throw new IllegalArgumentException();
+        this.shift = shiftFor(arity);
+        this.queue = new Object[initialCapacity];
+        this.comparator = comparator;
+    }
+
+    /**
+     * Returns log2 of the given arity, checking that it is a power of
+     * two between 2 and 64.
+     */
+    static int shiftFor(int arity) {
+        if (arity < 2 || arity > 64 || (arity & (arity - 1)) != 0)
+            throw new IllegalArgumentException("Illegal arity: " + arity);
+        return Integer.numberOfTrailingZeros(arity);
+    }
+
+    /**
+     * The maximum size of array to allocate.
+     * Some VMs reserve some header words in an array.
+     * Attempts to allocate larger arrays may result in
+     * OutOfMemoryError: Requested array size exceeds VM limit
+     */
+    private static final int MAX_ARRAY_SIZE = Integer.MAX_VALUE - 8;
+
+    /**
+     * Returns the capacity to which an array of length oldCapacity
+     * should grow to hold at least minCapacity elements.
+     */
+    static int newCapacity(int oldCapacity, int minCapacity) {
+        // Double size if small; else grow by 50%
+        int newCapacity = oldCapacity + ((oldCapacity < 64) ?
+                                         (oldCapacity + 2) :
+                                         (oldCapacity >> 1));
+        // overflow-conscious code
+        if (newCapacity - MAX_ARRAY_SIZE > 0) {
+            if (minCapacity < 0) // overflow
+                throw new OutOfMemoryError();
+            newCapacity = (minCapacity > MAX_ARRAY_SIZE) ?
+                Integer.MAX_VALUE :
+                MAX_ARRAY_SIZE;
+        }
+        return newCapacity;
+    }
+
+    /**
+     * Inserts the specified element into this priority queue.
+     *
+     * @return {@code true} (as specified by {@link Collection#add})
+     * @throws ClassCastException if the specified element cannot be
+     *         compared with elements currently in this priority queue
+     *         according to the priority queue's ordering
+     * @throws NullPointerException if the specified element is null
+     */
+    public boolean add(E e) {
+        return offer(e);
+    }
+
+    /**
+     * Inserts the specified element into this priority queue.
+     *
+     * @return {@code true} (as specified by {@link Queue#offer})
+     * @throws ClassCastException if the specified element cannot be
+     *         compared with elements currently in this priority queue
+     *         according to the priority queue's ordering
+     * @throws NullPointerException if the specified element is null
+     */
+    public boolean offer(E e) {
+        if (e == null)
+            throw new NullPointerException();
+        modCount++;
+        int i = size;
+        if (i >= queue.length)
+            queue = Arrays.copyOf(queue, newCapacity(queue.length, i + 1));
+        size = i + 1;
+        if (i == 0)
+            queue[0] = e;
+        else
+            siftUp(i, e);
+        return true;
+    }
+
+    @SuppressWarnings("unchecked")
+    public E peek() {
+        return (size == 0) ? null : (E) queue[0];
+    }
+
+    private int indexOf(Object o) {
+        if (o != null) {
+            for (int i = 0; i < size; i++)
+                if (o.equals(queue[i]))
+                    return i;
+        }
+        return -1;
+    }
+
+    /**
+     * Removes a single instance of the specified element from this queue,
+     * if it is present.  More formally, removes an element {@code e} such
+     * that {@code o.equals(e)}, if this queue contains one or more such
+     * elements.  Returns {@code true} if and only if this queue contained
+     * the specified element (or equivalently, if this queue changed as a
+     * result of the call).
+     *
+     * @param o element to be removed from this queue, if present
+     * @return {@code true} if this queue changed as a result of the call
+     */
+    public boolean remove(Object o) {
+        int i = indexOf(o);
+        if (i == -1)
+            return false;
+        else {
+            removeAt(i);
+            return true;
+        }
+    }
+
+    /**
+     * Version of remove using reference equality, not equals.
+     * Needed by iterator.remove.
+     */
+    void removeEq(Object o) {
+        for (int i = 0; i < size; i++) {
+            if (o == queue[i]) {
+                removeAt(i);
+                break;
+            }
+        }
+    }
+
+    /**
+     * Returns {@code true} if this queue contains the specified element.
+     * More formally, returns {@code true} if and only if this queue contains
+     * at least one element {@code e} such that {@code o.equals(e)}.
+     *
+     * @param o object to be checked for containment in this queue
+     * @return {@code true} if this queue contains the specified element
+     */
+    public boolean contains(Object o) {
+        return indexOf(o) != -1;
+    }
+
+    /**
+     * Returns an array containing all of the elements in this queue.
+     * The elements are in no particular order.
+     *
+     * <p>The returned array will be "safe" in that no references to it are
+     * maintained by this queue.  (In other words, this method must allocate
+     * a new array).  The caller is thus free to modify the returned array.
+     *
+     * @return an array containing all of the elements in this queue
+     */
+    public Object[] toArray() {
+        return Arrays.copyOf(queue, size);
+    }
+
+    /**
+     * Returns an array containing all of the elements in this queue; the
+     * runtime type of the returned array is that of the specified array.
+     * The returned array elements are in no particular order.
+     * If the queue fits in the specified array, it is returned therein.
+     * Otherwise, a new array is allocated with the runtime type of the
+     * specified array and the size of this queue.
+     *
+     * <p>If the queue fits in the specified array with room to spare
+     * (i.e., the array has more elements than the queue), the element in
+     * the array immediately following the end of the collection is set to
+     * {@code null}.
+     *
+     * @param a the array into which the elements of the queue are to
+     *          be stored, if it is big enough; otherwise, a new array of the
+     *          same runtime type is allocated for this purpose.
+     * @return an array containing all of the elements in this queue
+     * @throws ArrayStoreException if the runtime type of the specified array
+     *         is not a supertype of the runtime type of every element in
+     *         this queue
+     * @throws NullPointerException if the specified array is null
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T[] toArray(T[] a) {
+        final int size = this.size;
+        if (a.length < size)
+            // Make a new array of a's runtime type, but my contents:
+            return (T[]) Arrays.copyOf(queue, size, a.getClass());
+        System.arraycopy(queue, 0, a, 0, size);
+        if (a.length > size)
+            a[size] = null;
+        return a;
+    }
+
+    /**
+     * Returns an iterator over the elements in this queue. The iterator
+     * does not return the elements in any particular order.
+     *
+     * @return an iterator over the elements in this queue
+     */
+    public Iterator<E> iterator() {
+        return new Itr();
+    }
+
+    /**
+     * Iterator over the heap array.  As for PriorityQueue, an element
+     * moved by Iterator.remove from the unvisited part of the array
+     * into the visited part is remembered in forgetMeNot and returned
+     * after the array is exhausted.
+     */
+    private final class Itr implements Iterator<E> {
+        private int cursor;
+        private int lastRet = -1;
+        private ArrayDeque<E> forgetMeNot;
+        private E lastRetElt;
+        private int expectedModCount = modCount;
+
+        public boolean hasNext() {
+            return cursor < size ||
+                (forgetMeNot != null && !forgetMeNot.isEmpty());
+        }
+
+        @SuppressWarnings("unchecked")
+        public E next() {
+            if (expectedModCount != modCount)
+                throw new ConcurrentModificationException();
+            if (cursor < size)
+                return (E) queue[lastRet = cursor++];
+            if (forgetMeNot != null) {
+                lastRet = -1;
+                lastRetElt = forgetMeNot.poll();
+                if (lastRetElt != null)
+                    return lastRetElt;
+            }
+            throw new NoSuchElementException();
+        }
+
+        public void remove() {
+            if (expectedModCount != modCount)
+                throw new ConcurrentModificationException();
+            if (lastRet != -1) {
+                E moved = DaryPriorityQueue.this.removeAt(lastRet);
+                lastRet = -1;
+                if (moved == null)
+                    cursor--;
+                else {
+                    if (forgetMeNot == null)
+                        forgetMeNot = new ArrayDeque<>();
+                    forgetMeNot.add(moved);
+                }
+            } else if (lastRetElt != null) {
+                DaryPriorityQueue.this.removeEq(lastRetElt);
+                lastRetElt = null;
+            } else {
+                throw new IllegalStateException();
+            }
+            expectedModCount = modCount;
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the arity of the heap of this queue.
+     *
+     * @return the maximum number of children of each node of the heap
+     */
+    public int arity() {
+        return 1 << shift;
+    }
+
+    /**
+     * Removes all of the elements from this priority queue.
+     * The queue will be empty after this call returns.
+     */
+    public void clear() {
+        modCount++;
+        for (int i = 0; i < size; i++)
+            queue[i] = null;
+        size = 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    public E poll() {
+        if (size == 0)
+            return null;
+        int s = --size;
+        modCount++;
+        E result = (E) queue[0];
+        E x = (E) queue[s];
+        queue[s] = null;
+        if (s != 0)
+            siftDown(0, x);
+        return result;
+    }
+
+    /**
+     * Removes the ith element from queue, returning, as does
+     * PriorityQueue.removeAt, the element previously at the end of
+     * the list if it has moved to a position before i, else null.
+     */
+    @SuppressWarnings("unchecked")
+    private E removeAt(int i) {
+        // assert i >= 0 && i < size;
+        modCount++;
+        int s = --size;
+        if (s == i) // removed last element
+            queue[i] = null;
+        else {
+            E moved = (E) queue[s];
+            queue[s] = null;
+            siftDown(i, moved);
+            if (queue[i] == moved) {
+                siftUp(i, moved);
+                if (queue[i] != moved)
+                    return moved;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Compares two elements using the comparator or, if null,
+     * their natural ordering.
+     */
+    @SuppressWarnings("unchecked")
+    final int compare(Object x, Object y) {
+        return comparator == null ? ((Comparable<? super E>)x).compareTo((E)y)
+            : comparator.compare((E)x, (E)y);
+    }
+
+    /**
+     * Inserts item x at position k, maintaining heap invariant by
+     * promoting x up the tree until it is greater than or equal to
+     * its parent, or is the root.
+     *
+     * @param k the position to fill
+     * @param x the item to insert
+     */
+    private void siftUp(int k, E x) {
+        Object[] q = queue; int s = shift;
+        while (k > 0) {
+            int parent = (k - 1) >>> s;
+            Object e = q[parent];
+            if (compare(x, e) >= 0)
+                break;
+            q[k] = e;
+            k = parent;
+        }
+        q[k] = x;
+    }
+
+    /**
+     * Inserts item x at position k, maintaining heap invariant by
+     * demoting x down the tree repeatedly until it is less than or
+     * equal to its children or is a leaf.
+     *
+     * @param k the position to fill
+     * @param x the item to insert
+     */
+    private void siftDown(int k, E x) {
+        Object[] q = queue; int s = shift, n = size;
+        int last = (n - 2) >> s;      // loop while a non-leaf
+        while (k <= last) {
+            int child = (k << s) + 1; // least of the children
+            int end = Math.min(child + (1 << s), n);
+            Object c = q[child];
+            for (int i = child + 1; i < end; ++i) {
+                if (compare(c, q[i]) > 0)
+                    c = q[child = i];
+            }
+            if (compare(x, c) <= 0)
+                break;
+            q[k] = c;
+            k = child;
+        }
+        q[k] = x;
+    }
+
+    /**
+     * Establishes the heap invariant (described above) in the entire tree,
+     * assuming nothing about the order of the elements prior to the call.
+     */
+    @SuppressWarnings("unchecked")
+    private void heapify() {
+        for (int i = (size - 2) >> shift; i >= 0; i--)
+            siftDown(i, (E) queue[i]);
+    }
+
+    /**
+     * Returns the comparator used to order the elements in this
+     * queue, or {@code null} if this queue is sorted according to
+     * the {@linkplain Comparable natural ordering} of its elements.
+     *
+     * @return the comparator used to order this queue, or
+     *         {@code null} if this queue is sorted according to the
+     *         natural ordering of its elements
+     */
+    public Comparator<? super E> comparator() {
+        return comparator;
+    }
+
+    /**
+     * Saves this queue to a stream (that is, serializes it).
+     *
+     * @serialData The size, arity and comparator are emitted,
+     *             followed by all of the elements (each an {@code
+     *             Object}) in heap order.
+     * @param s the stream
+     */
+    private void writeObject(java.io.ObjectOutputStream s)
+        throws java.io.IOException {
+        s.defaultWriteObject();
+        for (int i = 0; i < size; i++)
+            s.writeObject(queue[i]);
+    }
+
+    /**
+     * Reconstitutes the {@code DaryPriorityQueue} instance from a
+     * stream (that is, deserializes it).
+     *
+     * @param s the stream
+     */
+    private void readObject(java.io.ObjectInputStream s)
+        throws java.io.IOException, ClassNotFoundException {
+        s.defaultReadObject();
+        if (shift < 1 || shift > 6 || size < 0)
+            throw new java.io.InvalidObjectException("invalid arity or size");
+        queue = new Object[Math.max(size, 1)];
+        for (int i = 0; i < size; i++)
+            queue[i] = s.readObject();
+        heapify();
+    }
+
+    /**
+     * Creates a <em><a href="Spliterator.html#binding">late-binding</a></em>
+     * and <em>fail-fast</em> {@link Spliterator} over the elements in this
+     * queue.
+     *
+     * <p>The {@code Spliterator} reports {@link Spliterator#SIZED},
+     * {@link Spliterator#SUBSIZED}, and {@link Spliterator#NONNULL}.
+     * Overriding implementations should document the reporting of additional
+     * characteristic values.
+     *
+     * @return a {@code Spliterator} over the elements in this queue
+     */
+    public final Spliterator<E> spliterator() {
+        return new DaryPriorityQueueSpliterator<E>(this, 0, -1, 0);
+    }
+
+    static final class DaryPriorityQueueSpliterator<E> implements Spliterator<E> {
+        /*
+         * Identical to PriorityQueueSpliterator except for types.
+         */
+        private final DaryPriorityQueue<E> pq;
+        private int index;            // current index, modified on advance/split
+        private int fence;            // -1 until first use
+        private int expectedModCount; // initialized when fence set
+
+        /** Creates new spliterator covering the given range */
+        DaryPriorityQueueSpliterator(DaryPriorityQueue<E> pq, int origin,
+                                     int fence, int expectedModCount) {
+            this.pq = pq;
+            this.index = origin;
+            this.fence = fence;
+            this.expectedModCount = expectedModCount;
+        }
+
+        private int getFence() { // initialize fence to size on first use
+            int hi;
+            if ((hi = fence) < 0) {
+                expectedModCount = pq.modCount;
+                hi = fence = pq.size;
+            }
+            return hi;
+        }
+
+        public DaryPriorityQueueSpliterator<E> trySplit() {
+            int hi = getFence(), lo = index, mid = (lo + hi) >>> 1;
+            return (lo >= mid) ? null :
+                new DaryPriorityQueueSpliterator<E>(pq, lo, index = mid,
+                                                    expectedModCount);
+        }
+
+        @SuppressWarnings("unchecked")
+        public void forEachRemaining(Consumer<? super E> action) {
+            int i, hi, mc; // hoist accesses and checks from loop
+            DaryPriorityQueue<E> q; Object[] a;
+            if (action == null)
+                throw new NullPointerException();
+            if ((q = pq) != null && (a = q.queue) != null) {
+                if ((hi = fence) < 0) {
+                    mc = q.modCount;
+                    hi = q.size;
+                }
+                else
+                    mc = expectedModCount;
+                if ((i = index) >= 0 && (index = hi) <= a.length) {
+                    for (E e;; ++i) {
+                        if (i < hi) {
+                            if ((e = (E) a[i]) == null) // must be CME
+                                break;
+                            action.accept(e);
+                        }
+                        else if (q.modCount != mc)
+                            break;
+                        else
+                            return;
+                    }
+                }
+            }
+            throw new ConcurrentModificationException();
+        }
+
+        public boolean tryAdvance(Consumer<? super E> action) {
+            if (action == null)
+                throw new NullPointerException();
+            int hi = getFence(), lo = index;
+            if (lo >= 0 && lo < hi) {
+                index = lo + 1;
+                @SuppressWarnings("unchecked") E e = (E)pq.queue[lo];
+                if (e == null)
+                    throw new ConcurrentModificationException();
+                action.accept(e);
+                if (pq.modCount != expectedModCount)
+                    throw new ConcurrentModificationException();
+                return true;
+            }
+            return false;
+        }
+
+        public long estimateSize() {
+            return (long) (getFence() - index);
+        }
+
+        public int characteristics() {
+            return Spliterator.SIZED | Spliterator.SUBSIZED | Spliterator.NONNULL;
+        }
+    }
+}
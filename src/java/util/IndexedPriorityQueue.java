@@ -0,0 +1,568 @@
+/*
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+package java.util;
+
+/**
+ * An unbounded priority {@linkplain Queue queue} based on a
+ * <i>d</i>-ary heap, in which each element is identified by an
+ * {@code int} <i>handle</i>, allowing it to be removed or
+ * reprioritized in logarithmic time.  The elements are ordered as in
+ * a {@link PriorityQueue}, according to their {@linkplain Comparable
+ * natural ordering}, or by a {@link Comparator} provided at queue
+ * construction time, and {@code null} elements are not permitted.
+ * As for {@link DaryPriorityQueue}, the arity of the heap is a power
+ * of two between 2 and 64, by default 4.
+ *
+ * <p>Method {@link #insert} adds an element and returns its handle,
+ * which remains valid until the element is removed, by any means.
+ * Handles are small non-negative integers, less than the largest
+ * number of elements that the queue has held at any one time, so
+ * they may be used to index arrays of per-element data.  The handle
+ * of a removed element may be reused for an element inserted later,
+ * so a handle must not be used after its element has been removed.
+ * The handle of the head is returned by {@link #peekHandle}.
+ *
+ * <p>Given a handle, {@link #get} returns the element, {@link
+ * #changeKey} replaces it with an element of any priority, {@link
+ * #decreaseKey} replaces it with an element of no greater priority,
+ * as in shortest-path algorithms, and {@link #removeHandle} removes
+ * it.  These methods throw {@link NoSuchElementException} for handles
+ * that do not identify an element of the queue.  Elements must not
+ * be modified in ways that affect their ordering while in the queue,
+ * other than through these methods.
+ *
+ * <p>This class and its iterator implement all of the
+ * <em>optional</em> methods of the {@link Collection} and {@link
+ * Iterator} interfaces.  The Iterator provided in method {@link
+ * #iterator()} traverses the elements in ascending order of their
+ * handles, not of their priorities, and is <em>fail-fast</em> with
+ * respect to insertions and removals; changing the priority of an
+ * element does not affect it.
+ *
+ * <p><strong>Note that this implementation is not synchronized.</strong>
+ * Multiple threads should not access an {@code IndexedPriorityQueue}
+ * instance concurrently if any of the threads modifies the queue.
+ *
+ * <p>Implementation note: this implementation provides
+ * O(log(n)) time for {@code insert}, {@code offer}, {@code poll},
+ * {@code removeHandle}, {@code decreaseKey} and {@code changeKey};
+ * linear time for the {@code remove(Object)} and {@code
+ * contains(Object)} methods; and constant time for the retrieval
+ * methods ({@code peek}, {@code get}, {@code element}, and {@code
+ * size}).
+ *
+ * @param <E> the type of elements held in this collection
+ * @see DaryPriorityQueue
+ * @see LongPriorityQueue
+ * @since 1.9
+ */
+public class IndexedPriorityQueue<E> extends AbstractQueue<E>
+    implements java.io.Serializable {
+
+    private static final long serialVersionUID = -2466217304542719958L;
+
+    private static final int DEFAULT_INITIAL_CAPACITY = 16;
+
+    /*
+     * Implementation notes.
+     *
+     * The heap is held in two parallel arrays in heap order, queue
+     * for the elements and handles for their handles, laid out as in
+     * DaryPriorityQueue, so that comparisons read the elements
+     * directly.  The array pos maps each handle to its index in the
+     * heap, and is updated whenever an element moves.  Handles not
+     * in use form a free list threaded through pos, encoding the
+     * next free handle n (or -1 at the end) as -2 - n, so a handle h
+     * is in use if and only if h < limit and pos[h] >= 0.  Handles
+     * are reused from the free list before new ones are taken at
+     * limit, so limit never exceeds the capacity, and all three
+     * arrays grow together.
+     */
+
+    /** The elements, in heap order. */
+    Object[] queue;
+
+    /** The handles of the elements, in heap order. */
+    int[] handles;
+
+    /** The heap index of each handle, or free list links. */
+    int[] pos;
+
+    /** The number of elements in the queue. */
+    private int size;
+
+    /** One more than the largest handle ever in use. */
+    private int limit;
+
+    /** The first free handle below limit, or -1 if none. */
+    private int free = -1;
+
+    /** Log2 of the arity of the heap. */
+    private final int shift;
+
+    /**
+     * The comparator, or null if priority queue uses elements'
+     * natural ordering.
+     */
+    private final Comparator<? super E> comparator;
+
+    /**
+     * The number of times this queue has had elements inserted or
+     * removed.
+     */
+    transient int modCount;
+
+    /**
+     * Creates an {@code IndexedPriorityQueue} with the default initial
+     * capacity and arity that orders its elements according to their
+     * {@linkplain Comparable natural ordering}.
+     */
+    public IndexedPriorityQueue() {
+        this(DEFAULT_INITIAL_CAPACITY, DaryPriorityQueue.DEFAULT_ARITY, null);
+    }
+
+    /**
+     * Creates an {@code IndexedPriorityQueue} with the default initial
+     * capacity and arity whose elements are ordered according to the
+     * specified comparator.
+     *
+     * @param  comparator the comparator that will be used to order this
+     *         priority queue.  If {@code null}, the {@linkplain Comparable
+     *         natural ordering} of the elements will be used.
+     */
+    public IndexedPriorityQueue(Comparator<? super E> comparator) {
+        this(DEFAULT_INITIAL_CAPACITY, DaryPriorityQueue.DEFAULT_ARITY,
+             comparator);
+    }
+
+    /**
+     * Creates an {@code IndexedPriorityQueue} with the specified initial
+     * capacity and arity that orders its elements according to the
+     * specified comparator.
+     *
+     * @param  initialCapacity the initial capacity for this priority queue
+     * @param  arity the maximum number of children of each node of the
+     *         heap, a power of two between 2 and 64
+     * @param  comparator the comparator that will be used to order this
+     *         priority queue.  If {@code null}, the {@linkplain Comparable
+     *         natural ordering} of the elements will be used.
+     * @throws IllegalArgumentException if {@code initialCapacity} is
+     *         less than 1, or {@code arity} is not a power of two
+     *         between 2 and 64
+     */
+    public IndexedPriorityQueue(int initialCapacity, int arity,
+                                Comparator<? super E> comparator) {
+        if (initialCapacity < 1)
+            throw new IllegalArgumentException();
+        this.shift = DaryPriorityQueue.shiftFor(arity);
+        this.queue = new Object[initialCapacity];
+        this.handles = new int[initialCapacity];
+        this.pos = new int[initialCapacity];
+        this.comparator = comparator;
+    }
+
+    /**
+     * Inserts the specified element into this priority queue,
+     * returning its handle.
+     *
+     * @param e the element to add
+     * @return the handle of the element
+     * @throws ClassCastException if the specified element cannot be
+     *         compared with elements currently in this priority queue
+     *         according to the priority queue's ordering
+     * @throws NullPointerException if the specified element is null
+     */
+    public int insert(E e) {
+        if (e == null)
+            throw new NullPointerException();
+        int i = size, h;
+        if (i >= queue.length) {
+            int n = DaryPriorityQueue.newCapacity(queue.length, i + 1);
+            queue = Arrays.copyOf(queue, n);
+            handles = Arrays.copyOf(handles, n);
+            pos = Arrays.copyOf(pos, n);
+        }
+        if ((h = free) >= 0)
+            free = -2 - pos[h];
+        else
+            h = limit++;
+        modCount++;
+        size = i + 1;
+        siftUp(i, e, h);
+        return h;
+    }
+
+    /**
+     * Inserts the specified element into this priority queue.
+     *
+     * @return {@code true} (as specified by {@link Queue#offer})
+     * @throws ClassCastException if the specified element cannot be
+     *         compared with elements currently in this priority queue
+     *         according to the priority queue's ordering
+     * @throws NullPointerException if the specified element is null
+     */
+    public boolean offer(E e) {
+        insert(e);
+        return true;
+    }
+
+    @SuppressWarnings("unchecked")
+    public E peek() {
+        return (size == 0) ? null : (E) queue[0];
+    }
+
+    /**
+     * Returns the handle of the head of this queue, or -1 if this
+     * queue is empty.
+     *
+     * @return the handle of the head of this queue, or -1 if empty
+     */
+    public int peekHandle() {
+        return (size == 0) ? -1 : handles[0];
+    }
+
+    @SuppressWarnings("unchecked")
+    public E poll() {
+        return (size == 0) ? null : (E) removeAt(0);
+    }
+
+    /**
+     * Returns {@code true} if the specified handle identifies an
+     * element of this queue.
+     *
+     * @param handle the handle
+     * @return {@code true} if the handle identifies an element
+     */
+    public boolean containsHandle(int handle) {
+        return handle >= 0 && handle < limit && pos[handle] >= 0;
+    }
+
+    /**
+     * Returns the element with the specified handle.
+     *
+     * @param handle the handle
+     * @return the element
+     * @throws NoSuchElementException if the handle does not identify
+     *         an element of this queue
+     */
+    @SuppressWarnings("unchecked")
+    public E get(int handle) {
+        return (E) queue[indexOf(handle)];
+    }
+
+    /**
+     * Replaces the element with the specified handle by the
+     * specified element, which may have any priority, moving it to
+     * its new place in the queue.  The handle is unchanged.
+     *
+     * @param handle the handle
+     * @param e the new element
+     * @return the element previously associated with the handle
+     * @throws NoSuchElementException if the handle does not identify
+     *         an element of this queue
+     * @throws ClassCastException if the specified element cannot be
+     *         compared with elements currently in this priority queue
+     *         according to the priority queue's ordering
+     * @throws NullPointerException if the specified element is null
+     */
+    @SuppressWarnings("unchecked")
+    public E changeKey(int handle, E e) {
+        if (e == null)
+            throw new NullPointerException();
+        int k = indexOf(handle);
+        E old = (E) queue[k];
+        int c = compare(e, old);
+        if (c < 0)
+            siftUp(k, e, handle);
+        else if (c > 0)
+            siftDown(k, e, handle);
+        else
+            queue[k] = e;
+        return old;
+    }
+
+    /**
+     * Replaces the element with the specified handle by the
+     * specified element, which must not be greater than it, moving
+     * it towards the head of the queue as needed.  The handle is
+     * unchanged.
+     *
+     * @param handle the handle
+     * @param e the new element
+     * @throws NoSuchElementException if the handle does not identify
+     *         an element of this queue
+     * @throws IllegalArgumentException if the specified element is
+     *         greater than the element it replaces
+     * @throws ClassCastException if the specified element cannot be
+     *         compared with elements currently in this priority queue
+     *         according to the priority queue's ordering
+     * @throws NullPointerException if the specified element is null
+     */
+    public void decreaseKey(int handle, E e) {
+        if (e == null)
+            throw new NullPointerException();
+        int k = indexOf(handle);
+        if (compare(e, queue[k]) > 0)
+            throw new IllegalArgumentException("priority increased");
+        siftUp(k, e, handle);
+    }
+
+    /**
+     * Removes the element with the specified handle from this queue.
+     *
+     * @param handle the handle
+     * @return the removed element
+     * @throws NoSuchElementException if the handle does not identify
+     *         an element of this queue
+     */
+    @SuppressWarnings("unchecked")
+    public E removeHandle(int handle) {
+        return (E) removeAt(indexOf(handle));
+    }
+
+    /**
+     * Removes a single instance of the specified element from this queue,
+     * if it is present.  More formally, removes an element {@code e} such
+     * that {@code o.equals(e)}, if this queue contains one or more such
+     * elements.  Returns {@code true} if and only if this queue contained
+     * the specified element (or equivalently, if this queue changed as a
+     * result of the call).
+     *
+     * @param o element to be removed from this queue, if present
+     * @return {@code true} if this queue changed as a result of the call
+     */
+    public boolean remove(Object o) {
+        if (o != null) {
+            for (int i = 0; i < size; i++) {
+                if (o.equals(queue[i])) {
+                    removeAt(i);
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns {@code true} if this queue contains the specified element.
+     * More formally, returns {@code true} if and only if this queue contains
+     * at least one element {@code e} such that {@code o.equals(e)}.
+     *
+     * @param o object to be checked for containment in this queue
+     * @return {@code true} if this queue contains the specified element
+     */
+    public boolean contains(Object o) {
+        if (o != null) {
+            for (int i = 0; i < size; i++)
+                if (o.equals(queue[i]))
+                    return true;
+        }
+        return false;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the arity of the heap of this queue.
+     *
+     * @return the maximum number of children of each node of the heap
+     */
+    public int arity() {
+        return 1 << shift;
+    }
+
+    /**
+     * Removes all of the elements from this priority queue.  The
+     * queue will be empty after this call returns, and all handles
+     * become available for reuse.
+     */
+    public void clear() {
+        modCount++;
+        Arrays.fill(queue, 0, size, null);
+        size = 0;
+        limit = 0;
+        free = -1;
+    }
+
+    /**
+     * Returns an array containing all of the elements in this queue,
+     * in no particular order.
+     *
+     * @return an array containing all of the elements in this queue
+     */
+    public Object[] toArray() {
+        return Arrays.copyOf(queue, size);
+    }
+
+    /**
+     * Returns an iterator over the elements in this queue, in
+     * ascending order of their handles.
+     *
+     * @return an iterator over the elements in this queue
+     */
+    public Iterator<E> iterator() {
+        return new Itr();
+    }
+
+    private final class Itr implements Iterator<E> {
+        private int next = advance(0);    // handle of next element
+        private int lastRet = -1;
+        private int expectedModCount = modCount;
+
+        private int advance(int h) {
+            int[] p = pos; int n = limit;
+            while (h < n && p[h] < 0)
+                ++h;
+            return h;
+        }
+
+        public boolean hasNext() {
+            return next < limit;
+        }
+
+        @SuppressWarnings("unchecked")
+        public E next() {
+            if (expectedModCount != modCount)
+                throw new ConcurrentModificationException();
+            int h = next;
+            if (h >= limit)
+                throw new NoSuchElementException();
+            next = advance(h + 1);
+            return (E) queue[pos[lastRet = h]];
+        }
+
+        public void remove() {
+            if (lastRet < 0)
+                throw new IllegalStateException();
+            if (expectedModCount != modCount)
+                throw new ConcurrentModificationException();
+            removeHandle(lastRet);
+            lastRet = -1;
+            expectedModCount = modCount;
+        }
+    }
+
+    /**
+     * Returns the comparator used to order the elements in this
+     * queue, or {@code null} if this queue is sorted according to
+     * the {@linkplain Comparable natural ordering} of its elements.
+     *
+     * @return the comparator used to order this queue, or
+     *         {@code null} if this queue is sorted according to the
+     *         natural ordering of its elements
+     */
+    public Comparator<? super E> comparator() {
+        return comparator;
+    }
+
+    /**
+     * Returns the heap index of the given handle.
+     */
+    private int indexOf(int handle) {
+        int k;
+        if (handle < 0 || handle >= limit || (k = pos[handle]) < 0)
+            throw new NoSuchElementException("no element with handle " + handle);
+        return k;
+    }
+
+    /**
+     * Removes the element at heap index i, releasing its handle.
+     */
+    private Object removeAt(int i) {
+        modCount++;
+        Object[] q = queue;
+        Object result = q[i];
+        int h = handles[i];
+        int s = --size;
+        if (s != i) {
+            Object moved = q[s];
+            int mh = handles[s];
+            siftDown(i, moved, mh);
+            if (handles[i] == mh)
+                siftUp(i, moved, mh);
+        }
+        q[s] = null;
+        pos[h] = -2 - free;
+        free = h;
+        return result;
+    }
+
+    /**
+     * Compares two elements using the comparator or, if null,
+     * their natural ordering.
+     */
+    @SuppressWarnings("unchecked")
+    final int compare(Object x, Object y) {
+        return comparator == null ? ((Comparable<? super E>)x).compareTo((E)y)
+            : comparator.compare((E)x, (E)y);
+    }
+
+    /**
+     * Places element x with handle h at heap index k or above,
+     * moving larger ancestors down.
+     */
+    private void siftUp(int k, Object x, int h) {
+        Object[] q = queue; int[] hs = handles, p = pos; int s = shift;
+        while (k > 0) {
+            int parent = (k - 1) >>> s;
+            Object e = q[parent];
+            if (compare(x, e) >= 0)
+                break;
+            q[k] = e;
+            p[hs[k] = hs[parent]] = k;
+            k = parent;
+        }
+        q[k] = x;
+        p[hs[k] = h] = k;
+    }
+
+    /**
+     * Places element x with handle h at heap index k or below,
+     * moving smaller descendants up.
+     */
+    private void siftDown(int k, Object x, int h) {
+        Object[] q = queue; int[] hs = handles, p = pos;
+        int s = shift, n = size;
+        int last = (n - 2) >> s;      // loop while a non-leaf
+        while (k <= last) {
+            int child = (k << s) + 1; // least of the children
+            int end = Math.min(child + (1 << s), n);
+            Object c = q[child];
+            for (int i = child + 1; i < end; ++i) {
+                if (compare(c, q[i]) > 0)
+                    c = q[child = i];
+            }
+            if (compare(x, c) <= 0)
+                break;
+            q[k] = c;
+            p[hs[k] = hs[child]] = k;
+            k = child;
+        }
+        q[k] = x;
+        p[hs[k] = h] = k;
+    }
+}
@@ -0,0 +1,789 @@
+/*
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+package java.util;
+
+import java.util.function.IntConsumer;
+import java.util.function.IntPredicate;
+import java.util.function.IntUnaryOperator;
+import java.util.stream.IntStream;
+import java.util.stream.StreamSupport;
+
+/**
+ * A resizable array of {@code int} values.  This class provides
+ * the core of the functionality of an {@link ArrayList ArrayList}
+ * of {@code Integer}, but stores its elements unboxed in a single
+ * {@code int[]}, so it requires a fraction of the memory,
+ * and no allocation, per element.
+ *
+ * <p>The {@code size}, {@code isEmpty}, {@code get}, {@code set},
+ * and {@code iterator} operations run in constant time.  The {@code
+ * add} operation runs in amortized constant time.  All of the other
+ * operations run in linear time (roughly speaking).
+ *
+ * <p>Elements may be traversed using {@link #iterator}, which
+ * returns a {@link PrimitiveIterator.OfInt}, or in bulk using
+ * {@link #forEach}, {@link #spliterator} or {@link #stream}.  The
+ * iterators and spliterators returned by this class are
+ * <em>fail-fast</em>, as are those of {@code ArrayList}: if the
+ * list is structurally modified at any time after they are created
+ * (or for spliterators, after the first traversal, split or query
+ * of estimated size), in any way except through the iterator's own
+ * {@code remove} method, they throw {@link
+ * ConcurrentModificationException} on a best-effort basis.
+ *
+ * <p><strong>Note that this implementation is not
+ * synchronized.</strong> If multiple threads access an {@code
+ * IntArrayList} instance concurrently, and at least one of the
+ * threads modifies the list structurally, it <i>must</i> be
+ * synchronized externally.
+ *
+ * @see     ArrayList
+ * @since   1.9
+ */
+public class IntArrayList implements RandomAccess, Cloneable,
+                                     java.io.Serializable {
+    private static final long serialVersionUID = -1564380262498116397L;
+
+    /**
+     * Default initial capacity.
+     */
+    private static final int DEFAULT_CAPACITY = 10;
+
+    /**
+     * Shared empty array instance used for empty instances.
+     */
+    private static final int[] EMPTY_ELEMENTDATA = {};
+
+    /**
+     * Shared empty array instance used for default sized empty
+     * instances, distinguished from EMPTY_ELEMENTDATA to know how
+     * much to inflate when the first element is added.
+     */
+    private static final int[] DEFAULTCAPACITY_EMPTY_ELEMENTDATA = {};
+
+    /**
+     * The maximum size of array to allocate.
+     */
+    private static final int MAX_ARRAY_SIZE = Integer.MAX_VALUE - 8;
+
+    /**
+     * The array buffer into which the elements are stored.
+     */
+    transient int[] elementData; // non-private to simplify nested class access
+
+    /**
+     * The number of elements in this list.
+     *
+     * @serial
+     */
+    private int size;
+
+    /**
+     * The number of times this list has been structurally modified.
+     */
+    transient int modCount;
+
+    /**
+     * Constructs an empty list with the specified initial capacity.
+     *
+     * @param  initialCapacity  the initial capacity of the list
+     * @throws IllegalArgumentException if the specified initial capacity
+     *         is negative
+     */
+    public IntArrayList(int initialCapacity) {
+        if (initialCapacity > 0) {
+            this.elementData = new int[initialCapacity];
+        } else if (initialCapacity == 0) {
+            this.elementData = EMPTY_ELEMENTDATA;
+        } else {
+            throw new IllegalArgumentException("Illegal Capacity: "+
+                                               initialCapacity);
+        }
+    }
+
+    /**
+     * Constructs an empty list with an initial capacity of ten.
+     */
+    public IntArrayList() {
+        this.elementData = DEFAULTCAPACITY_EMPTY_ELEMENTDATA;
+    }
+
+    /**
+     * Constructs a list containing the elements of the specified
+     * array, in order.
+     *
+     * @param a the array whose elements are to be placed into this list
+     * @throws NullPointerException if the specified array is null
+     */
+    public IntArrayList(int[] a) {
+        if ((size = a.length) != 0)
+            elementData = a.clone();
+        else
+            elementData = EMPTY_ELEMENTDATA;
+    }
+
+    /**
+     * Trims the capacity of this list to be the list's current size.
+     */
+    public void trimToSize() {
+        modCount++;
+        if (size < elementData.length) {
+            elementData = (size == 0)
+              ? EMPTY_ELEMENTDATA
+              : Arrays.copyOf(elementData, size);
+        }
+    }
+
+    /**
+     * Increases the capacity of this list, if necessary, to ensure
+     * that it can hold at least the number of elements specified by
+     * the minimum capacity argument.
+     *
+     * @param   minCapacity   the desired minimum capacity
+     */
+    public void ensureCapacity(int minCapacity) {
+        int minExpand = (elementData != DEFAULTCAPACITY_EMPTY_ELEMENTDATA)
+            ? 0 : DEFAULT_CAPACITY;
+        if (minCapacity > minExpand)
+            ensureExplicitCapacity(minCapacity);
+    }
+
+    private void ensureCapacityInternal(int minCapacity) {
+        if (elementData == DEFAULTCAPACITY_EMPTY_ELEMENTDATA)
+            minCapacity = Math.max(DEFAULT_CAPACITY, minCapacity);
+        ensureExplicitCapacity(minCapacity);
+    }
+
+    private void ensureExplicitCapacity(int minCapacity) {
+        modCount++;
+        // overflow-conscious code
+        if (minCapacity - elementData.length > 0)
+            grow(minCapacity);
+    }
+
+    /**
+     * Increases the capacity to ensure that it can hold at least the
+     * number of elements specified by the minimum capacity argument.
+     *
+     * @param minCapacity the desired minimum capacity
+     */
+    private void grow(int minCapacity) {
+        // overflow-conscious code
+        int oldCapacity = elementData.length;
+        int newCapacity = oldCapacity + (oldCapacity >> 1);
+        if (newCapacity - minCapacity < 0)
+            newCapacity = minCapacity;
+        if (newCapacity - MAX_ARRAY_SIZE > 0)
+            newCapacity = hugeCapacity(minCapacity);
+        elementData = Arrays.copyOf(elementData, newCapacity);
+    }
+
+    private static int hugeCapacity(int minCapacity) {
+        if (minCapacity < 0) // overflow
+            throw new OutOfMemoryError();
+        return (minCapacity > MAX_ARRAY_SIZE) ?
+            Integer.MAX_VALUE :
+            MAX_ARRAY_SIZE;
+    }
+
+    /**
+     * Returns the number of elements in this list.
+     *
+     * @return the number of elements in this list
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns {@code true} if this list contains no elements.
+     *
+     * @return {@code true} if this list contains no elements
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Returns {@code true} if this list contains the specified value.
+     *
+     * @param value value whose presence in this list is to be tested
+     * @return {@code true} if this list contains the specified value
+     */
+    public boolean contains(int value) {
+        return indexOf(value) >= 0;
+    }
+
+    /**
+     * Returns the index of the first occurrence of the specified
+     * value in this list, or -1 if this list does not contain it.
+     *
+     * @param value the value to search for
+     * @return the index of the first occurrence, or -1 if none
+     */
+    public int indexOf(int value) {
+        int[] es = elementData;
+        for (int i = 0, n = size; i < n; i++)
+            if (es[i] == value)
+                return i;
+        return -1;
+    }
+
+    /**
+     * Returns the index of the last occurrence of the specified
+     * value in this list, or -1 if this list does not contain it.
+     *
+     * @param value the value to search for
+     * @return the index of the last occurrence, or -1 if none
+     */
+    public int lastIndexOf(int value) {
+        int[] es = elementData;
+        for (int i = size - 1; i >= 0; i--)
+            if (es[i] == value)
+                return i;
+        return -1;
+    }
+
+    /**
+     * Returns a shallow copy of this list.
+     *
+     * @return a clone of this list
+     */
+    public IntArrayList clone() {
+        try {
+            IntArrayList v = (IntArrayList) super.clone();
+            v.elementData = Arrays.copyOf(elementData, size);
+            v.modCount = 0;
+            return v;
+        } catch (CloneNotSupportedException e) {
+            // this shouldn't happen, since we are Cloneable
+            throw new InternalError(e);
+        }
+    }
+
+    /**
+     * Returns an array containing all of the elements in this list
+     * in proper sequence (from first to last element).
+     *
+     * @return a newly allocated array containing all of the elements
+     *         in this list in proper sequence
+     */
+    public int[] toArray() {
+        return Arrays.copyOf(elementData, size);
+    }
+
+    /**
+     * Returns the element at the specified position in this list.
+     *
+     * @param  index index of the element to return
+     * @return the element at the specified position in this list
+     * @throws IndexOutOfBoundsException if the index is out of range
+     */
+    public int get(int index) {
+        rangeCheck(index);
+        return elementData[index];
+    }
+
+    /**
+     * Replaces the element at the specified position in this list
+     * with the specified value.
+     *
+     * @param index index of the element to replace
+     * @param value value to be stored at the specified position
+     * @return the element previously at the specified position
+     * @throws IndexOutOfBoundsException if the index is out of range
+     */
+    public int set(int index, int value) {
+        rangeCheck(index);
+        int oldValue = elementData[index];
+        elementData[index] = value;
+        return oldValue;
+    }
+
+    /**
+     * Appends the specified value to the end of this list.
+     *
+     * @param value value to be appended to this list
+     */
+    public void add(int value) {
+        ensureCapacityInternal(size + 1);  // Increments modCount!!
+        elementData[size++] = value;
+    }
+
+    /**
+     * Inserts the specified value at the specified position in this
+     * list, shifting the element currently at that position (if any)
+     * and any subsequent elements to the right.
+     *
+     * @param index index at which the specified value is to be inserted
+     * @param value value to be inserted
+     * @throws IndexOutOfBoundsException if the index is out of range
+     */
+    public void add(int index, int value) {
+        rangeCheckForAdd(index);
+        ensureCapacityInternal(size + 1);  // Increments modCount!!
+        System.arraycopy(elementData, index, elementData, index + 1,
+                         size - index);
+        elementData[index] = value;
+        size++;
+    }
+
+    /**
+     * Appends all of the elements in the specified array to the end
+     * of this list, in order.
+     *
+     * @param a array containing elements to be added to this list
+     * @return {@code true} if this list changed as a result of the call
+     * @throws NullPointerException if the specified array is null
+     */
+    public boolean addAll(int[] a) {
+        int numNew = a.length;
+        ensureCapacityInternal(size + numNew);  // Increments modCount
+        System.arraycopy(a, 0, elementData, size, numNew);
+        size += numNew;
+        return numNew != 0;
+    }
+
+    /**
+     * Appends all of the elements in the specified list to the end
+     * of this list, in order.
+     *
+     * @param c list containing elements to be added to this list
+     * @return {@code true} if this list changed as a result of the call
+     * @throws NullPointerException if the specified list is null
+     */
+    public boolean addAll(IntArrayList c) {
+        int numNew = c.size;
+        ensureCapacityInternal(size + numNew);  // Increments modCount
+        System.arraycopy(c.elementData, 0, elementData, size, numNew);
+        size += numNew;
+        return numNew != 0;
+    }
+
+    /**
+     * Removes the element at the specified position in this list,
+     * shifting any subsequent elements to the left.
+     *
+     * @param index the index of the element to be removed
+     * @return the element that was removed from the list
+     * @throws IndexOutOfBoundsException if the index is out of range
+     */
+    public int removeAt(int index) {
+        rangeCheck(index);
+        modCount++;
+        int oldValue = elementData[index];
+        int numMoved = size - index - 1;
+        if (numMoved > 0)
+            System.arraycopy(elementData, index+1, elementData, index,
+                             numMoved);
+        --size;
+        return oldValue;
+    }
+
+    /**
+     * Removes the first occurrence of the specified value from this
+     * list, if it is present.
+     *
+     * @param value value to be removed from this list, if present
+     * @return {@code true} if this list contained the specified value
+     */
+    public boolean removeValue(int value) {
+        int i = indexOf(value);
+        if (i < 0)
+            return false;
+        removeAt(i);
+        return true;
+    }
+
+    /**
+     * Removes all of the elements of this list that satisfy the
+     * given predicate.
+     *
+     * @param filter a predicate which returns {@code true} for
+     *        elements to be removed
+     * @return {@code true} if any elements were removed
+     * @throws NullPointerException if the specified filter is null
+     */
+    public boolean removeIf(IntPredicate filter) {
+        Objects.requireNonNull(filter);
+        final int expectedModCount = modCount;
+        final int[] es = elementData;
+        final int n = size;
+        int w = 0;
+        for (int r = 0; r < n; r++) {
+            int e = es[r];
+            if (!filter.test(e))
+                es[w++] = e;
+        }
+        if (modCount != expectedModCount)
+            throw new ConcurrentModificationException();
+        if (w == n)
+            return false;
+        size = w;
+        modCount++;
+        return true;
+    }
+
+    /**
+     * Replaces each element of this list with the result of applying
+     * the operator to that element.
+     *
+     * @param operator the operator to apply to each element
+     * @throws NullPointerException if the specified operator is null
+     */
+    public void replaceAll(IntUnaryOperator operator) {
+        Objects.requireNonNull(operator);
+        final int expectedModCount = modCount;
+        final int[] es = elementData;
+        for (int i = 0, n = size; modCount == expectedModCount && i < n; i++)
+            es[i] = operator.applyAsInt(es[i]);
+        if (modCount != expectedModCount)
+            throw new ConcurrentModificationException();
+    }
+
+    /**
+     * Sorts this list into ascending numerical order.
+     */
+    public void sort() {
+        Arrays.sort(elementData, 0, size);
+        modCount++;
+    }
+
+    /**
+     * Removes all of the elements from this list.  The list will be
+     * empty after this call returns.
+     */
+    public void clear() {
+        modCount++;
+        size = 0;
+    }
+
+    /**
+     * Performs the given action for each element of this list, in
+     * order.
+     *
+     * @param action the action to be performed for each element
+     * @throws NullPointerException if the specified action is null
+     */
+    public void forEach(IntConsumer action) {
+        Objects.requireNonNull(action);
+        final int expectedModCount = modCount;
+        final int[] es = elementData;
+        for (int i = 0, n = size; modCount == expectedModCount && i < n; i++)
+            action.accept(es[i]);
+        if (modCount != expectedModCount)
+            throw new ConcurrentModificationException();
+    }
+
+    private void rangeCheck(int index) {
+        if (index >= size || index < 0)
+            throw new IndexOutOfBoundsException(outOfBoundsMsg(index));
+    }
+
+    private void rangeCheckForAdd(int index) {
+        if (index > size || index < 0)
+            throw new IndexOutOfBoundsException(outOfBoundsMsg(index));
+    }
+
+    private String outOfBoundsMsg(int index) {
+        return "Index: "+index+", Size: "+size;
+    }
+
+    /**
+     * Compares the specified object with this list for equality.
+     * Returns {@code true} if and only if the specified object is
+     * also an {@code IntArrayList}, both lists have the same size,
+     * and all corresponding pairs of elements are equal.
+     *
+     * @param o the object to be compared for equality with this list
+     * @return {@code true} if the specified object is equal to this list
+     */
+    public boolean equals(Object o) {
+        if (o == this)
+            return true;
+        if (!(o instanceof IntArrayList))
+            return false;
+        IntArrayList other = (IntArrayList) o;
+        int n = size;
+        if (other.size != n)
+            return false;
+        int[] a = elementData, b = other.elementData;
+        for (int i = 0; i < n; i++)
+            if (a[i] != b[i])
+                return false;
+        return true;
+    }
+
+    /**
+     * Returns the hash code value for this list, computed as by
+     * {@link Arrays#hashCode(int[])} over its elements.
+     *
+     * @return the hash code value for this list
+     */
+    public int hashCode() {
+        int h = 1;
+        int[] es = elementData;
+        for (int i = 0, n = size; i < n; i++)
+            h = 31 * h + es[i];
+        return h;
+    }
+
+    /**
+     * Returns a string representation of this list, in the same
+     * format as {@link Arrays#toString(int[])}.
+     *
+     * @return a string representation of this list
+     */
+    public String toString() {
+        int n = size;
+        if (n == 0)
+            return "[]";
+        int[] es = elementData;
+        StringBuilder sb = new StringBuilder();
+        sb.append('[');
+        for (int i = 0;;) {
+            sb.append(es[i]);
+            if (++i == n)
+                return sb.append(']').toString();
+            sb.append(", ");
+        }
+    }
+
+    /**
+     * Saves the state of this list to a stream (that is, serializes it).
+     *
+     * @serialData The size of the list is emitted (int), followed by
+     *             all of its elements (each an {@code int}) in the
+     *             proper order.
+     */
+    private void writeObject(java.io.ObjectOutputStream s)
+        throws java.io.IOException {
+        int expectedModCount = modCount;
+        s.defaultWriteObject();
+        int[] es = elementData;
+        for (int i = 0; i < size; i++)
+            s.writeInt(es[i]);
+        if (modCount != expectedModCount)
+            throw new ConcurrentModificationException();
+    }
+
+    /**
+     * Reconstitutes this list from a stream (that is, deserializes it).
+     */
+    private void readObject(java.io.ObjectInputStream s)
+        throws java.io.IOException, ClassNotFoundException {
+        s.defaultReadObject();
+        if (size < 0)
+            throw new java.io.InvalidObjectException("Illegal size: " + size);
+        int[] es = (size == 0) ? EMPTY_ELEMENTDATA : new int[size];
+        for (int i = 0; i < size; i++)
+            es[i] = s.readInt();
+        elementData = es;
+    }
+
+    /**
+     * Returns an iterator over the elements in this list in proper
+     * sequence.  The returned iterator is fail-fast.
+     *
+     * @return an iterator over the elements in this list
+     */
+    public PrimitiveIterator.OfInt iterator() {
+        return new Itr();
+    }
+
+    private class Itr implements PrimitiveIterator.OfInt {
+        int cursor;       // index of next element to return
+        int lastRet = -1; // index of last element returned; -1 if no such
+        int expectedModCount = modCount;
+
+        public boolean hasNext() {
+            return cursor != size;
+        }
+
+        public int nextInt() {
+            checkForComodification();
+            int i = cursor;
+            if (i >= size)
+                throw new NoSuchElementException();
+            int[] es = IntArrayList.this.elementData;
+            if (i >= es.length)
+                throw new ConcurrentModificationException();
+            cursor = i + 1;
+            return es[lastRet = i];
+        }
+
+        public void remove() {
+            if (lastRet < 0)
+                throw new IllegalStateException();
+            checkForComodification();
+            try {
+                IntArrayList.this.removeAt(lastRet);
+                cursor = lastRet;
+                lastRet = -1;
+                expectedModCount = modCount;
+            } catch (IndexOutOfBoundsException ex) {
+                throw new ConcurrentModificationException();
+            }
+        }
+
+        public void forEachRemaining(IntConsumer action) {
+            Objects.requireNonNull(action);
+            final int n = IntArrayList.this.size;
+            int i = cursor;
+            if (i >= n)
+                return;
+            final int[] es = IntArrayList.this.elementData;
+            if (i >= es.length)
+                throw new ConcurrentModificationException();
+            while (i != n && modCount == expectedModCount)
+                action.accept(es[i++]);
+            // update once at end of iteration to reduce heap write traffic
+            cursor = i;
+            lastRet = i - 1;
+            checkForComodification();
+        }
+
+        final void checkForComodification() {
+            if (modCount != expectedModCount)
+                throw new ConcurrentModificationException();
+        }
+    }
+
+    /**
+     * Returns a sequential {@code IntStream} with this list as its
+     * source.
+     *
+     * @return a sequential {@code IntStream} over the elements in
+     *         this list
+     */
+    public IntStream stream() {
+        return StreamSupport.intStream(spliterator(), false);
+    }
+
+    /**
+     * Returns a possibly parallel {@code IntStream} with this list as
+     * its source.
+     *
+     * @return a possibly parallel {@code IntStream} over the elements
+     *         in this list
+     */
+    public IntStream parallelStream() {
+        return StreamSupport.intStream(spliterator(), true);
+    }
+
+    /**
+     * Creates a <em>late-binding</em> and <em>fail-fast</em> {@link
+     * Spliterator.OfInt} over the elements in this list.
+     *
+     * <p>The {@code Spliterator} reports {@link Spliterator#SIZED},
+     * {@link Spliterator#SUBSIZED}, and {@link Spliterator#ORDERED}.
+     *
+     * @return a {@code Spliterator.OfInt} over the elements in this list
+     */
+    public Spliterator.OfInt spliterator() {
+        return new IntArrayListSpliterator(this, 0, -1, 0);
+    }
+
+    /** Index-based split-by-two, lazily initialized Spliterator */
+    static final class IntArrayListSpliterator implements Spliterator.OfInt {
+        /*
+         * See ArrayList.ArrayListSpliterator for the rationale for
+         * late-binding and modCount checks.
+         */
+        private final IntArrayList list;
+        private int index; // current index, modified on advance/split
+        private int fence; // -1 until used; then one past last index
+        private int expectedModCount; // initialized when fence set
+
+        /** Create new spliterator covering the given range */
+        IntArrayListSpliterator(IntArrayList list, int origin, int fence,
+                                int expectedModCount) {
+            this.list = list;
+            this.index = origin;
+            this.fence = fence;
+            this.expectedModCount = expectedModCount;
+        }
+
+        private int getFence() { // initialize fence to size on first use
+            int hi;
+            if ((hi = fence) < 0) {
+                expectedModCount = list.modCount;
+                hi = fence = list.size;
+            }
+            return hi;
+        }
+
+        public IntArrayListSpliterator trySplit() {
+            int hi = getFence(), lo = index, mid = (lo + hi) >>> 1;
+            return (lo >= mid) ? null : // divide range in half unless too small
+                new IntArrayListSpliterator(list, lo, index = mid,
+                                            expectedModCount);
+        }
+
+        public boolean tryAdvance(IntConsumer action) {
+            if (action == null)
+                throw new NullPointerException();
+            int hi = getFence(), i = index;
+            if (i < hi) {
+                index = i + 1;
+                action.accept(list.elementData[i]);
+                if (list.modCount != expectedModCount)
+                    throw new ConcurrentModificationException();
+                return true;
+            }
+            return false;
+        }
+
+        public void forEachRemaining(IntConsumer action) {
+            int i, hi, mc; // hoist accesses and checks from loop
+            IntArrayList lst = list; int[] a;
+            if (action == null)
+                throw new NullPointerException();
+            if ((a = lst.elementData) != null) {
+                if ((hi = fence) < 0) {
+                    mc = lst.modCount;
+                    hi = lst.size;
+                }
+                else
+                    mc = expectedModCount;
+                if ((i = index) >= 0 && (index = hi) <= a.length) {
+                    for (; i < hi; ++i)
+                        action.accept(a[i]);
+                    if (lst.modCount == mc)
+                        return;
+                }
+            }
+            throw new ConcurrentModificationException();
+        }
+
+        public long estimateSize() {
+            return (long) (getFence() - index);
+        }
+
+        public int characteristics() {
+            return Spliterator.ORDERED | Spliterator.SIZED |
+                Spliterator.SUBSIZED;
+        }
+    }
+}
@@ -0,0 +1,975 @@
+/*
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+package java.util;
+
+import java.util.function.IntBinaryOperator;
+import java.util.function.IntConsumer;
+import java.util.function.IntUnaryOperator;
+import java.util.stream.IntStream;
+import java.util.stream.StreamSupport;
+
+/**
+ * A map from {@code int} keys to {@code int} values, implemented as
+ * an open-addressing hash table.  This class provides the core of
+ * the functionality of a {@link HashMap HashMap} of {@code Integer}
+ * to {@code Integer}, but stores its keys and values unboxed in two
+ * parallel arrays probed linearly, as in {@link IntHashSet}, so it
+ * requires a fraction of the memory of a {@code HashMap}, and its
+ * lookups and updates of existing mappings perform no allocation.
+ * For example, to count occurrences:
+ *
+ *  <pre> {@code
+ * IntIntHashMap counts = new IntIntHashMap();
+ * for (int x : data)
+ *   counts.merge(x, 1, Integer::sum);}</pre>
+ *
+ * <p>Since there is no way to return {@code null} from a method
+ * returning {@code int}, methods that would return {@code null} for
+ * an absent key in {@code HashMap} return zero instead.  When zero
+ * is also a legitimate value, use {@link #getOrDefault} or {@link
+ * #containsKey} to distinguish the cases.  For the same reason,
+ * remapping functions cannot remove mappings.
+ *
+ * <p>Keys may be traversed using {@link #keyIterator}, which
+ * returns a {@link PrimitiveIterator.OfInt} supporting {@code
+ * remove}, and keys or values in bulk using {@link #keyStream} and
+ * {@link #valueStream}; mappings may be traversed using {@link
+ * #forEach}.  Traversal order is unspecified.  As for {@code
+ * HashMap}, the iterators and spliterators returned by this class
+ * are <em>fail-fast</em>.
+ *
+ * <p><strong>Note that this implementation is not
+ * synchronized.</strong> If multiple threads access an {@code
+ * IntIntHashMap} concurrently, and at least one of the threads
+ * modifies the map structurally, it <i>must</i> be synchronized
+ * externally.  (Changing the value associated with a key that the
+ * map already contains is not a structural modification.)
+ *
+ * @see     HashMap
+ * @see     IntHashSet
+ * @since   1.9
+ */
+public class IntIntHashMap implements Cloneable, java.io.Serializable {
+    private static final long serialVersionUID = 6037471508128421447L;
+
+    /*
+     * The table is maintained exactly as in IntHashSet (see its
+     * internal documentation), with the value for each key held at
+     * the same index of a second array, and the value for key zero
+     * held in field zeroValue.
+     */
+
+    /**
+     * The default initial capacity.
+     */
+    static final int DEFAULT_INITIAL_CAPACITY = 16;
+
+    /**
+     * The maximum capacity, used if a higher value is implicitly
+     * specified by either of the constructors with arguments.
+     */
+    static final int MAXIMUM_CAPACITY = 1 << 30;
+
+    /**
+     * The load factor used when none specified in constructor.
+     */
+    static final float DEFAULT_LOAD_FACTOR = 0.5f;
+
+    /**
+     * The table of keys, zero marking free slots.  Its length is
+     * always a power of two.
+     */
+    transient int[] keys;
+
+    /**
+     * The values, indexed as for keys.
+     */
+    transient int[] vals;
+
+    /**
+     * Whether the map contains a mapping for key zero.
+     */
+    transient boolean containsZeroKey;
+
+    /**
+     * The value for key zero, if present.
+     */
+    transient int zeroValue;
+
+    /**
+     * The number of mappings, including key zero if present.
+     */
+    transient int size;
+
+    /**
+     * The number of times this map has been structurally modified.
+     */
+    transient int modCount;
+
+    /**
+     * The number of keys in the table (excluding zero) above which
+     * the table is resized.
+     */
+    transient int threshold;
+
+    /**
+     * The load factor for the hash table.
+     *
+     * @serial
+     */
+    final float loadFactor;
+
+    /**
+     * Constructs an empty map with the specified initial capacity and
+     * load factor.
+     *
+     * @param  initialCapacity the number of mappings the map should
+     *         be able to hold without resizing
+     * @param  loadFactor      the load factor, greater than zero and
+     *         less than one
+     * @throws IllegalArgumentException if the initial capacity is negative
+     *         or the load factor is out of range
+     */
+    public IntIntHashMap(int initialCapacity, float loadFactor) {
+        if (initialCapacity < 0)
+            throw new IllegalArgumentException("Illegal initial capacity: " +
+                                               initialCapacity);
+        if (!(loadFactor > 0.0f && loadFactor < 1.0f))
+            throw new IllegalArgumentException("Illegal load factor: " +
+                                               loadFactor);
+        this.loadFactor = loadFactor;
+        allocate(IntHashSet.capacityFor(initialCapacity, loadFactor));
+    }
+
+    /**
+     * Constructs an empty map with the specified initial capacity and
+     * the default load factor (0.5).
+     *
+     * @param  initialCapacity the number of mappings the map should
+     *         be able to hold without resizing
+     * @throws IllegalArgumentException if the initial capacity is negative
+     */
+    public IntIntHashMap(int initialCapacity) {
+        this(initialCapacity, DEFAULT_LOAD_FACTOR);
+    }
+
+    /**
+     * Constructs an empty map with the default initial capacity (16)
+     * and the default load factor (0.5).
+     */
+    public IntIntHashMap() {
+        this.loadFactor = DEFAULT_LOAD_FACTOR;
+        allocate(DEFAULT_INITIAL_CAPACITY);
+    }
+
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        vals = new int[capacity];
+        threshold = Math.min(capacity - 1, (int)(capacity * loadFactor));
+    }
+
+    /**
+     * Returns the table index of the given non-zero key, or -1 if
+     * absent.
+     */
+    private int indexOf(int key) {
+        int[] tab = keys;
+        int mask = tab.length - 1;
+        for (int i = IntHashSet.hash(key) & mask;; i = (i + 1) & mask) {
+            int k;
+            if ((k = tab[i]) == key)
+                return i;
+            if (k == 0)
+                return -1;
+        }
+    }
+
+    /**
+     * Returns the number of key-value mappings in this map.
+     *
+     * @return the number of key-value mappings in this map
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns {@code true} if this map contains no key-value mappings.
+     *
+     * @return {@code true} if this map contains no key-value mappings
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Returns the value to which the specified key is mapped,
+     * or zero if this map contains no mapping for the key.
+     *
+     * @param key the key
+     * @return the value to which the specified key is mapped, or
+     * zero if this map contains no mapping for the key
+     */
+    public int get(int key) {
+        return getOrDefault(key, 0);
+    }
+
+    /**
+     * Returns the value to which the specified key is mapped, or the
+     * given default value if this map contains no mapping for the
+     * key.
+     *
+     * @param key the key whose associated value is to be returned
+     * @param defaultValue the value to return if this map contains
+     * no mapping for the given key
+     * @return the mapping for the key, if present; else the default value
+     */
+    public int getOrDefault(int key, int defaultValue) {
+        int i;
+        if (key == 0)
+            return containsZeroKey ? zeroValue : defaultValue;
+        return ((i = indexOf(key)) < 0) ? defaultValue : vals[i];
+    }
+
+    /**
+     * Returns {@code true} if this map contains a mapping for the
+     * specified key.
+     *
+     * @param key key whose presence in this map is to be tested
+     * @return {@code true} if this map contains a mapping for the
+     * specified key
+     */
+    public boolean containsKey(int key) {
+        return (key == 0) ? containsZeroKey : indexOf(key) >= 0;
+    }
+
+    /**
+     * Returns {@code true} if this map maps one or more keys to the
+     * specified value.  This operation requires time linear in the
+     * capacity of the map.
+     *
+     * @param value value whose presence in this map is to be tested
+     * @return {@code true} if this map maps one or more keys to the
+     *         specified value
+     */
+    public boolean containsValue(int value) {
+        if (containsZeroKey && zeroValue == value)
+            return true;
+        int[] tab = keys, vs = vals;
+        for (int i = 0; i < tab.length; ++i)
+            if (tab[i] != 0 && vs[i] == value)
+                return true;
+        return false;
+    }
+
+    /**
+     * Associates the specified value with the specified key in this
+     * map, replacing any previous value.
+     *
+     * @param key key with which the specified value is to be associated
+     * @param value value to be associated with the specified key
+     * @return the previous value associated with {@code key}, or
+     *         zero if there was no mapping for {@code key}
+     */
+    public int put(int key, int value) {
+        int i = insertionIndex(key);
+        if (i < 0) {
+            int old = valueAt(i);
+            setValueAt(i, value);
+            return old;
+        }
+        insertAt(i, key, value);
+        return 0;
+    }
+
+    /**
+     * If the specified key is not already associated with a value,
+     * associates it with the given value.
+     *
+     * @param key key with which the specified value is to be associated
+     * @param value value to be associated with the specified key
+     * @return the previous value associated with the specified key,
+     *         or zero if there was no mapping for the key
+     */
+    public int putIfAbsent(int key, int value) {
+        int i = insertionIndex(key);
+        if (i < 0)
+            return valueAt(i);
+        insertAt(i, key, value);
+        return 0;
+    }
+
+    /**
+     * If the specified key is not already associated with a value,
+     * associates it with the given value.  Otherwise, replaces the
+     * value with the results of the given remapping function.
+     *
+     * @param key key with which the specified value is to be associated
+     * @param value the value to use if absent
+     * @param remappingFunction the function to recompute a value if present
+     * @return the new value associated with the specified key
+     * @throws NullPointerException if the remappingFunction is null
+     */
+    public int merge(int key, int value, IntBinaryOperator remappingFunction) {
+        if (remappingFunction == null)
+            throw new NullPointerException();
+        int i = insertionIndex(key);
+        if (i < 0) {
+            int v = remappingFunction.applyAsInt(valueAt(i), value);
+            setValueAt(i, v);
+            return v;
+        }
+        insertAt(i, key, value);
+        return value;
+    }
+
+    /**
+     * If the specified key is not already associated with a value,
+     * computes its value using the given mapping function and enters
+     * it into this map.
+     *
+     * @param key key with which the specified value is to be associated
+     * @param mappingFunction the function to compute a value
+     * @return the current (existing or computed) value associated with
+     *         the specified key
+     * @throws NullPointerException if the mappingFunction is null
+     * @throws ConcurrentModificationException if it is detected that
+     *         the mapping function modified this map
+     */
+    public int computeIfAbsent(int key, IntUnaryOperator mappingFunction) {
+        if (mappingFunction == null)
+            throw new NullPointerException();
+        int i = insertionIndex(key);
+        if (i < 0)
+            return valueAt(i);
+        int mc = modCount;
+        int v = mappingFunction.applyAsInt(key);
+        if (mc != modCount)
+            throw new ConcurrentModificationException();
+        insertAt(i, key, v);
+        return v;
+    }
+
+    /**
+     * Adds the given amount to the value associated with the given
+     * key, treating an absent mapping as zero.  Equivalent to {@code
+     * merge(key, delta, Integer::sum)}.
+     *
+     * @param key the key
+     * @param delta the amount to add
+     * @return the new value associated with the specified key
+     */
+    public int addTo(int key, int delta) {
+        int i = insertionIndex(key);
+        if (i < 0) {
+            int v = valueAt(i) + delta;
+            setValueAt(i, v);
+            return v;
+        }
+        insertAt(i, key, delta);
+        return delta;
+    }
+
+    /*
+     * Insertion support.  insertionIndex returns, for a present key,
+     * a negative code (-2 for key zero, else -(index + 3)), or for an
+     * absent key, the free slot at which to insert it (or
+     * Integer.MAX_VALUE for key zero).
+     */
+
+    private int insertionIndex(int key) {
+        if (key == 0)
+            return containsZeroKey ? -2 : Integer.MAX_VALUE;
+        int[] tab = keys;
+        int mask = tab.length - 1;
+        for (int i = IntHashSet.hash(key) & mask;; i = (i + 1) & mask) {
+            int k;
+            if ((k = tab[i]) == 0)
+                return i;
+            if (k == key)
+                return -(i + 3);
+        }
+    }
+
+    private int valueAt(int code) {
+        return (code == -2) ? zeroValue : vals[-(code + 3)];
+    }
+
+    private void setValueAt(int code, int value) {
+        if (code == -2)
+            zeroValue = value;
+        else
+            vals[-(code + 3)] = value;
+    }
+
+    private void insertAt(int i, int key, int value) {
+        if (i == Integer.MAX_VALUE) {
+            containsZeroKey = true;
+            zeroValue = value;
+        }
+        else {
+            int n = size - (containsZeroKey ? 1 : 0); // keys in table
+            if (n >= MAXIMUM_CAPACITY - 1)            // keep a free slot
+                throw new IllegalStateException("Map too large");
+            keys[i] = key;
+            vals[i] = value;
+            if (n >= threshold)
+                resize();
+        }
+        ++size;
+        ++modCount;
+    }
+
+    /**
+     * Doubles the capacity of the table, unless already at maximum,
+     * in which case it is never resized again.
+     */
+    private void resize() {
+        int oldCap = keys.length;
+        if (oldCap >= MAXIMUM_CAPACITY)
+            threshold = Integer.MAX_VALUE;
+        else
+            rehash(oldCap << 1);
+    }
+
+    private void rehash(int newCap) {
+        int[] oldKeys = keys, oldVals = vals;
+        allocate(newCap);
+        int[] tab = keys, vs = vals;
+        int mask = newCap - 1;
+        for (int j = 0; j < oldKeys.length; ++j) {
+            int k;
+            if ((k = oldKeys[j]) != 0) {
+                int i = IntHashSet.hash(k) & mask;
+                while (tab[i] != 0)
+                    i = (i + 1) & mask;
+                tab[i] = k;
+                vs[i] = oldVals[j];
+            }
+        }
+    }
+
+    /**
+     * Removes the mapping for the specified key from this map if
+     * present.
+     *
+     * @param  key key whose mapping is to be removed from the map
+     * @return the previous value associated with {@code key}, or
+     *         zero if there was no mapping for {@code key}
+     */
+    public int remove(int key) {
+        int old;
+        if (key == 0) {
+            if (!containsZeroKey)
+                return 0;
+            containsZeroKey = false;
+            old = zeroValue;
+        }
+        else {
+            int i;
+            if ((i = indexOf(key)) < 0)
+                return 0;
+            old = vals[i];
+            shiftKeys(i, null);
+        }
+        --size;
+        ++modCount;
+        return old;
+    }
+
+    /**
+     * Clears slot i, moving back later entries of the same run as in
+     * IntHashSet.shiftKeys.
+     */
+    final void shiftKeys(int i, KeyItr it) {
+        int[] tab = keys, vs = vals;
+        int mask = tab.length - 1;
+        for (int last = i;;) {
+            int k;
+            i = (i + 1) & mask;
+            if ((k = tab[i]) == 0) {
+                tab[last] = 0;
+                return;
+            }
+            int home = IntHashSet.hash(k) & mask;
+            if (last <= i ? (home <= last || home > i)
+                          : (home <= last && home > i)) {
+                tab[last] = k;
+                vs[last] = vs[i];
+                if (it != null && i < last)
+                    it.wrapped(k);
+                last = i;
+            }
+        }
+    }
+
+    /**
+     * Removes all of the mappings from this map.  The map will be
+     * empty after this call returns.
+     */
+    public void clear() {
+        modCount++;
+        if (size > 0) {
+            size = 0;
+            containsZeroKey = false;
+            Arrays.fill(keys, 0);
+        }
+    }
+
+    /**
+     * Reduces the capacity of the table, if possible, to the smallest
+     * that holds the current mappings at the load factor.
+     */
+    public void trimToSize() {
+        int cap = IntHashSet.capacityFor(size, loadFactor);
+        if (cap < keys.length) {
+            modCount++;
+            rehash(cap);
+        }
+    }
+
+    /**
+     * Performs the given action for each mapping in this map.
+     *
+     * @param action the action to be performed for each mapping
+     * @throws NullPointerException if the specified action is null
+     */
+    public void forEach(IntIntConsumer action) {
+        Objects.requireNonNull(action);
+        int mc = modCount;
+        if (containsZeroKey)
+            action.accept(0, zeroValue);
+        int[] tab = keys, vs = vals;
+        for (int i = 0; i < tab.length; ++i) {
+            int k;
+            if ((k = tab[i]) != 0)
+                action.accept(k, vs[i]);
+        }
+        if (modCount != mc)
+            throw new ConcurrentModificationException();
+    }
+
+    /**
+     * Replaces each value with the result of applying the given
+     * function to its key and value.
+     *
+     * @param function the function to apply to each mapping
+     * @throws NullPointerException if the specified function is null
+     */
+    public void replaceAll(IntBinaryOperator function) {
+        Objects.requireNonNull(function);
+        int mc = modCount;
+        if (containsZeroKey)
+            zeroValue = function.applyAsInt(0, zeroValue);
+        int[] tab = keys, vs = vals;
+        for (int i = 0; i < tab.length; ++i) {
+            int k;
+            if ((k = tab[i]) != 0)
+                vs[i] = function.applyAsInt(k, vs[i]);
+        }
+        if (modCount != mc)
+            throw new ConcurrentModificationException();
+    }
+
+    /**
+     * Returns a shallow copy of this map.
+     *
+     * @return a clone of this map
+     */
+    public IntIntHashMap clone() {
+        try {
+            IntIntHashMap m = (IntIntHashMap) super.clone();
+            m.keys = keys.clone();
+            m.vals = vals.clone();
+            m.modCount = 0;
+            return m;
+        } catch (CloneNotSupportedException e) {
+            // this shouldn't happen, since we are Cloneable
+            throw new InternalError(e);
+        }
+    }
+
+    /**
+     * Compares the specified object with this map for equality.
+     * Returns {@code true} if the given object is also an {@code
+     * IntIntHashMap} and the two maps represent the same mappings.
+     *
+     * @param o object to be compared for equality with this map
+     * @return {@code true} if the specified object is equal to this map
+     */
+    public boolean equals(Object o) {
+        if (o == this)
+            return true;
+        if (!(o instanceof IntIntHashMap))
+            return false;
+        IntIntHashMap m = (IntIntHashMap) o;
+        if (m.size != size || m.containsZeroKey != containsZeroKey ||
+            (containsZeroKey && m.zeroValue != zeroValue))
+            return false;
+        int[] tab = keys, vs = vals;
+        for (int i = 0; i < tab.length; ++i) {
+            int k, j;
+            if ((k = tab[i]) != 0 &&
+                ((j = m.indexOf(k)) < 0 || m.vals[j] != vs[i]))
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Returns the hash code value for this map, the sum over all
+     * mappings of {@code key ^ value}, as for the {@code hashCode}
+     * of a {@code Map} of {@code Integer} to {@code Integer}.
+     *
+     * @return the hash code value for this map
+     */
+    public int hashCode() {
+        int h = containsZeroKey ? zeroValue : 0;
+        int[] tab = keys, vs = vals;
+        for (int i = 0; i < tab.length; ++i) {
+            int k;
+            if ((k = tab[i]) != 0)
+                h += k ^ vs[i];
+        }
+        return h;
+    }
+
+    /**
+     * Returns a string representation of this map, in the form
+     * {@code {key1=value1, key2=value2}}, in traversal order.
+     *
+     * @return a string representation of this map
+     */
+    public String toString() {
+        if (size == 0)
+            return "{}";
+        StringBuilder sb = new StringBuilder();
+        sb.append('{');
+        if (containsZeroKey)
+            sb.append(0).append('=').append(zeroValue).append(", ");
+        int[] tab = keys, vs = vals;
+        for (int i = 0; i < tab.length; ++i) {
+            int k;
+            if ((k = tab[i]) != 0)
+                sb.append(k).append('=').append(vs[i]).append(", ");
+        }
+        sb.setLength(sb.length() - 2);
+        return sb.append('}').toString();
+    }
+
+    /**
+     * Saves the state of this map to a stream (that is, serializes it).
+     *
+     * @serialData The load factor (float) and size of the map (int)
+     *             are emitted, followed by the key (int) and value
+     *             (int) of each mapping, in no particular order.
+     */
+    private void writeObject(java.io.ObjectOutputStream s)
+        throws java.io.IOException {
+        int mc = modCount;
+        s.defaultWriteObject();
+        s.writeInt(size);
+        if (containsZeroKey) {
+            s.writeInt(0);
+            s.writeInt(zeroValue);
+        }
+        int[] tab = keys, vs = vals;
+        for (int i = 0; i < tab.length; ++i) {
+            int k;
+            if ((k = tab[i]) != 0) {
+                s.writeInt(k);
+                s.writeInt(vs[i]);
+            }
+        }
+        if (modCount != mc)
+            throw new ConcurrentModificationException();
+    }
+
+    /**
+     * Reconstitutes this map from a stream (that is, deserializes it).
+     */
+    private void readObject(java.io.ObjectInputStream s)
+        throws java.io.IOException, ClassNotFoundException {
+        s.defaultReadObject();
+        if (!(loadFactor > 0.0f && loadFactor < 1.0f))
+            throw new java.io.InvalidObjectException("Illegal load factor: " +
+                                                     loadFactor);
+        int n = s.readInt();
+        if (n < 0)
+            throw new java.io.InvalidObjectException("Illegal size: " + n);
+        allocate(IntHashSet.capacityFor(n, loadFactor));
+        for (int i = 0; i < n; i++) {
+            int k = s.readInt();
+            put(k, s.readInt());
+        }
+        modCount = 0;
+    }
+
+    /**
+     * Returns an iterator over the keys in this map, in no particular
+     * order.  The returned iterator is fail-fast, and supports {@code
+     * remove}, which removes the corresponding mapping.
+     *
+     * @return an iterator over the keys in this map
+     */
+    public PrimitiveIterator.OfInt keyIterator() {
+        return new KeyItr();
+    }
+
+    /** Key iterator, as in IntHashSet.Itr */
+    final class KeyItr implements PrimitiveIterator.OfInt {
+        int index = keys.length;  // next slot to examine is index - 1
+        int remaining = size;     // keys not yet returned
+        boolean mustReturnZero = containsZeroKey;
+        int lastRet = -1;         // slot of last key; -2 if zero;
+                                  // -3 if from wrapped; -1 if none
+        int lastKey;              // last key returned
+        IntArrayList wrapped;     // keys moved across table end
+        int expectedModCount = modCount;
+
+        /** Called by shiftKeys for keys that would be missed */
+        void wrapped(int k) {
+            if (wrapped == null)
+                wrapped = new IntArrayList(2);
+            wrapped.add(k);
+        }
+
+        public boolean hasNext() {
+            return remaining > 0;
+        }
+
+        public int nextInt() {
+            if (modCount != expectedModCount)
+                throw new ConcurrentModificationException();
+            if (remaining <= 0)
+                throw new NoSuchElementException();
+            --remaining;
+            if (mustReturnZero) {
+                mustReturnZero = false;
+                lastRet = -2;
+                return lastKey = 0;
+            }
+            int[] tab = keys;
+            for (int i = index; --i >= 0; ) {
+                int k;
+                if ((k = tab[i]) != 0) {
+                    index = i;
+                    lastRet = i;
+                    return lastKey = k;
+                }
+            }
+            index = -1;
+            IntArrayList w = wrapped;
+            if (w == null || w.isEmpty())
+                throw new ConcurrentModificationException();
+            lastRet = -3;
+            return lastKey = w.removeAt(w.size() - 1);
+        }
+
+        public void remove() {
+            int r = lastRet;
+            if (r == -1)
+                throw new IllegalStateException();
+            if (modCount != expectedModCount)
+                throw new ConcurrentModificationException();
+            lastRet = -1;
+            if (r == -2)
+                containsZeroKey = false;
+            else if (r == -3)
+                IntIntHashMap.this.remove(lastKey);
+            else
+                shiftKeys(r, this);
+            if (r != -3) {
+                --size;
+                ++modCount;
+            }
+            expectedModCount = modCount;
+        }
+    }
+
+    /**
+     * Returns a sequential {@code IntStream} of the keys in this map.
+     *
+     * @return a sequential {@code IntStream} of the keys in this map
+     */
+    public IntStream keyStream() {
+        return StreamSupport.intStream(keySpliterator(), false);
+    }
+
+    /**
+     * Returns a sequential {@code IntStream} of the values in this
+     * map, in the same order as {@link #keyStream}.
+     *
+     * @return a sequential {@code IntStream} of the values in this map
+     */
+    public IntStream valueStream() {
+        return StreamSupport.intStream(valueSpliterator(), false);
+    }
+
+    /**
+     * Creates a <em>late-binding</em> and <em>fail-fast</em> {@link
+     * Spliterator.OfInt} over the keys in this map, reporting {@link
+     * Spliterator#SIZED} (before splitting) and {@link
+     * Spliterator#DISTINCT}.
+     *
+     * @return a {@code Spliterator.OfInt} over the keys in this map
+     */
+    public Spliterator.OfInt keySpliterator() {
+        return new IntIntHashMapSpliterator(this, false, -1, -1, 0, 0);
+    }
+
+    /**
+     * Creates a <em>late-binding</em> and <em>fail-fast</em> {@link
+     * Spliterator.OfInt} over the values in this map, reporting
+     * {@link Spliterator#SIZED} (before splitting).
+     *
+     * @return a {@code Spliterator.OfInt} over the values in this map
+     */
+    public Spliterator.OfInt valueSpliterator() {
+        return new IntIntHashMapSpliterator(this, true, -1, -1, 0, 0);
+    }
+
+    /**
+     * Spliterator over keys or values, as in
+     * IntHashSet.IntHashSetSpliterator.
+     */
+    static final class IntIntHashMapSpliterator implements Spliterator.OfInt {
+        final IntIntHashMap map;
+        final boolean values; // true if reporting values, not keys
+        int index;            // current index, modified on advance/split
+        int fence;            // one past last index; -1 until used
+        int est;              // size estimate
+        int expectedModCount; // for comodification checks
+
+        IntIntHashMapSpliterator(IntIntHashMap map, boolean values,
+                                 int origin, int fence, int est,
+                                 int expectedModCount) {
+            this.map = map;
+            this.values = values;
+            this.index = origin;
+            this.fence = fence;
+            this.est = est;
+            this.expectedModCount = expectedModCount;
+        }
+
+        final int getFence() { // initialize fence and size on first use
+            int hi;
+            if ((hi = fence) < 0) {
+                IntIntHashMap m = map;
+                est = m.size;
+                expectedModCount = m.modCount;
+                hi = fence = m.keys.length;
+            }
+            return hi;
+        }
+
+        public IntIntHashMapSpliterator trySplit() {
+            int hi = getFence(), lo = index, mid = (lo + hi) >>> 1;
+            return (lo >= mid) ? null :
+                new IntIntHashMapSpliterator(map, values, lo, index = mid,
+                                             est >>>= 1, expectedModCount);
+        }
+
+        public boolean tryAdvance(IntConsumer action) {
+            if (action == null)
+                throw new NullPointerException();
+            int hi = getFence();
+            IntIntHashMap m = map;
+            int[] tab = m.keys, vs = m.vals;
+            if (tab.length < hi)
+                throw new ConcurrentModificationException();
+            while (index < hi) {
+                int i = index++, k;
+                if (i < 0) {
+                    if (!m.containsZeroKey)
+                        continue;
+                    action.accept(values ? m.zeroValue : 0);
+                }
+                else if ((k = tab[i]) == 0)
+                    continue;
+                else
+                    action.accept(values ? vs[i] : k);
+                if (m.modCount != expectedModCount)
+                    throw new ConcurrentModificationException();
+                return true;
+            }
+            return false;
+        }
+
+        public void forEachRemaining(IntConsumer action) {
+            int i, hi, mc;
+            if (action == null)
+                throw new NullPointerException();
+            IntIntHashMap m = map;
+            int[] tab = m.keys, vs = m.vals;
+            if ((hi = fence) < 0) {
+                mc = expectedModCount = m.modCount;
+                hi = fence = tab.length;
+            }
+            else
+                mc = expectedModCount;
+            if (tab.length >= hi && (i = index) < hi) {
+                index = hi;
+                if (i < 0) {
+                    if (m.containsZeroKey)
+                        action.accept(values ? m.zeroValue : 0);
+                    i = 0;
+                }
+                for (int k; i < hi; ++i) {
+                    if ((k = tab[i]) != 0)
+                        action.accept(values ? vs[i] : k);
+                }
+                if (m.modCount != mc)
+                    throw new ConcurrentModificationException();
+            }
+        }
+
+        public long estimateSize() {
+            getFence(); // force init
+            return (long) est;
+        }
+
+        public int characteristics() {
+            return (fence < 0 || est == map.size ? Spliterator.SIZED : 0) |
+                (values ? 0 : Spliterator.DISTINCT);
+        }
+    }
+
+    /**
+     * Represents an operation that accepts an {@code int} key and
+     * {@code int} value and returns no result.
+     *
+     * @since 1.9
+     */
+    @FunctionalInterface
+    public interface IntIntConsumer {
+        /**
+         * Performs this operation on the given arguments.
+         *
+         * @param key the key
+         * @param value the value
+         */
+        void accept(int key, int value);
+    }
+}
@@ -0,0 +1,813 @@
+/*
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+package java.util;
+
+import java.util.function.LongConsumer;
+import java.util.function.LongPredicate;
+import java.util.stream.LongStream;
+import java.util.stream.StreamSupport;
+
+/**
+ * A set of {@code long} values, implemented as an open-addressing
+ * hash table.  This class provides the core of the functionality of
+ * a {@link HashSet HashSet} of {@code Long}, but stores its
+ * elements unboxed in a single {@code long[]} probed linearly, so it
+ * requires a fraction of the memory of a {@code HashSet}, and its
+ * lookups and updates (other than those that resize the table)
+ * perform no allocation.
+ *
+ * <p>This class offers constant time performance for the basic
+ * operations ({@code add}, {@code remove} and {@code contains}),
+ * assuming the hash function disperses the elements properly among
+ * the table slots, which it does by multiplicative hashing even
+ * for regular sequences of values.  The <i>load factor</i> (by
+ * default 0.5) is a measure of how full the table is allowed to
+ * get before its capacity is doubled.  Lower load factors reduce
+ * the length of probe sequences at the expense of space.  Removals
+ * shift later elements of a probe sequence backwards rather than
+ * leaving deleted markers, so performance does not degrade after
+ * many removals.
+ *
+ * <p>Elements may be traversed using {@link #iterator}, which
+ * returns a {@link PrimitiveIterator.OfLong} supporting {@code
+ * remove}, or in bulk using {@link #forEach}, {@link #spliterator}
+ * or {@link #stream}.  Traversal order is unspecified.  As for
+ * {@code HashSet}, the iterators and spliterators returned by this
+ * class are <em>fail-fast</em>.
+ *
+ * <p><strong>Note that this implementation is not
+ * synchronized.</strong> If multiple threads access an {@code
+ * LongHashSet} concurrently, and at least one of the threads
+ * modifies the set, it <i>must</i> be synchronized externally.
+ *
+ * @see     HashSet
+ * @see     LongArrayList
+ * @since   1.9
+ */
+public class LongHashSet implements Cloneable, java.io.Serializable {
+    private static final long serialVersionUID = -8870389513210633071L;
+
+    /*
+     * Implementation notes.
+     *
+     * Elements are held in a power-of-two sized array, using the
+     * value zero to mark a free slot; the element zero itself, if
+     * present, is recorded separately in containsZero.  An element
+     * is placed at the first free slot at or after its home slot
+     * (given by hash), wrapping around the end of the array.  At
+     * least one slot is always free, so probes terminate.
+     *
+     * Removal uses backward shifting (Knuth, TAOCP vol 3, 6.4,
+     * Algorithm R): after clearing a slot, each later element in the
+     * same run whose home slot does not lie cyclically between the
+     * cleared slot and its own position is moved back into the
+     * cleared slot, which then becomes the slot to fill.  This keeps
+     * every element reachable from its home slot without tombstones.
+     *
+     * Iterators traverse the table from its end towards its start,
+     * so that an element shifted by Iterator.remove into a slot not
+     * yet visited is still seen.  The only exception is an element
+     * moved from the start of the table (not yet visited) around to
+     * its end (already visited); such elements are recorded in a
+     * side list, and returned after the table is exhausted.
+     */
+
+    /**
+     * The default initial capacity.
+     */
+    static final int DEFAULT_INITIAL_CAPACITY = 16;
+
+    /**
+     * The maximum capacity, used if a higher value is implicitly
+     * specified by either of the constructors with arguments.
+     */
+    static final int MAXIMUM_CAPACITY = 1 << 30;
+
+    /**
+     * The load factor used when none specified in constructor.
+     */
+    static final float DEFAULT_LOAD_FACTOR = 0.5f;
+
+    /**
+     * The table of elements, zero marking free slots.  Its length is
+     * always a power of two.
+     */
+    transient long[] table;
+
+    /**
+     * Whether the set contains the element zero.
+     */
+    transient boolean containsZero;
+
+    /**
+     * The number of elements, including zero if present.
+     */
+    transient int size;
+
+    /**
+     * The number of times this set has been structurally modified.
+     */
+    transient int modCount;
+
+    /**
+     * The number of elements in the table (excluding zero) above
+     * which the table is resized.
+     */
+    transient int threshold;
+
+    /**
+     * The load factor for the hash table.
+     *
+     * @serial
+     */
+    final float loadFactor;
+
+    /**
+     * Constructs an empty set with the specified initial capacity and
+     * load factor.
+     *
+     * @param  initialCapacity the number of elements the set should
+     *         be able to hold without resizing
+     * @param  loadFactor      the load factor, greater than zero and
+     *         less than one
+     * @throws IllegalArgumentException if the initial capacity is negative
+     *         or the load factor is out of range
+     */
+    public LongHashSet(int initialCapacity, float loadFactor) {
+        if (initialCapacity < 0)
+            throw new IllegalArgumentException("Illegal initial capacity: " +
+                                               initialCapacity);
+        if (!(loadFactor > 0.0f && loadFactor < 1.0f))
+            throw new IllegalArgumentException("Illegal load factor: " +
+                                               loadFactor);
+        this.loadFactor = loadFactor;
+        allocate(capacityFor(initialCapacity, loadFactor));
+    }
+
+    /**
+     * Constructs an empty set with the specified initial capacity and
+     * the default load factor (0.5).
+     *
+     * @param  initialCapacity the number of elements the set should
+     *         be able to hold without resizing
+     * @throws IllegalArgumentException if the initial capacity is negative
+     */
+    public LongHashSet(int initialCapacity) {
+        this(initialCapacity, DEFAULT_LOAD_FACTOR);
+    }
+
+    /**
+     * Constructs an empty set with the default initial capacity (16)
+     * and the default load factor (0.5).
+     */
+    public LongHashSet() {
+        this.loadFactor = DEFAULT_LOAD_FACTOR;
+        allocate(DEFAULT_INITIAL_CAPACITY);
+    }
+
+    /**
+     * Constructs a set containing the elements of the specified
+     * array, with the default load factor (0.5).
+     *
+     * @param a the array whose elements are to be placed into this set
+     * @throws NullPointerException if the specified array is null
+     */
+    public LongHashSet(long[] a) {
+        this(a.length);
+        for (long e : a)
+            add(e);
+    }
+
+    /**
+     * Returns a power of two table size sufficient to hold n elements
+     * at the given load factor, leaving at least one slot free.
+     */
+    static int capacityFor(int n, float loadFactor) {
+        double c = Math.ceil(n / (double)loadFactor);
+        if (c >= MAXIMUM_CAPACITY)
+            return MAXIMUM_CAPACITY;
+        return Math.max(HashMap.tableSizeFor((int)c + 1), 2);
+    }
+
+    private void allocate(int capacity) {
+        table = new long[capacity];
+        threshold = Math.min(capacity - 1, (int)(capacity * loadFactor));
+    }
+
+    /**
+     * Spreads the bits of an element by multiplying by the golden
+     * ratio and folding in the high half, so that the low bits used
+     * to index the table depend on all bits of the element.
+     */
+    static int hash(long e) {
+        long h = e * 0x9e3779b97f4a7c15L;
+        return (int)(h ^ (h >>> 32));
+    }
+
+    /**
+     * Returns the number of elements in this set.
+     *
+     * @return the number of elements in this set
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns {@code true} if this set contains no elements.
+     *
+     * @return {@code true} if this set contains no elements
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Returns {@code true} if this set contains the specified element.
+     *
+     * @param e element whose presence in this set is to be tested
+     * @return {@code true} if this set contains the specified element
+     */
+    public boolean contains(long e) {
+        if (e == 0L)
+            return containsZero;
+        long[] tab = table;
+        int mask = tab.length - 1;
+        for (int i = hash(e) & mask;; i = (i + 1) & mask) {
+            long k;
+            if ((k = tab[i]) == e)
+                return true;
+            if (k == 0L)
+                return false;
+        }
+    }
+
+    /**
+     * Adds the specified element to this set if it is not already
+     * present.
+     *
+     * @param e element to be added to this set
+     * @return {@code true} if this set did not already contain the
+     *         specified element
+     */
+    public boolean add(long e) {
+        if (e == 0L) {
+            if (containsZero)
+                return false;
+            containsZero = true;
+        }
+        else {
+            long[] tab = table;
+            int mask = tab.length - 1;
+            int i = hash(e) & mask;
+            for (long k; (k = tab[i]) != 0L; i = (i + 1) & mask) {
+                if (k == e)
+                    return false;
+            }
+            int n = size - (containsZero ? 1 : 0); // elements in table
+            if (n >= MAXIMUM_CAPACITY - 1)         // keep a free slot
+                throw new IllegalStateException("Set too large");
+            tab[i] = e;
+            if (n >= threshold)
+                resize();
+        }
+        ++size;
+        ++modCount;
+        return true;
+    }
+
+    /**
+     * Adds all of the elements in the specified array to this set.
+     *
+     * @param a array containing elements to be added to this set
+     * @return {@code true} if this set changed as a result of the call
+     * @throws NullPointerException if the specified array is null
+     */
+    public boolean addAll(long[] a) {
+        boolean modified = false;
+        for (long e : a)
+            if (add(e))
+                modified = true;
+        return modified;
+    }
+
+    /**
+     * Doubles the capacity of the table, unless already at maximum,
+     * in which case it is never resized again.
+     */
+    private void resize() {
+        long[] oldTab = table;
+        int oldCap = oldTab.length;
+        if (oldCap >= MAXIMUM_CAPACITY)
+            threshold = Integer.MAX_VALUE;
+        else
+            rehash(oldTab, oldCap << 1);
+    }
+
+    private void rehash(long[] oldTab, int newCap) {
+        allocate(newCap);
+        long[] tab = table;
+        int mask = newCap - 1;
+        for (long e : oldTab) {
+            if (e != 0L) {
+                int i = hash(e) & mask;
+                while (tab[i] != 0L)
+                    i = (i + 1) & mask;
+                tab[i] = e;
+            }
+        }
+    }
+
+    /**
+     * Removes the specified element from this set if it is present.
+     *
+     * @param e element to be removed from this set, if present
+     * @return {@code true} if the set contained the specified element
+     */
+    public boolean remove(long e) {
+        if (e == 0L) {
+            if (!containsZero)
+                return false;
+            containsZero = false;
+        }
+        else {
+            long[] tab = table;
+            int mask = tab.length - 1;
+            for (int i = hash(e) & mask;; i = (i + 1) & mask) {
+                long k;
+                if ((k = tab[i]) == 0L)
+                    return false;
+                if (k == e) {
+                    shiftKeys(i, null);
+                    break;
+                }
+            }
+        }
+        --size;
+        ++modCount;
+        return true;
+    }
+
+    /**
+     * Clears slot i, moving back later elements of the same run as
+     * needed.  If non-null, the given iterator is informed of each
+     * element moved across the end of the table.
+     */
+    final void shiftKeys(int i, Itr it) {
+        long[] tab = table;
+        int mask = tab.length - 1;
+        for (int last = i;;) {
+            long k;
+            i = (i + 1) & mask;
+            if ((k = tab[i]) == 0L) {
+                tab[last] = 0L;
+                return;
+            }
+            int home = hash(k) & mask;
+            // move k to last unless home lies cyclically in (last, i]
+            if (last <= i ? (home <= last || home > i)
+                          : (home <= last && home > i)) {
+                tab[last] = k;
+                if (it != null && i < last)
+                    it.wrapped(k);
+                last = i;
+            }
+        }
+    }
+
+    /**
+     * Removes all of the elements of this set that satisfy the given
+     * predicate.
+     *
+     * @param filter a predicate which returns {@code true} for
+     *        elements to be removed
+     * @return {@code true} if any elements were removed
+     * @throws NullPointerException if the specified filter is null
+     */
+    public boolean removeIf(LongPredicate filter) {
+        Objects.requireNonNull(filter);
+        boolean removed = false;
+        for (PrimitiveIterator.OfLong it = iterator(); it.hasNext(); ) {
+            if (filter.test(it.nextLong())) {
+                it.remove();
+                removed = true;
+            }
+        }
+        return removed;
+    }
+
+    /**
+     * Removes all of the elements from this set.  The set will be
+     * empty after this call returns.
+     */
+    public void clear() {
+        modCount++;
+        if (size > 0) {
+            size = 0;
+            containsZero = false;
+            Arrays.fill(table, 0L);
+        }
+    }
+
+    /**
+     * Reduces the capacity of the table, if possible, to the smallest
+     * that holds the current elements at the load factor.
+     */
+    public void trimToSize() {
+        int cap = capacityFor(size, loadFactor);
+        if (cap < table.length) {
+            modCount++;
+            rehash(table, cap);
+        }
+    }
+
+    /**
+     * Returns an array containing all of the elements in this set, in
+     * no particular order.
+     *
+     * @return a newly allocated array containing all of the elements
+     *         in this set
+     */
+    public long[] toArray() {
+        long[] a = new long[size];
+        int j = 0;
+        if (containsZero)
+            a[j++] = 0L;
+        for (long e : table)
+            if (e != 0L)
+                a[j++] = e;
+        return a;
+    }
+
+    /**
+     * Performs the given action for each element of this set.
+     *
+     * @param action the action to be performed for each element
+     * @throws NullPointerException if the specified action is null
+     */
+    public void forEach(LongConsumer action) {
+        Objects.requireNonNull(action);
+        int mc = modCount;
+        if (containsZero)
+            action.accept(0L);
+        for (long e : table) {
+            if (e != 0L)
+                action.accept(e);
+        }
+        if (modCount != mc)
+            throw new ConcurrentModificationException();
+    }
+
+    /**
+     * Returns a shallow copy of this set.
+     *
+     * @return a clone of this set
+     */
+    public LongHashSet clone() {
+        try {
+            LongHashSet s = (LongHashSet) super.clone();
+            s.table = table.clone();
+            s.modCount = 0;
+            return s;
+        } catch (CloneNotSupportedException e) {
+            // this shouldn't happen, since we are Cloneable
+            throw new InternalError(e);
+        }
+    }
+
+    /**
+     * Compares the specified object with this set for equality.
+     * Returns {@code true} if the given object is also an {@code
+     * LongHashSet} and the two sets contain the same elements.
+     *
+     * @param o object to be compared for equality with this set
+     * @return {@code true} if the specified object is equal to this set
+     */
+    public boolean equals(Object o) {
+        if (o == this)
+            return true;
+        if (!(o instanceof LongHashSet))
+            return false;
+        LongHashSet s = (LongHashSet) o;
+        if (s.size != size || s.containsZero != containsZero)
+            return false;
+        for (long e : table)
+            if (e != 0L && !s.contains(e))
+                return false;
+        return true;
+    }
+
+    /**
+     * Returns the hash code value for this set, the sum of the hash
+     * codes of its elements, as for the {@code hashCode} of a {@code Set} of
+     * {@code Long}.
+     *
+     * @return the hash code value for this set
+     */
+    public int hashCode() {
+        int h = 0;
+        for (long e : table)
+            h += (int)(e ^ (e >>> 32));
+        return h;
+    }
+
+    /**
+     * Returns a string representation of this set: its elements in
+     * traversal order, enclosed in square brackets ({@code "[]"}) and
+     * separated by {@code ", "}.
+     *
+     * @return a string representation of this set
+     */
+    public String toString() {
+        PrimitiveIterator.OfLong it = iterator();
+        if (!it.hasNext())
+            return "[]";
+        StringBuilder sb = new StringBuilder();
+        sb.append('[');
+        for (;;) {
+            sb.append(it.nextLong());
+            if (!it.hasNext())
+                return sb.append(']').toString();
+            sb.append(", ");
+        }
+    }
+
+    /**
+     * Saves the state of this set to a stream (that is, serializes it).
+     *
+     * @serialData The load factor (float) and size of the set (int)
+     *             are emitted, followed by all of its elements (each
+     *             an {@code long}) in no particular order.
+     */
+    private void writeObject(java.io.ObjectOutputStream s)
+        throws java.io.IOException {
+        int mc = modCount;
+        s.defaultWriteObject();
+        s.writeInt(size);
+        if (containsZero)
+            s.writeLong(0L);
+        for (long e : table)
+            if (e != 0L)
+                s.writeLong(e);
+        if (modCount != mc)
+            throw new ConcurrentModificationException();
+    }
+
+    /**
+     * Reconstitutes this set from a stream (that is, deserializes it).
+     */
+    private void readObject(java.io.ObjectInputStream s)
+        throws java.io.IOException, ClassNotFoundException {
+        s.defaultReadObject();
+        if (!(loadFactor > 0.0f && loadFactor < 1.0f))
+            throw new java.io.InvalidObjectException("Illegal load factor: " +
+                                                     loadFactor);
+        int n = s.readInt();
+        if (n < 0)
+            throw new java.io.InvalidObjectException("Illegal size: " + n);
+        allocate(capacityFor(n, loadFactor));
+        for (int i = 0; i < n; i++)
+            add(s.readLong());
+        modCount = 0;
+    }
+
+    /**
+     * Returns an iterator over the elements in this set, in no
+     * particular order.  The returned iterator is fail-fast, and
+     * supports {@code remove}.
+     *
+     * @return an iterator over the elements in this set
+     */
+    public PrimitiveIterator.OfLong iterator() {
+        return new Itr();
+    }
+
+    final class Itr implements PrimitiveIterator.OfLong {
+        int index = table.length; // next slot to examine is index - 1
+        int remaining = size;     // elements not yet returned
+        boolean mustReturnZero = containsZero;
+        int lastRet = -1;         // slot of last element; -2 if zero;
+                                  // -3 if from wrapped; -1 if none
+        long lastValue;           // last element returned
+        LongArrayList wrapped;    // elements moved across table end
+        int expectedModCount = modCount;
+
+        /** Called by shiftKeys for elements that would be missed */
+        void wrapped(long e) {
+            if (wrapped == null)
+                wrapped = new LongArrayList(2);
+            wrapped.add(e);
+        }
+
+        public boolean hasNext() {
+            return remaining > 0;
+        }
+
+        public long nextLong() {
+            if (modCount != expectedModCount)
+                throw new ConcurrentModificationException();
+            if (remaining <= 0)
+                throw new NoSuchElementException();
+            --remaining;
+            if (mustReturnZero) {
+                mustReturnZero = false;
+                lastRet = -2;
+                return lastValue = 0L;
+            }
+            long[] tab = table;
+            for (int i = index; --i >= 0; ) {
+                long e;
+                if ((e = tab[i]) != 0L) {
+                    index = i;
+                    lastRet = i;
+                    return lastValue = e;
+                }
+            }
+            index = -1;
+            LongArrayList w = wrapped;
+            if (w == null || w.isEmpty())
+                throw new ConcurrentModificationException();
+            lastRet = -3;
+            return lastValue = w.removeAt(w.size() - 1);
+        }
+
+        public void remove() {
+            int r = lastRet;
+            if (r == -1)
+                throw new IllegalStateException();
+            if (modCount != expectedModCount)
+                throw new ConcurrentModificationException();
+            lastRet = -1;
+            if (r == -2)
+                containsZero = false;
+            else if (r == -3)
+                LongHashSet.this.remove(lastValue);
+            else
+                shiftKeys(r, this);
+            if (r != -3) {
+                --size;
+                ++modCount;
+            }
+            expectedModCount = modCount;
+        }
+    }
+
+    /**
+     * Returns a sequential {@code LongStream} with this set as its
+     * source.
+     *
+     * @return a sequential {@code LongStream} over the elements in
+     *         this set
+     */
+    public LongStream stream() {
+        return StreamSupport.longStream(spliterator(), false);
+    }
+
+    /**
+     * Returns a possibly parallel {@code LongStream} with this set as
+     * its source.
+     *
+     * @return a possibly parallel {@code LongStream} over the elements
+     *         in this set
+     */
+    public LongStream parallelStream() {
+        return StreamSupport.longStream(spliterator(), true);
+    }
+
+    /**
+     * Creates a <em>late-binding</em> and <em>fail-fast</em> {@link
+     * Spliterator.OfLong} over the elements in this set.
+     *
+     * <p>The {@code Spliterator} reports {@link Spliterator#SIZED}
+     * (before splitting) and {@link Spliterator#DISTINCT}.
+     *
+     * @return a {@code Spliterator.OfLong} over the elements in this set
+     */
+    public Spliterator.OfLong spliterator() {
+        return new LongHashSetSpliterator(this, -1, -1, 0, 0);
+    }
+
+    /**
+     * Spliterator over table slots, splitting by index range as in
+     * HashMap.  Slot index -1 denotes the element zero, so is
+     * covered only by the spliterator holding the start of the range.
+     */
+    static final class LongHashSetSpliterator implements Spliterator.OfLong {
+        final LongHashSet set;
+        int index;            // current index, modified on advance/split
+        int fence;            // one past last index; -1 until used
+        int est;              // size estimate
+        int expectedModCount; // for comodification checks
+
+        LongHashSetSpliterator(LongHashSet set, int origin, int fence,
+                              int est, int expectedModCount) {
+            this.set = set;
+            this.index = origin;
+            this.fence = fence;
+            this.est = est;
+            this.expectedModCount = expectedModCount;
+        }
+
+        final int getFence() { // initialize fence and size on first use
+            int hi;
+            if ((hi = fence) < 0) {
+                LongHashSet s = set;
+                est = s.size;
+                expectedModCount = s.modCount;
+                hi = fence = s.table.length;
+            }
+            return hi;
+        }
+
+        public LongHashSetSpliterator trySplit() {
+            int hi = getFence(), lo = index, mid = (lo + hi) >>> 1;
+            return (lo >= mid) ? null :
+                new LongHashSetSpliterator(set, lo, index = mid, est >>>= 1,
+                                          expectedModCount);
+        }
+
+        public boolean tryAdvance(LongConsumer action) {
+            if (action == null)
+                throw new NullPointerException();
+            int hi = getFence();
+            LongHashSet s = set;
+            long[] tab = s.table;
+            if (tab.length < hi)
+                throw new ConcurrentModificationException();
+            while (index < hi) {
+                int i = index++; long e;
+                if (i < 0) {
+                    if (!s.containsZero)
+                        continue;
+                    e = 0L;
+                }
+                else if ((e = tab[i]) == 0L)
+                    continue;
+                action.accept(e);
+                if (s.modCount != expectedModCount)
+                    throw new ConcurrentModificationException();
+                return true;
+            }
+            return false;
+        }
+
+        public void forEachRemaining(LongConsumer action) {
+            int i, hi, mc;
+            if (action == null)
+                throw new NullPointerException();
+            LongHashSet s = set;
+            long[] tab = s.table;
+            if ((hi = fence) < 0) {
+                mc = expectedModCount = s.modCount;
+                hi = fence = tab.length;
+            }
+            else
+                mc = expectedModCount;
+            if (tab.length >= hi && (i = index) < hi) {
+                index = hi;
+                if (i < 0) {
+                    if (s.containsZero)
+                        action.accept(0L);
+                    i = 0;
+                }
+                for (long e; i < hi; ++i) {
+                    if ((e = tab[i]) != 0L)
+                        action.accept(e);
+                }
+                if (s.modCount != mc)
+                    throw new ConcurrentModificationException();
+            }
+        }
+
+        public long estimateSize() {
+            getFence(); // force init
+            return (long) est;
+        }
+
+        public int characteristics() {
+            return (fence < 0 || est == set.size ? Spliterator.SIZED : 0) |
+                Spliterator.DISTINCT;
+        }
+    }
+}
@@ -0,0 +1,468 @@
+/*
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+package java.util;
+
+/**
+ * A priority queue of values with {@code long} priorities, based on
+ * a <i>d</i>-ary heap.  The <em>head</em> of this queue is a value
+ * with the least priority; ties are broken arbitrarily.  Priorities
+ * are stored and compared unboxed, so that no {@link Comparator} is
+ * invoked and no allocation is performed other than when the queue
+ * grows.  Values are arbitrary objects, possibly {@code null}.
+ *
+ * <p>As in an {@link IndexedPriorityQueue}, each entry is identified
+ * by an {@code int} <i>handle</i>, returned by {@link #insert}, that
+ * remains valid until the entry is removed, by any means, and may
+ * then be reused for an entry inserted later.  Handles are small
+ * non-negative integers, less than the largest number of entries the
+ * queue has held at any one time.  Given a handle, the priority of
+ * its entry can be changed by {@link #changeKey} or {@link
+ * #decreaseKey}, and the entry removed by {@link #removeHandle}, in
+ * logarithmic time.  These methods throw {@link
+ * NoSuchElementException} for handles that do not identify an entry
+ * of the queue.  The arity of the heap is a power of two between 2
+ * and 64, by default 4.
+ *
+ * <p>For example, the core of Dijkstra's shortest-path algorithm,
+ * over vertices numbered from zero and with {@code handle[v]} (-1
+ * until {@code v} is reached) and {@code done[v]} per vertex, is
+ *
+ * <pre> {@code
+ * LongPriorityQueue<Vertex> q = new LongPriorityQueue<>();
+ * handle[source] = q.insert(0L, source);
+ * while (!q.isEmpty()) {
+ *   long d = q.peekPriority();
+ *   Vertex u = q.poll();
+ *   done[u.id] = true;
+ *   for (Edge e : u.edges) {
+ *     Vertex v = e.target;
+ *     long dv = d + e.weight;
+ *     if (done[v.id])
+ *       continue;
+ *     else if (handle[v.id] < 0)
+ *       handle[v.id] = q.insert(dv, v);
+ *     else if (dv < q.priority(handle[v.id]))
+ *       q.decreaseKey(handle[v.id], dv);
+ *   }
+ * }}</pre>
+ *
+ * (Handles are reused once their entries are polled, which is safe
+ * here since a vertex is never reinserted once done.)
+ *
+ * <p><strong>Note that this implementation is not synchronized.</strong>
+ * Multiple threads should not access a {@code LongPriorityQueue}
+ * instance concurrently if any of the threads modifies the queue.
+ *
+ * @param <E> the type of values held in this queue
+ * @see IndexedPriorityQueue
+ * @see DaryPriorityQueue
+ * @since 1.9
+ */
+public class LongPriorityQueue<E> implements java.io.Serializable {
+    private static final long serialVersionUID = 6853290711307405112L;
+
+    private static final int DEFAULT_INITIAL_CAPACITY = 16;
+
+    /*
+     * Implementation notes.
+     *
+     * As for IndexedPriorityQueue, except that the heap is held in
+     * three parallel arrays: keys, values and handles, so that the
+     * comparisons in siftDown scan adjacent elements of keys only.
+     */
+
+    /** The priorities, in heap order. */
+    long[] keys;
+
+    /** The values, in heap order. */
+    Object[] values;
+
+    /** The handles of the entries, in heap order. */
+    int[] handles;
+
+    /** The heap index of each handle, or free list links. */
+    int[] pos;
+
+    /** The number of entries in the queue. */
+    private int size;
+
+    /** One more than the largest handle ever in use. */
+    private int limit;
+
+    /** The first free handle below limit, or -1 if none. */
+    private int free = -1;
+
+    /** Log2 of the arity of the heap. */
+    private final int shift;
+
+    /**
+     * Creates a {@code LongPriorityQueue} with the default initial
+     * capacity and arity.
+     */
+    public LongPriorityQueue() {
+        this(DEFAULT_INITIAL_CAPACITY, DaryPriorityQueue.DEFAULT_ARITY);
+    }
+
+    /**
+     * Creates a {@code LongPriorityQueue} with the specified initial
+     * capacity and the default arity.
+     *
+     * @param initialCapacity the initial capacity for this priority queue
+     * @throws IllegalArgumentException if {@code initialCapacity} is less
+     *         than 1
+     */
+    public LongPriorityQueue(int initialCapacity) {
+        this(initialCapacity, DaryPriorityQueue.DEFAULT_ARITY);
+    }
+
+    /**
+     * Creates a {@code LongPriorityQueue} with the specified initial
+     * capacity and arity.
+     *
+     * @param  initialCapacity the initial capacity for this priority queue
+     * @param  arity the maximum number of children of each node of the
+     *         heap, a power of two between 2 and 64
+     * @throws IllegalArgumentException if {@code initialCapacity} is
+     *         less than 1, or {@code arity} is not a power of two
+     *         between 2 and 64
+     */
+    public LongPriorityQueue(int initialCapacity, int arity) {
+        if (initialCapacity < 1)
+            throw new IllegalArgumentException();
+        this.shift = DaryPriorityQueue.shiftFor(arity);
+        this.keys = new long[initialCapacity];
+        this.values = new Object[initialCapacity];
+        this.handles = new int[initialCapacity];
+        this.pos = new int[initialCapacity];
+    }
+
+    /**
+     * Returns the number of entries in this queue.
+     *
+     * @return the number of entries in this queue
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns {@code true} if this queue contains no entries.
+     *
+     * @return {@code true} if this queue contains no entries
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Returns the arity of the heap of this queue.
+     *
+     * @return the maximum number of children of each node of the heap
+     */
+    public int arity() {
+        return 1 << shift;
+    }
+
+    /**
+     * Inserts an entry with the specified priority and value,
+     * returning its handle.
+     *
+     * @param priority the priority
+     * @param value the value, possibly {@code null}
+     * @return the handle of the entry
+     */
+    public int insert(long priority, E value) {
+        int i = size, h;
+        if (i >= keys.length) {
+            int n = DaryPriorityQueue.newCapacity(keys.length, i + 1);
+            keys = Arrays.copyOf(keys, n);
+            values = Arrays.copyOf(values, n);
+            handles = Arrays.copyOf(handles, n);
+            pos = Arrays.copyOf(pos, n);
+        }
+        if ((h = free) >= 0)
+            free = -2 - pos[h];
+        else
+            h = limit++;
+        size = i + 1;
+        values[i] = value;  // placed by siftUp
+        siftUp(i, priority, h);
+        return h;
+    }
+
+    /**
+     * Returns the handle of the head of this queue, or -1 if this
+     * queue is empty.
+     *
+     * @return the handle of the head of this queue, or -1 if empty
+     */
+    public int peekHandle() {
+        return (size == 0) ? -1 : handles[0];
+    }
+
+    /**
+     * Returns the priority of the head of this queue, that is, the
+     * least priority of its entries.
+     *
+     * @return the priority of the head of this queue
+     * @throws NoSuchElementException if this queue is empty
+     */
+    public long peekPriority() {
+        if (size == 0)
+            throw new NoSuchElementException();
+        return keys[0];
+    }
+
+    /**
+     * Returns the value of the head of this queue, or {@code null}
+     * if this queue is empty.
+     *
+     * @return the value of the head of this queue, or {@code null}
+     *         if empty
+     */
+    @SuppressWarnings("unchecked")
+    public E peek() {
+        return (size == 0) ? null : (E) values[0];
+    }
+
+    /**
+     * Removes the head of this queue, returning its value, or returns
+     * {@code null} if this queue is empty.  Since values may be null,
+     * use {@link #isEmpty} to distinguish the two cases.
+     *
+     * @return the value of the head of this queue, or {@code null}
+     *         if empty
+     */
+    @SuppressWarnings("unchecked")
+    public E poll() {
+        return (size == 0) ? null : (E) removeAt(0);
+    }
+
+    /**
+     * Returns {@code true} if the specified handle identifies an entry
+     * of this queue.
+     *
+     * @param handle the handle
+     * @return {@code true} if the handle identifies an entry
+     */
+    public boolean containsHandle(int handle) {
+        return handle >= 0 && handle < limit && pos[handle] >= 0;
+    }
+
+    /**
+     * Returns the priority of the entry with the specified handle.
+     *
+     * @param handle the handle
+     * @return the priority
+     * @throws NoSuchElementException if the handle does not identify
+     *         an entry of this queue
+     */
+    public long priority(int handle) {
+        return keys[indexOf(handle)];
+    }
+
+    /**
+     * Returns the value of the entry with the specified handle.
+     *
+     * @param handle the handle
+     * @return the value
+     * @throws NoSuchElementException if the handle does not identify
+     *         an entry of this queue
+     */
+    @SuppressWarnings("unchecked")
+    public E get(int handle) {
+        return (E) values[indexOf(handle)];
+    }
+
+    /**
+     * Replaces the value of the entry with the specified handle,
+     * leaving its priority unchanged.
+     *
+     * @param handle the handle
+     * @param value the new value, possibly {@code null}
+     * @return the previous value
+     * @throws NoSuchElementException if the handle does not identify
+     *         an entry of this queue
+     */
+    @SuppressWarnings("unchecked")
+    public E set(int handle, E value) {
+        int k = indexOf(handle);
+        E old = (E) values[k];
+        values[k] = value;
+        return old;
+    }
+
+    /**
+     * Changes the priority of the entry with the specified handle,
+     * moving it to its new place in the queue.
+     *
+     * @param handle the handle
+     * @param priority the new priority
+     * @return the previous priority
+     * @throws NoSuchElementException if the handle does not identify
+     *         an entry of this queue
+     */
+    public long changeKey(int handle, long priority) {
+        int k = indexOf(handle);
+        long old = keys[k];
+        if (priority < old)
+            siftUp(k, priority, handle);
+        else if (priority > old)
+            siftDown(k, priority, handle);
+        return old;
+    }
+
+    /**
+     * Lowers the priority of the entry with the specified handle,
+     * moving it towards the head of the queue as needed.
+     *
+     * @param handle the handle
+     * @param priority the new priority
+     * @throws NoSuchElementException if the handle does not identify
+     *         an entry of this queue
+     * @throws IllegalArgumentException if the new priority is greater
+     *         than the current one
+     */
+    public void decreaseKey(int handle, long priority) {
+        int k = indexOf(handle);
+        if (priority > keys[k])
+            throw new IllegalArgumentException("priority increased");
+        siftUp(k, priority, handle);
+    }
+
+    /**
+     * Removes the entry with the specified handle from this queue.
+     *
+     * @param handle the handle
+     * @return the value of the removed entry
+     * @throws NoSuchElementException if the handle does not identify
+     *         an entry of this queue
+     */
+    @SuppressWarnings("unchecked")
+    public E removeHandle(int handle) {
+        return (E) removeAt(indexOf(handle));
+    }
+
+    /**
+     * Removes all of the entries from this queue.  The queue will be
+     * empty after this call returns, and all handles become
+     * available for reuse.
+     */
+    public void clear() {
+        Arrays.fill(values, 0, size, null);
+        size = 0;
+        limit = 0;
+        free = -1;
+    }
+
+    /**
+     * Returns the heap index of the given handle.
+     */
+    private int indexOf(int handle) {
+        int k;
+        if (handle < 0 || handle >= limit || (k = pos[handle]) < 0)
+            throw new NoSuchElementException("no entry with handle " + handle);
+        return k;
+    }
+
+    /**
+     * Removes the entry at heap index i, releasing its handle and
+     * returning its value.
+     */
+    private Object removeAt(int i) {
+        Object[] vs = values;
+        Object result = vs[i];
+        int h = handles[i];
+        int s = --size;
+        if (s != i) {
+            int mh = handles[s];
+            vs[i] = vs[s];
+            siftDown(i, keys[s], mh);
+            if (handles[i] == mh)
+                siftUp(i, keys[i], mh);
+        }
+        vs[s] = null;
+        pos[h] = -2 - free;
+        free = h;
+        return result;
+    }
+
+    /**
+     * Places the entry with handle h, whose value is currently at
+     * heap index k, at heap index k or above with priority x, moving
+     * greater ancestors down.
+     */
+    private void siftUp(int k, long x, int h) {
+        long[] ks = keys; Object[] vs = values; int[] hs = handles, p = pos;
+        int s = shift;
+        Object v = vs[k];
+        while (k > 0) {
+            int parent = (k - 1) >>> s;
+            long e = ks[parent];
+            if (x >= e)
+                break;
+            ks[k] = e;
+            vs[k] = vs[parent];
+            p[hs[k] = hs[parent]] = k;
+            k = parent;
+        }
+        ks[k] = x;
+        vs[k] = v;
+        p[hs[k] = h] = k;
+    }
+
+    /**
+     * Places the entry with handle h, whose value is currently at
+     * heap index k, at heap index k or below with priority x, moving
+     * lesser descendants up.
+     */
+    private void siftDown(int k, long x, int h) {
+        long[] ks = keys; Object[] vs = values; int[] hs = handles, p = pos;
+        int s = shift, n = size;
+        int last = (n - 2) >> s;      // loop while a non-leaf
+        Object v = vs[k];
+        while (k <= last) {
+            int child = (k << s) + 1; // least of the children
+            int end = Math.min(child + (1 << s), n);
+            long c = ks[child];
+            for (int i = child + 1; i < end; ++i) {
+                long y = ks[i];
+                if (y < c) {
+                    c = y;
+                    child = i;
+                }
+            }
+            if (x <= c)
+                break;
+            ks[k] = c;
+            vs[k] = vs[child];
+            p[hs[k] = hs[child]] = k;
+            k = child;
+        }
+        ks[k] = x;
+        vs[k] = v;
+        p[hs[k] = h] = k;
+    }
+}
@@ -0,0 +1,1272 @@
+/*
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+package java.util;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.LongConsumer;
+
+/**
+ * A map from {@code long} keys to byte-sequence values whose table
+ * and values are held outside the Java heap, in direct or mapped
+ * {@link ByteBuffer ByteBuffers}.  Because no part of a mapping is a
+ * Java object, a map of any size adds nothing to the work of the
+ * garbage collector, and lookups perform no allocation: a value is
+ * copied straight from off-heap memory into a buffer supplied by the
+ * caller.  For example:
+ *
+ *  <pre> {@code
+ * OffHeapLongHashMap map = new OffHeapLongHashMap(16, 1_000_000);
+ * ByteBuffer buf = ByteBuffer.allocate(16);
+ * buf.putLong(1L).putLong(2L).flip();
+ * map.put(42L, buf);
+ * buf.clear();
+ * if (map.get(42L, buf) >= 0) {
+ *   buf.flip();
+ *   long a = buf.getLong(), b = buf.getLong();
+ * }}</pre>
+ *
+ * <p>A map is created either for <em>fixed-length</em> values of at
+ * most a given size, which are stored inline in the hash table, or
+ * for {@linkplain #VARIABLE_LENGTH variable-length} values, which are
+ * appended to a separate data area that is referenced from the
+ * table.  Replacing a variable-length value with a longer one, or
+ * removing it, leaves the space it occupied unused until {@link
+ * #compact} is invoked.
+ *
+ * <p>Memory for maps created by the public constructors is obtained
+ * with {@link ByteBuffer#allocateDirect}, so it is accounted for, and
+ * limited, exactly as for any other direct buffer, and appears in the
+ * {@code "direct"} {@link java.lang.management.BufferPoolMXBean}.  It
+ * is released when the map is {@linkplain #close closed}, or
+ * otherwise when the map becomes unreachable.  Maps returned by
+ * {@link #open} instead keep their contents in files in a directory,
+ * mapped into memory with {@link FileChannel#map}; closing such a
+ * map and opening the same directory later, perhaps in another
+ * process, yields the same mappings without reading or rehashing
+ * them.
+ *
+ * <p>The table uses linear probing over a power-of-two number of
+ * slots.  When it becomes too full it is doubled <em>incrementally</em>:
+ * each subsequent {@code put} or {@code remove} moves a few slots to
+ * the new table, so no single operation pays for rehashing the whole
+ * map.
+ *
+ * <p><strong>Note that this implementation is not
+ * synchronized.</strong> If multiple threads access an {@code
+ * OffHeapLongHashMap} concurrently, and at least one of the threads
+ * modifies the map, it <i>must</i> be synchronized externally.  Once
+ * a map is closed, all operations other than {@code close} throw
+ * {@link IllegalStateException}.
+ *
+ * @see     LongLongHashMap
+ * @see     ByteBuffer#allocateDirect
+ * @see     FileChannel#map
+ * @since   1.9
+ */
+public class OffHeapLongHashMap implements Closeable {
+
+    /*
+     * Overview:
+     *
+     * All memory is held in Regions, each a growable array of
+     * equal-sized ByteBuffer segments, either direct or mapped from a
+     * file.  A single ByteBuffer is limited to 2GB, so segments let
+     * the table and data exceed that.  Segments are in native byte
+     * order and are only accessed with absolute get/put methods, so
+     * that no buffer views or other objects are created per access.
+     *
+     * The hash table is a Table, wrapping a Region of fixed-size
+     * slots.  Slots never straddle segments: the number of slots per
+     * segment is a power of two, so locating slot i is a shift and a
+     * mask.  Each slot holds
+     *
+     *   offset  0: long key
+     *   offset  8: int  state (FREE, USED or DELETED)
+     *   offset 12: int  value length
+     *   offset 16: the value itself (fixed-length maps), or the long
+     *              address of the value in the data Region
+     *              (variable-length maps)
+     *
+     * rounded up to a multiple of eight bytes.  Having an explicit
+     * state, rather than reserving a key as LongHashSet does for
+     * zero, keeps the whole map state in the Regions, which matters
+     * for mapped maps.
+     *
+     * Collisions are resolved by linear probing, and removals from the
+     * current table use backward shifting as in LongHashSet, so the
+     * current table never contains DELETED slots.
+     *
+     * Resizing is incremental.  When the current table exceeds its
+     * threshold, it becomes oldTable and a table of twice the
+     * capacity is installed.  Each put or remove then first migrates
+     * MIGRATE_STEP slots of oldTable, in index order, into the new
+     * table.  During migration the two tables hold disjoint sets of
+     * live keys: migrated slots, and those of keys put again before
+     * being migrated, are moved to the new table and marked DELETED
+     * in the old one; lookups check the new table and then the old
+     * one; and removals from the old table also mark the slot
+     * DELETED rather than shifting, since shifting could move an
+     * unmigrated entry behind the migration cursor.  An old
+     * table has at most half as many live entries as the new table's
+     * threshold, and migration of all its slots completes within
+     * capacity / MIGRATE_STEP operations, well before the new table
+     * itself fills.  Operations that must see a single table (compact,
+     * force and close) first finish any migration.
+     *
+     * Variable-length values are appended to the data Region, eight
+     * byte aligned and never straddling a segment.  Space freed by
+     * removals or by replacement with a longer value is counted in
+     * garbage and reclaimed only by compact, which copies all live
+     * values into a fresh Region.  (Replacing a value with one that
+     * fits in its old space is done in place.)
+     *
+     * A mapped map lives in a directory holding a small header file
+     * and one index file and one data file, each named by a
+     * generation number so that a resize or compaction can build the
+     * new file beside the old one.  The header records the layout
+     * and a "clean" flag.  The flag is cleared, and the header
+     * forced, before the first modification after opening or after
+     * force(); force() and close() flush all segments and then set it
+     * again.  A directory whose flag is not set may hold a torn
+     * table, so open refuses it.
+     */
+
+    /**
+     * The value size with which to construct a map that holds values
+     * of any length, up to {@link #MAX_VALUE_LENGTH}.
+     */
+    public static final int VARIABLE_LENGTH = 0;
+
+    /**
+     * The maximum length of a value, for both fixed-length and
+     * variable-length maps.
+     */
+    public static final int MAX_VALUE_LENGTH = 1 << 24;
+
+    /**
+     * The default initial capacity, in mappings.
+     */
+    static final int DEFAULT_INITIAL_CAPACITY = 16;
+
+    /**
+     * The maximum number of slots in a table.
+     */
+    static final long MAXIMUM_CAPACITY = 1L << 40;
+
+    /**
+     * The load factor.  This is the same as for LongHashSet, and
+     * keeps probe sequences short even in the new table of a
+     * migration that is about to complete.
+     */
+    static final float LOAD_FACTOR = 0.5f;
+
+    /**
+     * The number of old-table slots migrated per put or remove while
+     * a resize is in progress.  Must be at least two; see above.
+     */
+    static final int MIGRATE_STEP = 8;
+
+    /**
+     * The maximum size in bytes of a Region segment, the largest
+     * power of two that a ByteBuffer can hold.
+     */
+    static final int MAX_SEGMENT_SIZE = 1 << 30;
+
+    /**
+     * The size in bytes of the segments of a data Region.  Values
+     * may not straddle segments, so this is also MAX_VALUE_LENGTH.
+     */
+    static final int DATA_SEGMENT_SIZE = MAX_VALUE_LENGTH;
+    static final int DATA_SHIFT = 24;
+
+    // Slot layout
+    static final int KEY     = 0;
+    static final int STATE   = 8;
+    static final int LENGTH  = 12;
+    static final int PAYLOAD = 16;
+
+    // Slot states
+    static final int FREE    = 0;
+    static final int USED    = 1;
+    static final int DELETED = 2;
+
+    // Header layout, for mapped maps
+    static final long MAGIC         = 0x4f48_4c48_4d41_5001L;
+    static final int H_MAGIC        = 0;
+    static final int H_VALUE_SIZE   = 8;
+    static final int H_INDEX_GEN    = 12;
+    static final int H_DATA_GEN     = 16;
+    static final int H_CLEAN        = 20;
+    static final int H_CAPACITY     = 24;
+    static final int H_SIZE         = 32;
+    static final int H_DATA_TOP     = 40;
+    static final int H_GARBAGE      = 48;
+    static final int HEADER_SIZE    = 64;
+
+    static final String HEADER_FILE = "header";
+    static final String INDEX_FILE  = "index.";
+    static final String DATA_FILE   = "data.";
+
+    /**
+     * The maximum length of a value, or VARIABLE_LENGTH.
+     */
+    final int valueSize;
+
+    /**
+     * The size in bytes of a slot.
+     */
+    final int slotSize;
+
+    /**
+     * The number of slots per full-sized index segment.
+     */
+    final int maxSlotsPerSegment;
+
+    /**
+     * The directory of a mapped map, or null if memory is direct.
+     */
+    final Path directory;
+
+    /**
+     * The current table.  Null once closed.
+     */
+    Table table;
+
+    /**
+     * The table being migrated into the current table, or null if
+     * not resizing.
+     */
+    Table oldTable;
+
+    /**
+     * The index of the next slot of oldTable to migrate.
+     */
+    long migrateIndex;
+
+    /**
+     * The data Region, for variable-length maps; otherwise null.
+     */
+    Region data;
+
+    /**
+     * The generation number of the data file of a mapped map.
+     */
+    int dataGeneration;
+
+    /**
+     * The address at which the next variable-length value is
+     * appended.
+     */
+    long dataTop;
+
+    /**
+     * The number of bytes of the data Region below dataTop that hold
+     * no live value.
+     */
+    long garbage;
+
+    /**
+     * The number of mappings.
+     */
+    long size;
+
+    /**
+     * True if a mapped map has been modified since the header was
+     * last marked clean.
+     */
+    boolean dirty;
+
+    /**
+     * Constructs an empty map in direct memory, for values of at most
+     * the given size, with room for the given number of mappings
+     * before resizing.
+     *
+     * @param valueSize the maximum length in bytes of a value, or
+     *        {@link #VARIABLE_LENGTH} to hold values of any length in
+     *        a separate data area
+     * @param initialCapacity the number of mappings the map should be
+     *        able to hold without resizing
+     * @throws IllegalArgumentException if {@code valueSize} is
+     *         negative or greater than {@link #MAX_VALUE_LENGTH}, or
+     *         {@code initialCapacity} is negative
+     * @throws OutOfMemoryError if the direct memory limit would be
+     *         exceeded
+     */
+    public OffHeapLongHashMap(int valueSize, long initialCapacity) {
+        this(valueSize, initialCapacity, null);
+        table = newTable(capacityFor(initialCapacity), 0);
+        if (valueSize == VARIABLE_LENGTH)
+            data = newData(0);
+    }
+
+    /**
+     * Constructs an empty map in direct memory, for values of at most
+     * the given size, with the default initial capacity (16).
+     *
+     * @param valueSize the maximum length in bytes of a value, or
+     *        {@link #VARIABLE_LENGTH} to hold values of any length in
+     *        a separate data area
+     * @throws IllegalArgumentException if {@code valueSize} is
+     *         negative or greater than {@link #MAX_VALUE_LENGTH}
+     */
+    public OffHeapLongHashMap(int valueSize) {
+        this(valueSize, DEFAULT_INITIAL_CAPACITY);
+    }
+
+    /**
+     * Common initialization, leaving the tables to the caller.
+     */
+    private OffHeapLongHashMap(int valueSize, long initialCapacity,
+                               Path directory) {
+        if (valueSize < 0 || valueSize > MAX_VALUE_LENGTH)
+            throw new IllegalArgumentException("Illegal value size: " +
+                                               valueSize);
+        if (initialCapacity < 0)
+            throw new IllegalArgumentException("Illegal initial capacity: " +
+                                               initialCapacity);
+        this.valueSize = valueSize;
+        int payload = (valueSize == VARIABLE_LENGTH) ? 8 : valueSize;
+        this.slotSize = (PAYLOAD + payload + 7) & ~7;
+        this.maxSlotsPerSegment =
+            Integer.highestOneBit(MAX_SEGMENT_SIZE / slotSize);
+        this.directory = directory;
+    }
+
+    /**
+     * Opens, or creates if it does not exist, a map whose contents
+     * are kept in files in the given directory.  If the directory
+     * already holds a map that was closed, or last {@linkplain #force
+     * forced}, without being modified afterwards, that map is
+     * returned with its contents intact.  The files are mapped into
+     * memory, not read, so opening takes time independent of the size
+     * of the map.
+     *
+     * <p>The files use the native byte order and are not portable
+     * between platforms with different byte orders.  A directory must
+     * not be opened by more than one map at a time.
+     *
+     * @param directory the directory, which must exist
+     * @param valueSize the maximum length in bytes of a value, or
+     *        {@link #VARIABLE_LENGTH}; must match that of the existing
+     *        map, if any
+     * @return the map
+     * @throws IllegalArgumentException if {@code valueSize} is
+     *         negative or greater than {@link #MAX_VALUE_LENGTH}
+     * @throws IOException if an I/O error occurs, or the directory
+     *         holds a map with a different value size, or one that
+     *         was not closed cleanly, or files that are not a map
+     */
+    public static OffHeapLongHashMap open(Path directory, int valueSize)
+        throws IOException {
+        OffHeapLongHashMap m = new OffHeapLongHashMap
+            (valueSize, DEFAULT_INITIAL_CAPACITY, Objects.requireNonNull(directory));
+        try {
+            if (Files.exists(directory.resolve(HEADER_FILE)))
+                m.restore();
+            else {
+                m.table = m.newTable(capacityFor(DEFAULT_INITIAL_CAPACITY), 0);
+                if (valueSize == VARIABLE_LENGTH)
+                    m.data = m.newData(0);
+                m.writeHeader(true);
+            }
+        } catch (UncheckedIOException ex) {
+            m.release();
+            throw ex.getCause();
+        } catch (IOException | RuntimeException ex) {
+            m.release();
+            throw ex;
+        }
+        return m;
+    }
+
+    /**
+     * Returns the table capacity for the given number of mappings.
+     */
+    static long capacityFor(long n) {
+        long c = Math.max((long)Math.ceil(n / (double)LOAD_FACTOR) + 1, 16L);
+        return (c >= MAXIMUM_CAPACITY) ? MAXIMUM_CAPACITY :
+            Long.highestOneBit(c - 1) << 1;
+    }
+
+    /**
+     * Returns the number of mappings in this map.
+     *
+     * @return the number of mappings in this map
+     */
+    public long size() {
+        checkOpen();
+        return size;
+    }
+
+    /**
+     * Returns {@code true} if this map contains no mappings.
+     *
+     * @return {@code true} if this map contains no mappings
+     */
+    public boolean isEmpty() {
+        checkOpen();
+        return size == 0L;
+    }
+
+    /**
+     * Returns {@code true} if this map contains a mapping for the
+     * specified key.
+     *
+     * @param key the key
+     * @return {@code true} if this map contains a mapping for the key
+     */
+    public boolean containsKey(long key) {
+        Table t = checkOpen();
+        return t.indexOf(key) >= 0L ||
+            ((t = oldTable) != null && t.indexOf(key) >= 0L);
+    }
+
+    /**
+     * Returns the length in bytes of the value to which the specified
+     * key is mapped, or {@code -1} if this map contains no mapping for
+     * the key.
+     *
+     * @param key the key
+     * @return the length of the value, or {@code -1} if absent
+     */
+    public int valueLength(long key) {
+        Table t = checkOpen();
+        long i;
+        if ((i = t.indexOf(key)) < 0L &&
+            ((t = oldTable) == null || (i = t.indexOf(key)) < 0L))
+            return -1;
+        return t.segment(i).getInt(t.position(i) + LENGTH);
+    }
+
+    /**
+     * Copies the value to which the specified key is mapped into the
+     * given buffer, starting at its current position, and advances
+     * its position by the length of the value.  Nothing is copied if
+     * this map contains no mapping for the key.
+     *
+     * @param key the key
+     * @param dst the buffer into which the value is copied
+     * @return the length of the value, or {@code -1} if absent
+     * @throws BufferOverflowException if there is insufficient space
+     *         remaining in {@code dst} for the value, in which case
+     *         nothing is copied
+     * @throws java.nio.ReadOnlyBufferException if {@code dst} is
+     *         read-only
+     */
+    public int get(long key, ByteBuffer dst) {
+        Table t = checkOpen();
+        long i;
+        if ((i = t.indexOf(key)) < 0L &&
+            ((t = oldTable) == null || (i = t.indexOf(key)) < 0L))
+            return -1;
+        ByteBuffer seg = t.segment(i);
+        int p = t.position(i);
+        int len = seg.getInt(p + LENGTH);
+        if (dst.remaining() < len)
+            throw new BufferOverflowException();
+        if (valueSize != VARIABLE_LENGTH)
+            copyOut(seg, p + PAYLOAD, dst, len);
+        else {
+            long a = seg.getLong(p + PAYLOAD);
+            copyOut(data.segment(a), data.position(a), dst, len);
+        }
+        return len;
+    }
+
+    /**
+     * Associates the remaining bytes of the given buffer with the
+     * specified key in this map, replacing any previous value, and
+     * advances the buffer's position to its limit.
+     *
+     * @param key the key
+     * @param src the buffer holding the value
+     * @return {@code true} if this map did not already contain a
+     *         mapping for the key
+     * @throws IllegalArgumentException if the number of bytes
+     *         remaining in {@code src} exceeds the value size of this
+     *         map, or {@link #MAX_VALUE_LENGTH}
+     * @throws OutOfMemoryError if the direct memory limit would be
+     *         exceeded
+     * @throws UncheckedIOException if an I/O error occurs extending
+     *         the files of a mapped map
+     */
+    public boolean put(long key, ByteBuffer src) {
+        Table t = checkOpen();
+        int len = src.remaining();
+        if (len > ((valueSize == VARIABLE_LENGTH) ?
+                   MAX_VALUE_LENGTH : valueSize))
+            throw new IllegalArgumentException("Value too long: " + len);
+        beforeUpdate();
+        boolean added = false;
+        long i;
+        if ((i = t.indexOf(key)) < 0L) {
+            Table o; long j;
+            if ((o = oldTable) != null && (j = o.indexOf(key)) >= 0L) {
+                i = t.claim(key);
+                copySlot(o, j, t, i);
+                o.segment(j).putInt(o.position(j) + STATE, DELETED);
+            }
+            else {
+                if (t.used >= t.threshold)
+                    t = grow();
+                i = t.claim(key);
+                t.segment(i).putInt(t.position(i) + LENGTH, 0);
+                ++size;
+                added = true;
+            }
+        }
+        ByteBuffer seg = t.segment(i);
+        int p = t.position(i);
+        if (valueSize != VARIABLE_LENGTH)
+            copyIn(src, seg, p + PAYLOAD, len);
+        else {
+            int old = added ? -1 : seg.getInt(p + LENGTH);
+            long a;
+            if (old >= 0 && align(old) >= align(len))
+                a = seg.getLong(p + PAYLOAD);
+            else {
+                a = allocate(len);
+                seg.putLong(p + PAYLOAD, a);
+                if (old >= 0)
+                    garbage += align(old);
+            }
+            copyIn(src, data.segment(a), data.position(a), len);
+        }
+        seg.putInt(p + LENGTH, len);
+        return added;
+    }
+
+    /**
+     * Associates the given bytes with the specified key in this map,
+     * replacing any previous value.
+     *
+     * @param key the key
+     * @param src the array holding the value
+     * @param off the offset in {@code src} of the first byte of the value
+     * @param len the length of the value
+     * @return {@code true} if this map did not already contain a
+     *         mapping for the key
+     * @throws IndexOutOfBoundsException if {@code off} or {@code len}
+     *         do not designate a range of {@code src}
+     * @throws IllegalArgumentException if {@code len} exceeds the
+     *         value size of this map, or {@link #MAX_VALUE_LENGTH}
+     * @throws OutOfMemoryError if the direct memory limit would be
+     *         exceeded
+     * @throws UncheckedIOException if an I/O error occurs extending
+     *         the files of a mapped map
+     */
+    public boolean put(long key, byte[] src, int off, int len) {
+        return put(key, ByteBuffer.wrap(src, off, len));
+    }
+
+    /**
+     * Removes the mapping for the specified key from this map if
+     * present.
+     *
+     * @param key the key
+     * @return {@code true} if this map contained a mapping for the key
+     */
+    public boolean remove(long key) {
+        if (!containsKey(key))
+            return false;
+        beforeUpdate();        // may migrate key to the current table
+        Table t = table;
+        long i;
+        if ((i = t.indexOf(key)) >= 0L) {
+            release(t, i);
+            t.shift(i);
+        }
+        else {
+            i = (t = oldTable).indexOf(key);
+            release(t, i);
+            t.segment(i).putInt(t.position(i) + STATE, DELETED);
+        }
+        --size;
+        return true;
+    }
+
+    /**
+     * Removes all of the mappings from this map.  The memory, or
+     * files, held by the map are released and replaced with those of
+     * an empty map of the default initial capacity.
+     *
+     * @throws UncheckedIOException if an I/O error occurs replacing
+     *         the files of a mapped map
+     */
+    public void clear() {
+        Table t = checkOpen();
+        markDirty();
+        int gen = t.generation + 1;
+        Table o = oldTable;
+        oldTable = null;
+        table = newTable(capacityFor(DEFAULT_INITIAL_CAPACITY), gen);
+        t.release();
+        if (o != null)
+            o.release();
+        if (valueSize == VARIABLE_LENGTH) {
+            Region d = data;
+            data = newData(++dataGeneration);
+            d.release();
+            deleteQuietly(dataFile(dataGeneration - 1));
+        }
+        dataTop = garbage = 0L;
+        size = 0L;
+    }
+
+    /**
+     * Performs the given action for each key in this map, in no
+     * particular order.  The action must not modify this map.
+     *
+     * @param action the action to be performed for each key
+     * @throws NullPointerException if the action is null
+     */
+    public void forEachKey(LongConsumer action) {
+        Objects.requireNonNull(action);
+        Table t = checkOpen();
+        t.forEachKey(action);
+        if ((t = oldTable) != null)
+            t.forEachKey(action);
+    }
+
+    /**
+     * Returns the number of bytes of direct or mapped memory held by
+     * this map.
+     *
+     * @return the number of bytes held by this map
+     */
+    public long memoryUsed() {
+        Table t = checkOpen();
+        long n = t.region.bytes();
+        if ((t = oldTable) != null)
+            n += t.region.bytes();
+        if (data != null)
+            n += data.bytes();
+        return n;
+    }
+
+    /**
+     * Reclaims the space of removed or replaced values of a
+     * variable-length map, by copying all values into a new data area
+     * and releasing the old one.  This temporarily requires memory for
+     * both.  For a fixed-length map this method has no effect.
+     *
+     * @throws OutOfMemoryError if the direct memory limit would be
+     *         exceeded
+     * @throws UncheckedIOException if an I/O error occurs creating the
+     *         new data file of a mapped map
+     */
+    public void compact() {
+        Table t = checkOpen();
+        if (valueSize != VARIABLE_LENGTH || garbage == 0L)
+            return;
+        markDirty();
+        finishMigration();
+        Region from = data;
+        data = newData(++dataGeneration);
+        dataTop = garbage = 0L;
+        for (long i = 0L; i < t.capacity; ++i) {
+            ByteBuffer seg = t.segment(i);
+            int p = t.position(i);
+            if (seg.getInt(p + STATE) == USED) {
+                int len = seg.getInt(p + LENGTH);
+                long a = seg.getLong(p + PAYLOAD), b = allocate(len);
+                copy(from.segment(a), from.position(a),
+                     data.segment(b), data.position(b), align(len));
+                seg.putLong(p + PAYLOAD, b);
+            }
+        }
+        from.release();
+        deleteQuietly(dataFile(dataGeneration - 1));
+    }
+
+    /**
+     * For a map returned by {@link #open}, completes any resizing in
+     * progress and forces all changes to storage, after which the
+     * files can be reopened even if this map is never closed.  For
+     * other maps this method has no effect.
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    public void force() throws IOException {
+        checkOpen();
+        if (directory != null && dirty) {
+            try {
+                finishMigration();
+            } catch (UncheckedIOException ex) {
+                throw ex.getCause();
+            }
+            table.region.force();
+            if (data != null)
+                data.force();
+            writeHeader(true);
+            dirty = false;
+        }
+    }
+
+    /**
+     * Closes this map, releasing its memory.  A map returned by
+     * {@link #open} is first {@linkplain #force forced}.  Closing a
+     * closed map has no effect.
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    public void close() throws IOException {
+        if (table != null) {
+            try {
+                force();
+            } finally {
+                release();
+            }
+        }
+    }
+
+    // Internals
+
+    /**
+     * Returns the current table, throwing IllegalStateException if
+     * closed.
+     */
+    private Table checkOpen() {
+        Table t;
+        if ((t = table) == null)
+            throw new IllegalStateException("closed");
+        return t;
+    }
+
+    /**
+     * Marks a mapped map dirty and performs a migration step.  Called
+     * before each modification.
+     */
+    private void beforeUpdate() {
+        markDirty();
+        if (oldTable != null)
+            migrate(MIGRATE_STEP);
+    }
+
+    /**
+     * Clears the clean flag of a mapped map on its first modification
+     * after opening or forcing.
+     */
+    private void markDirty() {
+        if (directory != null && !dirty) {
+            try {
+                writeHeader(false);
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+            dirty = true;
+        }
+    }
+
+    /**
+     * Starts a resize, finishing any previous one first, and returns
+     * the new table.
+     */
+    private Table grow() {
+        finishMigration();
+        Table t = table;
+        if (t.capacity >= MAXIMUM_CAPACITY)
+            throw new OutOfMemoryError("Map capacity exceeded");
+        Table n = newTable(t.capacity << 1, t.generation + 1);
+        oldTable = t;
+        migrateIndex = 0L;
+        table = n;
+        return n;
+    }
+
+    /**
+     * Migrates up to n slots of oldTable into table, releasing
+     * oldTable if done.
+     */
+    private void migrate(long n) {
+        Table o = oldTable, t = table;
+        long i = migrateIndex, end = Math.min(o.capacity, i + n);
+        for (; i < end; ++i) {
+            ByteBuffer seg = o.segment(i);
+            int p = o.position(i);
+            if (seg.getInt(p + STATE) == USED) {
+                copySlot(o, i, t, t.claim(seg.getLong(p + KEY)));
+                seg.putInt(p + STATE, DELETED);
+            }
+        }
+        if ((migrateIndex = i) >= o.capacity) {
+            oldTable = null;
+            o.release();
+        }
+    }
+
+    private void finishMigration() {
+        Table o;
+        if ((o = oldTable) != null)
+            migrate(o.capacity);
+    }
+
+    /**
+     * Accounts for the value of slot i of t being discarded.
+     */
+    private void release(Table t, long i) {
+        if (valueSize == VARIABLE_LENGTH)
+            garbage += align(t.segment(i).getInt(t.position(i) + LENGTH));
+    }
+
+    /**
+     * Returns the address of space for a value of the given length in
+     * the data Region.
+     */
+    private long allocate(int len) {
+        long a = dataTop, n = align(len);
+        int off = data.position(a);
+        if (off + n > DATA_SEGMENT_SIZE) {
+            long skip = DATA_SEGMENT_SIZE - off;
+            garbage += skip;
+            a += skip;
+        }
+        data.ensureSegments((int)(a >>> DATA_SHIFT) + 1);
+        dataTop = a + n;
+        return a;
+    }
+
+    static int align(int len) {
+        return (len + 7) & ~7;
+    }
+
+    /**
+     * Copies slot i of table s to slot j of table t.
+     */
+    private void copySlot(Table s, long i, Table t, long j) {
+        copy(s.segment(i), s.position(i), t.segment(j), t.position(j),
+             slotSize);
+    }
+
+    /**
+     * Copies n bytes, a multiple of eight, between positions of two
+     * native-order segments.
+     */
+    static void copy(ByteBuffer src, int sp, ByteBuffer dst, int dp, int n) {
+        for (int end = sp + n; sp < end; sp += 8, dp += 8)
+            dst.putLong(dp, src.getLong(sp));
+    }
+
+    /**
+     * Copies len bytes from position p of a segment into dst, by
+     * longs if dst has the same (native) byte order.
+     */
+    static void copyOut(ByteBuffer seg, int p, ByteBuffer dst, int len) {
+        int end = p + len;
+        if (dst.order() == seg.order()) {
+            for (; end - p >= 8; p += 8)
+                dst.putLong(seg.getLong(p));
+        }
+        for (; p < end; ++p)
+            dst.put(seg.get(p));
+    }
+
+    /**
+     * Copies len bytes from src into a segment at position p, by
+     * longs if src has the same (native) byte order.
+     */
+    static void copyIn(ByteBuffer src, ByteBuffer seg, int p, int len) {
+        int end = p + len;
+        if (src.order() == seg.order()) {
+            for (; end - p >= 8; p += 8)
+                seg.putLong(p, src.getLong());
+        }
+        for (; p < end; ++p)
+            seg.put(p, src.get());
+    }
+
+    /**
+     * Releases all memory and closes all files, leaving this map
+     * closed.
+     */
+    private void release() {
+        Table t = table, o = oldTable;
+        Region d = data;
+        table = oldTable = null;
+        data = null;
+        if (t != null)
+            t.region.release();
+        if (o != null)
+            o.region.release();
+        if (d != null)
+            d.release();
+    }
+
+    /**
+     * Returns the index file of the given generation, or null if not
+     * mapped.
+     */
+    private Path indexFile(int generation) {
+        return (directory == null) ? null :
+            directory.resolve(INDEX_FILE + generation);
+    }
+
+    /**
+     * Returns the data file of the given generation, or null if not
+     * mapped.
+     */
+    private Path dataFile(int generation) {
+        return (directory == null) ? null :
+            directory.resolve(DATA_FILE + generation);
+    }
+
+    /**
+     * Returns a channel for the given file, or null if not mapped.
+     * If create, any existing file is truncated.
+     */
+    private FileChannel channel(Path file, boolean create) {
+        if (file == null)
+            return null;
+        try {
+            return create ?
+                FileChannel.open(file, StandardOpenOption.CREATE,
+                                 StandardOpenOption.TRUNCATE_EXISTING,
+                                 StandardOpenOption.READ,
+                                 StandardOpenOption.WRITE) :
+                FileChannel.open(file, StandardOpenOption.READ,
+                                 StandardOpenOption.WRITE);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private static void deleteQuietly(Path file) {
+        if (file != null) {
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException ignore) {
+            }
+        }
+    }
+
+    /**
+     * Creates an empty table with the given capacity.
+     */
+    private Table newTable(long capacity, int generation) {
+        int perSegment = (int)Math.min(capacity, maxSlotsPerSegment);
+        Path file = indexFile(generation);
+        Region r = new Region(perSegment * slotSize, channel(file, true), file);
+        try {
+            r.ensureSegments((int)(capacity / perSegment));
+        } catch (Error | RuntimeException ex) {
+            r.release();
+            throw ex;
+        }
+        return new Table(r, capacity, perSegment, slotSize, generation);
+    }
+
+    /**
+     * Creates an empty data Region.
+     */
+    private Region newData(int generation) {
+        Path file = dataFile(generation);
+        return new Region(DATA_SEGMENT_SIZE, channel(file, true), file);
+    }
+
+    /**
+     * Writes the header of a mapped map, with the given clean flag,
+     * and forces it to storage.
+     */
+    private void writeHeader(boolean clean) throws IOException {
+        Table t = table;
+        ByteBuffer h = ByteBuffer.allocate(HEADER_SIZE)
+            .order(ByteOrder.nativeOrder());
+        h.putLong(H_MAGIC, MAGIC)
+            .putInt(H_VALUE_SIZE, valueSize)
+            .putInt(H_INDEX_GEN, t.generation)
+            .putInt(H_DATA_GEN, dataGeneration)
+            .putInt(H_CLEAN, clean ? 1 : 0)
+            .putLong(H_CAPACITY, t.capacity)
+            .putLong(H_SIZE, size)
+            .putLong(H_DATA_TOP, dataTop)
+            .putLong(H_GARBAGE, garbage);
+        try (FileChannel ch = FileChannel.open
+             (directory.resolve(HEADER_FILE), StandardOpenOption.CREATE,
+              StandardOpenOption.WRITE)) {
+            while (h.hasRemaining())
+                ch.write(h, h.position());
+            ch.force(true);
+        }
+    }
+
+    /**
+     * Reinstates the state of a mapped map from its header and files.
+     */
+    private void restore() throws IOException {
+        ByteBuffer h = ByteBuffer.allocate(HEADER_SIZE)
+            .order(ByteOrder.nativeOrder());
+        try (FileChannel ch = FileChannel.open(directory.resolve(HEADER_FILE),
+                                               StandardOpenOption.READ)) {
+            while (h.hasRemaining() && ch.read(h, h.position()) >= 0)
+                ;
+        }
+        if (h.hasRemaining() || h.getLong(H_MAGIC) != MAGIC)
+            throw new IOException("Not a map: " + directory);
+        if (h.getInt(H_VALUE_SIZE) != valueSize)
+            throw new IOException("Value size mismatch: " +
+                                  h.getInt(H_VALUE_SIZE));
+        if (h.getInt(H_CLEAN) == 0)
+            throw new IOException("Map was not closed cleanly: " + directory);
+        int gen = h.getInt(H_INDEX_GEN);
+        long capacity = h.getLong(H_CAPACITY);
+        dataGeneration = h.getInt(H_DATA_GEN);
+        size = h.getLong(H_SIZE);
+        dataTop = h.getLong(H_DATA_TOP);
+        garbage = h.getLong(H_GARBAGE);
+        if (capacity < 16L || capacity > MAXIMUM_CAPACITY ||
+            Long.bitCount(capacity) != 1)
+            throw new IOException("Corrupt header: " + directory);
+
+        // leftovers of an interrupted resize or compaction
+        deleteQuietly(indexFile(gen + 1));
+        deleteQuietly(dataFile(dataGeneration + 1));
+
+        int perSegment = (int)Math.min(capacity, maxSlotsPerSegment);
+        Path file = indexFile(gen);
+        if (Files.size(file) < capacity * slotSize)
+            throw new IOException("Truncated index: " + file);
+        Region r = new Region(perSegment * slotSize, channel(file, false), file);
+        table = new Table(r, capacity, perSegment, slotSize, gen);
+        r.ensureSegments((int)(capacity / perSegment));
+        if (valueSize == VARIABLE_LENGTH) {
+            file = dataFile(dataGeneration);
+            if (!Files.exists(file))
+                throw new NoSuchFileException(file.toString());
+            data = new Region(DATA_SEGMENT_SIZE, channel(file, false), file);
+            data.ensureSegments((int)(dataTop >>> DATA_SHIFT) + 1);
+        }
+        // A forced table has no old table, hence no DELETED slots
+        table.used = size;
+    }
+
+    /**
+     * A growable array of equal-sized native-order segments, held in
+     * direct memory or mapped from a file.
+     */
+    static final class Region {
+        final int segmentSize;
+        final FileChannel channel;  // null for direct memory
+        final Path file;            // null for direct memory
+        ByteBuffer[] segments;
+        int count;
+
+        Region(int segmentSize, FileChannel channel, Path file) {
+            this.segmentSize = segmentSize;
+            this.channel = channel;
+            this.file = file;
+            this.segments = new ByteBuffer[1];
+        }
+
+        // Addressing of data Regions; Tables locate their own slots
+
+        ByteBuffer segment(long address) {
+            return segments[(int)(address >>> DATA_SHIFT)];
+        }
+
+        int position(long address) {
+            return (int)address & (DATA_SEGMENT_SIZE - 1);
+        }
+
+        long bytes() {
+            return (long)count * segmentSize;
+        }
+
+        /**
+         * Allocates or maps segments so that there are at least n.
+         */
+        void ensureSegments(int n) {
+            ByteBuffer[] segs = segments;
+            if (n > segs.length)
+                segments = segs = Arrays.copyOf
+                    (segs, Math.max(n, segs.length << 1));
+            for (int c; (c = count) < n; count = c + 1) {
+                ByteBuffer b;
+                if (channel == null)
+                    b = ByteBuffer.allocateDirect(segmentSize);
+                else {
+                    try {
+                        b = channel.map(FileChannel.MapMode.READ_WRITE,
+                                        (long)c * segmentSize, segmentSize);
+                    } catch (IOException ex) {
+                        throw new UncheckedIOException(ex);
+                    }
+                }
+                segs[c] = b.order(ByteOrder.nativeOrder());
+            }
+        }
+
+        void force() {
+            for (int i = 0; i < count; ++i)
+                ((MappedByteBuffer)segments[i]).force();
+        }
+
+        /**
+         * Frees or unmaps all segments without waiting for them to be
+         * collected, and closes the file.  The segments must not be
+         * used afterwards.
+         */
+        void release() {
+            ByteBuffer[] segs = segments;
+            int n = count;
+            segments = new ByteBuffer[1];
+            count = 0;
+            for (int i = 0; i < n; ++i) {
+                sun.misc.Cleaner c =
+                    ((sun.nio.ch.DirectBuffer)segs[i]).cleaner();
+                if (c != null)
+                    c.clean();
+            }
+            if (channel != null) {
+                try {
+                    channel.close();
+                } catch (IOException ignore) {
+                }
+            }
+        }
+    }
+
+    /**
+     * A hash table of slots held in a Region.
+     */
+    static final class Table {
+        final Region region;
+        final long capacity;
+        final long mask;
+        final int shift;         // log2 of slots per segment
+        final int segmentMask;   // slots per segment - 1
+        final int slotSize;
+        final int generation;
+        final long threshold;
+        long used;               // USED or DELETED slots
+
+        Table(Region region, long capacity, int slotsPerSegment,
+              int slotSize, int generation) {
+            this.region = region;
+            this.capacity = capacity;
+            this.mask = capacity - 1L;
+            this.shift = Integer.numberOfTrailingZeros(slotsPerSegment);
+            this.segmentMask = slotsPerSegment - 1;
+            this.slotSize = slotSize;
+            this.generation = generation;
+            this.threshold = Math.min(capacity - 1L,
+                                      (long)(capacity * LOAD_FACTOR));
+        }
+
+        ByteBuffer segment(long i) {
+            return region.segments[(int)(i >>> shift)];
+        }
+
+        int position(long i) {
+            return ((int)i & segmentMask) * slotSize;
+        }
+
+        long home(long key) {
+            return LongHashSet.hash(key) & mask;
+        }
+
+        /**
+         * Returns the index of the USED slot holding key, or -1.
+         */
+        long indexOf(long key) {
+            for (long i = home(key);; i = (i + 1L) & mask) {
+                ByteBuffer seg = segment(i);
+                int p = position(i), s = seg.getInt(p + STATE);
+                if (s == FREE)
+                    return -1L;
+                if (s == USED && seg.getLong(p + KEY) == key)
+                    return i;
+            }
+        }
+
+        /**
+         * Marks the first free slot on key's probe sequence used by
+         * key, and returns its index.  The key must be absent.
+         */
+        long claim(long key) {
+            for (long i = home(key);; i = (i + 1L) & mask) {
+                ByteBuffer seg = segment(i);
+                int p = position(i);
+                if (seg.getInt(p + STATE) == FREE) {
+                    seg.putLong(p + KEY, key);
+                    seg.putInt(p + STATE, USED);
+                    ++used;
+                    return i;
+                }
+            }
+        }
+
+        /**
+         * Clears slot i, moving back later slots of the same run as
+         * needed so that they remain reachable from their home slots.
+         * The table must not contain DELETED slots.
+         */
+        void shift(long i) {
+            for (long j = i;;) {
+                j = (j + 1L) & mask;
+                ByteBuffer seg = segment(j);
+                int p = position(j);
+                if (seg.getInt(p + STATE) == FREE)
+                    break;
+                long h = home(seg.getLong(p + KEY));
+                if (((j - h) & mask) >= ((j - i) & mask)) {
+                    copy(seg, p, segment(i), position(i), slotSize);
+                    i = j;
+                }
+            }
+            ByteBuffer seg = segment(i);
+            int p = position(i);
+            seg.putInt(p + STATE, FREE);
+            seg.putLong(p + KEY, 0L);
+            --used;
+        }
+
+        void forEachKey(LongConsumer action) {
+            for (long i = 0L; i < capacity; ++i) {
+                ByteBuffer seg = segment(i);
+                int p = position(i);
+                if (seg.getInt(p + STATE) == USED)
+                    action.accept(seg.getLong(p + KEY));
+            }
+        }
+
+        /**
+         * Releases the region and deletes its file, if any.
+         */
+        void release() {
+            region.release();
+            deleteQuietly(region.file);
+        }
+    }
+}
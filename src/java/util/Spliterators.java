@@ -649,6 +649,44 @@ public final class Spliterators {
         return new DoubleIteratorSpliterator(Objects.requireNonNull(iterator), characteristics);
     }
 
+    // Merging spliterators
+
+    /**
+     * Creates a {@code Spliterator} over the elements of the specified
+     * iterators, each of which must return its elements in ascending
+     * order according to the specified comparator, in ascending order
+     * according to that comparator.  Equal elements are encountered in
+     * the encounter order of the iterators in the specified collection,
+     * and in their original order within each iterator.
+     *
+     * <p>The spliterator reports {@link Spliterator#ORDERED} and {@link
+     * Spliterator#SORTED}, with the specified comparator as its {@link
+     * Spliterator#getComparator() comparator}.  It is not
+     * <em><a href="Spliterator.html#binding">late-binding</a></em>, and
+     * implements {@code trySplit} to permit limited parallelism, as does
+     * {@link #spliteratorUnknownSize(Iterator, int)}.
+     *
+     * <p>The first element of each iterator is read when this method is
+     * called.  The behaviour of splitting and traversal is undefined if
+     * any of the iterators is operated on after the spliterator is
+     * returned.
+     *
+     * @param <T> Type of elements
+     * @param iterators The iterators to be merged
+     * @param comparator The comparator determining the order of the
+     *        elements, or {@code null} for their
+     *        {@linkplain Comparable natural ordering}
+     * @return A spliterator over the merged elements
+     * @throws NullPointerException if {@code iterators} or any of its
+     *         elements is {@code null}
+     * @see Collections#mergeSorted(Collection, Comparator)
+     * @since 1.9
+     */
+    public static <T> Spliterator<T> mergingSpliterator(Collection<? extends Iterator<? extends T>> iterators,
+                                                        Comparator<? super T> comparator) {
+        return new ArraysMergeHelpers.MergingSpliterator<>(iterators, comparator);
+    }
+
     // Iterators from Spliterators
 
     /**
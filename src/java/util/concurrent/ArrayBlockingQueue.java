@@ -715,44 +715,147 @@ public class ArrayBlockingQueue<E> extends AbstractQueue<E>
             throw new IllegalArgumentException();
         if (maxElements <= 0)
             return 0;
-        final Object[] items = this.items;
         final ReentrantLock lock = this.lock;
         lock.lock();
         try {
-            int n = Math.min(maxElements, count);
-            int take = takeIndex;
-            int i = 0;
-            try {
-                while (i < n) {
-                    @SuppressWarnings("unchecked")
-                    E x = (E) items[take];
-                    c.add(x);
-                    items[take] = null;
-                    if (++take == items.length)
-                        take = 0;
-                    i++;
+            return drainLocked(c, maxElements);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Transfers at most maxElements elements to c, restoring invariants
+     * and signalling waiting producers once for the whole batch.
+     * Call only when holding lock.
+     */
+    private int drainLocked(Collection<? super E> c, int maxElements) {
+        // assert lock.getHoldCount() == 1;
+        final Object[] items = this.items;
+        int n = Math.min(maxElements, count);
+        int take = takeIndex;
+        int i = 0;
+        try {
+            while (i < n) {
+                @SuppressWarnings("unchecked")
+                E x = (E) items[take];
+                c.add(x);
+                items[take] = null;
+                if (++take == items.length)
+                    take = 0;
+                i++;
+            }
+            return n;
+        } finally {
+            // Restore invariants even if c.add() threw
+            if (i > 0) {
+                count -= i;
+                takeIndex = take;
+                if (itrs != null) {
+                    if (count == 0)
+                        itrs.queueIsEmpty();
+                    else if (i > take)
+                        itrs.takeIndexWrapped();
                 }
-                return n;
-            } finally {
-                // Restore invariants even if c.add() threw
-                if (i > 0) {
-                    count -= i;
-                    takeIndex = take;
-                    if (itrs != null) {
-                        if (count == 0)
-                            itrs.queueIsEmpty();
-                        else if (i > take)
-                            itrs.takeIndexWrapped();
-                    }
-                    for (; i > 0 && lock.hasWaiters(notFull); i--)
-                        notFull.signal();
+                for (; i > 0 && lock.hasWaiters(notFull); i--)
+                    notFull.signal();
+            }
+        }
+    }
+
+    /**
+     * Inserts the elements of the specified collection at the tail of
+     * this queue, waiting up to the specified wait time for space to
+     * become available if the queue is full.  The lock is acquired
+     * once for the whole batch, and waiting consumers are signalled
+     * once per batch rather than once per element.
+     *
+     * @throws InterruptedException {@inheritDoc}
+     * @throws NullPointerException {@inheritDoc}
+     * @throws IllegalArgumentException {@inheritDoc}
+     * @since 1.9
+     */
+    public int offerAll(Collection<? extends E> c, long timeout,
+                        TimeUnit unit) throws InterruptedException {
+        checkNotNull(c);
+        if (c == this)
+            throw new IllegalArgumentException();
+        long nanos = unit.toNanos(timeout);
+        final Object[] items = this.items;
+        final ReentrantLock lock = this.lock;
+        lock.lockInterruptibly();
+        int n = 0, added = 0;
+        try {
+            for (E e : c) {
+                checkNotNull(e);
+                while (count == items.length) {
+                    // Wake consumers of the batch so far before blocking
+                    signalNotEmpty(added);
+                    added = 0;
+                    if (nanos <= 0)
+                        return n;
+                    nanos = notFull.awaitNanos(nanos);
                 }
+                items[putIndex] = e;
+                if (++putIndex == items.length)
+                    putIndex = 0;
+                count++;
+                n++;
+                added++;
+            }
+            return n;
+        } finally {
+            signalNotEmpty(added);
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Removes at most the given number of elements from this queue,
+     * waiting up to the specified wait time for one to become
+     * available.  The lock is acquired once for the whole batch, and
+     * waiting producers are signalled once per batch rather than once
+     * per element.
+     *
+     * @throws InterruptedException {@inheritDoc}
+     * @throws UnsupportedOperationException {@inheritDoc}
+     * @throws ClassCastException            {@inheritDoc}
+     * @throws NullPointerException          {@inheritDoc}
+     * @throws IllegalArgumentException      {@inheritDoc}
+     * @since 1.9
+     */
+    public int pollBatch(Collection<? super E> c, int maxElements,
+                         long timeout, TimeUnit unit)
+        throws InterruptedException {
+        checkNotNull(c);
+        if (c == this)
+            throw new IllegalArgumentException();
+        if (maxElements <= 0)
+            return 0;
+        long nanos = unit.toNanos(timeout);
+        final ReentrantLock lock = this.lock;
+        lock.lockInterruptibly();
+        try {
+            while (count == 0) {
+                if (nanos <= 0)
+                    return 0;
+                nanos = notEmpty.awaitNanos(nanos);
             }
+            return drainLocked(c, maxElements);
         } finally {
             lock.unlock();
         }
     }
 
+    /**
+     * Signals up to k consumers waiting on notEmpty.
+     * Call only when holding lock.
+     */
+    private void signalNotEmpty(int k) {
+        for (; k > 0 && lock.hasWaiters(notEmpty); k--)
+            notEmpty.signal();
+    }
+
     /**
      * Returns an iterator over the elements in this queue in proper sequence.
      * The elements will be returned in order from first (head) to last (tail).
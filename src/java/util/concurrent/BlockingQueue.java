@@ -373,4 +373,115 @@ public interface BlockingQueue<E> extends Queue<E> {
      *         it from being added to the specified collection
      */
     int drainTo(Collection<? super E> c, int maxElements);
+
+    /**
+     * Inserts the elements of the given collection into this queue,
+     * in the order returned by its iterator, waiting up to the
+     * specified wait time if necessary for space to become available.
+     * Elements are inserted in order, so the elements transferred are
+     * always the first ones returned by the collection's iterator;
+     * if the wait time elapses before all of them could be inserted,
+     * the remaining elements are left untransferred.  If the current
+     * thread is interrupted while waiting, any elements already
+     * inserted remain in this queue.  The behavior of this operation
+     * is undefined if the specified collection is modified while the
+     * operation is in progress.
+     *
+     * <p>Implementations are encouraged to override this method to
+     * insert the whole batch under a single acquisition of their
+     * internal lock, waking waiting consumers once per batch rather
+     * than once per element.
+     *
+     * @implSpec
+     * The default implementation invokes {@link #offer(Object, long,
+     * TimeUnit)} for each element in turn, with the time remaining
+     * until the overall deadline.
+     *
+     * @param c the elements to insert
+     * @param timeout how long to wait before giving up, in units of
+     *        {@code unit}
+     * @param unit a {@code TimeUnit} determining how to interpret the
+     *        {@code timeout} parameter
+     * @return the number of elements inserted
+     * @throws InterruptedException if interrupted while waiting
+     * @throws ClassCastException if the class of an element
+     *         prevents it from being added to this queue
+     * @throws NullPointerException if the specified collection or any
+     *         of its elements is null
+     * @throws IllegalArgumentException if the specified collection is
+     *         this queue, or some property of an element prevents it
+     *         from being added to this queue
+     * @since 1.9
+     */
+    default int offerAll(Collection<? extends E> c, long timeout,
+                         TimeUnit unit) throws InterruptedException {
+        if (c == null)
+            throw new NullPointerException();
+        if (c == this)
+            throw new IllegalArgumentException();
+        final long deadline = System.nanoTime() + unit.toNanos(timeout);
+        int n = 0;
+        for (E e : c) {
+            if (!offer(e, deadline - System.nanoTime(), TimeUnit.NANOSECONDS))
+                break;
+            ++n;
+        }
+        return n;
+    }
+
+    /**
+     * Removes at most the given number of elements from this queue
+     * and adds them to the given collection, waiting up to the
+     * specified wait time if necessary for at least one element to
+     * become available.  Once an element is available, no further
+     * waiting is performed: the batch consists of that element
+     * together with any others immediately available.  The same
+     * caveats as for {@link #drainTo(Collection, int)} apply to
+     * failures encountered while adding elements to {@code c}.
+     *
+     * <p>Implementations are encouraged to override this method to
+     * remove the whole batch under a single acquisition of their
+     * internal lock, waking waiting producers once per batch rather
+     * than once per element.
+     *
+     * @implSpec
+     * The default implementation invokes {@link #poll(long, TimeUnit)}
+     * and, if an element is returned, adds it to {@code c} and then
+     * invokes {@link #drainTo(Collection, int)} for the remainder.
+     *
+     * @param c the collection to transfer elements into
+     * @param maxElements the maximum number of elements to transfer
+     * @param timeout how long to wait before giving up, in units of
+     *        {@code unit}
+     * @param unit a {@code TimeUnit} determining how to interpret the
+     *        {@code timeout} parameter
+     * @return the number of elements transferred, or zero if the
+     *         specified waiting time elapses before an element is
+     *         available
+     * @throws InterruptedException if interrupted while waiting
+     * @throws UnsupportedOperationException if addition of elements
+     *         is not supported by the specified collection
+     * @throws ClassCastException if the class of an element of this queue
+     *         prevents it from being added to the specified collection
+     * @throws NullPointerException if the specified collection is null
+     * @throws IllegalArgumentException if the specified collection is this
+     *         queue, or some property of an element of this queue prevents
+     *         it from being added to the specified collection
+     * @since 1.9
+     */
+    default int pollBatch(Collection<? super E> c, int maxElements,
+                          long timeout, TimeUnit unit)
+        throws InterruptedException {
+        if (c == null)
+            throw new NullPointerException();
+        if (c == this)
+            throw new IllegalArgumentException();
+        if (maxElements <= 0)
+            return 0;
+        E e = poll(timeout, unit);
+        if (e == null)
+            return 0;
+        c.add(e);
+        return 1 + drainTo(c, maxElements - 1);
+    }
 }
@@ -0,0 +1,1116 @@
+/*
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+package java.util.concurrent;
+
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.ToIntBiFunction;
+
+/**
+ * A bounded, concurrent cache built on a {@link ConcurrentHashMap}.
+ * Entries are evicted when the cache exceeds its maximum size (or
+ * total weight), and may additionally expire a fixed duration after
+ * they were written or last accessed.  Instances are configured and
+ * created using a {@link Builder}:
+ *
+ *  <pre> {@code
+ * ConcurrentCache<Key, Graph> graphs = new ConcurrentCache.Builder()
+ *     .maximumSize(10_000)
+ *     .expireAfterWrite(10, TimeUnit.MINUTES)
+ *     .build();
+ * Graph g = graphs.computeIfAbsent(key, k -> createExpensiveGraph(k));}</pre>
+ *
+ * <p>Retrievals never block and never acquire a lock: reads are
+ * served directly from the underlying map, and the resulting updates
+ * to the eviction order are recorded in per-thread-striped buffers
+ * that are drained in batches.  Because these buffers are lossy, an
+ * access under heavy contention may occasionally go unrecorded; this
+ * affects only the quality of eviction decisions, never the results
+ * of operations.  Insertions, updates and removals are likewise
+ * applied to the eviction policy in batches, by whichever thread
+ * next acquires the (internal) policy lock without waiting.
+ *
+ * <p>When the cache is full, the victim is chosen by a policy that
+ * combines recency and frequency ("Window TinyLFU").  New entries
+ * first enter a small LRU admission window.  Entries leaving the
+ * window are admitted to the main LRU region only if a compact
+ * frequency sketch of recent accesses estimates that they are used
+ * more often than the entry that would otherwise be evicted.  This
+ * resists pollution of the cache by scans and by one-hit wonders,
+ * while the window still allows bursts of new entries to establish
+ * themselves.
+ *
+ * <p>Size and weight bounds are enforced eventually rather than
+ * immediately, so the cache may briefly exceed its maximum.  Expired
+ * entries are never returned, but may continue to occupy space
+ * (and count towards {@link #size}) until removed by routine
+ * maintenance, which can be forced by {@link #cleanUp}.
+ *
+ * <p>Like {@link ConcurrentHashMap}, this class does <em>not</em>
+ * allow {@code null} to be used as a key or value.
+ *
+ * @since 1.9
+ * @param <K> the type of keys maintained by this cache
+ * @param <V> the type of cached values
+ */
+public class ConcurrentCache<K,V> {
+
+    /*
+     * Overview:
+     *
+     * The cache is a ConcurrentHashMap from keys to Nodes, plus an
+     * eviction "policy" consisting of linked lists threaded through
+     * the Nodes, a frequency sketch, and running weight totals. The
+     * map is always authoritative; the policy lags it and is only
+     * ever touched while holding evictionLock, so needs no further
+     * synchronization.
+     *
+     * Reads record the node in a ReadStripe (a small lossy ring
+     * buffer, one of several selected by the ThreadLocalRandom probe
+     * as in Striped64), dropping the record if the stripe is full or
+     * contended.  Writes enqueue a task describing the change on the
+     * (unbounded, non-lossy) writeBuffer.  Either way, the thread
+     * then tries to acquire evictionLock without blocking and, if it
+     * succeeds, "maintains" the policy: it replays buffered reads and
+     * writes, expires and evicts.  The drainStatus field ensures that
+     * write tasks are not stranded when a writer's tryLock fails
+     * because another thread is just finishing maintenance: the
+     * writer publishes REQUIRED before trying the lock, and the
+     * maintaining thread only resets it to IDLE by CAS from
+     * PROCESSING, and rechecks it after releasing the lock.
+     *
+     * Policy tasks may be replayed in a different order than the
+     * corresponding map operations (for example, a node's removal
+     * task may be processed before its addition task), so each Node
+     * records its policy "queue": NEW until added, WINDOW or MAIN
+     * while linked, and DEAD once removed, after which all further
+     * tasks for it are ignored.
+     *
+     * Values are updated in place (synchronizing on the node to
+     * serialize concurrent writers of the same key), so that a node's
+     * position and frequency survive updates.  Expired entries are
+     * treated as absent by all operations, and physically removed
+     * either by maintenance (which walks the access- or write-order
+     * lists from their oldest ends) or by a write that replaces them.
+     *
+     * The eviction policy is a simplified form of W-TinyLFU: about
+     * 1% of the maximum is given to an LRU admission window and the
+     * rest to an LRU main region.  Nodes pushed out of the window in
+     * a round of maintenance become "candidates" at the tail of the
+     * main list.  While over the maximum, the candidate at hand is
+     * compared with the main region's LRU victim by sketched
+     * frequency; the loser is evicted.  The FrequencySketch is a
+     * 4-bit count-min sketch that is periodically halved so that
+     * it reflects recent history.  Resizing the sketch discards its
+     * counts, so it is sized once the cache is half full: to the
+     * maximum if entries are not weighted, or else to the number of
+     * entries, regrowing only if that increases.
+     */
+
+    /** Policy queue states of a Node, guarded by evictionLock */
+    static final int NEW = 0, WINDOW = 1, MAIN = 2, DEAD = 3;
+
+    /** Drain status values */
+    static final int IDLE = 0, REQUIRED = 1, PROCESSING = 2;
+
+    /** Number of elements in each read stripe; must be a power of two */
+    static final int READ_STRIPE_SIZE = 16;
+
+    /** Number of CPUS, to bound the number of read stripes */
+    static final int NCPU = Runtime.getRuntime().availableProcessors();
+
+    /** The underlying map */
+    final ConcurrentHashMap<K,Node<K,V>> map;
+
+    /** Loads in progress by computeIfAbsent */
+    final ConcurrentHashMap<K,CompletableFuture<V>> loading;
+
+    /** Weigher, or null if entries all have weight one */
+    final ToIntBiFunction<? super K, ? super V> weigher;
+
+    /** Maximum total weight, or Long.MAX_VALUE if unbounded */
+    final long maximum;
+
+    /** Maximum total weight of the admission window */
+    final long windowMaximum;
+
+    /** Expiration durations in nanoseconds, or 0 if not expiring */
+    final long expireAfterWriteNanos;
+    final long expireAfterAccessNanos;
+
+    /** Buffered reads */
+    final ReadStripe[] readStripes;
+
+    /** Buffered policy changes for writes */
+    final ConcurrentLinkedQueue<Runnable> writeBuffer;
+
+    /** Lock guarding the eviction policy */
+    final ReentrantLock evictionLock;
+
+    volatile int drainStatus;
+
+    final LongAdder hits, misses, evictions;
+
+    // Policy state, guarded by evictionLock
+
+    final AccessOrderList<K,V> window, main;
+    final WriteOrderList<K,V> writeOrder;
+    final FrequencySketch sketch;
+    volatile long weightedSize;
+    long windowWeightedSize;
+
+    ConcurrentCache(Builder b) {
+        this.map = new ConcurrentHashMap<K,Node<K,V>>(b.initialCapacity);
+        this.loading = new ConcurrentHashMap<K,CompletableFuture<V>>();
+        @SuppressWarnings("unchecked") ToIntBiFunction<? super K, ? super V>
+            w = (ToIntBiFunction<? super K, ? super V>) b.weigher;
+        this.weigher = w;
+        long max = (b.maximumWeight >= 0L) ? b.maximumWeight :
+            (b.maximumSize >= 0L) ? b.maximumSize : Long.MAX_VALUE;
+        this.maximum = max;
+        this.windowMaximum = (max == Long.MAX_VALUE) ? max :
+            Math.max(1L, max / 100L);
+        this.expireAfterWriteNanos = b.expireAfterWriteNanos;
+        this.expireAfterAccessNanos = b.expireAfterAccessNanos;
+        int n = 1;
+        while (n < NCPU && n < 64)
+            n <<= 1;
+        ReadStripe[] rs = new ReadStripe[n];
+        for (int i = 0; i < n; ++i)
+            rs[i] = new ReadStripe();
+        this.readStripes = rs;
+        this.writeBuffer = new ConcurrentLinkedQueue<Runnable>();
+        this.evictionLock = new ReentrantLock();
+        this.hits = new LongAdder();
+        this.misses = new LongAdder();
+        this.evictions = new LongAdder();
+        this.window = new AccessOrderList<K,V>();
+        this.main = new AccessOrderList<K,V>();
+        this.writeOrder = new WriteOrderList<K,V>();
+        this.sketch = (max == Long.MAX_VALUE) ? null : new FrequencySketch();
+    }
+
+    /**
+     * Builds {@link ConcurrentCache} instances.  Each configuration
+     * method may be invoked at most once.  By default, a cache is
+     * unbounded and entries do not expire.
+     *
+     * @since 1.9
+     */
+    public static final class Builder {
+        int initialCapacity = 16;
+        long maximumSize = -1L, maximumWeight = -1L;
+        ToIntBiFunction<?,?> weigher;
+        long expireAfterWriteNanos, expireAfterAccessNanos;
+
+        /**
+         * Creates a new builder with default settings.
+         */
+        public Builder() {}
+
+        /**
+         * Sets the initial capacity of the underlying map.
+         *
+         * @param initialCapacity the initial capacity
+         * @return this builder
+         * @throws IllegalArgumentException if initialCapacity is negative
+         */
+        public Builder initialCapacity(int initialCapacity) {
+            if (initialCapacity < 0)
+                throw new IllegalArgumentException();
+            this.initialCapacity = initialCapacity;
+            return this;
+        }
+
+        /**
+         * Bounds the number of entries in the cache.
+         *
+         * @param maximumSize the maximum number of entries
+         * @return this builder
+         * @throws IllegalArgumentException if maximumSize is negative
+         * @throws IllegalStateException if a maximum size or weight
+         *         has already been set
+         */
+        public Builder maximumSize(long maximumSize) {
+            if (maximumSize < 0L)
+                throw new IllegalArgumentException();
+            if (this.maximumSize >= 0L || maximumWeight >= 0L)
+                throw new IllegalStateException();
+            this.maximumSize = maximumSize;
+            return this;
+        }
+
+        /**
+         * Bounds the total weight of the entries in the cache, where
+         * the weight of each entry is determined by the given weigher
+         * when it is written.  Weights are relative, and need not be
+         * related to memory footprint.
+         *
+         * @param maximumWeight the maximum total weight
+         * @param weigher the function computing the weight of an
+         *        entry, which must be non-negative
+         * @return this builder
+         * @throws IllegalArgumentException if maximumWeight is negative
+         * @throws NullPointerException if weigher is null
+         * @throws IllegalStateException if a maximum size or weight
+         *         has already been set
+         */
+        public Builder maximumWeight(long maximumWeight,
+                                     ToIntBiFunction<?,?> weigher) {
+            if (maximumWeight < 0L)
+                throw new IllegalArgumentException();
+            if (weigher == null)
+                throw new NullPointerException();
+            if (maximumSize >= 0L || this.maximumWeight >= 0L)
+                throw new IllegalStateException();
+            this.maximumWeight = maximumWeight;
+            this.weigher = weigher;
+            return this;
+        }
+
+        /**
+         * Causes entries to expire once the given duration has
+         * elapsed since they were created or last updated.
+         *
+         * @param duration the duration
+         * @param unit the unit of the duration
+         * @return this builder
+         * @throws IllegalArgumentException if duration is not positive
+         * @throws IllegalStateException if already set
+         */
+        public Builder expireAfterWrite(long duration, TimeUnit unit) {
+            long nanos = unit.toNanos(duration);
+            if (nanos <= 0L)
+                throw new IllegalArgumentException();
+            if (expireAfterWriteNanos != 0L)
+                throw new IllegalStateException();
+            expireAfterWriteNanos = nanos;
+            return this;
+        }
+
+        /**
+         * Causes entries to expire once the given duration has
+         * elapsed since they were created, last updated, or last
+         * read.
+         *
+         * @param duration the duration
+         * @param unit the unit of the duration
+         * @return this builder
+         * @throws IllegalArgumentException if duration is not positive
+         * @throws IllegalStateException if already set
+         */
+        public Builder expireAfterAccess(long duration, TimeUnit unit) {
+            long nanos = unit.toNanos(duration);
+            if (nanos <= 0L)
+                throw new IllegalArgumentException();
+            if (expireAfterAccessNanos != 0L)
+                throw new IllegalStateException();
+            expireAfterAccessNanos = nanos;
+            return this;
+        }
+
+        /**
+         * Returns a new cache with this builder's configuration.
+         *
+         * @param <K> the type of keys
+         * @param <V> the type of values; if a weigher was supplied,
+         *        it must accept keys and values of these types
+         * @return the cache
+         */
+        public <K,V> ConcurrentCache<K,V> build() {
+            return new ConcurrentCache<K,V>(this);
+        }
+    }
+
+    /* ---------------- Nodes and policy lists -------------- */
+
+    /**
+     * A cache entry.  The value, weight and timestamps are written by
+     * map operations; the remaining fields are policy state, guarded
+     * by evictionLock.
+     */
+    static final class Node<K,V> {
+        final K key;
+        volatile V value;
+        volatile int weight;
+        volatile long writeTime;
+        volatile long accessTime;   // written with putOrderedLong
+        int policyWeight;
+        int queue;
+        Node<K,V> prev, next;       // access order
+        Node<K,V> prevW, nextW;     // write order
+
+        Node(K key, V value, int weight, long now) {
+            this.key = key;
+            this.value = value;
+            this.weight = weight;
+            this.writeTime = now;
+            this.accessTime = now;
+        }
+    }
+
+    /** A doubly-linked list of nodes in access order */
+    static final class AccessOrderList<K,V> {
+        Node<K,V> first, last;
+
+        void linkLast(Node<K,V> x) {
+            Node<K,V> l = last;
+            x.prev = l;
+            x.next = null;
+            last = x;
+            if (l == null)
+                first = x;
+            else
+                l.next = x;
+        }
+
+        void unlink(Node<K,V> x) {
+            Node<K,V> p = x.prev, n = x.next;
+            if (p == null)
+                first = n;
+            else
+                p.next = n;
+            if (n == null)
+                last = p;
+            else
+                n.prev = p;
+            x.prev = x.next = null;
+        }
+
+        void moveToLast(Node<K,V> x) {
+            if (x != last) {
+                unlink(x);
+                linkLast(x);
+            }
+        }
+    }
+
+    /** A doubly-linked list of nodes in write order */
+    static final class WriteOrderList<K,V> {
+        Node<K,V> first, last;
+
+        void linkLast(Node<K,V> x) {
+            Node<K,V> l = last;
+            x.prevW = l;
+            x.nextW = null;
+            last = x;
+            if (l == null)
+                first = x;
+            else
+                l.nextW = x;
+        }
+
+        void unlink(Node<K,V> x) {
+            Node<K,V> p = x.prevW, n = x.nextW;
+            if (p == null)
+                first = n;
+            else
+                p.nextW = n;
+            if (n == null)
+                last = p;
+            else
+                n.prevW = p;
+            x.prevW = x.nextW = null;
+        }
+
+        void moveToLast(Node<K,V> x) {
+            if (x != last) {
+                unlink(x);
+                linkLast(x);
+            }
+        }
+    }
+
+    /**
+     * A 4-bit count-min sketch estimating the recent access frequency
+     * of keys, in 64-bit words each holding sixteen counters.  Each
+     * key maps to one counter in each of four words, chosen from a
+     * block of four counters per word by the key's hash.  After a
+     * sample of additions proportional to the table size, all
+     * counters are halved, so that estimates favour recent history.
+     */
+    static final class FrequencySketch {
+        static final long[] SEED = { // from FNV-1a, CityHash and Murmur3
+            0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L,
+            0x9ae16a3b2f90404fL, 0xcbf29ce484222325L };
+        static final long RESET_MASK = 0x7777777777777777L;
+        static final long ONE_MASK = 0x1111111111111111L;
+
+        long[] table = new long[16];
+        int sampleSize = 160;
+        int size;
+
+        /** Grows the table, if necessary, to track the given number of keys */
+        void ensureCapacity(long keys) {
+            int n = (int)Math.min(keys, 1L << 24);
+            if (n > table.length) {
+                int cap = table.length;
+                while (cap < n)
+                    cap <<= 1;
+                table = new long[cap];
+                sampleSize = 10 * cap;
+                size = 0;
+            }
+        }
+
+        int frequency(Object key) {
+            int h = spread(key.hashCode());
+            int start = (h & 3) << 2;
+            int f = 15;
+            for (int i = 0; i < 4; ++i) {
+                long word = table[indexOf(h, i)];
+                int count = (int)((word >>> ((start + i) << 2)) & 0xfL);
+                if (count < f)
+                    f = count;
+            }
+            return f;
+        }
+
+        void increment(Object key) {
+            int h = spread(key.hashCode());
+            int start = (h & 3) << 2;
+            boolean added = false;
+            for (int i = 0; i < 4; ++i)
+                added |= incrementAt(indexOf(h, i), start + i);
+            if (added && ++size >= sampleSize)
+                reset();
+        }
+
+        private boolean incrementAt(int i, int j) {
+            int offset = j << 2;
+            long mask = 0xfL << offset;
+            if ((table[i] & mask) != mask) {
+                table[i] += 1L << offset;
+                return true;
+            }
+            return false;
+        }
+
+        private int indexOf(int h, int i) {
+            long hash = (h + SEED[i]) * SEED[i];
+            hash += hash >>> 32;
+            return (int)hash & (table.length - 1);
+        }
+
+        /** Halves every counter, adjusting for truncation */
+        private void reset() {
+            long[] t = table;
+            int odd = 0;
+            for (int i = 0; i < t.length; ++i) {
+                odd += Long.bitCount(t[i] & ONE_MASK);
+                t[i] = (t[i] >>> 1) & RESET_MASK;
+            }
+            size = (size - (odd >>> 2)) >>> 1;
+        }
+
+        static int spread(int h) {
+            h = ((h >>> 16) ^ h) * 0x45d9f3b;
+            h = ((h >>> 16) ^ h) * 0x45d9f3b;
+            return (h >>> 16) ^ h;
+        }
+    }
+
+    /**
+     * A lossy ring buffer of recently read nodes.  Any thread may
+     * add by CAS; only the thread holding evictionLock removes.
+     */
+    @sun.misc.Contended static final class ReadStripe {
+        final Object[] slots = new Object[READ_STRIPE_SIZE];
+        volatile long writeCount;
+        volatile long readCount;
+    }
+
+    /* ---------------- Policy tasks -------------- */
+
+    /** Adds a newly mapped node to the policy */
+    final class AddTask implements Runnable {
+        final Node<K,V> node;
+        AddTask(Node<K,V> node) { this.node = node; }
+        public void run() {
+            Node<K,V> x = node;
+            if (x.queue == NEW) {
+                int w = x.policyWeight = x.weight;
+                x.queue = WINDOW;
+                window.linkLast(x);
+                if (expireAfterWriteNanos != 0L)
+                    writeOrder.linkLast(x);
+                weightedSize += w;
+                windowWeightedSize += w;
+                if (sketch != null) {
+                    if (weightedSize >= (maximum >>> 1))
+                        sketch.ensureCapacity((weigher == null) ? maximum :
+                                              map.mappingCount());
+                    sketch.increment(x.key);
+                }
+            }
+        }
+    }
+
+    /** Records an in-place update of a node */
+    final class UpdateTask implements Runnable {
+        final Node<K,V> node;
+        UpdateTask(Node<K,V> node) { this.node = node; }
+        public void run() {
+            Node<K,V> x = node;
+            int q = x.queue;
+            if (q == WINDOW || q == MAIN) {
+                int w = x.weight, delta = w - x.policyWeight;
+                x.policyWeight = w;
+                weightedSize += delta;
+                if (q == WINDOW) {
+                    windowWeightedSize += delta;
+                    window.moveToLast(x);
+                }
+                else
+                    main.moveToLast(x);
+                if (expireAfterWriteNanos != 0L)
+                    writeOrder.moveToLast(x);
+                if (sketch != null)
+                    sketch.increment(x.key);
+            }
+        }
+    }
+
+    /** Removes a node that has been removed from the map */
+    final class RemovalTask implements Runnable {
+        final Node<K,V> node;
+        RemovalTask(Node<K,V> node) { this.node = node; }
+        public void run() {
+            unlinkFromPolicy(node);
+        }
+    }
+
+    /* ---------------- Maintenance -------------- */
+
+    final long ticker() {
+        return (expireAfterWriteNanos | expireAfterAccessNanos) == 0L ?
+            0L : System.nanoTime();
+    }
+
+    final boolean hasExpired(Node<K,V> x, long now) {
+        long d;
+        return (((d = expireAfterWriteNanos) != 0L &&
+                 now - x.writeTime >= d) ||
+                ((d = expireAfterAccessNanos) != 0L &&
+                 now - x.accessTime >= d));
+    }
+
+    final int weigh(K key, V value) {
+        ToIntBiFunction<? super K, ? super V> w;
+        if ((w = weigher) == null)
+            return 1;
+        int weight = w.applyAsInt(key, value);
+        if (weight < 0)
+            throw new IllegalArgumentException();
+        return weight;
+    }
+
+    /**
+     * Records a read of the given node, and performs maintenance if
+     * its read stripe has filled.
+     */
+    final void afterRead(Node<K,V> x, long now) {
+        if (expireAfterAccessNanos != 0L)
+            U.putOrderedLong(x, ACCESSTIME, now);
+        int h;
+        if ((h = ThreadLocalRandom.getProbe()) == 0) {
+            ThreadLocalRandom.localInit(); // force initialization
+            h = ThreadLocalRandom.getProbe();
+        }
+        ReadStripe[] rs = readStripes;
+        ReadStripe s = rs[h & (rs.length - 1)];
+        long w = s.writeCount, r = s.readCount, n = w - r;
+        if (n < READ_STRIPE_SIZE) {
+            if (U.compareAndSwapLong(s, WRITECOUNT, w, w + 1L)) {
+                U.putOrderedObject
+                    (s.slots, ((long)((int)w & (READ_STRIPE_SIZE - 1))
+                               << ASHIFT) + ABASE, x);
+                if (n < READ_STRIPE_SIZE - 1 && drainStatus != REQUIRED)
+                    return;
+            }
+            else {
+                ThreadLocalRandom.advanceProbe(h); // move on; drop record
+                return;
+            }
+        }
+        tryToMaintain();
+    }
+
+    /**
+     * Enqueues a policy task for a write, and performs maintenance
+     * unless another thread is doing so.
+     */
+    final void afterWrite(Runnable task) {
+        writeBuffer.add(task);
+        drainStatus = REQUIRED;
+        tryToMaintain();
+    }
+
+    /**
+     * Performs maintenance if evictionLock is available, repeating
+     * while further maintenance has been requested.
+     */
+    final void tryToMaintain() {
+        final ReentrantLock lock = evictionLock;
+        while (lock.tryLock()) {
+            try {
+                do {
+                    drainStatus = PROCESSING;
+                    maintain();
+                } while (!U.compareAndSwapInt(this, DRAINSTATUS,
+                                              PROCESSING, IDLE));
+            } finally {
+                lock.unlock();
+            }
+            if (drainStatus != REQUIRED)
+                break;
+        }
+    }
+
+    /** Replays buffered reads and writes, then expires and evicts */
+    final void maintain() {
+        // assert evictionLock.isHeldByCurrentThread();
+        for (ReadStripe s : readStripes)
+            drainReadStripe(s);
+        for (Runnable task; (task = writeBuffer.poll()) != null; )
+            task.run();
+        if ((expireAfterWriteNanos | expireAfterAccessNanos) != 0L)
+            expireEntries(System.nanoTime());
+        if (sketch != null)
+            evictEntries();
+    }
+
+    final void drainReadStripe(ReadStripe s) {
+        final Object[] slots = s.slots;
+        long r = s.readCount, w = s.writeCount;
+        for (; r < w; ++r) {
+            long offset = ((long)((int)r & (READ_STRIPE_SIZE - 1))
+                           << ASHIFT) + ABASE;
+            @SuppressWarnings("unchecked") Node<K,V> x =
+                (Node<K,V>)U.getObjectVolatile(slots, offset);
+            if (x == null)
+                break; // not yet written; pick up next time
+            U.putOrderedObject(slots, offset, null);
+            int q = x.queue;
+            if (q == WINDOW)
+                window.moveToLast(x);
+            else if (q == MAIN)
+                main.moveToLast(x);
+            else
+                continue;
+            if (sketch != null)
+                sketch.increment(x.key);
+        }
+        s.readCount = r;
+    }
+
+    final void expireEntries(long now) {
+        long d;
+        Node<K,V> x;
+        if ((d = expireAfterAccessNanos) != 0L) {
+            while ((x = window.first) != null && now - x.accessTime >= d)
+                evictEntry(x);
+            while ((x = main.first) != null && now - x.accessTime >= d)
+                evictEntry(x);
+        }
+        if ((d = expireAfterWriteNanos) != 0L) {
+            while ((x = writeOrder.first) != null && now - x.writeTime >= d)
+                evictEntry(x);
+        }
+    }
+
+    final void evictEntries() {
+        Node<K,V> candidate = null;
+        // Move overflow of the window to the tail of the main region
+        while (windowWeightedSize > windowMaximum) {
+            Node<K,V> x = window.first;
+            window.unlink(x);
+            main.linkLast(x);
+            x.queue = MAIN;
+            windowWeightedSize -= x.policyWeight;
+            if (candidate == null)
+                candidate = x;
+        }
+        // Evict the least frequently used of candidate and victim
+        while (weightedSize > maximum) {
+            Node<K,V> victim = main.first;
+            if (victim == null) {
+                if ((victim = window.first) == null)
+                    break;
+                evictEntry(victim);
+            }
+            else if (candidate == null || candidate == victim) {
+                if (candidate == victim)
+                    candidate = victim.next;
+                evictEntry(victim);
+            }
+            else if (candidate.policyWeight > maximum ||
+                     sketch.frequency(candidate.key) <=
+                     sketch.frequency(victim.key)) {
+                Node<K,V> next = candidate.next;
+                evictEntry(candidate);
+                candidate = next;
+            }
+            else
+                evictEntry(victim);
+        }
+    }
+
+    /** Removes a node from the map (if still present) and the policy */
+    final void evictEntry(Node<K,V> x) {
+        if (map.remove(x.key, x))
+            evictions.increment();
+        unlinkFromPolicy(x);
+    }
+
+    final void unlinkFromPolicy(Node<K,V> x) {
+        int q = x.queue;
+        x.queue = DEAD;
+        if (q == WINDOW || q == MAIN) {
+            int w = x.policyWeight;
+            weightedSize -= w;
+            if (q == WINDOW) {
+                windowWeightedSize -= w;
+                window.unlink(x);
+            }
+            else
+                main.unlink(x);
+            if (expireAfterWriteNanos != 0L)
+                writeOrder.unlink(x);
+        }
+    }
+
+    /* ---------------- Public operations -------------- */
+
+    /**
+     * Returns the value to which the specified key is mapped, or
+     * {@code null} if this cache contains no unexpired mapping for
+     * the key.
+     *
+     * @param key the key whose associated value is to be returned
+     * @return the value, or {@code null} if there is none
+     * @throws NullPointerException if the specified key is null
+     */
+    public V get(Object key) {
+        Node<K,V> x = map.get(key);
+        long now = ticker();
+        if (x == null || hasExpired(x, now)) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        afterRead(x, now);
+        return x.value;
+    }
+
+    /**
+     * Returns the value to which the specified key is mapped,
+     * loading it with the given mapping function if this cache
+     * contains no unexpired mapping for the key.  If the function
+     * returns {@code null}, no mapping is recorded.  If the function
+     * throws an exception, it is rethrown and no mapping is recorded.
+     *
+     * <p>Unlike {@link ConcurrentHashMap#computeIfAbsent}, the
+     * function is invoked without holding any lock of the underlying
+     * map, so a slow load of one key never delays operations on other
+     * keys.  Concurrent invocations for the same key wait for the
+     * first to complete and then return its result; if that load
+     * fails or produces no value, a waiting caller performs its own
+     * load.  An explicit {@link #put} of the same key that completes
+     * during the load takes precedence over the loaded value, which
+     * is then discarded.  The function must not attempt to load the
+     * same key from this cache.
+     *
+     * @param key the key
+     * @param mappingFunction the function to compute a value
+     * @return the current (existing or loaded) value associated with
+     *         the specified key, or null if the loaded value is null
+     * @throws NullPointerException if the specified key or
+     *         mappingFunction is null
+     * @throws RuntimeException or Error if the mappingFunction does so,
+     *         in which case no mapping is recorded
+     */
+    public V computeIfAbsent(K key,
+                             Function<? super K, ? extends V> mappingFunction) {
+        if (key == null || mappingFunction == null)
+            throw new NullPointerException();
+        Node<K,V> x = map.get(key);
+        long now = ticker();
+        if (x != null && !hasExpired(x, now)) {
+            hits.increment();
+            afterRead(x, now);
+            return x.value;
+        }
+        misses.increment();
+        CompletableFuture<V> f = new CompletableFuture<V>();
+        for (CompletableFuture<V> p;
+             (p = loading.putIfAbsent(key, f)) != null; ) {
+            V v;
+            try {
+                v = p.join();
+            } catch (CompletionException | CancellationException ex) {
+                v = null; // retry ourselves
+            }
+            if (v != null)
+                return v;
+        }
+        try {
+            V v;
+            if ((x = map.get(key)) != null && !hasExpired(x, ticker()))
+                v = x.value; // loaded just before we claimed it
+            else if ((v = mappingFunction.apply(key)) != null) {
+                V p = put(key, v, true);
+                if (p != null)
+                    v = p;
+            }
+            f.complete(v);
+            return v;
+        } catch (Throwable ex) {
+            f.completeExceptionally(ex);
+            throw ex;
+        } finally {
+            loading.remove(key, f);
+        }
+    }
+
+    /**
+     * Maps the specified key to the specified value in this cache.
+     *
+     * @param key key with which the specified value is to be associated
+     * @param value value to be associated with the specified key
+     * @return the previous unexpired value associated with
+     *         {@code key}, or {@code null} if there was none
+     * @throws NullPointerException if the specified key or value is null
+     * @throws IllegalArgumentException if the weigher returns a
+     *         negative weight
+     */
+    public V put(K key, V value) {
+        return put(key, value, false);
+    }
+
+    /**
+     * If the specified key is not already associated with an
+     * unexpired value, associates it with the given value.
+     *
+     * @param key key with which the specified value is to be associated
+     * @param value value to be associated with the specified key
+     * @return the previous unexpired value associated with
+     *         {@code key}, or {@code null} if there was none
+     * @throws NullPointerException if the specified key or value is null
+     * @throws IllegalArgumentException if the weigher returns a
+     *         negative weight
+     */
+    public V putIfAbsent(K key, V value) {
+        return put(key, value, true);
+    }
+
+    /** Implementation for put and putIfAbsent */
+    final V put(K key, V value, boolean onlyIfAbsent) {
+        if (key == null || value == null)
+            throw new NullPointerException();
+        int w = weigh(key, value);
+        long now = ticker();
+        Node<K,V> node = null;
+        for (Node<K,V> p;;) {
+            if ((p = map.get(key)) == null) {
+                if (node == null)
+                    node = new Node<K,V>(key, value, w, now);
+                if ((p = map.putIfAbsent(key, node)) == null) {
+                    afterWrite(new AddTask(node));
+                    return null;
+                }
+            }
+            if (hasExpired(p, now)) {
+                if (map.remove(key, p)) {
+                    evictions.increment();
+                    afterWrite(new RemovalTask(p));
+                }
+                continue;
+            }
+            V old;
+            if (onlyIfAbsent) {
+                old = p.value;
+                afterRead(p, now);
+            }
+            else {
+                synchronized (p) {
+                    old = p.value;
+                    p.value = value;
+                    p.weight = w;
+                    p.writeTime = now;
+                    p.accessTime = now;
+                }
+                afterWrite(new UpdateTask(p));
+            }
+            return old;
+        }
+    }
+
+    /**
+     * Removes the mapping for a key from this cache if it is present.
+     *
+     * @param key key whose mapping is to be removed from the cache
+     * @return the previous unexpired value associated with
+     *         {@code key}, or {@code null} if there was none
+     * @throws NullPointerException if the specified key is null
+     */
+    public V remove(Object key) {
+        Node<K,V> x = map.remove(key);
+        if (x == null)
+            return null;
+        afterWrite(new RemovalTask(x));
+        return hasExpired(x, ticker()) ? null : x.value;
+    }
+
+    /**
+     * Removes all of the mappings from this cache.
+     */
+    public void clear() {
+        for (Node<K,V> x : map.values()) {
+            if (map.remove(x.key, x))
+                writeBuffer.add(new RemovalTask(x));
+        }
+        cleanUp();
+    }
+
+    /**
+     * Returns the number of mappings in this cache, which may include
+     * mappings that have expired but have not yet been removed.  The
+     * value returned is an estimate; the actual count may differ if
+     * there are concurrent insertions or removals.
+     *
+     * @return the number of mappings
+     */
+    public long size() {
+        return map.mappingCount();
+    }
+
+    /**
+     * Returns the total weight of the mappings in this cache, as of
+     * the most recent maintenance.  If the cache is not weighted, this
+     * is the number of mappings.
+     *
+     * @return the total weight
+     */
+    public long weightedSize() {
+        return weightedSize;
+    }
+
+    /**
+     * Performs any pending maintenance, applying buffered operations
+     * to the eviction policy and removing expired and excess entries.
+     * This is otherwise done incrementally by other operations, so
+     * need only be invoked when timely removal matters, such as when
+     * a cache becomes idle.
+     */
+    public void cleanUp() {
+        final ReentrantLock lock = evictionLock;
+        lock.lock();
+        try {
+            do {
+                drainStatus = PROCESSING;
+                maintain();
+            } while (!U.compareAndSwapInt(this, DRAINSTATUS,
+                                          PROCESSING, IDLE));
+        } finally {
+            lock.unlock();
+        }
+        if (drainStatus == REQUIRED)
+            tryToMaintain();
+    }
+
+    /**
+     * Returns the number of lookups by {@link #get} and {@link
+     * #computeIfAbsent} that found an unexpired mapping.
+     *
+     * @return the number of hits
+     */
+    public long hitCount() {
+        return hits.sum();
+    }
+
+    /**
+     * Returns the number of lookups by {@link #get} and {@link
+     * #computeIfAbsent} that found no unexpired mapping.
+     *
+     * @return the number of misses
+     */
+    public long missCount() {
+        return misses.sum();
+    }
+
+    /**
+     * Returns the number of mappings removed by eviction or
+     * expiration (as opposed to explicit removal).
+     *
+     * @return the number of evictions
+     */
+    public long evictionCount() {
+        return evictions.sum();
+    }
+
+    /**
+     * Returns a string identifying this cache, as well as its
+     * configuration and statistics.
+     *
+     * @return a string identifying this cache, as well as its state
+     */
+    public String toString() {
+        return super.toString() +
+            "[size = " + size() +
+            ", maximum = " + (maximum == Long.MAX_VALUE ? "none" : maximum) +
+            ", hits = " + hitCount() +
+            ", misses = " + missCount() +
+            ", evictions = " + evictionCount() +
+            "]";
+    }
+
+    // Unsafe mechanics
+    private static final sun.misc.Unsafe U;
+    private static final long DRAINSTATUS;
+    private static final long ACCESSTIME;
+    private static final long WRITECOUNT;
+    private static final long ABASE;
+    private static final int ASHIFT;
+    static {
+        try {
+            U = sun.misc.Unsafe.getUnsafe();
+            DRAINSTATUS = U.objectFieldOffset
+                (ConcurrentCache.class.getDeclaredField("drainStatus"));
+            ACCESSTIME = U.objectFieldOffset
+                (Node.class.getDeclaredField("accessTime"));
+            WRITECOUNT = U.objectFieldOffset
+                (ReadStripe.class.getDeclaredField("writeCount"));
+            Class<?> ak = Object[].class;
+            ABASE = U.arrayBaseOffset(ak);
+            int scale = U.arrayIndexScale(ak);
+            if ((scale & (scale - 1)) != 0)
+                throw new Error("data type scale not a power of two");
+            ASHIFT = 31 - Integer.numberOfLeadingZeros(scale);
+        } catch (Exception e) {
+            throw new Error(e);
+        }
+    }
+}
@@ -0,0 +1,2329 @@
+/*
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+package java.util.concurrent;
+
+import java.util.concurrent.ConcurrentHashMap.CounterCell;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.LongBinaryOperator;
+import java.util.function.LongUnaryOperator;
+
+/**
+ * A hash table mapping primitive {@code long} keys to primitive
+ * {@code long} values, supporting full concurrency of retrievals and
+ * high expected concurrency for updates.  This class is a
+ * specialization of {@link ConcurrentHashMap} that stores keys and
+ * values inline in its nodes rather than as boxed {@link Long}s,
+ * which substantially reduces footprint and avoids allocation on
+ * every update of an existing mapping, as in frequency counting:
+ *
+ *  <pre> {@code
+ * ConcurrentLongLongHashMap counts = new ConcurrentLongLongHashMap();
+ * counts.merge(id, 1L, Long::sum);}</pre>
+ *
+ * <p>It shares the concurrency properties of {@code
+ * ConcurrentHashMap}: retrievals do not block and reflect the results
+ * of the most recently completed updates; updates lock only the bin
+ * holding the key; the table is resized cooperatively by all
+ * updating threads; and the size is maintained using striped
+ * counters.  Bulk operations {@link #forEach(long, LongLongConsumer)
+ * forEach}, {@link #search search} and {@link #reduceToLong
+ * reduceToLong} are executed in parallel, using the {@link
+ * ForkJoinPool#commonPool()}, when the estimated size of the map
+ * exceeds the given {@code parallelismThreshold}, exactly as for
+ * the corresponding methods of {@code ConcurrentHashMap}.
+ *
+ * <p>Since there is no way to return {@code null} from a method
+ * returning {@code long}, methods that would return {@code null}
+ * for an absent key in {@code ConcurrentHashMap} return zero
+ * instead.  When zero is also a legitimate value, use
+ * {@link #getOrDefault} or {@link #containsKey} to distinguish the
+ * cases.  For the same reason, remapping functions cannot remove
+ * mappings; use {@link #remove(long, long)} instead.
+ *
+ * @since 1.9
+ */
+public class ConcurrentLongLongHashMap {
+
+    /*
+     * Overview:
+     *
+     * This is a stripped-down copy of ConcurrentHashMap (see its
+     * internal documentation), retaining its table initialization,
+     * per-bin locking, cooperative resize-transfer, CounterCell size
+     * accounting and CountedCompleter bulk tasks, with the following
+     * differences.
+     *
+     * Nodes hold a long key and long value and do not cache a hash
+     * code, since spreading a long key is cheaper than the four bytes
+     * per node needed to store it.  Hash codes are a multiplicative
+     * (Fibonacci) mix of all 64 bits of the key folded to 32, so that
+     * keys differing only in high bits, or forming arithmetic
+     * sequences, spread evenly over bins.
+     *
+     * Without a hash field, special bin heads are identified by type
+     * rather than by negative hash: ForwardingNodes during resizes,
+     * ReservationNodes while computing a value for an empty bin, and
+     * TreeBins.  All only ever appear as the first node of a bin.
+     *
+     * The mix spreads ordinary key sets well, but it is a fixed
+     * public function, so keys can be chosen (or just happen) to
+     * collide in the low bits used as a table index.  As in
+     * ConcurrentHashMap, bins that overpopulate are therefore
+     * converted to TreeBins, bounding the cost of such keys to
+     * O(log n) per operation.  TreeNodes are ordered by key alone:
+     * unlike Objects, long keys are totally ordered and distinct
+     * within a bin, so no hash comparisons, comparableClassFor or
+     * tie-breaking are needed.  Otherwise TreeBins, including their
+     * parasitic read-write lock, are as in ConcurrentHashMap.
+     */
+
+    /* ---------------- Constants -------------- */
+
+    static final int MAXIMUM_CAPACITY = ConcurrentHashMap.MAXIMUM_CAPACITY;
+    static final int DEFAULT_CAPACITY = ConcurrentHashMap.DEFAULT_CAPACITY;
+    static final int MIN_TRANSFER_STRIDE =
+        ConcurrentHashMap.MIN_TRANSFER_STRIDE;
+    static final int MAX_RESIZERS = ConcurrentHashMap.MAX_RESIZERS;
+    static final int RESIZE_STAMP_SHIFT = ConcurrentHashMap.RESIZE_STAMP_SHIFT;
+    static final int TREEIFY_THRESHOLD = ConcurrentHashMap.TREEIFY_THRESHOLD;
+    static final int UNTREEIFY_THRESHOLD =
+        ConcurrentHashMap.UNTREEIFY_THRESHOLD;
+    static final int MIN_TREEIFY_CAPACITY =
+        ConcurrentHashMap.MIN_TREEIFY_CAPACITY;
+    static final int NCPU = ConcurrentHashMap.NCPU;
+
+    /* ---------------- Nodes -------------- */
+
+    /**
+     * Key-value entry.
+     */
+    static class Node {
+        final long key;
+        volatile long val;
+        volatile Node next;
+
+        Node(long key, long val, Node next) {
+            this.key = key;
+            this.val = val;
+            this.next = next;
+        }
+    }
+
+    /**
+     * A node inserted at head of bins during transfer operations.
+     */
+    static final class ForwardingNode extends Node {
+        final Node[] nextTable;
+        ForwardingNode(Node[] tab) {
+            super(0L, 0L, null);
+            this.nextTable = tab;
+        }
+    }
+
+    /**
+     * A place-holder node used in computeIfAbsent and compute
+     */
+    static final class ReservationNode extends Node {
+        ReservationNode() {
+            super(0L, 0L, null);
+        }
+    }
+
+    /* ---------------- Static utilities -------------- */
+
+    /**
+     * Spreads the 64 bits of a key into a 32-bit hash code.
+     */
+    static final int spread(long key) {
+        long h = key * 0x9e3779b97f4a7c15L;
+        return (int)(h ^ (h >>> 32));
+    }
+
+    static final Node tabAt(Node[] tab, int i) {
+        return (Node)U.getObjectVolatile(tab, ((long)i << ASHIFT) + ABASE);
+    }
+
+    static final boolean casTabAt(Node[] tab, int i, Node c, Node v) {
+        return U.compareAndSwapObject(tab, ((long)i << ASHIFT) + ABASE, c, v);
+    }
+
+    static final void setTabAt(Node[] tab, int i, Node v) {
+        U.putObjectVolatile(tab, ((long)i << ASHIFT) + ABASE, v);
+    }
+
+    /* ---------------- Fields -------------- */
+
+    /**
+     * The array of bins. Lazily initialized upon first insertion.
+     * Size is always a power of two.
+     */
+    transient volatile Node[] table;
+
+    /**
+     * The next table to use; non-null only while resizing.
+     */
+    private transient volatile Node[] nextTable;
+
+    /**
+     * Base counter value, used mainly when there is no contention,
+     * but also as a fallback during table initialization
+     * races. Updated via CAS.
+     */
+    private transient volatile long baseCount;
+
+    /**
+     * Table initialization and resizing control, as in
+     * ConcurrentHashMap.
+     */
+    private transient volatile int sizeCtl;
+
+    /**
+     * The next table index (plus one) to split while resizing.
+     */
+    private transient volatile int transferIndex;
+
+    /**
+     * Spinlock (locked via CAS) used when resizing and/or creating CounterCells.
+     */
+    private transient volatile int cellsBusy;
+
+    /**
+     * Table of counter cells. When non-null, size is a power of 2.
+     */
+    private transient volatile CounterCell[] counterCells;
+
+    /* ---------------- Public operations -------------- */
+
+    /**
+     * Creates a new, empty map with the default initial table size (16).
+     */
+    public ConcurrentLongLongHashMap() {
+    }
+
+    /**
+     * Creates a new, empty map with an initial table size
+     * accommodating the specified number of elements without the need
+     * to dynamically resize.
+     *
+     * @param initialCapacity The implementation performs internal
+     * sizing to accommodate this many elements.
+     * @throws IllegalArgumentException if the initial capacity of
+     * elements is negative
+     */
+    public ConcurrentLongLongHashMap(int initialCapacity) {
+        if (initialCapacity < 0)
+            throw new IllegalArgumentException();
+        int cap = ((initialCapacity >= (MAXIMUM_CAPACITY >>> 1)) ?
+                   MAXIMUM_CAPACITY :
+                   ConcurrentHashMap.tableSizeFor
+                   (initialCapacity + (initialCapacity >>> 1) + 1));
+        this.sizeCtl = cap;
+    }
+
+    /**
+     * Returns the number of key-value mappings in this map.  If the
+     * map contains more than {@code Integer.MAX_VALUE} elements,
+     * returns {@code Integer.MAX_VALUE}.
+     *
+     * @return the number of key-value mappings in this map
+     */
+    public int size() {
+        long n = sumCount();
+        return ((n < 0L) ? 0 :
+                (n > (long)Integer.MAX_VALUE) ? Integer.MAX_VALUE :
+                (int)n);
+    }
+
+    /**
+     * Returns the number of mappings. This method should be used
+     * instead of {@link #size} because a ConcurrentLongLongHashMap may
+     * contain more mappings than can be represented as an int. The
+     * value returned is an estimate; the actual count may differ if
+     * there are concurrent insertions or removals.
+     *
+     * @return the number of mappings
+     */
+    public long mappingCount() {
+        long n = sumCount();
+        return (n < 0L) ? 0L : n; // ignore transient negative values
+    }
+
+    /**
+     * Returns {@code true} if this map contains no key-value mappings.
+     *
+     * @return {@code true} if this map contains no key-value mappings
+     */
+    public boolean isEmpty() {
+        return sumCount() <= 0L; // ignore transient negative values
+    }
+
+    /**
+     * Returns the node for the given key, or null if none.
+     */
+    final Node findNode(long key) {
+        int h = spread(key);
+        outer: for (Node[] tab = table;;) {
+            Node e; int n;
+            if (tab == null || (n = tab.length) == 0 ||
+                (e = tabAt(tab, (n - 1) & h)) == null)
+                return null;
+            if (e instanceof ForwardingNode) {
+                // loop to avoid arbitrarily deep recursion
+                tab = ((ForwardingNode)e).nextTable;
+                continue outer;
+            }
+            if (e instanceof TreeBin)
+                return ((TreeBin)e).find(key);
+            if (e instanceof ReservationNode)
+                return null;
+            do {
+                if (e.key == key)
+                    return e;
+            } while ((e = e.next) != null);
+            return null;
+        }
+    }
+
+    /**
+     * Returns the value to which the specified key is mapped,
+     * or zero if this map contains no mapping for the key.
+     *
+     * @param key the key
+     * @return the value to which the specified key is mapped, or
+     * zero if this map contains no mapping for the key
+     */
+    public long get(long key) {
+        Node e;
+        return ((e = findNode(key)) == null) ? 0L : e.val;
+    }
+
+    /**
+     * Returns the value to which the specified key is mapped, or the
+     * given default value if this map contains no mapping for the
+     * key.
+     *
+     * @param key the key whose associated value is to be returned
+     * @param defaultValue the value to return if this map contains
+     * no mapping for the given key
+     * @return the mapping for the key, if present; else the default value
+     */
+    public long getOrDefault(long key, long defaultValue) {
+        Node e;
+        return ((e = findNode(key)) == null) ? defaultValue : e.val;
+    }
+
+    /**
+     * Tests if the specified key is a key in this map.
+     *
+     * @param key possible key
+     * @return {@code true} if and only if the specified key is a key
+     * in this map
+     */
+    public boolean containsKey(long key) {
+        return findNode(key) != null;
+    }
+
+    /**
+     * Maps the specified key to the specified value in this map.
+     *
+     * @param key key with which the specified value is to be associated
+     * @param value value to be associated with the specified key
+     * @return the previous value associated with {@code key}, or
+     *         zero if there was no mapping for {@code key}
+     */
+    public long put(long key, long value) {
+        return putVal(key, value, false);
+    }
+
+    /**
+     * If the specified key is not already associated with a value,
+     * associates it with the given value.
+     *
+     * @param key key with which the specified value is to be associated
+     * @param value value to be associated with the specified key
+     * @return the previous value associated with the specified key,
+     *         or zero if there was no mapping for the key
+     */
+    public long putIfAbsent(long key, long value) {
+        return putVal(key, value, true);
+    }
+
+    /** Implementation for put and putIfAbsent */
+    final long putVal(long key, long value, boolean onlyIfAbsent) {
+        int hash = spread(key);
+        int binCount = 0;
+        for (Node[] tab = table;;) {
+            Node f; int n, i;
+            if (tab == null || (n = tab.length) == 0)
+                tab = initTable();
+            else if ((f = tabAt(tab, i = (n - 1) & hash)) == null) {
+                if (casTabAt(tab, i, null, new Node(key, value, null)))
+                    break;                   // no lock when adding to empty bin
+            }
+            else if (f instanceof ForwardingNode)
+                tab = helpTransfer(tab, f);
+            else {
+                long oldVal = 0L;
+                boolean found = false;
+                synchronized (f) {
+                    if (tabAt(tab, i) == f) {
+                        if (f instanceof TreeBin) {
+                            Node p;
+                            binCount = 2;
+                            if ((p = ((TreeBin)f).putTreeVal(key,
+                                                             value)) != null) {
+                                oldVal = p.val;
+                                found = true;
+                                if (!onlyIfAbsent)
+                                    p.val = value;
+                            }
+                        }
+                        else if (f instanceof ReservationNode)
+                            throw new IllegalStateException("Recursive update");
+                        else {
+                            binCount = 1;
+                            for (Node e = f;; ++binCount) {
+                                if (e.key == key) {
+                                    oldVal = e.val;
+                                    found = true;
+                                    if (!onlyIfAbsent)
+                                        e.val = value;
+                                    break;
+                                }
+                                Node pred = e;
+                                if ((e = e.next) == null) {
+                                    pred.next = new Node(key, value, null);
+                                    break;
+                                }
+                            }
+                        }
+                    }
+                }
+                if (binCount != 0) {
+                    if (binCount >= TREEIFY_THRESHOLD)
+                        treeifyBin(tab, i);
+                    if (found)
+                        return oldVal;
+                    break;
+                }
+            }
+        }
+        addCount(1L, binCount);
+        return 0L;
+    }
+
+    /**
+     * Removes the key (and its corresponding value) from this map.
+     * This method does nothing if the key is not in the map.
+     *
+     * @param  key the key that needs to be removed
+     * @return the previous value associated with {@code key}, or
+     *         zero if there was no mapping for {@code key}
+     */
+    public long remove(long key) {
+        Node e;
+        return ((e = replaceNode(key, 0L, 0L, true, false)) == null) ?
+            0L : e.val;
+    }
+
+    /**
+     * Removes the entry for a key only if currently mapped to a given value.
+     *
+     * @param key key with which the specified value is associated
+     * @param value value expected to be associated with the specified key
+     * @return {@code true} if the value was removed
+     */
+    public boolean remove(long key, long value) {
+        return replaceNode(key, 0L, value, true, true) != null;
+    }
+
+    /**
+     * Replaces the entry for a key only if currently mapped to a given value.
+     *
+     * @param key key with which the specified value is associated
+     * @param oldValue value expected to be associated with the specified key
+     * @param newValue value to be associated with the specified key
+     * @return {@code true} if the value was replaced
+     */
+    public boolean replace(long key, long oldValue, long newValue) {
+        return replaceNode(key, newValue, oldValue, false, true) != null;
+    }
+
+    /**
+     * Implementation for the three public remove/replace methods:
+     * Replaces node value with v, or removes if remove is true,
+     * conditional upon match of cv if match is true.  Returns the
+     * affected node, or null if none.  The value of a removed node
+     * is never subsequently changed.
+     */
+    final Node replaceNode(long key, long value, long cv,
+                           boolean remove, boolean match) {
+        int hash = spread(key);
+        for (Node[] tab = table;;) {
+            Node f; int n, i;
+            if (tab == null || (n = tab.length) == 0 ||
+                (f = tabAt(tab, i = (n - 1) & hash)) == null)
+                break;
+            else if (f instanceof ForwardingNode)
+                tab = helpTransfer(tab, f);
+            else {
+                Node found = null;
+                boolean validated = false;
+                synchronized (f) {
+                    if (tabAt(tab, i) == f) {
+                        if (f instanceof TreeBin) {
+                            validated = true;
+                            TreeBin t = (TreeBin)f;
+                            TreeNode r, p;
+                            if ((r = t.root) != null &&
+                                (p = r.findTreeNode(key)) != null) {
+                                if (!match || p.val == cv) {
+                                    found = p;
+                                    if (!remove)
+                                        p.val = value;
+                                    else if (t.removeTreeNode(p))
+                                        setTabAt(tab, i, untreeify(t.first));
+                                }
+                            }
+                        }
+                        else if (f instanceof ReservationNode)
+                            throw new IllegalStateException("Recursive update");
+                        else {
+                            validated = true;
+                            for (Node e = f, pred = null;;) {
+                                if (e.key == key) {
+                                    if (!match || e.val == cv) {
+                                        found = e;
+                                        if (!remove)
+                                            e.val = value;
+                                        else if (pred != null)
+                                            pred.next = e.next;
+                                        else
+                                            setTabAt(tab, i, e.next);
+                                    }
+                                    break;
+                                }
+                                pred = e;
+                                if ((e = e.next) == null)
+                                    break;
+                            }
+                        }
+                    }
+                }
+                if (validated) {
+                    if (found != null && remove)
+                        addCount(-1L, -1);
+                    return found;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Removes all of the mappings from this map.
+     */
+    public void clear() {
+        long delta = 0L; // negative number of deletions
+        int i = 0;
+        Node[] tab = table;
+        while (tab != null && i < tab.length) {
+            Node f = tabAt(tab, i);
+            if (f == null)
+                ++i;
+            else if (f instanceof ForwardingNode) {
+                tab = helpTransfer(tab, f);
+                i = 0; // restart
+            }
+            else {
+                synchronized (f) {
+                    if (tabAt(tab, i) == f) {
+                        Node p = ((f instanceof TreeBin) ?
+                                  ((TreeBin)f).first :
+                                  (f instanceof ReservationNode) ? null : f);
+                        while (p != null) {
+                            --delta;
+                            p = p.next;
+                        }
+                        setTabAt(tab, i++, null);
+                    }
+                }
+            }
+        }
+        if (delta != 0L)
+            addCount(delta, -1);
+    }
+
+    /**
+     * If the specified key is not already associated with a value,
+     * attempts to compute its value using the given mapping function
+     * and enters it into this map.  The entire method invocation is
+     * performed atomically, so the function is applied at most once
+     * per key.  Some attempted update operations on this map by other
+     * threads may be blocked while computation is in progress, so the
+     * computation should be short and simple, and must not attempt to
+     * update any other mappings of this map.
+     *
+     * @param key key with which the specified value is to be associated
+     * @param mappingFunction the function to compute a value
+     * @return the current (existing or computed) value associated with
+     *         the specified key
+     * @throws NullPointerException if the mappingFunction is null
+     * @throws IllegalStateException if the computation detectably
+     *         attempts a recursive update to this map that would
+     *         otherwise never complete
+     * @throws RuntimeException or Error if the mappingFunction does so,
+     *         in which case the mapping is left unestablished
+     */
+    public long computeIfAbsent(long key, LongUnaryOperator mappingFunction) {
+        if (mappingFunction == null)
+            throw new NullPointerException();
+        int h = spread(key);
+        long val = 0L;
+        int binCount = 0;
+        for (Node[] tab = table;;) {
+            Node f; int n, i;
+            if (tab == null || (n = tab.length) == 0)
+                tab = initTable();
+            else if ((f = tabAt(tab, i = (n - 1) & h)) == null) {
+                Node r = new ReservationNode();
+                synchronized (r) {
+                    if (casTabAt(tab, i, null, r)) {
+                        binCount = 1;
+                        Node node = null;
+                        try {
+                            val = mappingFunction.applyAsLong(key);
+                            node = new Node(key, val, null);
+                        } finally {
+                            setTabAt(tab, i, node);
+                        }
+                    }
+                }
+                if (binCount != 0)
+                    break;
+            }
+            else if (f instanceof ForwardingNode)
+                tab = helpTransfer(tab, f);
+            else if (f.key == key && !(f instanceof ReservationNode) &&
+                     !(f instanceof TreeBin))
+                return f.val; // check first node without acquiring lock
+            else {
+                boolean added = false;
+                synchronized (f) {
+                    if (tabAt(tab, i) == f) {
+                        if (f instanceof TreeBin) {
+                            binCount = 2;
+                            TreeBin t = (TreeBin)f;
+                            TreeNode r, p;
+                            if ((r = t.root) != null &&
+                                (p = r.findTreeNode(key)) != null)
+                                val = p.val;
+                            else {
+                                val = mappingFunction.applyAsLong(key);
+                                added = true;
+                                t.putTreeVal(key, val);
+                            }
+                        }
+                        else if (f instanceof ReservationNode)
+                            throw new IllegalStateException("Recursive update");
+                        else {
+                            binCount = 1;
+                            for (Node e = f;; ++binCount) {
+                                if (e.key == key) {
+                                    val = e.val;
+                                    break;
+                                }
+                                Node pred = e;
+                                if ((e = e.next) == null) {
+                                    val = mappingFunction.applyAsLong(key);
+                                    added = true;
+                                    pred.next = new Node(key, val, null);
+                                    break;
+                                }
+                            }
+                        }
+                    }
+                }
+                if (binCount != 0) {
+                    if (binCount >= TREEIFY_THRESHOLD)
+                        treeifyBin(tab, i);
+                    if (!added)
+                        return val;
+                    break;
+                }
+            }
+        }
+        addCount(1L, binCount);
+        return val;
+    }
+
+    /**
+     * If the value for the specified key is present, attempts to
+     * compute a new mapping given the key and its current mapped
+     * value.  The entire method invocation is performed atomically.
+     * Some attempted update operations on this map by other threads
+     * may be blocked while computation is in progress, so the
+     * computation should be short and simple, and must not attempt to
+     * update any other mappings of this map.
+     *
+     * @param key key with which a value may be associated
+     * @param remappingFunction the function to compute a value from
+     *        the key and its current value
+     * @return the new value associated with the specified key, or
+     *         zero if none
+     * @throws NullPointerException if the remappingFunction is null
+     * @throws IllegalStateException if the computation detectably
+     *         attempts a recursive update to this map that would
+     *         otherwise never complete
+     * @throws RuntimeException or Error if the remappingFunction does so,
+     *         in which case the mapping is unchanged
+     */
+    public long computeIfPresent(long key,
+                                 LongBinaryOperator remappingFunction) {
+        if (remappingFunction == null)
+            throw new NullPointerException();
+        int h = spread(key);
+        long val = 0L;
+        for (Node[] tab = table;;) {
+            Node f; int n, i;
+            if (tab == null || (n = tab.length) == 0 ||
+                (f = tabAt(tab, i = (n - 1) & h)) == null)
+                break;
+            else if (f instanceof ForwardingNode)
+                tab = helpTransfer(tab, f);
+            else {
+                boolean validated = false;
+                synchronized (f) {
+                    if (tabAt(tab, i) == f) {
+                        if (f instanceof TreeBin) {
+                            validated = true;
+                            TreeNode r, p;
+                            if ((r = ((TreeBin)f).root) != null &&
+                                (p = r.findTreeNode(key)) != null)
+                                val = p.val =
+                                    remappingFunction.applyAsLong(key, p.val);
+                        }
+                        else if (f instanceof ReservationNode)
+                            throw new IllegalStateException("Recursive update");
+                        else {
+                            validated = true;
+                            for (Node e = f; e != null; e = e.next) {
+                                if (e.key == key) {
+                                    val = e.val =
+                                        remappingFunction.applyAsLong(key, e.val);
+                                    break;
+                                }
+                            }
+                        }
+                    }
+                }
+                if (validated)
+                    break;
+            }
+        }
+        return val;
+    }
+
+    /**
+     * Attempts to compute a mapping for the specified key and its
+     * current mapped value, or zero if there is no current mapping.
+     * The entire method invocation is performed atomically.  Some
+     * attempted update operations on this map by other threads may be
+     * blocked while computation is in progress, so the computation
+     * should be short and simple, and must not attempt to update any
+     * other mappings of this Map.
+     *
+     * @param key key with which the specified value is to be associated
+     * @param remappingFunction the function to compute a value from
+     *        the key and its current value (or zero)
+     * @return the new value associated with the specified key
+     * @throws NullPointerException if the remappingFunction is null
+     * @throws IllegalStateException if the computation detectably
+     *         attempts a recursive update to this map that would
+     *         otherwise never complete
+     * @throws RuntimeException or Error if the remappingFunction does so,
+     *         in which case the mapping is unchanged
+     */
+    public long compute(long key, LongBinaryOperator remappingFunction) {
+        if (remappingFunction == null)
+            throw new NullPointerException();
+        int h = spread(key);
+        long val = 0L;
+        int binCount = 0;
+        for (Node[] tab = table;;) {
+            Node f; int n, i;
+            if (tab == null || (n = tab.length) == 0)
+                tab = initTable();
+            else if ((f = tabAt(tab, i = (n - 1) & h)) == null) {
+                Node r = new ReservationNode();
+                synchronized (r) {
+                    if (casTabAt(tab, i, null, r)) {
+                        binCount = 1;
+                        Node node = null;
+                        try {
+                            val = remappingFunction.applyAsLong(key, 0L);
+                            node = new Node(key, val, null);
+                        } finally {
+                            setTabAt(tab, i, node);
+                        }
+                    }
+                }
+                if (binCount != 0)
+                    break;
+            }
+            else if (f instanceof ForwardingNode)
+                tab = helpTransfer(tab, f);
+            else {
+                boolean added = false;
+                synchronized (f) {
+                    if (tabAt(tab, i) == f) {
+                        if (f instanceof TreeBin) {
+                            binCount = 1;
+                            TreeBin t = (TreeBin)f;
+                            TreeNode r, p;
+                            if ((r = t.root) != null &&
+                                (p = r.findTreeNode(key)) != null)
+                                val = p.val =
+                                    remappingFunction.applyAsLong(key, p.val);
+                            else {
+                                val = remappingFunction.applyAsLong(key, 0L);
+                                added = true;
+                                t.putTreeVal(key, val);
+                            }
+                        }
+                        else if (f instanceof ReservationNode)
+                            throw new IllegalStateException("Recursive update");
+                        else {
+                            binCount = 1;
+                            for (Node e = f;; ++binCount) {
+                                if (e.key == key) {
+                                    val = e.val =
+                                        remappingFunction.applyAsLong(key, e.val);
+                                    break;
+                                }
+                                Node pred = e;
+                                if ((e = e.next) == null) {
+                                    val = remappingFunction.applyAsLong(key, 0L);
+                                    added = true;
+                                    pred.next = new Node(key, val, null);
+                                    break;
+                                }
+                            }
+                        }
+                    }
+                }
+                if (binCount != 0) {
+                    if (binCount >= TREEIFY_THRESHOLD)
+                        treeifyBin(tab, i);
+                    if (!added)
+                        return val;
+                    break;
+                }
+            }
+        }
+        addCount(1L, binCount);
+        return val;
+    }
+
+    /**
+     * If the specified key is not already associated with a value,
+     * associates it with the given value.  Otherwise, replaces the
+     * value with the results of the given remapping function applied
+     * to the current and given values.  The entire method invocation
+     * is performed atomically.  Some attempted update operations on
+     * this map by other threads may be blocked while computation is
+     * in progress, so the computation should be short and simple, and
+     * must not attempt to update any other mappings of this Map.
+     *
+     * @param key key with which the specified value is to be associated
+     * @param value the value to use if absent
+     * @param remappingFunction the function to recompute a value if present
+     * @return the new value associated with the specified key
+     * @throws NullPointerException if the remappingFunction is null
+     * @throws RuntimeException or Error if the remappingFunction does so,
+     *         in which case the mapping is unchanged
+     */
+    public long merge(long key, long value,
+                      LongBinaryOperator remappingFunction) {
+        if (remappingFunction == null)
+            throw new NullPointerException();
+        int h = spread(key);
+        long val = 0L;
+        int binCount = 0;
+        for (Node[] tab = table;;) {
+            Node f; int n, i;
+            if (tab == null || (n = tab.length) == 0)
+                tab = initTable();
+            else if ((f = tabAt(tab, i = (n - 1) & h)) == null) {
+                if (casTabAt(tab, i, null, new Node(key, value, null))) {
+                    val = value;
+                    break;
+                }
+            }
+            else if (f instanceof ForwardingNode)
+                tab = helpTransfer(tab, f);
+            else {
+                boolean added = false;
+                synchronized (f) {
+                    if (tabAt(tab, i) == f) {
+                        if (f instanceof TreeBin) {
+                            binCount = 2;
+                            TreeBin t = (TreeBin)f;
+                            TreeNode r = t.root;
+                            TreeNode p = (r == null) ? null :
+                                r.findTreeNode(key);
+                            if (p != null)
+                                val = p.val =
+                                    remappingFunction.applyAsLong(p.val, value);
+                            else {
+                                val = value;
+                                added = true;
+                                t.putTreeVal(key, val);
+                            }
+                        }
+                        else if (f instanceof ReservationNode)
+                            throw new IllegalStateException("Recursive update");
+                        else {
+                            binCount = 1;
+                            for (Node e = f;; ++binCount) {
+                                if (e.key == key) {
+                                    val = e.val =
+                                        remappingFunction.applyAsLong(e.val, value);
+                                    break;
+                                }
+                                Node pred = e;
+                                if ((e = e.next) == null) {
+                                    val = value;
+                                    added = true;
+                                    pred.next = new Node(key, val, null);
+                                    break;
+                                }
+                            }
+                        }
+                    }
+                }
+                if (binCount != 0) {
+                    if (binCount >= TREEIFY_THRESHOLD)
+                        treeifyBin(tab, i);
+                    if (!added)
+                        return val;
+                    break;
+                }
+            }
+        }
+        addCount(1L, binCount);
+        return val;
+    }
+
+    /**
+     * Returns a string representation of this map.  The string
+     * representation consists of a list of key-value mappings (in no
+     * particular order) enclosed in braces ("{@code {}}").  Adjacent
+     * mappings are separated by the characters {@code ", "} (comma
+     * and space).  Each key-value mapping is rendered as the key
+     * followed by an equals sign ("{@code =}") followed by the
+     * associated value.
+     *
+     * @return a string representation of this map
+     */
+    public String toString() {
+        final StringBuilder sb = new StringBuilder();
+        sb.append('{');
+        forEach((k, v) -> {
+                if (sb.length() > 1)
+                    sb.append(',').append(' ');
+                sb.append(k).append('=').append(v);
+            });
+        return sb.append('}').toString();
+    }
+
+    /* ---------------- Table Initialization and Resizing -------------- */
+
+    /**
+     * Initializes table, using the size recorded in sizeCtl.
+     */
+    private final Node[] initTable() {
+        Node[] tab; int sc;
+        while ((tab = table) == null || tab.length == 0) {
+            if ((sc = sizeCtl) < 0)
+                Thread.yield(); // lost initialization race; just spin
+            else if (U.compareAndSwapInt(this, SIZECTL, sc, -1)) {
+                try {
+                    if ((tab = table) == null || tab.length == 0) {
+                        int n = (sc > 0) ? sc : DEFAULT_CAPACITY;
+                        Node[] nt = new Node[n];
+                        table = tab = nt;
+                        sc = n - (n >>> 2);
+                    }
+                } finally {
+                    sizeCtl = sc;
+                }
+                break;
+            }
+        }
+        return tab;
+    }
+
+    /**
+     * Adds to count, and if table is too small and not already
+     * resizing, initiates transfer. If already resizing, helps
+     * perform transfer if work is available.  Rechecks occupancy
+     * after a transfer to see if another resize is already needed
+     * because resizings are lagging additions.
+     *
+     * @param x the count to add
+     * @param check if <0, don't check resize, if <= 1 only check if uncontended
+     */
+    private final void addCount(long x, int check) {
+        CounterCell[] as; long b, s;
+        if ((as = counterCells) != null ||
+            !U.compareAndSwapLong(this, BASECOUNT, b = baseCount, s = b + x)) {
+            CounterCell a; long v; int m;
+            boolean uncontended = true;
+            if (as == null || (m = as.length - 1) < 0 ||
+                (a = as[ThreadLocalRandom.getProbe() & m]) == null ||
+                !(uncontended =
+                  U.compareAndSwapLong(a, CELLVALUE, v = a.value, v + x))) {
+                fullAddCount(x, uncontended);
+                return;
+            }
+            if (check <= 1)
+                return;
+            s = sumCount();
+        }
+        if (check >= 0) {
+            Node[] tab, nt; int n, sc;
+            while (s >= (long)(sc = sizeCtl) && (tab = table) != null &&
+                   (n = tab.length) < MAXIMUM_CAPACITY) {
+                int rs = ConcurrentHashMap.resizeStamp(n);
+                if (sc < 0) {
+                    if ((sc >>> RESIZE_STAMP_SHIFT) != rs || sc == rs + 1 ||
+                        sc == rs + MAX_RESIZERS || (nt = nextTable) == null ||
+                        transferIndex <= 0)
+                        break;
+                    if (U.compareAndSwapInt(this, SIZECTL, sc, sc + 1))
+                        transfer(tab, nt);
+                }
+                else if (U.compareAndSwapInt(this, SIZECTL, sc,
+                                             (rs << RESIZE_STAMP_SHIFT) + 2))
+                    transfer(tab, null);
+                s = sumCount();
+            }
+        }
+    }
+
+    /**
+     * Helps transfer if a resize is in progress.
+     */
+    final Node[] helpTransfer(Node[] tab, Node f) {
+        Node[] nextTab; int sc;
+        if (tab != null && (f instanceof ForwardingNode) &&
+            (nextTab = ((ForwardingNode)f).nextTable) != null) {
+            int rs = ConcurrentHashMap.resizeStamp(tab.length);
+            while (nextTab == nextTable && table == tab &&
+                   (sc = sizeCtl) < 0) {
+                if ((sc >>> RESIZE_STAMP_SHIFT) != rs || sc == rs + 1 ||
+                    sc == rs + MAX_RESIZERS || transferIndex <= 0)
+                    break;
+                if (U.compareAndSwapInt(this, SIZECTL, sc, sc + 1)) {
+                    transfer(tab, nextTab);
+                    break;
+                }
+            }
+            return nextTab;
+        }
+        return table;
+    }
+
+    /**
+     * Tries to presize table to accommodate the given number of elements.
+     *
+     * @param size number of elements (doesn't need to be perfectly accurate)
+     */
+    private final void tryPresize(int size) {
+        int c = (size >= (MAXIMUM_CAPACITY >>> 1)) ? MAXIMUM_CAPACITY :
+            ConcurrentHashMap.tableSizeFor(size + (size >>> 1) + 1);
+        int sc;
+        while ((sc = sizeCtl) >= 0) {
+            Node[] tab = table; int n;
+            if (tab == null || (n = tab.length) == 0) {
+                n = (sc > c) ? sc : c;
+                if (U.compareAndSwapInt(this, SIZECTL, sc, -1)) {
+                    try {
+                        if (table == tab) {
+                            Node[] nt = new Node[n];
+                            table = nt;
+                            sc = n - (n >>> 2);
+                        }
+                    } finally {
+                        sizeCtl = sc;
+                    }
+                }
+            }
+            else if (c <= sc || n >= MAXIMUM_CAPACITY)
+                break;
+            else if (tab == table) {
+                int rs = ConcurrentHashMap.resizeStamp(n);
+                if (sc < 0) {
+                    Node[] nt;
+                    if ((sc >>> RESIZE_STAMP_SHIFT) != rs || sc == rs + 1 ||
+                        sc == rs + MAX_RESIZERS || (nt = nextTable) == null ||
+                        transferIndex <= 0)
+                        break;
+                    if (U.compareAndSwapInt(this, SIZECTL, sc, sc + 1))
+                        transfer(tab, nt);
+                }
+                else if (U.compareAndSwapInt(this, SIZECTL, sc,
+                                             (rs << RESIZE_STAMP_SHIFT) + 2))
+                    transfer(tab, null);
+            }
+        }
+    }
+
+    /**
+     * Moves and/or copies the nodes in each bin to new table. See
+     * ConcurrentHashMap.transfer for explanation.
+     */
+    private final void transfer(Node[] tab, Node[] nextTab) {
+        int n = tab.length, stride;
+        if ((stride = (NCPU > 1) ? (n >>> 3) / NCPU : n) < MIN_TRANSFER_STRIDE)
+            stride = MIN_TRANSFER_STRIDE; // subdivide range
+        if (nextTab == null) {            // initiating
+            try {
+                nextTab = new Node[n << 1];
+            } catch (Throwable ex) {      // try to cope with OOME
+                sizeCtl = Integer.MAX_VALUE;
+                return;
+            }
+            nextTable = nextTab;
+            transferIndex = n;
+        }
+        int nextn = nextTab.length;
+        ForwardingNode fwd = new ForwardingNode(nextTab);
+        boolean advance = true;
+        boolean finishing = false; // to ensure sweep before committing nextTab
+        for (int i = 0, bound = 0;;) {
+            Node f;
+            while (advance) {
+                int nextIndex, nextBound;
+                if (--i >= bound || finishing)
+                    advance = false;
+                else if ((nextIndex = transferIndex) <= 0) {
+                    i = -1;
+                    advance = false;
+                }
+                else if (U.compareAndSwapInt
+                         (this, TRANSFERINDEX, nextIndex,
+                          nextBound = (nextIndex > stride ?
+                                       nextIndex - stride : 0))) {
+                    bound = nextBound;
+                    i = nextIndex - 1;
+                    advance = false;
+                }
+            }
+            if (i < 0 || i >= n || i + n >= nextn) {
+                int sc;
+                if (finishing) {
+                    nextTable = null;
+                    table = nextTab;
+                    sizeCtl = (n << 1) - (n >>> 1);
+                    return;
+                }
+                if (U.compareAndSwapInt(this, SIZECTL, sc = sizeCtl, sc - 1)) {
+                    if ((sc - 2) != ConcurrentHashMap.resizeStamp(n) <<
+                        RESIZE_STAMP_SHIFT)
+                        return;
+                    finishing = advance = true;
+                    i = n; // recheck before commit
+                }
+            }
+            else if ((f = tabAt(tab, i)) == null)
+                advance = casTabAt(tab, i, null, fwd);
+            else if (f instanceof ForwardingNode)
+                advance = true; // already processed
+            else {
+                synchronized (f) {
+                    if (tabAt(tab, i) == f) {
+                        Node ln, hn;
+                        if (f instanceof TreeBin) {
+                            TreeBin t = (TreeBin)f;
+                            TreeNode lo = null, loTail = null;
+                            TreeNode hi = null, hiTail = null;
+                            int lc = 0, hc = 0;
+                            for (Node e = t.first; e != null; e = e.next) {
+                                TreeNode p = new TreeNode
+                                    (e.key, e.val, null, null);
+                                if ((spread(e.key) & n) == 0) {
+                                    if ((p.prev = loTail) == null)
+                                        lo = p;
+                                    else
+                                        loTail.next = p;
+                                    loTail = p;
+                                    ++lc;
+                                }
+                                else {
+                                    if ((p.prev = hiTail) == null)
+                                        hi = p;
+                                    else
+                                        hiTail.next = p;
+                                    hiTail = p;
+                                    ++hc;
+                                }
+                            }
+                            ln = (lc <= UNTREEIFY_THRESHOLD) ? untreeify(lo) :
+                                (hc != 0) ? new TreeBin(lo) : t;
+                            hn = (hc <= UNTREEIFY_THRESHOLD) ? untreeify(hi) :
+                                (lc != 0) ? new TreeBin(hi) : t;
+                            setTabAt(nextTab, i, ln);
+                            setTabAt(nextTab, i + n, hn);
+                            setTabAt(tab, i, fwd);
+                            advance = true;
+                        }
+                        else if (!(f instanceof ReservationNode)) {
+                            int runBit = spread(f.key) & n;
+                            Node lastRun = f;
+                            for (Node p = f.next; p != null; p = p.next) {
+                                int b = spread(p.key) & n;
+                                if (b != runBit) {
+                                    runBit = b;
+                                    lastRun = p;
+                                }
+                            }
+                            if (runBit == 0) {
+                                ln = lastRun;
+                                hn = null;
+                            }
+                            else {
+                                hn = lastRun;
+                                ln = null;
+                            }
+                            for (Node p = f; p != lastRun; p = p.next) {
+                                long pk = p.key, pv = p.val;
+                                if ((spread(pk) & n) == 0)
+                                    ln = new Node(pk, pv, ln);
+                                else
+                                    hn = new Node(pk, pv, hn);
+                            }
+                            setTabAt(nextTab, i, ln);
+                            setTabAt(nextTab, i + n, hn);
+                            setTabAt(tab, i, fwd);
+                            advance = true;
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /* ---------------- Counter support -------------- */
+
+    final long sumCount() {
+        CounterCell[] as = counterCells; CounterCell a;
+        long sum = baseCount;
+        if (as != null) {
+            for (int i = 0; i < as.length; ++i) {
+                if ((a = as[i]) != null)
+                    sum += a.value;
+            }
+        }
+        return sum;
+    }
+
+    // See LongAdder version for explanation
+    private final void fullAddCount(long x, boolean wasUncontended) {
+        int h;
+        if ((h = ThreadLocalRandom.getProbe()) == 0) {
+            ThreadLocalRandom.localInit();      // force initialization
+            h = ThreadLocalRandom.getProbe();
+            wasUncontended = true;
+        }
+        boolean collide = false;                // True if last slot nonempty
+        for (;;) {
+            CounterCell[] as; CounterCell a; int n; long v;
+            if ((as = counterCells) != null && (n = as.length) > 0) {
+                if ((a = as[(n - 1) & h]) == null) {
+                    if (cellsBusy == 0) {            // Try to attach new Cell
+                        CounterCell r = new CounterCell(x); // Optimistic create
+                        if (cellsBusy == 0 &&
+                            U.compareAndSwapInt(this, CELLSBUSY, 0, 1)) {
+                            boolean created = false;
+                            try {               // Recheck under lock
+                                CounterCell[] rs; int m, j;
+                                if ((rs = counterCells) != null &&
+                                    (m = rs.length) > 0 &&
+                                    rs[j = (m - 1) & h] == null) {
+                                    rs[j] = r;
+                                    created = true;
+                                }
+                            } finally {
+                                cellsBusy = 0;
+                            }
+                            if (created)
+                                break;
+                            continue;           // Slot is now non-empty
+                        }
+                    }
+                    collide = false;
+                }
+                else if (!wasUncontended)       // CAS already known to fail
+                    wasUncontended = true;      // Continue after rehash
+                else if (U.compareAndSwapLong(a, CELLVALUE, v = a.value, v + x))
+                    break;
+                else if (counterCells != as || n >= NCPU)
+                    collide = false;            // At max size or stale
+                else if (!collide)
+                    collide = true;
+                else if (cellsBusy == 0 &&
+                         U.compareAndSwapInt(this, CELLSBUSY, 0, 1)) {
+                    try {
+                        if (counterCells == as) {// Expand table unless stale
+                            CounterCell[] rs = new CounterCell[n << 1];
+                            for (int i = 0; i < n; ++i)
+                                rs[i] = as[i];
+                            counterCells = rs;
+                        }
+                    } finally {
+                        cellsBusy = 0;
+                    }
+                    collide = false;
+                    continue;                   // Retry with expanded table
+                }
+                h = ThreadLocalRandom.advanceProbe(h);
+            }
+            else if (cellsBusy == 0 && counterCells == as &&
+                     U.compareAndSwapInt(this, CELLSBUSY, 0, 1)) {
+                boolean init = false;
+                try {                           // Initialize table
+                    if (counterCells == as) {
+                        CounterCell[] rs = new CounterCell[2];
+                        rs[h & 1] = new CounterCell(x);
+                        counterCells = rs;
+                        init = true;
+                    }
+                } finally {
+                    cellsBusy = 0;
+                }
+                if (init)
+                    break;
+            }
+            else if (U.compareAndSwapLong(this, BASECOUNT, v = baseCount, v + x))
+                break;                          // Fall back on using base
+        }
+    }
+
+    /* ---------------- Conversion from/to TreeBins -------------- */
+
+    /**
+     * Replaces all linked nodes in bin at given index unless table is
+     * too small, in which case resizes instead.
+     */
+    private final void treeifyBin(Node[] tab, int index) {
+        Node b; int n;
+        if (tab != null) {
+            if ((n = tab.length) < MIN_TREEIFY_CAPACITY)
+                tryPresize(n << 1);
+            else if ((b = tabAt(tab, index)) != null &&
+                     !(b instanceof TreeBin) &&
+                     !(b instanceof ForwardingNode) &&
+                     !(b instanceof ReservationNode)) {
+                synchronized (b) {
+                    if (tabAt(tab, index) == b) {
+                        TreeNode hd = null, tl = null;
+                        for (Node e = b; e != null; e = e.next) {
+                            TreeNode p = new TreeNode(e.key, e.val, null, null);
+                            if ((p.prev = tl) == null)
+                                hd = p;
+                            else
+                                tl.next = p;
+                            tl = p;
+                        }
+                        setTabAt(tab, index, new TreeBin(hd));
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns a list on non-TreeNodes replacing those in given list.
+     */
+    static Node untreeify(Node b) {
+        Node hd = null, tl = null;
+        for (Node q = b; q != null; q = q.next) {
+            Node p = new Node(q.key, q.val, null);
+            if (tl == null)
+                hd = p;
+            else
+                tl.next = p;
+            tl = p;
+        }
+        return hd;
+    }
+
+    /* ---------------- TreeNodes -------------- */
+
+    /**
+     * Nodes for use in TreeBins, ordered by key.
+     */
+    static final class TreeNode extends Node {
+        TreeNode parent;  // red-black tree links
+        TreeNode left;
+        TreeNode right;
+        TreeNode prev;    // needed to unlink next upon deletion
+        boolean red;
+
+        TreeNode(long key, long val, Node next, TreeNode parent) {
+            super(key, val, next);
+            this.parent = parent;
+        }
+
+        /**
+         * Returns the TreeNode (or null if not found) for the given key
+         * starting at given root.
+         */
+        final TreeNode findTreeNode(long k) {
+            TreeNode p = this;
+            do {
+                long pk = p.key;
+                if (k < pk)
+                    p = p.left;
+                else if (k > pk)
+                    p = p.right;
+                else
+                    return p;
+            } while (p != null);
+            return null;
+        }
+    }
+
+    /* ---------------- TreeBins -------------- */
+
+    /**
+     * Nodes used at the heads of bins holding TreeNodes, as in
+     * ConcurrentHashMap. TreeBins do not hold keys or values, but
+     * instead point to list of TreeNodes and their root. They also
+     * maintain a parasitic read-write lock forcing writers (who hold
+     * bin lock) to wait for readers (who do not) to complete before
+     * tree restructuring operations.
+     */
+    static final class TreeBin extends Node {
+        TreeNode root;
+        volatile TreeNode first;
+        volatile Thread waiter;
+        volatile int lockState;
+        // values for lockState
+        static final int WRITER = 1; // set while holding write lock
+        static final int WAITER = 2; // set when waiting for write lock
+        static final int READER = 4; // increment value for setting read lock
+
+        /**
+         * Creates bin with initial set of nodes headed by b.
+         */
+        TreeBin(TreeNode b) {
+            super(0L, 0L, null);
+            this.first = b;
+            TreeNode r = null;
+            for (TreeNode x = b, next; x != null; x = next) {
+                next = (TreeNode)x.next;
+                x.left = x.right = null;
+                if (r == null) {
+                    x.parent = null;
+                    x.red = false;
+                    r = x;
+                }
+                else {
+                    long k = x.key;
+                    for (TreeNode p = r;;) {
+                        boolean left = k < p.key;
+                        TreeNode xp = p;
+                        if ((p = left ? p.left : p.right) == null) {
+                            x.parent = xp;
+                            if (left)
+                                xp.left = x;
+                            else
+                                xp.right = x;
+                            r = balanceInsertion(r, x);
+                            break;
+                        }
+                    }
+                }
+            }
+            this.root = r;
+            assert checkInvariants(root);
+        }
+
+        /**
+         * Acquires write lock for tree restructuring.
+         */
+        private final void lockRoot() {
+            if (!U.compareAndSwapInt(this, LOCKSTATE, 0, WRITER))
+                contendedLock(); // offload to separate method
+        }
+
+        /**
+         * Releases write lock for tree restructuring.
+         */
+        private final void unlockRoot() {
+            lockState = 0;
+        }
+
+        /**
+         * Possibly blocks awaiting root lock.
+         */
+        private final void contendedLock() {
+            boolean waiting = false;
+            for (int s;;) {
+                if (((s = lockState) & ~WAITER) == 0) {
+                    if (U.compareAndSwapInt(this, LOCKSTATE, s, WRITER)) {
+                        if (waiting)
+                            waiter = null;
+                        return;
+                    }
+                }
+                else if ((s & WAITER) == 0) {
+                    if (U.compareAndSwapInt(this, LOCKSTATE, s, s | WAITER)) {
+                        waiting = true;
+                        waiter = Thread.currentThread();
+                    }
+                }
+                else if (waiting)
+                    LockSupport.park(this);
+            }
+        }
+
+        /**
+         * Returns matching node or null if none. Tries to search
+         * using tree comparisons from root, but continues linear
+         * search when lock not available.
+         */
+        final Node find(long k) {
+            for (Node e = first; e != null; ) {
+                int s;
+                if (((s = lockState) & (WAITER|WRITER)) != 0) {
+                    if (e.key == k)
+                        return e;
+                    e = e.next;
+                }
+                else if (U.compareAndSwapInt(this, LOCKSTATE, s,
+                                             s + READER)) {
+                    TreeNode r, p;
+                    try {
+                        p = ((r = root) == null ? null :
+                             r.findTreeNode(k));
+                    } finally {
+                        Thread w;
+                        if (U.getAndAddInt(this, LOCKSTATE, -READER) ==
+                            (READER|WAITER) && (w = waiter) != null)
+                            LockSupport.unpark(w);
+                    }
+                    return p;
+                }
+            }
+            return null;
+        }
+
+        /**
+         * Finds or adds a node.
+         * @return null if added
+         */
+        final TreeNode putTreeVal(long k, long v) {
+            for (TreeNode p = root;;) {
+                boolean left; long pk;
+                if (p == null) {
+                    first = root = new TreeNode(k, v, null, null);
+                    break;
+                }
+                else if (k < (pk = p.key))
+                    left = true;
+                else if (k > pk)
+                    left = false;
+                else
+                    return p;
+
+                TreeNode xp = p;
+                if ((p = left ? p.left : p.right) == null) {
+                    TreeNode x, f = first;
+                    first = x = new TreeNode(k, v, f, xp);
+                    if (f != null)
+                        f.prev = x;
+                    if (left)
+                        xp.left = x;
+                    else
+                        xp.right = x;
+                    if (!xp.red)
+                        x.red = true;
+                    else {
+                        lockRoot();
+                        try {
+                            root = balanceInsertion(root, x);
+                        } finally {
+                            unlockRoot();
+                        }
+                    }
+                    break;
+                }
+            }
+            assert checkInvariants(root);
+            return null;
+        }
+
+        /**
+         * Removes the given node, that must be present before this
+         * call.  As in ConcurrentHashMap, this swaps tree linkages
+         * rather than contents, since nodes are pinned by "next"
+         * pointers that are accessible independently of lock.
+         *
+         * @return true if now too small, so should be untreeified
+         */
+        final boolean removeTreeNode(TreeNode p) {
+            TreeNode next = (TreeNode)p.next;
+            TreeNode pred = p.prev;  // unlink traversal pointers
+            TreeNode r, rl;
+            if (pred == null)
+                first = next;
+            else
+                pred.next = next;
+            if (next != null)
+                next.prev = pred;
+            if (first == null) {
+                root = null;
+                return true;
+            }
+            if ((r = root) == null || r.right == null || // too small
+                (rl = r.left) == null || rl.left == null)
+                return true;
+            lockRoot();
+            try {
+                TreeNode replacement;
+                TreeNode pl = p.left;
+                TreeNode pr = p.right;
+                if (pl != null && pr != null) {
+                    TreeNode s = pr, sl;
+                    while ((sl = s.left) != null) // find successor
+                        s = sl;
+                    boolean c = s.red; s.red = p.red; p.red = c; // swap colors
+                    TreeNode sr = s.right;
+                    TreeNode pp = p.parent;
+                    if (s == pr) { // p was s's direct parent
+                        p.parent = s;
+                        s.right = p;
+                    }
+                    else {
+                        TreeNode sp = s.parent;
+                        if ((p.parent = sp) != null) {
+                            if (s == sp.left)
+                                sp.left = p;
+                            else
+                                sp.right = p;
+                        }
+                        if ((s.right = pr) != null)
+                            pr.parent = s;
+                    }
+                    p.left = null;
+                    if ((p.right = sr) != null)
+                        sr.parent = p;
+                    if ((s.left = pl) != null)
+                        pl.parent = s;
+                    if ((s.parent = pp) == null)
+                        r = s;
+                    else if (p == pp.left)
+                        pp.left = s;
+                    else
+                        pp.right = s;
+                    if (sr != null)
+                        replacement = sr;
+                    else
+                        replacement = p;
+                }
+                else if (pl != null)
+                    replacement = pl;
+                else if (pr != null)
+                    replacement = pr;
+                else
+                    replacement = p;
+                if (replacement != p) {
+                    TreeNode pp = replacement.parent = p.parent;
+                    if (pp == null)
+                        r = replacement;
+                    else if (p == pp.left)
+                        pp.left = replacement;
+                    else
+                        pp.right = replacement;
+                    p.left = p.right = p.parent = null;
+                }
+
+                root = (p.red) ? r : balanceDeletion(r, replacement);
+
+                if (p == replacement) {  // detach pointers
+                    TreeNode pp;
+                    if ((pp = p.parent) != null) {
+                        if (p == pp.left)
+                            pp.left = null;
+                        else if (p == pp.right)
+                            pp.right = null;
+                        p.parent = null;
+                    }
+                }
+            } finally {
+                unlockRoot();
+            }
+            assert checkInvariants(root);
+            return false;
+        }
+
+        /* ------------------------------------------------------------ */
+        // Red-black tree methods, all adapted from CLR
+
+        static TreeNode rotateLeft(TreeNode root, TreeNode p) {
+            TreeNode r, pp, rl;
+            if (p != null && (r = p.right) != null) {
+                if ((rl = p.right = r.left) != null)
+                    rl.parent = p;
+                if ((pp = r.parent = p.parent) == null)
+                    (root = r).red = false;
+                else if (pp.left == p)
+                    pp.left = r;
+                else
+                    pp.right = r;
+                r.left = p;
+                p.parent = r;
+            }
+            return root;
+        }
+
+        static TreeNode rotateRight(TreeNode root, TreeNode p) {
+            TreeNode l, pp, lr;
+            if (p != null && (l = p.left) != null) {
+                if ((lr = p.left = l.right) != null)
+                    lr.parent = p;
+                if ((pp = l.parent = p.parent) == null)
+                    (root = l).red = false;
+                else if (pp.right == p)
+                    pp.right = l;
+                else
+                    pp.left = l;
+                l.right = p;
+                p.parent = l;
+            }
+            return root;
+        }
+
+        static TreeNode balanceInsertion(TreeNode root, TreeNode x) {
+            x.red = true;
+            for (TreeNode xp, xpp, xppl, xppr;;) {
+                if ((xp = x.parent) == null) {
+                    x.red = false;
+                    return x;
+                }
+                else if (!xp.red || (xpp = xp.parent) == null)
+                    return root;
+                if (xp == (xppl = xpp.left)) {
+                    if ((xppr = xpp.right) != null && xppr.red) {
+                        xppr.red = false;
+                        xp.red = false;
+                        xpp.red = true;
+                        x = xpp;
+                    }
+                    else {
+                        if (x == xp.right) {
+                            root = rotateLeft(root, x = xp);
+                            xpp = (xp = x.parent) == null ? null : xp.parent;
+                        }
+                        if (xp != null) {
+                            xp.red = false;
+                            if (xpp != null) {
+                                xpp.red = true;
+                                root = rotateRight(root, xpp);
+                            }
+                        }
+                    }
+                }
+                else {
+                    if (xppl != null && xppl.red) {
+                        xppl.red = false;
+                        xp.red = false;
+                        xpp.red = true;
+                        x = xpp;
+                    }
+                    else {
+                        if (x == xp.left) {
+                            root = rotateRight(root, x = xp);
+                            xpp = (xp = x.parent) == null ? null : xp.parent;
+                        }
+                        if (xp != null) {
+                            xp.red = false;
+                            if (xpp != null) {
+                                xpp.red = true;
+                                root = rotateLeft(root, xpp);
+                            }
+                        }
+                    }
+                }
+            }
+        }
+
+        static TreeNode balanceDeletion(TreeNode root, TreeNode x) {
+            for (TreeNode xp, xpl, xpr;;)  {
+                if (x == null || x == root)
+                    return root;
+                else if ((xp = x.parent) == null) {
+                    x.red = false;
+                    return x;
+                }
+                else if (x.red) {
+                    x.red = false;
+                    return root;
+                }
+                else if ((xpl = xp.left) == x) {
+                    if ((xpr = xp.right) != null && xpr.red) {
+                        xpr.red = false;
+                        xp.red = true;
+                        root = rotateLeft(root, xp);
+                        xpr = (xp = x.parent) == null ? null : xp.right;
+                    }
+                    if (xpr == null)
+                        x = xp;
+                    else {
+                        TreeNode sl = xpr.left, sr = xpr.right;
+                        if ((sr == null || !sr.red) &&
+                            (sl == null || !sl.red)) {
+                            xpr.red = true;
+                            x = xp;
+                        }
+                        else {
+                            if (sr == null || !sr.red) {
+                                if (sl != null)
+                                    sl.red = false;
+                                xpr.red = true;
+                                root = rotateRight(root, xpr);
+                                xpr = (xp = x.parent) == null ?
+                                    null : xp.right;
+                            }
+                            if (xpr != null) {
+                                xpr.red = (xp == null) ? false : xp.red;
+                                if ((sr = xpr.right) != null)
+                                    sr.red = false;
+                            }
+                            if (xp != null) {
+                                xp.red = false;
+                                root = rotateLeft(root, xp);
+                            }
+                            x = root;
+                        }
+                    }
+                }
+                else { // symmetric
+                    if (xpl != null && xpl.red) {
+                        xpl.red = false;
+                        xp.red = true;
+                        root = rotateRight(root, xp);
+                        xpl = (xp = x.parent) == null ? null : xp.left;
+                    }
+                    if (xpl == null)
+                        x = xp;
+                    else {
+                        TreeNode sl = xpl.left, sr = xpl.right;
+                        if ((sl == null || !sl.red) &&
+                            (sr == null || !sr.red)) {
+                            xpl.red = true;
+                            x = xp;
+                        }
+                        else {
+                            if (sl == null || !sl.red) {
+                                if (sr != null)
+                                    sr.red = false;
+                                xpl.red = true;
+                                root = rotateLeft(root, xpl);
+                                xpl = (xp = x.parent) == null ?
+                                    null : xp.left;
+                            }
+                            if (xpl != null) {
+                                xpl.red = (xp == null) ? false : xp.red;
+                                if ((sl = xpl.left) != null)
+                                    sl.red = false;
+                            }
+                            if (xp != null) {
+                                xp.red = false;
+                                root = rotateRight(root, xp);
+                            }
+                            x = root;
+                        }
+                    }
+                }
+            }
+        }
+
+        /**
+         * Recursive invariant check
+         */
+        static boolean checkInvariants(TreeNode t) {
+            TreeNode tp = t.parent, tl = t.left, tr = t.right,
+                tb = t.prev, tn = (TreeNode)t.next;
+            if (tb != null && tb.next != t)
+                return false;
+            if (tn != null && tn.prev != t)
+                return false;
+            if (tp != null && t != tp.left && t != tp.right)
+                return false;
+            if (tl != null && (tl.parent != t || tl.key > t.key))
+                return false;
+            if (tr != null && (tr.parent != t || tr.key < t.key))
+                return false;
+            if (t.red && tl != null && tl.red && tr != null && tr.red)
+                return false;
+            if (tl != null && !checkInvariants(tl))
+                return false;
+            if (tr != null && !checkInvariants(tr))
+                return false;
+            return true;
+        }
+
+        private static final sun.misc.Unsafe U;
+        private static final long LOCKSTATE;
+        static {
+            try {
+                U = sun.misc.Unsafe.getUnsafe();
+                Class<?> k = TreeBin.class;
+                LOCKSTATE = U.objectFieldOffset
+                    (k.getDeclaredField("lockState"));
+            } catch (Exception e) {
+                throw new Error(e);
+            }
+        }
+    }
+
+    /* ---------------- Parallel bulk operations -------------- */
+
+    /**
+     * Represents an operation that accepts a {@code long} key and
+     * {@code long} value and returns no result.
+     *
+     * @since 1.9
+     */
+    @FunctionalInterface
+    public interface LongLongConsumer {
+        /**
+         * Performs this operation on the given arguments.
+         *
+         * @param key the key
+         * @param value the value
+         */
+        void accept(long key, long value);
+    }
+
+    /**
+     * Represents a function that accepts a {@code long} key and
+     * {@code long} value and produces a result.
+     *
+     * @param <R> the type of the result of the function
+     * @since 1.9
+     */
+    @FunctionalInterface
+    public interface LongLongFunction<R> {
+        /**
+         * Applies this function to the given arguments.
+         *
+         * @param key the key
+         * @param value the value
+         * @return the function result
+         */
+        R apply(long key, long value);
+    }
+
+    /**
+     * Represents a function that accepts a {@code long} key and
+     * {@code long} value and produces a {@code long} result.
+     *
+     * @since 1.9
+     */
+    @FunctionalInterface
+    public interface LongLongToLongFunction {
+        /**
+         * Applies this function to the given arguments.
+         *
+         * @param key the key
+         * @param value the value
+         * @return the function result
+         */
+        long applyAsLong(long key, long value);
+    }
+
+    /**
+     * Computes initial batch value for bulk tasks, as in
+     * ConcurrentHashMap.
+     */
+    final int batchFor(long b) {
+        long n;
+        if (b == Long.MAX_VALUE || (n = sumCount()) <= 1L || n < b)
+            return 0;
+        int sp = ForkJoinPool.getCommonPoolParallelism() << 2; // slack of 4
+        return (b <= 0L || (n /= b) >= sp) ? sp : (int)n;
+    }
+
+    /**
+     * Performs the given action for each (key, value), sequentially
+     * in the current thread.
+     *
+     * @param action the action
+     */
+    public void forEach(LongLongConsumer action) {
+        forEach(Long.MAX_VALUE, action);
+    }
+
+    /**
+     * Performs the given action for each (key, value).
+     *
+     * @param parallelismThreshold the (estimated) number of elements
+     * needed for this operation to be executed in parallel
+     * @param action the action
+     */
+    public void forEach(long parallelismThreshold, LongLongConsumer action) {
+        if (action == null) throw new NullPointerException();
+        new ForEachMappingTask
+            (null, batchFor(parallelismThreshold), 0, 0, table,
+             action).invoke();
+    }
+
+    /**
+     * Returns a non-null result from applying the given search
+     * function on each (key, value), or null if none.  Upon
+     * success, further element processing is suppressed and the
+     * results of any other parallel invocations of the search
+     * function are ignored.
+     *
+     * @param parallelismThreshold the (estimated) number of elements
+     * needed for this operation to be executed in parallel
+     * @param searchFunction a function returning a non-null
+     * result on success, else null
+     * @param <U> the return type of the search function
+     * @return a non-null result from applying the given search
+     * function on each (key, value), or null if none
+     */
+    public <U> U search(long parallelismThreshold,
+                        LongLongFunction<? extends U> searchFunction) {
+        if (searchFunction == null) throw new NullPointerException();
+        return new SearchMappingsTask<U>
+            (null, batchFor(parallelismThreshold), 0, 0, table,
+             searchFunction, new AtomicReference<U>()).invoke();
+    }
+
+    /**
+     * Returns the result of accumulating the given transformation
+     * of all (key, value) pairs using the given reducer to
+     * combine values, and the given basis as an identity value.
+     *
+     * @param parallelismThreshold the (estimated) number of elements
+     * needed for this operation to be executed in parallel
+     * @param transformer a function returning the transformation
+     * for an element
+     * @param basis the identity (initial default value) for the reduction
+     * @param reducer a commutative associative combining function
+     * @return the result of accumulating the given transformation
+     * of all (key, value) pairs
+     */
+    public long reduceToLong(long parallelismThreshold,
+                             LongLongToLongFunction transformer,
+                             long basis,
+                             LongBinaryOperator reducer) {
+        if (transformer == null || reducer == null)
+            throw new NullPointerException();
+        return new MapReduceMappingsToLongTask
+            (null, batchFor(parallelismThreshold), 0, 0, table,
+             null, transformer, basis, reducer).invoke();
+    }
+
+    /**
+     * Returns the sum of all values, computed in parallel if the
+     * estimated size of the map exceeds the given threshold.
+     *
+     * @param parallelismThreshold the (estimated) number of elements
+     * needed for this operation to be executed in parallel
+     * @return the sum of all values
+     */
+    public long sumValues(long parallelismThreshold) {
+        return reduceToLong(parallelismThreshold, (k, v) -> v, 0L, Long::sum);
+    }
+
+    /* ----------------Table Traversal -------------- */
+
+    /**
+     * Records the table, its length, and current traversal index for a
+     * traverser that must process a region of a forwarded table before
+     * proceeding with current table.
+     */
+    static final class TableStack {
+        int length;
+        int index;
+        Node[] tab;
+        TableStack next;
+    }
+
+    /**
+     * Base class for bulk tasks, with traversal as in
+     * ConcurrentHashMap.BulkTask.
+     */
+    @SuppressWarnings("serial")
+    abstract static class BulkTask<R> extends CountedCompleter<R> {
+        Node[] tab;             // same as Traverser
+        Node next;
+        TableStack stack, spare;
+        int index;
+        int baseIndex;
+        int baseLimit;
+        final int baseSize;
+        int batch;              // split control
+
+        BulkTask(BulkTask<?> par, int b, int i, int f, Node[] t) {
+            super(par);
+            this.batch = b;
+            this.index = this.baseIndex = i;
+            if ((this.tab = t) == null)
+                this.baseSize = this.baseLimit = 0;
+            else if (par == null)
+                this.baseSize = this.baseLimit = t.length;
+            else {
+                this.baseLimit = f;
+                this.baseSize = par.baseSize;
+            }
+        }
+
+        /**
+         * Advances if possible, returning next valid node, or null if none.
+         */
+        final Node advance() {
+            Node e;
+            if ((e = next) != null)
+                e = e.next;
+            for (;;) {
+                Node[] t; int i, n;
+                if (e != null)
+                    return next = e;
+                if (baseIndex >= baseLimit || (t = tab) == null ||
+                    (n = t.length) <= (i = index) || i < 0)
+                    return next = null;
+                if ((e = tabAt(t, i)) instanceof ForwardingNode) {
+                    tab = ((ForwardingNode)e).nextTable;
+                    e = null;
+                    pushState(t, i, n);
+                    continue;
+                }
+                else if (e instanceof TreeBin)
+                    e = ((TreeBin)e).first;
+                else if (e instanceof ReservationNode)
+                    e = null;
+                if (stack != null)
+                    recoverState(n);
+                else if ((index = i + baseSize) >= n)
+                    index = ++baseIndex;
+            }
+        }
+
+        private void pushState(Node[] t, int i, int n) {
+            TableStack s = spare;
+            if (s != null)
+                spare = s.next;
+            else
+                s = new TableStack();
+            s.tab = t;
+            s.length = n;
+            s.index = i;
+            s.next = stack;
+            stack = s;
+        }
+
+        private void recoverState(int n) {
+            TableStack s; int len;
+            while ((s = stack) != null && (index += (len = s.length)) >= n) {
+                n = len;
+                index = s.index;
+                tab = s.tab;
+                s.tab = null;
+                TableStack next = s.next;
+                s.next = spare; // save for reuse
+                stack = next;
+                spare = s;
+            }
+            if (s == null && (index += baseSize) >= n)
+                index = ++baseIndex;
+        }
+    }
+
+    @SuppressWarnings("serial")
+    static final class ForEachMappingTask
+        extends BulkTask<Void> {
+        final LongLongConsumer action;
+        ForEachMappingTask
+            (BulkTask<?> p, int b, int i, int f, Node[] t,
+             LongLongConsumer action) {
+            super(p, b, i, f, t);
+            this.action = action;
+        }
+        public final void compute() {
+            final LongLongConsumer action;
+            if ((action = this.action) != null) {
+                for (int i = baseIndex, f, h; batch > 0 &&
+                         (h = ((f = baseLimit) + i) >>> 1) > i;) {
+                    addToPendingCount(1);
+                    new ForEachMappingTask
+                        (this, batch >>>= 1, baseLimit = h, f, tab,
+                         action).fork();
+                }
+                for (Node p; (p = advance()) != null; )
+                    action.accept(p.key, p.val);
+                propagateCompletion();
+            }
+        }
+    }
+
+    @SuppressWarnings("serial")
+    static final class SearchMappingsTask<U>
+        extends BulkTask<U> {
+        final LongLongFunction<? extends U> searchFunction;
+        final AtomicReference<U> result;
+        SearchMappingsTask
+            (BulkTask<?> p, int b, int i, int f, Node[] t,
+             LongLongFunction<? extends U> searchFunction,
+             AtomicReference<U> result) {
+            super(p, b, i, f, t);
+            this.searchFunction = searchFunction; this.result = result;
+        }
+        public final U getRawResult() { return result.get(); }
+        public final void compute() {
+            final LongLongFunction<? extends U> searchFunction;
+            final AtomicReference<U> result;
+            if ((searchFunction = this.searchFunction) != null &&
+                (result = this.result) != null) {
+                for (int i = baseIndex, f, h; batch > 0 &&
+                         (h = ((f = baseLimit) + i) >>> 1) > i;) {
+                    if (result.get() != null)
+                        return;
+                    addToPendingCount(1);
+                    new SearchMappingsTask<U>
+                        (this, batch >>>= 1, baseLimit = h, f, tab,
+                         searchFunction, result).fork();
+                }
+                while (result.get() == null) {
+                    U u;
+                    Node p;
+                    if ((p = advance()) == null) {
+                        propagateCompletion();
+                        break;
+                    }
+                    if ((u = searchFunction.apply(p.key, p.val)) != null) {
+                        if (result.compareAndSet(null, u))
+                            quietlyCompleteRoot();
+                        break;
+                    }
+                }
+            }
+        }
+    }
+
+    @SuppressWarnings("serial")
+    static final class MapReduceMappingsToLongTask
+        extends BulkTask<Long> {
+        final LongLongToLongFunction transformer;
+        final LongBinaryOperator reducer;
+        final long basis;
+        long result;
+        MapReduceMappingsToLongTask rights, nextRight;
+        MapReduceMappingsToLongTask
+            (BulkTask<?> p, int b, int i, int f, Node[] t,
+             MapReduceMappingsToLongTask nextRight,
+             LongLongToLongFunction transformer,
+             long basis,
+             LongBinaryOperator reducer) {
+            super(p, b, i, f, t); this.nextRight = nextRight;
+            this.transformer = transformer;
+            this.basis = basis; this.reducer = reducer;
+        }
+        public final Long getRawResult() { return result; }
+        public final void compute() {
+            final LongLongToLongFunction transformer;
+            final LongBinaryOperator reducer;
+            if ((transformer = this.transformer) != null &&
+                (reducer = this.reducer) != null) {
+                long r = this.basis;
+                for (int i = baseIndex, f, h; batch > 0 &&
+                         (h = ((f = baseLimit) + i) >>> 1) > i;) {
+                    addToPendingCount(1);
+                    (rights = new MapReduceMappingsToLongTask
+                     (this, batch >>>= 1, baseLimit = h, f, tab,
+                      rights, transformer, r, reducer)).fork();
+                }
+                for (Node p; (p = advance()) != null; )
+                    r = reducer.applyAsLong
+                        (r, transformer.applyAsLong(p.key, p.val));
+                result = r;
+                CountedCompleter<?> c;
+                for (c = firstComplete(); c != null; c = c.nextComplete()) {
+                    MapReduceMappingsToLongTask
+                        t = (MapReduceMappingsToLongTask)c,
+                        s = t.rights;
+                    while (s != null) {
+                        t.result = reducer.applyAsLong(t.result, s.result);
+                        s = t.rights = s.nextRight;
+                    }
+                }
+            }
+        }
+    }
+
+    // Unsafe mechanics
+    private static final sun.misc.Unsafe U;
+    private static final long SIZECTL;
+    private static final long TRANSFERINDEX;
+    private static final long BASECOUNT;
+    private static final long CELLSBUSY;
+    private static final long CELLVALUE;
+    private static final long ABASE;
+    private static final int ASHIFT;
+
+    static {
+        try {
+            U = sun.misc.Unsafe.getUnsafe();
+            Class<?> k = ConcurrentLongLongHashMap.class;
+            SIZECTL = U.objectFieldOffset
+                (k.getDeclaredField("sizeCtl"));
+            TRANSFERINDEX = U.objectFieldOffset
+                (k.getDeclaredField("transferIndex"));
+            BASECOUNT = U.objectFieldOffset
+                (k.getDeclaredField("baseCount"));
+            CELLSBUSY = U.objectFieldOffset
+                (k.getDeclaredField("cellsBusy"));
+            Class<?> ck = CounterCell.class;
+            CELLVALUE = U.objectFieldOffset
+                (ck.getDeclaredField("value"));
+            Class<?> ak = Node[].class;
+            ABASE = U.arrayBaseOffset(ak);
+            int scale = U.arrayIndexScale(ak);
+            if ((scale & (scale - 1)) != 0)
+                throw new Error("data type scale not a power of two");
+            ASHIFT = 31 - Integer.numberOfLeadingZeros(scale);
+        } catch (Exception e) {
+            throw new Error(e);
+        }
+    }
+}
@@ -0,0 +1,952 @@
+/*
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+package java.util.concurrent;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.ListIterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.RandomAccess;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
+
+/**
+ * A thread-safe list with the snapshot semantics of {@link
+ * CopyOnWriteArrayList}, but in which mutative operations copy only
+ * a small part of an immutable tree rather than the entire array.
+ *
+ * <p>Elements are held in a persistent 32-way trie of fixed-size
+ * chunks, with a separate trailing chunk.  Each update constructs
+ * a new version of the list sharing all unchanged chunks with the
+ * previous one, and installs it with a single compare-and-set, so
+ * updates never block or lock.  Appending an element ({@code add}),
+ * replacing one ({@code set}), and removing the last element each
+ * copy O(log<sub>32</sub> n) arrays of at most 32 elements;
+ * for lists of a few tens of thousands of elements, this is at
+ * most four small arrays.  Other insertions and removals, and bulk
+ * operations such as {@code removeIf} and {@code sort}, rebuild the
+ * list in O(n) time, as do all mutations in {@code
+ * CopyOnWriteArrayList}.  Under heavy contention among writers,
+ * updates may be retried.
+ *
+ * <p>Reads are wait-free: {@code get} follows at most a few array
+ * references from the current version, and iterators and other
+ * traversals use the version current when they start.  Iterators
+ * never throw {@code ConcurrentModificationException}, do not
+ * reflect updates made after their creation, and do not support
+ * the element-changing operations {@code remove}, {@code set} and
+ * {@code add}.  Views returned by {@link #subList} are not
+ * snapshots: each operation on a view reads or updates the current
+ * version of this list.
+ *
+ * <p>All elements are permitted, including {@code null}.
+ *
+ * <p>Memory consistency effects: As with other concurrent
+ * collections, actions in a thread prior to placing an object into a
+ * {@code CopyOnWriteTrieList}
+ * <a href="package-summary.html#MemoryVisibility"><i>happen-before</i></a>
+ * actions subsequent to the access or removal of that element from
+ * the {@code CopyOnWriteTrieList} in another thread.
+ *
+ * <p>This class is a member of the
+ * <a href="{@docRoot}/../technotes/guides/collections/index.html">
+ * Java Collections Framework</a>.
+ *
+ * @since 1.9
+ * @param <E> the type of elements held in this collection
+ */
+public class CopyOnWriteTrieList<E> extends AbstractList<E>
+    implements RandomAccess, Cloneable, java.io.Serializable {
+    private static final long serialVersionUID = -4061396826733395812L;
+
+    /*
+     * Overview:
+     *
+     * Each version is an immutable Trie, as in the persistent
+     * vectors of Clojure and Scala: leaves and interior nodes are
+     * arrays of length 32, with the shift of the root (a multiple of
+     * 5, at least 5) giving the depth, and the last 1 to 32
+     * elements are kept outside the tree in a variable-length tail
+     * array.  Appends usually copy only the tail; every 32nd append
+     * pushes the full tail into the tree, copying one path.  The
+     * tree is always left-packed, so its shape is determined by the
+     * size alone, and the elements at indices below tailOffset() are
+     * in the tree.
+     *
+     * The list holds a volatile reference to the current version,
+     * updated only by CAS.  All mutators read the current version,
+     * construct a new one, and retry if the CAS fails.
+     */
+
+    static final int BITS = 5;
+    static final int WIDTH = 1 << BITS;
+    static final int MASK = WIDTH - 1;
+
+    /** Interior node of an empty tree, never modified */
+    static final Object[] EMPTY_NODE = new Object[WIDTH];
+
+    /**
+     * An immutable version of the list.
+     */
+    static final class Trie {
+        final int size;
+        final int shift;
+        final Object[] root;
+        final Object[] tail;
+
+        Trie(int size, int shift, Object[] root, Object[] tail) {
+            this.size = size;
+            this.shift = shift;
+            this.root = root;
+            this.tail = tail;
+        }
+
+        /** Index of the first element in the tail */
+        int tailOffset() {
+            return (size <= WIDTH) ? 0 : ((size - 1) >>> BITS) << BITS;
+        }
+
+        /** Returns the chunk holding index i, which must be in range */
+        Object[] chunkFor(int i) {
+            if (i >= tailOffset())
+                return tail;
+            Object[] node = root;
+            for (int level = shift; level > 0; level -= BITS)
+                node = (Object[])node[(i >>> level) & MASK];
+            return node;
+        }
+
+        Object get(int i) {
+            return chunkFor(i)[i & MASK];
+        }
+
+        /** Returns a version with x appended */
+        Trie append(Object x) {
+            int n = size;
+            if (n - tailOffset() < WIDTH) {
+                Object[] t = Arrays.copyOf(tail, tail.length + 1);
+                t[t.length - 1] = x;
+                return new Trie(n + 1, shift, root, t);
+            }
+            Object[] r; int s = shift;
+            if ((n >>> BITS) > (1 << s)) {    // root overflow
+                r = new Object[WIDTH];
+                r[0] = root;
+                r[1] = newPath(s, tail);
+                s += BITS;
+            }
+            else
+                r = pushTail(n, s, root, tail);
+            return new Trie(n + 1, s, r, new Object[] { x });
+        }
+
+        /** Returns a version with element i replaced by x */
+        Trie set(int i, Object x) {
+            if (i >= tailOffset()) {
+                Object[] t = tail.clone();
+                t[i & MASK] = x;
+                return new Trie(size, shift, root, t);
+            }
+            return new Trie(size, shift, assoc(shift, root, i, x), tail);
+        }
+
+        /** Returns a version without its last element */
+        Trie pop() {
+            int n = size;
+            if (n <= 1)
+                return EMPTY;
+            if (n - tailOffset() > 1)
+                return new Trie(n - 1, shift, root,
+                                Arrays.copyOf(tail, tail.length - 1));
+            Object[] t = chunkFor(n - 2);
+            Object[] r = popTail(n, shift, root);
+            int s = shift;
+            if (r == null)
+                r = EMPTY_NODE;
+            if (s > BITS && r[1] == null) {
+                r = (Object[])r[0];
+                s -= BITS;
+            }
+            return new Trie(n - 1, s, r, t);
+        }
+
+        /** Copies elements into a, starting at index off */
+        void copyInto(Object[] a, int off) {
+            int n = size;
+            for (int i = 0; i < n; i += WIDTH) {
+                Object[] c = chunkFor(i);
+                System.arraycopy(c, 0, a, off + i, Math.min(WIDTH, n - i));
+            }
+        }
+
+        Object[] toArray() {
+            Object[] a = new Object[size];
+            copyInto(a, 0);
+            return a;
+        }
+    }
+
+    static final Trie EMPTY = new Trie(0, BITS, EMPTY_NODE, new Object[0]);
+
+    static Object[] newPath(int level, Object[] node) {
+        if (level == 0)
+            return node;
+        Object[] r = new Object[WIDTH];
+        r[0] = newPath(level - BITS, node);
+        return r;
+    }
+
+    static Object[] pushTail(int n, int level, Object[] parent,
+                             Object[] tailNode) {
+        int sub = ((n - 1) >>> level) & MASK;
+        Object[] r = parent.clone();
+        Object[] ins;
+        if (level == BITS)
+            ins = tailNode;
+        else {
+            Object[] child = (Object[])parent[sub];
+            ins = (child != null) ?
+                pushTail(n, level - BITS, child, tailNode) :
+                newPath(level - BITS, tailNode);
+        }
+        r[sub] = ins;
+        return r;
+    }
+
+    static Object[] assoc(int level, Object[] node, int i, Object x) {
+        Object[] r = node.clone();
+        if (level == 0)
+            r[i & MASK] = x;
+        else {
+            int sub = (i >>> level) & MASK;
+            r[sub] = assoc(level - BITS, (Object[])node[sub], i, x);
+        }
+        return r;
+    }
+
+    static Object[] popTail(int n, int level, Object[] node) {
+        int sub = ((n - 2) >>> level) & MASK;
+        if (level > BITS) {
+            Object[] child = popTail(n, level - BITS, (Object[])node[sub]);
+            if (child == null && sub == 0)
+                return null;
+            Object[] r = node.clone();
+            r[sub] = child;
+            return r;
+        }
+        else if (sub == 0)
+            return null;
+        else {
+            Object[] r = node.clone();
+            r[sub] = null;
+            return r;
+        }
+    }
+
+    /**
+     * Returns a version holding the first n elements of a, building
+     * the tree bottom-up without intermediate copies.
+     */
+    static Trie build(Object[] a, int n) {
+        if (n == 0)
+            return EMPTY;
+        int tailOff = ((n - 1) >>> BITS) << BITS;
+        Object[] tail = Arrays.copyOfRange(a, tailOff, n);
+        int count = tailOff >>> BITS;      // number of leaves
+        if (count == 0)
+            return new Trie(n, BITS, EMPTY_NODE, tail);
+        Object[] nodes = new Object[count];
+        for (int i = 0; i < count; ++i)
+            nodes[i] = Arrays.copyOfRange(a, i << BITS, (i + 1) << BITS);
+        int shift = BITS;
+        while (count > WIDTH) {
+            int parents = (count + MASK) >>> BITS;
+            Object[] up = new Object[parents];
+            for (int i = 0; i < parents; ++i) {
+                Object[] p = new Object[WIDTH];
+                int lo = i << BITS;
+                System.arraycopy(nodes, lo, p, 0, Math.min(WIDTH, count - lo));
+                up[i] = p;
+            }
+            nodes = up;
+            count = parents;
+            shift += BITS;
+        }
+        return new Trie(n, shift, Arrays.copyOf(nodes, WIDTH), tail);
+    }
+
+    /** The current version, updated only via casTrie */
+    private transient volatile Trie trie;
+
+    final Trie getTrie() {
+        return trie;
+    }
+
+    private boolean casTrie(Trie cmp, Trie val) {
+        return U.compareAndSwapObject(this, TRIE, cmp, val);
+    }
+
+    /**
+     * Creates an empty list.
+     */
+    public CopyOnWriteTrieList() {
+        trie = EMPTY;
+    }
+
+    /**
+     * Creates a list containing the elements of the specified
+     * collection, in the order they are returned by the collection's
+     * iterator.
+     *
+     * @param c the collection of initially held elements
+     * @throws NullPointerException if the specified collection is null
+     */
+    public CopyOnWriteTrieList(Collection<? extends E> c) {
+        Object[] a = c.toArray();
+        trie = build(a, a.length);
+    }
+
+    /**
+     * Returns the number of elements in this list.
+     *
+     * @return the number of elements in this list
+     */
+    public int size() {
+        return trie.size;
+    }
+
+    /**
+     * Returns {@code true} if this list contains no elements.
+     *
+     * @return {@code true} if this list contains no elements
+     */
+    public boolean isEmpty() {
+        return trie.size == 0;
+    }
+
+    static String outOfBounds(int index, int size) {
+        return "Index: " + index + ", Size: " + size;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws IndexOutOfBoundsException {@inheritDoc}
+     */
+    @SuppressWarnings("unchecked")
+    public E get(int index) {
+        Trie t = trie;
+        if (index < 0 || index >= t.size)
+            throw new IndexOutOfBoundsException(outOfBounds(index, t.size));
+        return (E)t.get(index);
+    }
+
+    /**
+     * Replaces the element at the specified position in this list with the
+     * specified element.
+     *
+     * @throws IndexOutOfBoundsException {@inheritDoc}
+     */
+    @SuppressWarnings("unchecked")
+    public E set(int index, E element) {
+        for (;;) {
+            Trie t = trie;
+            if (index < 0 || index >= t.size)
+                throw new IndexOutOfBoundsException(outOfBounds(index, t.size));
+            Object old = t.get(index);
+            if (old == element || casTrie(t, t.set(index, element)))
+                return (E)old;
+        }
+    }
+
+    /**
+     * Appends the specified element to the end of this list.
+     *
+     * @param e element to be appended to this list
+     * @return {@code true} (as specified by {@link Collection#add})
+     */
+    public boolean add(E e) {
+        Trie t;
+        do {} while (!casTrie(t = trie, t.append(e)));
+        return true;
+    }
+
+    /**
+     * Inserts the specified element at the specified position in this
+     * list. Shifts the element currently at that position (if any) and
+     * any subsequent elements to the right (adds one to their indices).
+     *
+     * @throws IndexOutOfBoundsException {@inheritDoc}
+     */
+    public void add(int index, E element) {
+        for (;;) {
+            Trie t = trie;
+            int n = t.size;
+            if (index > n || index < 0)
+                throw new IndexOutOfBoundsException(outOfBounds(index, n));
+            Trie u;
+            if (index == n)
+                u = t.append(element);
+            else {
+                Object[] a = new Object[n + 1];
+                t.copyInto(a, 0);
+                System.arraycopy(a, index, a, index + 1, n - index);
+                a[index] = element;
+                u = build(a, n + 1);
+            }
+            if (casTrie(t, u))
+                return;
+        }
+    }
+
+    /**
+     * Removes the element at the specified position in this list.
+     * Shifts any subsequent elements to the left (subtracts one from their
+     * indices).  Returns the element that was removed from the list.
+     *
+     * @throws IndexOutOfBoundsException {@inheritDoc}
+     */
+    @SuppressWarnings("unchecked")
+    public E remove(int index) {
+        for (;;) {
+            Trie t = trie;
+            int n = t.size;
+            if (index < 0 || index >= n)
+                throw new IndexOutOfBoundsException(outOfBounds(index, n));
+            Object old = t.get(index);
+            if (casTrie(t, removeAt(t, index)))
+                return (E)old;
+        }
+    }
+
+    /** Returns a version of t without element at index */
+    static Trie removeAt(Trie t, int index) {
+        int n = t.size;
+        if (index == n - 1)
+            return t.pop();
+        Object[] a = t.toArray();
+        System.arraycopy(a, index + 1, a, index, n - index - 1);
+        return build(a, n - 1);
+    }
+
+    /**
+     * Removes the first occurrence of the specified element from this list,
+     * if it is present.  If this list does not contain the element, it is
+     * unchanged.
+     *
+     * @param o element to be removed from this list, if present
+     * @return {@code true} if this list contained the specified element
+     */
+    public boolean remove(Object o) {
+        for (;;) {
+            Trie t = trie;
+            int i = indexOf(t, o, 0, t.size);
+            if (i < 0)
+                return false;
+            if (casTrie(t, removeAt(t, i)))
+                return true;
+        }
+    }
+
+    /**
+     * Appends the element, if not present.
+     *
+     * @param e element to be added to this list, if absent
+     * @return {@code true} if the element was added
+     */
+    public boolean addIfAbsent(E e) {
+        for (;;) {
+            Trie t = trie;
+            if (indexOf(t, e, 0, t.size) >= 0)
+                return false;
+            if (casTrie(t, t.append(e)))
+                return true;
+        }
+    }
+
+    /**
+     * Appends all of the elements in the specified collection to the end
+     * of this list, in the order that they are returned by the specified
+     * collection's iterator.
+     *
+     * @param c collection containing elements to be added to this list
+     * @return {@code true} if this list changed as a result of the call
+     * @throws NullPointerException if the specified collection is null
+     */
+    public boolean addAll(Collection<? extends E> c) {
+        Object[] cs = c.toArray();
+        if (cs.length == 0)
+            return false;
+        for (;;) {
+            Trie t = trie, u = t;
+            if (cs.length <= WIDTH) {
+                for (Object x : cs)
+                    u = u.append(x);
+            }
+            else {
+                Object[] a = new Object[t.size + cs.length];
+                t.copyInto(a, 0);
+                System.arraycopy(cs, 0, a, t.size, cs.length);
+                u = build(a, a.length);
+            }
+            if (casTrie(t, u))
+                return true;
+        }
+    }
+
+    /**
+     * Removes all of the elements from this list.
+     * The list will be empty after this call returns.
+     */
+    public void clear() {
+        trie = EMPTY;
+    }
+
+    static int indexOf(Trie t, Object o, int from, int to) {
+        for (int i = from; i < to; ) {
+            Object[] c = t.chunkFor(i);
+            int j = i & MASK, end = Math.min(WIDTH, to - i + j);
+            if (o == null) {
+                for (; j < end; ++j)
+                    if (c[j] == null)
+                        return (i & ~MASK) + j;
+            }
+            else {
+                for (; j < end; ++j)
+                    if (o.equals(c[j]))
+                        return (i & ~MASK) + j;
+            }
+            i = (i & ~MASK) + WIDTH;
+        }
+        return -1;
+    }
+
+    /**
+     * Returns {@code true} if this list contains the specified element.
+     *
+     * @param o element whose presence in this list is to be tested
+     * @return {@code true} if this list contains the specified element
+     */
+    public boolean contains(Object o) {
+        Trie t = trie;
+        return indexOf(t, o, 0, t.size) >= 0;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public int indexOf(Object o) {
+        Trie t = trie;
+        return indexOf(t, o, 0, t.size);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public int lastIndexOf(Object o) {
+        Trie t = trie;
+        for (int i = t.size - 1; i >= 0; --i) {
+            if (Objects.equals(o, t.get(i)))
+                return i;
+        }
+        return -1;
+    }
+
+    /**
+     * Returns an array containing all of the elements in this list
+     * in proper sequence (from first to last element).
+     *
+     * @return an array containing all the elements in this list
+     */
+    public Object[] toArray() {
+        return trie.toArray();
+    }
+
+    /**
+     * Returns an array containing all of the elements in this list in
+     * proper sequence (from first to last element); the runtime type of
+     * the returned array is that of the specified array.
+     *
+     * @param a the array into which the elements of the list are to
+     *          be stored, if it is big enough; otherwise, a new array of the
+     *          same runtime type is allocated for this purpose.
+     * @return an array containing all the elements in this list
+     * @throws ArrayStoreException if the runtime type of the specified array
+     *         is not a supertype of the runtime type of every element in
+     *         this list
+     * @throws NullPointerException if the specified array is null
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T[] toArray(T[] a) {
+        Trie t = trie;
+        int n = t.size;
+        if (a.length < n)
+            a = (T[])java.lang.reflect.Array.newInstance
+                (a.getClass().getComponentType(), n);
+        t.copyInto(a, 0);
+        if (a.length > n)
+            a[n] = null;
+        return a;
+    }
+
+    @SuppressWarnings("unchecked")
+    public void forEach(Consumer<? super E> action) {
+        if (action == null) throw new NullPointerException();
+        Trie t = trie;
+        int n = t.size;
+        for (int i = 0; i < n; i += WIDTH) {
+            Object[] c = t.chunkFor(i);
+            for (int j = 0, end = Math.min(WIDTH, n - i); j < end; ++j)
+                action.accept((E)c[j]);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    public boolean removeIf(Predicate<? super E> filter) {
+        if (filter == null) throw new NullPointerException();
+        for (;;) {
+            Trie t = trie;
+            Object[] a = t.toArray();
+            int n = 0;
+            for (Object x : a) {
+                if (!filter.test((E)x))
+                    a[n++] = x;
+            }
+            if (n == a.length)
+                return false;
+            if (casTrie(t, build(a, n)))
+                return true;
+        }
+    }
+
+    /**
+     * Removes from this list all of its elements that are contained in
+     * the specified collection.
+     *
+     * @param c collection containing elements to be removed from this list
+     * @return {@code true} if this list changed as a result of the call
+     * @throws NullPointerException if the specified collection is null
+     */
+    public boolean removeAll(Collection<?> c) {
+        if (c == null) throw new NullPointerException();
+        return removeIf(e -> c.contains(e));
+    }
+
+    /**
+     * Retains only the elements in this list that are contained in the
+     * specified collection.
+     *
+     * @param c collection containing elements to be retained in this list
+     * @return {@code true} if this list changed as a result of the call
+     * @throws NullPointerException if the specified collection is null
+     */
+    public boolean retainAll(Collection<?> c) {
+        if (c == null) throw new NullPointerException();
+        return removeIf(e -> !c.contains(e));
+    }
+
+    /**
+     * Removes from this list all of the elements whose index is between
+     * {@code fromIndex}, inclusive, and {@code toIndex}, exclusive.
+     *
+     * @param fromIndex index of first element to be removed
+     * @param toIndex index after last element to be removed
+     * @throws IndexOutOfBoundsException if fromIndex or toIndex out of range
+     *         ({@code fromIndex < 0 || toIndex > size() || toIndex < fromIndex})
+     */
+    protected void removeRange(int fromIndex, int toIndex) {
+        for (;;) {
+            Trie t = trie;
+            int n = t.size;
+            if (fromIndex < 0 || toIndex > n || toIndex < fromIndex)
+                throw new IndexOutOfBoundsException();
+            if (fromIndex == toIndex)
+                return;
+            Object[] a = t.toArray();
+            System.arraycopy(a, toIndex, a, fromIndex, n - toIndex);
+            if (casTrie(t, build(a, n - (toIndex - fromIndex))))
+                return;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    public void replaceAll(UnaryOperator<E> operator) {
+        if (operator == null) throw new NullPointerException();
+        for (;;) {
+            Trie t = trie;
+            Object[] a = t.toArray();
+            for (int i = 0; i < a.length; ++i)
+                a[i] = operator.apply((E)a[i]);
+            if (casTrie(t, build(a, a.length)))
+                return;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    public void sort(Comparator<? super E> c) {
+        for (;;) {
+            Trie t = trie;
+            Object[] a = t.toArray();
+            Arrays.sort(a, (Comparator<Object>)c);
+            if (casTrie(t, build(a, a.length)))
+                return;
+        }
+    }
+
+    /**
+     * Returns a shallow copy of this list.  (The elements themselves
+     * are not copied.)  The copy shares the current version, so
+     * takes constant time.
+     *
+     * @return a clone of this list
+     */
+    public Object clone() {
+        try {
+            @SuppressWarnings("unchecked")
+            CopyOnWriteTrieList<E> clone =
+                (CopyOnWriteTrieList<E>) super.clone();
+            clone.trie = trie;
+            return clone;
+        } catch (CloneNotSupportedException e) {
+            // this shouldn't happen, since we are Cloneable
+            throw new InternalError();
+        }
+    }
+
+    /**
+     * Returns an iterator over the elements in this list in proper sequence.
+     *
+     * <p>The returned iterator provides a snapshot of the state of the list
+     * when the iterator was constructed. No synchronization is needed while
+     * traversing the iterator. The iterator does <em>NOT</em> support the
+     * {@code remove} method.
+     *
+     * @return an iterator over the elements in this list in proper sequence
+     */
+    public Iterator<E> iterator() {
+        return new TrieIterator<E>(trie, 0);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>The returned iterator provides a snapshot of the state of the list
+     * when the iterator was constructed. No synchronization is needed while
+     * traversing the iterator. The iterator does <em>NOT</em> support the
+     * {@code remove}, {@code set} or {@code add} methods.
+     */
+    public ListIterator<E> listIterator() {
+        return new TrieIterator<E>(trie, 0);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>The returned iterator provides a snapshot of the state of the list
+     * when the iterator was constructed. No synchronization is needed while
+     * traversing the iterator. The iterator does <em>NOT</em> support the
+     * {@code remove}, {@code set} or {@code add} methods.
+     *
+     * @throws IndexOutOfBoundsException {@inheritDoc}
+     */
+    public ListIterator<E> listIterator(int index) {
+        Trie t = trie;
+        if (index < 0 || index > t.size)
+            throw new IndexOutOfBoundsException(outOfBounds(index, t.size));
+        return new TrieIterator<E>(t, index);
+    }
+
+    /**
+     * Returns a {@link Spliterator} over the elements in this list.
+     *
+     * <p>The {@code Spliterator} reports {@link Spliterator#IMMUTABLE},
+     * {@link Spliterator#ORDERED}, {@link Spliterator#SIZED}, and
+     * {@link Spliterator#SUBSIZED}.
+     *
+     * <p>The spliterator provides a snapshot of the state of the list
+     * when the spliterator was constructed. No synchronization is needed while
+     * operating on the spliterator.
+     *
+     * @return a {@code Spliterator} over the elements in this list
+     */
+    public Spliterator<E> spliterator() {
+        return Spliterators.spliterator
+            (trie.toArray(), Spliterator.IMMUTABLE | Spliterator.ORDERED);
+    }
+
+    static final class TrieIterator<E> implements ListIterator<E> {
+        /** Snapshot of the list */
+        private final Trie snapshot;
+        /** Index of element to be returned by subsequent call to next.  */
+        private int cursor;
+        /** Chunk holding cursor, or null if not yet located */
+        private Object[] chunk;
+
+        TrieIterator(Trie snapshot, int initialCursor) {
+            this.snapshot = snapshot;
+            this.cursor = initialCursor;
+        }
+
+        public boolean hasNext() {
+            return cursor < snapshot.size;
+        }
+
+        public boolean hasPrevious() {
+            return cursor > 0;
+        }
+
+        @SuppressWarnings("unchecked")
+        public E next() {
+            int i = cursor;
+            if (i >= snapshot.size)
+                throw new NoSuchElementException();
+            Object[] c = chunk;
+            if (c == null || (i & MASK) == 0)
+                chunk = c = snapshot.chunkFor(i);
+            cursor = i + 1;
+            return (E)c[i & MASK];
+        }
+
+        @SuppressWarnings("unchecked")
+        public E previous() {
+            if (cursor <= 0)
+                throw new NoSuchElementException();
+            chunk = null;
+            return (E)snapshot.get(--cursor);
+        }
+
+        public int nextIndex() {
+            return cursor;
+        }
+
+        public int previousIndex() {
+            return cursor - 1;
+        }
+
+        /**
+         * Not supported. Always throws UnsupportedOperationException.
+         * @throws UnsupportedOperationException always; {@code remove}
+         *         is not supported by this iterator.
+         */
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+
+        /**
+         * Not supported. Always throws UnsupportedOperationException.
+         * @throws UnsupportedOperationException always; {@code set}
+         *         is not supported by this iterator.
+         */
+        public void set(E e) {
+            throw new UnsupportedOperationException();
+        }
+
+        /**
+         * Not supported. Always throws UnsupportedOperationException.
+         * @throws UnsupportedOperationException always; {@code add}
+         *         is not supported by this iterator.
+         */
+        public void add(E e) {
+            throw new UnsupportedOperationException();
+        }
+
+        @SuppressWarnings("unchecked")
+        public void forEachRemaining(Consumer<? super E> action) {
+            Objects.requireNonNull(action);
+            Trie t = snapshot;
+            int n = t.size, i = cursor;
+            while (i < n) {
+                Object[] c = t.chunkFor(i);
+                for (int end = Math.min(n, (i & ~MASK) + WIDTH); i < end; ++i)
+                    action.accept((E)c[i & MASK]);
+            }
+            cursor = n;
+        }
+    }
+
+    /**
+     * Saves this list to a stream (that is, serializes it).
+     *
+     * @param s the stream
+     * @throws java.io.IOException if an I/O error occurs
+     * @serialData The length of the list is emitted (int), followed
+     *             by all of its elements (each an Object) in the
+     *             proper order.
+     */
+    private void writeObject(java.io.ObjectOutputStream s)
+        throws java.io.IOException {
+
+        s.defaultWriteObject();
+
+        Object[] elements = trie.toArray();
+        // Write out array length
+        s.writeInt(elements.length);
+
+        // Write out all elements in the proper order.
+        for (Object element : elements)
+            s.writeObject(element);
+    }
+
+    /**
+     * Reconstitutes this list from a stream (that is, deserializes it).
+     * @param s the stream
+     * @throws ClassNotFoundException if the class of a serialized object
+     *         could not be found
+     * @throws java.io.IOException if an I/O error occurs
+     */
+    private void readObject(java.io.ObjectInputStream s)
+        throws java.io.IOException, ClassNotFoundException {
+
+        s.defaultReadObject();
+
+        // Read in array length and allocate array
+        int len = s.readInt();
+        Object[] elements = new Object[len];
+
+        // Read in all elements in the proper order.
+        for (int i = 0; i < len; i++)
+            elements[i] = s.readObject();
+        trie = build(elements, len);
+    }
+
+    // Unsafe mechanics
+    private static final sun.misc.Unsafe U;
+    private static final long TRIE;
+    static {
+        try {
+            U = sun.misc.Unsafe.getUnsafe();
+            Class<?> k = CopyOnWriteTrieList.class;
+            TRIE = U.objectFieldOffset
+                (k.getDeclaredField("trie"));
+        } catch (Exception e) {
+            throw new Error(e);
+        }
+    }
+}
@@ -0,0 +1,241 @@
+/*
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+package java.util.concurrent;
+
+/**
+ * The management interface for the task timing and worker statistics
+ * of a {@link ThreadPoolExecutor} or {@link ForkJoinPool}. Statistics
+ * are collected only once enabled, using {@link
+ * ThreadPoolExecutor#enableStatistics} or {@link
+ * ForkJoinPool#enableStatistics}, which return the pool's {@code
+ * ExecutorMXBean}. This may in turn be registered with an {@code
+ * MBeanServer}, for example:
+ *
+ *  <pre> {@code
+ * ForkJoinPool pool = new ForkJoinPool();
+ * ManagementFactory.getPlatformMBeanServer().registerMBean(
+ *     pool.enableStatistics(),
+ *     new ObjectName("com.example:type=ForkJoinPool,name=main"));}</pre>
+ *
+ * <p>All times are measured using {@link System#nanoTime} and
+ * reported in nanoseconds. Each task time is recorded in a histogram
+ * of power-of-two buckets: element {@code 0} of the array returned by
+ * {@link #getRunTimeHistogram} or {@link #getQueueWaitTimeHistogram}
+ * counts times of zero, and element {@code i > 0} counts times
+ * {@code t} with <code>2<sup>i-1</sup> &lt;= t &lt; 2<sup>i</sup></code>.
+ * Recording is designed to add little overhead under contention,
+ * and values are accumulated without locking, so values returned
+ * while tasks are running are not atomic snapshots.
+ *
+ * <p>The <em>run time</em> of a task is the time taken by a worker
+ * thread to execute it. For a {@code ForkJoinPool}, only top-level
+ * tasks, those taken from a queue by a worker, are timed; the times
+ * of subtasks they fork and join are included in their own. The
+ * <em>queue wait time</em> of a task is the time between its
+ * submission and the start of its execution. It is recorded only for
+ * tasks that were held in a queue: for a {@code ThreadPoolExecutor},
+ * those passed to {@link ThreadPoolExecutor#execute execute} (or
+ * methods using it) that are not run as the first task of a new
+ * worker; and for a {@code ForkJoinPool}, those submitted from
+ * threads that are not workers of the pool. Submission times are
+ * held in a table of bounded size apart from the tasks, so while many
+ * tasks are queued at once, the wait times of some of them may not
+ * be recorded.
+ *
+ * @since 1.9
+ */
+public interface ExecutorMXBean {
+
+    /**
+     * Statistics for a single worker thread.
+     */
+    interface WorkerStatistics {
+        /**
+         * Returns the ID of the worker thread.
+         *
+         * @return the thread ID
+         */
+        long getThreadId();
+
+        /**
+         * Returns the name of the worker thread.
+         *
+         * @return the thread name
+         */
+        String getThreadName();
+
+        /**
+         * Returns the number of tasks run by the worker since
+         * statistics were enabled.
+         *
+         * @return the number of tasks
+         */
+        long getTaskCount();
+
+        /**
+         * Returns the number of tasks the worker has taken from
+         * queues since statistics were enabled. For a {@code
+         * ThreadPoolExecutor}, this is always zero.
+         *
+         * @return the number of steals
+         */
+        long getStealCount();
+
+        /**
+         * Returns the number of times the worker has blocked
+         * awaiting tasks since statistics were enabled.
+         *
+         * @return the number of parks
+         */
+        long getParkCount();
+
+        /**
+         * Returns the number of times the worker has been woken
+         * up, after blocking, to run tasks since statistics were
+         * enabled.
+         *
+         * @return the number of unparks
+         */
+        long getUnparkCount();
+    }
+
+    /**
+     * Returns the number of tasks whose run time has been recorded.
+     *
+     * @return the number of timed tasks
+     */
+    long getRunCount();
+
+    /**
+     * Returns the sum of the recorded run times.
+     *
+     * @return the total run time in nanoseconds
+     */
+    long getTotalRunTime();
+
+    /**
+     * Returns the maximum recorded run time.
+     *
+     * @return the maximum run time in nanoseconds
+     */
+    long getMaxRunTime();
+
+    /**
+     * Returns the histogram of recorded run times.
+     *
+     * @return the counts of each power-of-two bucket
+     */
+    long[] getRunTimeHistogram();
+
+    /**
+     * Returns an upper bound, accurate to within a factor of two, of
+     * the given quantile of the recorded run times, or zero if none
+     * have been recorded.
+     *
+     * @param quantile the quantile, for example {@code 0.99}
+     * @return the run time in nanoseconds
+     * @throws IllegalArgumentException if {@code quantile} is not in
+     *         the range {@code 0.0} to {@code 1.0}
+     */
+    long getRunTimePercentile(double quantile);
+
+    /**
+     * Returns the number of tasks whose queue wait time has been
+     * recorded.
+     *
+     * @return the number of timed tasks
+     */
+    long getQueueWaitCount();
+
+    /**
+     * Returns the sum of the recorded queue wait times.
+     *
+     * @return the total queue wait time in nanoseconds
+     */
+    long getTotalQueueWaitTime();
+
+    /**
+     * Returns the maximum recorded queue wait time.
+     *
+     * @return the maximum queue wait time in nanoseconds
+     */
+    long getMaxQueueWaitTime();
+
+    /**
+     * Returns the histogram of recorded queue wait times.
+     *
+     * @return the counts of each power-of-two bucket
+     */
+    long[] getQueueWaitTimeHistogram();
+
+    /**
+     * Returns an upper bound, accurate to within a factor of two, of
+     * the given quantile of the recorded queue wait times, or zero if
+     * none have been recorded.
+     *
+     * @param quantile the quantile, for example {@code 0.99}
+     * @return the queue wait time in nanoseconds
+     * @throws IllegalArgumentException if {@code quantile} is not in
+     *         the range {@code 0.0} to {@code 1.0}
+     */
+    long getQueueWaitTimePercentile(double quantile);
+
+    /**
+     * Returns the total number of steals by all workers, including
+     * those that have terminated, since statistics were enabled.
+     *
+     * @return the number of steals
+     */
+    long getStealCount();
+
+    /**
+     * Returns the total number of parks by all workers, including
+     * those that have terminated, since statistics were enabled.
+     *
+     * @return the number of parks
+     */
+    long getParkCount();
+
+    /**
+     * Returns the total number of unparks of all workers, including
+     * those that have terminated, since statistics were enabled.
+     *
+     * @return the number of unparks
+     */
+    long getUnparkCount();
+
+    /**
+     * Returns the statistics of each live worker thread that has run
+     * or awaited tasks since statistics were enabled.
+     *
+     * @return the worker statistics
+     */
+    WorkerStatistics[] getWorkerStatistics();
+
+    /**
+     * Clears the run time and queue wait time histograms, counts and
+     * maxima. Worker counts are not affected.
+     */
+    void resetTaskTimes();
+}
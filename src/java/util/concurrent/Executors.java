@@ -154,6 +154,47 @@ public class Executors {
                                       threadFactory);
     }
 
+    /**
+     * Creates a thread pool that reuses a fixed number of threads
+     * operating off an unbounded {@link
+     * ThreadPoolExecutor.StripedWorkQueue}, which reduces contention
+     * when many threads submit tasks concurrently. The pool otherwise
+     * behaves as one created by {@link #newFixedThreadPool(int)},
+     * except that tasks submitted by different threads are not
+     * executed in FIFO order.
+     *
+     * @param nThreads the number of threads in the pool
+     * @return the newly created thread pool
+     * @throws IllegalArgumentException if {@code nThreads <= 0}
+     * @since 1.9
+     */
+    public static ExecutorService newStripedThreadPool(int nThreads) {
+        return new ThreadPoolExecutor(nThreads, nThreads,
+                                      0L, TimeUnit.MILLISECONDS,
+                                      new ThreadPoolExecutor.StripedWorkQueue(nThreads));
+    }
+
+    /**
+     * Creates a thread pool that reuses a fixed number of threads
+     * operating off an unbounded {@link
+     * ThreadPoolExecutor.StripedWorkQueue}, using the provided
+     * ThreadFactory to create new threads when needed.
+     *
+     * @param nThreads the number of threads in the pool
+     * @param threadFactory the factory to use when creating new threads
+     * @return the newly created thread pool
+     * @throws NullPointerException if threadFactory is null
+     * @throws IllegalArgumentException if {@code nThreads <= 0}
+     * @see #newStripedThreadPool(int)
+     * @since 1.9
+     */
+    public static ExecutorService newStripedThreadPool(int nThreads, ThreadFactory threadFactory) {
+        return new ThreadPoolExecutor(nThreads, nThreads,
+                                      0L, TimeUnit.MILLISECONDS,
+                                      new ThreadPoolExecutor.StripedWorkQueue(nThreads),
+                                      threadFactory);
+    }
+
     /**
      * Creates an Executor that uses a single worker thread operating
      * off an unbounded queue. (Note however that if this single
@@ -812,6 +812,7 @@ public class ForkJoinPool extends AbstractExecutorService {
         volatile Thread parker;    // == owner during call to park; else null
         volatile ForkJoinTask<?> currentJoin;  // task being joined in awaitJoin
         volatile ForkJoinTask<?> currentSteal; // mainly used by helpStealer
+        PoolStatistics.Worker counts; // statistics record, if registered
 
         WorkQueue(ForkJoinPool pool, ForkJoinWorkerThread owner) {
             this.pool = pool;
@@ -1052,8 +1053,12 @@ public class ForkJoinPool extends AbstractExecutorService {
          */
         final void runTask(ForkJoinTask<?> task) {
             if (task != null) {
+                PoolStatistics st = (pool == null) ? null : pool.statistics;
                 scanState &= ~SCANNING; // mark as busy
-                (currentSteal = task).doExec();
+                if (st != null)
+                    runTimedTask(task, st);
+                else
+                    (currentSteal = task).doExec();
                 U.putOrderedObject(this, QCURRENTSTEAL, null); // release for GC
                 execLocalTasks();
                 ForkJoinWorkerThread thread = owner;
@@ -1065,6 +1070,30 @@ public class ForkJoinPool extends AbstractExecutorService {
             }
         }
 
+        /**
+         * Version of runTask's execution step that records statistics.
+         */
+        private void runTimedTask(ForkJoinTask<?> task, PoolStatistics st) {
+            long startTime = System.nanoTime();
+            st.started(task, startTime);
+            (currentSteal = task).doExec();
+            st.runTimes.record(System.nanoTime() - startTime);
+            PoolStatistics.Worker c = counts(st);
+            c.ranTask();
+            c.stole();
+        }
+
+        /**
+         * Returns the statistics record of this queue's owner,
+         * registering it if necessary.  Called only by owner.
+         */
+        final PoolStatistics.Worker counts(PoolStatistics st) {
+            PoolStatistics.Worker c = counts;
+            if (c == null)
+                counts = c = st.register(owner);
+            return c;
+        }
+
         /**
          * Adds steal count to pool stealCounter if it exists, and resets.
          */
@@ -1396,6 +1425,7 @@ public class ForkJoinPool extends AbstractExecutorService {
     final UncaughtExceptionHandler ueh;  // per-worker UEH
     final String workerNamePrefix;       // to create worker name string
     volatile AtomicLong stealCounter;    // also used as sync monitor
+    volatile PoolStatistics statistics;  // null unless enabled
 
     /**
      * Acquires the runState lock; returns current (locked) runState.
@@ -1594,6 +1624,9 @@ public class ForkJoinPool extends AbstractExecutorService {
             w.qlock = -1;                             // ensure set
             w.transferStealCount(this);
             w.cancelAll();                            // cancel remaining tasks
+            PoolStatistics.Worker counts = w.counts;
+            if (counts != null)
+                counts.stats.deregister(counts);
         }
         for (;;) {                                    // possibly replace
             WorkQueue[] ws; int m, sp;
@@ -1818,14 +1851,21 @@ public class ForkJoinPool extends AbstractExecutorService {
                 else
                     prevctl = parkTime = deadline = 0L;
                 Thread wt = Thread.currentThread();
+                PoolStatistics st = statistics;
                 U.putObject(wt, PARKBLOCKER, this);   // emulate LockSupport
                 w.parker = wt;
-                if (w.scanState < 0 && ctl == c)      // recheck before park
+                if (w.scanState < 0 && ctl == c) {    // recheck before park
+                    if (st != null)
+                        w.counts(st).parked();
                     U.park(false, parkTime);
+                }
                 U.putOrderedObject(w, QPARKER, null);
                 U.putObject(wt, PARKBLOCKER, null);
-                if (w.scanState >= 0)
+                if (w.scanState >= 0) {
+                    if (st != null)
+                        w.counts(st).unparked();
                     break;
+                }
                 if (parkTime != 0L && ctl == c &&
                     deadline - System.nanoTime() <= 0L &&
                     U.compareAndSwapLong(this, CTL, c, prevctl))
@@ -2398,6 +2438,9 @@ public class ForkJoinPool extends AbstractExecutorService {
      */
     final void externalPush(ForkJoinTask<?> task) {
         WorkQueue[] ws; WorkQueue q; int m;
+        PoolStatistics st = statistics;
+        if (st != null)
+            st.submitted(task);
         int r = ThreadLocalRandom.getProbe();
         int rs = runState;
         if ((ws = workQueues) != null && (m = (ws.length - 1)) >= 0 &&
@@ -2864,6 +2907,25 @@ public class ForkJoinPool extends AbstractExecutorService {
         return count;
     }
 
+    /**
+     * Enables collection of task timing and worker statistics for
+     * this pool, if not already enabled, and returns the {@link
+     * ExecutorMXBean} reporting them. Once enabled, statistics remain
+     * enabled for the lifetime of the pool. Tasks are queued and
+     * run unchanged; the submission times of tasks submitted by
+     * non-worker threads are held apart from the work queues.
+     *
+     * @return the statistics of this pool
+     * @since 1.9
+     */
+    public ExecutorMXBean enableStatistics() {
+        PoolStatistics st;
+        while ((st = statistics) == null)
+            U.compareAndSwapObject(this, STATISTICS, null,
+                                   new PoolStatistics());
+        return st;
+    }
+
     /**
      * Returns an estimate of the total number of tasks currently held
      * in queues by worker threads (but not including tasks submitted
@@ -3343,6 +3405,7 @@ public class ForkJoinPool extends AbstractExecutorService {
     private static final long CTL;
     private static final long RUNSTATE;
     private static final long STEALCOUNTER;
+    private static final long STATISTICS;
     private static final long PARKBLOCKER;
     private static final long QTOP;
     private static final long QLOCK;
@@ -3362,6 +3425,8 @@ public class ForkJoinPool extends AbstractExecutorService {
                 (k.getDeclaredField("runState"));
             STEALCOUNTER = U.objectFieldOffset
                 (k.getDeclaredField("stealCounter"));
+            STATISTICS = U.objectFieldOffset
+                (k.getDeclaredField("statistics"));
             Class<?> tk = Thread.class;
             PARKBLOCKER = U.objectFieldOffset
                 (tk.getDeclaredField("parkBlocker"));
@@ -234,6 +234,18 @@ public class LinkedBlockingDeque<E>
      * Links node as last element, or returns false if full.
      */
     private boolean linkLast(Node<E> node) {
+        // assert lock.isHeldByCurrentThread();
+        if (!enqueueLast(node))
+            return false;
+        notEmpty.signal();
+        return true;
+    }
+
+    /**
+     * Links node as last element without signalling, or returns
+     * false if full.
+     */
+    private boolean enqueueLast(Node<E> node) {
         // assert lock.isHeldByCurrentThread();
         if (count >= capacity)
             return false;
@@ -245,7 +257,6 @@ public class LinkedBlockingDeque<E>
         else
             l.next = node;
         ++count;
-        notEmpty.signal();
         return true;
     }
 
@@ -254,9 +265,21 @@ public class LinkedBlockingDeque<E>
      */
     private E unlinkFirst() {
         // assert lock.isHeldByCurrentThread();
-        Node<E> f = first;
-        if (f == null)
+        if (first == null)
             return null;
+        E item = dequeueFirst();
+        notFull.signal();
+        return item;
+    }
+
+    /**
+     * Removes and returns first element without signalling.
+     * Call only when non-empty.
+     */
+    private E dequeueFirst() {
+        // assert lock.isHeldByCurrentThread();
+        // assert first != null;
+        Node<E> f = first;
         Node<E> n = f.next;
         E item = f.item;
         f.item = null;
@@ -267,10 +290,18 @@ public class LinkedBlockingDeque<E>
         else
             n.prev = null;
         --count;
-        notFull.signal();
         return item;
     }
 
+    /**
+     * Signals up to k threads waiting on the given condition.
+     * Call only when holding lock.
+     */
+    private void signal(Condition cond, int k) {
+        for (; k > 0 && lock.hasWaiters(cond); k--)
+            cond.signal();
+    }
+
     /**
      * Removes and returns last element, or null if empty.
      */
@@ -760,6 +791,95 @@ public class LinkedBlockingDeque<E>
         }
     }
 
+    /**
+     * Inserts the elements of the specified collection at the end of
+     * this deque, waiting up to the specified wait time for space to
+     * become available if the deque is full.  The lock is acquired,
+     * and waiting takers are signalled, once for the whole batch
+     * rather than once per element.
+     *
+     * @throws InterruptedException {@inheritDoc}
+     * @throws NullPointerException {@inheritDoc}
+     * @throws IllegalArgumentException {@inheritDoc}
+     * @since 1.9
+     */
+    public int offerAll(Collection<? extends E> c, long timeout,
+                        TimeUnit unit) throws InterruptedException {
+        if (c == null)
+            throw new NullPointerException();
+        if (c == this)
+            throw new IllegalArgumentException();
+        long nanos = unit.toNanos(timeout);
+        final ReentrantLock lock = this.lock;
+        lock.lockInterruptibly();
+        int n = 0, unsignalled = 0;
+        try {
+            for (E e : c) {
+                if (e == null) throw new NullPointerException();
+                Node<E> node = new Node<E>(e);
+                while (!enqueueLast(node)) {
+                    if (nanos <= 0)
+                        return n;
+                    // Let takers drain what we added so far
+                    signal(notEmpty, unsignalled);
+                    unsignalled = 0;
+                    nanos = notFull.awaitNanos(nanos);
+                }
+                ++n;
+                ++unsignalled;
+            }
+            return n;
+        } finally {
+            signal(notEmpty, unsignalled);
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Removes at most the given number of elements from the head of
+     * this deque, waiting up to the specified wait time for one to
+     * become available.  The lock is acquired, and waiting putters
+     * are signalled, once for the whole batch rather than once per
+     * element.
+     *
+     * @throws InterruptedException {@inheritDoc}
+     * @throws UnsupportedOperationException {@inheritDoc}
+     * @throws ClassCastException            {@inheritDoc}
+     * @throws NullPointerException          {@inheritDoc}
+     * @throws IllegalArgumentException      {@inheritDoc}
+     * @since 1.9
+     */
+    public int pollBatch(Collection<? super E> c, int maxElements,
+                         long timeout, TimeUnit unit)
+        throws InterruptedException {
+        if (c == null)
+            throw new NullPointerException();
+        if (c == this)
+            throw new IllegalArgumentException();
+        if (maxElements <= 0)
+            return 0;
+        long nanos = unit.toNanos(timeout);
+        final ReentrantLock lock = this.lock;
+        lock.lockInterruptibly();
+        int i = 0;
+        try {
+            while (count == 0) {
+                if (nanos <= 0)
+                    return 0;
+                nanos = notEmpty.awaitNanos(nanos);
+            }
+            int n = Math.min(maxElements, count);
+            for (; i < n; i++) {
+                c.add(first.item);   // In this order, in case add() throws.
+                dequeueFirst();
+            }
+            return n;
+        } finally {
+            signal(notFull, i);
+            lock.unlock();
+        }
+    }
+
     // Stack methods
 
     /**
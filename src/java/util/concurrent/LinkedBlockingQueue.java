@@ -762,6 +762,130 @@ public class LinkedBlockingQueue<E> extends AbstractQueue<E>
         }
     }
 
+    /**
+     * Inserts the elements of the specified collection at the tail of
+     * this queue, waiting up to the specified wait time for space to
+     * become available if the queue is full.  The put lock is acquired
+     * once for the whole batch, and the element count is published,
+     * waking a waiting consumer if necessary, once per batch rather
+     * than once per element.
+     *
+     * @throws InterruptedException {@inheritDoc}
+     * @throws NullPointerException {@inheritDoc}
+     * @throws IllegalArgumentException {@inheritDoc}
+     * @since 1.9
+     */
+    public int offerAll(Collection<? extends E> c, long timeout,
+                        TimeUnit unit) throws InterruptedException {
+        if (c == null)
+            throw new NullPointerException();
+        if (c == this)
+            throw new IllegalArgumentException();
+        long nanos = unit.toNanos(timeout);
+        int n = 0, pending = 0, prev = -1;
+        final ReentrantLock putLock = this.putLock;
+        final AtomicInteger count = this.count;
+        putLock.lockInterruptibly();
+        try {
+            for (E e : c) {
+                if (e == null) throw new NullPointerException();
+                while (count.get() + pending == capacity) {
+                    // Publish the batch so far so consumers can drain it
+                    if (pending > 0) {
+                        prev = count.getAndAdd(pending);
+                        pending = 0;
+                        if (prev == 0)
+                            signalNotEmpty(); // lock order put -> take
+                    }
+                    if (nanos <= 0)
+                        return n;
+                    nanos = notFull.awaitNanos(nanos);
+                }
+                enqueue(new Node<E>(e));
+                ++pending;
+                ++n;
+            }
+            return n;
+        } finally {
+            prev = -1;
+            if (pending > 0) {
+                prev = count.getAndAdd(pending);
+                if (prev + pending < capacity)
+                    notFull.signal();
+            }
+            putLock.unlock();
+            if (prev == 0)
+                signalNotEmpty();
+        }
+    }
+
+    /**
+     * Removes at most the given number of elements from this queue,
+     * waiting up to the specified wait time for one to become
+     * available.  The take lock is acquired once for the whole batch,
+     * and the element count is published, waking a waiting producer
+     * if necessary, once per batch rather than once per element.
+     *
+     * @throws InterruptedException {@inheritDoc}
+     * @throws UnsupportedOperationException {@inheritDoc}
+     * @throws ClassCastException            {@inheritDoc}
+     * @throws NullPointerException          {@inheritDoc}
+     * @throws IllegalArgumentException      {@inheritDoc}
+     * @since 1.9
+     */
+    public int pollBatch(Collection<? super E> c, int maxElements,
+                         long timeout, TimeUnit unit)
+        throws InterruptedException {
+        if (c == null)
+            throw new NullPointerException();
+        if (c == this)
+            throw new IllegalArgumentException();
+        if (maxElements <= 0)
+            return 0;
+        long nanos = unit.toNanos(timeout);
+        boolean signalNotFull = false;
+        final AtomicInteger count = this.count;
+        final ReentrantLock takeLock = this.takeLock;
+        takeLock.lockInterruptibly();
+        try {
+            int k;
+            while ((k = count.get()) == 0) {
+                if (nanos <= 0)
+                    return 0;
+                nanos = notEmpty.awaitNanos(nanos);
+            }
+            int n = Math.min(maxElements, k);
+            // count.get provides visibility to first n Nodes
+            Node<E> h = head;
+            int i = 0;
+            try {
+                while (i < n) {
+                    Node<E> p = h.next;
+                    c.add(p.item);
+                    p.item = null;
+                    h.next = h;
+                    h = p;
+                    ++i;
+                }
+                return n;
+            } finally {
+                // Restore invariants even if c.add() threw
+                if (i > 0) {
+                    // assert h.item == null;
+                    head = h;
+                    int prev = count.getAndAdd(-i);
+                    signalNotFull = (prev == capacity);
+                    if (prev > i)
+                        notEmpty.signal();
+                }
+            }
+        } finally {
+            takeLock.unlock();
+            if (signalNotFull)
+                signalNotFull();
+        }
+    }
+
     /**
      * Returns an iterator over the elements in this queue in proper sequence.
      * The elements will be returned in order from first (head) to last (tail).
@@ -0,0 +1,121 @@
+/*
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+package java.util.concurrent;
+
+/**
+ * A bounded {@linkplain BlockingQueue blocking queue} for use by any
+ * number of producer threads and exactly one consumer thread at a
+ * time, backed by a lock-free ring buffer.  Producers claim slots by
+ * CAS; removal performs no atomic read-modify-write instruction or
+ * memory fence (other than as needed to wake blocked threads under
+ * the {@link RingBufferQueue.WaitStrategy#PARK PARK} wait strategy).
+ * This is a natural fit for a stage that funnels the output of many
+ * threads to one, such as a logger or a writer.  See {@link
+ * RingBufferQueue} for the constraints on use.
+ *
+ * <p>This class is a member of the
+ * <a href="{@docRoot}/../technotes/guides/collections/index.html">
+ * Java Collections Framework</a>.
+ *
+ * @see RingBufferQueue
+ * @since 1.9
+ * @param <E> the type of elements held in this collection
+ */
+public class MpscRingBufferQueue<E> extends RingBufferQueue<E> {
+
+    /**
+     * Creates a {@code MpscRingBufferQueue} with the given (fixed) capacity
+     * and the {@link RingBufferQueue.WaitStrategy#PARK PARK} wait
+     * strategy.
+     *
+     * @param capacity the capacity of this queue
+     * @throws IllegalArgumentException if {@code capacity < 1} or
+     *         {@code capacity > 1 << 30}
+     */
+    public MpscRingBufferQueue(int capacity) {
+        this(capacity, WaitStrategy.PARK);
+    }
+
+    /**
+     * Creates a {@code MpscRingBufferQueue} with the given (fixed) capacity
+     * and wait strategy.
+     *
+     * @param capacity the capacity of this queue
+     * @param strategy the wait strategy for blocking operations
+     * @throws IllegalArgumentException if {@code capacity < 1} or
+     *         {@code capacity > 1 << 30}
+     * @throws NullPointerException if strategy is null
+     */
+    public MpscRingBufferQueue(int capacity, WaitStrategy strategy) {
+        super(capacity, strategy);
+    }
+
+    /**
+     * Inserts the specified element at the tail of this queue if it is
+     * possible to do so immediately without exceeding the queue's capacity,
+     * returning {@code true} upon success and {@code false} if this queue
+     * is full.  May be invoked by any number of threads.
+     *
+     * @throws NullPointerException if the specified element is null
+     */
+    public boolean offer(E e) {
+        if (e == null)
+            throw new NullPointerException();
+        long t;
+        do {
+            if (producerFull(t = tail))
+                return false;
+        } while (!casTail(t, t + 1L));
+        final Object[] items = this.items;
+        setSlot(items, slotOffset(items, t), e);
+        signalNotEmpty();
+        return true;
+    }
+
+    /**
+     * Retrieves and removes the head of this queue, or returns
+     * {@code null} if this queue is empty.  Must be invoked only by
+     * the consumer thread.
+     *
+     * @return the head of this queue, or {@code null} if this queue is empty
+     */
+    public E poll() {
+        final Object[] items = this.items;
+        long h = head;
+        long offset = slotOffset(items, h);
+        E x = slotAt(items, offset);
+        if (x == null) {
+            if (h >= tail)
+                return null;
+            // A producer has claimed the slot but not yet filled it;
+            // yield in case it has been descheduled
+            while ((x = slotAt(items, offset)) == null)
+                Thread.yield();
+        }
+        setSlot(items, offset, null);
+        setHead(h + 1L);
+        signalNotFull();
+        return x;
+    }
+}
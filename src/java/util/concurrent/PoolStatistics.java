@@ -0,0 +1,324 @@
+/*
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+package java.util.concurrent;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Task timing and worker statistics of a {@link ThreadPoolExecutor}
+ * or {@link ForkJoinPool}, exported as an {@link ExecutorMXBean}.
+ *
+ * @since 1.9
+ */
+final class PoolStatistics implements ExecutorMXBean {
+
+    /*
+     * Task times are recorded in Histograms, each holding one
+     * LongAdder per power-of-two bucket, so that concurrent
+     * recordings by different workers spread over Striped64 cells
+     * rather than contending on shared counters.
+     *
+     * Per-worker counts are held in Worker records, registered
+     * lazily by worker threads upon first recording (statistics
+     * may be enabled while workers are running) and deregistered
+     * upon worker exit, when their counts are folded into the
+     * "retired" adders. Each count is written only by its owning
+     * worker, so is updated using ordered (lazy) writes rather than
+     * atomic instructions.
+     *
+     * Queue wait times need the submission time of each task, which
+     * pools must not attach to the task itself: wrapping tasks
+     * would change what users see in (and what comparators and
+     * other queue policies are applied to in) the work queue. So
+     * submission times are instead held in a side table of
+     * Submission records indexed by the identity hash of the task,
+     * set upon submission and cleared when the task starts. A task
+     * colliding with another still queued overwrites its record,
+     * and records of tasks removed from the queue are dropped only
+     * when overwritten, so under deep queues wait times are
+     * sampled rather than complete, at bounded space.
+     */
+
+    /** Number of histogram buckets: zero plus one per bit of a long */
+    static final int BUCKETS = 64;
+
+    /**
+     * A concurrently updatable histogram of non-negative times.
+     */
+    static final class Histogram {
+        final LongAdder[] buckets = new LongAdder[BUCKETS];
+        final LongAdder total = new LongAdder();
+        final LongAccumulator max = new LongAccumulator(Math::max, 0L);
+
+        Histogram() {
+            for (int i = 0; i < BUCKETS; ++i)
+                buckets[i] = new LongAdder();
+        }
+
+        /**
+         * Returns the bucket index for the given time.
+         */
+        static int bucketFor(long nanos) {
+            return (nanos <= 0L) ? 0 : 64 - Long.numberOfLeadingZeros(nanos);
+        }
+
+        void record(long nanos) {
+            if (nanos < 0L) // nanoTime skew across threads
+                nanos = 0L;
+            buckets[bucketFor(nanos)].increment();
+            total.add(nanos);
+            max.accumulate(nanos);
+        }
+
+        long[] counts() {
+            long[] a = new long[BUCKETS];
+            for (int i = 0; i < BUCKETS; ++i)
+                a[i] = buckets[i].sum();
+            return a;
+        }
+
+        long count() {
+            long n = 0L;
+            for (LongAdder b : buckets)
+                n += b.sum();
+            return n;
+        }
+
+        long percentile(double quantile) {
+            if (!(quantile >= 0.0 && quantile <= 1.0))
+                throw new IllegalArgumentException();
+            long[] a = counts();
+            long n = 0L;
+            for (long c : a)
+                n += c;
+            if (n == 0L)
+                return 0L;
+            long rank = Math.max(1L, (long)Math.ceil(quantile * n));
+            long seen = 0L;
+            int i = 0;
+            for (; i < BUCKETS - 1; ++i) {
+                if ((seen += a[i]) >= rank)
+                    break;
+            }
+            long bound = (i == 0) ? 0L : (1L << i) - 1L;
+            return Math.min(bound, max.get());
+        }
+
+        void reset() {
+            for (LongAdder b : buckets)
+                b.reset();
+            total.reset();
+            max.reset();
+        }
+    }
+
+    /** Number of slots of the submission table; a power of two */
+    static final int SUBMISSION_SLOTS = 1 << 10;
+
+    /**
+     * A queued task together with its submission time.
+     */
+    static final class Submission {
+        final Object task;
+        final long time;
+        Submission(Object task, long time) {
+            this.task = task;
+            this.time = time;
+        }
+    }
+
+    /**
+     * Counts for a single worker thread.
+     */
+    static final class Worker implements WorkerStatistics {
+        final PoolStatistics stats;
+        final Thread thread;
+        volatile long tasks;
+        volatile long steals;
+        volatile long parks;
+        volatile long unparks;
+
+        Worker(PoolStatistics stats, Thread thread) {
+            this.stats = stats;
+            this.thread = thread;
+        }
+
+        // Updates, called only by the owning thread
+        void ranTask()  { U.putOrderedLong(this, TASKS, tasks + 1L); }
+        void stole()    { U.putOrderedLong(this, STEALS, steals + 1L); }
+        void parked()   { U.putOrderedLong(this, PARKS, parks + 1L); }
+        void unparked() { U.putOrderedLong(this, UNPARKS, unparks + 1L); }
+
+        public long getThreadId()     { return thread.getId(); }
+        public String getThreadName() { return thread.getName(); }
+        public long getTaskCount()    { return tasks; }
+        public long getStealCount()   { return steals; }
+        public long getParkCount()    { return parks; }
+        public long getUnparkCount()  { return unparks; }
+    }
+
+    final Histogram runTimes = new Histogram();
+    final Histogram queueWaitTimes = new Histogram();
+
+    /** Submission times of queued tasks, by identity hash */
+    private final AtomicReferenceArray<Submission> submissions =
+        new AtomicReferenceArray<Submission>(SUBMISSION_SLOTS);
+
+    /** Live workers */
+    private final ConcurrentHashMap<Worker,Boolean> workers =
+        new ConcurrentHashMap<Worker,Boolean>();
+
+    /** Counts of terminated workers */
+    private final LongAdder retiredSteals = new LongAdder();
+    private final LongAdder retiredParks = new LongAdder();
+    private final LongAdder retiredUnparks = new LongAdder();
+
+    /**
+     * Creates and returns a record for the given worker thread.
+     */
+    Worker register(Thread thread) {
+        Worker w = new Worker(this, thread);
+        workers.put(w, Boolean.TRUE);
+        return w;
+    }
+
+    /**
+     * Removes the record of an exiting worker, retaining its counts.
+     */
+    void deregister(Worker w) {
+        if (w != null && workers.remove(w) != null) {
+            retiredSteals.add(w.steals);
+            retiredParks.add(w.parks);
+            retiredUnparks.add(w.unparks);
+        }
+    }
+
+    /**
+     * Returns the submission table index of the given task.
+     */
+    static int slotFor(Object task) {
+        int h = System.identityHashCode(task);
+        return (h ^ (h >>> 16)) & (SUBMISSION_SLOTS - 1);
+    }
+
+    /**
+     * Records the submission time of a task about to be queued.
+     */
+    void submitted(Object task) {
+        submissions.set(slotFor(task),
+                        new Submission(task, System.nanoTime()));
+    }
+
+    /**
+     * Records the queue wait time of a task starting at the given
+     * time, if its submission was recorded.
+     */
+    void started(Object task, long now) {
+        int i = slotFor(task);
+        Submission s = submissions.get(i);
+        if (s != null && s.task == task &&
+            submissions.compareAndSet(i, s, null))
+            queueWaitTimes.record(now - s.time);
+    }
+
+    /**
+     * Drops the submission record of a task that will not start.
+     */
+    void withdrawn(Object task) {
+        int i = slotFor(task);
+        Submission s = submissions.get(i);
+        if (s != null && s.task == task)
+            submissions.compareAndSet(i, s, null);
+    }
+
+    public long getRunCount()                 { return runTimes.count(); }
+    public long getTotalRunTime()             { return runTimes.total.sum(); }
+    public long getMaxRunTime()               { return runTimes.max.get(); }
+    public long[] getRunTimeHistogram()       { return runTimes.counts(); }
+    public long getRunTimePercentile(double quantile) {
+        return runTimes.percentile(quantile);
+    }
+
+    public long getQueueWaitCount()           { return queueWaitTimes.count(); }
+    public long getTotalQueueWaitTime()       { return queueWaitTimes.total.sum(); }
+    public long getMaxQueueWaitTime()         { return queueWaitTimes.max.get(); }
+    public long[] getQueueWaitTimeHistogram() { return queueWaitTimes.counts(); }
+    public long getQueueWaitTimePercentile(double quantile) {
+        return queueWaitTimes.percentile(quantile);
+    }
+
+    public long getStealCount() {
+        long n = retiredSteals.sum();
+        for (Worker w : workers.keySet())
+            n += w.steals;
+        return n;
+    }
+
+    public long getParkCount() {
+        long n = retiredParks.sum();
+        for (Worker w : workers.keySet())
+            n += w.parks;
+        return n;
+    }
+
+    public long getUnparkCount() {
+        long n = retiredUnparks.sum();
+        for (Worker w : workers.keySet())
+            n += w.unparks;
+        return n;
+    }
+
+    public WorkerStatistics[] getWorkerStatistics() {
+        return workers.keySet().toArray(new WorkerStatistics[0]);
+    }
+
+    public void resetTaskTimes() {
+        runTimes.reset();
+        queueWaitTimes.reset();
+    }
+
+    // Unsafe mechanics
+    private static final sun.misc.Unsafe U;
+    private static final long TASKS;
+    private static final long STEALS;
+    private static final long PARKS;
+    private static final long UNPARKS;
+    static {
+        try {
+            U = sun.misc.Unsafe.getUnsafe();
+            Class<?> k = Worker.class;
+            TASKS = U.objectFieldOffset
+                (k.getDeclaredField("tasks"));
+            STEALS = U.objectFieldOffset
+                (k.getDeclaredField("steals"));
+            PARKS = U.objectFieldOffset
+                (k.getDeclaredField("parks"));
+            UNPARKS = U.objectFieldOffset
+                (k.getDeclaredField("unparks"));
+        } catch (Exception e) {
+            throw new Error(e);
+        }
+    }
+}
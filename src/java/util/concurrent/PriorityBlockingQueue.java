@@ -789,6 +789,112 @@ public class PriorityBlockingQueue<E> extends AbstractQueue<E>
         }
     }
 
+    /**
+     * Inserts the elements of the specified collection into this
+     * priority queue.  As the queue is unbounded, this method will
+     * never block and always inserts every element, so the timeout
+     * is ignored.  The lock is acquired once for the whole batch
+     * (apart from releases while growing the backing array), and
+     * waiting consumers are signalled once per batch rather than
+     * once per element.
+     *
+     * @param c the elements to insert
+     * @param timeout This parameter is ignored as the method never blocks
+     * @param unit This parameter is ignored as the method never blocks
+     * @return the number of elements inserted
+     * @throws ClassCastException if an element cannot be compared
+     *         with elements currently in the priority queue according to the
+     *         priority queue's ordering
+     * @throws NullPointerException if the specified collection or any
+     *         of its elements is null
+     * @throws IllegalArgumentException if the specified collection is
+     *         this queue
+     * @since 1.9
+     */
+    public int offerAll(Collection<? extends E> c, long timeout,
+                        TimeUnit unit) {
+        if (c == null)
+            throw new NullPointerException();
+        if (c == this)
+            throw new IllegalArgumentException();
+        final ReentrantLock lock = this.lock;
+        lock.lock();
+        int inserted = 0, added = 0;
+        try {
+            Comparator<? super E> cmp = comparator;
+            for (E e : c) {
+                if (e == null)
+                    throw new NullPointerException();
+                int n, cap;
+                Object[] array;
+                while ((n = size) >= (cap = (array = queue).length)) {
+                    // Wake consumers of the batch so far before releasing
+                    for (; added > 0 && lock.hasWaiters(notEmpty); added--)
+                        notEmpty.signal();
+                    added = 0;
+                    tryGrow(array, cap);
+                }
+                if (cmp == null)
+                    siftUpComparable(n, e, array);
+                else
+                    siftUpUsingComparator(n, e, array, cmp);
+                size = n + 1;
+                added++;
+                inserted++;
+            }
+            return inserted;
+        } finally {
+            // tryGrow may throw OutOfMemoryError without the lock held
+            if (lock.isHeldByCurrentThread()) {
+                for (; added > 0 && lock.hasWaiters(notEmpty); added--)
+                    notEmpty.signal();
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Removes at most the given number of elements from this queue,
+     * in priority order, waiting up to the specified wait time for
+     * one to become available.  The lock is acquired once for the
+     * whole batch rather than once per element.
+     *
+     * @throws InterruptedException {@inheritDoc}
+     * @throws UnsupportedOperationException {@inheritDoc}
+     * @throws ClassCastException            {@inheritDoc}
+     * @throws NullPointerException          {@inheritDoc}
+     * @throws IllegalArgumentException      {@inheritDoc}
+     * @since 1.9
+     */
+    public int pollBatch(Collection<? super E> c, int maxElements,
+                         long timeout, TimeUnit unit)
+        throws InterruptedException {
+        if (c == null)
+            throw new NullPointerException();
+        if (c == this)
+            throw new IllegalArgumentException();
+        if (maxElements <= 0)
+            return 0;
+        long nanos = unit.toNanos(timeout);
+        final ReentrantLock lock = this.lock;
+        lock.lockInterruptibly();
+        try {
+            while (size == 0) {
+                if (nanos <= 0)
+                    return 0;
+                nanos = notEmpty.awaitNanos(nanos);
+            }
+            int n = Math.min(size, maxElements);
+            for (int i = 0; i < n; i++) {
+                c.add((E) queue[0]); // In this order, in case add() throws.
+                dequeue();
+            }
+            return n;
+        } finally {
+            lock.unlock();
+        }
+    }
+
     /**
      * Atomically removes all of the elements from this queue.
      * The queue will be empty after this call returns.
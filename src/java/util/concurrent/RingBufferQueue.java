@@ -0,0 +1,583 @@
+/*
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+package java.util.concurrent;
+
+import java.util.AbstractQueue;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A bounded {@linkplain BlockingQueue blocking queue} backed by a
+ * lock-free ring buffer, specialized for a fixed number of producer
+ * and consumer threads.  Three forms are provided, differing only in
+ * which side of the queue may be shared:
+ *
+ * <ul>
+ * <li>{@link SpscRingBufferQueue}: one producer and one consumer.
+ * <li>{@link MpscRingBufferQueue}: any number of producers and one
+ *     consumer.
+ * <li>{@link SpmcRingBufferQueue}: one producer and any number of
+ *     consumers.
+ * </ul>
+ *
+ * <p>"One producer" means that insertion methods ({@code offer},
+ * {@code put}, {@code add} and their timed forms) must never be
+ * invoked concurrently by more than one thread; "one consumer"
+ * likewise applies to removal methods ({@code poll}, {@code take},
+ * {@code remove()}, {@code drainTo} and {@code clear}).  The role
+ * may pass from one thread to another as long as the handoff itself
+ * establishes a <i>happens-before</i> relation.  Violating these
+ * constraints may cause elements to be lost or duplicated.  In
+ * return, the unshared side of the queue runs without any atomic
+ * read-modify-write instructions, and the two sides touch disjoint,
+ * padded cache lines, so that a producer and consumer do not contend
+ * except when the queue is empty or full.
+ *
+ * <p>Like {@link ArrayBlockingQueue}, these queues hold a fixed
+ * number of elements and do not permit {@code null} elements.  Unlike
+ * it, blocking is controlled by a {@link WaitStrategy} chosen at
+ * construction.  {@link WaitStrategy#SPIN SPIN} and {@link
+ * WaitStrategy#YIELD YIELD} never block in the operating system, and
+ * so minimize handoff latency at the expense of burning a processor
+ * per waiting thread; {@link WaitStrategy#PARK PARK} blocks, and
+ * then costs the opposite side of the queue one memory fence per
+ * operation to detect waiters.
+ *
+ * <p>Iterators are weakly consistent snapshots, and do not support
+ * {@code remove}.  Consequently {@link #remove(Object)},
+ * {@link #removeAll} and {@link #retainAll} are not supported.
+ * Bulk operations such as {@code size} and {@code toArray} are
+ * approximate while the queue is being modified.
+ *
+ * <p>This class is a member of the
+ * <a href="{@docRoot}/../technotes/guides/collections/index.html">
+ * Java Collections Framework</a>.
+ *
+ * @since 1.9
+ * @param <E> the type of elements held in this collection
+ */
+public abstract class RingBufferQueue<E> extends AbstractQueue<E>
+        implements BlockingQueue<E> {
+
+    /*
+     * Elements live in a power-of-two array indexed by the low bits
+     * of ever-increasing long sequence numbers: "head" is the
+     * sequence of the next element to remove and "tail" the sequence
+     * of the next to insert, so the queue holds tail - head elements.
+     * A null slot is free.  Consumers null out a slot (with an
+     * ordered store) before advancing head, so once a producer has
+     * seen head, every slot below head + capacity is known to be
+     * free or about to be.  Producers write an element before (or,
+     * for MPSC, after) advancing tail, and consumers treat a null
+     * slot below tail as an insertion in progress.
+     *
+     * Each side keeps its own counter and a cached copy of the other
+     * side's counter in a separate @Contended group, re-reading the
+     * other side's volatile only when the cached value suggests the
+     * queue is full (or empty).  Publication uses putOrdered
+     * (StoreStore-only) stores, as in Striped64 and Exchanger, so the
+     * fast path of the unshared side performs no fences at all.  The
+     * subclasses differ only in which counters are advanced with CAS.
+     *
+     * Blocking is layered on top of the nonblocking offer/poll.  For
+     * SPIN and YIELD, waiting threads simply retry.  For PARK, they
+     * register in emptyWaiters or fullWaiters under a lock, recheck,
+     * and await a Condition; the other side issues a full fence after
+     * each successful operation and signals if it sees a registered
+     * waiter (the usual Dekker-style handshake: either the waiter sees
+     * the update on recheck, or the updater sees the waiter).
+     */
+
+    /**
+     * Policies for threads waiting for the queue to become non-empty
+     * or non-full.
+     *
+     * @since 1.9
+     */
+    public enum WaitStrategy {
+        /**
+         * Waiting threads repeatedly retry without relinquishing
+         * their processor.  Best latency when every producer and
+         * consumer has a dedicated processor.
+         */
+        SPIN,
+        /**
+         * Waiting threads invoke {@link Thread#yield} between retries.
+         */
+        YIELD,
+        /**
+         * Waiting threads block until signalled by the opposite side
+         * of the queue.
+         */
+        PARK
+    }
+
+    /** The queued items; length is a power of two */
+    final Object[] items;
+
+    /** items.length - 1 */
+    final int mask;
+
+    /** The maximum number of elements */
+    final int capacity;
+
+    /** The wait strategy */
+    final WaitStrategy strategy;
+
+    /** Sequence number of the next element to insert */
+    @sun.misc.Contended("producer") volatile long tail;
+
+    /** Producer-side cache of head; never greater than head */
+    @sun.misc.Contended("producer") volatile long headCache;
+
+    /** Sequence number of the next element to remove */
+    @sun.misc.Contended("consumer") volatile long head;
+
+    /** Consumer-side cache of tail; never greater than tail */
+    @sun.misc.Contended("consumer") volatile long tailCache;
+
+    /** Lock and conditions used only by WaitStrategy.PARK */
+    final ReentrantLock lock;
+    private final Condition notEmpty;
+    private final Condition notFull;
+
+    /** Number of threads awaiting notEmpty; modified only under lock */
+    private volatile int emptyWaiters;
+
+    /** Number of threads awaiting notFull; modified only under lock */
+    private volatile int fullWaiters;
+
+    /**
+     * Creates a queue with the given capacity and wait strategy.
+     *
+     * @throws IllegalArgumentException if capacity is not positive or
+     *         greater than {@code 1 << 30}
+     * @throws NullPointerException if strategy is null
+     */
+    RingBufferQueue(int capacity, WaitStrategy strategy) {
+        if (capacity <= 0 || capacity > (1 << 30))
+            throw new IllegalArgumentException();
+        if (strategy == null)
+            throw new NullPointerException();
+        int n = 1;
+        while (n < capacity)
+            n <<= 1;
+        this.items = new Object[n];
+        this.mask = n - 1;
+        this.capacity = capacity;
+        this.strategy = strategy;
+        this.lock = new ReentrantLock();
+        this.notEmpty = lock.newCondition();
+        this.notFull = lock.newCondition();
+    }
+
+    // Slot access
+
+    static final long slotOffset(Object[] items, long seq) {
+        return ((long)((int)seq & (items.length - 1)) << ASHIFT) + ABASE;
+    }
+
+    @SuppressWarnings("unchecked")
+    static final <E> E slotAt(Object[] items, long offset) {
+        return (E) U.getObjectVolatile(items, offset);
+    }
+
+    static final void setSlot(Object[] items, long offset, Object x) {
+        U.putOrderedObject(items, offset, x);
+    }
+
+    final void setTail(long t) {
+        U.putOrderedLong(this, TAIL, t);
+    }
+
+    final void setHead(long h) {
+        U.putOrderedLong(this, HEAD, h);
+    }
+
+    final boolean casTail(long cmp, long val) {
+        return U.compareAndSwapLong(this, TAIL, cmp, val);
+    }
+
+    final boolean casHead(long cmp, long val) {
+        return U.compareAndSwapLong(this, HEAD, cmp, val);
+    }
+
+    /**
+     * Returns true if a producer at sequence t would find the queue
+     * full, refreshing headCache if it appears to be.
+     */
+    final boolean producerFull(long t) {
+        if (t - headCache >= capacity) {
+            long h = head;
+            headCache = h;
+            if (t - h >= capacity)
+                return true;
+        }
+        return false;
+    }
+
+    // Waiting and signalling
+
+    /**
+     * Called after each successful insertion to wake a waiting
+     * consumer if the wait strategy is PARK.
+     */
+    final void signalNotEmpty() {
+        if (strategy == WaitStrategy.PARK) {
+            U.fullFence();
+            if (emptyWaiters != 0) {
+                final ReentrantLock lock = this.lock;
+                lock.lock();
+                try {
+                    notEmpty.signal();
+                } finally {
+                    lock.unlock();
+                }
+            }
+        }
+    }
+
+    /**
+     * Called after each successful removal to wake a waiting producer
+     * if the wait strategy is PARK.
+     */
+    final void signalNotFull() {
+        if (strategy == WaitStrategy.PARK) {
+            U.fullFence();
+            if (fullWaiters != 0) {
+                final ReentrantLock lock = this.lock;
+                lock.lock();
+                try {
+                    notFull.signal();
+                } finally {
+                    lock.unlock();
+                }
+            }
+        }
+    }
+
+    /**
+     * Waits, according to the wait strategy, for the queue to
+     * possibly become non-empty (if forElement) or non-full, after
+     * which the caller should retry.
+     *
+     * @param forElement true if waiting for an element
+     * @param timed true if a deadline applies
+     * @param deadline the System.nanoTime deadline, if timed
+     * @return false if the deadline has passed
+     */
+    private boolean await(boolean forElement, boolean timed, long deadline)
+        throws InterruptedException {
+        if (Thread.interrupted())
+            throw new InterruptedException();
+        long nanos = 0L;
+        if (timed && (nanos = deadline - System.nanoTime()) <= 0L)
+            return false;
+        WaitStrategy s = strategy;
+        if (s == WaitStrategy.YIELD)
+            Thread.yield();
+        else if (s == WaitStrategy.PARK) {
+            final ReentrantLock lock = this.lock;
+            lock.lockInterruptibly();
+            try {
+                if (forElement) {
+                    ++emptyWaiters;
+                    try {
+                        if (head >= tail) {
+                            if (timed)
+                                notEmpty.awaitNanos(nanos);
+                            else
+                                notEmpty.await();
+                        }
+                    } finally {
+                        --emptyWaiters;
+                    }
+                }
+                else {
+                    ++fullWaiters;
+                    try {
+                        if (tail - head >= capacity) {
+                            if (timed)
+                                notFull.awaitNanos(nanos);
+                            else
+                                notFull.await();
+                        }
+                    } finally {
+                        --fullWaiters;
+                    }
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+        return true;
+    }
+
+    // BlockingQueue methods
+
+    /**
+     * Inserts the specified element at the tail of this queue if it is
+     * possible to do so immediately without exceeding the queue's capacity,
+     * returning {@code true} upon success and {@code false} if this queue
+     * is full.  This method is generally preferable to method {@link #add},
+     * which can fail to insert an element only by throwing an exception.
+     *
+     * @throws NullPointerException if the specified element is null
+     */
+    public abstract boolean offer(E e);
+
+    /**
+     * Retrieves and removes the head of this queue, or returns
+     * {@code null} if this queue is empty.
+     *
+     * @return the head of this queue, or {@code null} if this queue is empty
+     */
+    public abstract E poll();
+
+    /**
+     * Inserts the specified element at the tail of this queue, waiting
+     * according to the wait strategy for space to become available if
+     * the queue is full.
+     *
+     * @throws InterruptedException {@inheritDoc}
+     * @throws NullPointerException {@inheritDoc}
+     */
+    public void put(E e) throws InterruptedException {
+        while (!offer(e))
+            await(false, false, 0L);
+    }
+
+    /**
+     * Inserts the specified element at the tail of this queue, waiting
+     * according to the wait strategy, up to the specified wait time,
+     * for space to become available if the queue is full.
+     *
+     * @throws InterruptedException {@inheritDoc}
+     * @throws NullPointerException {@inheritDoc}
+     */
+    public boolean offer(E e, long timeout, TimeUnit unit)
+        throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        while (!offer(e)) {
+            if (!await(false, true, deadline))
+                return false;
+        }
+        return true;
+    }
+
+    public E take() throws InterruptedException {
+        E x;
+        while ((x = poll()) == null)
+            await(true, false, 0L);
+        return x;
+    }
+
+    public E poll(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        E x;
+        while ((x = poll()) == null) {
+            if (!await(true, true, deadline))
+                return null;
+        }
+        return x;
+    }
+
+    public E peek() {
+        final Object[] items = this.items;
+        for (;;) {
+            long h = head;
+            E x = slotAt(items, slotOffset(items, h));
+            if (head == h) {
+                if (x != null)
+                    return x;
+                if (h >= tail)
+                    return null;
+                // else an insertion is in progress; retry
+            }
+        }
+    }
+
+    /**
+     * Returns the number of elements in this queue.
+     *
+     * @return the number of elements in this queue
+     */
+    public int size() {
+        for (;;) {
+            long h = head, t = tail;
+            if (head == h) {
+                long n = t - h;
+                return (n <= 0L) ? 0 : (n >= capacity) ? capacity : (int)n;
+            }
+        }
+    }
+
+    public boolean isEmpty() {
+        return head >= tail;
+    }
+
+    /**
+     * Returns the number of additional elements that this queue can ideally
+     * (in the absence of memory or resource constraints) accept without
+     * blocking.  This is always equal to the initial capacity of this queue
+     * less the current {@code size} of this queue.
+     *
+     * <p>Note that you <em>cannot</em> always tell if an attempt to insert
+     * an element will succeed by inspecting {@code remainingCapacity}
+     * because it may be the case that another thread is about to
+     * insert or remove an element.
+     */
+    public int remainingCapacity() {
+        return capacity - size();
+    }
+
+    /**
+     * Returns the wait strategy of this queue.
+     *
+     * @return the wait strategy
+     */
+    public WaitStrategy getWaitStrategy() {
+        return strategy;
+    }
+
+    /**
+     * @throws UnsupportedOperationException {@inheritDoc}
+     * @throws ClassCastException            {@inheritDoc}
+     * @throws NullPointerException          {@inheritDoc}
+     * @throws IllegalArgumentException      {@inheritDoc}
+     */
+    public int drainTo(Collection<? super E> c) {
+        return drainTo(c, Integer.MAX_VALUE);
+    }
+
+    /**
+     * @throws UnsupportedOperationException {@inheritDoc}
+     * @throws ClassCastException            {@inheritDoc}
+     * @throws NullPointerException          {@inheritDoc}
+     * @throws IllegalArgumentException      {@inheritDoc}
+     */
+    public int drainTo(Collection<? super E> c, int maxElements) {
+        if (c == null)
+            throw new NullPointerException();
+        if (c == this)
+            throw new IllegalArgumentException();
+        int n = 0;
+        for (E e; n < maxElements && (e = poll()) != null; ++n)
+            c.add(e);
+        return n;
+    }
+
+    /**
+     * Returns an array containing the elements in this queue, in
+     * proper sequence.  If the queue is being modified concurrently,
+     * the result is a weakly consistent snapshot.
+     *
+     * @return an array containing all of the elements in this queue
+     */
+    public Object[] toArray() {
+        final Object[] items = this.items;
+        long h = head, t = tail;
+        ArrayList<Object> list = new ArrayList<Object>();
+        for (long i = h; i < t && i - h < capacity; ++i) {
+            Object x = slotAt(items, slotOffset(items, i));
+            if (x != null)
+                list.add(x);
+        }
+        return list.toArray();
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> T[] toArray(T[] a) {
+        Object[] x = toArray();
+        int n = x.length;
+        if (a.length < n)
+            return (T[]) Arrays.copyOf(x, n, a.getClass());
+        System.arraycopy(x, 0, a, 0, n);
+        if (a.length > n)
+            a[n] = null;
+        return a;
+    }
+
+    /**
+     * Returns an iterator over a snapshot of the elements in this
+     * queue, in proper sequence.  The iterator does not support
+     * {@code remove}.
+     *
+     * @return an iterator over the elements in this queue in proper sequence
+     */
+    public Iterator<E> iterator() {
+        return new Itr<E>(toArray());
+    }
+
+    /** Snapshot iterator */
+    static final class Itr<E> implements Iterator<E> {
+        private final Object[] snapshot;
+        private int cursor;
+
+        Itr(Object[] snapshot) {
+            this.snapshot = snapshot;
+        }
+
+        public boolean hasNext() {
+            return cursor < snapshot.length;
+        }
+
+        @SuppressWarnings("unchecked")
+        public E next() {
+            if (cursor >= snapshot.length)
+                throw new NoSuchElementException();
+            return (E) snapshot[cursor++];
+        }
+    }
+
+    // Unsafe mechanics
+    private static final sun.misc.Unsafe U;
+    private static final long HEAD;
+    private static final long TAIL;
+    private static final long ABASE;
+    private static final int ASHIFT;
+    static {
+        try {
+            U = sun.misc.Unsafe.getUnsafe();
+            Class<?> k = RingBufferQueue.class;
+            HEAD = U.objectFieldOffset
+                (k.getDeclaredField("head"));
+            TAIL = U.objectFieldOffset
+                (k.getDeclaredField("tail"));
+            Class<?> ak = Object[].class;
+            ABASE = U.arrayBaseOffset(ak);
+            int scale = U.arrayIndexScale(ak);
+            if ((scale & (scale - 1)) != 0)
+                throw new Error("data type scale not a power of two");
+            ASHIFT = 31 - Integer.numberOfLeadingZeros(scale);
+        } catch (Exception e) {
+            throw new Error(e);
+        }
+    }
+}
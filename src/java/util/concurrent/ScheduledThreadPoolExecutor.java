@@ -63,6 +63,19 @@ import java.util.*;
  * causes tasks to be immediately removed from the work queue at
  * time of cancellation.
  *
+ * <p>By default, delayed tasks are held in a binary heap, so that
+ * scheduling and removal take time logarithmic in the number of
+ * queued tasks. Executors constructed with a <em>tick duration</em>
+ * instead hold them in a hierarchical hashed timing wheel, in which
+ * scheduling and removal take constant time, and cancelled tasks
+ * are discarded as the wheel advances past them rather than being
+ * handed to worker threads. This suits workloads that schedule large
+ * numbers of timeouts, most of which are cancelled before they
+ * elapse. In exchange, delays are rounded up to a whole number of
+ * ticks, and tasks enabled within the same tick are not guaranteed
+ * to commence in order of their trigger times. In either mode, tasks
+ * never commence before they are enabled.
+ *
  * <p>Successive executions of a task scheduled via
  * {@code scheduleAtFixedRate} or
  * {@code scheduleWithFixedDelay} do not overlap. While different
@@ -136,6 +149,11 @@ public class ScheduledThreadPoolExecutor
      *    the fact that corePoolSize and maximumPoolSize are
      *    effectively identical simplifies some execution mechanics
      *    (see delayedExecute) compared to ThreadPoolExecutor.
+     *    Alternatively, when constructed with a tick duration, a
+     *    TimingWheelWorkQueue (a hierarchical hashed timing wheel)
+     *    is used instead, trading exact ordering among tasks due
+     *    within the same tick for constant-time insertion and
+     *    removal.
      *
      * 3. Supporting optional run-after-shutdown parameters, which
      *    leads to overrides of shutdown methods to remove and cancel
@@ -202,6 +220,13 @@ public class ScheduledThreadPoolExecutor
          */
         int heapIndex;
 
+        /**
+         * Node holding this task in a timing wheel queue, or null if
+         * not held in one, to support constant-time cancellation.
+         * Tasks held in a timing wheel queue have a heapIndex of -1.
+         */
+        TimingWheelWorkQueue.Node wheelNode;
+
         /**
          * Creates a one-shot action with given nanoTime-based trigger time.
          */
@@ -277,7 +302,10 @@ public class ScheduledThreadPoolExecutor
 
         public boolean cancel(boolean mayInterruptIfRunning) {
             boolean cancelled = super.cancel(mayInterruptIfRunning);
-            if (cancelled && removeOnCancel && heapIndex >= 0)
+            // Tasks held in a DelayedWorkQueue have a heapIndex, and
+            // those held in a TimingWheelWorkQueue have a wheelNode
+            if (cancelled && removeOnCancel &&
+                (heapIndex >= 0 || wheelNode != null))
                 remove(this);
             return cancelled;
         }
@@ -486,6 +514,67 @@ public class ScheduledThreadPoolExecutor
               new DelayedWorkQueue(), threadFactory, handler);
     }
 
+    /**
+     * Creates a new {@code ScheduledThreadPoolExecutor} with the
+     * given core pool size, holding delayed tasks in a hashed timing
+     * wheel with the given tick duration.
+     *
+     * @param corePoolSize the number of threads to keep in the pool, even
+     *        if they are idle, unless {@code allowCoreThreadTimeOut} is set
+     * @param tickDuration the granularity with which delays are measured
+     * @param unit the time unit of the {@code tickDuration} argument
+     * @throws IllegalArgumentException if {@code corePoolSize < 0}
+     *         or {@code tickDuration <= 0}
+     * @throws NullPointerException if {@code unit} is null
+     * @since 1.9
+     */
+    public ScheduledThreadPoolExecutor(int corePoolSize,
+                                       long tickDuration,
+                                       TimeUnit unit) {
+        super(corePoolSize, Integer.MAX_VALUE, 0, NANOSECONDS,
+              new TimingWheelWorkQueue(tickNanos(tickDuration, unit)));
+    }
+
+    /**
+     * Creates a new {@code ScheduledThreadPoolExecutor} with the
+     * given initial parameters, holding delayed tasks in a hashed
+     * timing wheel with the given tick duration.
+     *
+     * @param corePoolSize the number of threads to keep in the pool, even
+     *        if they are idle, unless {@code allowCoreThreadTimeOut} is set
+     * @param tickDuration the granularity with which delays are measured
+     * @param unit the time unit of the {@code tickDuration} argument
+     * @param threadFactory the factory to use when the executor
+     *        creates a new thread
+     * @param handler the handler to use when execution is blocked
+     *        because the thread bounds and queue capacities are reached
+     * @throws IllegalArgumentException if {@code corePoolSize < 0}
+     *         or {@code tickDuration <= 0}
+     * @throws NullPointerException if {@code unit}, {@code threadFactory}
+     *         or {@code handler} is null
+     * @since 1.9
+     */
+    public ScheduledThreadPoolExecutor(int corePoolSize,
+                                       long tickDuration,
+                                       TimeUnit unit,
+                                       ThreadFactory threadFactory,
+                                       RejectedExecutionHandler handler) {
+        super(corePoolSize, Integer.MAX_VALUE, 0, NANOSECONDS,
+              new TimingWheelWorkQueue(tickNanos(tickDuration, unit)),
+              threadFactory, handler);
+    }
+
+    /**
+     * Returns the given tick duration in nanoseconds, checking that
+     * it is positive.
+     */
+    private static long tickNanos(long tickDuration, TimeUnit unit) {
+        long nanos = unit.toNanos(tickDuration);
+        if (nanos <= 0)
+            throw new IllegalArgumentException();
+        return nanos;
+    }
+
     /**
      * Returns the trigger time of a delayed action.
      */
@@ -1280,4 +1369,689 @@ public class ScheduledThreadPoolExecutor
             }
         }
     }
+
+    /**
+     * Hashed timing wheel alternative to DelayedWorkQueue. To mesh
+     * with TPE declarations, this class must be declared as a
+     * BlockingQueue<Runnable> even though it can only hold
+     * RunnableScheduledFutures.
+     */
+    static class TimingWheelWorkQueue extends AbstractQueue<Runnable>
+        implements BlockingQueue<Runnable> {
+
+        /*
+         * A TimingWheelWorkQueue is a hierarchical hashed timing
+         * wheel in the style of Varghese & Lauck ("Hashed and
+         * Hierarchical Timing Wheels", SOSP 1987), as also used in
+         * several operating system kernels. Time is divided into
+         * ticks of fixed duration, counted from the construction of
+         * the queue. Each task is wrapped in a Node recording the
+         * first tick at or after its trigger time, and linked into
+         * one of LEVELS wheels of SLOTS doubly-linked slots each,
+         * where level k holds tasks due within SLOTS^(k+1) ticks,
+         * hashed by bits [k*SLOT_BITS, (k+1)*SLOT_BITS) of their
+         * tick. Tasks due further away than the outermost level
+         * covers are parked in its furthest slot and rehashed each
+         * time they are reached, so every task keeps the tick of its
+         * actual trigger time. Only ticks beyond the range of a long
+         * (delays of centuries) are saturated, and as a last check
+         * a task whose delay has not yet elapsed when it reaches the
+         * ready list is placed back into the wheel rather than
+         * handed out early.
+         *
+         * The wheel is advanced lazily by whichever thread is
+         * waiting in take() or poll(), much as the leader thread of
+         * a DelayedWorkQueue waits for the head of its heap. Each
+         * tick expires one level-0 slot, moving its tasks to a FIFO
+         * list of ready tasks, and each time the level-0 index wraps
+         * around, the corresponding slot of the next level is
+         * "cascaded" (rehashed into lower levels), and so on
+         * upwards. A bitmap of occupied level-0 slots lets the wheel
+         * skip runs of empty ticks, so idle periods cost at most one
+         * step per rotation.
+         *
+         * Insertion and removal are constant-time list operations
+         * under the lock. ScheduledFutureTasks record their Node
+         * (wheelNode), playing the role of heapIndex; other
+         * RunnableScheduledFutures fall back to linear search upon
+         * removal. Cancelled tasks need not be removed at all:
+         * they are unlinked and dropped whenever the wheel expires
+         * or cascades the slot holding them, or when they reach the
+         * ready list, so cancellation without removeOnCancel never
+         * takes the lock and cancelled tasks are never handed out
+         * to worker threads.
+         */
+
+        /** log2 of the number of slots in each level */
+        private static final int SLOT_BITS = 8;
+        private static final int SLOTS = 1 << SLOT_BITS;
+        private static final int MASK = SLOTS - 1;
+        private static final int LEVELS = 4;
+
+        /** The largest tick distance representable in the wheel */
+        private static final long MAX_TICKS = (1L << (SLOT_BITS * LEVELS)) - 1;
+
+        /** Value of Node.slot for tasks in the ready list */
+        private static final int READY = LEVELS * SLOTS;
+
+        /** Value of Node.slot for tasks not in any list */
+        private static final int UNLINKED = -1;
+
+        /**
+         * Linked list node holding a task. All fields other than
+         * task and queue are accessed only under the queue lock.
+         */
+        static final class Node {
+            final RunnableScheduledFuture<?> task;
+            final TimingWheelWorkQueue queue;
+            long tick;
+            int slot = UNLINKED;
+            Node prev, next;
+
+            Node(RunnableScheduledFuture<?> task, TimingWheelWorkQueue queue) {
+                this.task = task;
+                this.queue = queue;
+            }
+        }
+
+        private final long tickNanos;
+
+        private final long origin = System.nanoTime();
+        private final ReentrantLock lock = new ReentrantLock();
+
+        /** Heads and tails of the slot lists, plus the ready list */
+        private final Node[] heads = new Node[READY + 1];
+        private final Node[] tails = new Node[READY + 1];
+
+        /** Bitmap of non-empty level-0 slots */
+        private final long[] occupied = new long[SLOTS >>> 6];
+
+        /** The earliest tick that has not yet been expired */
+        private long currentTick;
+
+        /** Number of tasks in the wheel, excluding the ready list */
+        private int wheelCount;
+
+        /** Number of tasks in the ready list */
+        private int readyCount;
+
+        /**
+         * Thread designated to advance the wheel, as in
+         * DelayedWorkQueue, and the tick it is waiting for. Whenever
+         * a task becomes due before that tick, the leader field is
+         * invalidated by being reset to null and some waiting thread
+         * is signalled.
+         */
+        private Thread leader = null;
+        private long leaderTick;
+
+        /**
+         * Condition signalled when a task becomes ready or a new
+         * thread may need to become leader.
+         */
+        private final Condition available = lock.newCondition();
+
+        TimingWheelWorkQueue(long tickNanos) {
+            this.tickNanos = tickNanos;
+        }
+
+        /**
+         * Returns the first tick at or after the given positive delay
+         * from the given time, rounding up so that tasks never become
+         * ready early, and saturating rather than overflowing.
+         */
+        private long tickOf(long delay, long now) {
+            long elapsed = now - origin;
+            long limit = Long.MAX_VALUE - elapsed - tickNanos;
+            long d = (delay < limit) ? delay : limit;
+            return (elapsed + d + tickNanos - 1) / tickNanos;
+        }
+
+        /**
+         * Links n at the tail of the given list.  Call only when
+         * holding lock.
+         */
+        private void link(Node n, int slot) {
+            Node t = tails[slot];
+            n.slot = slot;
+            n.prev = t;
+            n.next = null;
+            if (t == null)
+                heads[slot] = n;
+            else
+                t.next = n;
+            tails[slot] = n;
+            if (slot < SLOTS)
+                occupied[slot >>> 6] |= 1L << slot;
+        }
+
+        /**
+         * Unlinks n from its list, updating counts.  Call only when
+         * holding lock.
+         */
+        private void unlink(Node n) {
+            int slot = n.slot;
+            Node p = n.prev, s = n.next;
+            if (p == null)
+                heads[slot] = s;
+            else
+                p.next = s;
+            if (s == null)
+                tails[slot] = p;
+            else
+                s.prev = p;
+            if (slot == READY)
+                --readyCount;
+            else {
+                --wheelCount;
+                if (slot < SLOTS && heads[slot] == null)
+                    occupied[slot >>> 6] &= ~(1L << slot);
+            }
+            release(n);
+        }
+
+        /**
+         * Marks a node as no longer held by this queue.
+         */
+        private static void release(Node n) {
+            n.slot = UNLINKED;
+            n.prev = n.next = null;
+            if (n.task instanceof ScheduledFutureTask)
+                ((ScheduledFutureTask)n.task).wheelNode = null;
+        }
+
+        /**
+         * Detaches and returns the list held in the given slot,
+         * updating counts.  Call only when holding lock.
+         */
+        private Node detach(int slot) {
+            Node h = heads[slot];
+            heads[slot] = tails[slot] = null;
+            if (slot < SLOTS)
+                occupied[slot >>> 6] &= ~(1L << slot);
+            for (Node p = h; p != null; p = p.next)
+                --wheelCount;
+            return h;
+        }
+
+        /**
+         * Links n into the ready list or the wheel slot for its
+         * tick.  Call only when holding lock.
+         */
+        private void place(Node n) {
+            long tick = n.tick;
+            long d = tick - currentTick;
+            if (d < 0) {
+                link(n, READY);
+                ++readyCount;
+                return;
+            }
+            if (d > MAX_TICKS) // park in furthest slot; rehashed when reached
+                tick = currentTick + MAX_TICKS;
+            int level = 0;
+            while (d >= SLOTS && level < LEVELS - 1) {
+                d >>>= SLOT_BITS;
+                ++level;
+            }
+            int shift = level * SLOT_BITS;
+            link(n, (level << SLOT_BITS) + (int)((tick >>> shift) & MASK));
+            ++wheelCount;
+        }
+
+        /**
+         * Rehashes the given detached list into lower levels or the
+         * ready list, dropping cancelled tasks.  Call only when
+         * holding lock.
+         */
+        private void replace(Node h) {
+            for (Node p = h, s; p != null; p = s) {
+                s = p.next;
+                if (p.task.isCancelled())
+                    release(p);
+                else
+                    place(p);
+            }
+        }
+
+        /**
+         * Expires all ticks that are due at the given time.  Call
+         * only when holding lock.
+         */
+        private void advance(long now) {
+            long due = (now - origin) / tickNanos;
+            while (currentTick <= due) {
+                if (wheelCount == 0) {
+                    currentTick = due + 1;
+                    break;
+                }
+                long tick = currentTick;
+                int idx = (int)tick & MASK;
+                if (idx == 0) {
+                    for (int level = 1; level < LEVELS; ++level) {
+                        int shift = level * SLOT_BITS;
+                        int i = (int)(tick >>> shift) & MASK;
+                        replace(detach((level << SLOT_BITS) + i));
+                        if (i != 0)
+                            break;
+                    }
+                }
+                Node h = detach(idx);
+                currentTick = tick + 1;       // so that tasks become ready
+                replace(h);
+                currentTick = Math.min(nextTick(tick), due + 1);
+            }
+        }
+
+        /**
+         * Returns the next tick after the given one at which the
+         * wheel may need to be advanced: the next occupied level-0
+         * slot in this rotation, or the start of the next rotation.
+         */
+        private long nextTick(long tick) {
+            int idx = ((int)tick & MASK) + 1;
+            long base = tick & ~(long)MASK;
+            for (int w = idx >>> 6; w < occupied.length && idx < SLOTS; ++w) {
+                long bits = occupied[w] & (-1L << idx);
+                if (bits != 0L)
+                    return base + (w << 6) + Long.numberOfTrailingZeros(bits);
+                idx = (w + 1) << 6;
+            }
+            return base + SLOTS;
+        }
+
+        /**
+         * Returns the tick for which a leader should wait, the
+         * earliest one at which advancing the wheel may expire or
+         * cascade some slot.  Call only when holding lock.
+         */
+        private long nextDueTick() {
+            long tick = currentTick;
+            int idx = (int)tick & MASK;
+            if (idx == 0 || (occupied[idx >>> 6] & (1L << idx)) != 0L)
+                return tick;
+            return nextTick(tick);
+        }
+
+        /**
+         * Returns the node of the first ready task, or null if none,
+         * dropping cancelled tasks, and placing back into the wheel
+         * tasks whose delay has not elapsed.  Call only when holding
+         * lock.
+         */
+        private Node firstReady() {
+            Node h;
+            while ((h = heads[READY]) != null) {
+                RunnableScheduledFuture<?> t = h.task;
+                if (t.isCancelled())
+                    unlink(h);
+                else {
+                    long delay = t.getDelay(NANOSECONDS);
+                    if (delay <= 0)
+                        return h;
+                    unlink(h);
+                    h.tick = tickOf(delay, System.nanoTime());
+                    if (t instanceof ScheduledFutureTask)
+                        ((ScheduledFutureTask)t).wheelNode = h;
+                    place(h);
+                }
+            }
+            return null;
+        }
+
+        /**
+         * Removes and returns the first ready task that has not been
+         * cancelled, or null if none.  Call only when holding lock.
+         */
+        private RunnableScheduledFuture<?> pollReady() {
+            Node h = firstReady();
+            if (h == null)
+                return null;
+            unlink(h);
+            return h.task;
+        }
+
+        /**
+         * Finds the node holding the given object, or null if absent.
+         * Call only when holding lock.
+         */
+        private Node nodeOf(Object x) {
+            if (x != null) {
+                if (x instanceof ScheduledFutureTask) {
+                    Node n = ((ScheduledFutureTask) x).wheelNode;
+                    // Sanity check; x could conceivably be a
+                    // ScheduledFutureTask from some other pool.
+                    if (n != null && n.queue == this && n.slot != UNLINKED)
+                        return n;
+                } else {
+                    for (int i = 0; i <= READY; ++i)
+                        for (Node p = heads[i]; p != null; p = p.next)
+                            if (x.equals(p.task))
+                                return p;
+                }
+            }
+            return null;
+        }
+
+        public boolean contains(Object x) {
+            final ReentrantLock lock = this.lock;
+            lock.lock();
+            try {
+                return nodeOf(x) != null;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        public boolean remove(Object x) {
+            final ReentrantLock lock = this.lock;
+            lock.lock();
+            try {
+                Node n = nodeOf(x);
+                if (n == null)
+                    return false;
+                unlink(n);
+                return true;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        public int size() {
+            final ReentrantLock lock = this.lock;
+            lock.lock();
+            try {
+                return wheelCount + readyCount;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        public boolean isEmpty() {
+            return size() == 0;
+        }
+
+        public int remainingCapacity() {
+            return Integer.MAX_VALUE;
+        }
+
+        /**
+         * Returns the first ready task if there is one, else some
+         * task due in the nearest non-empty slot, which is not
+         * necessarily the task with the earliest trigger time.
+         */
+        public RunnableScheduledFuture<?> peek() {
+            final ReentrantLock lock = this.lock;
+            lock.lock();
+            try {
+                Node h = heads[READY];
+                if (h == null && wheelCount > 0) {
+                    long tick = currentTick;
+                    for (int level = 0; h == null && level < LEVELS; ++level) {
+                        int shift = level * SLOT_BITS;
+                        for (int k = 0; h == null && k < SLOTS; ++k)
+                            h = heads[(level << SLOT_BITS) +
+                                      (int)(((tick >>> shift) + k) & MASK)];
+                    }
+                }
+                return (h == null) ? null : h.task;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        public boolean offer(Runnable x) {
+            if (x == null)
+                throw new NullPointerException();
+            RunnableScheduledFuture<?> e = (RunnableScheduledFuture<?>)x;
+            Node n = new Node(e, this);
+            long delay = e.getDelay(NANOSECONDS);
+            long now = System.nanoTime(); // read after delay, so never early
+            final ReentrantLock lock = this.lock;
+            lock.lock();
+            try {
+                if (delay <= 0)
+                    n.tick = currentTick - 1;
+                else
+                    n.tick = tickOf(delay, now);
+                if (e instanceof ScheduledFutureTask) {
+                    ScheduledFutureTask<?> f = (ScheduledFutureTask<?>)e;
+                    f.heapIndex = -1;
+                    f.wheelNode = n;
+                }
+                place(n);
+                if (n.slot == READY || leader == null || n.tick < leaderTick) {
+                    leader = null;
+                    available.signal();
+                }
+            } finally {
+                lock.unlock();
+            }
+            return true;
+        }
+
+        public void put(Runnable e) {
+            offer(e);
+        }
+
+        public boolean add(Runnable e) {
+            return offer(e);
+        }
+
+        public boolean offer(Runnable e, long timeout, TimeUnit unit) {
+            return offer(e);
+        }
+
+        public RunnableScheduledFuture<?> poll() {
+            final ReentrantLock lock = this.lock;
+            lock.lock();
+            try {
+                advance(System.nanoTime());
+                return pollReady();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        public RunnableScheduledFuture<?> take() throws InterruptedException {
+            final ReentrantLock lock = this.lock;
+            lock.lockInterruptibly();
+            try {
+                for (;;) {
+                    long now = System.nanoTime();
+                    advance(now);
+                    RunnableScheduledFuture<?> first = pollReady();
+                    if (first != null)
+                        return first;
+                    if (wheelCount == 0 || leader != null)
+                        available.await();
+                    else {
+                        Thread thisThread = Thread.currentThread();
+                        long tick = nextDueTick();
+                        leader = thisThread;
+                        leaderTick = tick;
+                        try {
+                            available.awaitNanos(origin + tick * tickNanos - now);
+                        } finally {
+                            if (leader == thisThread)
+                                leader = null;
+                        }
+                    }
+                }
+            } finally {
+                if (leader == null && wheelCount + readyCount > 0)
+                    available.signal();
+                lock.unlock();
+            }
+        }
+
+        public RunnableScheduledFuture<?> poll(long timeout, TimeUnit unit)
+            throws InterruptedException {
+            long nanos = unit.toNanos(timeout);
+            final ReentrantLock lock = this.lock;
+            lock.lockInterruptibly();
+            try {
+                for (;;) {
+                    long now = System.nanoTime();
+                    advance(now);
+                    RunnableScheduledFuture<?> first = pollReady();
+                    if (first != null)
+                        return first;
+                    if (nanos <= 0)
+                        return null;
+                    long tick = nextDueTick();
+                    long delay = origin + tick * tickNanos - now;
+                    if (wheelCount == 0 || nanos < delay || leader != null)
+                        nanos = available.awaitNanos(nanos);
+                    else {
+                        Thread thisThread = Thread.currentThread();
+                        leader = thisThread;
+                        leaderTick = tick;
+                        try {
+                            long timeLeft = available.awaitNanos(delay);
+                            nanos -= delay - timeLeft;
+                        } finally {
+                            if (leader == thisThread)
+                                leader = null;
+                        }
+                    }
+                }
+            } finally {
+                if (leader == null && wheelCount + readyCount > 0)
+                    available.signal();
+                lock.unlock();
+            }
+        }
+
+        public void clear() {
+            final ReentrantLock lock = this.lock;
+            lock.lock();
+            try {
+                for (int i = 0; i <= READY; ++i) {
+                    for (Node p = heads[i], s; p != null; p = s) {
+                        s = p.next;
+                        release(p);
+                    }
+                    heads[i] = tails[i] = null;
+                }
+                Arrays.fill(occupied, 0L);
+                wheelCount = readyCount = 0;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        public int drainTo(Collection<? super Runnable> c) {
+            return drainTo(c, Integer.MAX_VALUE);
+        }
+
+        public int drainTo(Collection<? super Runnable> c, int maxElements) {
+            if (c == null)
+                throw new NullPointerException();
+            if (c == this)
+                throw new IllegalArgumentException();
+            if (maxElements <= 0)
+                return 0;
+            final ReentrantLock lock = this.lock;
+            lock.lock();
+            try {
+                advance(System.nanoTime());
+                Node first;
+                int n = 0;
+                while (n < maxElements && (first = firstReady()) != null) {
+                    c.add(first.task);   // In this order, in case add() throws.
+                    unlink(first);
+                    ++n;
+                }
+                return n;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Returns an array of all held tasks, ready tasks first.
+         * Call only when holding lock.
+         */
+        private RunnableScheduledFuture<?>[] snapshot() {
+            RunnableScheduledFuture<?>[] a =
+                new RunnableScheduledFuture<?>[wheelCount + readyCount];
+            int k = 0;
+            for (Node p = heads[READY]; p != null; p = p.next)
+                a[k++] = p.task;
+            for (int i = 0; i < READY; ++i)
+                for (Node p = heads[i]; p != null; p = p.next)
+                    a[k++] = p.task;
+            return a;
+        }
+
+        public Object[] toArray() {
+            final ReentrantLock lock = this.lock;
+            lock.lock();
+            try {
+                return Arrays.copyOf(snapshot(), wheelCount + readyCount,
+                                     Object[].class);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        public <T> T[] toArray(T[] a) {
+            final ReentrantLock lock = this.lock;
+            lock.lock();
+            try {
+                RunnableScheduledFuture<?>[] s = snapshot();
+                int size = s.length;
+                if (a.length < size)
+                    return (T[]) Arrays.copyOf(s, size, a.getClass());
+                System.arraycopy(s, 0, a, 0, size);
+                if (a.length > size)
+                    a[size] = null;
+                return a;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        public Iterator<Runnable> iterator() {
+            final ReentrantLock lock = this.lock;
+            lock.lock();
+            try {
+                return new Itr(snapshot());
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Snapshot iterator that works off a copy of the held tasks.
+         */
+        private class Itr implements Iterator<Runnable> {
+            final RunnableScheduledFuture<?>[] array;
+            int cursor = 0;     // index of next element to return
+            int lastRet = -1;   // index of last element, or -1 if no such
+
+            Itr(RunnableScheduledFuture<?>[] array) {
+                this.array = array;
+            }
+
+            public boolean hasNext() {
+                return cursor < array.length;
+            }
+
+            public Runnable next() {
+                if (cursor >= array.length)
+                    throw new NoSuchElementException();
+                lastRet = cursor;
+                return array[cursor++];
+            }
+
+            public void remove() {
+                if (lastRet < 0)
+                    throw new IllegalStateException();
+                TimingWheelWorkQueue.this.remove(array[lastRet]);
+                lastRet = -1;
+            }
+        }
+    }
 }
@@ -0,0 +1,126 @@
+/*
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+package java.util.concurrent;
+
+/**
+ * A bounded {@linkplain BlockingQueue blocking queue} for use by
+ * exactly one producer thread and any number of consumer threads at
+ * a time, backed by a lock-free ring buffer.  Consumers claim
+ * elements by CAS; insertion performs no atomic read-modify-write
+ * instruction or memory fence (other than as needed to wake blocked
+ * threads under the {@link RingBufferQueue.WaitStrategy#PARK PARK}
+ * wait strategy).  This is a natural fit for a dispatcher handing
+ * work to a set of workers.  See {@link RingBufferQueue} for the
+ * constraints on use.
+ *
+ * <p>This class is a member of the
+ * <a href="{@docRoot}/../technotes/guides/collections/index.html">
+ * Java Collections Framework</a>.
+ *
+ * @see RingBufferQueue
+ * @since 1.9
+ * @param <E> the type of elements held in this collection
+ */
+public class SpmcRingBufferQueue<E> extends RingBufferQueue<E> {
+
+    /**
+     * Creates a {@code SpmcRingBufferQueue} with the given (fixed) capacity
+     * and the {@link RingBufferQueue.WaitStrategy#PARK PARK} wait
+     * strategy.
+     *
+     * @param capacity the capacity of this queue
+     * @throws IllegalArgumentException if {@code capacity < 1} or
+     *         {@code capacity > 1 << 30}
+     */
+    public SpmcRingBufferQueue(int capacity) {
+        this(capacity, WaitStrategy.PARK);
+    }
+
+    /**
+     * Creates a {@code SpmcRingBufferQueue} with the given (fixed) capacity
+     * and wait strategy.
+     *
+     * @param capacity the capacity of this queue
+     * @param strategy the wait strategy for blocking operations
+     * @throws IllegalArgumentException if {@code capacity < 1} or
+     *         {@code capacity > 1 << 30}
+     * @throws NullPointerException if strategy is null
+     */
+    public SpmcRingBufferQueue(int capacity, WaitStrategy strategy) {
+        super(capacity, strategy);
+    }
+
+    /**
+     * Inserts the specified element at the tail of this queue if it is
+     * possible to do so immediately without exceeding the queue's capacity,
+     * returning {@code true} upon success and {@code false} if this queue
+     * is full.  Must be invoked only by the producer thread.
+     *
+     * @throws NullPointerException if the specified element is null
+     */
+    public boolean offer(E e) {
+        if (e == null)
+            throw new NullPointerException();
+        long t = tail;
+        if (producerFull(t))
+            return false;
+        final Object[] items = this.items;
+        long offset = slotOffset(items, t);
+        // A consumer may have claimed but not yet cleared the slot;
+        // yield in case it has been descheduled
+        while (slotAt(items, offset) != null)
+            Thread.yield();
+        setSlot(items, offset, e);
+        setTail(t + 1L);
+        signalNotEmpty();
+        return true;
+    }
+
+    /**
+     * Retrieves and removes the head of this queue, or returns
+     * {@code null} if this queue is empty.  May be invoked by any
+     * number of threads.
+     *
+     * @return the head of this queue, or {@code null} if this queue is empty
+     */
+    public E poll() {
+        final Object[] items = this.items;
+        for (long h;;) {
+            if ((h = head) >= tailCache) {
+                long t = tail;
+                tailCache = t;
+                if (h >= t)
+                    return null;
+            }
+            if (casHead(h, h + 1L)) {
+                // Slot h was filled before tail passed it
+                long offset = slotOffset(items, h);
+                E x = slotAt(items, offset);
+                setSlot(items, offset, null);
+                signalNotFull();
+                return x;
+            }
+        }
+    }
+}
@@ -0,0 +1,783 @@
+/*
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+package java.util.concurrent;
+
+import java.util.Set;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * A scope for a group of concurrent subtasks whose lifetimes are
+ * confined to a block of code in the thread that opened it.  A task
+ * that splits into several concurrent subtasks {@linkplain
+ * #fork forks} each of them in the scope, {@linkplain #join joins}
+ * them, handles their outcomes, and then {@linkplain #close closes}
+ * the scope, normally using a {@code try}-with-resources statement:
+ *
+ *  <pre> {@code
+ * Response handle() throws ExecutionException, InterruptedException {
+ *   try (StructuredTaskScope.ShutdownOnFailure scope =
+ *          new StructuredTaskScope.ShutdownOnFailure()) {
+ *     Subtask<String> user = scope.fork(() -> findUser());
+ *     Subtask<Integer> order = scope.fork(() -> fetchOrder());
+ *     scope.join().throwIfFailed();
+ *     return new Response(user.get(), order.get());
+ *   }
+ * }}</pre>
+ *
+ * <p>Unlike a group of {@link CompletableFuture}s combined with
+ * {@link CompletableFuture#allOf allOf} or {@link
+ * CompletableFuture#anyOf anyOf}, a scope may be {@linkplain
+ * #shutdown shut down} once the outcome of the whole is known,
+ * either explicitly or by a policy reacting to the completion of
+ * individual subtasks.  Shutdown cancels all unfinished subtasks,
+ * interrupting the threads running them, so that subtasks whose
+ * results are no longer needed stop consuming worker time, and
+ * wakes up the owner if it is waiting in {@code join}.  Subtasks
+ * that have not yet started when the scope shuts down are never
+ * run.  {@link #close} shuts the scope down and waits for all
+ * subtask threads to finish, so that no subtask outlives the
+ * scope.
+ *
+ * <p>Subtasks are run by the {@link Executor} supplied on
+ * construction, by default the {@link ForkJoinPool#commonPool()}
+ * (or, as for the asynchronous methods of {@code CompletableFuture},
+ * a new thread per subtask if the common pool cannot support
+ * parallelism).  When the owner is itself running in a {@link
+ * ForkJoinPool}, waiting in {@code join} or {@code close} is
+ * performed as a {@linkplain ForkJoinPool.ManagedBlocker managed
+ * block}, so the pool may activate a spare thread to preserve its
+ * parallelism.  Subtasks should be responsive to interruption, as
+ * is the case for blocking I/O on interruptible channels and for
+ * the blocking methods of this package.
+ *
+ * <p>Two policies are provided: {@link ShutdownOnFailure}, which
+ * shuts down when any subtask fails, and {@link ShutdownOnSuccess},
+ * which shuts down when any subtask succeeds.  Other policies may
+ * be defined by subclasses overriding {@link #handleComplete}.
+ *
+ * <p>The {@code join} methods, {@code close} and the policy
+ * accessors may only be invoked by the owner: the thread that
+ * constructed the scope.  Subtasks may be forked, and the scope shut
+ * down, from any thread.
+ *
+ * <p>Memory consistency effects: Actions in the owner thread prior
+ * to forking a subtask <a href="package-summary.html#MemoryVisibility">
+ * <i>happen-before</i></a> any actions taken by that subtask, which
+ * in turn <i>happen-before</i> the subtask result is retrieved via
+ * {@link Subtask#get} or the owner returns from {@code join}.
+ *
+ * @since 1.9
+ * @param <T> the result type of subtasks executed in the scope
+ */
+public class StructuredTaskScope<T> implements AutoCloseable {
+
+    /*
+     * Overview:
+     *
+     * Each subtask is a FutureTask, which already provides the
+     * needed interrupt-on-cancel protocol, including not leaving a
+     * pending cancellation interrupt set on a thread that has moved
+     * on to other work.  Subtasks are held in a concurrent set until
+     * they complete, so that shutdown can cancel them.
+     *
+     * Completion is reported at two points: FutureTask.done invokes
+     * the policy hook (unless the subtask was cancelled, or the
+     * scope was shut down), and the finally clause of run counts
+     * the subtask's thread out of the scope.  Because run is always
+     * invoked, even for tasks cancelled before they start, the
+     * count of running subtasks reaches zero only when no subtask
+     * thread can still be executing user code, which is what close
+     * waits for.  The owner waits in join for the count to reach
+     * zero or for shutdown.
+     */
+
+    /**
+     * A subtask forked in a {@code StructuredTaskScope}.
+     *
+     * @param <T> the result type
+     * @since 1.9
+     */
+    public interface Subtask<T> extends Supplier<T> {
+
+        /**
+         * Represents the state of a subtask.
+         */
+        enum State {
+            /**
+             * The subtask result or exception is not available.  This
+             * state indicates that the subtask has not yet completed,
+             * or that it was cancelled, or that it completed after
+             * the scope was shut down.
+             */
+            UNAVAILABLE,
+            /**
+             * The subtask completed successfully with a result.
+             */
+            SUCCESS,
+            /**
+             * The subtask failed with an exception.
+             */
+            FAILED,
+        }
+
+        /**
+         * Returns the state of the subtask.
+         *
+         * @return the state of the subtask
+         */
+        State state();
+
+        /**
+         * Returns the result of the subtask.
+         *
+         * @return the possibly-null result
+         * @throws IllegalStateException if the subtask has not
+         * completed or did not complete successfully
+         */
+        T get();
+
+        /**
+         * Returns the exception thrown by the subtask.
+         *
+         * @return the exception
+         * @throws IllegalStateException if the subtask has not
+         * completed or completed with a result rather than an
+         * exception
+         */
+        Throwable exception();
+    }
+
+    private final Executor executor;
+    private final Thread owner;
+    private final Set<ScopedTask<? extends T>> tasks =
+        ConcurrentHashMap.newKeySet();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition();
+
+    /** Number of forked subtasks whose run method has not yet exited */
+    private int running;                 // guarded by lock
+    private volatile boolean isShutdown;
+    private boolean closed;              // accessed only by owner
+
+    /**
+     * Creates a scope running subtasks in the given executor.  The
+     * current thread becomes the owner of the scope.
+     *
+     * @param executor the executor to run subtasks
+     * @throws NullPointerException if executor is null
+     */
+    public StructuredTaskScope(Executor executor) {
+        this.executor = CompletableFuture.screenExecutor(executor);
+        this.owner = Thread.currentThread();
+    }
+
+    /**
+     * Creates a scope running subtasks in the {@link
+     * ForkJoinPool#commonPool()}.  The current thread becomes the
+     * owner of the scope.
+     */
+    public StructuredTaskScope() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    final void ensureOwner() {
+        if (Thread.currentThread() != owner)
+            throw new IllegalStateException("Not the scope owner");
+    }
+
+    private void ensureOpen() {
+        if (closed)
+            throw new IllegalStateException("Scope is closed");
+    }
+
+    /**
+     * Invoked by a subtask, in the thread that ran it, when it
+     * completes successfully or with an exception before the scope
+     * is shut down.  This method is not invoked for subtasks that
+     * are cancelled or that complete after shutdown.  Subclasses
+     * override this method to implement policies, typically by
+     * recording results and invoking {@link #shutdown}.  It may be
+     * invoked by several threads concurrently.
+     *
+     * <p>The default implementation does nothing.
+     *
+     * @param subtask the completed subtask
+     */
+    protected void handleComplete(Subtask<? extends T> subtask) {
+    }
+
+    /**
+     * Starts a new subtask executing the given task, returning a
+     * {@code Subtask} for its eventual outcome.  If the scope has
+     * been shut down, the task is not run, and the returned subtask
+     * remains {@link Subtask.State#UNAVAILABLE UNAVAILABLE}.
+     *
+     * @param task the value-returning task to execute
+     * @param <U> the result type
+     * @return the subtask
+     * @throws NullPointerException if task is null
+     * @throws IllegalStateException if the scope is closed
+     * @throws RejectedExecutionException if the executor cannot
+     * accept the subtask
+     */
+    public <U extends T> Subtask<U> fork(Callable<? extends U> task) {
+        if (task == null)
+            throw new NullPointerException();
+        if (closed && Thread.currentThread() == owner)
+            throw new IllegalStateException("Scope is closed");
+        ScopedTask<U> s = new ScopedTask<U>(this, task);
+        if (isShutdown) {
+            s.cancel(false);
+            return s;
+        }
+        final ReentrantLock lock = this.lock;
+        lock.lock();
+        try {
+            ++running;
+        } finally {
+            lock.unlock();
+        }
+        tasks.add(s);
+        if (isShutdown)                // recheck after publication
+            s.cancel(false);
+        try {
+            executor.execute(s);
+        } catch (Throwable ex) {
+            tasks.remove(s);
+            s.cancel(false);
+            exited();
+            throw ex;
+        }
+        return s;
+    }
+
+    /**
+     * Waits for all subtasks to complete, or for the scope to be
+     * shut down.
+     *
+     * @return this scope
+     * @throws IllegalStateException if the current thread is not the
+     * owner, or the scope is closed
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public StructuredTaskScope<T> join() throws InterruptedException {
+        ensureOwner();
+        ensureOpen();
+        awaitDone(false, 0L, false);
+        return this;
+    }
+
+    /**
+     * Waits, at most until the given deadline, for all subtasks to
+     * complete, or for the scope to be shut down.  If the deadline
+     * passes first, the scope is shut down, cancelling all unfinished
+     * subtasks, and {@code TimeoutException} is thrown.
+     *
+     * @param timeout the maximum time to wait
+     * @param unit the time unit of the timeout argument
+     * @return this scope
+     * @throws IllegalStateException if the current thread is not the
+     * owner, or the scope is closed
+     * @throws InterruptedException if interrupted while waiting
+     * @throws TimeoutException if the wait timed out
+     */
+    public StructuredTaskScope<T> join(long timeout, TimeUnit unit)
+        throws InterruptedException, TimeoutException {
+        ensureOwner();
+        ensureOpen();
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        if (!awaitDone(true, deadline, false)) {
+            shutdown();
+            throw new TimeoutException();
+        }
+        return this;
+    }
+
+    /**
+     * Shuts down this scope, if not already shut down, cancelling all
+     * unfinished subtasks by interrupting the threads running them,
+     * and waking up the owner if waiting in {@code join}.  Subtasks
+     * forked after shutdown are not run.  This method may be invoked
+     * by any thread, including subtasks and policies.
+     */
+    public void shutdown() {
+        if (isShutdown)
+            return;
+        isShutdown = true;
+        for (ScopedTask<? extends T> s : tasks)
+            s.cancel(true);
+        signalChanged();
+    }
+
+    /**
+     * Returns {@code true} if this scope has been shut down.
+     *
+     * @return {@code true} if this scope has been shut down
+     */
+    public boolean isShutdown() {
+        return isShutdown;
+    }
+
+    /**
+     * Shuts down this scope, if not already shut down, and waits for
+     * the threads running all forked subtasks to finish.  If
+     * interrupted while waiting, continues to wait until they have
+     * finished, and then re-asserts the interrupt status.  This
+     * method has no effect if the scope is already closed.
+     *
+     * @throws IllegalStateException if the current thread is not the
+     * owner
+     */
+    public void close() {
+        ensureOwner();
+        if (closed)
+            return;
+        shutdown();
+        try {
+            awaitDone(false, 0L, true);
+        } catch (InterruptedException cannotHappen) {
+        } finally {
+            closed = true;
+        }
+    }
+
+    /**
+     * Waits for the running count to reach zero, or unless
+     * untilExited, for shutdown.
+     *
+     * @return false if timed out
+     */
+    private boolean awaitDone(boolean timed, long deadline,
+                              boolean untilExited)
+        throws InterruptedException {
+        Waiter w = new Waiter(timed, deadline, untilExited);
+        if (!w.isReleasable()) {
+            for (;;) {
+                try {
+                    ForkJoinPool.managedBlock(w);
+                    break;
+                } catch (InterruptedException ie) {
+                    if (!untilExited)
+                        throw ie;
+                    w.interrupted = true;
+                }
+            }
+            if (w.interrupted)
+                Thread.currentThread().interrupt();
+        }
+        return !w.timedOut;
+    }
+
+    /**
+     * ManagedBlocker for join and close.
+     */
+    final class Waiter implements ForkJoinPool.ManagedBlocker {
+        final boolean timed;
+        final long deadline;
+        final boolean untilExited;
+        boolean timedOut;
+        boolean interrupted;
+
+        Waiter(boolean timed, long deadline, boolean untilExited) {
+            this.timed = timed;
+            this.deadline = deadline;
+            this.untilExited = untilExited;
+        }
+
+        public boolean isReleasable() {
+            final ReentrantLock lock = StructuredTaskScope.this.lock;
+            lock.lock();
+            try {
+                return done();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private boolean done() {
+            return running == 0 || (!untilExited && isShutdown) || timedOut;
+        }
+
+        public boolean block() throws InterruptedException {
+            final ReentrantLock lock = StructuredTaskScope.this.lock;
+            lock.lock();
+            try {
+                while (!done()) {
+                    if (!timed)
+                        changed.await();
+                    else {
+                        long nanos = deadline - System.nanoTime();
+                        if (nanos <= 0L)
+                            timedOut = true;
+                        else
+                            changed.awaitNanos(nanos);
+                    }
+                }
+            } finally {
+                lock.unlock();
+            }
+            return true;
+        }
+    }
+
+    private void signalChanged() {
+        final ReentrantLock lock = this.lock;
+        lock.lock();
+        try {
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Called from a subtask's run method upon exit.
+     */
+    final void exited() {
+        final ReentrantLock lock = this.lock;
+        lock.lock();
+        try {
+            if (--running == 0)
+                changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Called from a subtask's done method upon completion.
+     */
+    final void completed(ScopedTask<? extends T> s) {
+        tasks.remove(s);
+        if (!s.isCancelled() && !isShutdown)
+            handleComplete(s);
+    }
+
+    /**
+     * A FutureTask that reports to its scope.
+     */
+    static final class ScopedTask<U> extends FutureTask<U>
+        implements Subtask<U> {
+        final StructuredTaskScope<? super U> scope;
+
+        @SuppressWarnings("unchecked")
+        ScopedTask(StructuredTaskScope<? super U> scope,
+                   Callable<? extends U> task) {
+            super((Callable<U>)task);
+            this.scope = scope;
+        }
+
+        public void run() {
+            try {
+                super.run();
+            } finally {
+                scope.exited();
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        protected void done() {
+            ((StructuredTaskScope<U>)scope).completed(this);
+        }
+
+        public State state() {
+            if (!isDone() || isCancelled())
+                return State.UNAVAILABLE;
+            try {
+                super.get();
+                return State.SUCCESS;
+            } catch (ExecutionException ex) {
+                return State.FAILED;
+            } catch (InterruptedException | CancellationException ex) {
+                return State.UNAVAILABLE; // not reached
+            }
+        }
+
+        public U get() {
+            if (isDone() && !isCancelled()) {
+                try {
+                    return super.get();
+                } catch (ExecutionException | InterruptedException ex) {
+                } catch (CancellationException ex) {
+                }
+            }
+            throw new IllegalStateException("Result is unavailable");
+        }
+
+        public Throwable exception() {
+            if (isDone() && !isCancelled()) {
+                try {
+                    super.get();
+                } catch (ExecutionException ex) {
+                    return ex.getCause();
+                } catch (InterruptedException | CancellationException ex) {
+                }
+            }
+            throw new IllegalStateException("Exception is unavailable");
+        }
+
+        public String toString() {
+            return super.toString() + "[" + state() + "]";
+        }
+    }
+
+    /**
+     * A {@code StructuredTaskScope} that captures the result of the
+     * first subtask to complete successfully.  Once captured, it shuts
+     * down the scope, cancelling all other unfinished subtasks.
+     *
+     * @param <T> the result type
+     * @since 1.9
+     */
+    public static final class ShutdownOnSuccess<T>
+        extends StructuredTaskScope<T> {
+        private static final Object NIL = new Object();
+        private volatile Object result;          // boxed as NIL if null
+        private volatile Throwable firstException;
+
+        /**
+         * Creates a scope running subtasks in the given executor.
+         *
+         * @param executor the executor to run subtasks
+         * @throws NullPointerException if executor is null
+         */
+        public ShutdownOnSuccess(Executor executor) {
+            super(executor);
+        }
+
+        /**
+         * Creates a scope running subtasks in the {@link
+         * ForkJoinPool#commonPool()}.
+         */
+        public ShutdownOnSuccess() {
+            super();
+        }
+
+        protected void handleComplete(Subtask<? extends T> subtask) {
+            if (result != null)
+                return;
+            Subtask.State s = subtask.state();
+            if (s == Subtask.State.SUCCESS) {
+                T r = subtask.get();
+                if (U.compareAndSwapObject(this, RESULT, null,
+                                           (r == null) ? NIL : r))
+                    shutdown();
+            }
+            else if (s == Subtask.State.FAILED && firstException == null)
+                U.compareAndSwapObject(this, FIRSTEXCEPTION, null,
+                                       subtask.exception());
+        }
+
+        public ShutdownOnSuccess<T> join() throws InterruptedException {
+            super.join();
+            return this;
+        }
+
+        public ShutdownOnSuccess<T> join(long timeout, TimeUnit unit)
+            throws InterruptedException, TimeoutException {
+            super.join(timeout, unit);
+            return this;
+        }
+
+        /**
+         * Returns the result of the first subtask that completed
+         * successfully.
+         *
+         * @return the result
+         * @throws ExecutionException if no subtask completed
+         * successfully but at least one failed, with the first
+         * failure as its cause
+         * @throws IllegalStateException if no subtask completed, or
+         * the current thread is not the owner
+         */
+        public T result() throws ExecutionException {
+            return result(ExecutionException::new);
+        }
+
+        /**
+         * Returns the result of the first subtask that completed
+         * successfully, otherwise throws an exception produced by the
+         * given function.
+         *
+         * @param esf the exception supplying function, applied to
+         * the first failure
+         * @param <X> the type of the exception thrown
+         * @return the result
+         * @throws X if no subtask completed successfully but at least
+         * one failed
+         * @throws IllegalStateException if no subtask completed, or
+         * the current thread is not the owner
+         */
+        @SuppressWarnings("unchecked")
+        public <X extends Throwable> T result
+            (Function<Throwable, ? extends X> esf) throws X {
+            if (esf == null)
+                throw new NullPointerException();
+            ensureOwner();
+            Object r = result;
+            if (r != null)
+                return (r == NIL) ? null : (T)r;
+            Throwable ex = firstException;
+            if (ex != null) {
+                X x = esf.apply(ex);
+                if (x == null)
+                    throw new NullPointerException();
+                throw x;
+            }
+            throw new IllegalStateException("No completed subtasks");
+        }
+
+        // Unsafe mechanics
+        private static final sun.misc.Unsafe U;
+        private static final long RESULT;
+        private static final long FIRSTEXCEPTION;
+        static {
+            try {
+                U = sun.misc.Unsafe.getUnsafe();
+                Class<?> k = ShutdownOnSuccess.class;
+                RESULT = U.objectFieldOffset
+                    (k.getDeclaredField("result"));
+                FIRSTEXCEPTION = U.objectFieldOffset
+                    (k.getDeclaredField("firstException"));
+            } catch (Exception e) {
+                throw new Error(e);
+            }
+        }
+    }
+
+    /**
+     * A {@code StructuredTaskScope} that captures the exception of
+     * the first subtask to fail.  Once captured, it shuts down the
+     * scope, cancelling all other unfinished subtasks.
+     *
+     * @since 1.9
+     */
+    public static final class ShutdownOnFailure
+        extends StructuredTaskScope<Object> {
+        private volatile Throwable firstException;
+
+        /**
+         * Creates a scope running subtasks in the given executor.
+         *
+         * @param executor the executor to run subtasks
+         * @throws NullPointerException if executor is null
+         */
+        public ShutdownOnFailure(Executor executor) {
+            super(executor);
+        }
+
+        /**
+         * Creates a scope running subtasks in the {@link
+         * ForkJoinPool#commonPool()}.
+         */
+        public ShutdownOnFailure() {
+            super();
+        }
+
+        protected void handleComplete(Subtask<?> subtask) {
+            if (firstException == null &&
+                subtask.state() == Subtask.State.FAILED &&
+                U.compareAndSwapObject(this, FIRSTEXCEPTION, null,
+                                       subtask.exception()))
+                shutdown();
+        }
+
+        public ShutdownOnFailure join() throws InterruptedException {
+            super.join();
+            return this;
+        }
+
+        public ShutdownOnFailure join(long timeout, TimeUnit unit)
+            throws InterruptedException, TimeoutException {
+            super.join(timeout, unit);
+            return this;
+        }
+
+        /**
+         * Returns the exception of the first subtask that failed, or
+         * {@code null} if none failed.
+         *
+         * @return the first exception, or null if none
+         * @throws IllegalStateException if the current thread is not
+         * the owner
+         */
+        public Throwable exception() {
+            ensureOwner();
+            return firstException;
+        }
+
+        /**
+         * Throws if a subtask failed, with the exception of the first
+         * failed subtask as the cause.
+         *
+         * @throws ExecutionException if a subtask failed
+         * @throws IllegalStateException if the current thread is not
+         * the owner
+         */
+        public void throwIfFailed() throws ExecutionException {
+            throwIfFailed(ExecutionException::new);
+        }
+
+        /**
+         * Throws the exception produced by the given function if a
+         * subtask failed.
+         *
+         * @param esf the exception supplying function, applied to
+         * the first failure
+         * @param <X> the type of the exception thrown
+         * @throws X if a subtask failed
+         * @throws IllegalStateException if the current thread is not
+         * the owner
+         */
+        public <X extends Throwable> void throwIfFailed
+            (Function<Throwable, ? extends X> esf) throws X {
+            if (esf == null)
+                throw new NullPointerException();
+            Throwable ex = exception();
+            if (ex != null) {
+                X x = esf.apply(ex);
+                if (x == null)
+                    throw new NullPointerException();
+                throw x;
+            }
+        }
+
+        // Unsafe mechanics
+        private static final sun.misc.Unsafe U;
+        private static final long FIRSTEXCEPTION;
+        static {
+            try {
+                U = sun.misc.Unsafe.getUnsafe();
+                Class<?> k = ShutdownOnFailure.class;
+                FIRSTEXCEPTION = U.objectFieldOffset
+                    (k.getDeclaredField("firstException"));
+            } catch (Exception e) {
+                throw new Error(e);
+            }
+        }
+    }
+}
@@ -177,7 +177,10 @@ import java.util.*;
  * While this style of queuing can be useful in smoothing out
  * transient bursts of requests, it admits the possibility of
  * unbounded work queue growth when commands continue to arrive on
- * average faster than they can be processed.  </li>
+ * average faster than they can be processed. When many threads
+ * submit tasks concurrently, a {@link StripedWorkQueue} may be used
+ * instead to avoid contention on a single queue, at the expense of
+ * FIFO ordering across submitting threads.  </li>
  *
  * <li><em>Bounded queues.</em> A bounded queue (for example, an
  * {@link ArrayBlockingQueue}) helps prevent resource exhaustion when
@@ -464,6 +467,11 @@ public class ThreadPoolExecutor extends AbstractExecutorService {
      */
     private final HashSet<Worker> workers = new HashSet<Worker>();
 
+    /**
+     * Task timing and worker statistics, or null if not enabled.
+     */
+    private volatile PoolStatistics statistics;
+
     /**
      * Wait condition to support awaitTermination
      */
@@ -601,6 +609,8 @@ public class ThreadPoolExecutor extends AbstractExecutorService {
         Runnable firstTask;
         /** Per-thread task counter */
         volatile long completedTasks;
+        /** Statistics record, or null if not yet registered */
+        PoolStatistics.Worker counts;
 
         /**
          * Creates with given first task and thread from ThreadFactory.
@@ -1003,6 +1013,9 @@ public class ThreadPoolExecutor extends AbstractExecutorService {
         } finally {
             mainLock.unlock();
         }
+        PoolStatistics.Worker counts = w.counts;
+        if (counts != null)
+            counts.stats.deregister(counts);
 
         tryTerminate();
 
@@ -1033,10 +1046,11 @@ public class ThreadPoolExecutor extends AbstractExecutorService {
      *    both before and after the timed wait, and if the queue is
      *    non-empty, this worker is not the last thread in the pool.
      *
+     * @param w the worker
      * @return task, or null if the worker must exit, in which case
      *         workerCount is decremented
      */
-    private Runnable getTask() {
+    private Runnable getTask(Worker w) {
         boolean timedOut = false; // Did the last poll() time out?
 
         for (;;) {
@@ -1062,9 +1076,24 @@ public class ThreadPoolExecutor extends AbstractExecutorService {
             }
 
             try {
-                Runnable r = timed ?
-                    workQueue.poll(keepAliveTime, TimeUnit.NANOSECONDS) :
-                    workQueue.take();
+                PoolStatistics st = statistics;
+                Runnable r = (st == null) ? null : workQueue.poll();
+                if (r == null) {
+                    // With statistics, count only waits that the
+                    // non-blocking poll above could not avoid
+                    PoolStatistics.Worker idle =
+                        (st == null) ? null : workerCounts(w, st);
+                    if (idle != null)
+                        idle.parked();
+                    try {
+                        r = timed ?
+                            workQueue.poll(keepAliveTime, TimeUnit.NANOSECONDS) :
+                            workQueue.take();
+                    } finally {
+                        if (idle != null)
+                            idle.unparked();
+                    }
+                }
                 if (r != null)
                     return r;
                 timedOut = true;
@@ -1124,7 +1153,7 @@ public class ThreadPoolExecutor extends AbstractExecutorService {
         w.unlock(); // allow interrupts
         boolean completedAbruptly = true;
         try {
-            while (task != null || (task = getTask()) != null) {
+            while (task != null || (task = getTask(w)) != null) {
                 w.lock();
                 // If pool is stopping, ensure thread is interrupted;
                 // if not, ensure thread is not interrupted.  This
@@ -1135,9 +1164,13 @@ public class ThreadPoolExecutor extends AbstractExecutorService {
                       runStateAtLeast(ctl.get(), STOP))) &&
                     !wt.isInterrupted())
                     wt.interrupt();
+                PoolStatistics st = statistics;
+                if (st != null)
+                    st.started(task, System.nanoTime());
                 try {
                     beforeExecute(wt, task);
                     Throwable thrown = null;
+                    long startTime = (st == null) ? 0L : System.nanoTime();
                     try {
                         task.run();
                     } catch (RuntimeException x) {
@@ -1147,6 +1180,10 @@ public class ThreadPoolExecutor extends AbstractExecutorService {
                     } catch (Throwable x) {
                         thrown = x; throw new Error(x);
                     } finally {
+                        if (st != null) {
+                            st.runTimes.record(System.nanoTime() - startTime);
+                            workerCounts(w, st).ranTask();
+                        }
                         afterExecute(task, thrown);
                     }
                 } finally {
@@ -1358,7 +1395,7 @@ public class ThreadPoolExecutor extends AbstractExecutorService {
                 return;
             c = ctl.get();
         }
-        if (isRunning(c) && workQueue.offer(command)) {
+        if (isRunning(c) && offer(command)) {
             int recheck = ctl.get();
             if (! isRunning(recheck) && remove(command))
                 reject(command);
@@ -1369,6 +1406,21 @@ public class ThreadPoolExecutor extends AbstractExecutorService {
             reject(command);
     }
 
+    /**
+     * Offers the given task to the work queue, recording its
+     * submission time if statistics are enabled.
+     */
+    private boolean offer(Runnable command) {
+        PoolStatistics st = statistics;
+        if (st == null)
+            return workQueue.offer(command);
+        st.submitted(command);
+        if (workQueue.offer(command))
+            return true;
+        st.withdrawn(command);
+        return false;
+    }
+
     /**
      * Initiates an orderly shutdown in which previously submitted
      * tasks are executed, but no new tasks will be accepted.
@@ -1748,6 +1800,9 @@ public class ThreadPoolExecutor extends AbstractExecutorService {
      */
     public boolean remove(Runnable task) {
         boolean removed = workQueue.remove(task);
+        PoolStatistics st = statistics;
+        if (removed && st != null)
+            st.withdrawn(task);
         tryTerminate(); // In case SHUTDOWN and now empty
         return removed;
     }
@@ -1785,6 +1840,42 @@ public class ThreadPoolExecutor extends AbstractExecutorService {
 
     /* Statistics */
 
+    /**
+     * Enables collection of task timing and worker statistics for
+     * this pool, if not already enabled, and returns the {@link
+     * ExecutorMXBean} reporting them. Once enabled, statistics remain
+     * enabled for the lifetime of the pool. Tasks are queued and
+     * run unchanged; their submission times are held apart from the
+     * work queue.
+     *
+     * @return the statistics of this pool
+     * @since 1.9
+     */
+    public ExecutorMXBean enableStatistics() {
+        final ReentrantLock mainLock = this.mainLock;
+        mainLock.lock();
+        try {
+            PoolStatistics st = statistics;
+            if (st == null)
+                statistics = st = new PoolStatistics();
+            return st;
+        } finally {
+            mainLock.unlock();
+        }
+    }
+
+    /**
+     * Returns the statistics record of the given worker, registering
+     * it if necessary.  Called only from the worker's thread.
+     */
+    private static PoolStatistics.Worker workerCounts(Worker w,
+                                                      PoolStatistics st) {
+        PoolStatistics.Worker counts = w.counts;
+        if (counts == null)
+            w.counts = counts = st.register(w.thread);
+        return counts;
+    }
+
     /**
      * Returns the current number of threads in the pool.
      *
@@ -2095,4 +2186,364 @@ public class ThreadPoolExecutor extends AbstractExecutorService {
             }
         }
     }
+
+    /* Striped work queue */
+
+    /**
+     * An unbounded work queue that spreads tasks across several
+     * lock-free lanes, for use with pools whose tasks are submitted
+     * by many threads at once. A {@code ThreadPoolExecutor} using a
+     * {@code StripedWorkQueue} behaves as one using an unbounded
+     * {@link LinkedBlockingQueue}, except that tasks are not executed
+     * in FIFO order across submitting threads: each submitting thread
+     * adds tasks to a lane chosen by hashing the thread, and each
+     * worker thread takes tasks from its own lane, stealing from
+     * other lanes only when its own is empty. Tasks submitted by a
+     * single thread are started in FIFO order with respect to one
+     * another only as long as they are taken from the same lane.
+     *
+     * <p>Insertion never blocks and takes no locks unless some worker
+     * is waiting for a task. Beware that, unlike in most collections,
+     * the {@code size} method is <em>NOT</em> a constant-time
+     * operation.
+     *
+     * @since 1.9
+     */
+    public static class StripedWorkQueue extends AbstractQueue<Runnable>
+        implements BlockingQueue<Runnable> {
+
+        /*
+         * Each lane is a ConcurrentLinkedQueue, indexed by the
+         * ThreadLocalRandom probe of the calling thread, as in
+         * ConcurrentHashMap's CounterCells, so producers and workers
+         * running on different threads mostly touch disjoint lanes.
+         * Unlike those cells, probes are not advanced upon
+         * contention: lanes are already lock-free, and a stable
+         * lane per thread preserves per-thread FIFO ordering in the
+         * common case.
+         *
+         * Blocking is layered on top using a lock and condition that
+         * are used only by workers finding all lanes empty. A worker
+         * registers itself in "waiters" (a volatile count, written
+         * only under the lock) before rechecking all lanes and
+         * awaiting, and producers read waiters after inserting, so
+         * at least one side observes the other (a Dekker-style
+         * handshake relying on volatile ordering). Producers thus
+         * acquire the lock only to signal waiting workers.
+         */
+
+        /** The lanes; length is a power of two */
+        private final ConcurrentLinkedQueue<Runnable>[] lanes;
+
+        /** Lock held only by waiting takers and by signalling puts */
+        private final ReentrantLock lock = new ReentrantLock();
+
+        /** Wait queue for waiting takes */
+        private final Condition notEmpty = lock.newCondition();
+
+        /** Number of threads awaiting notEmpty; updated under lock */
+        private volatile int waiters;
+
+        /**
+         * Creates a {@code StripedWorkQueue} with one lane per
+         * available processor.
+         */
+        public StripedWorkQueue() {
+            this(Runtime.getRuntime().availableProcessors());
+        }
+
+        /**
+         * Creates a {@code StripedWorkQueue} with at least the given
+         * number of lanes, which is normally the number of core
+         * threads of the pool using it.
+         *
+         * @param lanes the minimum number of lanes
+         * @throws IllegalArgumentException if {@code lanes} is not
+         *         greater than zero
+         */
+        @SuppressWarnings("unchecked")
+        public StripedWorkQueue(int lanes) {
+            if (lanes <= 0)
+                throw new IllegalArgumentException();
+            int n = (lanes >= 1 << 16) ? 1 << 16 :
+                1 << (32 - Integer.numberOfLeadingZeros(lanes - 1));
+            ConcurrentLinkedQueue<Runnable>[] qs =
+                (ConcurrentLinkedQueue<Runnable>[])new ConcurrentLinkedQueue<?>[n];
+            for (int i = 0; i < n; ++i)
+                qs[i] = new ConcurrentLinkedQueue<Runnable>();
+            this.lanes = qs;
+        }
+
+        /**
+         * Returns the index of the calling thread's lane.
+         */
+        private int laneIndex() {
+            int h;
+            if ((h = ThreadLocalRandom.getProbe()) == 0) {
+                ThreadLocalRandom.localInit(); // force initialization
+                h = ThreadLocalRandom.getProbe();
+            }
+            return h & (lanes.length - 1);
+        }
+
+        /**
+         * Removes and returns a task from the calling thread's lane,
+         * or else from the first non-empty other lane, or null if all
+         * lanes are empty.
+         */
+        private Runnable pollAny() {
+            final ConcurrentLinkedQueue<Runnable>[] qs = lanes;
+            int n = qs.length, i = laneIndex();
+            for (int k = 0; k < n; ++k) {
+                Runnable r = qs[(i + k) & (n - 1)].poll();
+                if (r != null)
+                    return r;
+            }
+            return null;
+        }
+
+        /**
+         * Wakes up a waiting worker, if any.
+         */
+        private void signalNotEmpty() {
+            if (waiters > 0) {
+                final ReentrantLock lock = this.lock;
+                lock.lock();
+                try {
+                    notEmpty.signal();
+                } finally {
+                    lock.unlock();
+                }
+            }
+        }
+
+        /**
+         * Inserts the specified element into this queue.  As the
+         * queue is unbounded, this method never returns {@code false}.
+         *
+         * @throws NullPointerException if the specified element is null
+         */
+        public boolean offer(Runnable e) {
+            lanes[laneIndex()].offer(e);
+            signalNotEmpty();
+            return true;
+        }
+
+        /**
+         * Inserts the specified element into this queue.  As the
+         * queue is unbounded, this method never blocks.
+         *
+         * @throws NullPointerException if the specified element is null
+         */
+        public void put(Runnable e) {
+            offer(e);
+        }
+
+        /**
+         * Inserts the specified element into this queue.  As the
+         * queue is unbounded, this method never blocks or returns
+         * {@code false}.
+         *
+         * @throws NullPointerException if the specified element is null
+         */
+        public boolean offer(Runnable e, long timeout, TimeUnit unit) {
+            return offer(e);
+        }
+
+        public Runnable poll() {
+            return pollAny();
+        }
+
+        public Runnable take() throws InterruptedException {
+            Runnable r = pollAny();
+            if (r != null)
+                return r;
+            final ReentrantLock lock = this.lock;
+            lock.lockInterruptibly();
+            try {
+                ++waiters;
+                try {
+                    while ((r = pollAny()) == null)
+                        notEmpty.await();
+                } finally {
+                    --waiters;
+                }
+            } finally {
+                lock.unlock();
+            }
+            return r;
+        }
+
+        public Runnable poll(long timeout, TimeUnit unit)
+            throws InterruptedException {
+            Runnable r = pollAny();
+            if (r != null)
+                return r;
+            long nanos = unit.toNanos(timeout);
+            final ReentrantLock lock = this.lock;
+            lock.lockInterruptibly();
+            try {
+                ++waiters;
+                try {
+                    while ((r = pollAny()) == null) {
+                        if (nanos <= 0)
+                            return null;
+                        nanos = notEmpty.awaitNanos(nanos);
+                    }
+                } finally {
+                    --waiters;
+                }
+            } finally {
+                lock.unlock();
+            }
+            return r;
+        }
+
+        public Runnable peek() {
+            final ConcurrentLinkedQueue<Runnable>[] qs = lanes;
+            int n = qs.length, i = laneIndex();
+            for (int k = 0; k < n; ++k) {
+                Runnable r = qs[(i + k) & (n - 1)].peek();
+                if (r != null)
+                    return r;
+            }
+            return null;
+        }
+
+        /**
+         * Always returns {@code Integer.MAX_VALUE} because a
+         * {@code StripedWorkQueue} is not capacity constrained.
+         *
+         * @return {@code Integer.MAX_VALUE} (as specified by
+         *         {@link BlockingQueue#remainingCapacity()})
+         */
+        public int remainingCapacity() {
+            return Integer.MAX_VALUE;
+        }
+
+        /**
+         * Returns the number of elements in this queue.  If this queue
+         * contains more than {@code Integer.MAX_VALUE} elements, returns
+         * {@code Integer.MAX_VALUE}.
+         *
+         * <p>Beware that, unlike in most collections, this method is
+         * <em>NOT</em> a constant-time operation, and the result may
+         * be inaccurate if lanes are concurrently modified.
+         *
+         * @return the number of elements in this queue
+         */
+        public int size() {
+            long n = 0L;
+            for (ConcurrentLinkedQueue<Runnable> q : lanes)
+                n += q.size();
+            return (n >= Integer.MAX_VALUE) ? Integer.MAX_VALUE : (int)n;
+        }
+
+        public boolean isEmpty() {
+            for (ConcurrentLinkedQueue<Runnable> q : lanes)
+                if (!q.isEmpty())
+                    return false;
+            return true;
+        }
+
+        public boolean contains(Object o) {
+            if (o != null) {
+                for (ConcurrentLinkedQueue<Runnable> q : lanes)
+                    if (q.contains(o))
+                        return true;
+            }
+            return false;
+        }
+
+        public boolean remove(Object o) {
+            if (o != null) {
+                for (ConcurrentLinkedQueue<Runnable> q : lanes)
+                    if (q.remove(o))
+                        return true;
+            }
+            return false;
+        }
+
+        public void clear() {
+            for (ConcurrentLinkedQueue<Runnable> q : lanes)
+                q.clear();
+        }
+
+        /**
+         * @throws UnsupportedOperationException {@inheritDoc}
+         * @throws ClassCastException            {@inheritDoc}
+         * @throws NullPointerException          {@inheritDoc}
+         * @throws IllegalArgumentException      {@inheritDoc}
+         */
+        public int drainTo(Collection<? super Runnable> c) {
+            return drainTo(c, Integer.MAX_VALUE);
+        }
+
+        /**
+         * @throws UnsupportedOperationException {@inheritDoc}
+         * @throws ClassCastException            {@inheritDoc}
+         * @throws NullPointerException          {@inheritDoc}
+         * @throws IllegalArgumentException      {@inheritDoc}
+         */
+        public int drainTo(Collection<? super Runnable> c, int maxElements) {
+            if (c == null)
+                throw new NullPointerException();
+            if (c == this)
+                throw new IllegalArgumentException();
+            int n = 0;
+            for (ConcurrentLinkedQueue<Runnable> q : lanes) {
+                Runnable r;
+                while (n < maxElements && (r = q.poll()) != null) {
+                    c.add(r);
+                    ++n;
+                }
+            }
+            return n;
+        }
+
+        /**
+         * Returns an iterator over the elements in this queue, lane
+         * by lane.
+         *
+         * <p>The returned iterator is
+         * <a href="package-summary.html#Weakly"><i>weakly consistent</i></a>.
+         *
+         * @return an iterator over the elements in this queue
+         */
+        public Iterator<Runnable> iterator() {
+            return new Itr();
+        }
+
+        /**
+         * Iterator chaining the iterators of successive lanes.
+         */
+        private class Itr implements Iterator<Runnable> {
+            int lane;                       // index of current lane
+            Iterator<Runnable> it = lanes[0].iterator();
+            Iterator<Runnable> lastIt;      // iterator of last element
+
+            public boolean hasNext() {
+                while (!it.hasNext()) {
+                    if (++lane >= lanes.length)
+                        return false;
+                    it = lanes[lane].iterator();
+                }
+                return true;
+            }
+
+            public Runnable next() {
+                if (!hasNext())
+                    throw new NoSuchElementException();
+                lastIt = it;
+                return it.next();
+            }
+
+            public void remove() {
+                if (lastIt == null)
+                    throw new IllegalStateException();
+                lastIt.remove();
+                lastIt = null;
+            }
+        }
+    }
 }
@@ -0,0 +1,660 @@
+/*
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+package java.util.concurrent.atomic;
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * A concurrent histogram of non-negative {@code long} values, such
+ * as latencies in nanoseconds, supporting estimation of quantiles.
+ * When recordings (method {@link #recordValue}) are contended across
+ * threads, the set of counters may grow dynamically to reduce
+ * contention, using the same mechanics as {@link LongAdder}.
+ * Recording a value never allocates once contention has stabilized,
+ * and never blocks.
+ *
+ * <p>Values are counted in <em>log-linear</em> buckets: each range
+ * [2<sup>k</sup>, 2<sup>k+1</sup>) is divided into
+ * 2<sup>precision</sup> buckets of equal width, and values less than
+ * 2<sup>precision</sup> are counted exactly.  Quantile estimates,
+ * and other results derived from bucket counts, are thus accurate
+ * to within a relative error of 2<sup>-precision</sup> over the full
+ * range of {@code long} values, without the need to configure a
+ * range in advance.  With the default precision of 6, the error is
+ * at most 1.6%, and each set of counters occupies about 30
+ * kilobytes.
+ *
+ * <p>Method {@link #snapshot} returns an immutable {@link Snapshot}
+ * from which counts, bounds, the mean and percentiles may be
+ * obtained; {@link #snapshotThenReset} does the same while
+ * atomically removing the values counted in the snapshot, as
+ * appropriate for periodic reporting.  As with {@link
+ * LongAdder#sum}, a snapshot is not an atomic view of the histogram
+ * if there are concurrent recordings.
+ *
+ * <p>For example, to report request latencies once per interval:
+ *
+ *  <pre> {@code
+ * LongHistogram latencies = new LongHistogram();
+ *
+ * // in request threads
+ * long start = System.nanoTime();
+ * handle(request);
+ * latencies.recordValue(System.nanoTime() - start);
+ *
+ * // in a reporter thread
+ * LongHistogram.Snapshot s = latencies.snapshotThenReset();
+ * log(s.getValueAtPercentile(50.0), s.getValueAtPercentile(99.0),
+ *     s.getValueAtPercentile(99.9), s.getMaxValue());}</pre>
+ *
+ * <p>This class is not serializable, but its snapshots are.
+ *
+ * @since 1.9
+ */
+public class LongHistogram {
+
+    /*
+     * Each set of counters (a Stripe) is a long array holding the
+     * bucket counts followed by the sum, maximum and minimum of the
+     * values it recorded, padded at each end so that stripes used
+     * by different threads do not share cache lines.  The base
+     * stripe is used until a CAS on it fails, after which further
+     * stripes are created and indexed by thread probe, exactly as
+     * Cells are in Striped64 (see its internal documentation), whose
+     * probe utilities are used here.  Counts are updated by CAS, to
+     * detect contention; the other slots by getAndAdd or by CAS
+     * loops that usually write nothing.
+     */
+
+    /** Default precision */
+    static final int DEFAULT_PRECISION = 6;
+
+    /** Maximum precision */
+    static final int MAX_PRECISION = 12;
+
+    /** Number of longs padding each end of a stripe */
+    static final int PAD = 16;
+
+    /** The precision, in bits, of each bucket */
+    final int precision;
+
+    /** Number of buckets */
+    final int buckets;
+
+    /** Slot indices of the sum, maximum and minimum values */
+    final int sumSlot, maxSlot, minSlot;
+
+    /** Stripe used when uncontended */
+    final long[] base;
+
+    /** Table of stripes. When non-null, size is a power of 2. */
+    volatile long[][] stripes;
+
+    /** Spinlock (locked via CAS) used when resizing and/or creating stripes. */
+    volatile int stripesBusy;
+
+    /**
+     * Creates a new, empty histogram with the default precision of 6
+     * bits (a relative error of at most 1.6%).
+     */
+    public LongHistogram() {
+        this(DEFAULT_PRECISION);
+    }
+
+    /**
+     * Creates a new, empty histogram with the given precision.
+     * Values are counted in buckets with a width of at most
+     * 2<sup>-precision</sup> times their values.
+     *
+     * @param precision the number of significant bits retained
+     * for each value, between 1 and 12
+     * @throws IllegalArgumentException if precision is out of range
+     */
+    public LongHistogram(int precision) {
+        if (precision < 1 || precision > MAX_PRECISION)
+            throw new IllegalArgumentException();
+        this.precision = precision;
+        this.buckets = (64 - precision) << precision;
+        this.sumSlot = PAD + buckets;
+        this.maxSlot = sumSlot + 1;
+        this.minSlot = sumSlot + 2;
+        this.base = newStripe();
+    }
+
+    private long[] newStripe() {
+        long[] s = new long[minSlot + 1 + PAD];
+        s[maxSlot] = Long.MIN_VALUE;
+        s[minSlot] = Long.MAX_VALUE;
+        return s;
+    }
+
+    /**
+     * Returns the bucket index for the given non-negative value.
+     */
+    static int bucketFor(long v, int p) {
+        if (v < (1L << p))
+            return (int)v;
+        int e = 63 - Long.numberOfLeadingZeros(v);
+        return ((e - p + 1) << p) + (int)((v >>> (e - p)) & ((1 << p) - 1));
+    }
+
+    /**
+     * Returns the smallest value counted in the given bucket.
+     */
+    static long lowestValueIn(int i, int p) {
+        if (i < (1 << p))
+            return i;
+        int e = (i >>> p) + p - 1;
+        return ((1L << p) + (i & ((1 << p) - 1))) << (e - p);
+    }
+
+    /**
+     * Returns the largest value counted in the given bucket.
+     */
+    static long highestValueIn(int i, int p) {
+        if (i < (1 << p))
+            return i;
+        int e = (i >>> p) + p - 1;
+        return lowestValueIn(i, p) + (1L << (e - p)) - 1L;
+    }
+
+    private static long offset(int slot) {
+        return ((long)slot << ASHIFT) + ABASE;
+    }
+
+    /**
+     * Tries to count value v in bucket slot of stripe s.
+     *
+     * @return false on CAS failure
+     */
+    private boolean tryRecord(long[] s, int slot, long v) {
+        long off = offset(slot), c = U.getLongVolatile(s, off);
+        if (!U.compareAndSwapLong(s, off, c, c + 1L))
+            return false;
+        U.getAndAddLong(s, offset(sumSlot), v);
+        long m;
+        while (v > (m = U.getLongVolatile(s, offset(maxSlot))) &&
+               !U.compareAndSwapLong(s, offset(maxSlot), m, v))
+            ;
+        while (v < (m = U.getLongVolatile(s, offset(minSlot))) &&
+               !U.compareAndSwapLong(s, offset(minSlot), m, v))
+            ;
+        return true;
+    }
+
+    /**
+     * Records the given value.
+     *
+     * @param value the value
+     * @throws IllegalArgumentException if value is negative
+     */
+    public void recordValue(long value) {
+        if (value < 0L)
+            throw new IllegalArgumentException();
+        int slot = PAD + bucketFor(value, precision);
+        long[][] as; long[] a; int m;
+        if ((as = stripes) != null || !tryRecord(base, slot, value)) {
+            boolean uncontended = true;
+            if (as == null || (m = as.length - 1) < 0 ||
+                (a = as[Striped64.getProbe() & m]) == null ||
+                !(uncontended = tryRecord(a, slot, value)))
+                recordContended(slot, value, uncontended);
+        }
+    }
+
+    /**
+     * Handles recordings involving initialization, resizing,
+     * creating new stripes, and/or contention, as in
+     * Striped64.longAccumulate.
+     */
+    private void recordContended(int slot, long value,
+                                 boolean wasUncontended) {
+        int h;
+        if ((h = Striped64.getProbe()) == 0) {
+            ThreadLocalRandom.current(); // force initialization
+            h = Striped64.getProbe();
+            wasUncontended = true;
+        }
+        boolean collide = false;                // True if last slot nonempty
+        for (;;) {
+            long[][] as; long[] a; int n;
+            if ((as = stripes) != null && (n = as.length) > 0) {
+                if ((a = as[(n - 1) & h]) == null) {
+                    if (stripesBusy == 0) {     // Try to attach new stripe
+                        long[] r = newStripe(); // Optimistically create
+                        tryRecord(r, slot, value);
+                        if (stripesBusy == 0 && casStripesBusy()) {
+                            boolean created = false;
+                            try {               // Recheck under lock
+                                long[][] rs; int m, j;
+                                if ((rs = stripes) != null &&
+                                    (m = rs.length) > 0 &&
+                                    rs[j = (m - 1) & h] == null) {
+                                    rs[j] = r;
+                                    created = true;
+                                }
+                            } finally {
+                                stripesBusy = 0;
+                            }
+                            if (created)
+                                break;
+                            continue;           // Slot is now non-empty
+                        }
+                    }
+                    collide = false;
+                }
+                else if (!wasUncontended)       // CAS already known to fail
+                    wasUncontended = true;      // Continue after rehash
+                else if (tryRecord(a, slot, value))
+                    break;
+                else if (n >= Striped64.NCPU || stripes != as)
+                    collide = false;            // At max size or stale
+                else if (!collide)
+                    collide = true;
+                else if (stripesBusy == 0 && casStripesBusy()) {
+                    try {
+                        if (stripes == as)      // Expand table unless stale
+                            stripes = Arrays.copyOf(as, n << 1);
+                    } finally {
+                        stripesBusy = 0;
+                    }
+                    collide = false;
+                    continue;                   // Retry with expanded table
+                }
+                h = Striped64.advanceProbe(h);
+            }
+            else if (stripesBusy == 0 && stripes == as && casStripesBusy()) {
+                boolean init = false;
+                try {                           // Initialize table
+                    if (stripes == as) {
+                        long[][] rs = new long[2][];
+                        long[] r = newStripe();
+                        tryRecord(r, slot, value);
+                        rs[h & 1] = r;
+                        stripes = rs;
+                        init = true;
+                    }
+                } finally {
+                    stripesBusy = 0;
+                }
+                if (init)
+                    break;
+            }
+            else if (tryRecord(base, slot, value))
+                break;                          // Fall back on using base
+        }
+    }
+
+    private boolean casStripesBusy() {
+        return U.compareAndSwapInt(this, STRIPESBUSY, 0, 1);
+    }
+
+    /**
+     * Returns the precision of this histogram.
+     *
+     * @return the number of significant bits retained for each value
+     */
+    public int getPrecision() {
+        return precision;
+    }
+
+    /**
+     * Returns the total number of recorded values.  The returned
+     * value is <em>NOT</em> an atomic snapshot; invocation in the
+     * absence of concurrent recordings returns an accurate result.
+     *
+     * @return the number of recorded values
+     */
+    public long getTotalCount() {
+        long n = 0L;
+        long[][] as = stripes;
+        n += countIn(base);
+        if (as != null) {
+            for (long[] a : as)
+                if (a != null)
+                    n += countIn(a);
+        }
+        return n;
+    }
+
+    private long countIn(long[] s) {
+        long n = 0L;
+        for (int i = PAD, end = PAD + buckets; i < end; ++i)
+            n += U.getLongVolatile(s, offset(i));
+        return n;
+    }
+
+    /**
+     * Accumulates stripe s into the given totals, resetting s if
+     * reset is true.  Totals hold bucket counts followed by sum,
+     * max and min.
+     */
+    private void drainInto(long[] s, long[] counts, long[] extras,
+                           boolean reset) {
+        for (int i = 0; i < buckets; ++i) {
+            long off = offset(PAD + i);
+            long c = reset ? U.getAndSetLong(s, off, 0L) :
+                U.getLongVolatile(s, off);
+            counts[i] += c;
+        }
+        long sum = reset ? U.getAndSetLong(s, offset(sumSlot), 0L) :
+            U.getLongVolatile(s, offset(sumSlot));
+        long max = reset ?
+            U.getAndSetLong(s, offset(maxSlot), Long.MIN_VALUE) :
+            U.getLongVolatile(s, offset(maxSlot));
+        long min = reset ?
+            U.getAndSetLong(s, offset(minSlot), Long.MAX_VALUE) :
+            U.getLongVolatile(s, offset(minSlot));
+        extras[0] += sum;
+        if (max > extras[1]) extras[1] = max;
+        if (min < extras[2]) extras[2] = min;
+    }
+
+    private Snapshot collect(boolean reset) {
+        long[] counts = new long[buckets];
+        long[] extras = { 0L, Long.MIN_VALUE, Long.MAX_VALUE };
+        drainInto(base, counts, extras, reset);
+        long[][] as = stripes;
+        if (as != null) {
+            for (long[] a : as)
+                if (a != null)
+                    drainInto(a, counts, extras, reset);
+        }
+        return new Snapshot(precision, counts, extras[0],
+                            extras[1], extras[2]);
+    }
+
+    /**
+     * Returns a snapshot of the values recorded by this histogram.
+     * The returned snapshot is <em>NOT</em> an atomic view of this
+     * histogram if there are concurrent recordings.
+     *
+     * @return a snapshot of this histogram
+     */
+    public Snapshot snapshot() {
+        return collect(false);
+    }
+
+    /**
+     * Returns a snapshot of the values recorded by this histogram,
+     * and resets it to empty.  Each recorded value is included in
+     * exactly one snapshot, even if there are concurrent recordings;
+     * however, the count of a value recorded concurrently may
+     * appear in a different snapshot than its contribution to the
+     * sum, maximum or minimum.
+     *
+     * @return a snapshot of this histogram before it was reset
+     */
+    public Snapshot snapshotThenReset() {
+        return collect(true);
+    }
+
+    /**
+     * Resets this histogram to empty.  This method may be a useful
+     * alternative to creating a new histogram, but is only effective
+     * if there are no concurrent recordings.  Because this method is
+     * intrinsically racy, it should only be used when it is known
+     * that no threads are concurrently recording.
+     */
+    public void reset() {
+        collect(true);
+    }
+
+    /**
+     * Adds all of the counts in the given snapshot, which must have
+     * the same precision, to this histogram.  This method may be
+     * used to combine histograms maintained by different components.
+     *
+     * @param snapshot the snapshot to add
+     * @throws IllegalArgumentException if the snapshot has a
+     * different precision
+     */
+    public void add(Snapshot snapshot) {
+        if (snapshot.precision != precision)
+            throw new IllegalArgumentException("precision mismatch");
+        long[] counts = snapshot.counts;
+        long[] s = base;
+        for (int i = 0; i < counts.length; ++i) {
+            if (counts[i] != 0L)
+                U.getAndAddLong(s, offset(PAD + i), counts[i]);
+        }
+        if (snapshot.totalCount != 0L) {
+            U.getAndAddLong(s, offset(sumSlot), snapshot.sum);
+            long v = snapshot.max, m;
+            while (v > (m = U.getLongVolatile(s, offset(maxSlot))) &&
+                   !U.compareAndSwapLong(s, offset(maxSlot), m, v))
+                ;
+            v = snapshot.min;
+            while (v < (m = U.getLongVolatile(s, offset(minSlot))) &&
+                   !U.compareAndSwapLong(s, offset(minSlot), m, v))
+                ;
+        }
+    }
+
+    /**
+     * Returns the estimated value at the given percentile of the
+     * values recorded so far.  Equivalent to {@code
+     * snapshot().getValueAtPercentile(percentile)}.
+     *
+     * @param percentile the percentile, between 0.0 and 100.0
+     * @return the estimated value at the given percentile, or zero
+     * if no values have been recorded
+     * @throws IllegalArgumentException if percentile is out of range
+     */
+    public long getValueAtPercentile(double percentile) {
+        return snapshot().getValueAtPercentile(percentile);
+    }
+
+    /**
+     * Returns the String representation of a snapshot of this
+     * histogram.
+     *
+     * @return the String representation of a snapshot of this histogram
+     */
+    public String toString() {
+        return snapshot().toString();
+    }
+
+    /**
+     * An immutable summary of the values recorded by a {@link
+     * LongHistogram}.
+     *
+     * @since 1.9
+     */
+    public static final class Snapshot implements Serializable {
+        private static final long serialVersionUID = -2117613213217392580L;
+
+        /** The precision, as in LongHistogram */
+        final int precision;
+        /** The bucket counts */
+        final long[] counts;
+        final long totalCount;
+        final long sum;
+        final long max;
+        final long min;
+
+        Snapshot(int precision, long[] counts, long sum, long max, long min) {
+            long n = 0L;
+            for (long c : counts)
+                n += c;
+            this.precision = precision;
+            this.counts = counts;
+            this.totalCount = n;
+            this.sum = sum;
+            this.max = (n == 0L) ? 0L : max;
+            this.min = (n == 0L) ? 0L : min;
+        }
+
+        /**
+         * Returns the number of values in this snapshot.
+         *
+         * @return the number of values
+         */
+        public long getTotalCount() {
+            return totalCount;
+        }
+
+        /**
+         * Returns the largest value recorded, or zero if none.
+         *
+         * @return the largest value recorded, or zero if none
+         */
+        public long getMaxValue() {
+            return max;
+        }
+
+        /**
+         * Returns the smallest value recorded, or zero if none.
+         *
+         * @return the smallest value recorded, or zero if none
+         */
+        public long getMinValue() {
+            return min;
+        }
+
+        /**
+         * Returns the arithmetic mean of the values recorded, or zero
+         * if none.  The mean is computed from exact sums, not bucket
+         * counts, although the sum may overflow if the values
+         * recorded are very large.
+         *
+         * @return the mean of the values recorded, or zero if none
+         */
+        public double getMean() {
+            return (totalCount == 0L) ? 0.0 : (double)sum / totalCount;
+        }
+
+        /**
+         * Returns the estimated value at the given percentile: the
+         * largest value that is counted in the same bucket as the
+         * value below which the given percentage of recorded values
+         * fall, but no more than the maximum value recorded.  For
+         * example, {@code getValueAtPercentile(99.9)} estimates the
+         * 99.9th percentile.
+         *
+         * @param percentile the percentile, between 0.0 and 100.0
+         * @return the estimated value at the given percentile, or
+         * zero if no values have been recorded
+         * @throws IllegalArgumentException if percentile is out of range
+         */
+        public long getValueAtPercentile(double percentile) {
+            if (!(percentile >= 0.0 && percentile <= 100.0))
+                throw new IllegalArgumentException();
+            long n = totalCount;
+            if (n == 0L)
+                return 0L;
+            long rank = (long)Math.ceil((percentile / 100.0) * n);
+            if (rank < 1L)
+                rank = 1L;
+            long seen = 0L;
+            for (int i = 0; i < counts.length; ++i) {
+                if ((seen += counts[i]) >= rank)
+                    return Math.max(Math.min(highestValueIn(i, precision),
+                                             max), min);
+            }
+            return max;
+        }
+
+        /**
+         * Returns the number of recorded values between the given
+         * bounds, inclusive, estimated to the resolution of buckets.
+         *
+         * @param lowValue the lower bound
+         * @param highValue the upper bound
+         * @return the estimated number of values in range
+         */
+        public long getCountBetweenValues(long lowValue, long highValue) {
+            if (highValue < 0L || highValue < lowValue)
+                return 0L;
+            int lo = bucketFor(Math.max(lowValue, 0L), precision);
+            int hi = bucketFor(highValue, precision);
+            long n = 0L;
+            for (int i = lo; i <= hi; ++i)
+                n += counts[i];
+            return n;
+        }
+
+        /**
+         * Returns a new snapshot combining the values of this
+         * snapshot and the given one, which must have the same
+         * precision.
+         *
+         * @param other the other snapshot
+         * @return the combined snapshot
+         * @throws IllegalArgumentException if the snapshots have
+         * different precisions
+         */
+        public Snapshot merge(Snapshot other) {
+            if (other.precision != precision)
+                throw new IllegalArgumentException("precision mismatch");
+            long[] c = counts.clone();
+            for (int i = 0; i < c.length; ++i)
+                c[i] += other.counts[i];
+            if (other.totalCount == 0L)
+                return new Snapshot(precision, c, sum, max, min);
+            if (totalCount == 0L)
+                return new Snapshot(precision, c, other.sum,
+                                    other.max, other.min);
+            return new Snapshot(precision, c, sum + other.sum,
+                                Math.max(max, other.max),
+                                Math.min(min, other.min));
+        }
+
+        /**
+         * Returns a string summarizing this snapshot: the count,
+         * mean, 50th, 99th and 99.9th percentiles and maximum.
+         *
+         * @return a string summarizing this snapshot
+         */
+        public String toString() {
+            return "[count = " + totalCount +
+                ", mean = " + getMean() +
+                ", p50 = " + getValueAtPercentile(50.0) +
+                ", p99 = " + getValueAtPercentile(99.0) +
+                ", p999 = " + getValueAtPercentile(99.9) +
+                ", max = " + max + "]";
+        }
+    }
+
+    // Unsafe mechanics
+    private static final sun.misc.Unsafe U;
+    private static final long STRIPESBUSY;
+    private static final long ABASE;
+    private static final int ASHIFT;
+    static {
+        try {
+            U = sun.misc.Unsafe.getUnsafe();
+            STRIPESBUSY = U.objectFieldOffset
+                (LongHistogram.class.getDeclaredField("stripesBusy"));
+            ABASE = U.arrayBaseOffset(long[].class);
+            int scale = U.arrayIndexScale(long[].class);
+            if ((scale & (scale - 1)) != 0)
+                throw new Error("data type scale not a power of two");
+            ASHIFT = 31 - Integer.numberOfLeadingZeros(scale);
+        } catch (Exception e) {
+            throw new Error(e);
+        }
+    }
+}
@@ -532,6 +532,17 @@ public abstract class AbstractQueuedSynchronizer
      */
     private volatile int state;
 
+    /**
+     * The number of times to retry acquiring before parking, adapted
+     * to recent success; zero until first used.
+     */
+    private transient volatile int spins;
+
+    /**
+     * Contention statistics, or null if not profiling.
+     */
+    private transient volatile ContentionProfile contentionProfile;
+
     /**
      * Returns the current value of synchronization state.
      * This operation has memory semantics of a {@code volatile} read.
@@ -575,6 +586,22 @@ public abstract class AbstractQueuedSynchronizer
      */
     static final long spinForTimeoutThreshold = 1000L;
 
+    /**
+     * Whether queued threads spin before parking; see spinAcquire.
+     * Enabled by setting system property {@code
+     * java.util.concurrent.locks.AbstractQueuedSynchronizer.adaptiveSpin}
+     * to {@code true}, and then only on multiprocessors.
+     */
+    static final boolean ADAPTIVE_SPIN =
+        Runtime.getRuntime().availableProcessors() > 1 &&
+        Boolean.getBoolean
+        ("java.util.concurrent.locks.AbstractQueuedSynchronizer.adaptiveSpin");
+
+    /** Bounds and initial value for adaptive spins */
+    static final int MIN_SPINS = 1 << 2;
+    static final int INITIAL_SPINS = 1 << 6;
+    static final int MAX_SPINS = 1 << 12;
+
     /**
      * Inserts node into queue, initializing if necessary. See picture above.
      * @param node the node to insert
@@ -837,6 +864,62 @@ public abstract class AbstractQueuedSynchronizer
         return Thread.interrupted();
     }
 
+    /**
+     * Spins retrying tryAcquire before parking, if enabled.  Called
+     * only by the first queued thread, after it has arranged to be
+     * signalled, so spinning never delays a wakeup.  The number of
+     * retries doubles after each success and halves after each
+     * failure, within [MIN_SPINS, MAX_SPINS].  Because spins succeed
+     * when the synchronizer is released within the spin duration,
+     * this settles on spinning for about as long as recent hold
+     * times when these are short, and on almost never spinning when
+     * they are long.  Updates of spins may be lost in races, which
+     * only delays adaptation.
+     *
+     * @param arg the acquire argument
+     * @return {@code true} if acquired
+     */
+    private boolean spinAcquire(int arg) {
+        if (!ADAPTIVE_SPIN)
+            return false;
+        int limit = spins;
+        if (limit == 0)
+            limit = INITIAL_SPINS;
+        for (int k = limit; k > 0; --k) {
+            if (tryAcquire(arg)) {
+                if (limit < MAX_SPINS)
+                    spins = limit << 1;
+                return true;
+            }
+        }
+        spins = (limit > MIN_SPINS) ? limit >>> 1 : MIN_SPINS;
+        return false;
+    }
+
+    /**
+     * Version of spinAcquire for shared mode.
+     *
+     * @param arg the acquire argument
+     * @return the last result of tryAcquireShared
+     */
+    private int spinAcquireShared(int arg) {
+        if (!ADAPTIVE_SPIN)
+            return -1;
+        int limit = spins;
+        if (limit == 0)
+            limit = INITIAL_SPINS;
+        for (int k = limit; k > 0; --k) {
+            int r = tryAcquireShared(arg);
+            if (r >= 0) {
+                if (limit < MAX_SPINS)
+                    spins = limit << 1;
+                return r;
+            }
+        }
+        spins = (limit > MIN_SPINS) ? limit >>> 1 : MIN_SPINS;
+        return -1;
+    }
+
     /*
      * Various flavors of acquire, varying in exclusive/shared and
      * control modes.  Each is mostly the same, but annoyingly
@@ -844,6 +927,10 @@ public abstract class AbstractQueuedSynchronizer
      * interactions of exception mechanics (including ensuring that we
      * cancel if tryAcquire throws exception) and other control, at
      * least not without hurting performance too much.
+     *
+     * Each spins (see spinAcquire) only when its predecessor is
+     * head with status SIGNAL, that is, just before it would park,
+     * and, if profiling, records the wait from first queuing.
      */
 
     /**
@@ -855,14 +942,21 @@ public abstract class AbstractQueuedSynchronizer
      * @return {@code true} if interrupted while waiting
      */
     final boolean acquireQueued(final Node node, int arg) {
+        final ContentionProfile cp = contentionProfile;
+        final long startTime = (cp == null) ? 0L :
+            cp.contended(getExclusiveOwnerThread());
         boolean failed = true;
         try {
             boolean interrupted = false;
             for (;;) {
                 final Node p = node.predecessor();
-                if (p == head && tryAcquire(arg)) {
+                if (p == head &&
+                    (tryAcquire(arg) ||
+                     (p.waitStatus == Node.SIGNAL && spinAcquire(arg)))) {
                     setHead(node);
                     p.next = null; // help GC
+                    if (cp != null)
+                        cp.acquired(startTime);
                     failed = false;
                     return interrupted;
                 }
@@ -883,13 +977,20 @@ public abstract class AbstractQueuedSynchronizer
     private void doAcquireInterruptibly(int arg)
         throws InterruptedException {
         final Node node = addWaiter(Node.EXCLUSIVE);
+        final ContentionProfile cp = contentionProfile;
+        final long startTime = (cp == null) ? 0L :
+            cp.contended(getExclusiveOwnerThread());
         boolean failed = true;
         try {
             for (;;) {
                 final Node p = node.predecessor();
-                if (p == head && tryAcquire(arg)) {
+                if (p == head &&
+                    (tryAcquire(arg) ||
+                     (p.waitStatus == Node.SIGNAL && spinAcquire(arg)))) {
                     setHead(node);
                     p.next = null; // help GC
+                    if (cp != null)
+                        cp.acquired(startTime);
                     failed = false;
                     return;
                 }
@@ -916,13 +1017,20 @@ public abstract class AbstractQueuedSynchronizer
             return false;
         final long deadline = System.nanoTime() + nanosTimeout;
         final Node node = addWaiter(Node.EXCLUSIVE);
+        final ContentionProfile cp = contentionProfile;
+        final long startTime = (cp == null) ? 0L :
+            cp.contended(getExclusiveOwnerThread());
         boolean failed = true;
         try {
             for (;;) {
                 final Node p = node.predecessor();
-                if (p == head && tryAcquire(arg)) {
+                if (p == head &&
+                    (tryAcquire(arg) ||
+                     (p.waitStatus == Node.SIGNAL && spinAcquire(arg)))) {
                     setHead(node);
                     p.next = null; // help GC
+                    if (cp != null)
+                        cp.acquired(startTime);
                     failed = false;
                     return true;
                 }
@@ -947,6 +1055,9 @@ public abstract class AbstractQueuedSynchronizer
      */
     private void doAcquireShared(int arg) {
         final Node node = addWaiter(Node.SHARED);
+        final ContentionProfile cp = contentionProfile;
+        final long startTime = (cp == null) ? 0L :
+            cp.contended(getExclusiveOwnerThread());
         boolean failed = true;
         try {
             boolean interrupted = false;
@@ -954,9 +1065,13 @@ public abstract class AbstractQueuedSynchronizer
                 final Node p = node.predecessor();
                 if (p == head) {
                     int r = tryAcquireShared(arg);
+                    if (r < 0 && p.waitStatus == Node.SIGNAL)
+                        r = spinAcquireShared(arg);
                     if (r >= 0) {
                         setHeadAndPropagate(node, r);
                         p.next = null; // help GC
+                        if (cp != null)
+                            cp.acquired(startTime);
                         if (interrupted)
                             selfInterrupt();
                         failed = false;
@@ -980,15 +1095,22 @@ public abstract class AbstractQueuedSynchronizer
     private void doAcquireSharedInterruptibly(int arg)
         throws InterruptedException {
         final Node node = addWaiter(Node.SHARED);
+        final ContentionProfile cp = contentionProfile;
+        final long startTime = (cp == null) ? 0L :
+            cp.contended(getExclusiveOwnerThread());
         boolean failed = true;
         try {
             for (;;) {
                 final Node p = node.predecessor();
                 if (p == head) {
                     int r = tryAcquireShared(arg);
+                    if (r < 0 && p.waitStatus == Node.SIGNAL)
+                        r = spinAcquireShared(arg);
                     if (r >= 0) {
                         setHeadAndPropagate(node, r);
                         p.next = null; // help GC
+                        if (cp != null)
+                            cp.acquired(startTime);
                         failed = false;
                         return;
                     }
@@ -1016,15 +1138,22 @@ public abstract class AbstractQueuedSynchronizer
             return false;
         final long deadline = System.nanoTime() + nanosTimeout;
         final Node node = addWaiter(Node.SHARED);
+        final ContentionProfile cp = contentionProfile;
+        final long startTime = (cp == null) ? 0L :
+            cp.contended(getExclusiveOwnerThread());
         boolean failed = true;
         try {
             for (;;) {
                 final Node p = node.predecessor();
                 if (p == head) {
                     int r = tryAcquireShared(arg);
+                    if (r < 0 && p.waitStatus == Node.SIGNAL)
+                        r = spinAcquireShared(arg);
                     if (r >= 0) {
                         setHeadAndPropagate(node, r);
                         p.next = null; // help GC
+                        if (cp != null)
+                            cp.acquired(startTime);
                         failed = false;
                         return true;
                     }
@@ -1603,6 +1732,39 @@ public abstract class AbstractQueuedSynchronizer
         return list;
     }
 
+    /**
+     * Enables or disables contention profiling.  While enabled, each
+     * acquisition that must queue is recorded in a {@link
+     * ContentionProfile}, together with the thread that held this
+     * synchronizer exclusively, if any, when it began waiting.
+     * Enabling profiling when already enabled has no effect, and
+     * disabling it discards the statistics gathered.  This method
+     * is designed for use in monitoring system state, not for
+     * synchronization control.
+     *
+     * @param enable {@code true} to enable profiling, {@code false}
+     * to disable it
+     * @since 1.9
+     */
+    public final void setContentionProfiling(boolean enable) {
+        if (!enable)
+            contentionProfile = null;
+        else if (contentionProfile == null)
+            unsafe.compareAndSwapObject(this, contentionProfileOffset,
+                                        null, new ContentionProfile());
+    }
+
+    /**
+     * Returns the contention statistics gathered since profiling was
+     * enabled, or {@code null} if profiling is not enabled.
+     *
+     * @return the contention profile, or {@code null} if none
+     * @since 1.9
+     */
+    public final ContentionProfile getContentionProfile() {
+        return contentionProfile;
+    }
+
     /**
      * Returns a string identifying this synchronizer, as well as its state.
      * The state, in brackets, includes the String {@code "State ="}
@@ -2263,6 +2425,7 @@ public abstract class AbstractQueuedSynchronizer
     private static final long tailOffset;
     private static final long waitStatusOffset;
     private static final long nextOffset;
+    private static final long contentionProfileOffset;
 
     static {
         try {
@@ -2276,6 +2439,9 @@ public abstract class AbstractQueuedSynchronizer
                 (Node.class.getDeclaredField("waitStatus"));
             nextOffset = unsafe.objectFieldOffset
                 (Node.class.getDeclaredField("next"));
+            contentionProfileOffset = unsafe.objectFieldOffset
+                (AbstractQueuedSynchronizer.class.getDeclaredField
+                 ("contentionProfile"));
 
         } catch (Exception ex) { throw new Error(ex); }
     }
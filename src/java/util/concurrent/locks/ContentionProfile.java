@@ -0,0 +1,207 @@
+/*
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+package java.util.concurrent.locks;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Statistics about contended acquisitions of a synchronizer,
+ * collected while {@linkplain
+ * AbstractQueuedSynchronizer#setContentionProfiling contention
+ * profiling} is enabled.  An acquisition is contended when the
+ * acquiring thread cannot obtain the synchronizer immediately and
+ * must queue.  For each such acquisition a profile records the time
+ * spent waiting, in a histogram with power-of-two buckets, and the
+ * thread, if any, that held the synchronizer exclusively when the
+ * wait began.
+ *
+ * <p>Profiles are obtained using {@link
+ * ReentrantLock#getContentionProfile} and {@link
+ * ReentrantReadWriteLock#getContentionProfile}, or from other
+ * synchronizers using {@link
+ * AbstractQueuedSynchronizer#getContentionProfile}.  Updates are
+ * performed only on the slow path of contended acquires, so
+ * profiling does not affect uncontended locking.  Values are
+ * gathered without a common snapshot, and so may be mutually
+ * inconsistent while contention is ongoing.  The methods of this
+ * class are designed for use in monitoring system state, not for
+ * synchronization control.
+ *
+ * @since 1.9
+ */
+public class ContentionProfile {
+
+    /** Number of histogram buckets: one per bit of a positive long */
+    static final int BUCKETS = 63;
+
+    /**
+     * Maximum number of distinct owners recorded.  Contentions
+     * with other owners are still counted, but not attributed.
+     */
+    static final int MAX_OWNERS = 64;
+
+    private final AtomicLongArray histogram = new AtomicLongArray(BUCKETS);
+    private final AtomicLong totalWaitNanos = new AtomicLong();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+    private final ConcurrentHashMap<String, AtomicLong> owners =
+        new ConcurrentHashMap<String, AtomicLong>();
+
+    ContentionProfile() {}
+
+    /**
+     * Records the start of a contended acquire in the presence of
+     * the given owner (null if none or unknown).
+     *
+     * @return the start time, to be passed to acquired
+     */
+    final long contended(Thread owner) {
+        if (owner != null) {
+            String name = owner.getName();
+            AtomicLong c = owners.get(name);
+            if (c == null && owners.size() < MAX_OWNERS)
+                c = owners.computeIfAbsent(name, k -> new AtomicLong());
+            if (c != null)
+                c.getAndIncrement();
+        }
+        return System.nanoTime();
+    }
+
+    /**
+     * Records the completion of a contended acquire started at the
+     * given time.
+     */
+    final void acquired(long startTime) {
+        long w = System.nanoTime() - startTime, m;
+        if (w < 0L)
+            w = 0L;
+        histogram.getAndIncrement(bucketFor(w));
+        totalWaitNanos.getAndAdd(w);
+        while (w > (m = maxWaitNanos.get()) &&
+               !maxWaitNanos.compareAndSet(m, w))
+            ;
+    }
+
+    /**
+     * Returns the histogram index for a wait of the given nanoseconds.
+     */
+    static int bucketFor(long nanos) {
+        return (nanos <= 1L) ? 0 : 63 - Long.numberOfLeadingZeros(nanos);
+    }
+
+    /**
+     * Returns the number of contended acquisitions that have completed.
+     *
+     * @return the number of contended acquisitions
+     */
+    public long getContentionCount() {
+        long n = 0L;
+        for (int i = 0; i < BUCKETS; ++i)
+            n += histogram.get(i);
+        return n;
+    }
+
+    /**
+     * Returns the total time, in nanoseconds, that threads have
+     * waited in contended acquisitions.
+     *
+     * @return the total wait time in nanoseconds
+     */
+    public long getTotalWaitNanos() {
+        return totalWaitNanos.get();
+    }
+
+    /**
+     * Returns the longest time, in nanoseconds, that any thread has
+     * waited in a contended acquisition.
+     *
+     * @return the maximum wait time in nanoseconds
+     */
+    public long getMaxWaitNanos() {
+        return maxWaitNanos.get();
+    }
+
+    /**
+     * Returns a histogram of wait times.  Element {@code i} of the
+     * returned array holds the number of contended acquisitions that
+     * waited at least 2<sup>i</sup> and less than
+     * 2<sup>i+1</sup> nanoseconds (except that element zero also
+     * holds waits of less than one nanosecond).  The length of the
+     * array is 63.
+     *
+     * @return the wait-time histogram
+     */
+    public long[] getWaitHistogram() {
+        long[] h = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; ++i)
+            h[i] = histogram.get(i);
+        return h;
+    }
+
+    /**
+     * Returns a map from the names of threads that held the
+     * synchronizer exclusively when contention occurred to the number
+     * of contended acquisitions that began while each held it.
+     * Acquisitions contended only by shared holders, as for a read
+     * lock, are not attributed to any owner.  At most 64 distinct
+     * owners are recorded.
+     *
+     * @return an unmodifiable snapshot of contention counts by owner
+     */
+    public Map<String, Long> getOwnerContentionCounts() {
+        HashMap<String, Long> m = new HashMap<String, Long>();
+        for (Map.Entry<String, AtomicLong> e : owners.entrySet())
+            m.put(e.getKey(), e.getValue().get());
+        return Collections.unmodifiableMap(m);
+    }
+
+    /**
+     * Resets all statistics to zero.  Acquisitions in progress
+     * during a reset may or may not be counted.
+     */
+    public void reset() {
+        for (int i = 0; i < BUCKETS; ++i)
+            histogram.set(i, 0L);
+        totalWaitNanos.set(0L);
+        maxWaitNanos.set(0L);
+        owners.clear();
+    }
+
+    /**
+     * Returns a string summarizing this profile: the number of
+     * contended acquisitions and their mean and maximum wait times.
+     *
+     * @return a string summarizing this profile
+     */
+    public String toString() {
+        long n = getContentionCount();
+        return super.toString() +
+            "[contentions = " + n +
+            ", mean wait ns = " + ((n == 0L) ? 0L : getTotalWaitNanos() / n) +
+            ", max wait ns = " + getMaxWaitNanos() + "]";
+    }
+}
@@ -745,6 +745,34 @@ public class ReentrantLock implements Lock, java.io.Serializable {
         return sync.getWaitingThreads((AbstractQueuedSynchronizer.ConditionObject)condition);
     }
 
+    /**
+     * Enables or disables contention profiling for this lock.  While
+     * enabled, each acquisition that cannot proceed immediately
+     * records its wait time and the thread, if any, holding
+     * the lock when it began waiting, in the {@link
+     * ContentionProfile} returned by {@link #getContentionProfile}.
+     * Disabling profiling discards the statistics gathered.
+     *
+     * @param enable {@code true} to enable profiling
+     * @since 1.9
+     */
+    public void setContentionProfilingEnabled(boolean enable) {
+        sync.setContentionProfiling(enable);
+    }
+
+    /**
+     * Returns the contention statistics gathered for this lock since
+     * profiling was enabled, or {@code null} if profiling is not
+     * enabled.  This method is designed for use in monitoring of the
+     * system state, not for synchronization control.
+     *
+     * @return the contention profile, or {@code null} if none
+     * @since 1.9
+     */
+    public ContentionProfile getContentionProfile() {
+        return sync.getContentionProfile();
+    }
+
     /**
      * Returns a string identifying this lock, as well as its lock state.
      * The state, in brackets, includes either the String {@code "Unlocked"}
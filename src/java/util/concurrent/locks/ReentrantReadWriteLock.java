@@ -1465,6 +1465,37 @@ public class ReentrantReadWriteLock
         return sync.getWaitingThreads((AbstractQueuedSynchronizer.ConditionObject)condition);
     }
 
+    /**
+     * Enables or disables contention profiling for this lock.  While
+     * enabled, each acquisition that cannot proceed immediately
+     * records its wait time and the thread, if any, holding the
+     * write lock when it began waiting, in the {@link
+     * ContentionProfile} returned by {@link #getContentionProfile}.
+     * The profile covers both the read and write locks; waits that
+     * begin while the write lock is not held, as for writers blocked
+     * by readers, are not attributed to any owner.
+     * Disabling profiling discards the statistics gathered.
+     *
+     * @param enable {@code true} to enable profiling
+     * @since 1.9
+     */
+    public void setContentionProfilingEnabled(boolean enable) {
+        sync.setContentionProfiling(enable);
+    }
+
+    /**
+     * Returns the contention statistics gathered for this lock since
+     * profiling was enabled, or {@code null} if profiling is not
+     * enabled.  This method is designed for use in monitoring of the
+     * system state, not for synchronization control.
+     *
+     * @return the contention profile, or {@code null} if none
+     * @since 1.9
+     */
+    public ContentionProfile getContentionProfile() {
+        return sync.getContentionProfile();
+    }
+
     /**
      * Returns a string identifying this lock, as well as its lock state.
      * The state, in brackets, includes the String {@code "Write locks ="}
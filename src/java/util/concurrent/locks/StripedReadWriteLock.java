@@ -0,0 +1,871 @@
+/*
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+package java.util.concurrent.locks;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A reentrant {@link ReadWriteLock} biased toward readers, in which
+ * read lock acquisition and release update only one of several
+ * counters, so that read-mostly usages scale with the number of
+ * processors.  In {@link ReentrantReadWriteLock}, every read
+ * acquisition and release updates a single shared state word, which
+ * limits throughput under concurrent reading even when no thread
+ * ever writes.  Here, readers register in striped counters, padded
+ * to reside on distinct cache lines in the manner of {@link
+ * java.util.concurrent.atomic.LongAdder} cells, and a writer
+ * announces itself and then scans these counters, waiting for
+ * readers to drain.
+ *
+ * <p>The resulting trade-off is the opposite of that of {@code
+ * ReentrantReadWriteLock}: reading is cheaper and does not contend
+ * with other readers, but writing is more expensive, in proportion
+ * to the number of counters (which is about the number of
+ * processors).  This class is best suited to data that is read very
+ * frequently and modified rarely, such as configuration or routing
+ * tables.  Unlike {@link StampedLock}, both locks are reentrant, the
+ * write lock supports {@link Condition}s, and readers never need to
+ * validate or retry.
+ *
+ * <p>This class has the following properties:
+ *
+ * <ul>
+ * <li><b>Writer preference.</b> Once a writer has announced itself,
+ * new readers (other than those already holding the read lock, which
+ * may reacquire it) wait until it releases the write lock.  Writers
+ * are ordered among themselves by an internal {@link ReentrantLock},
+ * fair or not as given on construction, with which readers that had
+ * to wait also queue.
+ *
+ * <li><b>Reentrancy.</b> Readers and writers may reacquire the read
+ * or write locks they hold.  A writer may also acquire the read
+ * lock, and so downgrade by acquiring the read lock and then
+ * releasing the write lock.  Upgrading from a read lock to the write
+ * lock is not supported.
+ *
+ * <li><b>Condition support.</b> The write lock provides a {@link
+ * Condition} implementation that behaves as for {@link
+ * ReentrantLock#newCondition}.  While a writer is waiting on a
+ * condition, readers may proceed.  The read lock does not support
+ * conditions.
+ *
+ * <li><b>Instrumentation.</b> Methods are provided to determine
+ * whether locks are held, as for {@code ReentrantReadWriteLock}.
+ * </ul>
+ *
+ * <p>Sample usage:
+ *
+ *  <pre> {@code
+ * class Routes {
+ *   private final Map<String, Route> m = new HashMap<>();
+ *   private final StripedReadWriteLock rwl = new StripedReadWriteLock();
+ *   private final Lock r = rwl.readLock();
+ *   private final Lock w = rwl.writeLock();
+ *
+ *   public Route get(String key) {
+ *     r.lock();
+ *     try { return m.get(key); }
+ *     finally { r.unlock(); }
+ *   }
+ *   public void put(String key, Route value) {
+ *     w.lock();
+ *     try { m.put(key, value); }
+ *     finally { w.unlock(); }
+ *   }
+ * }}</pre>
+ *
+ * @since 1.9
+ */
+public class StripedReadWriteLock implements ReadWriteLock {
+
+    /*
+     * Overview:
+     *
+     * The write lock consists of holding the internal ReentrantLock
+     * wlock with the volatile writer flag set.  The flag is set only
+     * by the holder of wlock, and is cleared before wlock is released
+     * or a writer waits on a condition (which releases wlock), so a
+     * thread holding wlock with the flag clear excludes all writers.
+     *
+     * A reader increments a counter cell and then reads writer; a
+     * writer sets writer and then reads every cell.  All of these are
+     * volatile accesses (cells are read from the array using
+     * getObjectVolatile), so at least one of each such pair of
+     * threads sees the other (as in Dekker's algorithm).  A reader
+     * that sees writer set undoes its increment and waits by
+     * acquiring wlock, upon which it may increment without checking,
+     * since writer is clear while wlock is held by a reader.  A
+     * writer waits until each cell's count drops to zero, or, if
+     * the writer itself holds the read lock, to the count of its own
+     * holds in its own cell.  It records itself in drainer before
+     * setting writer, and readers that decrement a cell while writer
+     * is set unpark the drainer, so the writer may block instead of
+     * spinning for long-held read locks.
+     *
+     * Cells are created lazily, when first needed by a reader, in a
+     * table with a power-of-two size at least the number of
+     * processors.  Each thread has a per-lock ThreadLocal record of
+     * its read holds and of the cell in which it registers them.  A
+     * thread with no holds moves to a different cell upon
+     * encountering contention, in the manner of Striped64 probes,
+     * but all holds of a thread are always in one cell.  Unlike in
+     * ReentrantReadWriteLock, records are not removed when holds
+     * drop to zero, so that threads retain their cells.
+     */
+
+    /** Number of CPUS, to place bounds on sizing */
+    static final int NCPU = Runtime.getRuntime().availableProcessors();
+
+    /** Maximum number of reader cells */
+    static final int MAX_CELLS = 1 << 8;
+
+    /** Number of times a draining writer spins before blocking */
+    static final int DRAIN_SPINS = (NCPU > 1) ? 1 << 8 : 0;
+
+    /**
+     * A padded reader counter.
+     */
+    @sun.misc.Contended static final class Cell {
+        volatile int readers;
+    }
+
+    /**
+     * Per-thread record of read holds.
+     */
+    static final class ReadHolds {
+        int count;
+        int index;
+        ReadHolds(int index) { this.index = index; }
+    }
+
+    /**
+     * ThreadLocal subclass, choosing an initial cell from the
+     * thread id, which spreads threads created in sequence.
+     */
+    static final class ThreadLocalReadHolds extends ThreadLocal<ReadHolds> {
+        public ReadHolds initialValue() {
+            long id = Thread.currentThread().getId();
+            return new ReadHolds((int)(id ^ (id >>> 32)) * 0x9e3779b9);
+        }
+    }
+
+    /** Inner class providing readlock */
+    private final StripedReadWriteLock.ReadLock readerLock;
+    /** Inner class providing writelock */
+    private final StripedReadWriteLock.WriteLock writerLock;
+
+    /** Lock held by writers and by waiting readers */
+    final ReentrantLock wlock;
+
+    /** Reader cells; slots are null until first used */
+    final Cell[] cells;
+
+    /** Per-thread read holds */
+    final ThreadLocalReadHolds readHolds = new ThreadLocalReadHolds();
+
+    /** True while a writer holds, or is acquiring, the write lock */
+    volatile boolean writer;
+
+    /** The writer waiting for readers to drain, or null if none */
+    volatile Thread drainer;
+
+    /**
+     * Creates a new {@code StripedReadWriteLock} with non-fair
+     * ordering of writers.
+     */
+    public StripedReadWriteLock() {
+        this(false);
+    }
+
+    /**
+     * Creates a new {@code StripedReadWriteLock} with the given
+     * fairness policy for writers and for readers that wait for
+     * writers.
+     *
+     * @param fair {@code true} if this lock should use a fair ordering policy
+     */
+    public StripedReadWriteLock(boolean fair) {
+        int n = 1;
+        while (n < NCPU && n < MAX_CELLS)
+            n <<= 1;
+        cells = new Cell[n];
+        wlock = new ReentrantLock(fair);
+        readerLock = new ReadLock(this);
+        writerLock = new WriteLock(this);
+    }
+
+    public StripedReadWriteLock.WriteLock writeLock() { return writerLock; }
+    public StripedReadWriteLock.ReadLock  readLock()  { return readerLock; }
+
+    /* ---------------- Reader registration -------------- */
+
+    /**
+     * Returns the cell at the given index, creating it if necessary.
+     */
+    private Cell cellAt(int i) {
+        Cell[] cs = cells;
+        long off = ((long)i << ASHIFT) + ABASE;
+        Cell c = (Cell)U.getObjectVolatile(cs, off);
+        if (c == null &&
+            !U.compareAndSwapObject(cs, off, null, c = new Cell()))
+            c = (Cell)U.getObjectVolatile(cs, off);
+        return c;
+    }
+
+    /**
+     * Increments the reader count in the cell for rh, moving rh to
+     * another cell on contention if it has no holds.
+     */
+    private void register(ReadHolds rh) {
+        int m = cells.length - 1;
+        for (int tries = 0;; ++tries) {
+            Cell c = cellAt(rh.index & m);
+            int r = c.readers;
+            if (U.compareAndSwapInt(c, READERS, r, r + 1))
+                return;
+            if (rh.count != 0 || tries >= m) {
+                U.getAndAddInt(c, READERS, 1);
+                return;
+            }
+            int h = rh.index;                 // xorshift rehash
+            h ^= h << 13; h ^= h >>> 17; h ^= h << 5;
+            rh.index = h;
+        }
+    }
+
+    /**
+     * Decrements the reader count in the cell for rh, waking up any
+     * draining writer.
+     */
+    private void deregister(ReadHolds rh) {
+        Cell c = cellAt(rh.index & (cells.length - 1));
+        U.getAndAddInt(c, READERS, -1);
+        if (writer) {
+            Thread w = drainer;
+            if (w != null)
+                LockSupport.unpark(w);
+        }
+    }
+
+    /**
+     * Tries to acquire the read lock without waiting for a writer.
+     */
+    final boolean tryReadFast(ReadHolds rh) {
+        if (rh.count == 0 && !wlock.isHeldByCurrentThread()) {
+            if (writer)
+                return false;
+            register(rh);
+            if (writer) {
+                deregister(rh);
+                return false;
+            }
+        }
+        else
+            register(rh);           // reentrant or downgrading
+        ++rh.count;
+        return true;
+    }
+
+    /**
+     * Acquires the read lock after wlock has been acquired.
+     */
+    final void readWhileLocked(ReadHolds rh) {
+        try {
+            register(rh);
+            ++rh.count;
+        } finally {
+            wlock.unlock();
+        }
+    }
+
+    final void readUnlock() {
+        ReadHolds rh = readHolds.get();
+        if (rh.count <= 0)
+            throw new IllegalMonitorStateException
+                ("attempt to unlock read lock, not locked by current thread");
+        --rh.count;
+        deregister(rh);
+    }
+
+    /* ---------------- Writer draining -------------- */
+
+    /**
+     * Announces a writer holding wlock and waits for readers to
+     * drain.  On timeout or interrupt, withdraws and releases wlock.
+     *
+     * @param interruptible whether to throw on interrupt
+     * @param deadline the deadline, or 0 if untimed
+     * @return true if drained, false on timeout
+     */
+    final boolean drain(boolean interruptible, long deadline)
+        throws InterruptedException {
+        Thread me = Thread.currentThread();
+        ReadHolds rh = readHolds.get();
+        int own = rh.count, m = cells.length - 1, ownIndex = rh.index & m;
+        boolean interrupted = false;
+        drainer = me;
+        writer = true;
+        Cell[] cs = cells;
+        for (int i = 0; i <= m; ++i) {
+            Cell c = (Cell)U.getObjectVolatile(cs, ((long)i << ASHIFT) + ABASE);
+            if (c == null)
+                continue;
+            int expected = (i == ownIndex) ? own : 0;
+            for (int spins = DRAIN_SPINS; c.readers != expected; ) {
+                if (spins > 0)
+                    --spins;
+                else if (deadline == 0L)
+                    LockSupport.park(this);
+                else {
+                    long nanos = deadline - System.nanoTime();
+                    if (nanos <= 0L) {
+                        abandonWrite();
+                        return false;
+                    }
+                    LockSupport.parkNanos(this, nanos);
+                }
+                if (Thread.interrupted()) {
+                    if (interruptible) {
+                        abandonWrite();
+                        throw new InterruptedException();
+                    }
+                    interrupted = true;
+                }
+            }
+        }
+        drainer = null;
+        if (interrupted)
+            me.interrupt();
+        return true;
+    }
+
+    /**
+     * Withdraws a writer that could not drain readers.
+     */
+    private void abandonWrite() {
+        writer = false;
+        drainer = null;
+        wlock.unlock();
+    }
+
+    /**
+     * Checks writer ownership, and if releasing the last hold,
+     * clears writer.
+     */
+    final void beforeWriteRelease(boolean fully) {
+        if (!wlock.isHeldByCurrentThread())
+            throw new IllegalMonitorStateException();
+        if (fully || wlock.getHoldCount() == 1)
+            writer = false;
+    }
+
+    /**
+     * The lock returned by method {@link StripedReadWriteLock#readLock}.
+     */
+    public static class ReadLock implements Lock {
+        private final StripedReadWriteLock lock;
+
+        /**
+         * Constructor for use by subclasses
+         *
+         * @param lock the outer lock object
+         * @throws NullPointerException if the lock is null
+         */
+        protected ReadLock(StripedReadWriteLock lock) {
+            if (lock == null)
+                throw new NullPointerException();
+            this.lock = lock;
+        }
+
+        /**
+         * Acquires the read lock.
+         *
+         * <p>Acquires the read lock if the write lock is not held by
+         * another thread and no writer is draining readers, or if the
+         * current thread already holds the read lock, and returns
+         * immediately.  Otherwise the current thread waits until the
+         * write lock is released.
+         */
+        public void lock() {
+            StripedReadWriteLock l = lock;
+            ReadHolds rh = l.readHolds.get();
+            if (!l.tryReadFast(rh)) {
+                l.wlock.lock();
+                l.readWhileLocked(rh);
+            }
+        }
+
+        /**
+         * Acquires the read lock unless the current thread is
+         * {@linkplain Thread#interrupt interrupted}.
+         *
+         * @throws InterruptedException if the current thread is interrupted
+         */
+        public void lockInterruptibly() throws InterruptedException {
+            if (Thread.interrupted())
+                throw new InterruptedException();
+            StripedReadWriteLock l = lock;
+            ReadHolds rh = l.readHolds.get();
+            if (!l.tryReadFast(rh)) {
+                l.wlock.lockInterruptibly();
+                l.readWhileLocked(rh);
+            }
+        }
+
+        /**
+         * Acquires the read lock only if the write lock is not held
+         * by another thread at the time of invocation.
+         *
+         * @return {@code true} if the read lock was acquired
+         */
+        public boolean tryLock() {
+            StripedReadWriteLock l = lock;
+            ReadHolds rh = l.readHolds.get();
+            if (l.tryReadFast(rh))
+                return true;
+            if (!l.wlock.tryLock())
+                return false;
+            l.readWhileLocked(rh);
+            return true;
+        }
+
+        /**
+         * Acquires the read lock if the write lock is not held by
+         * another thread within the given waiting time and the
+         * current thread has not been {@linkplain Thread#interrupt
+         * interrupted}.
+         *
+         * @param timeout the time to wait for the read lock
+         * @param unit the time unit of the timeout argument
+         * @return {@code true} if the read lock was acquired
+         * @throws InterruptedException if the current thread is interrupted
+         * @throws NullPointerException if the time unit is null
+         */
+        public boolean tryLock(long timeout, TimeUnit unit)
+                throws InterruptedException {
+            if (Thread.interrupted())
+                throw new InterruptedException();
+            StripedReadWriteLock l = lock;
+            ReadHolds rh = l.readHolds.get();
+            if (l.tryReadFast(rh))
+                return true;
+            if (!l.wlock.tryLock(timeout, unit))
+                return false;
+            l.readWhileLocked(rh);
+            return true;
+        }
+
+        /**
+         * Attempts to release this lock.
+         *
+         * @throws IllegalMonitorStateException if the current thread
+         * does not hold this lock
+         */
+        public void unlock() {
+            lock.readUnlock();
+        }
+
+        /**
+         * Throws {@code UnsupportedOperationException} because
+         * {@code ReadLocks} do not support conditions.
+         *
+         * @throws UnsupportedOperationException always
+         */
+        public Condition newCondition() {
+            throw new UnsupportedOperationException();
+        }
+
+        /**
+         * Returns a string identifying this lock, as well as its lock state.
+         * The state, in brackets, includes the String {@code "Read locks ="}
+         * followed by the number of held read locks.
+         *
+         * @return a string identifying this lock, as well as its lock state
+         */
+        public String toString() {
+            return super.toString() +
+                "[Read locks = " + lock.getReadLockCount() + "]";
+        }
+    }
+
+    /**
+     * The lock returned by method {@link StripedReadWriteLock#writeLock}.
+     */
+    public static class WriteLock implements Lock {
+        private final StripedReadWriteLock lock;
+
+        /**
+         * Constructor for use by subclasses
+         *
+         * @param lock the outer lock object
+         * @throws NullPointerException if the lock is null
+         */
+        protected WriteLock(StripedReadWriteLock lock) {
+            if (lock == null)
+                throw new NullPointerException();
+            this.lock = lock;
+        }
+
+        /**
+         * Acquires the write lock.
+         *
+         * <p>Acquires the write lock if neither the read nor write
+         * lock are held by another thread and returns immediately,
+         * setting the write lock hold count to one.  If the current
+         * thread already holds the write lock then the hold count is
+         * incremented by one.  Otherwise the current thread waits for
+         * other writers, and then for readers to drain.
+         */
+        public void lock() {
+            StripedReadWriteLock l = lock;
+            l.wlock.lock();
+            if (l.wlock.getHoldCount() == 1) {
+                try {
+                    l.drain(false, 0L);
+                } catch (InterruptedException cannotHappen) {
+                }
+            }
+        }
+
+        /**
+         * Acquires the write lock unless the current thread is
+         * {@linkplain Thread#interrupt interrupted}.
+         *
+         * @throws InterruptedException if the current thread is interrupted
+         */
+        public void lockInterruptibly() throws InterruptedException {
+            StripedReadWriteLock l = lock;
+            l.wlock.lockInterruptibly();
+            if (l.wlock.getHoldCount() == 1)
+                l.drain(true, 0L);
+        }
+
+        /**
+         * Acquires the write lock only if it is not held by another
+         * thread and no thread holds the read lock at the time of
+         * invocation.
+         *
+         * @return {@code true} if the lock was free and was acquired
+         * by the current thread, or the write lock was already held
+         * by the current thread; and {@code false} otherwise.
+         */
+        public boolean tryLock() {
+            StripedReadWriteLock l = lock;
+            if (!l.wlock.tryLock())
+                return false;
+            if (l.wlock.getHoldCount() == 1) {
+                try {
+                    return l.drain(true, System.nanoTime() | 1L);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Acquires the write lock if it is not held by another thread
+         * and readers drain within the given waiting time, and the
+         * current thread has not been {@linkplain Thread#interrupt
+         * interrupted}.
+         *
+         * @param timeout the time to wait for the write lock
+         * @param unit the time unit of the timeout argument
+         * @return {@code true} if the lock was acquired
+         * @throws InterruptedException if the current thread is interrupted
+         * @throws NullPointerException if the time unit is null
+         */
+        public boolean tryLock(long timeout, TimeUnit unit)
+                throws InterruptedException {
+            long nanos = unit.toNanos(timeout);
+            long deadline = (System.nanoTime() + nanos) | 1L;
+            StripedReadWriteLock l = lock;
+            if (!l.wlock.tryLock(timeout, unit))
+                return false;
+            if (l.wlock.getHoldCount() == 1)
+                return l.drain(true, deadline);
+            return true;
+        }
+
+        /**
+         * Attempts to release this lock.  If the hold count becomes
+         * zero, the lock is released and readers may proceed.
+         *
+         * @throws IllegalMonitorStateException if the current thread
+         * does not hold this lock
+         */
+        public void unlock() {
+            StripedReadWriteLock l = lock;
+            l.beforeWriteRelease(false);
+            l.wlock.unlock();
+        }
+
+        /**
+         * Returns a {@link Condition} instance for use with this
+         * {@link Lock} instance, with the same properties as those of
+         * {@link ReentrantLock#newCondition}.  While waiting, the
+         * write lock is released and readers may proceed; upon
+         * return, the write lock has been reacquired, and readers
+         * drained.
+         *
+         * @return the Condition object
+         */
+        public Condition newCondition() {
+            return new WriteCondition(lock);
+        }
+
+        /**
+         * Queries if this write lock is held by the current thread.
+         *
+         * @return {@code true} if the current thread holds this lock and
+         *         {@code false} otherwise
+         */
+        public boolean isHeldByCurrentThread() {
+            StripedReadWriteLock l = lock;
+            return l.wlock.isHeldByCurrentThread() && l.writer;
+        }
+
+        /**
+         * Queries the number of holds on this write lock by the current
+         * thread.
+         *
+         * @return the number of holds on this lock by the current thread,
+         *         or zero if this lock is not held by the current thread
+         */
+        public int getHoldCount() {
+            return isHeldByCurrentThread() ? lock.wlock.getHoldCount() : 0;
+        }
+
+        /**
+         * Returns a string identifying this lock, as well as its lock
+         * state.  The state, in brackets, includes either the String
+         * {@code "Unlocked"} or the String {@code "Locked"}.
+         *
+         * @return a string identifying this lock, as well as its lock state
+         */
+        public String toString() {
+            return super.toString() + (lock.isWriteLocked() ?
+                                       "[Locked]" : "[Unlocked]");
+        }
+    }
+
+    /**
+     * Condition for the write lock, wrapping a condition of wlock to
+     * clear writer while waiting.
+     */
+    static final class WriteCondition implements Condition {
+        final StripedReadWriteLock lock;
+        final Condition cond;
+
+        WriteCondition(StripedReadWriteLock lock) {
+            this.lock = lock;
+            this.cond = lock.wlock.newCondition();
+        }
+
+        /** Reacquires writer status after wlock is reacquired */
+        private void afterWait() {
+            try {
+                lock.drain(false, 0L);
+            } catch (InterruptedException cannotHappen) {
+            }
+        }
+
+        public void await() throws InterruptedException {
+            lock.beforeWriteRelease(true);
+            try {
+                cond.await();
+            } finally {
+                afterWait();
+            }
+        }
+
+        public void awaitUninterruptibly() {
+            lock.beforeWriteRelease(true);
+            try {
+                cond.awaitUninterruptibly();
+            } finally {
+                afterWait();
+            }
+        }
+
+        public long awaitNanos(long nanosTimeout) throws InterruptedException {
+            lock.beforeWriteRelease(true);
+            try {
+                return cond.awaitNanos(nanosTimeout);
+            } finally {
+                afterWait();
+            }
+        }
+
+        public boolean await(long time, TimeUnit unit)
+                throws InterruptedException {
+            lock.beforeWriteRelease(true);
+            try {
+                return cond.await(time, unit);
+            } finally {
+                afterWait();
+            }
+        }
+
+        public boolean awaitUntil(Date deadline) throws InterruptedException {
+            lock.beforeWriteRelease(true);
+            try {
+                return cond.awaitUntil(deadline);
+            } finally {
+                afterWait();
+            }
+        }
+
+        public void signal() {
+            if (!lock.writeLock().isHeldByCurrentThread())
+                throw new IllegalMonitorStateException();
+            cond.signal();
+        }
+
+        public void signalAll() {
+            if (!lock.writeLock().isHeldByCurrentThread())
+                throw new IllegalMonitorStateException();
+            cond.signalAll();
+        }
+    }
+
+    // Instrumentation and status
+
+    /**
+     * Returns {@code true} if this lock has fairness set true.
+     *
+     * @return {@code true} if this lock has fairness set true
+     */
+    public final boolean isFair() {
+        return wlock.isFair();
+    }
+
+    /**
+     * Queries the number of read locks held for this lock, summed
+     * over all threads.  This method is designed for use in
+     * monitoring system state, not for synchronization control.
+     *
+     * @return the number of read locks held
+     */
+    public int getReadLockCount() {
+        int n = 0;
+        Cell[] cs = cells;
+        for (int i = 0; i < cs.length; ++i) {
+            Cell c = (Cell)U.getObjectVolatile(cs, ((long)i << ASHIFT) + ABASE);
+            if (c != null)
+                n += c.readers;
+        }
+        return (n < 0) ? 0 : n; // ignore transient undercounts
+    }
+
+    /**
+     * Queries the number of reentrant read holds on this lock by the
+     * current thread.
+     *
+     * @return the number of holds on the read lock by the current thread,
+     *         or zero if the read lock is not held by the current thread
+     */
+    public int getReadHoldCount() {
+        return readHolds.get().count;
+    }
+
+    /**
+     * Queries if the write lock is held by any thread.  This method
+     * is designed for use in monitoring system state, not for
+     * synchronization control.
+     *
+     * @return {@code true} if any thread holds the write lock and
+     *         {@code false} otherwise
+     */
+    public boolean isWriteLocked() {
+        return writer;
+    }
+
+    /**
+     * Queries if the write lock is held by the current thread.
+     *
+     * @return {@code true} if the current thread holds the write lock and
+     *         {@code false} otherwise
+     */
+    public boolean isWriteLockedByCurrentThread() {
+        return writerLock.isHeldByCurrentThread();
+    }
+
+    /**
+     * Queries the number of reentrant write holds on this lock by the
+     * current thread.
+     *
+     * @return the number of holds on the write lock by the current thread,
+     *         or zero if the write lock is not held by the current thread
+     */
+    public int getWriteHoldCount() {
+        return writerLock.getHoldCount();
+    }
+
+    /**
+     * Queries whether any threads are waiting to acquire the write
+     * lock, or waiting for a writer to release it.
+     *
+     * @return {@code true} if there may be other threads waiting
+     */
+    public final boolean hasQueuedThreads() {
+        return wlock.hasQueuedThreads();
+    }
+
+    /**
+     * Returns a string identifying this lock, as well as its lock state.
+     * The state, in brackets, includes the String {@code "Write locked ="}
+     * followed by whether the write lock is held, and the String
+     * {@code "Read locks ="} followed by the number of held read locks.
+     *
+     * @return a string identifying this lock, as well as its lock state
+     */
+    public String toString() {
+        return super.toString() +
+            "[Write locked = " + isWriteLocked() +
+            ", Read locks = " + getReadLockCount() + "]";
+    }
+
+    // Unsafe mechanics
+    private static final sun.misc.Unsafe U;
+    private static final long READERS;
+    private static final long ABASE;
+    private static final int ASHIFT;
+    static {
+        try {
+            U = sun.misc.Unsafe.getUnsafe();
+            READERS = U.objectFieldOffset
+                (Cell.class.getDeclaredField("readers"));
+            Class<?> ak = Cell[].class;
+            ABASE = U.arrayBaseOffset(ak);
+            int scale = U.arrayIndexScale(ak);
+            if ((scale & (scale - 1)) != 0)
+                throw new Error("data type scale not a power of two");
+            ASHIFT = 31 - Integer.numberOfLeadingZeros(scale);
+        } catch (Exception e) {
+            throw new Error(e);
+        }
+    }
+}
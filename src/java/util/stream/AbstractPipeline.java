@@ -24,8 +24,15 @@
  */
 package java.util.stream;
 
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
 import java.util.Objects;
 import java.util.Spliterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
 import java.util.function.IntFunction;
 import java.util.function.Supplier;
 
@@ -148,6 +155,18 @@ abstract class AbstractPipeline<E_IN, E_OUT, S extends BaseStream<E_OUT, S>>
      */
     private boolean parallel;
 
+    /**
+     * The pool in which parallel terminal operations are evaluated, or
+     * null for the common pool; only valid for the source stage.
+     */
+    private ForkJoinPool pool;
+
+    /**
+     * The account charged for evaluations, or null if none; only valid
+     * for the source stage.
+     */
+    private PipelineAccount account;
+
     /**
      * Constructor for the head of a stream pipeline.
      *
@@ -229,6 +248,12 @@ abstract class AbstractPipeline<E_IN, E_OUT, S extends BaseStream<E_OUT, S>>
             throw new IllegalStateException(MSG_STREAM_LINKED);
         linkedOrConsumed = true;
 
+        return isDirectEvaluation()
+               ? evaluateTerminal(terminalOp)
+               : evaluateInPool(() -> evaluateTerminal(terminalOp));
+    }
+
+    private <R> R evaluateTerminal(TerminalOp<E_OUT, R> terminalOp) {
         return isParallel()
                ? terminalOp.evaluateParallel(this, sourceSpliterator(terminalOp.getOpFlags()))
                : terminalOp.evaluateSequential(this, sourceSpliterator(terminalOp.getOpFlags()));
@@ -254,10 +279,119 @@ abstract class AbstractPipeline<E_IN, E_OUT, S extends BaseStream<E_OUT, S>>
             // upstream slice and upstream operations will not be included
             // in this slice
             depth = 0;
-            return opEvaluateParallel(previousStage, previousStage.sourceSpliterator(0), generator);
+            return isDirectEvaluation()
+                   ? opEvaluateParallel(previousStage, previousStage.sourceSpliterator(0), generator)
+                   : evaluateInPool(() -> opEvaluateParallel(previousStage, previousStage.sourceSpliterator(0), generator));
         }
         else {
-            return evaluate(sourceSpliterator(0), true, generator);
+            return isDirectEvaluation()
+                   ? evaluate(sourceSpliterator(0), true, generator)
+                   : evaluateInPool(() -> evaluate(sourceSpliterator(0), true, generator));
+        }
+    }
+
+    /**
+     * Returns true if the pipeline is neither charged to an account nor
+     * evaluated in a pool of its own, so that it may be evaluated
+     * directly, without {@link #evaluateInPool}.
+     */
+    private boolean isDirectEvaluation() {
+        AbstractPipeline<?, ?, ?> src = sourceStage;
+        return src.account == null && (!src.parallel || src.pool == null);
+    }
+
+    /**
+     * Performs an evaluation of the pipeline, charging it to the account
+     * of the pipeline, if any.  If the pipeline is parallel and bound to
+     * a pool, and the current thread is not a worker of that pool, the
+     * evaluation is performed in the pool, and this thread waits for it
+     * to complete.
+     *
+     * @param evaluation the evaluation
+     * @return the result of the evaluation
+     */
+    private <R> R evaluateInPool(Supplier<R> evaluation) {
+        AbstractPipeline<?, ?, ?> src = sourceStage;
+        PipelineAccount account = src.account;
+        if (account != null)
+            account.evaluated();
+        if (!src.parallel) {
+            if (account == null)
+                return evaluation.get();
+            long start = PipelineAccount.threadTime();
+            try {
+                return evaluation.get();
+            } finally {
+                account.recordSequential(start);
+            }
+        }
+        ForkJoinPool p = src.pool;
+        if (p == null || ForkJoinTask.getPool() == p)
+            return evaluation.get();
+        return p.invoke(new PoolEvaluation<>(evaluation));
+    }
+
+    /**
+     * Task running the evaluation of a pipeline bound to a pool, so that
+     * the tasks it forks are pushed to that pool.
+     */
+    @SuppressWarnings("serial")
+    private static final class PoolEvaluation<R> extends RecursiveTask<R> {
+        private final Supplier<R> evaluation;
+
+        PoolEvaluation(Supplier<R> evaluation) {
+            this.evaluation = evaluation;
+        }
+
+        @Override
+        protected R compute() {
+            return evaluation.get();
+        }
+    }
+
+    /**
+     * The pools shared by pipelines with a parallelism budget, created
+     * on first use, one per budget.  A budget equal to the parallelism of
+     * the common pool uses the common pool.  The other pools are held
+     * weakly: their workers are daemon threads that terminate when idle,
+     * after which a pool no pipeline refers to is reclaimed, and its entry
+     * expunged.
+     */
+    private static final class BudgetPools {
+        static final ConcurrentHashMap<Integer, PoolRef> pools =
+            new ConcurrentHashMap<>();
+        static final ReferenceQueue<ForkJoinPool> stale = new ReferenceQueue<>();
+
+        static final class PoolRef extends WeakReference<ForkJoinPool> {
+            final Integer parallelism;
+
+            PoolRef(ForkJoinPool pool, Integer parallelism) {
+                super(pool, stale);
+                this.parallelism = parallelism;
+            }
+        }
+
+        static ForkJoinPool forParallelism(int parallelism) {
+            if (parallelism <= 0)
+                throw new IllegalArgumentException();
+            if (parallelism == ForkJoinPool.getCommonPoolParallelism())
+                return ForkJoinPool.commonPool();
+            for (Reference<? extends ForkJoinPool> r; (r = stale.poll()) != null; )
+                pools.remove(((PoolRef) r).parallelism, r);
+            Integer key = parallelism;
+            for (;;) {
+                PoolRef ref = pools.get(key);
+                ForkJoinPool p;
+                if (ref != null && (p = ref.get()) != null)
+                    return p;
+                // A pool starts no threads until a task is submitted, so
+                // one created by a losing thread is simply dropped
+                p = new ForkJoinPool(parallelism);
+                PoolRef r = new PoolRef(p, key);
+                if ((ref == null) ? pools.putIfAbsent(key, r) == null
+                                  : pools.replace(key, ref, r))
+                    return p;
+            }
         }
     }
 
@@ -309,6 +443,28 @@ abstract class AbstractPipeline<E_IN, E_OUT, S extends BaseStream<E_OUT, S>>
     @SuppressWarnings("unchecked")
     public final S parallel() {
         sourceStage.parallel = true;
+        sourceStage.pool = null;
+        return (S) this;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public final S parallel(ForkJoinPool pool) {
+        Objects.requireNonNull(pool);
+        sourceStage.parallel = true;
+        sourceStage.pool = pool;
+        return (S) this;
+    }
+
+    @Override
+    public final S parallel(int parallelism) {
+        return parallel(BudgetPools.forParallelism(parallelism));
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public final S accountTo(PipelineAccount account) {
+        sourceStage.account = Objects.requireNonNull(account);
         return (S) this;
     }
 
@@ -461,6 +617,11 @@ abstract class AbstractPipeline<E_IN, E_OUT, S extends BaseStream<E_OUT, S>>
         return p.getOutputShape();
     }
 
+    @Override
+    final PipelineAccount getAccount() {
+        return sourceStage.account;
+    }
+
     @Override
     final <P_IN> long exactOutputSizeIfKnown(Spliterator<P_IN> spliterator) {
         return StreamOpFlag.SIZED.isKnown(getStreamAndOpFlags()) ? spliterator.getExactSizeIfKnown() : -1;
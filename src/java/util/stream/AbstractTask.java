@@ -27,6 +27,7 @@ package java.util.stream;
 import java.util.Spliterator;
 import java.util.concurrent.CountedCompleter;
 import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 
 /**
  * Abstract base class for most fork-join tasks used to implement stream ops.
@@ -181,10 +182,25 @@ abstract class AbstractTask<P_IN, P_OUT, R,
      * @return suggested target leaf size
      */
     public static long suggestTargetSize(long sizeEstimate) {
-        long est = sizeEstimate / LEAF_TARGET;
+        long est = sizeEstimate / leafTarget();
         return est > 0L ? est : 1L;
     }
 
+    /**
+     * Returns the target number of leaf tasks for the pool of the current
+     * thread: {@link #LEAF_TARGET} unless running in a pool other than
+     * the common pool, as for pipelines bound to a pool with
+     * {@link BaseStream#parallel(ForkJoinPool)}.
+     *
+     * @return the target number of leaf tasks
+     */
+    static int leafTarget() {
+        ForkJoinPool pool = ForkJoinTask.getPool();
+        return (pool == null || pool == ForkJoinPool.commonPool())
+               ? LEAF_TARGET
+               : pool.getParallelism() << 2;
+    }
+
     /**
      * Returns the targetSize, initializing it via the supplied
      * size estimate if not already initialized.
@@ -289,32 +305,39 @@ abstract class AbstractTask<P_IN, P_OUT, R,
      */
     @Override
     public void compute() {
-        Spliterator<P_IN> rs = spliterator, ls; // right, left spliterators
-        long sizeEstimate = rs.estimateSize();
-        long sizeThreshold = getTargetSize(sizeEstimate);
-        boolean forkRight = false;
-        @SuppressWarnings("unchecked") K task = (K) this;
-        while (sizeEstimate > sizeThreshold && (ls = rs.trySplit()) != null) {
-            K leftChild, rightChild, taskToFork;
-            task.leftChild  = leftChild = task.makeChild(ls);
-            task.rightChild = rightChild = task.makeChild(rs);
-            task.setPendingCount(1);
-            if (forkRight) {
-                forkRight = false;
-                rs = ls;
-                task = leftChild;
-                taskToFork = rightChild;
-            }
-            else {
-                forkRight = true;
-                task = rightChild;
-                taskToFork = leftChild;
+        PipelineAccount account = helper.getAccount();
+        long start = (account == null) ? 0L : PipelineAccount.threadTime();
+        try {
+            Spliterator<P_IN> rs = spliterator, ls; // right, left spliterators
+            long sizeEstimate = rs.estimateSize();
+            long sizeThreshold = getTargetSize(sizeEstimate);
+            boolean forkRight = false;
+            @SuppressWarnings("unchecked") K task = (K) this;
+            while (sizeEstimate > sizeThreshold && (ls = rs.trySplit()) != null) {
+                K leftChild, rightChild, taskToFork;
+                task.leftChild  = leftChild = task.makeChild(ls);
+                task.rightChild = rightChild = task.makeChild(rs);
+                task.setPendingCount(1);
+                if (forkRight) {
+                    forkRight = false;
+                    rs = ls;
+                    task = leftChild;
+                    taskToFork = rightChild;
+                }
+                else {
+                    forkRight = true;
+                    task = rightChild;
+                    taskToFork = leftChild;
+                }
+                taskToFork.fork();
+                sizeEstimate = rs.estimateSize();
             }
-            taskToFork.fork();
-            sizeEstimate = rs.estimateSize();
+            task.setLocalResult(task.doLeaf());
+            task.tryComplete();
+        } finally {
+            if (account != null)
+                account.record(start);
         }
-        task.setLocalResult(task.doLeaf());
-        task.tryComplete();
     }
 
     /**
@@ -29,8 +29,10 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.Collection;
 import java.util.Iterator;
+import java.util.Objects;
 import java.util.Spliterator;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
 import java.util.function.IntConsumer;
 import java.util.function.Predicate;
 
@@ -116,6 +118,103 @@ public interface BaseStream<T, S extends BaseStream<T, S>>
      */
     S parallel();
 
+    /**
+     * Returns an equivalent stream that is parallel, and whose terminal
+     * operation is evaluated by tasks of the specified pool rather than
+     * of the {@link ForkJoinPool#commonPool() common pool}.  The
+     * terminal operation may be invoked from any thread: if it is not a
+     * worker thread of the specified pool, the evaluation is submitted
+     * to the pool, and the invoking thread waits for its result.  The
+     * pipeline is split for the parallelism of the specified pool.
+     *
+     * <p>Binding a pipeline to its own pool isolates it from other
+     * parallel pipelines: a long-running pipeline bound to a pool of
+     * its own does not delay pipelines using the common pool, and vice
+     * versa.  A later call to {@link #parallel()} or to this method
+     * replaces the binding.
+     *
+     * <p>This is an <a href="package-summary.html#StreamOps">intermediate
+     * operation</a>.
+     *
+     * @implSpec
+     * The default implementation checks {@code pool}, then returns
+     * {@link #parallel()}, without binding the stream to the pool.  The
+     * streams returned by the methods of the JDK bind their pipelines as
+     * specified.
+     *
+     * @param pool the pool in which to evaluate the terminal operation
+     * @return a parallel stream
+     * @throws NullPointerException if the pool is null
+     * @since 1.9
+     */
+    default S parallel(ForkJoinPool pool) {
+        Objects.requireNonNull(pool);
+        return parallel();
+    }
+
+    /**
+     * Returns an equivalent stream that is parallel, and whose terminal
+     * operation is evaluated with a parallelism of at most the specified
+     * budget.  If the budget is the parallelism of the
+     * {@link ForkJoinPool#commonPool() common pool}, the terminal operation
+     * is evaluated in the common pool, in which, as for {@link #parallel()},
+     * the invoking thread may also take part.  Otherwise the pool for the budget
+     * is created on first use and shared by all pipelines with the same
+     * budget; its threads are daemon threads, terminated when idle, and
+     * the pool is reclaimed once no pipeline refers to it.  In other
+     * respects, this method behaves as {@link #parallel(ForkJoinPool)}.
+     *
+     * <p>This is an <a href="package-summary.html#StreamOps">intermediate
+     * operation</a>.
+     *
+     * @implSpec
+     * The default implementation checks {@code parallelism}, then
+     * returns {@link #parallel()}, without bounding the parallelism.  The
+     * streams returned by the methods of the JDK bind their pipelines as
+     * specified.
+     *
+     * @param parallelism the maximum number of threads to evaluate the
+     *        terminal operation
+     * @return a parallel stream
+     * @throws IllegalArgumentException if {@code parallelism} is less
+     *         than or equal to zero, or greater than the maximum
+     *         parallelism of a {@code ForkJoinPool}
+     * @throws SecurityException if a pool must be created, and a security
+     *         manager denies it
+     * @since 1.9
+     */
+    default S parallel(int parallelism) {
+        if (parallelism <= 0)
+            throw new IllegalArgumentException();
+        return parallel();
+    }
+
+    /**
+     * Returns an equivalent stream whose evaluation is charged to the
+     * specified account.  The processing time consumed by evaluating the
+     * terminal operation of the pipeline, sequentially or in parallel,
+     * is added to the account, as described in {@link PipelineAccount}.
+     * A later call to this method replaces the account.
+     *
+     * <p>This is an <a href="package-summary.html#StreamOps">intermediate
+     * operation</a>.
+     *
+     * @implSpec
+     * The default implementation returns this stream, without
+     * accounting.  The streams returned by the methods of the JDK charge
+     * their pipelines as specified.
+     *
+     * @param account the account to be charged
+     * @return a stream charging its evaluation to the account
+     * @throws NullPointerException if the account is null
+     * @since 1.9
+     */
+    @SuppressWarnings("unchecked")
+    default S accountTo(PipelineAccount account) {
+        Objects.requireNonNull(account);
+        return (S) this;
+    }
+
     /**
      * Returns an equivalent stream that is
      * <a href="package-summary.html#Ordering">unordered</a>.  May return
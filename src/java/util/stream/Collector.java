@@ -31,6 +31,9 @@ import java.util.Set;
 import java.util.function.BiConsumer;
 import java.util.function.BinaryOperator;
 import java.util.function.Function;
+import java.util.function.ObjDoubleConsumer;
+import java.util.function.ObjIntConsumer;
+import java.util.function.ObjLongConsumer;
 import java.util.function.Supplier;
 
 /**
@@ -338,4 +341,322 @@ public interface Collector<T, A, R> {
          */
         IDENTITY_FINISH
     }
+
+    /**
+     * A {@code Collector} specialized for {@code int} values.  It
+     * accumulates values with an {@link #intAccumulator()} that accepts
+     * them unboxed, so that collecting an {@link IntStream} with
+     * {@link IntStream#collect(Collector.OfInt)}, or the values mapped from
+     * other elements with {@link Collectors#mappingToInt}, does not box
+     * them.  It may also collect a stream of {@code Integer} values, which
+     * are then unboxed.
+     *
+     * @param <A> the mutable accumulation type of the reduction operation
+     * @param <R> the result type of the reduction operation
+     * @see Collectors#toIntArray()
+     * @since 1.9
+     */
+    interface OfInt<A, R> extends Collector<Integer, A, R> {
+
+        /**
+         * A function that folds an {@code int} value into a mutable
+         * result container.
+         *
+         * @return a function which folds a value into a mutable result
+         * container
+         */
+        ObjIntConsumer<A> intAccumulator();
+
+        /**
+         * {@inheritDoc}
+         *
+         * @implSpec
+         * The default implementation returns a function that unboxes
+         * its argument and passes it to the function returned by
+         * {@link #intAccumulator()}.
+         */
+        @Override
+        default BiConsumer<A, Integer> accumulator() {
+            ObjIntConsumer<A> accumulator = intAccumulator();
+            return accumulator::accept;
+        }
+
+        /**
+         * Returns a new {@code Collector.OfInt} described by the given
+         * {@code supplier}, {@code accumulator}, and {@code combiner}
+         * functions.  The resulting {@code Collector} has the {@code
+         * Collector.Characteristics.IDENTITY_FINISH} characteristic.
+         *
+         * @param supplier The supplier function for the new collector
+         * @param accumulator The accumulator function for the new collector
+         * @param combiner The combiner function for the new collector
+         * @param characteristics The collector characteristics for the new
+         *                        collector
+         * @param <R> The type of intermediate accumulation result, and final
+         *           result, for the new collector
+         * @throws NullPointerException if any argument is null
+         * @return the new {@code Collector.OfInt}
+         */
+        public static <R> OfInt<R, R> of(Supplier<R> supplier,
+                                         ObjIntConsumer<R> accumulator,
+                                         BinaryOperator<R> combiner,
+                                         Characteristics... characteristics) {
+            Objects.requireNonNull(supplier);
+            Objects.requireNonNull(accumulator);
+            Objects.requireNonNull(combiner);
+            Objects.requireNonNull(characteristics);
+            Set<Characteristics> cs = (characteristics.length == 0)
+                                      ? Collectors.CH_ID
+                                      : Collections.unmodifiableSet(EnumSet.of(Collector.Characteristics.IDENTITY_FINISH,
+                                                                               characteristics));
+            return new Collectors.IntCollectorImpl<>(supplier, accumulator, combiner, cs);
+        }
+
+        /**
+         * Returns a new {@code Collector.OfInt} described by the given
+         * {@code supplier}, {@code accumulator}, {@code combiner}, and
+         * {@code finisher} functions.
+         *
+         * @param supplier The supplier function for the new collector
+         * @param accumulator The accumulator function for the new collector
+         * @param combiner The combiner function for the new collector
+         * @param finisher The finisher function for the new collector
+         * @param characteristics The collector characteristics for the new
+         *                        collector
+         * @param <A> The intermediate accumulation type of the new collector
+         * @param <R> The final result type of the new collector
+         * @throws NullPointerException if any argument is null
+         * @return the new {@code Collector.OfInt}
+         */
+        public static <A, R> OfInt<A, R> of(Supplier<A> supplier,
+                                            ObjIntConsumer<A> accumulator,
+                                            BinaryOperator<A> combiner,
+                                            Function<A, R> finisher,
+                                            Characteristics... characteristics) {
+            Objects.requireNonNull(supplier);
+            Objects.requireNonNull(accumulator);
+            Objects.requireNonNull(combiner);
+            Objects.requireNonNull(finisher);
+            Objects.requireNonNull(characteristics);
+            Set<Characteristics> cs = Collectors.CH_NOID;
+            if (characteristics.length > 0) {
+                cs = EnumSet.noneOf(Characteristics.class);
+                Collections.addAll(cs, characteristics);
+                cs = Collections.unmodifiableSet(cs);
+            }
+            return new Collectors.IntCollectorImpl<>(supplier, accumulator, combiner, finisher, cs);
+        }
+    }
+
+    /**
+     * A {@code Collector} specialized for {@code long} values.  It
+     * accumulates values with an {@link #longAccumulator()} that accepts
+     * them unboxed, so that collecting an {@link LongStream} with
+     * {@link LongStream#collect(Collector.OfLong)}, or the values mapped from
+     * other elements with {@link Collectors#mappingToLong}, does not box
+     * them.  It may also collect a stream of {@code Long} values, which
+     * are then unboxed.
+     *
+     * @param <A> the mutable accumulation type of the reduction operation
+     * @param <R> the result type of the reduction operation
+     * @see Collectors#toLongArray()
+     * @since 1.9
+     */
+    interface OfLong<A, R> extends Collector<Long, A, R> {
+
+        /**
+         * A function that folds a {@code long} value into a mutable
+         * result container.
+         *
+         * @return a function which folds a value into a mutable result
+         * container
+         */
+        ObjLongConsumer<A> longAccumulator();
+
+        /**
+         * {@inheritDoc}
+         *
+         * @implSpec
+         * The default implementation returns a function that unboxes
+         * its argument and passes it to the function returned by
+         * {@link #longAccumulator()}.
+         */
+        @Override
+        default BiConsumer<A, Long> accumulator() {
+            ObjLongConsumer<A> accumulator = longAccumulator();
+            return accumulator::accept;
+        }
+
+        /**
+         * Returns a new {@code Collector.OfLong} described by the given
+         * {@code supplier}, {@code accumulator}, and {@code combiner}
+         * functions.  The resulting {@code Collector} has the {@code
+         * Collector.Characteristics.IDENTITY_FINISH} characteristic.
+         *
+         * @param supplier The supplier function for the new collector
+         * @param accumulator The accumulator function for the new collector
+         * @param combiner The combiner function for the new collector
+         * @param characteristics The collector characteristics for the new
+         *                        collector
+         * @param <R> The type of intermediate accumulation result, and final
+         *           result, for the new collector
+         * @throws NullPointerException if any argument is null
+         * @return the new {@code Collector.OfLong}
+         */
+        public static <R> OfLong<R, R> of(Supplier<R> supplier,
+                                          ObjLongConsumer<R> accumulator,
+                                          BinaryOperator<R> combiner,
+                                          Characteristics... characteristics) {
+            Objects.requireNonNull(supplier);
+            Objects.requireNonNull(accumulator);
+            Objects.requireNonNull(combiner);
+            Objects.requireNonNull(characteristics);
+            Set<Characteristics> cs = (characteristics.length == 0)
+                                      ? Collectors.CH_ID
+                                      : Collections.unmodifiableSet(EnumSet.of(Collector.Characteristics.IDENTITY_FINISH,
+                                                                               characteristics));
+            return new Collectors.LongCollectorImpl<>(supplier, accumulator, combiner, cs);
+        }
+
+        /**
+         * Returns a new {@code Collector.OfLong} described by the given
+         * {@code supplier}, {@code accumulator}, {@code combiner}, and
+         * {@code finisher} functions.
+         *
+         * @param supplier The supplier function for the new collector
+         * @param accumulator The accumulator function for the new collector
+         * @param combiner The combiner function for the new collector
+         * @param finisher The finisher function for the new collector
+         * @param characteristics The collector characteristics for the new
+         *                        collector
+         * @param <A> The intermediate accumulation type of the new collector
+         * @param <R> The final result type of the new collector
+         * @throws NullPointerException if any argument is null
+         * @return the new {@code Collector.OfLong}
+         */
+        public static <A, R> OfLong<A, R> of(Supplier<A> supplier,
+                                             ObjLongConsumer<A> accumulator,
+                                             BinaryOperator<A> combiner,
+                                             Function<A, R> finisher,
+                                             Characteristics... characteristics) {
+            Objects.requireNonNull(supplier);
+            Objects.requireNonNull(accumulator);
+            Objects.requireNonNull(combiner);
+            Objects.requireNonNull(finisher);
+            Objects.requireNonNull(characteristics);
+            Set<Characteristics> cs = Collectors.CH_NOID;
+            if (characteristics.length > 0) {
+                cs = EnumSet.noneOf(Characteristics.class);
+                Collections.addAll(cs, characteristics);
+                cs = Collections.unmodifiableSet(cs);
+            }
+            return new Collectors.LongCollectorImpl<>(supplier, accumulator, combiner, finisher, cs);
+        }
+    }
+
+    /**
+     * A {@code Collector} specialized for {@code double} values.  It
+     * accumulates values with an {@link #doubleAccumulator()} that accepts
+     * them unboxed, so that collecting an {@link DoubleStream} with
+     * {@link DoubleStream#collect(Collector.OfDouble)}, or the values mapped from
+     * other elements with {@link Collectors#mappingToDouble}, does not box
+     * them.  It may also collect a stream of {@code Double} values, which
+     * are then unboxed.
+     *
+     * @param <A> the mutable accumulation type of the reduction operation
+     * @param <R> the result type of the reduction operation
+     * @see Collectors#toDoubleArray()
+     * @since 1.9
+     */
+    interface OfDouble<A, R> extends Collector<Double, A, R> {
+
+        /**
+         * A function that folds a {@code double} value into a mutable
+         * result container.
+         *
+         * @return a function which folds a value into a mutable result
+         * container
+         */
+        ObjDoubleConsumer<A> doubleAccumulator();
+
+        /**
+         * {@inheritDoc}
+         *
+         * @implSpec
+         * The default implementation returns a function that unboxes
+         * its argument and passes it to the function returned by
+         * {@link #doubleAccumulator()}.
+         */
+        @Override
+        default BiConsumer<A, Double> accumulator() {
+            ObjDoubleConsumer<A> accumulator = doubleAccumulator();
+            return accumulator::accept;
+        }
+
+        /**
+         * Returns a new {@code Collector.OfDouble} described by the given
+         * {@code supplier}, {@code accumulator}, and {@code combiner}
+         * functions.  The resulting {@code Collector} has the {@code
+         * Collector.Characteristics.IDENTITY_FINISH} characteristic.
+         *
+         * @param supplier The supplier function for the new collector
+         * @param accumulator The accumulator function for the new collector
+         * @param combiner The combiner function for the new collector
+         * @param characteristics The collector characteristics for the new
+         *                        collector
+         * @param <R> The type of intermediate accumulation result, and final
+         *           result, for the new collector
+         * @throws NullPointerException if any argument is null
+         * @return the new {@code Collector.OfDouble}
+         */
+        public static <R> OfDouble<R, R> of(Supplier<R> supplier,
+                                            ObjDoubleConsumer<R> accumulator,
+                                            BinaryOperator<R> combiner,
+                                            Characteristics... characteristics) {
+            Objects.requireNonNull(supplier);
+            Objects.requireNonNull(accumulator);
+            Objects.requireNonNull(combiner);
+            Objects.requireNonNull(characteristics);
+            Set<Characteristics> cs = (characteristics.length == 0)
+                                      ? Collectors.CH_ID
+                                      : Collections.unmodifiableSet(EnumSet.of(Collector.Characteristics.IDENTITY_FINISH,
+                                                                               characteristics));
+            return new Collectors.DoubleCollectorImpl<>(supplier, accumulator, combiner, cs);
+        }
+
+        /**
+         * Returns a new {@code Collector.OfDouble} described by the given
+         * {@code supplier}, {@code accumulator}, {@code combiner}, and
+         * {@code finisher} functions.
+         *
+         * @param supplier The supplier function for the new collector
+         * @param accumulator The accumulator function for the new collector
+         * @param combiner The combiner function for the new collector
+         * @param finisher The finisher function for the new collector
+         * @param characteristics The collector characteristics for the new
+         *                        collector
+         * @param <A> The intermediate accumulation type of the new collector
+         * @param <R> The final result type of the new collector
+         * @throws NullPointerException if any argument is null
+         * @return the new {@code Collector.OfDouble}
+         */
+        public static <A, R> OfDouble<A, R> of(Supplier<A> supplier,
+                                               ObjDoubleConsumer<A> accumulator,
+                                               BinaryOperator<A> combiner,
+                                               Function<A, R> finisher,
+                                               Characteristics... characteristics) {
+            Objects.requireNonNull(supplier);
+            Objects.requireNonNull(accumulator);
+            Objects.requireNonNull(combiner);
+            Objects.requireNonNull(finisher);
+            Objects.requireNonNull(characteristics);
+            Set<Characteristics> cs = Collectors.CH_NOID;
+            if (characteristics.length > 0) {
+                cs = EnumSet.noneOf(Characteristics.class);
+                Collections.addAll(cs, characteristics);
+                cs = Collections.unmodifiableSet(cs);
+            }
+            return new Collectors.DoubleCollectorImpl<>(supplier, accumulator, combiner, finisher, cs);
+        }
+    }
 }
@@ -31,13 +31,18 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.DoubleArrayList;
 import java.util.DoubleSummaryStatistics;
 import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IntArrayList;
+import java.util.IntIntHashMap;
 import java.util.IntSummaryStatistics;
 import java.util.Iterator;
 import java.util.List;
+import java.util.LongArrayList;
+import java.util.LongLongHashMap;
 import java.util.LongSummaryStatistics;
 import java.util.Map;
 import java.util.Objects;
@@ -46,11 +51,15 @@ import java.util.Set;
 import java.util.StringJoiner;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.function.BiConsumer;
 import java.util.function.BiFunction;
 import java.util.function.BinaryOperator;
 import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.function.ObjDoubleConsumer;
+import java.util.function.ObjIntConsumer;
+import java.util.function.ObjLongConsumer;
 import java.util.function.Predicate;
 import java.util.function.Supplier;
 import java.util.function.ToDoubleFunction;
@@ -196,6 +205,102 @@ public final class Collectors {
         }
     }
 
+    /**
+     * Simple implementation class for {@code Collector.OfInt}.
+     *
+     * @param <A> the mutable accumulation type
+     * @param <R> the type of the result
+     */
+    static final class IntCollectorImpl<A, R> extends CollectorImpl<Integer, A, R>
+            implements Collector.OfInt<A, R> {
+        private final ObjIntConsumer<A> intAccumulator;
+
+        IntCollectorImpl(Supplier<A> supplier,
+                         ObjIntConsumer<A> accumulator,
+                         BinaryOperator<A> combiner,
+                         Function<A,R> finisher,
+                         Set<Characteristics> characteristics) {
+            super(supplier, accumulator::accept, combiner, finisher, characteristics);
+            this.intAccumulator = accumulator;
+        }
+
+        IntCollectorImpl(Supplier<A> supplier,
+                         ObjIntConsumer<A> accumulator,
+                         BinaryOperator<A> combiner,
+                         Set<Characteristics> characteristics) {
+            this(supplier, accumulator, combiner, castingIdentity(), characteristics);
+        }
+
+        @Override
+        public ObjIntConsumer<A> intAccumulator() {
+            return intAccumulator;
+        }
+    }
+
+    /**
+     * Simple implementation class for {@code Collector.OfLong}.
+     *
+     * @param <A> the mutable accumulation type
+     * @param <R> the type of the result
+     */
+    static final class LongCollectorImpl<A, R> extends CollectorImpl<Long, A, R>
+            implements Collector.OfLong<A, R> {
+        private final ObjLongConsumer<A> longAccumulator;
+
+        LongCollectorImpl(Supplier<A> supplier,
+                          ObjLongConsumer<A> accumulator,
+                          BinaryOperator<A> combiner,
+                          Function<A,R> finisher,
+                          Set<Characteristics> characteristics) {
+            super(supplier, accumulator::accept, combiner, finisher, characteristics);
+            this.longAccumulator = accumulator;
+        }
+
+        LongCollectorImpl(Supplier<A> supplier,
+                          ObjLongConsumer<A> accumulator,
+                          BinaryOperator<A> combiner,
+                          Set<Characteristics> characteristics) {
+            this(supplier, accumulator, combiner, castingIdentity(), characteristics);
+        }
+
+        @Override
+        public ObjLongConsumer<A> longAccumulator() {
+            return longAccumulator;
+        }
+    }
+
+    /**
+     * Simple implementation class for {@code Collector.OfDouble}.
+     *
+     * @param <A> the mutable accumulation type
+     * @param <R> the type of the result
+     */
+    static final class DoubleCollectorImpl<A, R> extends CollectorImpl<Double, A, R>
+            implements Collector.OfDouble<A, R> {
+        private final ObjDoubleConsumer<A> doubleAccumulator;
+
+        DoubleCollectorImpl(Supplier<A> supplier,
+                            ObjDoubleConsumer<A> accumulator,
+                            BinaryOperator<A> combiner,
+                            Function<A,R> finisher,
+                            Set<Characteristics> characteristics) {
+            super(supplier, accumulator::accept, combiner, finisher, characteristics);
+            this.doubleAccumulator = accumulator;
+        }
+
+        DoubleCollectorImpl(Supplier<A> supplier,
+                            ObjDoubleConsumer<A> accumulator,
+                            BinaryOperator<A> combiner,
+                            Set<Characteristics> characteristics) {
+            this(supplier, accumulator, combiner, castingIdentity(), characteristics);
+        }
+
+        @Override
+        public ObjDoubleConsumer<A> doubleAccumulator() {
+            return doubleAccumulator;
+        }
+    }
+
     /**
      * Returns a {@code Collector} that accumulates the input elements into a
      * new {@code Collection}, in encounter order.  The {@code Collection} is
@@ -357,6 +462,111 @@ public final class Collectors {
                                    downstream.characteristics());
     }
 
+    /**
+     * Adapts a {@code Collector.OfInt} to a {@code Collector} accepting
+     * elements of type {@code T} by applying a {@code int}-valued mapping
+     * function to each input element before accumulation.  Unlike {@link
+     * #mapping(Function, Collector) mapping}, the mapped values are not boxed.
+     *
+     * @apiNote
+     * For example, given a stream of
+     * {@code Person}, to collect the ages of the people in each city into an
+     * array:
+     * <pre>{@code
+     *     Map<City, int[]> agesByCity
+     *         = people.stream().collect(groupingBy(Person::getCity,
+     *                                              mappingToInt(Person::getAge, toIntArray())));
+     * }</pre>
+     *
+     * @param <T> the type of the input elements
+     * @param <A> intermediate accumulation type of the downstream collector
+     * @param <R> result type of collector
+     * @param mapper a function to be applied to the input elements
+     * @param downstream a collector which will accept mapped values
+     * @return a collector which applies the mapping function to the input
+     * elements and provides the mapped results to the downstream collector
+     * @since 1.9
+     */
+    public static <T, A, R>
+    Collector<T, ?, R> mappingToInt(ToIntFunction<? super T> mapper,
+                                      Collector.OfInt<A, R> downstream) {
+        ObjIntConsumer<A> downstreamAccumulator = downstream.intAccumulator();
+        return new CollectorImpl<>(downstream.supplier(),
+                                   (r, t) -> downstreamAccumulator.accept(r, mapper.applyAsInt(t)),
+                                   downstream.combiner(), downstream.finisher(),
+                                   downstream.characteristics());
+    }
+
+    /**
+     * Adapts a {@code Collector.OfLong} to a {@code Collector} accepting
+     * elements of type {@code T} by applying a {@code long}-valued mapping
+     * function to each input element before accumulation.  Unlike {@link
+     * #mapping(Function, Collector) mapping}, the mapped values are not boxed.
+     *
+     * @apiNote
+     * For example, given a stream of
+     * {@code Order}, to collect the identifiers of the orders of each customer
+     * into a list:
+     * <pre>{@code
+     *     Map<Customer, LongArrayList> orderIdsByCustomer
+     *         = orders.stream().collect(groupingBy(Order::getCustomer,
+     *                                              mappingToLong(Order::getId, toLongList())));
+     * }</pre>
+     *
+     * @param <T> the type of the input elements
+     * @param <A> intermediate accumulation type of the downstream collector
+     * @param <R> result type of collector
+     * @param mapper a function to be applied to the input elements
+     * @param downstream a collector which will accept mapped values
+     * @return a collector which applies the mapping function to the input
+     * elements and provides the mapped results to the downstream collector
+     * @since 1.9
+     */
+    public static <T, A, R>
+    Collector<T, ?, R> mappingToLong(ToLongFunction<? super T> mapper,
+                                       Collector.OfLong<A, R> downstream) {
+        ObjLongConsumer<A> downstreamAccumulator = downstream.longAccumulator();
+        return new CollectorImpl<>(downstream.supplier(),
+                                   (r, t) -> downstreamAccumulator.accept(r, mapper.applyAsLong(t)),
+                                   downstream.combiner(), downstream.finisher(),
+                                   downstream.characteristics());
+    }
+
+    /**
+     * Adapts a {@code Collector.OfDouble} to a {@code Collector} accepting
+     * elements of type {@code T} by applying a {@code double}-valued mapping
+     * function to each input element before accumulation.  Unlike {@link
+     * #mapping(Function, Collector) mapping}, the mapped values are not boxed.
+     *
+     * @apiNote
+     * For example, given a stream of
+     * {@code Trade}, to collect the prices of the trades of each instrument
+     * into an array:
+     * <pre>{@code
+     *     Map<Instrument, double[]> pricesByInstrument
+     *         = trades.stream().collect(groupingBy(Trade::getInstrument,
+     *                                              mappingToDouble(Trade::getPrice, toDoubleArray())));
+     * }</pre>
+     *
+     * @param <T> the type of the input elements
+     * @param <A> intermediate accumulation type of the downstream collector
+     * @param <R> result type of collector
+     * @param mapper a function to be applied to the input elements
+     * @param downstream a collector which will accept mapped values
+     * @return a collector which applies the mapping function to the input
+     * elements and provides the mapped results to the downstream collector
+     * @since 1.9
+     */
+    public static <T, A, R>
+    Collector<T, ?, R> mappingToDouble(ToDoubleFunction<? super T> mapper,
+                                         Collector.OfDouble<A, R> downstream) {
+        ObjDoubleConsumer<A> downstreamAccumulator = downstream.doubleAccumulator();
+        return new CollectorImpl<>(downstream.supplier(),
+                                   (r, t) -> downstreamAccumulator.accept(r, mapper.applyAsDouble(t)),
+                                   downstream.combiner(), downstream.finisher(),
+                                   downstream.characteristics());
+    }
+
     /**
      * Adapts a {@code Collector} to perform an additional finishing
      * transformation.  For example, one could adapt the {@link #toList()}
@@ -410,7 +620,7 @@ public final class Collectors {
      */
     public static <T> Collector<T, ?, Long>
     counting() {
-        return reducing(0L, e -> 1L, Long::sum);
+        return summingLong(e -> 1L);
     }
 
     /**
@@ -1091,6 +1301,111 @@ public final class Collectors {
         }
     }
 
+    /**
+     * Returns a concurrent {@code Collector} implementing a "group by"
+     * operation on input elements of type {@code T}, counting the elements
+     * of each group.
+     *
+     * <p>The result is the same as that of
+     * {@code groupingByConcurrent(classifier, counting())}, but the count of
+     * each key is a {@link LongAdder} while elements are accumulated, so that
+     * threads counting elements with the same key do not contend on a lock,
+     * and counts are only boxed once per key, when the result is produced.
+     *
+     * <p>This is a {@link Collector.Characteristics#CONCURRENT concurrent} and
+     * {@link Collector.Characteristics#UNORDERED unordered} Collector.
+     *
+     * @param <T> the type of the input elements
+     * @param <K> the type of the keys
+     * @param classifier a classifier function mapping input elements to keys
+     * @return a concurrent, unordered {@code Collector} counting the elements
+     * of each group
+     *
+     * @see #groupingByConcurrent(Function, Collector)
+     * @see #groupingByConcurrentSumming(Function, ToLongFunction)
+     * @since 1.9
+     */
+    public static <T, K>
+    Collector<T, ?, ConcurrentMap<K, Long>> groupingByConcurrentCounting(Function<? super T, ? extends K> classifier) {
+        Objects.requireNonNull(classifier);
+        BiConsumer<ConcurrentMap<K, LongAdder>, T> accumulator = (m, t) -> {
+            K key = Objects.requireNonNull(classifier.apply(t), "element cannot be mapped to a null key");
+            LongAdder cell = m.get(key);
+            if (cell == null)
+                cell = m.computeIfAbsent(key, k -> new LongAdder());
+            cell.increment();
+        };
+        return new CollectorImpl<>(ConcurrentHashMap::new, accumulator,
+                                   Collectors::mergeCells, Collectors::sumCells,
+                                   CH_CONCURRENT_NOID);
+    }
+
+    /**
+     * Returns a concurrent {@code Collector} implementing a "group by"
+     * operation on input elements of type {@code T}, summing a long-valued
+     * function applied to the elements of each group.
+     *
+     * <p>The result is the same as that of
+     * {@code groupingByConcurrent(classifier, summingLong(mapper))}, but the
+     * sum of each key is a {@link LongAdder} while elements are accumulated,
+     * so that threads adding values with the same key do not contend on a
+     * lock, and sums are only boxed once per key, when the result is
+     * produced.
+     *
+     * <p>This is a {@link Collector.Characteristics#CONCURRENT concurrent} and
+     * {@link Collector.Characteristics#UNORDERED unordered} Collector.
+     *
+     * @param <T> the type of the input elements
+     * @param <K> the type of the keys
+     * @param classifier a classifier function mapping input elements to keys
+     * @param mapper a function extracting the property to be summed
+     * @return a concurrent, unordered {@code Collector} summing the property
+     * over the elements of each group
+     *
+     * @see #groupingByConcurrent(Function, Collector)
+     * @see #groupingByConcurrentCounting(Function)
+     * @since 1.9
+     */
+    public static <T, K>
+    Collector<T, ?, ConcurrentMap<K, Long>> groupingByConcurrentSumming(Function<? super T, ? extends K> classifier,
+                                                                        ToLongFunction<? super T> mapper) {
+        Objects.requireNonNull(classifier);
+        Objects.requireNonNull(mapper);
+        BiConsumer<ConcurrentMap<K, LongAdder>, T> accumulator = (m, t) -> {
+            K key = Objects.requireNonNull(classifier.apply(t), "element cannot be mapped to a null key");
+            LongAdder cell = m.get(key);
+            if (cell == null)
+                cell = m.computeIfAbsent(key, k -> new LongAdder());
+            cell.add(mapper.applyAsLong(t));
+        };
+        return new CollectorImpl<>(ConcurrentHashMap::new, accumulator,
+                                   Collectors::mergeCells, Collectors::sumCells,
+                                   CH_CONCURRENT_NOID);
+    }
+
+    /**
+     * Adds the cells of the right map to those of the left one.
+     */
+    private static <K> ConcurrentMap<K, LongAdder> mergeCells(ConcurrentMap<K, LongAdder> left,
+                                                              ConcurrentMap<K, LongAdder> right) {
+        for (Map.Entry<K, LongAdder> e : right.entrySet()) {
+            LongAdder cell = left.putIfAbsent(e.getKey(), e.getValue());
+            if (cell != null)
+                cell.add(e.getValue().sum());
+        }
+        return left;
+    }
+
+    /**
+     * Replaces the cells of the map by their sums, in place.
+     */
+    @SuppressWarnings("unchecked")
+    private static <K> ConcurrentMap<K, Long> sumCells(ConcurrentMap<K, LongAdder> cells) {
+        ConcurrentMap<K, Object> m = (ConcurrentMap<K, Object>) (ConcurrentMap<K, ?>) cells;
+        m.replaceAll((k, v) -> ((LongAdder) v).sum());
+        return (ConcurrentMap<K, Long>) (ConcurrentMap<K, ?>) m;
+    }
+
     /**
      * Returns a {@code Collector} which partitions the input elements according
      * to a {@code Predicate}, and organizes them into a
@@ -1534,6 +1849,217 @@ public final class Collectors {
                 (l, r) -> { l.combine(r); return l; }, CH_ID);
     }
 
+    /**
+     * Returns a {@code Collector.OfInt} that accumulates the input values
+     * into a new {@code int[]} array, in encounter order.
+     *
+     * <p>Values are accumulated unboxed, into {@link IntArrayList}s that
+     * are concatenated in parallel evaluations, and copied once into the
+     * resulting array.  When collecting a whole {@link IntStream},
+     * {@link IntStream#toArray()} is more efficient; this collector is
+     * intended as a downstream collector, as with {@link #mappingToInt}.
+     *
+     * @return a {@code Collector.OfInt} which collects all the input values
+     * into an array, in encounter order
+     * @since 1.9
+     */
+    public static Collector.OfInt<?, int[]> toIntArray() {
+        return new IntCollectorImpl<IntArrayList, int[]>(
+                IntArrayList::new, IntArrayList::add,
+                (left, right) -> { left.addAll(right); return left; },
+                IntArrayList::toArray, CH_NOID);
+    }
+
+    /**
+     * Returns a {@code Collector.OfInt} that accumulates the input values
+     * into a new {@link IntArrayList}, in encounter order.  Unlike collecting
+     * a {@link IntStream#boxed() boxed} stream with {@link #toList()}, the
+     * values are not boxed.
+     *
+     * @return a {@code Collector.OfInt} which collects all the input values
+     * into a {@code IntArrayList}, in encounter order
+     * @since 1.9
+     */
+    public static Collector.OfInt<?, IntArrayList> toIntList() {
+        return new IntCollectorImpl<IntArrayList, IntArrayList>(
+                IntArrayList::new, IntArrayList::add,
+                (left, right) -> { left.addAll(right); return left; },
+                CH_ID);
+    }
+
+    /**
+     * Returns a {@code Collector.OfLong} that accumulates the input values
+     * into a new {@code long[]} array, in encounter order.
+     *
+     * <p>Values are accumulated unboxed, into {@link LongArrayList}s that
+     * are concatenated in parallel evaluations, and copied once into the
+     * resulting array.  When collecting a whole {@link LongStream},
+     * {@link LongStream#toArray()} is more efficient; this collector is
+     * intended as a downstream collector, as with {@link #mappingToLong}.
+     *
+     * @return a {@code Collector.OfLong} which collects all the input values
+     * into an array, in encounter order
+     * @since 1.9
+     */
+    public static Collector.OfLong<?, long[]> toLongArray() {
+        return new LongCollectorImpl<LongArrayList, long[]>(
+                LongArrayList::new, LongArrayList::add,
+                (left, right) -> { left.addAll(right); return left; },
+                LongArrayList::toArray, CH_NOID);
+    }
+
+    /**
+     * Returns a {@code Collector.OfLong} that accumulates the input values
+     * into a new {@link LongArrayList}, in encounter order.  Unlike collecting
+     * a {@link LongStream#boxed() boxed} stream with {@link #toList()}, the
+     * values are not boxed.
+     *
+     * @return a {@code Collector.OfLong} which collects all the input values
+     * into a {@code LongArrayList}, in encounter order
+     * @since 1.9
+     */
+    public static Collector.OfLong<?, LongArrayList> toLongList() {
+        return new LongCollectorImpl<LongArrayList, LongArrayList>(
+                LongArrayList::new, LongArrayList::add,
+                (left, right) -> { left.addAll(right); return left; },
+                CH_ID);
+    }
+
+    /**
+     * Returns a {@code Collector.OfDouble} that accumulates the input values
+     * into a new {@code double[]} array, in encounter order.
+     *
+     * <p>Values are accumulated unboxed, into {@link DoubleArrayList}s that
+     * are concatenated in parallel evaluations, and copied once into the
+     * resulting array.  When collecting a whole {@link DoubleStream},
+     * {@link DoubleStream#toArray()} is more efficient; this collector is
+     * intended as a downstream collector, as with {@link #mappingToDouble}.
+     *
+     * @return a {@code Collector.OfDouble} which collects all the input values
+     * into an array, in encounter order
+     * @since 1.9
+     */
+    public static Collector.OfDouble<?, double[]> toDoubleArray() {
+        return new DoubleCollectorImpl<DoubleArrayList, double[]>(
+                DoubleArrayList::new, DoubleArrayList::add,
+                (left, right) -> { left.addAll(right); return left; },
+                DoubleArrayList::toArray, CH_NOID);
+    }
+
+    /**
+     * Returns a {@code Collector.OfDouble} that accumulates the input values
+     * into a new {@link DoubleArrayList}, in encounter order.  Unlike collecting
+     * a {@link DoubleStream#boxed() boxed} stream with {@link #toList()}, the
+     * values are not boxed.
+     *
+     * @return a {@code Collector.OfDouble} which collects all the input values
+     * into a {@code DoubleArrayList}, in encounter order
+     * @since 1.9
+     */
+    public static Collector.OfDouble<?, DoubleArrayList> toDoubleList() {
+        return new DoubleCollectorImpl<DoubleArrayList, DoubleArrayList>(
+                DoubleArrayList::new, DoubleArrayList::add,
+                (left, right) -> { left.addAll(right); return left; },
+                CH_ID);
+    }
+
+    /**
+     * Returns a {@code Collector.OfInt} that counts the occurrences of each
+     * distinct input value, into an {@link IntIntHashMap} mapping each value
+     * to its count.
+     *
+     * <p>Counts are {@code int} values, and wrap around if a value occurs more
+     * than {@code Integer.MAX_VALUE} times; {@link #countingLongs()} may be
+     * used to count such streams, as by
+     * {@code intStream.asLongStream().collect(countingLongs())}.
+     *
+     * @return a {@code Collector.OfInt} counting each distinct input value
+     * @since 1.9
+     */
+    public static Collector.OfInt<?, IntIntHashMap> countingInts() {
+        return new IntCollectorImpl<IntIntHashMap, IntIntHashMap>(
+                IntIntHashMap::new, (m, v) -> m.addTo(v, 1),
+                (left, right) -> { right.forEach(left::addTo); return left; },
+                CH_UNORDERED_ID);
+    }
+
+    /**
+     * Returns a {@code Collector.OfLong} that counts the occurrences of each
+     * distinct input value, into a {@link LongLongHashMap} mapping each value
+     * to its count.
+     *
+     * @return a {@code Collector.OfLong} counting each distinct input value
+     * @since 1.9
+     */
+    public static Collector.OfLong<?, LongLongHashMap> countingLongs() {
+        return new LongCollectorImpl<LongLongHashMap, LongLongHashMap>(
+                LongLongHashMap::new, (m, v) -> m.addTo(v, 1L),
+                (left, right) -> { right.forEach(left::addTo); return left; },
+                CH_UNORDERED_ID);
+    }
+
+    /**
+     * Returns a {@code Collector} implementing a "group by" operation on
+     * input elements of type {@code T}, grouping elements according to a
+     * {@code long}-valued classification function, and counting the
+     * elements of each group into a {@link LongLongHashMap} mapping each key
+     * to its count.
+     *
+     * <p>Unlike {@code groupingBy(classifier, counting())}, neither the keys
+     * nor the counts are boxed.
+     *
+     * @param <T> the type of the input elements
+     * @param classifier a classifier function mapping input elements to keys
+     * @return a {@code Collector} counting the elements of each group
+     * @since 1.9
+     */
+    public static <T>
+    Collector<T, ?, LongLongHashMap> countingByLong(ToLongFunction<? super T> classifier) {
+        Objects.requireNonNull(classifier);
+        return new CollectorImpl<T, LongLongHashMap, LongLongHashMap>(
+                LongLongHashMap::new, (m, t) -> m.addTo(classifier.applyAsLong(t), 1L),
+                (left, right) -> { right.forEach(left::addTo); return left; },
+                CH_UNORDERED_ID);
+    }
+
+    /**
+     * Returns a {@code Collector} implementing a "group by" operation on
+     * input elements of type {@code T}, grouping elements according to a
+     * {@code long}-valued classification function, and summing a
+     * {@code long}-valued function applied to the elements of each group into
+     * a {@link LongLongHashMap} mapping each key to its sum.
+     *
+     * <p>Unlike {@code groupingBy(classifier, summingLong(mapper))}, neither
+     * the keys nor the sums are boxed.
+     *
+     * @apiNote
+     * For example, to compute the total quantity ordered of each product,
+     * identified by a {@code long}:
+     * <pre>{@code
+     *     LongLongHashMap quantityByProduct
+     *         = lines.stream().collect(summingByLong(OrderLine::getProductId,
+     *                                                OrderLine::getQuantity));
+     * }</pre>
+     *
+     * @param <T> the type of the input elements
+     * @param classifier a classifier function mapping input elements to keys
+     * @param mapper a function extracting the property to be summed
+     * @return a {@code Collector} summing the property over the elements of
+     * each group
+     * @since 1.9
+     */
+    public static <T>
+    Collector<T, ?, LongLongHashMap> summingByLong(ToLongFunction<? super T> classifier,
+                                                   ToLongFunction<? super T> mapper) {
+        Objects.requireNonNull(classifier);
+        Objects.requireNonNull(mapper);
+        return new CollectorImpl<T, LongLongHashMap, LongLongHashMap>(
+                LongLongHashMap::new,
+                (m, t) -> m.addTo(classifier.applyAsLong(t), mapper.applyAsLong(t)),
+                (left, right) -> { right.forEach(left::addTo); return left; },
+                CH_UNORDERED_ID);
+    }
+
     /**
      * Implementation class used by partitioningBy.
      */
@@ -52,6 +52,22 @@ final class DistinctOps {
      * @return the new stream
      */
     static <T> ReferencePipeline<T, T> makeRef(AbstractPipeline<?, T, ?> upstream) {
+        return makeRef(upstream, false);
+    }
+
+    /**
+     * Appends a "distinct" operation to the provided stream, and returns the
+     * new stream.
+     *
+     * @param <T> the type of both input and output elements
+     * @param upstream a reference stream with element type T
+     * @param boxed true if the elements are boxed primitive values, which
+     *        are unboxed downstream, so that their identity cannot be
+     *        observed and they may be spilled by serialization
+     * @return the new stream
+     */
+    static <T> ReferencePipeline<T, T> makeRef(AbstractPipeline<?, T, ?> upstream,
+                                               boolean boxed) {
         return new ReferencePipeline.StatefulOp<T, T>(upstream, StreamShape.REFERENCE,
                                                       StreamOpFlag.IS_DISTINCT | StreamOpFlag.NOT_SIZED) {
 
@@ -152,6 +168,42 @@ final class DistinctOps {
                             }
                         }
                     };
+                } else if (SpillBuffers.ENABLED && (boxed || SpillBuffers.SERIALIZE)) {
+                    return new Sink.ChainedReference<T, T>(sink) {
+                        SpillBuffers.DistinctBuffer<T> seen;
+
+                        @Override
+                        public void begin(long size) {
+                            seen = new SpillBuffers.DistinctBuffer<>();
+                            downstream.begin(-1);
+                        }
+
+                        @Override
+                        public void end() {
+                            try {
+                                seen.drain(downstream);
+                            } finally {
+                                seen.release();
+                                seen = null;
+                            }
+                            downstream.end();
+                        }
+
+                        @Override
+                        public boolean cancellationRequested() {
+                            // The source polls for cancellation only if the
+                            // pipeline is short-circuiting, so first occurrences
+                            // are pushed as they are seen rather than deferred
+                            seen.unbound();
+                            return downstream.cancellationRequested();
+                        }
+
+                        @Override
+                        public void accept(T t) {
+                            if (seen.add(t))
+                                downstream.accept(t);
+                        }
+                    };
                 } else {
                     return new Sink.ChainedReference<T, T>(sink) {
                         Set<T> seen;
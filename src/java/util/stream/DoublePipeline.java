@@ -360,7 +360,9 @@ abstract class DoublePipeline<E_IN>
     public final DoubleStream distinct() {
         // While functional and quick to implement, this approach is not very efficient.
         // An efficient version requires a double-specific map/set implementation.
-        return boxed().distinct().mapToDouble(i -> (double) i);
+        // The boxes are unboxed again, so the distinct operation may spill them
+        return DistinctOps.makeRef((AbstractPipeline<?, Double, ?>) boxed(), true)
+                          .mapToDouble(i -> (double) i);
     }
 
     // Terminal ops from DoubleStream
@@ -476,6 +478,27 @@ abstract class DoublePipeline<E_IN>
         return evaluate(ReduceOps.makeDouble(supplier, accumulator, operator));
     }
 
+    @Override
+    @SuppressWarnings("unchecked")
+    public final <A, R> R collect(Collector.OfDouble<A, R> collector) {
+        A container;
+        if (isParallel()
+                && (collector.characteristics().contains(Collector.Characteristics.CONCURRENT))
+                && (!isOrdered() || collector.characteristics().contains(Collector.Characteristics.UNORDERED))) {
+            container = collector.supplier().get();
+            ObjDoubleConsumer<A> accumulator = collector.doubleAccumulator();
+            forEach(v -> accumulator.accept(container, v));
+        }
+        else {
+            container = evaluate(ReduceOps.makeDouble(collector.supplier(),
+                                                      collector.doubleAccumulator(),
+                                                      collector.combiner()));
+        }
+        return collector.characteristics().contains(Collector.Characteristics.IDENTITY_FINISH)
+               ? (R) container
+               : collector.finisher().apply(container);
+    }
+
     @Override
     public final boolean anyMatch(DoublePredicate predicate) {
         return evaluate(MatchOps.makeDouble(predicate, MatchOps.MatchKind.ANY));
@@ -454,6 +454,42 @@ public interface DoubleStream extends BaseStream<Double, DoubleStream> {
                   ObjDoubleConsumer<R> accumulator,
                   BiConsumer<R, R> combiner);
 
+    /**
+     * Performs a <a href="package-summary.html#MutableReduction">mutable
+     * reduction</a> operation on the elements of this stream using a
+     * {@code Collector.OfDouble}, which accumulates the {@code double} values
+     * without boxing them.  The collector is evaluated as by {@link
+     * Stream#collect(Collector)}, including its concurrent evaluation if it
+     * is {@linkplain Collector.Characteristics#CONCURRENT concurrent}.
+     *
+     * <p>This is a <a href="package-summary.html#StreamOps">terminal
+     * operation</a>.
+     *
+     * @apiNote
+     * The following collect the positive values of a stream into an array,
+     * and the values of another stream into a list:
+     * <pre>{@code
+     *     double[] positive = doubles.filter(d -> d > 0)
+     *                                .collect(Collectors.toDoubleArray());
+     *     DoubleArrayList prices = quotes.collect(Collectors.toDoubleList());
+     * }</pre>
+     *
+     * @implSpec
+     * The default implementation collects the {@link #boxed() boxed}
+     * stream with {@link Stream#collect(Collector)}.
+     *
+     * @param <A> the intermediate accumulation type of the {@code Collector}
+     * @param <R> the type of the result
+     * @param collector the {@code Collector.OfDouble} describing the reduction
+     * @return the result of the reduction
+     * @see Collectors#toDoubleArray()
+     * @see Collectors#mappingToDouble
+     * @since 1.9
+     */
+    default <A, R> R collect(Collector.OfDouble<A, R> collector) {
+        return boxed().collect(collector);
+    }
+
     /**
      * Returns the sum of elements in this stream.
      *
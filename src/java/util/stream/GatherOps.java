@@ -0,0 +1,378 @@
+/*
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+package java.util.stream;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CountedCompleter;
+import java.util.function.BiConsumer;
+import java.util.function.BinaryOperator;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+
+/**
+ * Factory for instances of a stateful intermediate operation that applies a
+ * {@link Gatherer} to the elements of a stream.
+ *
+ * <p>In sequential pipelines, and for sequential gatherers in parallel
+ * pipelines, the gatherer is evaluated by a {@link Sink} that integrates the
+ * elements as they are pushed by the previous stage, so the input is never
+ * buffered.  When a parallel pipeline is evaluated lazily, a sequential
+ * gatherer is instead pulled by a {@link GatherIterator}, which integrates
+ * only as much of the input as is needed for the output elements requested,
+ * so that short-circuiting operations after it terminate on infinite input.
+ * Gatherers with a combiner are evaluated in parallel by a
+ * {@link GatherTask}, which integrates each leaf's portion of the input into
+ * a state of its own and combines the states, and the output, of sibling
+ * tasks in encounter order.
+ *
+ * @since 1.9
+ */
+final class GatherOps {
+
+    private GatherOps() { }
+
+    /**
+     * Appends a "gather" operation to the provided stream.
+     *
+     * @param <T> the type of input elements
+     * @param <A> the type of the state of the gatherer
+     * @param <R> the type of output elements
+     * @param upstream a reference stream with element type T
+     * @param gatherer the gatherer to apply
+     */
+    static <T, A, R> Stream<R> makeRef(AbstractPipeline<?, T, ?> upstream,
+                                       Gatherer<? super T, A, R> gatherer) {
+        Objects.requireNonNull(gatherer);
+        return new OfRef<>(upstream, gatherer.initializer(), gatherer.integrator(),
+                           gatherer.combiner(), gatherer.finisher());
+    }
+
+    /**
+     * A "gather" operation on a reference stream.  The functions of the
+     * gatherer are obtained once, when the operation is appended.
+     */
+    private static final class OfRef<T, A, R> extends ReferencePipeline.StatefulOp<T, R> {
+        private final Supplier<A> initializer;
+        private final Gatherer.Integrator<A, ? super T, R> integrator;
+        private final BinaryOperator<A> combiner;
+        private final BiConsumer<A, Gatherer.Downstream<? super R>> finisher;
+        private final boolean greedy;
+
+        OfRef(AbstractPipeline<?, T, ?> upstream,
+              Supplier<A> initializer,
+              Gatherer.Integrator<A, ? super T, R> integrator,
+              BinaryOperator<A> combiner,
+              BiConsumer<A, Gatherer.Downstream<? super R>> finisher) {
+            super(upstream, StreamShape.REFERENCE,
+                  StreamOpFlag.NOT_SORTED | StreamOpFlag.NOT_DISTINCT | StreamOpFlag.NOT_SIZED
+                  | (integrator instanceof Gatherer.Integrator.Greedy
+                     ? 0 : StreamOpFlag.IS_SHORT_CIRCUIT));
+            this.initializer = Objects.requireNonNull(initializer);
+            this.integrator = Objects.requireNonNull(integrator);
+            this.combiner = Objects.requireNonNull(combiner);
+            this.finisher = Objects.requireNonNull(finisher);
+            this.greedy = integrator instanceof Gatherer.Integrator.Greedy;
+        }
+
+        @Override
+        Sink<T> opWrapSink(int flags, Sink<R> sink) {
+            return new GatherSink<>(this, Objects.requireNonNull(sink), true);
+        }
+
+        @Override
+        <P_IN> Node<R> opEvaluateParallel(PipelineHelper<R> helper,
+                                          Spliterator<P_IN> spliterator,
+                                          IntFunction<R[]> generator) {
+            // The helper describes the pipeline up to the previous stage,
+            // whose output is the input of this operation
+            @SuppressWarnings("unchecked")
+            PipelineHelper<T> upstream = (PipelineHelper<T>) (PipelineHelper<?>) helper;
+            Node.Builder<R> nb = Nodes.builder(-1, generator);
+            GatherSink<T, A, R> sink = new GatherSink<>(this, nb, true);
+            if (combiner == Gatherer.defaultCombiner()) {
+                // Sequential gatherer, integrate all of the input on this
+                // thread; only the previous stages run in parallel
+                copyInto(upstream, sink, spliterator);
+                return nb.build();
+            }
+
+            Partial<A, R> p = new GatherTask<>(this, upstream, spliterator, generator).invoke();
+            nb.begin(-1);
+            sink.finish(p.state);
+            return concat(p.output, nb.build());
+        }
+
+        @Override
+        <P_IN> Spliterator<R> opEvaluateParallelLazy(PipelineHelper<R> helper,
+                                                     Spliterator<P_IN> spliterator) {
+            if (combiner != Gatherer.defaultCombiner())
+                return super.opEvaluateParallelLazy(helper, spliterator);
+            // Sequential gatherer, integrate the input as output elements are
+            // requested; the spliterator still splits off batches of output,
+            // so the stages after this one may run in parallel
+            @SuppressWarnings("unchecked")
+            PipelineHelper<T> upstream = (PipelineHelper<T>) (PipelineHelper<?>) helper;
+            int characteristics = StreamOpFlag.ORDERED.isKnown(helper.getStreamAndOpFlags())
+                                  ? Spliterator.ORDERED : 0;
+            return Spliterators.spliteratorUnknownSize(
+                new GatherIterator<>(this, upstream.wrapSpliterator(spliterator)),
+                characteristics);
+        }
+
+        /**
+         * Pushes the elements of the input described by the spliterator
+         * through the previous stages of the pipeline into the sink,
+         * stopping early if the sink is no longer interested in elements.
+         */
+        <P_IN> void copyInto(PipelineHelper<T> helper, GatherSink<T, A, R> sink,
+                             Spliterator<P_IN> spliterator) {
+            if (greedy)
+                helper.wrapAndCopyInto(sink, spliterator);
+            else
+                helper.copyIntoWithCancel(helper.wrapSink(sink), spliterator);
+        }
+
+        /**
+         * Combines the results of two consecutive portions of the input.
+         * If the integration of the left portion stopped early, the right
+         * portion is discarded.
+         */
+        Partial<A, R> combine(Partial<A, R> left, Partial<A, R> right) {
+            if (left.rejected)
+                return left;
+            return new Partial<>(combiner.apply(left.state, right.state),
+                                 concat(left.output, right.output),
+                                 right.rejected);
+        }
+
+        private static <R> Node<R> concat(Node<R> left, Node<R> right) {
+            if (left.count() == 0)
+                return right;
+            else if (right.count() == 0)
+                return left;
+            else
+                return Nodes.conc(StreamShape.REFERENCE, left, right);
+        }
+    }
+
+    /**
+     * A {@code Sink} that integrates the elements it accepts into the state
+     * of a gatherer, and is the {@code Downstream} of the gatherer, pushing
+     * the output elements to the next sink.
+     *
+     * @param <T> the type of input elements
+     * @param <A> the type of the state of the gatherer
+     * @param <R> the type of output elements
+     */
+    private static final class GatherSink<T, A, R>
+            extends Sink.ChainedReference<T, R>
+            implements Gatherer.Downstream<R> {
+        private final OfRef<T, A, R> op;
+        // True if the finisher is invoked at the end, false for the leaves of
+        // a parallel evaluation, whose states are combined instead
+        private final boolean finishing;
+        A state;
+        boolean rejected;
+
+        GatherSink(OfRef<T, A, R> op, Sink<? super R> downstream, boolean finishing) {
+            super(downstream);
+            this.op = op;
+            this.finishing = finishing;
+        }
+
+        @Override
+        public void begin(long size) {
+            state = op.initializer.get();
+            rejected = false;
+            downstream.begin(-1);
+        }
+
+        @Override
+        public void accept(T t) {
+            if (!rejected && !op.integrator.integrate(state, t, this))
+                rejected = true;
+        }
+
+        @Override
+        public boolean cancellationRequested() {
+            return rejected || downstream.cancellationRequested();
+        }
+
+        @Override
+        public void end() {
+            if (finishing)
+                finish(state);
+            else
+                downstream.end();
+        }
+
+        /**
+         * Invokes the finisher on the given state, and ends the next sink.
+         */
+        void finish(A s) {
+            state = null;
+            if (op.finisher != Gatherer.<A, R>defaultFinisher())
+                op.finisher.accept(s, this);
+            downstream.end();
+        }
+
+        @Override
+        public boolean push(R r) {
+            downstream.accept(r);
+            return !downstream.cancellationRequested();
+        }
+
+        @Override
+        public boolean isRejecting() {
+            return downstream.cancellationRequested();
+        }
+    }
+
+    /**
+     * An {@code Iterator} over the output of a sequential gatherer, which
+     * integrates input elements only when the output elements buffered so
+     * far have all been returned.
+     *
+     * @param <T> the type of input elements
+     * @param <A> the type of the state of the gatherer
+     * @param <R> the type of output elements
+     */
+    private static final class GatherIterator<T, A, R> implements Iterator<R>, Sink<R> {
+        private final Spliterator<T> input;
+        private final GatherSink<T, A, R> sink;
+        private final SpinedBuffer<R> buffer = new SpinedBuffer<>();
+        // Index in the buffer of the next element to return
+        private long next;
+        private boolean started, finished;
+
+        GatherIterator(OfRef<T, A, R> op, Spliterator<T> input) {
+            this.input = input;
+            this.sink = new GatherSink<>(op, this, true);
+        }
+
+        @Override
+        public void accept(R r) {
+            buffer.accept(r);
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (!started) {
+                started = true;
+                sink.begin(-1);
+            }
+            while (next == buffer.count()) {
+                if (finished)
+                    return false;
+                buffer.clear();
+                next = 0;
+                if (sink.cancellationRequested() || !input.tryAdvance(sink)) {
+                    finished = true;
+                    sink.end();
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public R next() {
+            if (!hasNext())
+                throw new NoSuchElementException();
+            return buffer.get(next++);
+        }
+    }
+
+    /**
+     * The result of integrating a portion of the input: the state, the
+     * elements pushed, and whether the integrator requested to stop.
+     */
+    private static final class Partial<A, R> {
+        final A state;
+        final Node<R> output;
+        final boolean rejected;
+
+        Partial(A state, Node<R> output, boolean rejected) {
+            this.state = state;
+            this.output = output;
+            this.rejected = rejected;
+        }
+    }
+
+    /**
+     * {@code ForkJoinTask} for evaluating a gatherer with a combiner in
+     * parallel.
+     *
+     * @param <P_IN> the type of elements of the source
+     * @param <T> the type of input elements of the gatherer
+     * @param <A> the type of the state of the gatherer
+     * @param <R> the type of output elements of the gatherer
+     */
+    @SuppressWarnings("serial")
+    private static final class GatherTask<P_IN, T, A, R>
+            extends AbstractTask<P_IN, T, Partial<A, R>, GatherTask<P_IN, T, A, R>> {
+        private final OfRef<T, A, R> op;
+        private final IntFunction<R[]> generator;
+
+        GatherTask(OfRef<T, A, R> op,
+                   PipelineHelper<T> helper,
+                   Spliterator<P_IN> spliterator,
+                   IntFunction<R[]> generator) {
+            super(helper, spliterator);
+            this.op = op;
+            this.generator = generator;
+        }
+
+        GatherTask(GatherTask<P_IN, T, A, R> parent, Spliterator<P_IN> spliterator) {
+            super(parent, spliterator);
+            this.op = parent.op;
+            this.generator = parent.generator;
+        }
+
+        @Override
+        protected GatherTask<P_IN, T, A, R> makeChild(Spliterator<P_IN> spliterator) {
+            return new GatherTask<>(this, spliterator);
+        }
+
+        @Override
+        protected Partial<A, R> doLeaf() {
+            Node.Builder<R> nb = Nodes.builder(-1, generator);
+            GatherSink<T, A, R> sink = new GatherSink<>(op, nb, false);
+            op.copyInto(helper, sink, spliterator);
+            return new Partial<>(sink.state, nb.build(), sink.rejected);
+        }
+
+        @Override
+        public void onCompletion(CountedCompleter<?> caller) {
+            if (!isLeaf())
+                setLocalResult(op.combine(leftChild.getLocalResult(),
+                                          rightChild.getLocalResult()));
+            // GC spliterator, left and right child
+            super.onCompletion(caller);
+        }
+    }
+}
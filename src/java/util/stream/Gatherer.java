@@ -0,0 +1,385 @@
+/*
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+package java.util.stream;
+
+import java.util.Objects;
+import java.util.function.BiConsumer;
+import java.util.function.BinaryOperator;
+import java.util.function.Supplier;
+
+/**
+ * An intermediate operation that transforms a stream of input elements into a
+ * stream of output elements, optionally using a private state object to
+ * process the elements, and optionally applying a final action when the end
+ * of the input is reached.  Gatherers are applied with
+ * {@link Stream#gather(Gatherer)}, which evaluates them as part of the
+ * pipeline, one element at a time, without first collecting the input.
+ *
+ * <p>Gatherers can express operations that are otherwise impossible, or
+ * possible only by buffering the whole stream, with the built-in
+ * operations: grouping elements into windows, computing running
+ * aggregates, de-duplicating consecutive elements, mapping elements
+ * concurrently, and so on.  The class {@link Gatherers} provides
+ * implementations of several common gatherers.
+ *
+ * <p>A {@code Gatherer} is specified by four functions that work together to
+ * process input elements, optionally using intermediate state, and optionally
+ * perform a final action at the end of input.  They are: <ul>
+ *     <li>creating a new, potentially mutable, state ({@link #initializer()})</li>
+ *     <li>integrating a new input element ({@link #integrator()})</li>
+ *     <li>combining two states into one ({@link #combiner()})</li>
+ *     <li>performing an optional final action ({@link #finisher()})</li>
+ * </ul>
+ *
+ * <p>Each invocation of the integrator receives the state, an input element
+ * and a {@link Downstream} to which it may push any number of output
+ * elements, and returns {@code false} if it does not want to receive any
+ * more input.  A gatherer whose integrator consumes all of its input, and
+ * returns {@code false} only when its downstream is rejecting, should say so
+ * by implementing {@link Integrator.Greedy}, as the integrators returned by
+ * {@link Integrator#ofGreedy} do, so that pipelines need not check for a
+ * request to stop after every element.  The finisher is invoked once
+ * all input has been integrated, or after the integrator has returned
+ * {@code false}, and may push more output elements; for example, a
+ * gatherer grouping elements into windows pushes its last, incomplete
+ * window from its finisher.
+ *
+ * <p>A gatherer is evaluated sequentially, with a single state, unless it
+ * has a combiner other than {@link #defaultCombiner()}.  Such gatherers are
+ * evaluated in parallel in parallel streams: the input is partitioned, each
+ * partition is integrated into a state of its own, in encounter order, and the
+ * states are merged with the combiner before the finisher is invoked on the
+ * result.  The elements pushed while integrating each partition are
+ * emitted in encounter order, followed by those pushed by the finisher.
+ * Gatherers without a combiner may still be used in parallel streams; their
+ * input is then integrated sequentially, by a single thread, while the
+ * operations before and after them may run in parallel.
+ *
+ * <p>As for {@link Collector}, the functions of a gatherer must not interfere
+ * with each other or with the stream source, and a state must not be used
+ * after it has been passed to the combiner.
+ *
+ * @apiNote
+ * The following gatherer emits the elements of a stream of strings
+ * until, and including, the first empty string, and is evaluated in
+ * parallel in parallel streams:
+ * <pre>{@code
+ *     Gatherer<String, Void, String> untilEmpty = Gatherer.of(
+ *         (state, s, downstream) -> downstream.push(s) && !s.isEmpty());
+ * }</pre>
+ * while the following one emits the running sum of a stream of integers,
+ * sequentially:
+ * <pre>{@code
+ *     Gatherer<Integer, long[], Long> runningSum = Gatherer.ofSequential(
+ *         () -> new long[1],
+ *         Gatherer.Integrator.ofGreedy(
+ *             (sum, i, downstream) -> downstream.push(sum[0] += i)));
+ * }</pre>
+ *
+ * @see Stream#gather
+ * @see Gatherers
+ *
+ * @param <T> the type of input elements to the gatherer
+ * @param <A> the type of the state of the gatherer (often hidden as an
+ *        implementation detail)
+ * @param <R> the type of output elements from the gatherer
+ * @since 1.9
+ */
+public interface Gatherer<T, A, R> {
+
+    /**
+     * A function that creates and returns a new state for this gatherer.
+     * The default implementation returns {@link #defaultInitializer()},
+     * denoting a gatherer without state, which receives a {@code null}
+     * state.
+     *
+     * @return a function which returns a new state
+     */
+    default Supplier<A> initializer() {
+        return defaultInitializer();
+    }
+
+    /**
+     * A function that integrates an input element into a state, pushing
+     * any output elements to a downstream.
+     *
+     * @return the integrator of this gatherer
+     */
+    Integrator<A, T, R> integrator();
+
+    /**
+     * A function that accepts two states, for two consecutive partitions of
+     * the input, and merges them.  The combiner may fold the state of the
+     * right partition into that of the left one and return that, or may return
+     * a new state.  The default implementation returns {@link
+     * #defaultCombiner()}, denoting a gatherer that must be evaluated
+     * sequentially.
+     *
+     * @return a function which combines two states
+     */
+    default BinaryOperator<A> combiner() {
+        return defaultCombiner();
+    }
+
+    /**
+     * A function that performs a final action on the state once all input
+     * has been integrated, or the integrator has requested no more input,
+     * pushing any output elements to a downstream.  The default
+     * implementation returns {@link #defaultFinisher()}, which does nothing.
+     *
+     * @return a function which performs the final action
+     */
+    default BiConsumer<A, Downstream<? super R>> finisher() {
+        return defaultFinisher();
+    }
+
+    /**
+     * Returns an initializer that denotes a gatherer without state.  It
+     * returns {@code null}.
+     *
+     * @param <A> the type of the state
+     * @return the default initializer
+     */
+    @SuppressWarnings("unchecked")
+    static <A> Supplier<A> defaultInitializer() {
+        return (Supplier<A>) Gatherers.DEFAULT_INITIALIZER;
+    }
+
+    /**
+     * Returns a combiner that denotes a gatherer that must be evaluated
+     * sequentially.  It throws {@link UnsupportedOperationException}.
+     *
+     * @param <A> the type of the state
+     * @return the default combiner
+     */
+    @SuppressWarnings("unchecked")
+    static <A> BinaryOperator<A> defaultCombiner() {
+        return (BinaryOperator<A>) Gatherers.DEFAULT_COMBINER;
+    }
+
+    /**
+     * Returns a finisher that does nothing.
+     *
+     * @param <A> the type of the state
+     * @param <R> the type of output elements
+     * @return the default finisher
+     */
+    @SuppressWarnings("unchecked")
+    static <A, R> BiConsumer<A, Downstream<? super R>> defaultFinisher() {
+        return (BiConsumer<A, Downstream<? super R>>) (BiConsumer<?, ?>) Gatherers.DEFAULT_FINISHER;
+    }
+
+    /**
+     * Returns a new, sequential, {@code Gatherer} without state, described
+     * by the given integrator.
+     *
+     * @param integrator the integrator function for the new gatherer
+     * @param <T> the type of input elements for the new gatherer
+     * @param <R> the type of output elements for the new gatherer
+     * @throws NullPointerException if the argument is null
+     * @return the new {@code Gatherer}
+     */
+    static <T, R> Gatherer<T, Void, R> ofSequential(Integrator<Void, T, R> integrator) {
+        return of(defaultInitializer(), integrator, defaultCombiner(), defaultFinisher());
+    }
+
+    /**
+     * Returns a new, sequential, {@code Gatherer} described by the given
+     * initializer and integrator.
+     *
+     * @param initializer the initializer function for the new gatherer
+     * @param integrator the integrator function for the new gatherer
+     * @param <T> the type of input elements for the new gatherer
+     * @param <A> the type of the state of the new gatherer
+     * @param <R> the type of output elements for the new gatherer
+     * @throws NullPointerException if any argument is null
+     * @return the new {@code Gatherer}
+     */
+    static <T, A, R> Gatherer<T, A, R> ofSequential(Supplier<A> initializer,
+                                                    Integrator<A, T, R> integrator) {
+        return of(initializer, integrator, defaultCombiner(), defaultFinisher());
+    }
+
+    /**
+     * Returns a new, sequential, {@code Gatherer} described by the given
+     * initializer, integrator and finisher.
+     *
+     * @param initializer the initializer function for the new gatherer
+     * @param integrator the integrator function for the new gatherer
+     * @param finisher the finisher function for the new gatherer
+     * @param <T> the type of input elements for the new gatherer
+     * @param <A> the type of the state of the new gatherer
+     * @param <R> the type of output elements for the new gatherer
+     * @throws NullPointerException if any argument is null
+     * @return the new {@code Gatherer}
+     */
+    static <T, A, R> Gatherer<T, A, R> ofSequential(Supplier<A> initializer,
+                                                    Integrator<A, T, R> integrator,
+                                                    BiConsumer<A, Downstream<? super R>> finisher) {
+        return of(initializer, integrator, defaultCombiner(), finisher);
+    }
+
+    /**
+     * Returns a new, parallelizable, {@code Gatherer} without state,
+     * described by the given integrator.
+     *
+     * @param integrator the integrator function for the new gatherer
+     * @param <T> the type of input elements for the new gatherer
+     * @param <R> the type of output elements for the new gatherer
+     * @throws NullPointerException if the argument is null
+     * @return the new {@code Gatherer}
+     */
+    static <T, R> Gatherer<T, Void, R> of(Integrator<Void, T, R> integrator) {
+        return of(defaultInitializer(), integrator,
+                  Gatherers.<Void>stateless(), defaultFinisher());
+    }
+
+    /**
+     * Returns a new {@code Gatherer} described by the given initializer,
+     * integrator, combiner and finisher.  The gatherer is parallelizable
+     * unless the combiner is {@link #defaultCombiner()}.
+     *
+     * @param initializer the initializer function for the new gatherer
+     * @param integrator the integrator function for the new gatherer
+     * @param combiner the combiner function for the new gatherer
+     * @param finisher the finisher function for the new gatherer
+     * @param <T> the type of input elements for the new gatherer
+     * @param <A> the type of the state of the new gatherer
+     * @param <R> the type of output elements for the new gatherer
+     * @throws NullPointerException if any argument is null
+     * @return the new {@code Gatherer}
+     */
+    static <T, A, R> Gatherer<T, A, R> of(Supplier<A> initializer,
+                                          Integrator<A, T, R> integrator,
+                                          BinaryOperator<A> combiner,
+                                          BiConsumer<A, Downstream<? super R>> finisher) {
+        return new Gatherers.GathererImpl<>(Objects.requireNonNull(initializer),
+                                            Objects.requireNonNull(integrator),
+                                            Objects.requireNonNull(combiner),
+                                            Objects.requireNonNull(finisher));
+    }
+
+    /**
+     * A destination of the output elements of a gatherer.  Downstreams are
+     * provided by the stream pipeline to the integrator and finisher of
+     * a gatherer, and must not be used after they return.
+     *
+     * @param <T> the type of elements accepted by the downstream
+     * @since 1.9
+     */
+    @FunctionalInterface
+    interface Downstream<T> {
+
+        /**
+         * Pushes an element to the next stage of the pipeline.
+         *
+         * @param element the element to push
+         * @return {@code true} if more elements may be pushed, {@code false}
+         * if the next stage does not want any more elements, in which case
+         * further elements pushed may be ignored
+         */
+        boolean push(T element);
+
+        /**
+         * Returns {@code true} if the next stage of the pipeline does not
+         * want any more elements.  The default implementation returns
+         * {@code false}.
+         *
+         * @return {@code true} if more elements would be ignored
+         */
+        default boolean isRejecting() {
+            return false;
+        }
+    }
+
+    /**
+     * A function that integrates an input element into the state of a
+     * gatherer.
+     *
+     * @param <A> the type of the state
+     * @param <T> the type of input elements
+     * @param <R> the type of output elements
+     * @since 1.9
+     */
+    @FunctionalInterface
+    interface Integrator<A, T, R> {
+
+        /**
+         * Integrates an element, possibly updating the state and pushing
+         * output elements to the downstream.
+         *
+         * @param state the state of the gatherer
+         * @param element the element to integrate
+         * @param downstream the downstream to push output elements to
+         * @return {@code true} if more elements may be integrated,
+         * {@code false} if no more elements should be
+         */
+        boolean integrate(A state, T element, Downstream<? super R> downstream);
+
+        /**
+         * Returns an integrator that delegates to the given function.  This
+         * is a convenience for writing integrators as lambda expressions of
+         * the right target type.
+         *
+         * @param integrator the integrator function
+         * @param <A> the type of the state
+         * @param <T> the type of input elements
+         * @param <R> the type of output elements
+         * @return the integrator
+         */
+        static <A, T, R> Integrator<A, T, R> of(Integrator<A, T, R> integrator) {
+            return integrator;
+        }
+
+        /**
+         * Returns a {@linkplain Greedy greedy} integrator that delegates to
+         * the given function, which is expected to always return {@code
+         * true}.
+         *
+         * @param greedy the integrator function
+         * @param <A> the type of the state
+         * @param <T> the type of input elements
+         * @param <R> the type of output elements
+         * @return the greedy integrator
+         */
+        static <A, T, R> Greedy<A, T, R> ofGreedy(Greedy<A, T, R> greedy) {
+            return greedy;
+        }
+
+        /**
+         * An integrator that consumes all of its input, and only returns
+         * {@code false} when its downstream is rejecting.  Pipelines need
+         * not check for cancellation after every element integrated by a
+         * greedy integrator, and do not treat its gatherer as a
+         * short-circuiting operation.
+         *
+         * @param <A> the type of the state
+         * @param <T> the type of input elements
+         * @param <R> the type of output elements
+         * @since 1.9
+         */
+        @FunctionalInterface
+        interface Greedy<A, T, R> extends Integrator<A, T, R> { }
+    }
+}
@@ -0,0 +1,435 @@
+/*
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+package java.util.stream;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.BinaryOperator;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Implementations of {@link Gatherer} that implement various useful
+ * intermediate operations, such as windowing elements, running
+ * aggregates, and mapping elements concurrently.
+ *
+ * <p>The following are examples of using the predefined gatherers to
+ * perform common intermediate operations:
+ * <pre>{@code
+ *     // Group the lines of a file into batches of 100 lines
+ *     Stream<List<String>> batches
+ *         = lines.gather(Gatherers.windowFixed(100));
+ *
+ *     // Compute the moving average of the last 5 prices
+ *     Stream<Double> averages
+ *         = prices.gather(Gatherers.windowSliding(5))
+ *                 .map(w -> w.stream().mapToDouble(Double::doubleValue)
+ *                                     .average().getAsDouble());
+ *
+ *     // Compute the running total of the amounts of transactions
+ *     Stream<Long> balances
+ *         = transactions.gather(Gatherers.scan(() -> 0L,
+ *                                              (total, t) -> total + t.getAmount()));
+ *
+ *     // Fetch the pages at the given URLs, at most 16 at a time,
+ *     // in the order of the URLs
+ *     Stream<Page> pages
+ *         = urls.gather(Gatherers.mapConcurrent(16, Page::fetch));
+ * }</pre>
+ *
+ * @since 1.9
+ */
+public final class Gatherers {
+
+    static final Supplier<Object> DEFAULT_INITIALIZER = () -> null;
+
+    static final BinaryOperator<Object> DEFAULT_COMBINER = (left, right) -> {
+        throw new UnsupportedOperationException("gatherer is sequential");
+    };
+
+    static final BiConsumer<Object, Gatherer.Downstream<Object>> DEFAULT_FINISHER =
+            (state, downstream) -> { };
+
+    private static final BinaryOperator<Object> STATELESS_COMBINER = (left, right) -> left;
+
+    private Gatherers() { }
+
+    /**
+     * Returns the combiner of parallelizable gatherers without state.
+     */
+    @SuppressWarnings("unchecked")
+    static <A> BinaryOperator<A> stateless() {
+        return (BinaryOperator<A>) STATELESS_COMBINER;
+    }
+
+    /**
+     * Simple implementation class for {@code Gatherer}.
+     *
+     * @param <T> the type of input elements
+     * @param <A> the type of the state
+     * @param <R> the type of output elements
+     */
+    static final class GathererImpl<T, A, R> implements Gatherer<T, A, R> {
+        private final Supplier<A> initializer;
+        private final Integrator<A, T, R> integrator;
+        private final BinaryOperator<A> combiner;
+        private final BiConsumer<A, Downstream<? super R>> finisher;
+
+        GathererImpl(Supplier<A> initializer,
+                     Integrator<A, T, R> integrator,
+                     BinaryOperator<A> combiner,
+                     BiConsumer<A, Downstream<? super R>> finisher) {
+            this.initializer = initializer;
+            this.integrator = integrator;
+            this.combiner = combiner;
+            this.finisher = finisher;
+        }
+
+        @Override
+        public Supplier<A> initializer() {
+            return initializer;
+        }
+
+        @Override
+        public Integrator<A, T, R> integrator() {
+            return integrator;
+        }
+
+        @Override
+        public BinaryOperator<A> combiner() {
+            return combiner;
+        }
+
+        @Override
+        public BiConsumer<A, Downstream<? super R>> finisher() {
+            return finisher;
+        }
+    }
+
+    /**
+     * Returns a {@code Gatherer} that groups the input elements into lists of
+     * {@code windowSize} consecutive elements, in encounter order.  The last
+     * list holds the remaining elements, and may be shorter.  For example,
+     * gathering the elements 1 to 8 with {@code windowFixed(3)} results in
+     * {@code [1, 2, 3]}, {@code [4, 5, 6]} and {@code [7, 8]}.
+     *
+     * <p>The lists are unmodifiable.  Each list is emitted as soon as it is
+     * complete, so that at most {@code windowSize} elements are buffered.
+     * The gatherer is sequential.
+     *
+     * @param windowSize the number of elements of each list
+     * @param <T> the type of input elements
+     * @return a {@code Gatherer} grouping elements into fixed-size lists
+     * @throws IllegalArgumentException if {@code windowSize} is less than 1
+     */
+    public static <T> Gatherer<T, ?, List<T>> windowFixed(int windowSize) {
+        if (windowSize < 1)
+            throw new IllegalArgumentException("'windowSize' must be greater than zero");
+
+        class FixedWindow {
+            Object[] window = new Object[Math.min(windowSize, 16)];
+            int count;
+
+            boolean integrate(T element, Gatherer.Downstream<? super List<T>> downstream) {
+                if (count == window.length)
+                    window = Arrays.copyOf(window, (int) Math.min((long) count << 1, windowSize));
+                window[count++] = element;
+                if (count < windowSize)
+                    return true;
+                Object[] full = window;
+                window = new Object[Math.min(windowSize, 16)];
+                count = 0;
+                return downstream.push(listOf(full));
+            }
+
+            void finish(Gatherer.Downstream<? super List<T>> downstream) {
+                if (count > 0 && !downstream.isRejecting())
+                    downstream.push(listOf(Arrays.copyOf(window, count)));
+                window = null;
+            }
+        }
+        return Gatherer.<T, FixedWindow, List<T>>ofSequential(
+                FixedWindow::new,
+                Gatherer.Integrator.<FixedWindow, T, List<T>>ofGreedy(FixedWindow::integrate),
+                FixedWindow::finish);
+    }
+
+    /**
+     * Returns a {@code Gatherer} that emits, for each input element from the
+     * {@code windowSize}th one on, the list of the last {@code windowSize}
+     * elements, in encounter order.  If there are fewer input elements than
+     * {@code windowSize}, but at least one, a single list of all of them is
+     * emitted.  For example, gathering the elements 1 to 5 with {@code
+     * windowSliding(3)} results in {@code [1, 2, 3]}, {@code [2, 3, 4]} and
+     * {@code [3, 4, 5]}.
+     *
+     * <p>The lists are unmodifiable.  Each list is emitted as soon as its last
+     * element has been integrated, so that at most {@code windowSize}
+     * elements are buffered.  The gatherer is sequential.
+     *
+     * @param windowSize the number of elements of each list
+     * @param <T> the type of input elements
+     * @return a {@code Gatherer} emitting lists of consecutive elements
+     * @throws IllegalArgumentException if {@code windowSize} is less than 1
+     */
+    public static <T> Gatherer<T, ?, List<T>> windowSliding(int windowSize) {
+        if (windowSize < 1)
+            throw new IllegalArgumentException("'windowSize' must be greater than zero");
+
+        class SlidingWindow {
+            Object[] window = new Object[Math.min(windowSize, 16)];
+            int count;
+            boolean emitted;
+
+            boolean integrate(T element, Gatherer.Downstream<? super List<T>> downstream) {
+                if (count < windowSize) {
+                    if (count == window.length)
+                        window = Arrays.copyOf(window, (int) Math.min((long) count << 1, windowSize));
+                    window[count++] = element;
+                    if (count < windowSize)
+                        return true;
+                } else {
+                    System.arraycopy(window, 1, window, 0, windowSize - 1);
+                    window[windowSize - 1] = element;
+                }
+                emitted = true;
+                return downstream.push(listOf(window.clone()));
+            }
+
+            void finish(Gatherer.Downstream<? super List<T>> downstream) {
+                if (!emitted && count > 0 && !downstream.isRejecting())
+                    downstream.push(listOf(Arrays.copyOf(window, count)));
+                window = null;
+            }
+        }
+        return Gatherer.<T, SlidingWindow, List<T>>ofSequential(
+                SlidingWindow::new,
+                Gatherer.Integrator.<SlidingWindow, T, List<T>>ofGreedy(SlidingWindow::integrate),
+                SlidingWindow::finish);
+    }
+
+    /**
+     * Returns a {@code Gatherer} that folds all input elements, in encounter
+     * order, into a single value, starting from the value returned by {@code
+     * initial}, and emits that value once all input has been integrated.  A
+     * single value is emitted even if there is no input.
+     *
+     * <p>Unlike a {@linkplain Stream#reduce(Object, BiFunction, BinaryOperator)
+     * reduction}, the folding function need not be associative, and no
+     * combining function is needed; the gatherer is sequential.
+     *
+     * @param initial supplies the initial value of the fold
+     * @param folder a function folding an input element into the value
+     * @param <T> the type of input elements
+     * @param <R> the type of the folded value
+     * @return a {@code Gatherer} emitting the fold of its input
+     * @throws NullPointerException if any argument is null
+     */
+    public static <T, R> Gatherer<T, ?, R> fold(Supplier<R> initial,
+                                                BiFunction<? super R, ? super T, ? extends R> folder) {
+        Objects.requireNonNull(initial);
+        Objects.requireNonNull(folder);
+
+        class Fold {
+            R value = initial.get();
+
+            boolean integrate(T element, Gatherer.Downstream<? super R> downstream) {
+                value = folder.apply(value, element);
+                return true;
+            }
+
+            void finish(Gatherer.Downstream<? super R> downstream) {
+                if (!downstream.isRejecting())
+                    downstream.push(value);
+                value = null;
+            }
+        }
+        return Gatherer.<T, Fold, R>ofSequential(
+                Fold::new,
+                Gatherer.Integrator.<Fold, T, R>ofGreedy(Fold::integrate),
+                Fold::finish);
+    }
+
+    /**
+     * Returns a {@code Gatherer} that emits, for each input element in
+     * encounter order, the result of applying {@code scanner} to the
+     * previously emitted value, or to the value returned by {@code initial}
+     * for the first element, and to the element.  For example, scanning the
+     * elements 1 to 4 with {@code scan(() -> 0, Integer::sum)} results in
+     * 1, 3, 6 and 10.
+     *
+     * <p>The gatherer is sequential.
+     *
+     * @param initial supplies the value the first element is scanned with
+     * @param scanner a function combining the previous value and an element
+     * @param <T> the type of input elements
+     * @param <R> the type of output elements
+     * @return a {@code Gatherer} emitting the prefix scan of its input
+     * @throws NullPointerException if any argument is null
+     */
+    public static <T, R> Gatherer<T, ?, R> scan(Supplier<R> initial,
+                                                BiFunction<? super R, ? super T, ? extends R> scanner) {
+        Objects.requireNonNull(initial);
+        Objects.requireNonNull(scanner);
+
+        class Scan {
+            R value = initial.get();
+
+            boolean integrate(T element, Gatherer.Downstream<? super R> downstream) {
+                return downstream.push(value = scanner.apply(value, element));
+            }
+        }
+        return Gatherer.<T, Scan, R>ofSequential(
+                Scan::new,
+                Gatherer.Integrator.<Scan, T, R>ofGreedy(Scan::integrate));
+    }
+
+    /**
+     * Returns a {@code Gatherer} that applies {@code mapper} to the input
+     * elements concurrently, in the {@linkplain ForkJoinPool#commonPool()
+     * common pool}, with at most {@code maxConcurrency} mappings in progress
+     * at any time, and emits the results in encounter order.
+     *
+     * <p>This is equivalent to
+     * {@code mapConcurrent(maxConcurrency, ForkJoinPool.commonPool(), mapper)}.
+     *
+     * @param maxConcurrency the maximum number of mappings in progress
+     * @param mapper the function to apply to input elements
+     * @param <T> the type of input elements
+     * @param <R> the type of output elements
+     * @return a {@code Gatherer} mapping its input concurrently
+     * @throws IllegalArgumentException if {@code maxConcurrency} is less than 1
+     * @throws NullPointerException if {@code mapper} is null
+     * @see #mapConcurrent(int, Executor, Function)
+     */
+    public static <T, R> Gatherer<T, ?, R> mapConcurrent(int maxConcurrency,
+                                                         Function<? super T, ? extends R> mapper) {
+        return mapConcurrent(maxConcurrency, ForkJoinPool.commonPool(), mapper);
+    }
+
+    /**
+     * Returns a {@code Gatherer} that applies {@code mapper} to the input
+     * elements concurrently, in tasks submitted to {@code executor}, with at
+     * most {@code maxConcurrency} mappings in progress at any time, and emits
+     * the results in encounter order.
+     *
+     * <p>A mapping is started as soon as its element is integrated, unless
+     * {@code maxConcurrency} mappings are in progress, in which case the
+     * result of the oldest one is first awaited and emitted.  Results are also
+     * emitted as soon as they are available, and all of the results not yet
+     * emitted are awaited when the input is exhausted.  So at most {@code
+     * maxConcurrency} elements are buffered.  The gatherer is sequential,
+     * and short-circuits when the next stage of the pipeline does not want
+     * any more elements, cancelling the mappings in progress.
+     *
+     * <p>If a mapping throws an exception, the mappings in progress are
+     * cancelled and the exception is rethrown by the stream operation, in
+     * the thread that awaited the mapping.  This gatherer is intended for
+     * mappings that wait, such as for I/O.  Mappings that may block should
+     * be submitted to an executor other than the common pool, or use a
+     * {@link ForkJoinPool.ManagedBlocker}, so as not to starve the pool.
+     *
+     * @param maxConcurrency the maximum number of mappings in progress
+     * @param executor the executor to run the mappings
+     * @param mapper the function to apply to input elements
+     * @param <T> the type of input elements
+     * @param <R> the type of output elements
+     * @return a {@code Gatherer} mapping its input concurrently
+     * @throws IllegalArgumentException if {@code maxConcurrency} is less than 1
+     * @throws NullPointerException if {@code executor} or {@code mapper} is null
+     */
+    public static <T, R> Gatherer<T, ?, R> mapConcurrent(int maxConcurrency,
+                                                         Executor executor,
+                                                         Function<? super T, ? extends R> mapper) {
+        if (maxConcurrency < 1)
+            throw new IllegalArgumentException("'maxConcurrency' must be greater than zero");
+        Objects.requireNonNull(executor);
+        Objects.requireNonNull(mapper);
+
+        class MapConcurrent {
+            final ArrayDeque<CompletableFuture<R>> window =
+                new ArrayDeque<>(Math.min(maxConcurrency, 16));
+
+            boolean integrate(T element, Gatherer.Downstream<? super R> downstream) {
+                if (window.size() == maxConcurrency && !downstream.push(await(window.poll())))
+                    return cancelled();
+                window.add(CompletableFuture.supplyAsync(() -> mapper.apply(element), executor));
+                CompletableFuture<R> head;
+                while ((head = window.peek()) != null && head.isDone()) {
+                    if (!downstream.push(await(window.poll())))
+                        return cancelled();
+                }
+                return true;
+            }
+
+            void finish(Gatherer.Downstream<? super R> downstream) {
+                while (!window.isEmpty() && !downstream.isRejecting()) {
+                    if (!downstream.push(await(window.poll())))
+                        break;
+                }
+                cancelled();
+            }
+
+            R await(CompletableFuture<R> f) {
+                try {
+                    return f.join();
+                } catch (CompletionException | CancellationException e) {
+                    cancelled();
+                    Throwable cause = e.getCause();
+                    if (cause instanceof RuntimeException)
+                        throw (RuntimeException) cause;
+                    if (cause instanceof Error)
+                        throw (Error) cause;
+                    throw e;
+                }
+            }
+
+            boolean cancelled() {
+                CompletableFuture<R> f;
+                while ((f = window.poll()) != null)
+                    f.cancel(false);
+                return false;
+            }
+        }
+        return Gatherer.<T, MapConcurrent, R>ofSequential(
+                MapConcurrent::new,
+                Gatherer.Integrator.<MapConcurrent, T, R>of(MapConcurrent::integrate),
+                MapConcurrent::finish);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> List<T> listOf(Object[] elements) {
+        return (List<T>) Collections.unmodifiableList(Arrays.asList(elements));
+    }
+}
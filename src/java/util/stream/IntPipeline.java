@@ -394,7 +394,9 @@ abstract class IntPipeline<E_IN>
     public final IntStream distinct() {
         // While functional and quick to implement, this approach is not very efficient.
         // An efficient version requires an int-specific map/set implementation.
-        return boxed().distinct().mapToInt(i -> i);
+        // The boxes are unboxed again, so the distinct operation may spill them
+        return DistinctOps.makeRef((AbstractPipeline<?, Integer, ?>) boxed(), true)
+                          .mapToInt(i -> i);
     }
 
     // Terminal ops from IntStream
@@ -472,6 +474,27 @@ abstract class IntPipeline<E_IN>
         return evaluate(ReduceOps.makeInt(supplier, accumulator, operator));
     }
 
+    @Override
+    @SuppressWarnings("unchecked")
+    public final <A, R> R collect(Collector.OfInt<A, R> collector) {
+        A container;
+        if (isParallel()
+                && (collector.characteristics().contains(Collector.Characteristics.CONCURRENT))
+                && (!isOrdered() || collector.characteristics().contains(Collector.Characteristics.UNORDERED))) {
+            container = collector.supplier().get();
+            ObjIntConsumer<A> accumulator = collector.intAccumulator();
+            forEach(v -> accumulator.accept(container, v));
+        }
+        else {
+            container = evaluate(ReduceOps.makeInt(collector.supplier(),
+                                                   collector.intAccumulator(),
+                                                   collector.combiner()));
+        }
+        return collector.characteristics().contains(Collector.Characteristics.IDENTITY_FINISH)
+               ? (R) container
+               : collector.finisher().apply(container);
+    }
+
     @Override
     public final boolean anyMatch(IntPredicate predicate) {
         return evaluate(MatchOps.makeInt(predicate, MatchOps.MatchKind.ANY));
@@ -446,6 +446,42 @@ public interface IntStream extends BaseStream<Integer, IntStream> {
                   ObjIntConsumer<R> accumulator,
                   BiConsumer<R, R> combiner);
 
+    /**
+     * Performs a <a href="package-summary.html#MutableReduction">mutable
+     * reduction</a> operation on the elements of this stream using a
+     * {@code Collector.OfInt}, which accumulates the {@code int} values
+     * without boxing them.  The collector is evaluated as by {@link
+     * Stream#collect(Collector)}, including its concurrent evaluation if it
+     * is {@linkplain Collector.Characteristics#CONCURRENT concurrent}.
+     *
+     * <p>This is a <a href="package-summary.html#StreamOps">terminal
+     * operation</a>.
+     *
+     * @apiNote
+     * The following collect the even values of a stream into an array,
+     * and count the occurrences of each value of another stream:
+     * <pre>{@code
+     *     int[] evens = ints.filter(i -> i % 2 == 0)
+     *                       .collect(Collectors.toIntArray());
+     *     IntIntHashMap histogram = scores.collect(Collectors.countingInts());
+     * }</pre>
+     *
+     * @implSpec
+     * The default implementation collects the {@link #boxed() boxed}
+     * stream with {@link Stream#collect(Collector)}.
+     *
+     * @param <A> the intermediate accumulation type of the {@code Collector}
+     * @param <R> the type of the result
+     * @param collector the {@code Collector.OfInt} describing the reduction
+     * @return the result of the reduction
+     * @see Collectors#toIntArray()
+     * @see Collectors#mappingToInt
+     * @since 1.9
+     */
+    default <A, R> R collect(Collector.OfInt<A, R> collector) {
+        return boxed().collect(collector);
+    }
+
     /**
      * Returns the sum of elements in this stream.  This is a special case
      * of a <a href="package-summary.html#Reduction">reduction</a>
@@ -375,7 +375,9 @@ abstract class LongPipeline<E_IN>
     public final LongStream distinct() {
         // While functional and quick to implement, this approach is not very efficient.
         // An efficient version requires a long-specific map/set implementation.
-        return boxed().distinct().mapToLong(i -> (long) i);
+        // The boxes are unboxed again, so the distinct operation may spill them
+        return DistinctOps.makeRef((AbstractPipeline<?, Long, ?>) boxed(), true)
+                          .mapToLong(i -> (long) i);
     }
 
     // Terminal ops from LongStream
@@ -454,6 +456,27 @@ abstract class LongPipeline<E_IN>
         return evaluate(ReduceOps.makeLong(supplier, accumulator, operator));
     }
 
+    @Override
+    @SuppressWarnings("unchecked")
+    public final <A, R> R collect(Collector.OfLong<A, R> collector) {
+        A container;
+        if (isParallel()
+                && (collector.characteristics().contains(Collector.Characteristics.CONCURRENT))
+                && (!isOrdered() || collector.characteristics().contains(Collector.Characteristics.UNORDERED))) {
+            container = collector.supplier().get();
+            ObjLongConsumer<A> accumulator = collector.longAccumulator();
+            forEach(v -> accumulator.accept(container, v));
+        }
+        else {
+            container = evaluate(ReduceOps.makeLong(collector.supplier(),
+                                                    collector.longAccumulator(),
+                                                    collector.combiner()));
+        }
+        return collector.characteristics().contains(Collector.Characteristics.IDENTITY_FINISH)
+               ? (R) container
+               : collector.finisher().apply(container);
+    }
+
     @Override
     public final boolean anyMatch(LongPredicate predicate) {
         return evaluate(MatchOps.makeLong(predicate, MatchOps.MatchKind.ANY));
@@ -451,6 +451,42 @@ public interface LongStream extends BaseStream<Long, LongStream> {
                   ObjLongConsumer<R> accumulator,
                   BiConsumer<R, R> combiner);
 
+    /**
+     * Performs a <a href="package-summary.html#MutableReduction">mutable
+     * reduction</a> operation on the elements of this stream using a
+     * {@code Collector.OfLong}, which accumulates the {@code long} values
+     * without boxing them.  The collector is evaluated as by {@link
+     * Stream#collect(Collector)}, including its concurrent evaluation if it
+     * is {@linkplain Collector.Characteristics#CONCURRENT concurrent}.
+     *
+     * <p>This is a <a href="package-summary.html#StreamOps">terminal
+     * operation</a>.
+     *
+     * @apiNote
+     * The following collect the positive values of a stream into a list,
+     * and count the occurrences of each value of another stream:
+     * <pre>{@code
+     *     LongArrayList positive = longs.filter(v -> v > 0)
+     *                                   .collect(Collectors.toLongList());
+     *     LongLongHashMap histogram = ids.collect(Collectors.countingLongs());
+     * }</pre>
+     *
+     * @implSpec
+     * The default implementation collects the {@link #boxed() boxed}
+     * stream with {@link Stream#collect(Collector)}.
+     *
+     * @param <A> the intermediate accumulation type of the {@code Collector}
+     * @param <R> the type of the result
+     * @param collector the {@code Collector.OfLong} describing the reduction
+     * @return the result of the reduction
+     * @see Collectors#toLongArray()
+     * @see Collectors#mappingToLong
+     * @since 1.9
+     */
+    default <A, R> R collect(Collector.OfLong<A, R> collector) {
+        return boxed().collect(collector);
+    }
+
     /**
      * Returns the sum of elements in this stream.  This is a special case
      * of a <a href="package-summary.html#Reduction">reduction</a>
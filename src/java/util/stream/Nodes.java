@@ -1861,22 +1861,29 @@ final class Nodes {
 
         @Override
         public void compute() {
-            SizedCollectorTask<P_IN, P_OUT, T_SINK, K> task = this;
-            Spliterator<P_IN> rightSplit = spliterator, leftSplit;
-            while (rightSplit.estimateSize() > task.targetSize &&
-                   (leftSplit = rightSplit.trySplit()) != null) {
-                task.setPendingCount(1);
-                long leftSplitSize = leftSplit.estimateSize();
-                task.makeChild(leftSplit, task.offset, leftSplitSize).fork();
-                task = task.makeChild(rightSplit, task.offset + leftSplitSize,
-                                      task.length - leftSplitSize);
-            }
-
-            assert task.offset + task.length < MAX_ARRAY_SIZE;
-            @SuppressWarnings("unchecked")
-            T_SINK sink = (T_SINK) task;
-            task.helper.wrapAndCopyInto(sink, rightSplit);
-            task.propagateCompletion();
+            PipelineAccount account = helper.getAccount();
+            long start = (account == null) ? 0L : PipelineAccount.threadTime();
+            try {
+                SizedCollectorTask<P_IN, P_OUT, T_SINK, K> task = this;
+                Spliterator<P_IN> rightSplit = spliterator, leftSplit;
+                while (rightSplit.estimateSize() > task.targetSize &&
+                       (leftSplit = rightSplit.trySplit()) != null) {
+                    task.setPendingCount(1);
+                    long leftSplitSize = leftSplit.estimateSize();
+                    task.makeChild(leftSplit, task.offset, leftSplitSize).fork();
+                    task = task.makeChild(rightSplit, task.offset + leftSplitSize,
+                                          task.length - leftSplitSize);
+                }
+
+                assert task.offset + task.length < MAX_ARRAY_SIZE;
+                @SuppressWarnings("unchecked")
+                T_SINK sink = (T_SINK) task;
+                task.helper.wrapAndCopyInto(sink, rightSplit);
+                task.propagateCompletion();
+            } finally {
+                if (account != null)
+                    account.record(start);
+            }
         }
 
         abstract K makeChild(Spliterator<P_IN> spliterator, long offset, long size);
@@ -0,0 +1,260 @@
+/*
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+package java.util.stream;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.security.AccessController;
+import java.security.PrivilegedAction;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A named account of the processing time consumed by the stream
+ * pipelines bound to it with {@link BaseStream#accountTo}.  Accounts
+ * let operators see which pipelines consume the threads of the
+ * {@link java.util.concurrent.ForkJoinPool#commonPool() common pool}
+ * (or of any other pool that parallel pipelines run in).
+ *
+ * <p>Accounts are obtained by name with {@link #of}, which returns
+ * the same account for the same name, and all accounts obtained so
+ * far may be listed with {@link #accounts}, for example to be
+ * reported periodically:
+ *
+ * <pre>{@code
+ *     PipelineAccount reports = PipelineAccount.of("reports");
+ *     long total = orders.parallelStream()
+ *                        .accountTo(reports)
+ *                        .mapToLong(Order::total)
+ *                        .sum();
+ *     ...
+ *     for (PipelineAccount a : PipelineAccount.accounts())
+ *         log.info(a.toString());
+ * }</pre>
+ *
+ * <p>Each evaluation of a terminal operation of a bound pipeline
+ * increments the {@linkplain #getEvaluationCount evaluation count}.
+ * A sequential evaluation is charged as a whole to the account.  A
+ * parallel evaluation is charged per task: each fork/join task that
+ * splits the source and processes a part of it, whichever thread
+ * runs it, adds its processing time and increments the {@linkplain
+ * #getTaskCount task count}.  Time spent in the pool waiting for
+ * other tasks, and in the few tasks that only copy results between
+ * arrays, is not charged.
+ *
+ * <p>Processing time is measured as thread CPU time, as by {@link
+ * java.lang.management.ThreadMXBean#getCurrentThreadCpuTime}, if the
+ * management API is present, and the virtual machine supports it and
+ * it is enabled, and as elapsed time otherwise; see {@link #isCpuTime}.  Measurement costs a few hundred nanoseconds
+ * per task, and is only performed for bound pipelines.
+ *
+ * <p>Accounts are thread-safe; they are updated by all threads
+ * evaluating bound pipelines.
+ *
+ * @since 1.9
+ */
+public final class PipelineAccount {
+
+    private static final ConcurrentHashMap<String, PipelineAccount> accounts =
+        new ConcurrentHashMap<>();
+
+    private final String name;
+    private final LongAdder time = new LongAdder();
+    private final LongAdder tasks = new LongAdder();
+    private final LongAdder evaluations = new LongAdder();
+
+    private PipelineAccount(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Returns the account with the specified name, creating it if it
+     * does not yet exist.
+     *
+     * @param name the name of the account
+     * @return the account with the specified name
+     * @throws NullPointerException if the name is null
+     */
+    public static PipelineAccount of(String name) {
+        Objects.requireNonNull(name);
+        PipelineAccount a = accounts.get(name);
+        return (a != null) ? a :
+            accounts.computeIfAbsent(name, PipelineAccount::new);
+    }
+
+    /**
+     * Returns a list of all of the accounts created so far, in no
+     * particular order.
+     *
+     * @return a list of the existing accounts
+     */
+    public static List<PipelineAccount> accounts() {
+        return new ArrayList<>(accounts.values());
+    }
+
+    /**
+     * Returns {@code true} if processing time is measured as thread
+     * CPU time, or {@code false} if it is measured as elapsed time.
+     *
+     * @return {@code true} if processing time is CPU time
+     */
+    public static boolean isCpuTime() {
+        return Clock.CPU_TIME;
+    }
+
+    /**
+     * Returns the name of this account.
+     *
+     * @return the name of this account
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Returns the total processing time charged to this account, in
+     * nanoseconds.
+     *
+     * @return the processing time, in nanoseconds
+     */
+    public long getTime() {
+        return time.sum();
+    }
+
+    /**
+     * Returns the number of parallel tasks charged to this account.
+     *
+     * @return the number of tasks
+     */
+    public long getTaskCount() {
+        return tasks.sum();
+    }
+
+    /**
+     * Returns the number of terminal operations evaluated by the
+     * pipelines bound to this account.
+     *
+     * @return the number of evaluations
+     */
+    public long getEvaluationCount() {
+        return evaluations.sum();
+    }
+
+    /**
+     * Resets the time and counts of this account to zero.  Updates
+     * by evaluations in progress may or may not be included in the
+     * totals after the reset.
+     */
+    public void reset() {
+        time.reset();
+        tasks.reset();
+        evaluations.reset();
+    }
+
+    /**
+     * Returns a string identifying this account, and its time and
+     * counts.
+     *
+     * @return a string representation of this account
+     */
+    public String toString() {
+        return "PipelineAccount[" + name +
+            ", time=" + getTime() + "ns" +
+            ", tasks=" + getTaskCount() +
+            ", evaluations=" + getEvaluationCount() + "]";
+    }
+
+    /**
+     * Records the start of an evaluation.
+     */
+    void evaluated() {
+        evaluations.increment();
+    }
+
+    /**
+     * Charges the time of the current thread since the given start,
+     * as obtained from {@link #threadTime}, as one task.
+     */
+    void record(long start) {
+        time.add(threadTime() - start);
+        tasks.increment();
+    }
+
+    /**
+     * Charges the time of the current thread since the given start,
+     * as obtained from {@link #threadTime}, as a sequential evaluation.
+     */
+    void recordSequential(long start) {
+        time.add(threadTime() - start);
+    }
+
+    /**
+     * Returns the current thread's CPU time if measured, or else
+     * the current value of {@link System#nanoTime}.
+     */
+    static long threadTime() {
+        if (!Clock.CPU_TIME)
+            return System.nanoTime();
+        try {
+            return (long) Clock.THREAD_CPU_TIME.invokeExact();
+        } catch (Throwable ex) {
+            throw new InternalError(ex);
+        }
+    }
+
+    /**
+     * Holder for the thread CPU time clock, resolved on first use so
+     * that pipelines without accounts never load it.  The management
+     * API is looked up reflectively, so that this package does not
+     * depend on it.
+     */
+    private static final class Clock {
+        // getCurrentThreadCpuTime bound to the thread management bean,
+        // or null if thread CPU time is not measured
+        static final MethodHandle THREAD_CPU_TIME = AccessController.doPrivileged(
+            (PrivilegedAction<MethodHandle>) Clock::resolve);
+        static final boolean CPU_TIME = THREAD_CPU_TIME != null;
+
+        private static MethodHandle resolve() {
+            try {
+                Class<?> beanClass = Class.forName("java.lang.management.ThreadMXBean");
+                Object bean = Class.forName("java.lang.management.ManagementFactory")
+                    .getMethod("getThreadMXBean").invoke(null);
+                if (!(Boolean) beanClass.getMethod("isCurrentThreadCpuTimeSupported").invoke(bean) ||
+                    !(Boolean) beanClass.getMethod("isThreadCpuTimeEnabled").invoke(bean))
+                    return null;
+                return MethodHandles.publicLookup()
+                    .findVirtual(beanClass, "getCurrentThreadCpuTime",
+                                 MethodType.methodType(long.class))
+                    .bindTo(bean);
+            } catch (ReflectiveOperationException | LinkageError | SecurityException ex) {
+                return null;
+            }
+        }
+    }
+}
@@ -71,6 +71,15 @@ abstract class PipelineHelper<P_OUT> {
      */
     abstract int getStreamAndOpFlags();
 
+    /**
+     * Gets the account charged for the evaluation of the pipeline, if any.
+     *
+     * @return the account, or {@code null} if the pipeline is not bound
+     *         to an account
+     * @see BaseStream#accountTo(PipelineAccount)
+     */
+    abstract PipelineAccount getAccount();
+
     /**
      * Returns the exact output size of the portion of the output resulting from
      * applying the pipeline stages described by this {@code PipelineHelper} to
@@ -389,6 +389,11 @@ abstract class ReferencePipeline<P_IN, P_OUT>
         return SortedOps.makeRef(this);
     }
 
+    @Override
+    public final <R> Stream<R> gather(Gatherer<? super P_OUT, ?, R> gatherer) {
+        return GatherOps.makeRef(this, gatherer);
+    }
+
     @Override
     public final Stream<P_OUT> sorted(Comparator<? super P_OUT> comparator) {
         return SortedOps.makeRef(this, comparator);
@@ -137,6 +137,8 @@ final class SortedOps {
             // also naturally sorted then this is a no-op
             if (StreamOpFlag.SORTED.isKnown(flags) && isNaturalSort)
                 return sink;
+            else if (SpillBuffers.ENABLED && SpillBuffers.SERIALIZE)
+                return new SpillingRefSortingSink<>(sink, comparator);
             else if (StreamOpFlag.SIZED.isKnown(flags))
                 return new SizedRefSortingSink<>(sink, comparator);
             else
@@ -176,6 +178,8 @@ final class SortedOps {
 
             if (StreamOpFlag.SORTED.isKnown(flags))
                 return sink;
+            else if (SpillBuffers.ENABLED)
+                return new SpillingIntSortingSink(sink);
             else if (StreamOpFlag.SIZED.isKnown(flags))
                 return new SizedIntSortingSink(sink);
             else
@@ -215,6 +219,8 @@ final class SortedOps {
 
             if (StreamOpFlag.SORTED.isKnown(flags))
                 return sink;
+            else if (SpillBuffers.ENABLED)
+                return new SpillingLongSortingSink(sink);
             else if (StreamOpFlag.SIZED.isKnown(flags))
                 return new SizedLongSortingSink(sink);
             else
@@ -254,6 +260,8 @@ final class SortedOps {
 
             if (StreamOpFlag.SORTED.isKnown(flags))
                 return sink;
+            else if (SpillBuffers.ENABLED)
+                return new SpillingDoubleSortingSink(sink);
             else if (StreamOpFlag.SIZED.isKnown(flags))
                 return new SizedDoubleSortingSink(sink);
             else
@@ -405,6 +413,41 @@ final class SortedOps {
         }
     }
 
+    /**
+     * {@link Sink} for implementing sort on reference streams, which spills
+     * sorted runs of elements out of the heap, by serialization, if
+     * {@link SpillBuffers#SERIALIZE spilling references} is opted into.
+     *
+     * @see SpillBuffers
+     */
+    private static final class SpillingRefSortingSink<T> extends AbstractRefSortingSink<T> {
+        private SpillBuffers.RefSorter<T> sorter;
+
+        SpillingRefSortingSink(Sink<? super T> sink, Comparator<? super T> comparator) {
+            super(sink, comparator);
+        }
+
+        @Override
+        public void begin(long size) {
+            sorter = new SpillBuffers.RefSorter<>(comparator, size);
+        }
+
+        @Override
+        public void end() {
+            try {
+                sorter.push(downstream, cancellationWasRequested);
+            } finally {
+                sorter.release();
+                sorter = null;
+            }
+        }
+
+        @Override
+        public void accept(T t) {
+            sorter.add(t);
+        }
+    }
+
     /**
      * Abstract {@link Sink} for implementing sort on int streams.
      */
@@ -503,6 +546,40 @@ final class SortedOps {
         }
     }
 
+    /**
+     * {@link Sink} for implementing sort on int streams, which spills
+     * sorted runs of elements out of the heap.
+     *
+     * @see SpillBuffers
+     */
+    private static final class SpillingIntSortingSink extends AbstractIntSortingSink {
+        private SpillBuffers.IntSorter sorter;
+
+        SpillingIntSortingSink(Sink<? super Integer> sink) {
+            super(sink);
+        }
+
+        @Override
+        public void begin(long size) {
+            sorter = new SpillBuffers.IntSorter(size);
+        }
+
+        @Override
+        public void end() {
+            try {
+                sorter.push(downstream, cancellationWasRequested);
+            } finally {
+                sorter.release();
+                sorter = null;
+            }
+        }
+
+        @Override
+        public void accept(int t) {
+            sorter.add(t);
+        }
+    }
+
     /**
      * Abstract {@link Sink} for implementing sort on long streams.
      */
@@ -601,6 +678,40 @@ final class SortedOps {
         }
     }
 
+    /**
+     * {@link Sink} for implementing sort on long streams, which spills
+     * sorted runs of elements out of the heap.
+     *
+     * @see SpillBuffers
+     */
+    private static final class SpillingLongSortingSink extends AbstractLongSortingSink {
+        private SpillBuffers.LongSorter sorter;
+
+        SpillingLongSortingSink(Sink<? super Long> sink) {
+            super(sink);
+        }
+
+        @Override
+        public void begin(long size) {
+            sorter = new SpillBuffers.LongSorter(size);
+        }
+
+        @Override
+        public void end() {
+            try {
+                sorter.push(downstream, cancellationWasRequested);
+            } finally {
+                sorter.release();
+                sorter = null;
+            }
+        }
+
+        @Override
+        public void accept(long t) {
+            sorter.add(t);
+        }
+    }
+
     /**
      * Abstract {@link Sink} for implementing sort on long streams.
      */
@@ -698,4 +809,38 @@ final class SortedOps {
             b.accept(t);
         }
     }
+
+    /**
+     * {@link Sink} for implementing sort on double streams, which spills
+     * sorted runs of elements out of the heap.
+     *
+     * @see SpillBuffers
+     */
+    private static final class SpillingDoubleSortingSink extends AbstractDoubleSortingSink {
+        private SpillBuffers.DoubleSorter sorter;
+
+        SpillingDoubleSortingSink(Sink<? super Double> sink) {
+            super(sink);
+        }
+
+        @Override
+        public void begin(long size) {
+            sorter = new SpillBuffers.DoubleSorter(size);
+        }
+
+        @Override
+        public void end() {
+            try {
+                sorter.push(downstream, cancellationWasRequested);
+            } finally {
+                sorter.release();
+                sorter = null;
+            }
+        }
+
+        @Override
+        public void accept(double t) {
+            sorter.add(t);
+        }
+    }
 }
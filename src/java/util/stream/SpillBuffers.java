@@ -0,0 +1,1431 @@
+/*
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+package java.util.stream;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.NotSerializableException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.security.AccessController;
+import java.security.PrivilegedAction;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+
+/**
+ * Support for stateful operations that spill the elements they buffer out of
+ * the heap, so that the memory they use stays bounded however many elements
+ * the stream has.
+ *
+ * <p>Spilling is turned on by setting the system property
+ * {@code java.util.stream.spill.threshold} to the number of elements an
+ * operation may buffer on the heap; it is off if the property is not set,
+ * or not positive.  The spilled elements are written to temporary files in
+ * the directory named by the system property
+ * {@code java.util.stream.spill.directory}, by default the default
+ * temporary-file directory, or to direct byte buffers if the system property
+ * {@code java.util.stream.spill.direct} is {@code true} according to
+ * {@link Boolean#getBoolean(String)}.
+ *
+ * <p>Primitive values are spilled as their binary representation, so
+ * sorting {@code int}, {@code long} and {@code double} streams, and selecting
+ * their distinct elements, which are boxed only within the operation, spills
+ * whenever spilling is on.  Elements of reference streams would have to be
+ * spilled by serialization, and read back as copies, which are not identical
+ * to the elements, and may not even be equal to them, for instance if their
+ * class does not override {@link Object#equals(Object)}.  So reference
+ * elements stay on the heap, unless spilling them is opted into by setting
+ * the system property {@code java.util.stream.spill.serialize} to
+ * {@code true}, for streams whose elements are values: serializable elements
+ * whose copies are equal, and interchangeable, with them.
+ *
+ * <p>Sorting sinks perform an external merge sort with a {@link Sorter}:
+ * each time the threshold is reached the buffered elements are sorted and
+ * spilled as a <em>run</em>, and at the end the runs and the remaining
+ * elements are merged, at most {@link #FAN_IN} runs at a time.  Ties are
+ * broken by the order of the runs, so the sort stays stable.  Distinct
+ * sinks use a {@link DistinctBuffer}: once it holds as many elements as the
+ * threshold, elements not in it are spilled, with their position, to one of
+ * {@code FAN_IN} partitions by hash code, and at the end each partition is
+ * reduced to the first occurrences of its elements, and the partitions are
+ * merged in encounter order.  A partition is held on the heap while it is
+ * reduced, so it has about {@code 1/FAN_IN} of the spilled elements.
+ *
+ * <p>If a reference element cannot be serialized, the operation keeps
+ * buffering on the heap as if spilling were off.  Spilling only applies to
+ * sequential evaluation; parallel evaluation of sorting and distinct
+ * operations is unchanged.
+ *
+ * @since 1.9
+ */
+final class SpillBuffers {
+    private static final String THRESHOLD_PROPERTY = "java.util.stream.spill.threshold";
+    private static final String DIRECTORY_PROPERTY = "java.util.stream.spill.directory";
+    private static final String DIRECT_PROPERTY = "java.util.stream.spill.direct";
+    private static final String SERIALIZE_PROPERTY = "java.util.stream.spill.serialize";
+
+    /** The number of elements buffered on the heap, if positive */
+    static final long THRESHOLD = AccessController.doPrivileged(
+            (PrivilegedAction<Long>) () -> Long.getLong(THRESHOLD_PROPERTY, 0L));
+
+    /** Do stateful operations spill? */
+    static final boolean ENABLED = THRESHOLD > 0;
+
+    /** Are elements of reference streams spilled, by serialization? */
+    static final boolean SERIALIZE = AccessController.doPrivileged(
+            (PrivilegedAction<Boolean>) () -> Boolean.getBoolean(SERIALIZE_PROPERTY));
+
+    /** The directory of temporary files, or null for the default */
+    private static final String DIRECTORY = AccessController.doPrivileged(
+            (PrivilegedAction<String>) () -> System.getProperty(DIRECTORY_PROPERTY));
+
+    /** Are runs held in direct byte buffers rather than in files? */
+    private static final boolean DIRECT = AccessController.doPrivileged(
+            (PrivilegedAction<Boolean>) () -> Boolean.getBoolean(DIRECT_PROPERTY));
+
+    /** The maximum number of runs merged at once, and of partitions */
+    static final int FAN_IN = 64;
+
+    /** The number of elements buffered on the heap, as an array length */
+    private static final int CAPACITY = (int) Math.min(THRESHOLD, Nodes.MAX_ARRAY_SIZE);
+
+    /** The size of the buffers of file streams */
+    private static final int IO_BUFFER_SIZE = 1 << 16;
+
+    /** The size of the direct byte buffers holding a run */
+    private static final int DIRECT_BUFFER_SIZE = 1 << 20;
+
+    /** The number of objects written before a spilled object stream is reset */
+    private static final int RESET_INTERVAL = 1 << 10;
+
+    private SpillBuffers() { }
+
+    /**
+     * Returns the length of an array of buffered elements that is grown to
+     * hold one more element.
+     */
+    private static int grownLength(int length) {
+        if (length >= Nodes.MAX_ARRAY_SIZE)
+            throw new IllegalArgumentException(Nodes.BAD_SIZE);
+        int n = Math.max(16, length + (length >> 1));
+        if (length < CAPACITY)
+            return Math.min(n, CAPACITY);
+        return (int) Math.min(n, Nodes.MAX_ARRAY_SIZE);
+    }
+
+    // Runs
+
+    /**
+     * A sequence of spilled bytes, written once and then read.
+     */
+    abstract static class Run {
+        /** The number of elements in this run */
+        long count;
+
+        /** Returns a stream writing the bytes of this run */
+        abstract OutputStream openOutput() throws IOException;
+
+        /** Returns a stream reading the bytes of this run, once written */
+        abstract InputStream openInput() throws IOException;
+
+        /** Releases the storage of this run */
+        abstract void delete();
+    }
+
+    /**
+     * Creates a run, held in a temporary file or in direct memory.
+     */
+    static Run newRun() {
+        return DIRECT ? new DirectRun() : new FileRun();
+    }
+
+    /**
+     * A run held in a temporary file.  The file is unlinked as soon as it is
+     * opened, where the platform allows it, so that its storage is reclaimed
+     * when the run is deleted or the VM exits, even if the pipeline is
+     * abandoned; elsewhere the file is deleted when the run is deleted.
+     */
+    private static final class FileRun extends Run {
+        private final FileChannel channel;
+        // The number of bytes written
+        private long size;
+
+        FileRun() {
+            try {
+                Path path = (DIRECTORY == null)
+                            ? Files.createTempFile("stream", ".spill")
+                            : Files.createTempFile(Paths.get(DIRECTORY), "stream", ".spill");
+                try {
+                    channel = FileChannel.open(path, StandardOpenOption.READ,
+                                               StandardOpenOption.WRITE,
+                                               StandardOpenOption.DELETE_ON_CLOSE);
+                } catch (IOException e) {
+                    Files.deleteIfExists(path);
+                    throw e;
+                }
+                try {
+                    Files.deleteIfExists(path);
+                } catch (IOException ignore) {
+                    // An open file cannot be deleted here, it is deleted on close
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        OutputStream openOutput() {
+            return new BufferedOutputStream(new OutputStream() {
+                @Override
+                public void write(int b) throws IOException {
+                    write(new byte[] { (byte) b }, 0, 1);
+                }
+
+                @Override
+                public void write(byte[] b, int off, int len) throws IOException {
+                    ByteBuffer bb = ByteBuffer.wrap(b, off, len);
+                    while (bb.hasRemaining())
+                        size += channel.write(bb, size);
+                }
+            }, IO_BUFFER_SIZE);
+        }
+
+        @Override
+        InputStream openInput() {
+            return new BufferedInputStream(new InputStream() {
+                private long position;
+
+                @Override
+                public int read() throws IOException {
+                    byte[] b = new byte[1];
+                    return (read(b, 0, 1) < 0) ? -1 : b[0] & 0xff;
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) throws IOException {
+                    if (len == 0)
+                        return 0;
+                    if (position >= size)
+                        return -1;
+                    int n = channel.read(ByteBuffer.wrap(b, off, (int) Math.min(len, size - position)),
+                                         position);
+                    if (n < 0)
+                        return -1;
+                    position += n;
+                    return n;
+                }
+            }, IO_BUFFER_SIZE);
+        }
+
+        @Override
+        void delete() {
+            try {
+                channel.close();
+            } catch (IOException ignore) {
+                // The file is left behind if it could not be unlinked
+            }
+        }
+    }
+
+    /**
+     * A run held in direct byte buffers, which are freed when the run is
+     * deleted rather than when they are garbage collected.
+     */
+    private static final class DirectRun extends Run {
+        private final ArrayList<ByteBuffer> buffers = new ArrayList<>();
+
+        @Override
+        OutputStream openOutput() {
+            return new OutputStream() {
+                private ByteBuffer buffer;
+
+                private ByteBuffer buffer() {
+                    if (buffer == null || !buffer.hasRemaining())
+                        buffers.add(buffer = ByteBuffer.allocateDirect(DIRECT_BUFFER_SIZE));
+                    return buffer;
+                }
+
+                @Override
+                public void write(int b) {
+                    buffer().put((byte) b);
+                }
+
+                @Override
+                public void write(byte[] b, int off, int len) {
+                    while (len > 0) {
+                        ByteBuffer bb = buffer();
+                        int n = Math.min(len, bb.remaining());
+                        bb.put(b, off, n);
+                        off += n;
+                        len -= n;
+                    }
+                }
+            };
+        }
+
+        @Override
+        InputStream openInput() {
+            return new InputStream() {
+                private int index;
+                private ByteBuffer buffer;
+
+                // Returns the buffer to read from, or null at the end
+                private ByteBuffer buffer() {
+                    while (buffer == null || !buffer.hasRemaining()) {
+                        if (index == buffers.size())
+                            return null;
+                        buffer = (ByteBuffer) buffers.get(index++).duplicate().flip();
+                    }
+                    return buffer;
+                }
+
+                @Override
+                public int read() {
+                    ByteBuffer bb = buffer();
+                    return (bb == null) ? -1 : bb.get() & 0xff;
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) {
+                    if (len == 0)
+                        return 0;
+                    ByteBuffer bb = buffer();
+                    if (bb == null)
+                        return -1;
+                    int n = Math.min(len, bb.remaining());
+                    bb.get(b, off, n);
+                    return n;
+                }
+            };
+        }
+
+        @Override
+        void delete() {
+            for (ByteBuffer bb : buffers) {
+                sun.misc.Cleaner c = ((sun.nio.ch.DirectBuffer)bb).cleaner();
+                if (c != null)
+                    c.clean();
+            }
+            buffers.clear();
+        }
+    }
+
+    /**
+     * An object stream writing spilled elements, which is reset periodically
+     * so that neither it nor the stream reading it retains all of the
+     * elements.
+     */
+    private static final class ElementOutputStream extends ObjectOutputStream {
+        private int unreset;
+
+        ElementOutputStream(OutputStream out) throws IOException {
+            super(out);
+        }
+
+        void writeElement(Object o) throws IOException {
+            writeObject(o);
+            if (++unreset == RESET_INTERVAL) {
+                unreset = 0;
+                reset();
+            }
+        }
+    }
+
+    private static Object readElement(ObjectInputStream in) throws IOException {
+        try {
+            return in.readObject();
+        } catch (ClassNotFoundException e) {
+            throw new IOException(e);
+        }
+    }
+
+    // Merging
+
+    /**
+     * A cursor over the elements of a sorted run, or of the sorted elements
+     * remaining on the heap.
+     */
+    abstract static class Cursor {
+        /** The position of the run, which breaks ties between cursors */
+        final int order;
+
+        Cursor(int order) {
+            this.order = order;
+        }
+
+        /**
+         * Moves to the next element, returning {@code false} if there is
+         * none.
+         */
+        abstract boolean advance() throws IOException;
+
+        /**
+         * Compares the current element of this cursor to that of another
+         * cursor over the same kind of run.
+         */
+        abstract int compareHead(Cursor c);
+
+        /** Pushes the current element to a sink */
+        abstract void pushHead(Sink<?> sink);
+
+        /** Writes the current element to a stream of the same kind of run */
+        abstract void writeHead(OutputStream out) throws IOException;
+
+        /** Closes the input of this cursor */
+        void close() throws IOException { }
+    }
+
+    /**
+     * An action on the current element of a cursor during a merge.
+     */
+    interface MergeAction {
+        /** Returns {@code false} if the merge is to stop */
+        boolean apply(Cursor c) throws IOException;
+    }
+
+    /**
+     * Merges the cursors, applying the action to their elements in order,
+     * and closes them.
+     */
+    static void mergeCursors(Cursor[] cursors, MergeAction action) throws IOException {
+        Cursor[] heap = new Cursor[cursors.length];
+        int n = 0;
+        try {
+            for (Cursor c : cursors) {
+                if (c.advance())
+                    siftUp(heap, n++, c);
+            }
+            while (n > 0) {
+                Cursor c = heap[0];
+                if (!action.apply(c))
+                    break;
+                if (!c.advance()) {
+                    c = heap[--n];
+                    heap[n] = null;
+                }
+                if (n > 0)
+                    siftDown(heap, n, c);
+            }
+        } finally {
+            for (Cursor c : cursors)
+                c.close();
+        }
+    }
+
+    private static boolean precedes(Cursor a, Cursor b) {
+        int c = a.compareHead(b);
+        return c < 0 || (c == 0 && a.order < b.order);
+    }
+
+    private static void siftUp(Cursor[] heap, int k, Cursor x) {
+        while (k > 0) {
+            int parent = (k - 1) >>> 1;
+            Cursor e = heap[parent];
+            if (!precedes(x, e))
+                break;
+            heap[k] = e;
+            k = parent;
+        }
+        heap[k] = x;
+    }
+
+    private static void siftDown(Cursor[] heap, int n, Cursor x) {
+        int k = 0;
+        int half = n >>> 1;
+        while (k < half) {
+            int child = (k << 1) + 1;
+            Cursor c = heap[child];
+            int right = child + 1;
+            if (right < n && precedes(heap[right], c))
+                c = heap[child = right];
+            if (!precedes(c, x))
+                break;
+            heap[k] = c;
+            k = child;
+        }
+        heap[k] = x;
+    }
+
+    // Sorting
+
+    /**
+     * A buffer of elements to be sorted, which spills sorted runs once it
+     * holds as many elements as the threshold.  Subclasses hold the
+     * elements of each shape in an array, the <em>chunk</em>.
+     */
+    abstract static class Sorter {
+        /** The number of elements in the chunk */
+        int count;
+        /** The number of elements in runs */
+        private long spilled;
+        private boolean spillable = true;
+        private List<Run> runs = new ArrayList<>();
+        // All runs created, including those merged, deleted by release()
+        private final ArrayList<Run> created = new ArrayList<>();
+
+        /** Returns the length of the chunk */
+        abstract int length();
+
+        /** Reallocates the chunk with the given length */
+        abstract void resize(int length);
+
+        /** Sorts the chunk */
+        abstract void sortChunk();
+
+        /** Empties the chunk after it is spilled */
+        abstract void clearChunk();
+
+        /** Returns a stream writing elements to a run */
+        abstract OutputStream newOutput(OutputStream out) throws IOException;
+
+        /** Writes the elements of the chunk to a stream of a run */
+        abstract void writeChunk(OutputStream out) throws IOException;
+
+        /** Returns a cursor reading a run */
+        abstract Cursor newCursor(int order, InputStream in, long count) throws IOException;
+
+        /** Returns a cursor over the chunk */
+        abstract Cursor chunkCursor(int order);
+
+        /** Pushes the elements of the chunk to a sink */
+        abstract void pushChunk(Sink<?> sink, boolean cancellationWasRequested);
+
+        /**
+         * Allocates the chunk for the given number of elements, or -1 if
+         * unknown.
+         */
+        final void initialize(long size) {
+            resize((size >= 0 && size < CAPACITY) ? (int) size : Math.min(16, CAPACITY));
+        }
+
+        /**
+         * Makes room in the full chunk for another element, either by
+         * spilling its elements or by growing it.
+         */
+        final void makeRoom() {
+            int n = length();
+            if (n < CAPACITY || !spillable || !spill())
+                resize(grownLength(n));
+        }
+
+        /**
+         * Sorts the chunk and spills it as a run, returning {@code false},
+         * and keeping the elements in the chunk, if they cannot be
+         * serialized.
+         */
+        private boolean spill() {
+            sortChunk();
+            Run run = newRun();
+            created.add(run);
+            try (OutputStream out = newOutput(run.openOutput())) {
+                writeChunk(out);
+            } catch (NotSerializableException e) {
+                run.delete();
+                spillable = false;
+                return false;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            run.count = count;
+            runs.add(run);
+            spilled += count;
+            clearChunk();
+            count = 0;
+            return true;
+        }
+
+        /**
+         * Pushes all of the elements, in order, to a sink.
+         */
+        final void push(Sink<?> sink, boolean cancellationWasRequested) {
+            sortChunk();
+            sink.begin(spilled + count);
+            if (runs.isEmpty()) {
+                pushChunk(sink, cancellationWasRequested);
+            }
+            else {
+                try {
+                    merge(sink, cancellationWasRequested);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+            sink.end();
+        }
+
+        private void merge(Sink<?> sink, boolean cancellationWasRequested) throws IOException {
+            // Merge groups of runs until the runs and the chunk can be merged
+            // at once, keeping the runs in order for stability
+            while (runs.size() >= FAN_IN) {
+                List<Run> merged = new ArrayList<>();
+                for (int i = 0; i < runs.size(); i += FAN_IN) {
+                    List<Run> group = runs.subList(i, Math.min(i + FAN_IN, runs.size()));
+                    if (group.size() == 1) {
+                        merged.add(group.get(0));
+                        continue;
+                    }
+                    Run run = newRun();
+                    created.add(run);
+                    try (OutputStream out = newOutput(run.openOutput())) {
+                        mergeCursors(cursors(group, 0), c -> {
+                            c.writeHead(out);
+                            return true;
+                        });
+                    }
+                    for (Run r : group) {
+                        run.count += r.count;
+                        r.delete();
+                    }
+                    merged.add(run);
+                }
+                runs = merged;
+            }
+
+            Cursor[] cursors = cursors(runs, 1);
+            cursors[runs.size()] = chunkCursor(runs.size());
+            mergeCursors(cursors, c -> {
+                if (cancellationWasRequested && sink.cancellationRequested())
+                    return false;
+                c.pushHead(sink);
+                return true;
+            });
+        }
+
+        // Returns cursors over the runs, with extra slots at the end
+        private Cursor[] cursors(List<Run> rs, int extra) throws IOException {
+            Cursor[] cursors = new Cursor[rs.size() + extra];
+            for (int i = 0; i < rs.size(); i++) {
+                Run r = rs.get(i);
+                cursors[i] = newCursor(i, r.openInput(), r.count);
+            }
+            return cursors;
+        }
+
+        /**
+         * Deletes the runs.
+         */
+        final void release() {
+            for (Run r : created)
+                r.delete();
+            created.clear();
+            runs.clear();
+        }
+    }
+
+    /**
+     * A sorter of references.
+     */
+    static final class RefSorter<T> extends Sorter {
+        private final Comparator<? super T> comparator;
+        private T[] chunk;
+
+        RefSorter(Comparator<? super T> comparator, long size) {
+            this.comparator = comparator;
+            initialize(size);
+        }
+
+        void add(T t) {
+            if (count == chunk.length)
+                makeRoom();
+            chunk[count++] = t;
+        }
+
+        @Override
+        int length() {
+            return chunk.length;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        void resize(int length) {
+            chunk = (chunk == null) ? (T[]) new Object[length] : Arrays.copyOf(chunk, length);
+        }
+
+        @Override
+        void sortChunk() {
+            Arrays.sort(chunk, 0, count, comparator);
+        }
+
+        @Override
+        void clearChunk() {
+            Arrays.fill(chunk, 0, count, null);
+        }
+
+        @Override
+        OutputStream newOutput(OutputStream out) throws IOException {
+            return new ElementOutputStream(out);
+        }
+
+        @Override
+        void writeChunk(OutputStream out) throws IOException {
+            ElementOutputStream eos = (ElementOutputStream) out;
+            for (int i = 0; i < count; i++)
+                eos.writeElement(chunk[i]);
+        }
+
+        @Override
+        Cursor newCursor(int order, InputStream in, long count) throws IOException {
+            return new RefCursor<>(order, comparator, null, new ObjectInputStream(in), count);
+        }
+
+        @Override
+        Cursor chunkCursor(int order) {
+            return new RefCursor<>(order, comparator, chunk, null, count);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        void pushChunk(Sink<?> sink, boolean cancellationWasRequested) {
+            Sink<T> s = (Sink<T>) sink;
+            if (!cancellationWasRequested) {
+                for (int i = 0; i < count; i++)
+                    s.accept(chunk[i]);
+            }
+            else {
+                for (int i = 0; i < count && !s.cancellationRequested(); i++)
+                    s.accept(chunk[i]);
+            }
+        }
+    }
+
+    private static final class RefCursor<T> extends Cursor {
+        private final Comparator<? super T> comparator;
+        private final T[] array;
+        private final ObjectInputStream in;
+        private long remaining;
+        private int index;
+        private T head;
+
+        RefCursor(int order, Comparator<? super T> comparator,
+                  T[] array, ObjectInputStream in, long count) {
+            super(order);
+            this.comparator = comparator;
+            this.array = array;
+            this.in = in;
+            this.remaining = count;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        boolean advance() throws IOException {
+            if (remaining == 0)
+                return false;
+            remaining--;
+            head = (array != null) ? array[index++] : (T) readElement(in);
+            return true;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        int compareHead(Cursor c) {
+            return comparator.compare(head, ((RefCursor<T>) c).head);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        void pushHead(Sink<?> sink) {
+            ((Sink<T>) sink).accept(head);
+        }
+
+        @Override
+        void writeHead(OutputStream out) throws IOException {
+            ((ElementOutputStream) out).writeElement(head);
+        }
+
+        @Override
+        void close() throws IOException {
+            if (in != null)
+                in.close();
+        }
+    }
+
+    /**
+     * A sorter of {@code int} values.
+     */
+    static final class IntSorter extends Sorter {
+        private int[] chunk;
+
+        IntSorter(long size) {
+            initialize(size);
+        }
+
+        void add(int t) {
+            if (count == chunk.length)
+                makeRoom();
+            chunk[count++] = t;
+        }
+
+        @Override
+        int length() {
+            return chunk.length;
+        }
+
+        @Override
+        void resize(int length) {
+            chunk = (chunk == null) ? new int[length] : Arrays.copyOf(chunk, length);
+        }
+
+        @Override
+        void sortChunk() {
+            Arrays.sort(chunk, 0, count);
+        }
+
+        @Override
+        void clearChunk() { }
+
+        @Override
+        OutputStream newOutput(OutputStream out) {
+            return new DataOutputStream(out);
+        }
+
+        @Override
+        void writeChunk(OutputStream out) throws IOException {
+            DataOutputStream dos = (DataOutputStream) out;
+            for (int i = 0; i < count; i++)
+                dos.writeInt(chunk[i]);
+        }
+
+        @Override
+        Cursor newCursor(int order, InputStream in, long count) {
+            return new IntCursor(order, null, new DataInputStream(in), count);
+        }
+
+        @Override
+        Cursor chunkCursor(int order) {
+            return new IntCursor(order, chunk, null, count);
+        }
+
+        @Override
+        void pushChunk(Sink<?> sink, boolean cancellationWasRequested) {
+            if (!cancellationWasRequested) {
+                for (int i = 0; i < count; i++)
+                    sink.accept(chunk[i]);
+            }
+            else {
+                for (int i = 0; i < count && !sink.cancellationRequested(); i++)
+                    sink.accept(chunk[i]);
+            }
+        }
+    }
+
+    private static final class IntCursor extends Cursor {
+        private final int[] array;
+        private final DataInputStream in;
+        private long remaining;
+        private int index;
+        private int head;
+
+        IntCursor(int order, int[] array, DataInputStream in, long count) {
+            super(order);
+            this.array = array;
+            this.in = in;
+            this.remaining = count;
+        }
+
+        @Override
+        boolean advance() throws IOException {
+            if (remaining == 0)
+                return false;
+            remaining--;
+            head = (array != null) ? array[index++] : in.readInt();
+            return true;
+        }
+
+        @Override
+        int compareHead(Cursor c) {
+            return Integer.compare(head, ((IntCursor) c).head);
+        }
+
+        @Override
+        void pushHead(Sink<?> sink) {
+            sink.accept(head);
+        }
+
+        @Override
+        void writeHead(OutputStream out) throws IOException {
+            ((DataOutputStream) out).writeInt(head);
+        }
+
+        @Override
+        void close() throws IOException {
+            if (in != null)
+                in.close();
+        }
+    }
+
+    /**
+     * A sorter of {@code long} values.
+     */
+    static final class LongSorter extends Sorter {
+        private long[] chunk;
+
+        LongSorter(long size) {
+            initialize(size);
+        }
+
+        void add(long t) {
+            if (count == chunk.length)
+                makeRoom();
+            chunk[count++] = t;
+        }
+
+        @Override
+        int length() {
+            return chunk.length;
+        }
+
+        @Override
+        void resize(int length) {
+            chunk = (chunk == null) ? new long[length] : Arrays.copyOf(chunk, length);
+        }
+
+        @Override
+        void sortChunk() {
+            Arrays.sort(chunk, 0, count);
+        }
+
+        @Override
+        void clearChunk() { }
+
+        @Override
+        OutputStream newOutput(OutputStream out) {
+            return new DataOutputStream(out);
+        }
+
+        @Override
+        void writeChunk(OutputStream out) throws IOException {
+            DataOutputStream dos = (DataOutputStream) out;
+            for (int i = 0; i < count; i++)
+                dos.writeLong(chunk[i]);
+        }
+
+        @Override
+        Cursor newCursor(int order, InputStream in, long count) {
+            return new LongCursor(order, null, new DataInputStream(in), count);
+        }
+
+        @Override
+        Cursor chunkCursor(int order) {
+            return new LongCursor(order, chunk, null, count);
+        }
+
+        @Override
+        void pushChunk(Sink<?> sink, boolean cancellationWasRequested) {
+            if (!cancellationWasRequested) {
+                for (int i = 0; i < count; i++)
+                    sink.accept(chunk[i]);
+            }
+            else {
+                for (int i = 0; i < count && !sink.cancellationRequested(); i++)
+                    sink.accept(chunk[i]);
+            }
+        }
+    }
+
+    private static final class LongCursor extends Cursor {
+        private final long[] array;
+        private final DataInputStream in;
+        private long remaining;
+        private int index;
+        private long head;
+
+        LongCursor(int order, long[] array, DataInputStream in, long count) {
+            super(order);
+            this.array = array;
+            this.in = in;
+            this.remaining = count;
+        }
+
+        @Override
+        boolean advance() throws IOException {
+            if (remaining == 0)
+                return false;
+            remaining--;
+            head = (array != null) ? array[index++] : in.readLong();
+            return true;
+        }
+
+        @Override
+        int compareHead(Cursor c) {
+            return Long.compare(head, ((LongCursor) c).head);
+        }
+
+        @Override
+        void pushHead(Sink<?> sink) {
+            sink.accept(head);
+        }
+
+        @Override
+        void writeHead(OutputStream out) throws IOException {
+            ((DataOutputStream) out).writeLong(head);
+        }
+
+        @Override
+        void close() throws IOException {
+            if (in != null)
+                in.close();
+        }
+    }
+
+    /**
+     * A sorter of {@code double} values.  Values are spilled by their raw
+     * bits, so that the values read back are the same, and are ordered as
+     * by {@link Arrays#sort(double[])}.
+     */
+    static final class DoubleSorter extends Sorter {
+        private double[] chunk;
+
+        DoubleSorter(long size) {
+            initialize(size);
+        }
+
+        void add(double t) {
+            if (count == chunk.length)
+                makeRoom();
+            chunk[count++] = t;
+        }
+
+        @Override
+        int length() {
+            return chunk.length;
+        }
+
+        @Override
+        void resize(int length) {
+            chunk = (chunk == null) ? new double[length] : Arrays.copyOf(chunk, length);
+        }
+
+        @Override
+        void sortChunk() {
+            Arrays.sort(chunk, 0, count);
+        }
+
+        @Override
+        void clearChunk() { }
+
+        @Override
+        OutputStream newOutput(OutputStream out) {
+            return new DataOutputStream(out);
+        }
+
+        @Override
+        void writeChunk(OutputStream out) throws IOException {
+            DataOutputStream dos = (DataOutputStream) out;
+            for (int i = 0; i < count; i++)
+                dos.writeLong(Double.doubleToRawLongBits(chunk[i]));
+        }
+
+        @Override
+        Cursor newCursor(int order, InputStream in, long count) {
+            return new DoubleCursor(order, null, new DataInputStream(in), count);
+        }
+
+        @Override
+        Cursor chunkCursor(int order) {
+            return new DoubleCursor(order, chunk, null, count);
+        }
+
+        @Override
+        void pushChunk(Sink<?> sink, boolean cancellationWasRequested) {
+            if (!cancellationWasRequested) {
+                for (int i = 0; i < count; i++)
+                    sink.accept(chunk[i]);
+            }
+            else {
+                for (int i = 0; i < count && !sink.cancellationRequested(); i++)
+                    sink.accept(chunk[i]);
+            }
+        }
+    }
+
+    private static final class DoubleCursor extends Cursor {
+        private final double[] array;
+        private final DataInputStream in;
+        private long remaining;
+        private int index;
+        private double head;
+
+        DoubleCursor(int order, double[] array, DataInputStream in, long count) {
+            super(order);
+            this.array = array;
+            this.in = in;
+            this.remaining = count;
+        }
+
+        @Override
+        boolean advance() throws IOException {
+            if (remaining == 0)
+                return false;
+            remaining--;
+            head = (array != null) ? array[index++] : Double.longBitsToDouble(in.readLong());
+            return true;
+        }
+
+        @Override
+        int compareHead(Cursor c) {
+            return Double.compare(head, ((DoubleCursor) c).head);
+        }
+
+        @Override
+        void pushHead(Sink<?> sink) {
+            sink.accept(head);
+        }
+
+        @Override
+        void writeHead(OutputStream out) throws IOException {
+            ((DataOutputStream) out).writeLong(Double.doubleToRawLongBits(head));
+        }
+
+        @Override
+        void close() throws IOException {
+            if (in != null)
+                in.close();
+        }
+    }
+
+    // Distinct
+
+    /**
+     * The set of elements seen by a distinct operation, which spills the
+     * elements not in it, with their position, once it holds as many
+     * elements as the threshold.  The spilled elements are buffered until
+     * as many are pending, and then written in a segment to each partition,
+     * as a count, a length and the serialized positions and elements.
+     */
+    static final class DistinctBuffer<T> {
+        private HashSet<T> seen = new HashSet<>();
+        // Non-null once seen is full, and until the elements are unspilled
+        private ArrayList<T> pending;
+        // The number of elements written to partitions
+        private long spilled;
+        private Run[] partitions;
+        private DataOutputStream[] outputs;
+        // Non-null if elements could not be serialized, the elements not in
+        // seen, in encounter order
+        private ArrayList<T> unspilled;
+        private final ArrayList<Run> created = new ArrayList<>();
+        // True if the set grows without bound, and no element is spilled
+        private boolean unbounded;
+
+        /**
+         * Stops spilling, for short-circuiting pipelines, where the first
+         * occurrences must be pushed as they are added.  Has no effect if
+         * elements have already been deferred, whose order must be kept.
+         */
+        void unbound() {
+            if (pending == null && unspilled == null)
+                unbounded = true;
+        }
+
+        /**
+         * Adds an element, returning {@code true} if it is to be pushed now,
+         * as the first occurrence of the element.
+         */
+        boolean add(T t) {
+            if (pending == null && unspilled == null) {
+                if (unbounded || seen.size() < CAPACITY)
+                    return seen.add(t);
+                pending = new ArrayList<>();
+            }
+            if (!seen.contains(t)) {
+                if (unspilled != null) {
+                    unspilled.add(t);
+                }
+                else {
+                    pending.add(t);
+                    if (pending.size() == CAPACITY)
+                        flush();
+                }
+            }
+            return false;
+        }
+
+        private static int partition(Object o) {
+            int h = (o == null) ? 0 : o.hashCode();
+            return ((h ^ (h >>> 16)) * 0x9E3779B9) >>> 26;
+        }
+
+        // Writes the pending elements to the partitions, or unspills all of
+        // the elements if they cannot all be serialized
+        private void flush() {
+            int n = pending.size();
+            if (n == 0)
+                return;
+            // Order the elements by partition, keeping encounter order
+            // within each partition
+            int[] parts = new int[n];
+            int[] starts = new int[FAN_IN + 1];
+            for (int i = 0; i < n; i++)
+                starts[(parts[i] = partition(pending.get(i))) + 1]++;
+            for (int p = 0; p < FAN_IN; p++)
+                starts[p + 1] += starts[p];
+            int[] next = Arrays.copyOf(starts, FAN_IN);
+            int[] order = new int[n];
+            for (int i = 0; i < n; i++)
+                order[next[parts[i]]++] = i;
+
+            try {
+                // Serialize all of the segments before writing any, so that
+                // the partitions never hold part of the pending elements
+                byte[][] segments = new byte[FAN_IN][];
+                for (int p = 0; p < FAN_IN; p++) {
+                    if (starts[p] == starts[p + 1])
+                        continue;
+                    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                    try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+                        for (int j = starts[p]; j < starts[p + 1]; j++) {
+                            out.writeLong(spilled + order[j]);
+                            out.writeObject(pending.get(order[j]));
+                        }
+                    }
+                    segments[p] = bytes.toByteArray();
+                }
+
+                if (partitions == null) {
+                    partitions = new Run[FAN_IN];
+                    outputs = new DataOutputStream[FAN_IN];
+                }
+                for (int p = 0; p < FAN_IN; p++) {
+                    if (segments[p] == null)
+                        continue;
+                    if (partitions[p] == null) {
+                        created.add(partitions[p] = newRun());
+                        outputs[p] = new DataOutputStream(partitions[p].openOutput());
+                    }
+                    int k = starts[p + 1] - starts[p];
+                    outputs[p].writeInt(k);
+                    outputs[p].writeInt(segments[p].length);
+                    outputs[p].write(segments[p]);
+                    partitions[p].count += k;
+                }
+            } catch (NotSerializableException e) {
+                unspill();
+                return;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            spilled += n;
+            pending.clear();
+        }
+
+        /**
+         * A consumer of the spilled elements of a partition.
+         */
+        private interface SegmentConsumer {
+            void accept(long index, Object o) throws IOException;
+        }
+
+        // Reads the elements of a partition, in encounter order
+        private void readPartition(Run partition, SegmentConsumer action) throws IOException {
+            try (DataInputStream in = new DataInputStream(partition.openInput())) {
+                for (long remaining = partition.count; remaining > 0; ) {
+                    int k = in.readInt();
+                    byte[] segment = new byte[in.readInt()];
+                    in.readFully(segment);
+                    try (ObjectInputStream ois =
+                                 new ObjectInputStream(new ByteArrayInputStream(segment))) {
+                        for (int j = 0; j < k; j++) {
+                            long index = ois.readLong();
+                            action.accept(index, readElement(ois));
+                        }
+                    }
+                    remaining -= k;
+                }
+            }
+        }
+
+        private void closeOutputs() throws IOException {
+            if (outputs != null) {
+                for (int p = 0; p < FAN_IN; p++) {
+                    if (outputs[p] != null) {
+                        outputs[p].close();
+                        outputs[p] = null;
+                    }
+                }
+            }
+        }
+
+        // Reads the spilled elements back, to be buffered on the heap with
+        // the pending elements
+        @SuppressWarnings("unchecked")
+        private void unspill() {
+            long n = spilled + pending.size();
+            if (n >= Nodes.MAX_ARRAY_SIZE)
+                throw new IllegalArgumentException(Nodes.BAD_SIZE);
+            Object[] elements = new Object[(int) n];
+            try {
+                closeOutputs();
+                if (partitions != null) {
+                    for (Run partition : partitions) {
+                        if (partition != null)
+                            readPartition(partition, (i, o) -> elements[(int) i] = o);
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            for (int i = 0; i < pending.size(); i++)
+                elements[(int) spilled + i] = pending.get(i);
+            release();
+            unspilled = new ArrayList<>((List<T>) Arrays.asList(elements));
+            pending = null;
+            partitions = null;
+        }
+
+        /**
+         * Pushes the first occurrences of the elements that were not pushed
+         * when added, in encounter order, to a sink.
+         */
+        void drain(Sink<? super T> sink) {
+            if (pending != null)
+                flush();
+            if (unspilled != null) {
+                for (T t : unspilled) {
+                    if (sink.cancellationRequested())
+                        break;
+                    if (seen.add(t))
+                        sink.accept(t);
+                }
+                return;
+            }
+            if (partitions == null)
+                return;
+
+            // The spilled elements are not in the set, which is no longer needed
+            seen = null;
+            try {
+                closeOutputs();
+                ArrayList<Cursor> cursors = new ArrayList<>();
+                for (Run partition : partitions) {
+                    if (partition == null)
+                        continue;
+                    HashSet<Object> firsts = new HashSet<>();
+                    Run run = newRun();
+                    created.add(run);
+                    try (ElementOutputStream out = new ElementOutputStream(run.openOutput())) {
+                        readPartition(partition, (i, o) -> {
+                            if (firsts.add(o)) {
+                                out.writeLong(i);
+                                out.writeElement(o);
+                                run.count++;
+                            }
+                        });
+                    }
+                    partition.delete();
+                    cursors.add(new IndexedCursor(cursors.size(),
+                                                  new ObjectInputStream(run.openInput()),
+                                                  run.count));
+                }
+                mergeCursors(cursors.toArray(new Cursor[0]), c -> {
+                    if (sink.cancellationRequested())
+                        return false;
+                    c.pushHead(sink);
+                    return true;
+                });
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        /**
+         * Deletes the partitions.
+         */
+        void release() {
+            try {
+                closeOutputs();
+            } catch (IOException ignore) {
+                // The runs are deleted regardless
+            }
+            for (Run r : created)
+                r.delete();
+            created.clear();
+        }
+    }
+
+    /**
+     * A cursor over elements with their position, ordered by position.
+     */
+    private static final class IndexedCursor extends Cursor {
+        private final ObjectInputStream in;
+        private long remaining;
+        private long index;
+        private Object head;
+
+        IndexedCursor(int order, ObjectInputStream in, long count) {
+            super(order);
+            this.in = in;
+            this.remaining = count;
+        }
+
+        @Override
+        boolean advance() throws IOException {
+            if (remaining == 0)
+                return false;
+            remaining--;
+            index = in.readLong();
+            head = readElement(in);
+            return true;
+        }
+
+        @Override
+        int compareHead(Cursor c) {
+            return Long.compare(index, ((IndexedCursor) c).index);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        void pushHead(Sink<?> sink) {
+            ((Sink<Object>) sink).accept(head);
+        }
+
+        @Override
+        void writeHead(OutputStream out) throws IOException {
+            ElementOutputStream eos = (ElementOutputStream) out;
+            eos.writeLong(index);
+            eos.writeElement(head);
+        }
+
+        @Override
+        void close() throws IOException {
+            in.close();
+        }
+    }
+}
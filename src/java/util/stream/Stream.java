@@ -329,6 +329,50 @@ public interface Stream<T> extends BaseStream<T, Stream<T>> {
      */
     DoubleStream flatMapToDouble(Function<? super T, ? extends DoubleStream> mapper);
 
+    /**
+     * Returns a stream consisting of the results of applying the given
+     * {@link Gatherer} to the elements of this stream.
+     *
+     * <p>The gatherer integrates the elements of this stream as they are
+     * produced, and may emit any number of elements for each of them, as
+     * well as once the end of this stream is reached; this stream is not
+     * buffered first.  Gatherers may be stateful, and may stop the
+     * processing of this stream early, in which case this operation is
+     * <em>short-circuiting</em>.  Elements are emitted in encounter order,
+     * unless this stream is unordered.  Gatherers that have a combiner are
+     * evaluated in parallel in parallel pipelines; others integrate their
+     * input sequentially, as described in {@link Gatherer}.
+     *
+     * <p>This is a <a href="package-summary.html#StreamOps">stateful
+     * intermediate operation</a>.
+     *
+     * @apiNote
+     * The following groups the elements of a stream of readings into
+     * batches of 10 readings, and emits the average of each batch:
+     * <pre>{@code
+     *     Stream<Double> averages
+     *         = readings.gather(Gatherers.windowFixed(10))
+     *                   .map(batch -> batch.stream().mapToDouble(Reading::value)
+     *                                      .average().getAsDouble());
+     * }</pre>
+     *
+     * @implSpec
+     * The default implementation obtains the {@link #spliterator() spliterator}
+     * of this stream, wraps it in a new stream, of the same parallelism,
+     * closing this stream when it is closed, and invokes this method on it.
+     *
+     * @param <R> the type of elements of the new stream
+     * @param gatherer the gatherer to apply to the elements of this stream
+     * @return the new stream
+     * @see Gatherers
+     * @since 1.9
+     */
+    default <R> Stream<R> gather(Gatherer<? super T, ?, R> gatherer) {
+        return StreamSupport.stream(spliterator(), isParallel())
+                            .gather(gatherer)
+                            .onClose(this::close);
+    }
+
     /**
      * Returns a stream consisting of the distinct elements (according to
      * {@link Object#equals(Object)}) of this stream.
@@ -354,6 +398,19 @@ public interface Stream<T> extends BaseStream<T, Stream<T>> {
      * switching to sequential execution with {@link #sequential()} may improve
      * performance.
      *
+     * @implNote
+     * If the system property {@code java.util.stream.spill.threshold} is set
+     * to a positive number of elements, and the system property
+     * {@code java.util.stream.spill.serialize} is {@code true}, the set of
+     * elements seen by a sequential {@code distinct()} is bounded by that
+     * number: the elements not in the set once it is full are spilled out of
+     * the heap, by serialization, to temporary files or to direct memory, and
+     * those that are distinct are pushed downstream, in encounter order, once
+     * all of the elements are consumed.  The elements pushed are then copies
+     * of the spilled elements, so spilling is only to be opted into for
+     * serializable elements whose copies are equal to them, and can be used
+     * in place of them.
+     *
      * @return the new stream
      */
     Stream<T> distinct();
@@ -370,6 +427,17 @@ public interface Stream<T> extends BaseStream<T, Stream<T>> {
      * <p>This is a <a href="package-summary.html#StreamOps">stateful
      * intermediate operation</a>.
      *
+     * @implNote
+     * If the system property {@code java.util.stream.spill.threshold} is set
+     * to a positive number of elements, sequential sorting operations on
+     * primitive streams perform an external merge sort, buffering at most that
+     * number of elements on the heap and spilling sorted runs of elements to
+     * temporary files or to direct memory.  Sorting operations on reference
+     * streams do so only if the system property
+     * {@code java.util.stream.spill.serialize} is {@code true}, since the
+     * elements are spilled by serialization and the elements pushed are then
+     * copies of them, rather than the elements themselves.
+     *
      * @return the new stream
      */
     Stream<T> sorted();
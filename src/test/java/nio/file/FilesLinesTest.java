@@ -0,0 +1,79 @@
+package test.java.nio.file;
+
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertEquals;
+
+public class FilesLinesTest {
+
+    static String randomText(Random r, int lines, int maxLength) {
+        String[] separators = { "\n", "\r", "\r\n" };
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < lines; i++) {
+            int n = r.nextInt(maxLength + 1);
+            for (int j = 0; j < n; j++)
+                sb.append((char) ('a' + r.nextInt(26)));
+            if (r.nextInt(10) == 0)
+                sb.append('\u00e9');
+            sb.append(separators[r.nextInt(separators.length)]);
+        }
+        return sb.toString();
+    }
+
+    static void assertLines(String text, Charset cs) throws IOException {
+        List<String> expected = new BufferedReader(new StringReader(text))
+            .lines().collect(Collectors.toList());
+        Path file = Files.createTempFile("lines", ".txt");
+        try {
+            Files.write(file, text.getBytes(cs));
+            try (Stream<String> s = Files.lines(file, cs)) {
+                assertEquals(expected, s.collect(Collectors.toList()));
+            }
+            try (Stream<String> s = Files.lines(file, cs)) {
+                assertEquals(expected, s.parallel().collect(Collectors.toList()));
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void parallelLinesMatchSequentialLines() throws IOException {
+        Random r = new Random(11);
+        for (Charset cs : Arrays.asList(StandardCharsets.UTF_8,
+                                        StandardCharsets.ISO_8859_1)) {
+            assertLines(randomText(r, 100000, 80), cs);
+            assertLines(randomText(r, 3, 5), cs);
+            assertLines("no separator", cs);
+            assertLines("\n\r\n\r\r\n\n", cs);
+        }
+    }
+
+    @Test
+    public void longLinesAreNotSplit() throws IOException {
+        Random r = new Random(12);
+        // Lines longer than the distance scanned for a separator when
+        // splitting, among short ones
+        StringBuilder sb = new StringBuilder(randomText(r, 1000, 20));
+        char[] line = new char[3 << 20];
+        Arrays.fill(line, 'x');
+        sb.append(line).append('\n');
+        sb.append(randomText(r, 1000, 20));
+        sb.append(line).append("\r\n");
+        sb.append(line);
+        assertLines(sb.toString(), StandardCharsets.UTF_8);
+    }
+}
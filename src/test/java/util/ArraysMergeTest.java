@@ -0,0 +1,94 @@
+package test.java.util;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class ArraysMergeTest {
+
+    static int[][] sortedRuns(Random r, int k, int maxLength) {
+        int[][] runs = new int[k][];
+        for (int i = 0; i < k; i++) {
+            runs[i] = r.ints(r.nextInt(maxLength + 1), -1000, 1000).toArray();
+            Arrays.sort(runs[i]);
+        }
+        return runs;
+    }
+
+    static int[] concatSorted(int[][] runs) {
+        int[] all = Arrays.stream(runs).flatMapToInt(Arrays::stream).toArray();
+        Arrays.sort(all);
+        return all;
+    }
+
+    @Test
+    public void mergeInts() {
+        Random r = new Random(1);
+        for (int k = 0; k <= 9; k++) {
+            int[][] runs = sortedRuns(r, k, 50);
+            assertArrayEquals(concatSorted(runs), Arrays.merge(runs));
+        }
+    }
+
+    @Test
+    public void parallelMergeInts() {
+        Random r = new Random(2);
+        int[][] runs = sortedRuns(r, 7, 100000);
+        assertArrayEquals(concatSorted(runs), Arrays.parallelMerge(runs));
+    }
+
+    /** Elements ordered by key alone, remembering where they came from */
+    static final class Tagged {
+        final int key, run, index;
+        Tagged(int key, int run, int index) {
+            this.key = key; this.run = run; this.index = index;
+        }
+    }
+
+    static void assertStable(Tagged[] merged, int expectedLength) {
+        assertEquals(expectedLength, merged.length);
+        for (int i = 1; i < merged.length; i++) {
+            Tagged a = merged[i - 1], b = merged[i];
+            assertTrue(a.key < b.key ||
+                       (a.key == b.key &&
+                        (a.run < b.run || (a.run == b.run && a.index < b.index))));
+        }
+    }
+
+    @Test
+    public void objectMergeIsStable() {
+        Random r = new Random(3);
+        Comparator<Tagged> byKey = Comparator.comparingInt(t -> t.key);
+        for (int k = 1; k <= 6; k++) {
+            Tagged[][] runs = new Tagged[k][];
+            int total = 0;
+            for (int i = 0; i < k; i++) {
+                int[] keys = r.ints(r.nextInt(40000), 0, 20).sorted().toArray();
+                runs[i] = new Tagged[keys.length];
+                for (int j = 0; j < keys.length; j++)
+                    runs[i][j] = new Tagged(keys[j], i, j);
+                total += keys.length;
+            }
+            assertStable(Arrays.merge(byKey, runs), total);
+            assertStable(Arrays.parallelMerge(byKey, runs), total);
+        }
+    }
+
+    @Test
+    public void resultHasDeclaredComponentType() {
+        Number[][] runs = { new Integer[] { 1, 4 }, new Integer[] { 2, 3 } };
+        Comparator<Number> c = Comparator.comparingInt(Number::intValue);
+        Number[] merged = Arrays.merge(c, runs);
+        assertSame(Number[].class, merged.getClass());
+        assertArrayEquals(new Number[] { 1, 2, 3, 4 }, merged);
+        String[] strings = Arrays.merge(null, new String[][] { { "a", "c" }, { "b" } });
+        assertArrayEquals(new String[] { "a", "b", "c" }, strings);
+    }
+}
@@ -0,0 +1,136 @@
+package test.java.util;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ArraysRadixSortTest {
+
+    /** Large enough for the radix sort paths of parallelSort */
+    static final int LARGE = (1 << 22) + 17;
+
+    @Test
+    public void parallelSortLargeIntArrays() {
+        Random r = new Random(41);
+        int[] a = r.ints(LARGE).toArray();
+        int[] expected = a.clone();
+        Arrays.sort(expected);
+        Arrays.parallelSort(a);
+        assertArrayEquals(expected, a);
+
+        // Small non-negative values, for which high digit passes are skipped
+        a = r.ints(LARGE, 0, 1000).toArray();
+        expected = a.clone();
+        Arrays.sort(expected, 5, LARGE - 5);
+        Arrays.parallelSort(a, 5, LARGE - 5);
+        assertArrayEquals(expected, a);
+    }
+
+    @Test
+    public void parallelSortLargeLongArrays() {
+        Random r = new Random(43);
+        long[] a = r.longs(LARGE).toArray();
+        for (int i = 0; i < 1000; i++)
+            a[r.nextInt(LARGE)] = (i % 2 == 0) ? Long.MIN_VALUE : Long.MAX_VALUE;
+        long[] expected = a.clone();
+        Arrays.sort(expected);
+        Arrays.parallelSort(a);
+        assertArrayEquals(expected, a);
+    }
+
+    /**
+     * Floating-point values sort as in Arrays.sort, with -0.0 before
+     * 0.0 and NaNs last.
+     */
+    @Test
+    public void parallelSortLargeFloatingPointArrays() {
+        Random r = new Random(47);
+        double[] specials = { Double.NaN, -0.0, 0.0, Double.NEGATIVE_INFINITY,
+                              Double.POSITIVE_INFINITY, Double.MIN_VALUE,
+                              -Double.MAX_VALUE };
+        double[] d = new double[LARGE];
+        float[] f = new float[LARGE];
+        for (int i = 0; i < LARGE; i++) {
+            d[i] = (r.nextInt(100) == 0) ? specials[r.nextInt(specials.length)]
+                : r.nextGaussian() * 1e6;
+            f[i] = (float) d[i];
+        }
+        double[] de = d.clone();
+        float[] fe = f.clone();
+        Arrays.sort(de);
+        Arrays.sort(fe);
+        Arrays.parallelSort(d);
+        Arrays.parallelSort(f);
+        for (int i = 0; i < LARGE; i++) {
+            assertEquals(Double.doubleToLongBits(de[i]), Double.doubleToLongBits(d[i]));
+            assertEquals(Float.floatToIntBits(fe[i]), Float.floatToIntBits(f[i]));
+        }
+    }
+
+    static final class Item {
+        final int key;
+        final int seq;
+        Item(int key, int seq) { this.key = key; this.seq = seq; }
+    }
+
+    static Item[] items(Random r, int n, int keys) {
+        Item[] a = new Item[n];
+        for (int i = 0; i < n; i++)
+            a[i] = new Item(r.nextInt(keys) - keys / 2, i);
+        return a;
+    }
+
+    /**
+     * The key-extractor sorts are stable, for arrays both above and
+     * below the size at which they use the radix sort.
+     */
+    @Test
+    public void sortByKeyIsStable() {
+        Random r = new Random(53);
+        for (int n : new int[] { 0, 1, 100, 8192, 8193, 200000 }) {
+            Item[] a = items(r, n, 50);
+            Item[] expected = a.clone();
+            Arrays.sort(expected, Comparator.comparingInt(x -> x.key));
+
+            Item[] b = a.clone();
+            Arrays.parallelSortByIntKey(b, x -> x.key);
+            assertArrayEquals(expected, b);
+
+            b = a.clone();
+            Arrays.parallelSortByLongKey(b, x -> (long) x.key << 32);
+            assertArrayEquals(expected, b);
+
+            b = a.clone();
+            Arrays.parallelSortByDoubleKey(b, x -> x.key / 4.0);
+            assertArrayEquals(expected, b);
+        }
+    }
+
+    @Test
+    public void sortByDoubleKeyOrdersLikeDoubleCompare() {
+        Random r = new Random(59);
+        double[] specials = { Double.NaN, -0.0, 0.0, Double.NEGATIVE_INFINITY,
+                              Double.POSITIVE_INFINITY };
+        Double[] a = new Double[50000];
+        for (int i = 0; i < a.length; i++)
+            a[i] = (r.nextInt(10) == 0) ? specials[r.nextInt(specials.length)]
+                : r.nextDouble() - 0.5;
+        Double[] expected = a.clone();
+        Arrays.sort(expected);
+        Arrays.parallelSortByDoubleKey(a, x -> x);
+        for (int i = 0; i < a.length; i++)
+            assertTrue(expected[i].equals(a[i]));
+        try {
+            Arrays.parallelSortByIntKey(new Integer[1], null);
+            fail();
+        } catch (NullPointerException expected2) {
+        }
+    }
+}
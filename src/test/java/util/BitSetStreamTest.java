@@ -0,0 +1,65 @@
+package test.java.util;
+
+import org.junit.Test;
+
+import java.util.BitSet;
+import java.util.Random;
+import java.util.Spliterator;
+import java.util.stream.IntStream;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+public class BitSetStreamTest {
+
+    static int[] bitsOf(BitSet bs) {
+        IntStream.Builder b = IntStream.builder();
+        for (int i = bs.nextSetBit(0); i >= 0; i = bs.nextSetBit(i + 1))
+            b.add(i);
+        return b.build().toArray();
+    }
+
+    @Test
+    public void sequentialAndParallelStreamsMatchNextSetBit() {
+        Random r = new Random(37);
+        for (int n : new int[] { 0, 1, 63, 64, 65, 1000, 1 << 20 }) {
+            BitSet bs = new BitSet();
+            for (int i = 0; i < n; i++)
+                if (r.nextInt(3) == 0)
+                    bs.set(i);
+            if (n > 0)
+                bs.set(n - 1);
+            int[] expected = bitsOf(bs);
+            assertArrayEquals(expected, bs.stream().toArray());
+            assertArrayEquals(expected, bs.stream().parallel().toArray());
+            assertEquals(expected.length, bs.stream().parallel().count());
+            assertEquals(IntStream.of(expected).sum(), bs.stream().parallel().sum());
+        }
+    }
+
+    /**
+     * The stream binds late, and its spliterator splits and reports
+     * an exact size until split.
+     */
+    @Test
+    public void spliteratorBindsLateAndSplits() {
+        BitSet bs = new BitSet();
+        IntStream s = bs.stream();
+        bs.set(3);
+        bs.set(100000);
+        assertArrayEquals(new int[] { 3, 100000 }, s.toArray());
+
+        Spliterator.OfInt root = bs.stream().spliterator();
+        assertEquals(2, root.getExactSizeIfKnown());
+        assertTrue(root.hasCharacteristics(Spliterator.SORTED | Spliterator.DISTINCT));
+        Spliterator.OfInt prefix = root.trySplit();
+        assertNotNull(prefix);
+        int[] seen = new int[2];
+        int[] count = new int[1];
+        prefix.forEachRemaining((int i) -> seen[count[0]++] = i);
+        root.forEachRemaining((int i) -> seen[count[0]++] = i);
+        assertArrayEquals(new int[] { 3, 100000 }, seen);
+    }
+}
@@ -0,0 +1,226 @@
+package test.java.util;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.CompactHashMap;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class CompactHashMapTest {
+
+    /** A key whose hash codes collide in groups of ten */
+    static final class Key implements Serializable {
+        private static final long serialVersionUID = 1L;
+        final int id;
+        Key(int id) { this.id = id; }
+        public int hashCode() { return id / 10; }
+        public boolean equals(Object o) {
+            return o instanceof Key && ((Key) o).id == id;
+        }
+        public String toString() { return "k" + id; }
+    }
+
+    static Key key(Random r, int range) {
+        int id = r.nextInt(range);
+        return (id == 0) ? null : new Key(id);
+    }
+
+    static <K,V> void assertSameOrder(Map<K,V> expected, Map<K,V> map) {
+        assertEquals(expected, map);
+        assertEquals(map, expected);
+        assertEquals(expected.hashCode(), map.hashCode());
+        assertEquals(new ArrayList<>(expected.entrySet()),
+                     new ArrayList<>(map.entrySet()));
+        assertEquals(new ArrayList<>(expected.keySet()),
+                     map.keySet().stream().collect(Collectors.toList()));
+        assertEquals(new ArrayList<>(expected.values()),
+                     map.values().parallelStream().collect(Collectors.toList()));
+    }
+
+    @SuppressWarnings("unchecked")
+    static <T> T serialClone(T o) throws Exception {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        try (ObjectOutputStream oos = new ObjectOutputStream(bos)) {
+            oos.writeObject(o);
+        }
+        try (ObjectInputStream ois = new ObjectInputStream(
+                 new ByteArrayInputStream(bos.toByteArray()))) {
+            return (T) ois.readObject();
+        }
+    }
+
+    /**
+     * Applies random updates, including null keys and values and
+     * colliding keys, to a LinkedHashMap and a CompactHashMap.
+     */
+    @Test
+    public void behavesLikeLinkedHashMap() throws Exception {
+        Random r = new Random(17);
+        Map<Key,Integer> expected = new LinkedHashMap<>();
+        CompactHashMap<Key,Integer> map = new CompactHashMap<>();
+        for (int round = 0; round < 60000; round++) {
+            Key k = key(r, 3000);
+            Integer v = (r.nextInt(20) == 0) ? null : r.nextInt(100);
+            switch (r.nextInt(8)) {
+            case 0:
+            case 1:
+                assertEquals(expected.remove(k), map.remove(k));
+                break;
+            case 2:
+                assertEquals(expected.putIfAbsent(k, v), map.putIfAbsent(k, v));
+                break;
+            case 3:
+                assertEquals(expected.remove(k, v), map.remove(k, v));
+                break;
+            case 4:
+                if (v != null)
+                    assertEquals(expected.merge(k, v, Integer::sum),
+                                 map.merge(k, v, Integer::sum));
+                break;
+            default:
+                assertEquals(expected.put(k, v), map.put(k, v));
+            }
+            assertEquals(expected.size(), map.size());
+            assertEquals(expected.containsKey(k), map.containsKey(k));
+            assertEquals(expected.getOrDefault(k, -1), map.getOrDefault(k, -1));
+            if (round % 5000 == 0)
+                assertSameOrder(expected, map);
+        }
+        assertSameOrder(expected, map);
+        assertEquals(expected.containsValue(null), map.containsValue(null));
+        assertSameOrder(expected, serialClone(map));
+        @SuppressWarnings("unchecked")
+        Map<Key,Integer> copy = (Map<Key,Integer>) map.clone();
+        map.trimToSize();
+        assertSameOrder(expected, map);
+        map.clear();
+        assertTrue(map.isEmpty());
+        assertSameOrder(expected, copy);
+        assertEquals(expected.toString(), copy.toString());
+    }
+
+    /**
+     * Grows past the largest map with a short[] index, then removes
+     * most entries.
+     */
+    @Test
+    public void largeMaps() {
+        Map<Integer,Integer> expected = new LinkedHashMap<>();
+        CompactHashMap<Integer,Integer> map = new CompactHashMap<>(4);
+        for (int i = 0; i < 200000; i++) {
+            expected.put(i * 7, i);
+            map.put(i * 7, i);
+        }
+        assertSameOrder(expected, map);
+        expected.keySet().removeIf(k -> k % 3 != 0);
+        map.keySet().removeIf(k -> k % 3 != 0);
+        assertSameOrder(expected, map);
+        for (int i = 0; i < 1000; i++) {
+            expected.put(-i, i);
+            map.put(-i, i);
+        }
+        assertSameOrder(expected, map);
+        assertEquals(expected, new CompactHashMap<>(expected));
+    }
+
+    @Test
+    public void iteratorsAndEntries() {
+        CompactHashMap<String,Integer> map = new CompactHashMap<>();
+        for (int i = 0; i < 10; i++)
+            map.put("k" + i, i);
+        List<String> removed = new ArrayList<>();
+        for (Iterator<Map.Entry<String,Integer>> it = map.entrySet().iterator();
+             it.hasNext(); ) {
+            Map.Entry<String,Integer> e = it.next();
+            if (e.getValue() % 2 == 0) {
+                it.remove();
+                removed.add(e.getKey());
+                try {
+                    it.remove();
+                    fail();
+                } catch (IllegalStateException expected) {
+                }
+            }
+            else
+                assertEquals(e.getValue(), e.setValue(e.getValue() * 10));
+        }
+        assertEquals(5, removed.size());
+        assertEquals(5, map.size());
+        assertEquals(Integer.valueOf(30), map.get("k3"));
+        assertNull(map.get("k4"));
+
+        // Entries read through to the map
+        Map.Entry<String,Integer> first = map.entrySet().iterator().next();
+        map.put("k1", -1);
+        assertEquals(Integer.valueOf(-1), first.getValue());
+
+        map.replaceAll((k, v) -> v + 1);
+        assertEquals(Integer.valueOf(0), map.get("k1"));
+
+        Iterator<String> it = map.keySet().iterator();
+        it.next();
+        map.put("new", 0);
+        try {
+            it.next();
+            fail();
+        } catch (ConcurrentModificationException expected) {
+        }
+        assertFalse(map.values().contains(40));
+        assertTrue(map.entrySet().contains(new java.util.AbstractMap.SimpleEntry<>("new", 0)));
+    }
+
+    /**
+     * Iterators fail fast when an insertion squeezes out holes, or a
+     * removal through the map trims the trailing entries, rather than
+     * silently ending early.
+     */
+    @Test
+    public void iteratorsFailFastWhenEntriesMove() {
+        CompactHashMap<Integer,Integer> map = new CompactHashMap<>(8);
+        for (int i = 0; i < 8; i++)
+            map.put(i, i);
+        for (int i = 0; i < 4; i++)
+            map.remove(i);
+        Iterator<Integer> it = map.keySet().iterator();
+        assertEquals(Integer.valueOf(4), it.next());
+        assertEquals(Integer.valueOf(5), it.next());
+        assertEquals(Integer.valueOf(6), it.next());
+        map.put(8, 8);          // full entry arrays, half holes: compacts
+        try {
+            it.hasNext();
+            fail();
+        } catch (ConcurrentModificationException expected) {
+        }
+
+        it = map.keySet().iterator();
+        assertEquals(Integer.valueOf(4), it.next());
+        map.remove(8);          // the trailing entry
+        try {
+            it.hasNext();
+            fail();
+        } catch (ConcurrentModificationException expected) {
+        }
+        try {
+            it.next();
+            fail();
+        } catch (ConcurrentModificationException expected) {
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package test.java.util;
+
+import org.junit.Test;
+
+import java.util.BitSet;
+import java.util.CompressedBitSet;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class CompressedBitSetTest {
+
+    static final int CHUNK = 1 << 16;
+
+    /**
+     * Returns a random bit set whose chunks are variously empty,
+     * sparse, dense and made of runs, spread over the given number
+     * of chunks.
+     */
+    static BitSet randomBits(Random r, int chunks) {
+        BitSet bs = new BitSet();
+        for (int c = 0; c < chunks; c++) {
+            int base = c * CHUNK;
+            switch (r.nextInt(4)) {
+            case 0:
+                break;
+            case 1:
+                for (int i = r.nextInt(200); i > 0; i--)
+                    bs.set(base + r.nextInt(CHUNK));
+                break;
+            case 2:
+                for (int i = r.nextInt(20000); i > 0; i--)
+                    bs.set(base + r.nextInt(CHUNK));
+                break;
+            default:
+                for (int i = r.nextInt(10); i > 0; i--) {
+                    int from = base + r.nextInt(CHUNK);
+                    bs.set(from, Math.min(base + CHUNK, from + r.nextInt(5000)));
+                }
+            }
+        }
+        return bs;
+    }
+
+    static void assertSameBits(BitSet expected, CompressedBitSet set) {
+        assertEquals(expected, set.toBitSet());
+        assertEquals(expected.cardinality(), set.cardinality());
+        assertEquals(expected.length(), set.length());
+        assertEquals(expected.isEmpty(), set.isEmpty());
+        assertArrayEquals(expected.stream().toArray(), set.stream().toArray());
+        assertArrayEquals(expected.stream().toArray(),
+                          set.stream().parallel().toArray());
+        assertEquals(expected.cardinality(), set.stream().parallel().count());
+    }
+
+    @Test
+    public void singleBitAndRangeOperationsMatchBitSet() {
+        Random r = new Random(23);
+        BitSet expected = new BitSet();
+        CompressedBitSet set = new CompressedBitSet();
+        int limit = 8 * CHUNK;
+        for (int round = 0; round < 20000; round++) {
+            int i = r.nextInt(limit);
+            switch (r.nextInt(6)) {
+            case 0:
+                expected.clear(i);
+                set.clear(i);
+                break;
+            case 1: {
+                int to = Math.min(limit, i + r.nextInt(3 * CHUNK / 2));
+                expected.set(i, to);
+                set.set(i, to);
+                break;
+            }
+            case 2: {
+                int to = Math.min(limit, i + r.nextInt(CHUNK));
+                expected.clear(i, to);
+                set.clear(i, to);
+                break;
+            }
+            default:
+                expected.set(i);
+                set.set(i, true);
+            }
+            assertEquals(expected.get(i), set.get(i));
+            assertEquals(expected.nextSetBit(i), set.nextSetBit(i));
+            assertEquals(expected.previousSetBit(i), set.previousSetBit(i));
+            if (round == 10000)
+                set.optimize();
+        }
+        assertSameBits(expected, set);
+        assertEquals(set, CompressedBitSet.valueOf(expected));
+        assertEquals(set.hashCode(), CompressedBitSet.valueOf(expected).hashCode());
+        assertEquals(expected.toString(), set.toString());
+        set.clear();
+        assertTrue(set.isEmpty());
+        assertEquals(-1, set.nextSetBit(0));
+    }
+
+    /**
+     * Bulk operations on sets with few chunks, and with enough to
+     * combine containers in parallel.
+     */
+    @Test
+    public void bulkOperationsMatchBitSet() {
+        Random r = new Random(29);
+        for (int chunks : new int[] { 3, 150 }) {
+            BitSet a = randomBits(r, chunks), b = randomBits(r, chunks);
+            CompressedBitSet ca = CompressedBitSet.valueOf(a);
+            CompressedBitSet cb = CompressedBitSet.valueOf(b);
+            if (r.nextBoolean())
+                cb.optimize();
+            assertEquals(a.intersects(b), ca.intersects(cb));
+            for (int op = 0; op < 4; op++) {
+                BitSet expected = (BitSet) a.clone();
+                CompressedBitSet set = (CompressedBitSet) ca.clone();
+                switch (op) {
+                case 0: expected.and(b); set.and(cb); break;
+                case 1: expected.or(b); set.or(cb); break;
+                case 2: expected.andNot(b); set.andNot(cb); break;
+                default: expected.xor(b); set.xor(cb);
+                }
+                assertSameBits(expected, set);
+                // Operands are unchanged
+                assertEquals(a, ca.toBitSet());
+                assertEquals(b, cb.toBitSet());
+            }
+        }
+    }
+
+    @Test
+    public void rankAndSelect() {
+        BitSet bs = randomBits(new Random(31), 20);
+        CompressedBitSet set = CompressedBitSet.valueOf(bs);
+        int n = 0;
+        for (int i = bs.nextSetBit(0); i >= 0; i = bs.nextSetBit(i + 1), n++) {
+            assertEquals(n, set.rank(i));
+            assertEquals(i, set.select(n));
+        }
+        assertEquals(n, set.rank(Integer.MAX_VALUE));
+        set.clear(set.select(0));
+        assertEquals(n - 1, set.rank(Integer.MAX_VALUE));
+        try {
+            set.select(n - 1);
+            fail();
+        } catch (IndexOutOfBoundsException expected) {
+        }
+        try {
+            set.rank(-1);
+            fail();
+        } catch (IndexOutOfBoundsException expected) {
+        }
+    }
+
+    @Test
+    public void sparseSetsAreSmall() {
+        CompressedBitSet set = new CompressedBitSet();
+        set.set(0);
+        set.set(Integer.MAX_VALUE);
+        assertEquals(Integer.MAX_VALUE, set.nextSetBit(1));
+        assertEquals(0, set.previousSetBit(Integer.MAX_VALUE - 1));
+        assertEquals(2, set.cardinality());
+        assertTrue(set.sizeInBytes() < 1024);
+        set.set(CHUNK, 100 * CHUNK);
+        long before = set.sizeInBytes();
+        set.optimize();
+        assertTrue(set.sizeInBytes() <= before);
+        assertTrue(set.sizeInBytes() < 100 * 8192);
+        assertFalse(set.get(100 * CHUNK));
+        assertEquals(99 * CHUNK + 2, set.cardinality());
+    }
+}
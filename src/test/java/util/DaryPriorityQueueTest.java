@@ -0,0 +1,118 @@
+package test.java.util;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.DaryPriorityQueue;
+import java.util.Iterator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class DaryPriorityQueueTest {
+
+    static <E> List<E> drain(java.util.Queue<E> q) {
+        List<E> result = new ArrayList<>();
+        for (E e; (e = q.poll()) != null; )
+            result.add(e);
+        return result;
+    }
+
+    @Test
+    public void behavesLikePriorityQueueForEachArity() {
+        for (int arity = 2; arity <= 64; arity <<= 1) {
+            Random r = new Random(arity);
+            PriorityQueue<Integer> expected = new PriorityQueue<>(Comparator.reverseOrder());
+            DaryPriorityQueue<Integer> q =
+                new DaryPriorityQueue<>(1, arity, Comparator.reverseOrder());
+            assertEquals(arity, q.arity());
+            for (int round = 0; round < 20000; round++) {
+                Integer v = r.nextInt(1000);
+                switch (r.nextInt(5)) {
+                case 0:
+                    assertEquals(expected.poll(), q.poll());
+                    break;
+                case 1:
+                    assertEquals(expected.remove(v), q.remove(v));
+                    break;
+                default:
+                    assertTrue(q.offer(v));
+                    expected.offer(v);
+                }
+                assertEquals(expected.size(), q.size());
+                assertEquals(expected.peek(), q.peek());
+                assertEquals(expected.contains(v), q.contains(v));
+            }
+            assertEquals(drain(expected), drain(q));
+            assertNull(q.poll());
+        }
+    }
+
+    @Test
+    public void iteratorRemoveVisitsEachElementOnce() {
+        Random r = new Random(61);
+        DaryPriorityQueue<Integer> q = new DaryPriorityQueue<>();
+        List<Integer> kept = new ArrayList<>(), seen = new ArrayList<>();
+        for (int i = 0; i < 5000; i++)
+            q.add(r.nextInt());
+        List<Integer> all = new ArrayList<>(q);
+        for (Iterator<Integer> it = q.iterator(); it.hasNext(); ) {
+            Integer e = it.next();
+            seen.add(e);
+            if (r.nextBoolean())
+                it.remove();
+            else
+                kept.add(e);
+        }
+        Collections.sort(all);
+        Collections.sort(seen);
+        Collections.sort(kept);
+        assertEquals(all, seen);
+        assertEquals(kept, drain(q));
+    }
+
+    @Test
+    public void argumentsAndSerialization() throws Exception {
+        try {
+            new DaryPriorityQueue<Integer>(1, 3, null);
+            fail();
+        } catch (IllegalArgumentException expected) {
+        }
+        try {
+            new DaryPriorityQueue<Integer>(1, 128, null);
+            fail();
+        } catch (IllegalArgumentException expected) {
+        }
+        DaryPriorityQueue<String> q = new DaryPriorityQueue<>();
+        try {
+            q.add(null);
+            fail();
+        } catch (NullPointerException expected) {
+        }
+        for (int i = 0; i < 100; i++)
+            q.add(String.valueOf(i));
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        try (ObjectOutputStream oos = new ObjectOutputStream(bos)) {
+            oos.writeObject(q);
+        }
+        DaryPriorityQueue<?> copy;
+        try (ObjectInputStream ois = new ObjectInputStream(
+                 new ByteArrayInputStream(bos.toByteArray()))) {
+            copy = (DaryPriorityQueue<?>) ois.readObject();
+        }
+        assertEquals(q.arity(), copy.arity());
+        assertEquals(drain(q), drain(copy));
+        assertEquals(0, q.stream().count());
+    }
+}
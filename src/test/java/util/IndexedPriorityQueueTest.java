@@ -0,0 +1,142 @@
+package test.java.util;
+
+import org.junit.Test;
+
+import java.util.ConcurrentModificationException;
+import java.util.HashMap;
+import java.util.IndexedPriorityQueue;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class IndexedPriorityQueueTest {
+
+    static int min(Map<Integer,Integer> live) {
+        int m = Integer.MAX_VALUE;
+        for (int v : live.values())
+            m = Math.min(m, v);
+        return m;
+    }
+
+    /**
+     * Checks every operation against a map from handles to elements.
+     */
+    @Test
+    public void handlesTrackElements() {
+        for (int arity : new int[] { 2, 4, 64 }) {
+            Random r = new Random(arity);
+            IndexedPriorityQueue<Integer> q = new IndexedPriorityQueue<>(1, arity, null);
+            Map<Integer,Integer> live = new HashMap<>();
+            int maxSize = 0;
+            for (int round = 0; round < 20000; round++) {
+                Integer v = r.nextInt(10000);
+                int h = live.isEmpty() ? -1 : q.peekHandle();
+                if (!live.isEmpty() && r.nextBoolean()) {
+                    // pick a random live handle
+                    Integer[] hs = live.keySet().toArray(new Integer[0]);
+                    h = hs[r.nextInt(hs.length)];
+                }
+                switch (r.nextInt(6)) {
+                case 0:
+                    if (h >= 0) {
+                        assertEquals(live.remove(h), q.removeHandle(h));
+                        assertFalse(q.containsHandle(h));
+                    }
+                    break;
+                case 1:
+                    if (h >= 0) {
+                        assertEquals(live.put(h, v), q.changeKey(h, v));
+                    }
+                    break;
+                case 2:
+                    if (h >= 0 && v <= live.get(h)) {
+                        q.decreaseKey(h, v);
+                        live.put(h, v);
+                    }
+                    break;
+                case 3:
+                    if (h >= 0) {
+                        int head = q.peekHandle();
+                        assertEquals(live.remove(head), q.poll());
+                    }
+                    break;
+                default:
+                    int nh = q.insert(v);
+                    assertNull(live.put(nh, v));
+                    maxSize = Math.max(maxSize, live.size());
+                    assertTrue(nh < maxSize);
+                }
+                assertEquals(live.size(), q.size());
+                if (!live.isEmpty()) {
+                    assertEquals(min(live), (int) q.peek());
+                    assertEquals(q.peek(), live.get(q.peekHandle()));
+                }
+                for (Map.Entry<Integer,Integer> e : live.entrySet())
+                    if (r.nextInt(live.size()) == 0)
+                        assertEquals(e.getValue(), q.get(e.getKey()));
+            }
+        }
+    }
+
+    @Test
+    public void invalidHandlesAndKeys() {
+        IndexedPriorityQueue<Integer> q = new IndexedPriorityQueue<>();
+        int h = q.insert(5);
+        try {
+            q.decreaseKey(h, 6);
+            fail();
+        } catch (IllegalArgumentException expected) {
+        }
+        assertEquals(Integer.valueOf(5), q.removeHandle(h));
+        for (int bad : new int[] { h, -1, 100 }) {
+            assertFalse(q.containsHandle(bad));
+            try {
+                q.get(bad);
+                fail();
+            } catch (NoSuchElementException expected) {
+            }
+        }
+        try {
+            q.insert(null);
+            fail();
+        } catch (NullPointerException expected) {
+        }
+        assertEquals(-1, q.peekHandle());
+    }
+
+    @Test
+    public void iteratorAndRemove() {
+        IndexedPriorityQueue<Integer> q = new IndexedPriorityQueue<>();
+        int[] hs = new int[10];
+        for (int i = 0; i < 10; i++)
+            hs[i] = q.insert(100 - i);
+        assertTrue(q.remove(95));
+        assertFalse(q.contains(95));
+        int count = 0;
+        for (Iterator<Integer> it = q.iterator(); it.hasNext(); count++) {
+            int v = it.next();
+            if (v % 2 == 0)
+                it.remove();
+        }
+        assertEquals(9, count);
+        assertEquals(4, q.size());
+        assertEquals(Integer.valueOf(91), q.get(hs[9]));
+        Iterator<Integer> it = q.iterator();
+        q.insert(0);
+        try {
+            it.next();
+            fail();
+        } catch (ConcurrentModificationException expected) {
+        }
+        q.clear();
+        assertTrue(q.isEmpty());
+        assertFalse(q.containsHandle(hs[9]));
+    }
+}
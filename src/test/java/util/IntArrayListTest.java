@@ -0,0 +1,127 @@
+package test.java.util;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.ConcurrentModificationException;
+import java.util.DoubleArrayList;
+import java.util.IntArrayList;
+import java.util.List;
+import java.util.LongArrayList;
+import java.util.PrimitiveIterator;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class IntArrayListTest {
+
+    @Test
+    public void behavesLikeArrayList() {
+        Random r = new Random(7);
+        List<Integer> expected = new ArrayList<>();
+        IntArrayList list = new IntArrayList(0);
+        for (int round = 0; round < 20000; round++) {
+            int n = expected.size();
+            int v = r.nextInt(50) - 10;
+            switch (r.nextInt(8)) {
+            case 0:
+                if (n > 0) {
+                    int i = r.nextInt(n);
+                    assertEquals((int) expected.remove(i), list.removeAt(i));
+                }
+                break;
+            case 1:
+                assertEquals(expected.remove(Integer.valueOf(v)), list.removeValue(v));
+                break;
+            case 2:
+                if (n > 0) {
+                    int i = r.nextInt(n);
+                    assertEquals((int) expected.set(i, v), list.set(i, v));
+                }
+                break;
+            case 3: {
+                int i = r.nextInt(n + 1);
+                expected.add(i, v);
+                list.add(i, v);
+                break;
+            }
+            default:
+                expected.add(v);
+                list.add(v);
+            }
+            assertEquals(expected.size(), list.size());
+        }
+        assertEquals(expected.toString(), list.toString());
+        assertEquals(expected.hashCode(), list.hashCode());
+        assertEquals(expected.indexOf(3), list.indexOf(3));
+        assertEquals(expected.lastIndexOf(3), list.lastIndexOf(3));
+        assertEquals(expected.contains(100), list.contains(100));
+        assertArrayEquals(expected.stream().mapToInt(x -> x).toArray(),
+                          list.toArray());
+        assertArrayEquals(list.toArray(), list.stream().toArray());
+        assertArrayEquals(list.toArray(), list.parallelStream().toArray());
+
+        expected.removeIf(x -> x < 0);
+        assertTrue(list.removeIf(x -> x < 0));
+        expected.replaceAll(x -> x * 3);
+        list.replaceAll(x -> x * 3);
+        expected.sort(null);
+        list.sort();
+        assertEquals(expected.toString(), list.toString());
+        IntArrayList copy = list.clone();
+        list.trimToSize();
+        assertEquals(copy, list);
+        list.clear();
+        assertTrue(list.isEmpty());
+        assertFalse(copy.isEmpty());
+        try {
+            list.get(0);
+            fail();
+        } catch (IndexOutOfBoundsException expected2) {
+        }
+    }
+
+    @Test
+    public void iteratorIsFailFast() {
+        IntArrayList list = new IntArrayList(new int[] { 1, 2, 3, 4 });
+        PrimitiveIterator.OfInt it = list.iterator();
+        assertEquals(1, it.nextInt());
+        it.remove();
+        assertEquals(2, it.nextInt());
+        assertEquals(new IntArrayList(new int[] { 2, 3, 4 }), list);
+        list.add(5);
+        try {
+            it.nextInt();
+            fail();
+        } catch (ConcurrentModificationException expected) {
+        }
+        int[] sum = new int[1];
+        list.forEach(x -> sum[0] += x);
+        assertEquals(14, sum[0]);
+    }
+
+    @Test
+    public void longAndDoubleLists() {
+        LongArrayList longs = new LongArrayList();
+        DoubleArrayList doubles = new DoubleArrayList();
+        for (int i = 0; i < 1000; i++) {
+            longs.add(1000L - i + Integer.MAX_VALUE);
+            doubles.add(i * 0.5);
+        }
+        assertTrue(longs.addAll(new long[] { -1L }));
+        longs.sort();
+        assertEquals(-1L, longs.get(0));
+        assertEquals(1000L + Integer.MAX_VALUE, longs.get(longs.size() - 1));
+        assertEquals(longs.stream().sum(), longs.parallelStream().sum());
+        assertEquals(999 * 0.5, doubles.removeAt(999), 0.0);
+        assertTrue(doubles.removeValue(0.5));
+        assertFalse(doubles.contains(0.5));
+        doubles.add(Double.NaN);
+        assertTrue(doubles.contains(Double.NaN));
+        assertEquals(doubles, doubles.clone());
+    }
+}
@@ -0,0 +1,121 @@
+package test.java.util;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.HashSet;
+import java.util.IntHashSet;
+import java.util.LongHashSet;
+import java.util.PrimitiveIterator;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class IntHashSetTest {
+
+    static Set<Integer> toSet(IntHashSet s) {
+        Set<Integer> result = new HashSet<>();
+        for (PrimitiveIterator.OfInt it = s.iterator(); it.hasNext(); )
+            assertTrue(result.add(it.nextInt()));
+        return result;
+    }
+
+    @SuppressWarnings("unchecked")
+    static <T> T serialClone(T o) throws Exception {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        try (ObjectOutputStream oos = new ObjectOutputStream(bos)) {
+            oos.writeObject(o);
+        }
+        try (ObjectInputStream ois = new ObjectInputStream(
+                 new ByteArrayInputStream(bos.toByteArray()))) {
+            return (T) ois.readObject();
+        }
+    }
+
+    /**
+     * Adds and removes random elements, including zero, from a small
+     * range so that runs of colliding keys form and are broken up.
+     */
+    @Test
+    public void behavesLikeHashSet() throws Exception {
+        Random r = new Random(3);
+        Set<Integer> expected = new HashSet<>();
+        IntHashSet set = new IntHashSet(2);
+        for (int round = 0; round < 50000; round++) {
+            int v = r.nextInt(2000) - 1000;
+            if (r.nextInt(3) == 0)
+                assertEquals(expected.remove(v), set.remove(v));
+            else
+                assertEquals(expected.add(v), set.add(v));
+            assertEquals(expected.size(), set.size());
+            if (round % 1000 == 0)
+                assertEquals(expected, toSet(set));
+        }
+        assertEquals(expected, toSet(set));
+        assertEquals(expected.hashCode(), set.hashCode());
+        assertEquals(expected, set.stream().boxed().collect(Collectors.toSet()));
+        assertEquals(expected.size(), set.parallelStream().count());
+        assertEquals(set, set.clone());
+        assertEquals(set, serialClone(set));
+
+        expected.removeIf(x -> (x & 1) == 0);
+        assertTrue(set.removeIf(x -> (x & 1) == 0));
+        set.trimToSize();
+        assertEquals(expected, toSet(set));
+        set.clear();
+        assertTrue(set.isEmpty());
+        assertFalse(set.contains(1));
+    }
+
+    /**
+     * Removing through the iterator visits every element exactly
+     * once, even when removals move elements across the end of the
+     * table.
+     */
+    @Test
+    public void iteratorRemoveVisitsEachElementOnce() {
+        Random r = new Random(11);
+        for (int trial = 0; trial < 200; trial++) {
+            IntHashSet set = new IntHashSet(8);
+            Set<Integer> expected = new HashSet<>();
+            for (int i = 0; i < 40; i++) {
+                int v = r.nextInt(64);
+                set.add(v);
+                expected.add(v);
+            }
+            Set<Integer> all = new HashSet<>(expected);
+            Set<Integer> seen = new HashSet<>();
+            for (PrimitiveIterator.OfInt it = set.iterator(); it.hasNext(); ) {
+                int v = it.nextInt();
+                assertTrue(seen.add(v));
+                if (r.nextBoolean()) {
+                    it.remove();
+                    expected.remove(v);
+                }
+            }
+            assertEquals(all, seen);
+            assertEquals(expected, toSet(set));
+        }
+    }
+
+    @Test
+    public void longHashSet() throws Exception {
+        LongHashSet set = new LongHashSet();
+        for (long i = 0; i < 10000; i++)
+            assertTrue(set.add(i << 32));
+        assertFalse(set.add(0L));
+        assertTrue(set.contains(9999L << 32));
+        assertFalse(set.contains(1L));
+        assertTrue(set.remove(0L));
+        assertEquals(9999, set.size());
+        assertEquals(set, serialClone(set));
+        assertEquals(set.stream().sum(), set.parallelStream().sum());
+    }
+}
@@ -0,0 +1,132 @@
+package test.java.util;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ConcurrentModificationException;
+import java.util.HashMap;
+import java.util.IntIntHashMap;
+import java.util.LongLongHashMap;
+import java.util.Map;
+import java.util.PrimitiveIterator;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class IntIntHashMapTest {
+
+    static Map<Integer, Integer> toMap(IntIntHashMap m) {
+        Map<Integer, Integer> result = new HashMap<>();
+        m.forEach((k, v) -> assertEquals(null, result.put(k, v)));
+        return result;
+    }
+
+    @SuppressWarnings("unchecked")
+    static <T> T serialClone(T o) throws Exception {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        try (ObjectOutputStream oos = new ObjectOutputStream(bos)) {
+            oos.writeObject(o);
+        }
+        try (ObjectInputStream ois = new ObjectInputStream(
+                 new ByteArrayInputStream(bos.toByteArray()))) {
+            return (T) ois.readObject();
+        }
+    }
+
+    @Test
+    public void behavesLikeHashMap() throws Exception {
+        Random r = new Random(5);
+        Map<Integer, Integer> expected = new HashMap<>();
+        IntIntHashMap map = new IntIntHashMap(1);
+        for (int round = 0; round < 50000; round++) {
+            int k = r.nextInt(1000) - 500, v = r.nextInt(100);
+            switch (r.nextInt(6)) {
+            case 0:
+                assertEquals((int) expected.getOrDefault(k, 0), map.remove(k));
+                expected.remove(k);
+                break;
+            case 1:
+                assertEquals((int) expected.getOrDefault(k, 0), map.putIfAbsent(k, v));
+                expected.putIfAbsent(k, v);
+                break;
+            case 2:
+                assertEquals((int) expected.merge(k, v, Integer::sum),
+                             map.merge(k, v, Integer::sum));
+                break;
+            case 3:
+                assertEquals((int) expected.merge(k, v, Integer::sum), map.addTo(k, v));
+                break;
+            case 4:
+                assertEquals((int) expected.computeIfAbsent(k, x -> x * 2),
+                             map.computeIfAbsent(k, x -> x * 2));
+                break;
+            default:
+                assertEquals((int) expected.getOrDefault(k, 0), map.put(k, v));
+                expected.put(k, v);
+            }
+            assertEquals(expected.size(), map.size());
+            assertEquals(expected.containsKey(k), map.containsKey(k));
+            assertEquals((int) expected.getOrDefault(k, -1), map.getOrDefault(k, -1));
+        }
+        assertEquals(expected, toMap(map));
+        assertEquals(expected.hashCode(), map.hashCode());
+        assertEquals(map, map.clone());
+        assertEquals(map, serialClone(map));
+        assertEquals(expected.size(), map.keyStream().count());
+        assertEquals(expected.values().stream().mapToInt(x -> x).sum(),
+                     map.valueStream().parallel().sum());
+
+        map.replaceAll((k, v) -> k + v);
+        expected.replaceAll((k, v) -> k + v);
+        assertEquals(expected, toMap(map));
+        assertEquals(expected.containsValue(7), map.containsValue(7));
+
+        for (PrimitiveIterator.OfInt it = map.keyIterator(); it.hasNext(); ) {
+            int k = it.nextInt();
+            if (k >= 0) {
+                it.remove();
+                expected.remove(k);
+            }
+        }
+        map.trimToSize();
+        assertEquals(expected, toMap(map));
+        map.clear();
+        assertTrue(map.isEmpty());
+        assertEquals(0, map.get(1));
+    }
+
+    @Test
+    public void computeIfAbsentDetectsModification() {
+        IntIntHashMap map = new IntIntHashMap();
+        try {
+            map.computeIfAbsent(1, k -> map.put(2, 2));
+            fail();
+        } catch (ConcurrentModificationException expected) {
+        }
+        try {
+            map.merge(1, 1, null);
+            fail();
+        } catch (NullPointerException expected) {
+        }
+    }
+
+    @Test
+    public void longLongHashMap() throws Exception {
+        LongLongHashMap map = new LongLongHashMap();
+        for (long i = 0; i < 10000; i++)
+            assertEquals(0L, map.put(i << 33, i));
+        assertEquals(5L, map.get(5L << 33));
+        assertEquals(10L, map.addTo(5L << 33, 5L));
+        assertEquals(-1L, map.getOrDefault(1L, -1L));
+        assertFalse(map.containsKey(1L));
+        assertEquals(0L, map.remove(0L));
+        assertEquals(9999, map.size());
+        assertEquals(map, serialClone(map));
+    }
+}
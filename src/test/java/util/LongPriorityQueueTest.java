@@ -0,0 +1,139 @@
+package test.java.util;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.LongPriorityQueue;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class LongPriorityQueueTest {
+
+    /**
+     * Shortest paths on a random graph, by Dijkstra's algorithm as in
+     * the class documentation, match those found by Bellman-Ford.
+     */
+    @Test
+    public void dijkstraFindsShortestPaths() {
+        Random r = new Random(67);
+        int n = 2000;
+        List<int[]> edges = new ArrayList<>();
+        List<List<int[]>> adj = new ArrayList<>();
+        for (int i = 0; i < n; i++)
+            adj.add(new ArrayList<>());
+        for (int i = 0; i < 10 * n; i++) {
+            int[] e = { r.nextInt(n), r.nextInt(n), r.nextInt(1000) };
+            edges.add(e);
+            adj.get(e[0]).add(e);
+        }
+
+        long[] dist = new long[n];
+        int[] handle = new int[n];
+        boolean[] done = new boolean[n];
+        Arrays.fill(dist, Long.MAX_VALUE);
+        Arrays.fill(handle, -1);
+        LongPriorityQueue<Integer> q = new LongPriorityQueue<>(2, 8);
+        handle[0] = q.insert(0L, 0);
+        while (!q.isEmpty()) {
+            long d = q.peekPriority();
+            int u = q.poll();
+            dist[u] = d;
+            done[u] = true;
+            for (int[] e : adj.get(u)) {
+                int v = e[1];
+                long dv = d + e[2];
+                if (done[v])
+                    continue;
+                else if (handle[v] < 0)
+                    handle[v] = q.insert(dv, v);
+                else if (dv < q.priority(handle[v]))
+                    q.decreaseKey(handle[v], dv);
+            }
+        }
+
+        long[] expected = new long[n];
+        Arrays.fill(expected, Long.MAX_VALUE);
+        expected[0] = 0L;
+        for (boolean changed = true; changed; ) {
+            changed = false;
+            for (int[] e : edges) {
+                if (expected[e[0]] != Long.MAX_VALUE &&
+                    expected[e[0]] + e[2] < expected[e[1]]) {
+                    expected[e[1]] = expected[e[0]] + e[2];
+                    changed = true;
+                }
+            }
+        }
+        assertArrayEquals(expected, dist);
+    }
+
+    @Test
+    public void pollsInPriorityOrder() {
+        Random r = new Random(71);
+        LongPriorityQueue<String> q = new LongPriorityQueue<>();
+        PriorityQueue<Long> expected = new PriorityQueue<>();
+        int[] handles = new int[1000];
+        for (int i = 0; i < handles.length; i++) {
+            long p = r.nextLong();
+            handles[i] = q.insert(p, null);
+            expected.add(p);
+        }
+        for (int i = 0; i < handles.length; i += 2) {
+            long old = q.priority(handles[i]);
+            long p = r.nextLong();
+            assertEquals(old, q.changeKey(handles[i], p));
+            expected.remove(old);
+            expected.add(p);
+        }
+        assertNull(q.set(handles[1], "one"));
+        assertEquals("one", q.get(handles[1]));
+        while (!expected.isEmpty()) {
+            assertEquals((long) expected.poll(), q.peekPriority());
+            q.poll();
+        }
+        assertTrue(q.isEmpty());
+        assertEquals(-1, q.peekHandle());
+        assertNull(q.poll());
+    }
+
+    @Test
+    public void invalidHandlesAndPriorities() {
+        LongPriorityQueue<String> q = new LongPriorityQueue<>();
+        int h = q.insert(10L, "x");
+        try {
+            q.decreaseKey(h, 11L);
+            fail();
+        } catch (IllegalArgumentException expected) {
+        }
+        assertEquals("x", q.removeHandle(h));
+        assertFalse(q.containsHandle(h));
+        try {
+            q.priority(h);
+            fail();
+        } catch (NoSuchElementException expected) {
+        }
+        try {
+            q.peekPriority();
+            fail();
+        } catch (NoSuchElementException expected) {
+        }
+        try {
+            new LongPriorityQueue<String>(1, 5);
+            fail();
+        } catch (IllegalArgumentException expected) {
+        }
+        q.insert(1L, "a");
+        q.clear();
+        assertEquals(0, q.size());
+    }
+}
@@ -0,0 +1,177 @@
+package test.java.util;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.OffHeapLongHashMap;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class OffHeapLongHashMapTest {
+
+    static byte[] get(OffHeapLongHashMap map, long key) {
+        ByteBuffer buf = ByteBuffer.allocate(1024);
+        int len = map.get(key, buf);
+        if (len < 0)
+            return null;
+        assertEquals(len, buf.position());
+        return Arrays.copyOf(buf.array(), len);
+    }
+
+    static void assertContents(Map<Long, byte[]> expected, OffHeapLongHashMap map) {
+        assertEquals(expected.size(), map.size());
+        for (Map.Entry<Long, byte[]> e : expected.entrySet())
+            assertArrayEquals(e.getValue(), get(map, e.getKey()));
+        Set<Long> keys = new HashSet<>();
+        map.forEachKey(k -> assertTrue(keys.add(k)));
+        assertEquals(expected.keySet(), keys);
+    }
+
+    /**
+     * Applies random updates to a map and a HashMap, through several
+     * incremental resizes, checking lookups while they are in progress.
+     */
+    static void randomUpdates(OffHeapLongHashMap map, int maxLength, long seed) {
+        Random r = new Random(seed);
+        Map<Long, byte[]> expected = new HashMap<>();
+        for (int round = 0; round < 20000; round++) {
+            long k = r.nextInt(5000) - 100;
+            if (r.nextInt(4) == 0)
+                assertEquals(expected.remove(k) != null, map.remove(k));
+            else {
+                byte[] v = new byte[r.nextInt(maxLength + 1)];
+                r.nextBytes(v);
+                assertEquals(expected.put(k, v) == null,
+                             map.put(k, v, 0, v.length));
+            }
+            assertEquals(expected.size(), map.size());
+            assertArrayEquals(expected.get(k), get(map, k));
+            assertEquals(expected.containsKey(k) ? expected.get(k).length : -1,
+                         map.valueLength(k));
+        }
+        assertContents(expected, map);
+        long before = map.memoryUsed();
+        map.compact();
+        assertTrue(map.memoryUsed() <= before);
+        assertContents(expected, map);
+    }
+
+    @Test
+    public void variableLengthMapBehavesLikeHashMap() throws IOException {
+        try (OffHeapLongHashMap map =
+                 new OffHeapLongHashMap(OffHeapLongHashMap.VARIABLE_LENGTH)) {
+            randomUpdates(map, 100, 1);
+        }
+    }
+
+    @Test
+    public void fixedLengthMapBehavesLikeHashMap() throws IOException {
+        try (OffHeapLongHashMap map = new OffHeapLongHashMap(24, 0)) {
+            randomUpdates(map, 24, 2);
+            try {
+                map.put(1L, new byte[25], 0, 25);
+                fail();
+            } catch (IllegalArgumentException expected) {
+            }
+            map.put(1L, new byte[24], 0, 24);
+            try {
+                map.get(1L, ByteBuffer.allocate(23));
+                fail();
+            } catch (BufferOverflowException expected) {
+            }
+            map.clear();
+            assertTrue(map.isEmpty());
+            assertFalse(map.containsKey(1L));
+            assertEquals(-1, map.get(1L, ByteBuffer.allocate(24)));
+        }
+    }
+
+    @Test
+    public void closedMapThrowsIllegalStateException() throws IOException {
+        OffHeapLongHashMap map = new OffHeapLongHashMap(8);
+        map.close();
+        map.close();
+        try {
+            map.size();
+            fail();
+        } catch (IllegalStateException expected) {
+        }
+        try {
+            map.put(1L, ByteBuffer.allocate(8));
+            fail();
+        } catch (IllegalStateException expected) {
+        }
+        try {
+            new OffHeapLongHashMap(-1);
+            fail();
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+
+    @Test
+    public void mappedMapSurvivesReopening() throws IOException {
+        Path dir = Files.createTempDirectory("OffHeapLongHashMapTest");
+        try {
+            Map<Long, byte[]> expected = new HashMap<>();
+            try (OffHeapLongHashMap map =
+                     OffHeapLongHashMap.open(dir, OffHeapLongHashMap.VARIABLE_LENGTH)) {
+                Random r = new Random(3);
+                for (long k = 0; k < 2000; k++) {
+                    byte[] v = new byte[r.nextInt(40)];
+                    r.nextBytes(v);
+                    expected.put(k, v);
+                    map.put(k, v, 0, v.length);
+                }
+                for (long k = 0; k < 2000; k += 3) {
+                    expected.remove(k);
+                    map.remove(k);
+                }
+                map.compact();
+
+                // An unforced modification leaves the files unusable
+                try {
+                    OffHeapLongHashMap.open(dir, OffHeapLongHashMap.VARIABLE_LENGTH);
+                    fail();
+                } catch (IOException expected2) {
+                }
+            }
+            try (OffHeapLongHashMap map =
+                     OffHeapLongHashMap.open(dir, OffHeapLongHashMap.VARIABLE_LENGTH)) {
+                assertContents(expected, map);
+                map.put(-1L, new byte[] { 1 }, 0, 1);
+                map.force();
+                expected.put(-1L, new byte[] { 1 });
+            }
+            try {
+                OffHeapLongHashMap.open(dir, 8);
+                fail();
+            } catch (IOException expected2) {
+            }
+            try (OffHeapLongHashMap map =
+                     OffHeapLongHashMap.open(dir, OffHeapLongHashMap.VARIABLE_LENGTH)) {
+                assertContents(expected, map);
+            }
+        } finally {
+            try (Stream<Path> files = Files.list(dir)) {
+                for (Object f : files.toArray())
+                    Files.delete((Path) f);
+            }
+            Files.delete(dir);
+        }
+    }
+}
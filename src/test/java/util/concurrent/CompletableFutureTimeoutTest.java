@@ -0,0 +1,76 @@
+package test.java.util.concurrent;
+
+import org.junit.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class CompletableFutureTimeoutTest {
+
+    @Test
+    public void orTimeoutCompletesExceptionally() throws Exception {
+        CompletableFuture<String> f = new CompletableFuture<>();
+        assertTrue(f == f.orTimeout(20, TimeUnit.MILLISECONDS));
+        try {
+            f.get(10, TimeUnit.SECONDS);
+            fail();
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof TimeoutException);
+        }
+    }
+
+    @Test
+    public void orTimeoutHasNoEffectOnCompletedFuture() throws Exception {
+        CompletableFuture<String> f = new CompletableFuture<>();
+        f.orTimeout(20, TimeUnit.MILLISECONDS);
+        assertTrue(f.complete("done"));
+        Thread.sleep(50);
+        assertEquals("done", f.join());
+        CompletableFuture<String> g = CompletableFuture.completedFuture("x");
+        assertEquals("x", g.orTimeout(1, TimeUnit.NANOSECONDS).join());
+    }
+
+    @Test
+    public void completeOnTimeoutUsesValue() throws Exception {
+        CompletableFuture<String> f = new CompletableFuture<>();
+        f.completeOnTimeout("late", 20, TimeUnit.MILLISECONDS);
+        assertEquals("late", f.get(10, TimeUnit.SECONDS));
+        CompletableFuture<String> g = new CompletableFuture<>();
+        g.completeOnTimeout("late", 10, TimeUnit.SECONDS);
+        assertTrue(g.complete("early"));
+        assertEquals("early", g.join());
+    }
+
+    @Test
+    public void delayedExecutorDelaysTasks() throws Exception {
+        Thread[] ranIn = new Thread[1];
+        Executor direct = r -> {
+            ranIn[0] = Thread.currentThread();
+            r.run();
+        };
+        CountDownLatch ran = new CountDownLatch(1);
+        long start = System.nanoTime();
+        CompletableFuture.delayedExecutor(50, TimeUnit.MILLISECONDS, direct)
+            .execute(ran::countDown);
+        assertTrue(ran.await(10, TimeUnit.SECONDS));
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(50));
+        // The delay thread hands the task to the given executor
+        assertTrue(ranIn[0].isDaemon());
+        CompletableFuture<Integer> f = CompletableFuture.supplyAsync(
+            () -> 42, CompletableFuture.delayedExecutor(10, TimeUnit.MILLISECONDS));
+        assertEquals(Integer.valueOf(42), f.get(10, TimeUnit.SECONDS));
+        try {
+            CompletableFuture.delayedExecutor(1, null);
+            fail();
+        } catch (NullPointerException expected) {
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package test.java.util.concurrent;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentCache;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ConcurrentCacheTest {
+
+    @Test
+    public void basicOperations() {
+        ConcurrentCache<String, Integer> c = new ConcurrentCache.Builder().build();
+        assertNull(c.get("a"));
+        assertNull(c.put("a", 1));
+        assertEquals(Integer.valueOf(1), c.put("a", 2));
+        assertEquals(Integer.valueOf(2), c.putIfAbsent("a", 3));
+        assertEquals(Integer.valueOf(2), c.get("a"));
+        assertEquals(Integer.valueOf(4), c.computeIfAbsent("b", k -> 4));
+        assertEquals(Integer.valueOf(4), c.computeIfAbsent("b", k -> 5));
+        assertNull(c.computeIfAbsent("c", k -> null));
+        assertEquals(2, c.size());
+        assertEquals(Integer.valueOf(2), c.remove("a"));
+        assertNull(c.remove("a"));
+        assertEquals(2, c.hitCount());
+        assertEquals(3, c.missCount());
+        c.clear();
+        assertEquals(0, c.size());
+        try {
+            c.put("d", null);
+            fail();
+        } catch (NullPointerException expected) {
+        }
+        try {
+            new ConcurrentCache.Builder().maximumSize(1).maximumSize(2);
+            fail();
+        } catch (IllegalStateException expected) {
+        }
+    }
+
+    @Test
+    public void sizeIsBounded() {
+        ConcurrentCache<Integer, Integer> c =
+            new ConcurrentCache.Builder().maximumSize(100).build();
+        for (int i = 0; i < 10000; i++)
+            c.put(i, i);
+        c.cleanUp();
+        assertEquals(100, c.size());
+        assertEquals(100, c.weightedSize());
+        assertEquals(9900, c.evictionCount());
+    }
+
+    @Test
+    public void weightIsBounded() {
+        ConcurrentCache<Integer, String> c = new ConcurrentCache.Builder()
+            .maximumWeight(1000, (Integer k, String v) -> v.length())
+            .build();
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 200; i++) {
+            c.put(i, sb.toString());
+            sb.append('x');
+        }
+        c.cleanUp();
+        assertTrue(c.weightedSize() <= 1000);
+        try {
+            new ConcurrentCache.Builder()
+                .maximumWeight(10, (Integer k, Integer v) -> v)
+                .<Integer, Integer>build().put(1, -1);
+            fail();
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+
+    /**
+     * Entries read once per few hundred writes survive a scan of
+     * entries that are each written once, although an LRU cache of the
+     * same size would evict them.
+     */
+    @Test
+    public void frequentEntriesResistScans() {
+        ConcurrentCache<Integer, Integer> c =
+            new ConcurrentCache.Builder().maximumSize(100).build();
+        int hot = 50;
+        for (int i = 0; i < hot; i++)
+            c.put(i, i);
+        for (int round = 0; round < 10; round++) {
+            for (int i = 0; i < hot; i++)
+                assertEquals(Integer.valueOf(i), c.get(i));
+        }
+        int hits = 0, reads = 0;
+        for (int i = hot; i < 100000; i++) {
+            c.put(i, i);
+            if (i % 5 == 0) {
+                ++reads;
+                if (c.get(i / 5 % hot) != null)
+                    ++hits;
+            }
+        }
+        assertTrue(hits > reads * 9 / 10);
+    }
+
+    @Test
+    public void entriesExpire() throws Exception {
+        ConcurrentCache<Integer, Integer> c = new ConcurrentCache.Builder()
+            .expireAfterWrite(50, TimeUnit.MILLISECONDS)
+            .build();
+        c.put(1, 1);
+        assertEquals(Integer.valueOf(1), c.get(1));
+        Thread.sleep(100);
+        assertNull(c.get(1));
+        assertNull(c.putIfAbsent(1, 2));
+        assertEquals(Integer.valueOf(2), c.get(1));
+        c.put(2, 2);
+        Thread.sleep(100);
+        c.cleanUp();
+        assertEquals(0, c.size());
+        assertEquals(3, c.evictionCount());
+    }
+
+    @Test
+    public void concurrentLoadsOfAKeyShareOneLoad() throws Exception {
+        ConcurrentCache<Integer, Integer> c =
+            new ConcurrentCache.Builder().maximumSize(10).build();
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        int threads = 8;
+        List<Thread> ts = new ArrayList<>();
+        AtomicInteger correct = new AtomicInteger();
+        for (int i = 0; i < threads; i++) {
+            Thread t = new Thread(() -> {
+                Integer v = c.computeIfAbsent(1, k -> {
+                    loads.incrementAndGet();
+                    loading.countDown();
+                    try {
+                        release.await();
+                    } catch (InterruptedException ignore) {
+                    }
+                    return 42;
+                });
+                if (v == 42)
+                    correct.incrementAndGet();
+            });
+            t.start();
+            ts.add(t);
+        }
+        assertTrue(loading.await(10, TimeUnit.SECONDS));
+        release.countDown();
+        for (Thread t : ts)
+            t.join();
+        assertEquals(1, loads.get());
+        assertEquals(threads, correct.get());
+    }
+
+    @Test
+    public void failedLoadRecordsNoMapping() {
+        ConcurrentCache<Integer, Integer> c = new ConcurrentCache.Builder().build();
+        try {
+            c.computeIfAbsent(1, k -> { throw new IllegalStateException(); });
+            fail();
+        } catch (IllegalStateException expected) {
+        }
+        assertNull(c.get(1));
+        assertEquals(Integer.valueOf(1), c.computeIfAbsent(1, k -> 1));
+    }
+}
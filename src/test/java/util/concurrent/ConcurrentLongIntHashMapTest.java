@@ -0,0 +1,79 @@
+package test.java.util.concurrent;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLongIntHashMap;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class ConcurrentLongIntHashMapTest {
+
+    @Test
+    public void basicOperations() {
+        ConcurrentLongIntHashMap m = new ConcurrentLongIntHashMap();
+        assertEquals(0, m.put(1L, 10));
+        assertEquals(10, m.put(1L, 11));
+        assertEquals(11, m.putIfAbsent(1L, 12));
+        assertEquals(0, m.get(2L));
+        assertEquals(-1, m.getOrDefault(2L, -1));
+        assertEquals(5, m.merge(2L, 5, Integer::sum));
+        assertEquals(8, m.merge(2L, 3, Integer::sum));
+        assertEquals(7, m.computeIfAbsent(3L, k -> (int)k + 4));
+        assertEquals(14, m.computeIfPresent(3L, (k, v) -> v * 2));
+        assertEquals(0, m.computeIfPresent(4L, (k, v) -> 1));
+        assertFalse(m.containsKey(4L));
+        assertEquals(4, m.compute(4L, (k, v) -> v + (int)k));
+        assertFalse(m.remove(4L, 5));
+        assertTrue(m.replace(4L, 4, 40));
+        assertEquals(40, m.remove(4L));
+        assertEquals(3, m.size());
+        m.put(5L, Integer.MAX_VALUE);
+        m.put(6L, Integer.MAX_VALUE);
+        assertEquals(11L + 8L + 14L + 2L * Integer.MAX_VALUE, m.sumValues(1L));
+        m.clear();
+        assertTrue(m.isEmpty());
+    }
+
+    @Test
+    public void collidingKeysMixedWithOthers() {
+        long[] colliding = ConcurrentLongLongHashMapTest.collidingKeys(500);
+        Random r = new Random(7);
+        Map<Long, Integer> expected = new HashMap<>();
+        ConcurrentLongIntHashMap m = new ConcurrentLongIntHashMap();
+        for (int i = 0; i < 100000; i++) {
+            long k = (i & 1) == 0 ? colliding[r.nextInt(colliding.length)] : r.nextInt(5000);
+            int v = r.nextInt(100);
+            switch (r.nextInt(4)) {
+            case 0:
+                assertEquals(expected.getOrDefault(k, 0).intValue(), m.put(k, v));
+                expected.put(k, v);
+                break;
+            case 1:
+                Integer old = expected.remove(k);
+                assertEquals(old == null ? 0 : old, m.remove(k));
+                break;
+            case 2:
+                assertEquals(expected.merge(k, v, Integer::sum).intValue(),
+                             m.merge(k, v, Integer::sum));
+                break;
+            default:
+                assertEquals(expected.getOrDefault(k, 0).intValue(), m.get(k));
+                assertEquals(expected.containsKey(k), m.containsKey(k));
+            }
+        }
+        assertEquals(expected.size(), m.size());
+        Map<Long, Integer> seen = new HashMap<>();
+        m.forEach(1L, (k, v) -> {
+            synchronized (seen) {
+                assertNull(seen.put(k, v));
+            }
+        });
+        assertEquals(expected, seen);
+    }
+}
@@ -0,0 +1,177 @@
+package test.java.util.concurrent;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLongLongHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class ConcurrentLongLongHashMapTest {
+
+    /** The multiplier used to spread keys, and its inverse modulo 2^64 */
+    static final long GOLDEN = 0x9e3779b97f4a7c15L;
+    static final long INVERSE;
+    static {
+        long x = GOLDEN;
+        for (int i = 0; i < 5; i++)
+            x *= 2 - GOLDEN * x;
+        INVERSE = x;
+    }
+
+    /**
+     * Returns n distinct keys that all spread to the same 32-bit hash,
+     * so that they share a bin whatever the table size.
+     */
+    static long[] collidingKeys(int n) {
+        int hash = 0x1234567;
+        long[] keys = new long[n];
+        for (int a = 0; a < n; a++) {
+            long mixed = ((long)a << 32) | ((a ^ hash) & 0xffffffffL);
+            keys[a] = mixed * INVERSE;
+        }
+        return keys;
+    }
+
+    @Test
+    public void basicOperations() {
+        ConcurrentLongLongHashMap m = new ConcurrentLongLongHashMap();
+        assertTrue(m.isEmpty());
+        assertEquals(0L, m.put(1L, 10L));
+        assertEquals(10L, m.put(1L, 11L));
+        assertEquals(11L, m.putIfAbsent(1L, 12L));
+        assertEquals(11L, m.get(1L));
+        assertEquals(0L, m.get(2L));
+        assertEquals(-1L, m.getOrDefault(2L, -1L));
+        assertFalse(m.containsKey(2L));
+        assertEquals(5L, m.merge(2L, 5L, Long::sum));
+        assertEquals(8L, m.merge(2L, 3L, Long::sum));
+        assertEquals(7L, m.computeIfAbsent(3L, k -> k + 4));
+        assertEquals(7L, m.computeIfAbsent(3L, k -> 0L));
+        assertEquals(14L, m.computeIfPresent(3L, (k, v) -> v * 2));
+        assertEquals(0L, m.computeIfPresent(4L, (k, v) -> 1L));
+        assertFalse(m.containsKey(4L));
+        assertEquals(4L, m.compute(4L, (k, v) -> v + k));
+        assertEquals(4, m.size());
+        assertFalse(m.remove(4L, 5L));
+        assertTrue(m.replace(4L, 4L, 40L));
+        assertEquals(40L, m.remove(4L));
+        assertEquals(3, m.size());
+        assertEquals(11L + 8L + 14L, m.sumValues(1L));
+        m.clear();
+        assertTrue(m.isEmpty());
+    }
+
+    @Test
+    public void collidingKeys() {
+        long[] keys = collidingKeys(2000);
+        ConcurrentLongLongHashMap m = new ConcurrentLongLongHashMap();
+        for (int i = 0; i < keys.length; i++)
+            assertEquals(0L, m.put(keys[i], i));
+        assertEquals(keys.length, m.size());
+        for (int i = 0; i < keys.length; i++) {
+            assertEquals(i, m.get(keys[i]));
+            assertEquals(i + 1, m.merge(keys[i], 1L, Long::sum));
+            assertEquals(i + 2, m.compute(keys[i], (k, v) -> v + 1));
+            assertEquals(i + 3, m.computeIfPresent(keys[i], (k, v) -> v + 1));
+            assertEquals(i + 3, m.computeIfAbsent(keys[i], k -> -1L));
+        }
+        assertEquals(keys.length, m.size());
+        long[] sum = new long[1];
+        m.forEach((k, v) -> sum[0] += v);
+        assertEquals(m.sumValues(1L), sum[0]);
+        // Shrink the bin below the untreeify threshold, then grow it again
+        for (int i = 3; i < keys.length; i++)
+            assertEquals(i + 3, m.remove(keys[i]));
+        assertEquals(3, m.size());
+        for (int i = 0; i < keys.length; i++)
+            assertEquals(i < 3, m.containsKey(keys[i]));
+        for (int i = 3; i < keys.length; i++)
+            assertEquals(0L, m.putIfAbsent(keys[i], -i));
+        for (int i = 3; i < keys.length; i++)
+            assertEquals(-i, m.get(keys[i]));
+        m.clear();
+        assertTrue(m.isEmpty());
+        assertEquals(0L, m.get(keys[0]));
+    }
+
+    @Test
+    public void collidingKeysMixedWithOthers() {
+        long[] colliding = collidingKeys(500);
+        Random r = new Random(3);
+        Map<Long, Long> expected = new HashMap<>();
+        ConcurrentLongLongHashMap m = new ConcurrentLongLongHashMap();
+        for (int i = 0; i < 100000; i++) {
+            long k = (i & 1) == 0 ? colliding[r.nextInt(colliding.length)] : r.nextInt(5000);
+            long v = r.nextInt(100);
+            switch (r.nextInt(4)) {
+            case 0:
+                assertEquals(expected.getOrDefault(k, 0L).longValue(), m.put(k, v));
+                expected.put(k, v);
+                break;
+            case 1:
+                Long old = expected.remove(k);
+                assertEquals(old == null ? 0L : old, m.remove(k));
+                break;
+            case 2:
+                assertEquals(expected.merge(k, v, Long::sum).longValue(),
+                             m.merge(k, v, Long::sum));
+                break;
+            default:
+                assertEquals(expected.getOrDefault(k, 0L).longValue(), m.get(k));
+                assertEquals(expected.containsKey(k), m.containsKey(k));
+            }
+        }
+        assertEquals(expected.size(), m.size());
+        Map<Long, Long> seen = new HashMap<>();
+        m.forEach(1L, (k, v) -> {
+            synchronized (seen) {
+                assertNull(seen.put(k, v));
+            }
+        });
+        assertEquals(expected, seen);
+    }
+
+    @Test
+    public void concurrentMerges() throws Exception {
+        long[] colliding = collidingKeys(64);
+        ConcurrentLongLongHashMap m = new ConcurrentLongLongHashMap();
+        int threads = 4, perThread = 50000;
+        Thread[] ts = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            int seed = t;
+            ts[t] = new Thread(() -> {
+                Random r = new Random(seed);
+                for (int i = 0; i < perThread; i++) {
+                    long k = (i & 1) == 0 ? colliding[r.nextInt(colliding.length)]
+                                          : r.nextInt(100000);
+                    m.merge(k, 1L, Long::sum);
+                }
+            });
+            ts[t].start();
+        }
+        for (Thread t : ts)
+            t.join();
+        assertEquals((long)threads * perThread, m.sumValues(1L));
+        AtomicLong count = new AtomicLong();
+        m.forEach(1L, (k, v) -> count.incrementAndGet());
+        assertEquals(m.mappingCount(), count.get());
+    }
+
+    @Test
+    public void search() {
+        long[] keys = collidingKeys(100);
+        ConcurrentLongLongHashMap m = new ConcurrentLongLongHashMap();
+        for (int i = 0; i < keys.length; i++)
+            m.put(keys[i], i == 42 ? 1L : 0L);
+        assertEquals(Long.valueOf(keys[42]),
+                     m.search(1L, (k, v) -> v == 1L ? k : null));
+        assertNull(m.search(1L, (k, v) -> v == 2L ? k : null));
+    }
+}
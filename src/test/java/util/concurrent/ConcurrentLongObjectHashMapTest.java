@@ -0,0 +1,112 @@
+package test.java.util.concurrent;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLongObjectHashMap;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class ConcurrentLongObjectHashMapTest {
+
+    @Test
+    public void basicOperations() {
+        ConcurrentLongObjectHashMap<String> m = new ConcurrentLongObjectHashMap<>();
+        assertNull(m.put(1L, "a"));
+        assertEquals("a", m.put(1L, "b"));
+        assertEquals("b", m.putIfAbsent(1L, "c"));
+        assertNull(m.get(2L));
+        assertEquals("x", m.getOrDefault(2L, "x"));
+        assertEquals("d", m.merge(2L, "d", String::concat));
+        assertEquals("de", m.merge(2L, "e", String::concat));
+        assertNull(m.merge(2L, "f", (a, b) -> null));
+        assertFalse(m.containsKey(2L));
+        assertEquals("3", m.computeIfAbsent(3L, Long::toString));
+        assertNull(m.computeIfPresent(3L, (k, v) -> null));
+        assertNull(m.compute(4L, (k, v) -> null));
+        assertEquals("4", m.compute(4L, (k, v) -> Long.toString(k)));
+        assertFalse(m.remove(4L, "5"));
+        assertTrue(m.replace(4L, "4", "40"));
+        assertEquals("40", m.remove(4L));
+        assertEquals(1, m.size());
+        m.clear();
+        assertTrue(m.isEmpty());
+    }
+
+    @Test
+    public void collidingKeys() {
+        long[] keys = ConcurrentLongLongHashMapTest.collidingKeys(2000);
+        ConcurrentLongObjectHashMap<Integer> m = new ConcurrentLongObjectHashMap<>();
+        for (int i = 0; i < keys.length; i++)
+            assertNull(m.put(keys[i], i));
+        assertEquals(keys.length, m.size());
+        for (int i = 0; i < keys.length; i++) {
+            assertEquals(Integer.valueOf(i), m.get(keys[i]));
+            assertEquals(Integer.valueOf(i + 1), m.merge(keys[i], 1, Integer::sum));
+            assertEquals(Integer.valueOf(i + 2), m.compute(keys[i], (k, v) -> v + 1));
+            assertEquals(Integer.valueOf(i + 2), m.computeIfAbsent(keys[i], k -> -1));
+        }
+        // Remove most of the bin through each removing operation
+        for (int i = 3; i < keys.length; i++) {
+            switch (i % 4) {
+            case 0: assertEquals(Integer.valueOf(i + 2), m.remove(keys[i])); break;
+            case 1: assertTrue(m.remove(keys[i], i + 2)); break;
+            case 2: assertNull(m.computeIfPresent(keys[i], (k, v) -> null)); break;
+            default: assertNull(m.merge(keys[i], 0, (a, b) -> null));
+            }
+        }
+        assertEquals(3, m.size());
+        for (int i = 0; i < keys.length; i++)
+            assertEquals(i < 3, m.containsKey(keys[i]));
+        for (int i = 3; i < keys.length; i++)
+            assertNull(m.putIfAbsent(keys[i], -i));
+        for (int i = 3; i < keys.length; i++)
+            assertEquals(Integer.valueOf(-i), m.get(keys[i]));
+        m.clear();
+        assertTrue(m.isEmpty());
+        assertNull(m.get(keys[0]));
+    }
+
+    @Test
+    public void collidingKeysMixedWithOthers() {
+        long[] colliding = ConcurrentLongLongHashMapTest.collidingKeys(500);
+        Random r = new Random(5);
+        Map<Long, Integer> expected = new HashMap<>();
+        ConcurrentLongObjectHashMap<Integer> m = new ConcurrentLongObjectHashMap<>();
+        for (int i = 0; i < 100000; i++) {
+            long k = (i & 1) == 0 ? colliding[r.nextInt(colliding.length)] : r.nextInt(5000);
+            int v = r.nextInt(100);
+            switch (r.nextInt(5)) {
+            case 0:
+                assertEquals(expected.put(k, v), m.put(k, v));
+                break;
+            case 1:
+                assertEquals(expected.remove(k), m.remove(k));
+                break;
+            case 2:
+                assertEquals(expected.merge(k, v, (a, b) -> a + b < 150 ? a + b : null),
+                             m.merge(k, v, (a, b) -> a + b < 150 ? a + b : null));
+                break;
+            case 3:
+                assertEquals(expected.compute(k, (x, a) -> a == null ? v : null),
+                             m.compute(k, (x, a) -> a == null ? v : null));
+                break;
+            default:
+                assertEquals(expected.get(k), m.get(k));
+            }
+        }
+        assertEquals(expected.size(), m.size());
+        Map<Long, Integer> seen = new HashMap<>();
+        m.forEach(1L, (k, v) -> {
+            synchronized (seen) {
+                assertNull(seen.put(k, v));
+            }
+        });
+        assertEquals(expected, seen);
+    }
+}
@@ -0,0 +1,194 @@
+package test.java.util.concurrent;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.Random;
+import java.util.concurrent.CopyOnWriteTrieList;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class CopyOnWriteTrieListTest {
+
+    /**
+     * Applies the same random operations to an ArrayList and a
+     * CopyOnWriteTrieList, growing past several levels of the trie
+     * and shrinking back.
+     */
+    @Test
+    public void behavesLikeArrayList() {
+        Random r = new Random(42);
+        List<Integer> expected = new ArrayList<>();
+        CopyOnWriteTrieList<Integer> list = new CopyOnWriteTrieList<>();
+        for (int round = 0; round < 40000; round++) {
+            int n = expected.size();
+            int op = r.nextInt(round < 30000 ? 10 : 4);
+            Integer v = r.nextInt(100);
+            switch (op) {
+            case 0:
+                if (n > 0) {
+                    int i = r.nextInt(n);
+                    assertEquals(expected.remove(i), list.remove(i));
+                }
+                break;
+            case 1:
+                if (n > 0)
+                    assertEquals(expected.remove(n - 1), list.remove(n - 1));
+                break;
+            case 2:
+                assertEquals(expected.remove(v), list.remove(v));
+                break;
+            case 3:
+                if (n > 0) {
+                    int i = r.nextInt(n);
+                    assertEquals(expected.set(i, v), list.set(i, v));
+                }
+                break;
+            case 4: {
+                int i = r.nextInt(n + 1);
+                expected.add(i, v);
+                list.add(i, v);
+                break;
+            }
+            default:
+                assertTrue(list.add(v));
+                expected.add(v);
+            }
+            assertEquals(expected.size(), list.size());
+            if (round % 997 == 0)
+                assertEquals(expected, list);
+        }
+        assertEquals(expected, list);
+        assertEquals(expected.hashCode(), list.hashCode());
+        assertArrayEquals(expected.toArray(), list.toArray());
+        assertEquals(expected.indexOf(7), list.indexOf(7));
+        assertEquals(expected.lastIndexOf(7), list.lastIndexOf(7));
+    }
+
+    @Test
+    public void bulkOperations() {
+        List<Integer> expected = new ArrayList<>();
+        for (int i = 0; i < 5000; i++)
+            expected.add(i % 101);
+        CopyOnWriteTrieList<Integer> list = new CopyOnWriteTrieList<>(expected);
+        assertEquals(expected, list);
+
+        expected.removeIf(x -> x % 3 == 0);
+        assertTrue(list.removeIf(x -> x % 3 == 0));
+        assertFalse(list.removeIf(x -> x % 3 == 0));
+        assertEquals(expected, list);
+
+        expected.replaceAll(x -> x * 2);
+        list.replaceAll(x -> x * 2);
+        assertEquals(expected, list);
+
+        expected.sort(Comparator.reverseOrder());
+        list.sort(Comparator.reverseOrder());
+        assertEquals(expected, list);
+
+        expected.subList(100, 3000).clear();
+        list.subList(100, 3000).clear();
+        assertEquals(expected, list);
+
+        expected.addAll(Arrays.asList(1, 2, 3));
+        assertTrue(list.addAll(Arrays.asList(1, 2, 3)));
+        assertEquals(expected, list);
+        assertEquals(expected, list.stream().collect(Collectors.toList()));
+        assertEquals(expected, list.parallelStream().collect(Collectors.toList()));
+
+        assertFalse(list.addIfAbsent(2));
+        assertTrue(list.addIfAbsent(-1));
+        assertEquals(Integer.valueOf(-1), list.get(list.size() - 1));
+
+        list.clear();
+        assertTrue(list.isEmpty());
+        assertTrue(list.add(null));
+        assertTrue(list.contains(null));
+    }
+
+    @Test
+    public void iteratorsAreSnapshots() {
+        CopyOnWriteTrieList<Integer> list = new CopyOnWriteTrieList<>();
+        for (int i = 0; i < 100; i++)
+            list.add(i);
+        Iterator<Integer> it = list.iterator();
+        ListIterator<Integer> li = list.listIterator(100);
+        list.clear();
+        list.add(-1);
+        int count = 0;
+        while (it.hasNext())
+            assertEquals(Integer.valueOf(count++), it.next());
+        assertEquals(100, count);
+        assertEquals(Integer.valueOf(99), li.previous());
+        try {
+            li.set(0);
+            fail();
+        } catch (UnsupportedOperationException expected) {
+        }
+        try {
+            it.remove();
+            fail();
+        } catch (UnsupportedOperationException expected) {
+        }
+    }
+
+    @Test
+    public void cloneAndSerializationAreIndependentCopies() throws Exception {
+        CopyOnWriteTrieList<String> list = new CopyOnWriteTrieList<>();
+        for (int i = 0; i < 2000; i++)
+            list.add(String.valueOf(i));
+        @SuppressWarnings("unchecked")
+        CopyOnWriteTrieList<String> copy = (CopyOnWriteTrieList<String>) list.clone();
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        try (ObjectOutputStream oos = new ObjectOutputStream(bos)) {
+            oos.writeObject(list);
+        }
+        Object read;
+        try (ObjectInputStream ois = new ObjectInputStream(
+                 new ByteArrayInputStream(bos.toByteArray()))) {
+            read = ois.readObject();
+        }
+        list.set(0, "changed");
+        list.add("more");
+        assertEquals("0", copy.get(0));
+        assertEquals(2000, copy.size());
+        assertEquals(copy, read);
+    }
+
+    @Test
+    public void concurrentAppendsAreNotLost() throws Exception {
+        CopyOnWriteTrieList<Integer> list = new CopyOnWriteTrieList<>();
+        int threads = 4, perThread = 5000;
+        Thread[] ts = new Thread[threads];
+        for (int i = 0; i < threads; i++) {
+            int base = i * perThread;
+            ts[i] = new Thread(() -> {
+                for (int j = 0; j < perThread; j++)
+                    list.add(base + j);
+            });
+            ts[i].start();
+        }
+        for (Thread t : ts)
+            t.join();
+        assertEquals(threads * perThread, list.size());
+        boolean[] seen = new boolean[threads * perThread];
+        for (int x : list) {
+            assertFalse(seen[x]);
+            seen[x] = true;
+        }
+    }
+}
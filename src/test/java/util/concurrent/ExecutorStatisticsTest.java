@@ -0,0 +1,162 @@
+package test.java.util.concurrent;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorMXBean;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Pools with statistics enabled must queue and run the submitted tasks
+ * themselves.
+ */
+public class ExecutorStatisticsTest {
+
+    static final class Prioritized implements Runnable, Comparable<Prioritized> {
+        final int priority;
+        final List<Integer> ran;
+
+        Prioritized(int priority, List<Integer> ran) {
+            this.priority = priority;
+            this.ran = ran;
+        }
+
+        public void run() {
+            ran.add(priority);
+        }
+
+        public int compareTo(Prioritized o) {
+            return Integer.compare(priority, o.priority);
+        }
+    }
+
+    @Test
+    public void priorityQueueHoldsSubmittedTasks() throws Exception {
+        BlockingQueue<Runnable> queue = new PriorityBlockingQueue<>();
+        ThreadPoolExecutor e = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.SECONDS, queue);
+        try {
+            ExecutorMXBean stats = e.enableStatistics();
+            CountDownLatch release = new CountDownLatch(1);
+            e.execute(() -> {
+                try {
+                    release.await();
+                } catch (InterruptedException ignore) {
+                }
+            });
+            List<Integer> ran = new CopyOnWriteArrayList<>();
+            List<Prioritized> tasks = new ArrayList<>();
+            for (int p : new int[] { 3, 1, 4, 2 }) {
+                Prioritized t = new Prioritized(p, ran);
+                tasks.add(t);
+                e.execute(t);
+            }
+            assertEquals(4, queue.size());
+            assertSame(tasks.get(1), queue.peek());
+            assertTrue(e.getQueue().contains(tasks.get(0)));
+            assertTrue(e.remove(tasks.get(3)));
+
+            release.countDown();
+            e.shutdown();
+            assertTrue(e.awaitTermination(10, TimeUnit.SECONDS));
+            assertEquals(Arrays.asList(1, 3, 4), ran);
+            assertEquals(3, stats.getQueueWaitCount());
+            assertEquals(4, stats.getRunCount());
+        } finally {
+            e.shutdownNow();
+        }
+    }
+
+    @Test
+    public void shutdownNowReturnsSubmittedTasks() throws Exception {
+        ThreadPoolExecutor e = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.SECONDS,
+                                                      new PriorityBlockingQueue<>());
+        e.enableStatistics();
+        CountDownLatch started = new CountDownLatch(1);
+        e.execute(() -> {
+            started.countDown();
+            try {
+                Thread.sleep(10000);
+            } catch (InterruptedException ignore) {
+            }
+        });
+        assertTrue(started.await(10, TimeUnit.SECONDS));
+        Prioritized t = new Prioritized(1, new ArrayList<>());
+        e.execute(t);
+        List<Runnable> pending = e.shutdownNow();
+        assertEquals(1, pending.size());
+        assertSame(t, pending.get(0));
+        assertTrue(e.awaitTermination(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void workersParkOnlyWhenIdle() throws Exception {
+        ThreadPoolExecutor e = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.SECONDS,
+                                                      new PriorityBlockingQueue<>());
+        try {
+            CountDownLatch release = new CountDownLatch(1);
+            e.execute(() -> {
+                try {
+                    release.await();
+                } catch (InterruptedException ignore) {
+                }
+            });
+            ExecutorMXBean stats = e.enableStatistics();
+            List<Integer> ran = new CopyOnWriteArrayList<>();
+            for (int i = 0; i < 100; i++)
+                e.execute(new Prioritized(i, ran));
+            release.countDown();
+            while (ran.size() < 100)
+                Thread.sleep(1);
+            // Only the final wait for more tasks may have blocked
+            assertTrue(stats.getParkCount() <= 1);
+            assertTrue(stats.getUnparkCount() <= stats.getParkCount());
+        } finally {
+            e.shutdownNow();
+        }
+    }
+
+    /**
+     * A task submitted from outside the common pool while its workers
+     * are all busy is run by the thread waiting for it, which must find
+     * it at the top of its submission queue.
+     */
+    @Test
+    public void externalWaitRunsQueuedSubmission() throws Exception {
+        ForkJoinPool pool = ForkJoinPool.commonPool();
+        pool.enableStatistics();
+        int n = pool.getParallelism();
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(n);
+        try {
+            for (int i = 0; i < n; i++) {
+                pool.execute(() -> {
+                    started.countDown();
+                    try {
+                        release.await();
+                    } catch (InterruptedException ignore) {
+                    }
+                });
+            }
+            assertTrue(started.await(10, TimeUnit.SECONDS));
+            ForkJoinTask<Thread> f = pool.submit(Thread::currentThread);
+            assertSame(Thread.currentThread(), f.get(10, TimeUnit.SECONDS));
+            assertFalse(pool.hasQueuedSubmissions());
+        } finally {
+            release.countDown();
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package test.java.util.concurrent;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Batch insertion and removal must wake as many waiting threads as they
+ * make room for.
+ */
+public class LinkedBlockingDequeBatchTest {
+
+    private static Thread start(Runnable r) {
+        Thread t = new Thread(r);
+        t.setDaemon(true);
+        t.start();
+        return t;
+    }
+
+    private static void awaitWaiting(Thread t) throws InterruptedException {
+        while (t.getState() != Thread.State.WAITING &&
+               t.getState() != Thread.State.TIMED_WAITING)
+            Thread.sleep(1);
+    }
+
+    @Test
+    public void offerAllWakesEveryTaker() throws Exception {
+        LinkedBlockingDeque<Integer> q = new LinkedBlockingDeque<>();
+        List<Integer> taken = new CopyOnWriteArrayList<>();
+        CountDownLatch done = new CountDownLatch(3);
+        List<Thread> takers = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            takers.add(start(() -> {
+                try {
+                    taken.add(q.take());
+                    done.countDown();
+                } catch (InterruptedException ignore) {
+                }
+            }));
+        }
+        for (Thread t : takers)
+            awaitWaiting(t);
+        assertEquals(3, q.offerAll(Arrays.asList(1, 2, 3), 0, TimeUnit.SECONDS));
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        List<Integer> sorted = new ArrayList<>(taken);
+        Collections.sort(sorted);
+        assertEquals(Arrays.asList(1, 2, 3), sorted);
+    }
+
+    @Test
+    public void offerAllLargerThanCapacity() throws Exception {
+        LinkedBlockingDeque<Integer> q = new LinkedBlockingDeque<>(2);
+        List<Integer> batch = new ArrayList<>();
+        for (int i = 0; i < 100; i++)
+            batch.add(i);
+        List<Integer> taken = new CopyOnWriteArrayList<>();
+        Thread taker = start(() -> {
+            try {
+                for (int i = 0; i < 100; i++)
+                    taken.add(q.take());
+            } catch (InterruptedException ignore) {
+            }
+        });
+        assertEquals(100, q.offerAll(batch, 10, TimeUnit.SECONDS));
+        taker.join(10000);
+        assertEquals(batch, taken);
+    }
+
+    @Test
+    public void offerAllTimesOutWhenFull() throws Exception {
+        LinkedBlockingDeque<Integer> q = new LinkedBlockingDeque<>(2);
+        assertEquals(2, q.offerAll(Arrays.asList(1, 2, 3), 10, TimeUnit.MILLISECONDS));
+        assertEquals(Arrays.asList(1, 2), new ArrayList<>(q));
+    }
+
+    @Test
+    public void pollBatchWakesEveryPutter() throws Exception {
+        LinkedBlockingDeque<Integer> q = new LinkedBlockingDeque<>(3);
+        q.addAll(Arrays.asList(0, 0, 0));
+        CountDownLatch done = new CountDownLatch(3);
+        List<Thread> putters = new ArrayList<>();
+        for (int i = 1; i <= 3; i++) {
+            int e = i;
+            putters.add(start(() -> {
+                try {
+                    q.put(e);
+                    done.countDown();
+                } catch (InterruptedException ignore) {
+                }
+            }));
+        }
+        for (Thread t : putters)
+            awaitWaiting(t);
+        List<Integer> polled = new ArrayList<>();
+        assertEquals(3, q.pollBatch(polled, 10, 0, TimeUnit.SECONDS));
+        assertEquals(Arrays.asList(0, 0, 0), polled);
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        assertEquals(3, q.size());
+    }
+
+    @Test
+    public void pollBatchWakesPuttersWhenAddFails() throws Exception {
+        LinkedBlockingDeque<Integer> q = new LinkedBlockingDeque<>(3);
+        q.addAll(Arrays.asList(1, 2, 3));
+        CountDownLatch done = new CountDownLatch(2);
+        List<Thread> putters = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            putters.add(start(() -> {
+                try {
+                    q.put(4);
+                    done.countDown();
+                } catch (InterruptedException ignore) {
+                }
+            }));
+        }
+        for (Thread t : putters)
+            awaitWaiting(t);
+        @SuppressWarnings("serial")
+        List<Integer> polled = new ArrayList<Integer>() {
+            public boolean add(Integer e) {
+                if (size() == 2)
+                    throw new IllegalStateException();
+                return super.add(e);
+            }
+        };
+        try {
+            q.pollBatch(polled, 3, 0, TimeUnit.SECONDS);
+            fail();
+        } catch (IllegalStateException expected) {
+        }
+        assertEquals(Arrays.asList(1, 2), polled);
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        assertEquals(Arrays.asList(3, 4, 4), new ArrayList<>(q));
+    }
+
+    @Test
+    public void pollBatchWaitsForFirstElement() throws Exception {
+        LinkedBlockingDeque<Integer> q = new LinkedBlockingDeque<>();
+        List<Integer> polled = new ArrayList<>();
+        assertEquals(0, q.pollBatch(polled, 5, 10, TimeUnit.MILLISECONDS));
+        start(() -> {
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException ignore) {
+            }
+            q.add(7);
+        });
+        assertEquals(1, q.pollBatch(polled, 5, 10, TimeUnit.SECONDS));
+        assertEquals(Collections.singletonList(7), polled);
+    }
+}
@@ -0,0 +1,192 @@
+package test.java.util.concurrent;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.MpscRingBufferQueue;
+import java.util.concurrent.RingBufferQueue;
+import java.util.concurrent.RingBufferQueue.WaitStrategy;
+import java.util.concurrent.SpmcRingBufferQueue;
+import java.util.concurrent.SpscRingBufferQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class RingBufferQueueTest {
+
+    static final int COUNT = 200000;
+
+    static final List<BiFunction<Integer, WaitStrategy, RingBufferQueue<Integer>>> KINDS =
+        Arrays.asList(SpscRingBufferQueue::new,
+                      MpscRingBufferQueue::new,
+                      SpmcRingBufferQueue::new);
+
+    /**
+     * The wait strategies to use with the given number of threads;
+     * SPIN is only usable when each thread has a processor of its own.
+     */
+    static List<WaitStrategy> strategies(int threads) {
+        return (Runtime.getRuntime().availableProcessors() >= threads)
+            ? Arrays.asList(WaitStrategy.values())
+            : Arrays.asList(WaitStrategy.YIELD, WaitStrategy.PARK);
+    }
+
+    @Test
+    public void singleThreadedOperations() throws Exception {
+        for (BiFunction<Integer, WaitStrategy, RingBufferQueue<Integer>> kind : KINDS) {
+            try {
+                kind.apply(0, WaitStrategy.PARK);
+                fail();
+            } catch (IllegalArgumentException expected) {
+            }
+            // A capacity that is not a power of two is still enforced
+            RingBufferQueue<Integer> q = kind.apply(3, WaitStrategy.PARK);
+            assertTrue(q.isEmpty());
+            assertNull(q.poll());
+            assertNull(q.peek());
+            assertNull(q.poll(1, TimeUnit.MILLISECONDS));
+            for (int round = 0; round < 5; round++) {
+                assertTrue(q.offer(1));
+                assertTrue(q.offer(2));
+                q.put(3);
+                assertFalse(q.offer(4));
+                assertFalse(q.offer(4, 1, TimeUnit.MILLISECONDS));
+                assertEquals(3, q.size());
+                assertEquals(0, q.remainingCapacity());
+                assertEquals(Integer.valueOf(1), q.peek());
+                assertArrayEquals(new Object[] { 1, 2, 3 }, q.toArray());
+                assertEquals(Arrays.asList(1, 2, 3), new ArrayList<>(q));
+                assertEquals(Integer.valueOf(1), q.poll());
+                assertEquals(Integer.valueOf(2), q.take());
+                List<Integer> drained = new ArrayList<>();
+                assertEquals(1, q.drainTo(drained));
+                assertEquals(Arrays.asList(3), drained);
+                assertTrue(q.isEmpty());
+                assertEquals(3, q.remainingCapacity());
+            }
+            try {
+                q.offer(null);
+                fail();
+            } catch (NullPointerException expected) {
+            }
+        }
+    }
+
+    static Thread start(Runnable r) {
+        Thread t = new Thread(r);
+        t.setDaemon(true);
+        t.start();
+        return t;
+    }
+
+    /** Puts COUNT values, each tagged with the producer's index */
+    static Thread producer(RingBufferQueue<Integer> q, int index, int producers) {
+        return start(() -> {
+            try {
+                for (int i = 0; i < COUNT / producers; i++)
+                    q.put(i * producers + index);
+            } catch (InterruptedException ignore) {
+            }
+        });
+    }
+
+    @Test
+    public void spscTransfersInOrder() throws Exception {
+        for (WaitStrategy s : strategies(2)) {
+            RingBufferQueue<Integer> q = new SpscRingBufferQueue<>(16, s);
+            Thread p = producer(q, 0, 1);
+            for (int i = 0; i < COUNT; i++)
+                assertEquals(Integer.valueOf(i), q.poll(10, TimeUnit.SECONDS));
+            p.join();
+            assertTrue(q.isEmpty());
+        }
+    }
+
+    @Test
+    public void mpscKeepsEachProducersOrder() throws Exception {
+        int producers = 4;
+        for (WaitStrategy s : strategies(producers + 1)) {
+            RingBufferQueue<Integer> q = new MpscRingBufferQueue<>(16, s);
+            List<Thread> threads = new ArrayList<>();
+            for (int i = 0; i < producers; i++)
+                threads.add(producer(q, i, producers));
+            int[] next = new int[producers];
+            for (int i = 0; i < COUNT; i++) {
+                int v = q.take();
+                assertEquals(next[v % producers]++, v / producers);
+            }
+            for (Thread t : threads)
+                t.join();
+            for (int n : next)
+                assertEquals(COUNT / producers, n);
+            assertTrue(q.isEmpty());
+        }
+    }
+
+    @Test
+    public void spmcDeliversEachElementOnce() throws Exception {
+        int consumers = 4;
+        for (WaitStrategy s : strategies(consumers + 1)) {
+            RingBufferQueue<Integer> q = new SpmcRingBufferQueue<>(16, s);
+            int[][] taken = new int[consumers][];
+            List<Thread> threads = new ArrayList<>();
+            for (int c = 0; c < consumers; c++) {
+                int index = c;
+                threads.add(start(() -> {
+                    int[] mine = new int[COUNT];
+                    int n = 0;
+                    try {
+                        for (Integer v; (v = q.take()) >= 0; )
+                            mine[n++] = v;
+                    } catch (InterruptedException ignore) {
+                    }
+                    taken[index] = Arrays.copyOf(mine, n);
+                }));
+            }
+            for (int i = 0; i < COUNT; i++)
+                q.put(i);
+            for (int c = 0; c < consumers; c++)
+                q.put(-1);
+            for (Thread t : threads)
+                t.join();
+            boolean[] seen = new boolean[COUNT];
+            for (int[] mine : taken) {
+                for (int i = 0; i < mine.length; i++) {
+                    // Each consumer sees increasing values
+                    assertTrue(i == 0 || mine[i - 1] < mine[i]);
+                    assertFalse(seen[mine[i]]);
+                    seen[mine[i]] = true;
+                }
+            }
+            for (boolean b : seen)
+                assertTrue(b);
+        }
+    }
+
+    @Test
+    public void blockedConsumerIsWoken() throws Exception {
+        for (BiFunction<Integer, WaitStrategy, RingBufferQueue<Integer>> kind : KINDS) {
+            RingBufferQueue<Integer> q = kind.apply(4, WaitStrategy.PARK);
+            Integer[] result = new Integer[1];
+            Thread consumer = start(() -> {
+                try {
+                    result[0] = q.take();
+                } catch (InterruptedException ignore) {
+                }
+            });
+            while (consumer.getState() != Thread.State.WAITING)
+                Thread.sleep(1);
+            q.put(42);
+            consumer.join(10000);
+            assertEquals(Integer.valueOf(42), result[0]);
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package test.java.util.concurrent;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor.StripedWorkQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class StripedWorkQueueTest {
+
+    /** A task distinct from all others */
+    static final class Task implements Runnable {
+        public void run() { }
+    }
+
+    static Runnable[] tasks(int n) {
+        Runnable[] tasks = new Runnable[n];
+        for (int i = 0; i < n; i++)
+            tasks[i] = new Task();
+        return tasks;
+    }
+
+    @Test
+    public void queueOperations() throws Exception {
+        try {
+            new StripedWorkQueue(0);
+            fail();
+        } catch (IllegalArgumentException expected) {
+        }
+        StripedWorkQueue q = new StripedWorkQueue(3);
+        assertTrue(q.isEmpty());
+        assertNull(q.poll());
+        assertNull(q.poll(1, TimeUnit.MILLISECONDS));
+        Runnable[] tasks = tasks(10);
+        for (Runnable t : tasks)
+            assertTrue(q.offer(t));
+        assertEquals(10, q.size());
+        assertEquals(Integer.MAX_VALUE, q.remainingCapacity());
+        // Tasks offered by a single thread come back in order
+        assertSame(tasks[0], q.peek());
+        assertSame(tasks[0], q.poll());
+        assertSame(tasks[1], q.take());
+        assertTrue(q.contains(tasks[5]));
+        assertTrue(q.remove(tasks[5]));
+        assertFalse(q.contains(tasks[5]));
+        assertFalse(q.remove(tasks[5]));
+        Iterator<Runnable> it = q.iterator();
+        assertSame(tasks[2], it.next());
+        it.remove();
+        assertEquals(6, q.size());
+        List<Runnable> drained = new ArrayList<>();
+        assertEquals(2, q.drainTo(drained, 2));
+        assertEquals(4, q.drainTo(drained));
+        assertEquals(6, drained.size());
+        assertTrue(q.isEmpty());
+        try {
+            q.offer(null);
+            fail();
+        } catch (NullPointerException expected) {
+        }
+    }
+
+    @Test
+    public void takeSeesTasksOfferedByOtherThreads() throws Exception {
+        StripedWorkQueue q = new StripedWorkQueue(8);
+        int producers = 8, perProducer = 10000;
+        Runnable[] tasks = tasks(producers * perProducer);
+        List<Thread> threads = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            int base = p * perProducer;
+            Thread t = new Thread(() -> {
+                for (int i = 0; i < perProducer; i++)
+                    q.put(tasks[base + i]);
+            });
+            t.start();
+            threads.add(t);
+        }
+        Set<Runnable> taken = new HashSet<>();
+        for (int i = 0; i < tasks.length; i++) {
+            Runnable r = q.poll(10, TimeUnit.SECONDS);
+            assertTrue(r != null && taken.add(r));
+        }
+        for (Thread t : threads)
+            t.join();
+        assertTrue(q.isEmpty());
+    }
+
+    @Test
+    public void blockedTakerIsWoken() throws Exception {
+        StripedWorkQueue q = new StripedWorkQueue(4);
+        Runnable task = new Task();
+        CountDownLatch done = new CountDownLatch(1);
+        Thread taker = new Thread(() -> {
+            try {
+                if (q.take() == task)
+                    done.countDown();
+            } catch (InterruptedException ignore) {
+            }
+        });
+        taker.setDaemon(true);
+        taker.start();
+        while (taker.getState() != Thread.State.WAITING)
+            Thread.sleep(1);
+        q.offer(task);
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void stripedPoolRunsAllTasks() throws Exception {
+        ExecutorService e = Executors.newStripedThreadPool(4);
+        AtomicInteger ran = new AtomicInteger();
+        int submitters = 8, perSubmitter = 20000;
+        List<Thread> threads = new ArrayList<>();
+        for (int s = 0; s < submitters; s++) {
+            Thread t = new Thread(() -> {
+                for (int i = 0; i < perSubmitter; i++)
+                    e.execute(ran::incrementAndGet);
+            });
+            t.start();
+            threads.add(t);
+        }
+        for (Thread t : threads)
+            t.join();
+        e.shutdown();
+        assertTrue(e.awaitTermination(30, TimeUnit.SECONDS));
+        assertEquals(submitters * perSubmitter, ran.get());
+    }
+}
@@ -0,0 +1,183 @@
+package test.java.util.concurrent;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.StructuredTaskScope;
+import java.util.concurrent.StructuredTaskScope.Subtask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class StructuredTaskScopeTest {
+
+    final ExecutorService executor = Executors.newCachedThreadPool();
+
+    @After
+    public void shutdownExecutor() {
+        executor.shutdownNow();
+    }
+
+    /** Sleeps until interrupted, then records the interrupt */
+    static String sleepUntilInterrupted(AtomicBoolean interrupted) {
+        try {
+            Thread.sleep(60000);
+        } catch (InterruptedException e) {
+            interrupted.set(true);
+        }
+        return "slept";
+    }
+
+    @Test
+    public void shutdownOnFailureCancelsOthers() throws Exception {
+        AtomicBoolean interrupted = new AtomicBoolean();
+        IllegalStateException failure = new IllegalStateException();
+        Subtask<String> ok, slow, failing;
+        try (StructuredTaskScope.ShutdownOnFailure scope =
+                 new StructuredTaskScope.ShutdownOnFailure(executor)) {
+            ok = scope.fork(() -> "ok");
+            slow = scope.fork(() -> sleepUntilInterrupted(interrupted));
+            failing = scope.fork(() -> {
+                Thread.sleep(20);
+                throw failure;
+            });
+            scope.join();
+            assertTrue(scope.isShutdown());
+            assertSame(failure, scope.exception());
+            try {
+                scope.throwIfFailed();
+                fail();
+            } catch (ExecutionException e) {
+                assertSame(failure, e.getCause());
+            }
+        }
+        assertTrue(interrupted.get());
+        assertEquals(Subtask.State.SUCCESS, ok.state());
+        assertEquals("ok", ok.get());
+        assertEquals(Subtask.State.FAILED, failing.state());
+        assertSame(failure, failing.exception());
+        assertEquals(Subtask.State.UNAVAILABLE, slow.state());
+        try {
+            slow.get();
+            fail();
+        } catch (IllegalStateException expected) {
+        }
+    }
+
+    @Test
+    public void shutdownOnFailureWithoutFailures() throws Exception {
+        try (StructuredTaskScope.ShutdownOnFailure scope =
+                 new StructuredTaskScope.ShutdownOnFailure(executor)) {
+            Subtask<Integer> a = scope.fork(() -> 1);
+            Subtask<Integer> b = scope.fork(() -> 2);
+            scope.join().throwIfFailed();
+            assertFalse(scope.isShutdown());
+            assertNull(scope.exception());
+            assertEquals(3, a.get() + b.get());
+        }
+    }
+
+    @Test
+    public void shutdownOnSuccessReturnsFirstResult() throws Exception {
+        AtomicBoolean interrupted = new AtomicBoolean();
+        try (StructuredTaskScope.ShutdownOnSuccess<String> scope =
+                 new StructuredTaskScope.ShutdownOnSuccess<>(executor)) {
+            scope.fork(() -> { throw new IllegalStateException(); });
+            scope.fork(() -> sleepUntilInterrupted(interrupted));
+            scope.fork(() -> "first");
+            assertEquals("first", scope.join().result());
+        }
+        assertTrue(interrupted.get());
+        IllegalStateException failure = new IllegalStateException();
+        try (StructuredTaskScope.ShutdownOnSuccess<String> scope =
+                 new StructuredTaskScope.ShutdownOnSuccess<>(executor)) {
+            scope.fork(() -> { throw failure; });
+            try {
+                scope.join().result();
+                fail();
+            } catch (ExecutionException e) {
+                assertSame(failure, e.getCause());
+            }
+        }
+    }
+
+    @Test
+    public void joinTimesOut() throws Exception {
+        AtomicBoolean interrupted = new AtomicBoolean();
+        Subtask<String> slow;
+        try (StructuredTaskScope<String> scope = new StructuredTaskScope<>(executor)) {
+            slow = scope.fork(() -> sleepUntilInterrupted(interrupted));
+            try {
+                scope.join(20, TimeUnit.MILLISECONDS);
+                fail();
+            } catch (TimeoutException expected) {
+            }
+            assertTrue(scope.isShutdown());
+        }
+        assertTrue(interrupted.get());
+        assertEquals(Subtask.State.UNAVAILABLE, slow.state());
+    }
+
+    @Test
+    public void closeWaitsForSubtaskThreads() throws Exception {
+        AtomicBoolean finished = new AtomicBoolean();
+        CountDownLatch started = new CountDownLatch(1);
+        StructuredTaskScope<Object> scope = new StructuredTaskScope<>(executor);
+        scope.fork(() -> {
+            started.countDown();
+            // Ignores interrupts
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(100);
+            while (System.nanoTime() < deadline)
+                Thread.yield();
+            finished.set(true);
+            return null;
+        });
+        assertTrue(started.await(10, TimeUnit.SECONDS));
+        scope.close();
+        assertTrue(finished.get());
+        try {
+            scope.fork(() -> null);
+            fail();
+        } catch (IllegalStateException expected) {
+        }
+    }
+
+    @Test
+    public void forkAfterShutdownDoesNotRun() throws Exception {
+        AtomicBoolean ran = new AtomicBoolean();
+        try (StructuredTaskScope<Object> scope = new StructuredTaskScope<>(executor)) {
+            scope.shutdown();
+            Subtask<Object> s = scope.fork(() -> ran.getAndSet(true));
+            scope.join();
+            assertEquals(Subtask.State.UNAVAILABLE, s.state());
+        }
+        assertFalse(ran.get());
+    }
+
+    @Test
+    public void onlyOwnerMayJoin() throws Exception {
+        try (StructuredTaskScope<Object> scope = new StructuredTaskScope<>(executor)) {
+            Subtask<Object> s = scope.fork(() -> {
+                try {
+                    scope.join();
+                    return "joined";
+                } catch (IllegalStateException expected) {
+                    return "rejected";
+                }
+            });
+            scope.join();
+            assertEquals("rejected", s.get());
+        }
+    }
+}
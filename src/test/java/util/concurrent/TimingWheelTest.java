@@ -0,0 +1,93 @@
+package test.java.util.concurrent;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Scheduled executors holding their delayed tasks in a timing wheel.
+ */
+public class TimingWheelTest {
+
+    /**
+     * With a one nanosecond tick the wheel spans about 4.3 seconds, so
+     * this delay lies beyond it and the task must wait out a full round
+     * of the outermost level before running.
+     */
+    @Test
+    public void delayBeyondWheelIsNotCutShort() throws Exception {
+        ScheduledThreadPoolExecutor e = new ScheduledThreadPoolExecutor(1, 1, NANOSECONDS);
+        try {
+            long delay = TimeUnit.SECONDS.toNanos(5);
+            long start = System.nanoTime();
+            ScheduledFuture<Long> f = e.schedule(System::nanoTime, delay, NANOSECONDS);
+            long ran = f.get();
+            assertTrue("ran after " + (ran - start) + "ns", ran - start >= delay);
+        } finally {
+            e.shutdownNow();
+        }
+    }
+
+    @Test
+    public void tasksRunInDelayOrder() throws Exception {
+        ScheduledThreadPoolExecutor e = new ScheduledThreadPoolExecutor(1, 1, MILLISECONDS);
+        try {
+            List<Integer> order = new CopyOnWriteArrayList<>();
+            CountDownLatch done = new CountDownLatch(4);
+            int[] delays = { 300, 10, 200, 100 };
+            for (int d : delays)
+                e.schedule(() -> { order.add(d); done.countDown(); }, d, MILLISECONDS);
+            assertTrue(done.await(10, TimeUnit.SECONDS));
+            assertEquals(Arrays.asList(10, 100, 200, 300), order);
+        } finally {
+            e.shutdownNow();
+        }
+    }
+
+    @Test
+    public void cancelRemovesFromWheel() throws Exception {
+        ScheduledThreadPoolExecutor e = new ScheduledThreadPoolExecutor(1, 1, MILLISECONDS);
+        try {
+            e.setRemoveOnCancelPolicy(true);
+            AtomicBoolean ran = new AtomicBoolean();
+            ScheduledFuture<?> near = e.schedule(() -> ran.set(true), 50, MILLISECONDS);
+            ScheduledFuture<?> far = e.schedule(() -> ran.set(true), 1, TimeUnit.DAYS);
+            assertEquals(2, e.getQueue().size());
+            assertTrue(near.cancel(false));
+            assertTrue(far.cancel(false));
+            assertEquals(0, e.getQueue().size());
+            Thread.sleep(200);
+            assertFalse(ran.get());
+        } finally {
+            e.shutdownNow();
+        }
+    }
+
+    @Test
+    public void cancelledTaskIsNotRun() throws Exception {
+        ScheduledThreadPoolExecutor e = new ScheduledThreadPoolExecutor(1, 1, MILLISECONDS);
+        try {
+            AtomicBoolean ran = new AtomicBoolean();
+            ScheduledFuture<?> f = e.schedule(() -> ran.set(true), 50, MILLISECONDS);
+            ScheduledFuture<Boolean> after = e.schedule(() -> ran.get(), 100, MILLISECONDS);
+            assertTrue(f.cancel(false));
+            assertFalse(after.get());
+            assertFalse(ran.get());
+        } finally {
+            e.shutdownNow();
+        }
+    }
+}
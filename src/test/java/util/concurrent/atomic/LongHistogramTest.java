@@ -0,0 +1,141 @@
+package test.java.util.concurrent.atomic;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.atomic.LongHistogram;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class LongHistogramTest {
+
+    @Test
+    public void smallValuesAreExact() {
+        LongHistogram h = new LongHistogram();
+        for (int i = 1; i <= 60; i++)
+            h.recordValue(i);
+        LongHistogram.Snapshot s = h.snapshot();
+        assertEquals(60, s.getTotalCount());
+        assertEquals(1, s.getMinValue());
+        assertEquals(60, s.getMaxValue());
+        assertEquals(30.5, s.getMean(), 0.0);
+        assertEquals(30, s.getValueAtPercentile(50.0));
+        assertEquals(1, s.getValueAtPercentile(0.0));
+        assertEquals(60, s.getValueAtPercentile(100.0));
+        assertEquals(11, s.getCountBetweenValues(10, 20));
+        assertEquals(0, s.getCountBetweenValues(20, 10));
+    }
+
+    /**
+     * Percentiles of random values spanning many orders of magnitude
+     * are within the relative error given by the precision.
+     */
+    @Test
+    public void percentilesAreWithinPrecision() {
+        for (int precision : new int[] { 1, 6, 12 }) {
+            LongHistogram h = new LongHistogram(precision);
+            assertEquals(precision, h.getPrecision());
+            Random r = new Random(precision);
+            long[] values = new long[100000];
+            for (int i = 0; i < values.length; i++) {
+                long v = (r.nextLong() >>> 1) >>> r.nextInt(63);
+                values[i] = v;
+                h.recordValue(v);
+            }
+            Arrays.sort(values);
+            LongHistogram.Snapshot s = h.snapshot();
+            assertEquals(values[0], s.getMinValue());
+            assertEquals(values[values.length - 1], s.getMaxValue());
+            double error = Math.scalb(1.0, -precision);
+            for (double p : new double[] { 1.0, 25.0, 50.0, 90.0, 99.0, 99.9 }) {
+                long exact = values[(int) Math.ceil(p / 100.0 * values.length) - 1];
+                long estimate = s.getValueAtPercentile(p);
+                assertTrue(estimate >= exact);
+                assertTrue(p + ": " + exact + " " + estimate,
+                           estimate - exact <= exact * error + 1);
+            }
+        }
+    }
+
+    @Test
+    public void snapshotThenResetEmptiesHistogram() {
+        LongHistogram h = new LongHistogram();
+        h.recordValue(5);
+        h.recordValue(1000);
+        LongHistogram.Snapshot s = h.snapshotThenReset();
+        assertEquals(2, s.getTotalCount());
+        assertEquals(1000, s.getMaxValue());
+        assertEquals(0, h.getTotalCount());
+        LongHistogram.Snapshot empty = h.snapshot();
+        assertEquals(0, empty.getMaxValue());
+        assertEquals(0, empty.getMinValue());
+        assertEquals(0.0, empty.getMean(), 0.0);
+        assertEquals(0, empty.getValueAtPercentile(50.0));
+        h.recordValue(7);
+        assertEquals(7, h.snapshot().getMinValue());
+    }
+
+    @Test
+    public void snapshotsMergeAndAdd() {
+        LongHistogram a = new LongHistogram(), b = new LongHistogram();
+        for (int i = 0; i < 100; i++) {
+            a.recordValue(i);
+            b.recordValue(1000 + i);
+        }
+        LongHistogram.Snapshot m = a.snapshot().merge(b.snapshot());
+        assertEquals(200, m.getTotalCount());
+        assertEquals(0, m.getMinValue());
+        assertEquals(1099, m.getMaxValue());
+        assertEquals(549.5, m.getMean(), 0.0);
+        a.add(b.snapshot());
+        assertEquals(m.toString(), a.toString());
+        try {
+            a.add(new LongHistogram(3).snapshot());
+            fail();
+        } catch (IllegalArgumentException expected) {
+        }
+        try {
+            a.recordValue(-1);
+            fail();
+        } catch (IllegalArgumentException expected) {
+        }
+        try {
+            a.getValueAtPercentile(100.5);
+            fail();
+        } catch (IllegalArgumentException expected) {
+        }
+        try {
+            new LongHistogram(13);
+            fail();
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+
+    @Test
+    public void concurrentRecordingsAreCounted() throws Exception {
+        LongHistogram h = new LongHistogram();
+        int threads = 4, perThread = 100000;
+        long[] drained = new long[1];
+        Thread[] ts = new Thread[threads];
+        for (int i = 0; i < threads; i++) {
+            ts[i] = new Thread(() -> {
+                for (int j = 1; j <= perThread; j++)
+                    h.recordValue(j);
+            });
+            ts[i].start();
+        }
+        Thread reporter = new Thread(() -> {
+            for (int i = 0; i < 100; i++)
+                drained[0] += h.snapshotThenReset().getTotalCount();
+        });
+        reporter.start();
+        for (Thread t : ts)
+            t.join();
+        reporter.join();
+        LongHistogram.Snapshot s = h.snapshotThenReset();
+        assertEquals((long) threads * perThread, drained[0] + s.getTotalCount());
+    }
+}
@@ -0,0 +1,138 @@
+package test.java.util.concurrent.locks;
+
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ContentionProfile;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class ContentionProfileTest {
+
+    static void awaitBlocked(Thread t) throws InterruptedException {
+        while (t.getState() != Thread.State.WAITING)
+            Thread.sleep(1);
+    }
+
+    /**
+     * Holds the given lock in a thread named "holder" while another
+     * thread blocks acquiring the other lock, then releases it.
+     */
+    static void contend(Lock held, Lock waited) throws Exception {
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Thread holder = new Thread(() -> {
+            held.lock();
+            try {
+                locked.countDown();
+                release.await();
+            } catch (InterruptedException ignore) {
+            } finally {
+                held.unlock();
+            }
+        }, "holder");
+        holder.start();
+        assertTrue(locked.await(10, TimeUnit.SECONDS));
+        Thread waiter = new Thread(() -> {
+            waited.lock();
+            waited.unlock();
+        }, "waiter");
+        waiter.start();
+        awaitBlocked(waiter);
+        Thread.sleep(10);
+        release.countDown();
+        holder.join();
+        waiter.join();
+    }
+
+    static long sum(long[] a) {
+        long s = 0;
+        for (long x : a)
+            s += x;
+        return s;
+    }
+
+    @Test
+    public void reentrantLockRecordsContention() throws Exception {
+        ReentrantLock lock = new ReentrantLock();
+        assertNull(lock.getContentionProfile());
+        lock.setContentionProfilingEnabled(true);
+        ContentionProfile p = lock.getContentionProfile();
+        assertNotNull(p);
+        lock.setContentionProfilingEnabled(true);
+        assertSame(p, lock.getContentionProfile());
+
+        // Uncontended acquisitions are not recorded
+        lock.lock();
+        lock.unlock();
+        assertEquals(0, p.getContentionCount());
+
+        contend(lock, lock);
+        assertEquals(1, p.getContentionCount());
+        assertEquals(1, sum(p.getWaitHistogram()));
+        assertTrue(p.getMaxWaitNanos() >= TimeUnit.MILLISECONDS.toNanos(10));
+        assertEquals(p.getMaxWaitNanos(), p.getTotalWaitNanos());
+        assertEquals(Collections.singletonMap("holder", 1L),
+                     p.getOwnerContentionCounts());
+
+        p.reset();
+        assertEquals(0, p.getContentionCount());
+        assertEquals(0, p.getTotalWaitNanos());
+        assertTrue(p.getOwnerContentionCounts().isEmpty());
+
+        lock.setContentionProfilingEnabled(false);
+        assertNull(lock.getContentionProfile());
+    }
+
+    @Test
+    public void readWriteLockAttributesOnlyWriters() throws Exception {
+        ReentrantReadWriteLock rw = new ReentrantReadWriteLock();
+        rw.setContentionProfilingEnabled(true);
+        ContentionProfile p = rw.getContentionProfile();
+        contend(rw.writeLock(), rw.readLock());
+        assertEquals(1, p.getContentionCount());
+        assertEquals(Collections.singletonMap("holder", 1L),
+                     p.getOwnerContentionCounts());
+        // A writer blocked by a reader is counted but not attributed
+        contend(rw.readLock(), rw.writeLock());
+        assertEquals(2, p.getContentionCount());
+        assertEquals(Collections.singletonMap("holder", 1L),
+                     p.getOwnerContentionCounts());
+    }
+
+    @Test
+    public void profilingPreservesMutualExclusion() throws Exception {
+        ReentrantLock lock = new ReentrantLock();
+        lock.setContentionProfilingEnabled(true);
+        int threads = 4, iterations = 100000;
+        long[] counter = new long[1];
+        Thread[] ts = new Thread[threads];
+        for (int i = 0; i < threads; i++) {
+            ts[i] = new Thread(() -> {
+                for (int j = 0; j < iterations; j++) {
+                    lock.lock();
+                    try {
+                        counter[0]++;
+                    } finally {
+                        lock.unlock();
+                    }
+                }
+            });
+            ts[i].start();
+        }
+        for (Thread t : ts)
+            t.join();
+        assertEquals((long) threads * iterations, counter[0]);
+        ContentionProfile p = lock.getContentionProfile();
+        assertEquals(p.getContentionCount(), sum(p.getWaitHistogram()));
+    }
+}
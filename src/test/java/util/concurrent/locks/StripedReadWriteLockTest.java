@@ -0,0 +1,224 @@
+package test.java.util.concurrent.locks;
+
+import org.junit.Test;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.StripedReadWriteLock;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class StripedReadWriteLockTest {
+
+    /** Runs the task in a new thread and returns its result */
+    static <T> T inOtherThread(Callable<T> task) throws Exception {
+        FutureTask<T> f = new FutureTask<>(task);
+        Thread t = new Thread(f);
+        t.start();
+        return f.get(10, TimeUnit.SECONDS);
+    }
+
+    static Boolean tryAndRelease(Lock lock) {
+        if (!lock.tryLock())
+            return false;
+        lock.unlock();
+        return true;
+    }
+
+    static void awaitBlocked(Thread t) throws InterruptedException {
+        while (t.getState() != Thread.State.WAITING &&
+               t.getState() != Thread.State.TIMED_WAITING)
+            Thread.sleep(1);
+    }
+
+    @Test
+    public void readLockIsSharedAndReentrant() throws Exception {
+        StripedReadWriteLock rw = new StripedReadWriteLock();
+        rw.readLock().lock();
+        rw.readLock().lock();
+        assertEquals(2, rw.getReadHoldCount());
+        assertEquals(2, rw.getReadLockCount());
+        assertTrue(inOtherThread(() -> tryAndRelease(rw.readLock())));
+        assertFalse(inOtherThread(() -> tryAndRelease(rw.writeLock())));
+        assertFalse(rw.isWriteLocked());
+        rw.readLock().unlock();
+        assertFalse(inOtherThread(() -> tryAndRelease(rw.writeLock())));
+        rw.readLock().unlock();
+        assertEquals(0, rw.getReadLockCount());
+        assertTrue(inOtherThread(() -> tryAndRelease(rw.writeLock())));
+        try {
+            rw.readLock().unlock();
+            fail();
+        } catch (IllegalMonitorStateException expected) {
+        }
+        try {
+            rw.readLock().newCondition();
+            fail();
+        } catch (UnsupportedOperationException expected) {
+        }
+    }
+
+    @Test
+    public void writeLockIsExclusiveAndReentrant() throws Exception {
+        StripedReadWriteLock rw = new StripedReadWriteLock(true);
+        assertTrue(rw.isFair());
+        rw.writeLock().lock();
+        rw.writeLock().lock();
+        assertTrue(rw.isWriteLocked());
+        assertTrue(rw.isWriteLockedByCurrentThread());
+        assertEquals(2, rw.getWriteHoldCount());
+        assertFalse(inOtherThread(() -> tryAndRelease(rw.readLock())));
+        assertFalse(inOtherThread(() -> rw.readLock().tryLock(10, TimeUnit.MILLISECONDS)));
+        assertFalse(inOtherThread(() -> tryAndRelease(rw.writeLock())));
+        assertFalse(inOtherThread(rw::isWriteLockedByCurrentThread));
+        rw.writeLock().unlock();
+        assertTrue(rw.isWriteLocked());
+        rw.writeLock().unlock();
+        assertFalse(rw.isWriteLocked());
+        assertTrue(inOtherThread(() -> tryAndRelease(rw.readLock())));
+        try {
+            rw.writeLock().unlock();
+            fail();
+        } catch (IllegalMonitorStateException expected) {
+        }
+    }
+
+    @Test
+    public void writerMayDowngrade() throws Exception {
+        StripedReadWriteLock rw = new StripedReadWriteLock();
+        rw.writeLock().lock();
+        rw.readLock().lock();
+        rw.writeLock().unlock();
+        assertFalse(rw.isWriteLocked());
+        assertEquals(1, rw.getReadHoldCount());
+        assertTrue(inOtherThread(() -> tryAndRelease(rw.readLock())));
+        assertFalse(inOtherThread(() -> tryAndRelease(rw.writeLock())));
+        rw.readLock().unlock();
+        assertTrue(inOtherThread(() -> tryAndRelease(rw.writeLock())));
+    }
+
+    /**
+     * A writer waits for readers to drain, and new readers wait for
+     * the writer.
+     */
+    @Test
+    public void writerWaitsForReadersAndHasPreference() throws Exception {
+        StripedReadWriteLock rw = new StripedReadWriteLock();
+        rw.readLock().lock();
+        AtomicBoolean wrote = new AtomicBoolean();
+        Thread writer = new Thread(() -> {
+            rw.writeLock().lock();
+            wrote.set(true);
+            rw.writeLock().unlock();
+        });
+        writer.start();
+        awaitBlocked(writer);
+        assertTrue(rw.isWriteLocked());
+        assertFalse(wrote.get());
+        assertFalse(inOtherThread(() -> tryAndRelease(rw.readLock())));
+        // The current reader may still reacquire
+        rw.readLock().lock();
+        rw.readLock().unlock();
+        rw.readLock().unlock();
+        writer.join(10000);
+        assertTrue(wrote.get());
+        assertTrue(inOtherThread(() -> tryAndRelease(rw.readLock())));
+    }
+
+    @Test
+    public void timedWriteLockGivesUpOnReaders() throws Exception {
+        StripedReadWriteLock rw = new StripedReadWriteLock();
+        rw.readLock().lock();
+        assertFalse(inOtherThread(() -> rw.writeLock().tryLock(20, TimeUnit.MILLISECONDS)));
+        assertFalse(rw.isWriteLocked());
+        // Readers are not blocked by the abandoned writer
+        assertTrue(inOtherThread(() -> tryAndRelease(rw.readLock())));
+        rw.readLock().unlock();
+    }
+
+    @Test
+    public void readersProceedWhileWriterAwaitsCondition() throws Exception {
+        StripedReadWriteLock rw = new StripedReadWriteLock();
+        Condition changed = rw.writeLock().newCondition();
+        CountDownLatch waiting = new CountDownLatch(1);
+        Thread waiter = new Thread(() -> {
+            rw.writeLock().lock();
+            try {
+                waiting.countDown();
+                changed.await();
+                if (!rw.isWriteLockedByCurrentThread())
+                    throw new AssertionError();
+            } catch (InterruptedException ignore) {
+            } finally {
+                rw.writeLock().unlock();
+            }
+        });
+        waiter.start();
+        assertTrue(waiting.await(10, TimeUnit.SECONDS));
+        awaitBlocked(waiter);
+        assertTrue(inOtherThread(() -> tryAndRelease(rw.readLock())));
+        try {
+            changed.signal();
+            fail();
+        } catch (IllegalMonitorStateException expected) {
+        }
+        rw.writeLock().lock();
+        changed.signal();
+        rw.writeLock().unlock();
+        waiter.join(10000);
+        assertFalse(waiter.isAlive());
+        assertFalse(rw.isWriteLocked());
+    }
+
+    /**
+     * Readers never observe a half-done write.
+     */
+    @Test
+    public void readersSeeConsistentState() throws Exception {
+        StripedReadWriteLock rw = new StripedReadWriteLock();
+        int[] pair = new int[2];
+        AtomicBoolean inconsistent = new AtomicBoolean();
+        Thread[] ts = new Thread[6];
+        for (int i = 0; i < ts.length; i++) {
+            ts[i] = new Thread(() -> {
+                ThreadLocalRandom r = ThreadLocalRandom.current();
+                for (int j = 0; j < 20000; j++) {
+                    if (r.nextInt(10) == 0) {
+                        rw.writeLock().lock();
+                        try {
+                            pair[0]++;
+                            Thread.yield();
+                            pair[1]++;
+                        } finally {
+                            rw.writeLock().unlock();
+                        }
+                    } else {
+                        rw.readLock().lock();
+                        try {
+                            if (pair[0] != pair[1])
+                                inconsistent.set(true);
+                        } finally {
+                            rw.readLock().unlock();
+                        }
+                    }
+                }
+            });
+            ts[i].start();
+        }
+        for (Thread t : ts)
+            t.join();
+        assertFalse(inconsistent.get());
+        assertEquals(pair[0], pair[1]);
+        assertEquals(0, rw.getReadLockCount());
+        assertFalse(rw.isWriteLocked());
+    }
+}
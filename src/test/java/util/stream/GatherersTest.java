@@ -0,0 +1,173 @@
+package test.java.util.stream;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Gatherer;
+import java.util.stream.Gatherers;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class GatherersTest {
+
+    static Stream<Integer> range(int from, int to, boolean parallel) {
+        Stream<Integer> s = IntStream.range(from, to).boxed();
+        return parallel ? s.parallel() : s;
+    }
+
+    @Test
+    public void windows() {
+        for (boolean parallel : new boolean[] { false, true }) {
+            assertEquals(Arrays.asList(Arrays.asList(1, 2, 3), Arrays.asList(4, 5, 6),
+                                       Arrays.asList(7, 8)),
+                         range(1, 9, parallel).gather(Gatherers.windowFixed(3))
+                             .collect(Collectors.toList()));
+            assertEquals(Arrays.asList(Arrays.asList(1, 2, 3), Arrays.asList(2, 3, 4),
+                                       Arrays.asList(3, 4, 5)),
+                         range(1, 6, parallel).gather(Gatherers.windowSliding(3))
+                             .collect(Collectors.toList()));
+            assertEquals(Collections.singletonList(Arrays.asList(1, 2)),
+                         range(1, 3, parallel).gather(Gatherers.windowSliding(3))
+                             .collect(Collectors.toList()));
+            assertEquals(0, range(0, 0, parallel).gather(Gatherers.windowFixed(3)).count());
+            assertEquals(10000, range(0, 100000, parallel)
+                         .gather(Gatherers.windowFixed(10)).count());
+        }
+        try {
+            Gatherers.windowFixed(0);
+            fail();
+        } catch (IllegalArgumentException expected) {
+        }
+        try {
+            range(1, 9, false).gather(Gatherers.windowFixed(3)).findFirst().get().add(0);
+            fail();
+        } catch (UnsupportedOperationException expected) {
+        }
+    }
+
+    @Test
+    public void foldAndScan() {
+        for (boolean parallel : new boolean[] { false, true }) {
+            assertEquals("12345", range(1, 6, parallel)
+                         .gather(Gatherers.fold(() -> "", (s, x) -> s + x))
+                         .findFirst().get());
+            assertEquals(Collections.singletonList(""), range(0, 0, parallel)
+                         .gather(Gatherers.fold(() -> "", (s, x) -> s + x))
+                         .collect(Collectors.toList()));
+            assertEquals(Arrays.asList(1, 3, 6, 10), range(1, 5, parallel)
+                         .gather(Gatherers.scan(() -> 0, Integer::sum))
+                         .collect(Collectors.toList()));
+        }
+    }
+
+    /**
+     * Gatherers short-circuit on infinite input, and stop integrating
+     * once downstream rejects elements.
+     */
+    @Test
+    public void shortCircuiting() {
+        AtomicInteger integrated = new AtomicInteger();
+        Gatherer<Integer, Void, Integer> takeWhileSmall = Gatherer.ofSequential(
+            (state, x, downstream) -> {
+                integrated.incrementAndGet();
+                return x < 5 && downstream.push(x);
+            });
+        assertEquals(Arrays.asList(0, 1, 2, 3, 4),
+                     Stream.iterate(0, x -> x + 1).gather(takeWhileSmall)
+                         .collect(Collectors.toList()));
+        assertEquals(6, integrated.get());
+        assertEquals(Arrays.asList(Arrays.asList(0, 1), Arrays.asList(2, 3)),
+                     Stream.iterate(0, x -> x + 1).gather(Gatherers.windowFixed(2))
+                         .limit(2).collect(Collectors.toList()));
+        assertEquals(Arrays.asList(0, 1, 3),
+                     Stream.iterate(0, x -> x + 1).parallel()
+                         .gather(Gatherers.scan(() -> 0, Integer::sum))
+                         .limit(3).collect(Collectors.toList()));
+    }
+
+    /**
+     * A gatherer with a combiner is evaluated in parallel, with each
+     * leaf's output kept in encounter order.
+     */
+    @Test
+    public void parallelGathererKeepsEncounterOrder() {
+        Gatherer<Integer, Void, Integer> duplicateEvens = Gatherer.of(
+            (state, x, downstream) -> (x % 2 != 0) ||
+                (downstream.push(x) && downstream.push(x)));
+        List<Integer> expected = new ArrayList<>();
+        for (int i = 0; i < 100000; i += 2) {
+            expected.add(i);
+            expected.add(i);
+        }
+        assertEquals(expected, range(0, 100000, true).gather(duplicateEvens)
+                     .collect(Collectors.toList()));
+        assertEquals(expected, range(0, 100000, false).gather(duplicateEvens)
+                     .collect(Collectors.toList()));
+
+        // A stateful gatherer with a combiner: count per leaf, then sum
+        Gatherer<Integer, int[], Integer> count = Gatherer.of(
+            () -> new int[1],
+            (state, x, downstream) -> { state[0]++; return true; },
+            (l, r) -> { l[0] += r[0]; return l; },
+            (state, downstream) -> downstream.push(state[0]));
+        assertEquals(Collections.singletonList(100000),
+                     range(0, 100000, true).gather(count).collect(Collectors.toList()));
+    }
+
+    @Test
+    public void mapConcurrentPreservesOrderAndBoundsConcurrency() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            AtomicInteger inProgress = new AtomicInteger(), maxInProgress = new AtomicInteger();
+            List<Integer> result = range(0, 200, false)
+                .gather(Gatherers.mapConcurrent(4, executor, x -> {
+                    int n = inProgress.incrementAndGet();
+                    maxInProgress.accumulateAndGet(n, Math::max);
+                    try {
+                        Thread.sleep((x * 7) % 3);
+                    } catch (InterruptedException e) {
+                        throw new RuntimeException(e);
+                    }
+                    inProgress.decrementAndGet();
+                    return x * 2;
+                }))
+                .collect(Collectors.toList());
+            assertEquals(range(0, 200, false).map(x -> x * 2).collect(Collectors.toList()),
+                         result);
+            assertTrue(maxInProgress.get() <= 4);
+
+            IllegalStateException failure = new IllegalStateException();
+            try {
+                range(0, 100, false)
+                    .gather(Gatherers.mapConcurrent(4, executor, x -> {
+                        if (x == 50)
+                            throw failure;
+                        return x;
+                    }))
+                    .forEach(x -> { });
+                fail();
+            } catch (IllegalStateException e) {
+                assertSame(failure, e);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        try {
+            Gatherers.mapConcurrent(0, x -> x);
+            fail();
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package test.java.util.stream;
+
+import org.junit.Test;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.stream.BaseStream;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.PipelineAccount;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class PipelinePoolTest {
+
+    @Test
+    public void parallelEvaluationRunsInBoundPool() {
+        ForkJoinPool pool = new ForkJoinPool(3);
+        try {
+            Set<Thread> threads = ConcurrentHashMap.newKeySet();
+            List<Integer> result = IntStream.range(0, 100000).boxed()
+                .parallel(pool)
+                .peek(i -> threads.add(Thread.currentThread()))
+                .map(i -> i * 2)
+                .collect(Collectors.toList());
+            assertEquals(100000, result.size());
+            assertEquals(Integer.valueOf(2 * 99999), result.get(99999));
+            for (Thread t : threads) {
+                assertTrue(t instanceof ForkJoinWorkerThread);
+                assertTrue(((ForkJoinWorkerThread) t).getPool() == pool);
+            }
+            int[] array = IntStream.range(0, 50000).parallel(pool)
+                .peek(i -> assertTrue(ForkJoinTask.getPool() == pool))
+                .toArray();
+            assertEquals(50000, array.length);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void parallelismBudgetBoundsThreads() {
+        Set<Thread> threads = ConcurrentHashMap.newKeySet();
+        long sum = IntStream.range(0, 200000).parallel(2)
+            .peek(i -> threads.add(Thread.currentThread()))
+            .asLongStream().sum();
+        assertEquals(199999L * 200000L / 2, sum);
+        // The invoking thread may take part if the budget selects the common pool
+        threads.remove(Thread.currentThread());
+        assertTrue(threads.size() <= 2);
+        try {
+            IntStream.range(0, 10).parallel(0);
+            fail();
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+
+    @Test
+    public void accountIsChargedPerEvaluation() {
+        PipelineAccount account = PipelineAccount.of("PipelinePoolTest.charged");
+        account.reset();
+        assertEquals(100, IntStream.range(0, 100).accountTo(account).count());
+        assertEquals(1, account.getEvaluationCount());
+        assertEquals(0, account.getTaskCount());
+        IntStream.range(0, 100000).parallel().accountTo(account).sum();
+        assertEquals(2, account.getEvaluationCount());
+        assertTrue(account.getTaskCount() > 0);
+    }
+
+    @Test
+    public void failingTasksAreCharged() {
+        PipelineAccount account = PipelineAccount.of("PipelinePoolTest.failing");
+        account.reset();
+        try {
+            IntStream.range(0, 100000).parallel().accountTo(account)
+                .map(i -> { if (i % 1000 == 999) throw new IllegalStateException(); return i; })
+                .sum();
+            fail();
+        } catch (IllegalStateException expected) {
+        }
+        assertEquals(1, account.getEvaluationCount());
+        assertTrue(account.getTaskCount() > 0);
+    }
+
+    /** A stream implementing only the abstract methods of BaseStream */
+    static final class MinimalStream implements BaseStream<Integer, MinimalStream> {
+        public Iterator<Integer> iterator() { throw new UnsupportedOperationException(); }
+        public Spliterator<Integer> spliterator() { throw new UnsupportedOperationException(); }
+        public boolean isParallel() { return false; }
+        public MinimalStream sequential() { return this; }
+        public MinimalStream parallel() { return this; }
+        public MinimalStream unordered() { return this; }
+        public MinimalStream onClose(Runnable closeHandler) { return this; }
+        public void close() { }
+    }
+
+    /**
+     * The default methods of BaseStream fall back to parallel(), after
+     * checking their arguments.
+     */
+    @Test
+    public void defaultPoolBindingFallsBackToParallel() {
+        MinimalStream s = new MinimalStream();
+        assertSame(s, s.parallel(ForkJoinPool.commonPool()));
+        assertSame(s, s.parallel(4));
+        try {
+            s.parallel((ForkJoinPool) null);
+            fail();
+        } catch (NullPointerException expected) {
+        }
+        try {
+            s.parallel(0);
+            fail();
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+
+    /**
+     * A budget equal to the parallelism of the common pool is evaluated
+     * in the common pool, or by the invoking thread.
+     */
+    @Test
+    public void commonParallelismBudgetUsesCommonPool() {
+        int parallelism = ForkJoinPool.getCommonPoolParallelism();
+        Thread caller = Thread.currentThread();
+        assertEquals(100000, IntStream.range(0, 100000).parallel(parallelism)
+                     .peek(i -> assertTrue(Thread.currentThread() == caller ||
+                                           ForkJoinTask.getPool() == ForkJoinPool.commonPool()))
+                     .count());
+    }
+
+    @Test
+    public void accountMeasuresTime() {
+        PipelineAccount account = PipelineAccount.of("PipelinePoolTest.time");
+        account.reset();
+        IntStream.range(0, 1000000).accountTo(account).map(i -> i * i).sum();
+        assertTrue(account.getTime() > 0);
+    }
+}
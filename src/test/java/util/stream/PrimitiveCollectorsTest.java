@@ -0,0 +1,159 @@
+package test.java.util.stream;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IntArrayList;
+import java.util.IntIntHashMap;
+import java.util.LongLongHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.stream.Collector;
+import java.util.stream.Collectors;
+import java.util.stream.DoubleStream;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class PrimitiveCollectorsTest {
+
+    static IntStream ints(int[] a, boolean parallel) {
+        IntStream s = Arrays.stream(a);
+        return parallel ? s.parallel() : s;
+    }
+
+    /**
+     * Collecting to arrays and lists keeps encounter order, also in
+     * parallel.
+     */
+    @Test
+    public void toArraysAndLists() {
+        int[] a = new Random(73).ints(100000).toArray();
+        for (boolean parallel : new boolean[] { false, true }) {
+            assertArrayEquals(a, ints(a, parallel).collect(Collectors.toIntArray()));
+            assertEquals(new IntArrayList(a), ints(a, parallel).collect(Collectors.toIntList()));
+
+            long[] la = ints(a, parallel).asLongStream().toArray();
+            LongStream ls = Arrays.stream(la);
+            assertArrayEquals(la, (parallel ? ls.parallel() : ls)
+                              .collect(Collectors.toLongArray()));
+            ls = Arrays.stream(la);
+            assertArrayEquals(la, (parallel ? ls.parallel() : ls)
+                              .collect(Collectors.toLongList()).toArray());
+
+            double[] da = ints(a, parallel).asDoubleStream().toArray();
+            DoubleStream ds = Arrays.stream(da);
+            assertArrayEquals(da, (parallel ? ds.parallel() : ds)
+                              .collect(Collectors.toDoubleArray()), 0.0);
+            ds = Arrays.stream(da);
+            assertArrayEquals(da, (parallel ? ds.parallel() : ds)
+                              .collect(Collectors.toDoubleList()).toArray(), 0.0);
+        }
+        assertEquals(0, IntStream.empty().collect(Collectors.toIntArray()).length);
+    }
+
+    @Test
+    public void countingIntoPrimitiveMaps() {
+        int[] a = new Random(79).ints(100000, -50, 50).toArray();
+        Map<Integer, Long> expected = Arrays.stream(a).boxed()
+            .collect(Collectors.groupingBy(x -> x, Collectors.counting()));
+        for (boolean parallel : new boolean[] { false, true }) {
+            IntIntHashMap ic = ints(a, parallel).collect(Collectors.countingInts());
+            LongLongHashMap lc = ints(a, parallel).asLongStream()
+                .collect(Collectors.countingLongs());
+            LongLongHashMap byKey = ints(a, parallel).boxed()
+                .collect(Collectors.countingByLong(x -> x));
+            LongLongHashMap sums = ints(a, parallel).boxed()
+                .collect(Collectors.summingByLong(x -> x, x -> 2L * x));
+            assertEquals(expected.size(), ic.size());
+            assertEquals(expected.size(), lc.size());
+            assertEquals(expected.size(), byKey.size());
+            for (Map.Entry<Integer, Long> e : expected.entrySet()) {
+                int k = e.getKey();
+                long n = e.getValue();
+                assertEquals(n, ic.get(k));
+                assertEquals(n, lc.get(k));
+                assertEquals(n, byKey.get(k));
+                assertEquals(2L * k * n, sums.get(k));
+            }
+        }
+    }
+
+    /**
+     * The mapping collectors work as downstream collectors of a grouping.
+     */
+    @Test
+    public void mappingToPrimitiveDownstreams() {
+        Map<Boolean, int[]> byParity = IntStream.range(0, 10).boxed()
+            .collect(Collectors.partitioningBy(x -> x % 2 == 0,
+                     Collectors.mappingToInt(x -> x * x, Collectors.toIntArray())));
+        assertArrayEquals(new int[] { 0, 4, 16, 36, 64 }, byParity.get(true));
+        assertArrayEquals(new int[] { 1, 9, 25, 49, 81 }, byParity.get(false));
+
+        Map<Integer, long[]> byLength = IntStream.of(5, 10, 50, 100, 7).boxed().parallel()
+            .collect(Collectors.groupingBy(x -> String.valueOf(x).length(),
+                     Collectors.mappingToLong(x -> x, Collectors.toLongArray())));
+        assertArrayEquals(new long[] { 5, 7 }, byLength.get(1));
+        assertArrayEquals(new long[] { 10, 50 }, byLength.get(2));
+
+        assertArrayEquals(new double[] { 0.5, 1.5 },
+                          IntStream.of(1, 3).boxed().collect(
+                              Collectors.mappingToDouble(x -> x / 2.0,
+                                                         Collectors.toDoubleArray())),
+                          0.0);
+        assertEquals(Long.valueOf(3), IntStream.range(0, 3).boxed().collect(Collectors.counting()));
+    }
+
+    @Test
+    public void concurrentGroupingIntoCells() {
+        Random r = new Random(83);
+        int[] a = r.ints(200000, 0, 1000).toArray();
+        Map<Integer, Long> counts = new HashMap<>(), sums = new HashMap<>();
+        for (int x : a) {
+            counts.merge(x % 37, 1L, Long::sum);
+            sums.merge(x % 37, (long) x, Long::sum);
+        }
+        for (boolean parallel : new boolean[] { false, true }) {
+            ConcurrentMap<Integer, Long> c = ints(a, parallel).boxed()
+                .collect(Collectors.groupingByConcurrentCounting(x -> x % 37));
+            ConcurrentMap<Integer, Long> s = ints(a, parallel).boxed()
+                .collect(Collectors.groupingByConcurrentSumming(x -> x % 37, x -> x));
+            assertEquals(counts, c);
+            assertEquals(sums, s);
+        }
+        assertTrue(IntStream.empty().boxed()
+                   .collect(Collectors.groupingByConcurrentCounting(x -> x)).isEmpty());
+    }
+
+    /**
+     * A concurrent primitive collector made with {@code Collector.OfInt.of}
+     * accumulates into a single container in unordered parallel streams.
+     */
+    @Test
+    public void customPrimitiveCollectors() {
+        Collector.OfInt<ConcurrentHashMap<Integer, Boolean>, Integer> distinct =
+            Collector.OfInt.of(ConcurrentHashMap::new,
+                               (m, v) -> m.put(v, Boolean.TRUE),
+                               (l, r) -> { l.putAll(r); return l; },
+                               Map::size,
+                               Collector.Characteristics.CONCURRENT,
+                               Collector.Characteristics.UNORDERED);
+        int[] a = new Random(89).ints(100000, 0, 5000).toArray();
+        int expected = (int) Arrays.stream(a).distinct().count();
+        assertEquals(Integer.valueOf(expected), ints(a, false).collect(distinct));
+        assertEquals(Integer.valueOf(expected), ints(a, true).unordered().collect(distinct));
+
+        Collector.OfLong<long[], long[]> sum =
+            Collector.OfLong.of(() -> new long[1], (c, v) -> c[0] += v,
+                                (l, r) -> { l[0] += r[0]; return l; });
+        assertTrue(sum.characteristics().contains(Collector.Characteristics.IDENTITY_FINISH));
+        assertEquals(LongStream.range(0, 100000).sum(),
+                     LongStream.range(0, 100000).parallel().collect(sum)[0]);
+    }
+}
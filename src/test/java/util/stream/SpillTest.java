@@ -0,0 +1,160 @@
+package test.java.util.stream;
+
+import org.junit.Test;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.DoubleStream;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Sorting and distinct operations with spilling turned on.  The spilling
+ * properties are read once, when a stream operation first checks them, so
+ * this test is to run in a JVM of its own.
+ */
+public class SpillTest {
+
+    private static final int THRESHOLD = 1000;
+
+    static {
+        System.setProperty("java.util.stream.spill.threshold", String.valueOf(THRESHOLD));
+    }
+
+    /**
+     * A serializable element with identity equality, whose copies are not
+     * equal to it.
+     */
+    static final class Item implements Serializable {
+        private static final long serialVersionUID = 1L;
+        final int key;
+
+        Item(int key) {
+            this.key = key;
+        }
+    }
+
+    private static List<Item> items(int n, int keys) {
+        Random r = new Random(n);
+        List<Item> items = new ArrayList<>(n);
+        for (int i = 0; i < n; i++)
+            items.add(new Item(r.nextInt(keys)));
+        return items;
+    }
+
+    @Test
+    public void sortedKeepsIdentity() {
+        List<Item> items = items(20 * THRESHOLD, 100);
+        List<Item> expected = new ArrayList<>(items);
+        expected.sort(Comparator.comparingInt(i -> i.key));
+
+        List<Item> sorted = items.stream()
+                                 .sorted(Comparator.comparingInt(i -> i.key))
+                                 .collect(Collectors.toList());
+        assertEquals(expected.size(), sorted.size());
+        for (int i = 0; i < expected.size(); i++)
+            assertSame(expected.get(i), sorted.get(i));
+    }
+
+    @Test
+    public void distinctKeepsIdentity() {
+        List<Item> items = items(22 * THRESHOLD + 1, 10);
+        List<Item> repeated = new ArrayList<>(items);
+        repeated.addAll(items);
+        Collections.shuffle(repeated, new Random(1));
+
+        List<Item> distinct = repeated.stream().distinct().collect(Collectors.toList());
+        assertEquals(items.size(), distinct.size());
+        Set<Item> expected = new LinkedHashSet<>(repeated);
+        int i = 0;
+        for (Item item : expected)
+            assertSame(item, distinct.get(i++));
+
+        Set<Item> identities = Collections.newSetFromMap(new IdentityHashMap<>());
+        identities.addAll(distinct);
+        assertEquals(items.size(), identities.size());
+    }
+
+    @Test
+    public void sortedPrimitives() {
+        Random r = new Random(7);
+        int n = 20 * THRESHOLD + 17;
+        int[] ints = r.ints(n, -500, 500).toArray();
+        long[] longs = r.longs(n).toArray();
+        double[] doubles = new double[n];
+        for (int i = 0; i < n; i++) {
+            int c = r.nextInt(10);
+            doubles[i] = c == 0 ? Double.NaN : c == 1 ? -0.0 : c == 2 ? 0.0 : r.nextGaussian();
+        }
+
+        int[] ei = ints.clone();
+        Arrays.sort(ei);
+        assertArrayEquals(ei, IntStream.of(ints).sorted().toArray());
+        assertArrayEquals(ei, IntStream.of(ints).filter(x -> true).sorted().toArray());
+        assertArrayEquals(Arrays.copyOf(ei, 10), IntStream.of(ints).sorted().limit(10).toArray());
+
+        long[] el = longs.clone();
+        Arrays.sort(el);
+        assertArrayEquals(el, LongStream.of(longs).sorted().toArray());
+
+        double[] ed = doubles.clone();
+        Arrays.sort(ed);
+        double[] sd = DoubleStream.of(doubles).sorted().toArray();
+        assertEquals(ed.length, sd.length);
+        for (int i = 0; i < ed.length; i++)
+            assertEquals(Double.doubleToLongBits(ed[i]), Double.doubleToLongBits(sd[i]));
+    }
+
+    @Test
+    public void distinctPrimitives() {
+        Random r = new Random(11);
+        int[] ints = r.ints(30 * THRESHOLD, 0, 5 * THRESHOLD).toArray();
+        int[] expected = IntStream.of(ints).boxed()
+                                  .collect(Collectors.toCollection(LinkedHashSet::new))
+                                  .stream().mapToInt(i -> i).toArray();
+        assertArrayEquals(expected, IntStream.of(ints).distinct().toArray());
+        assertArrayEquals(Arrays.copyOf(expected, 3 * THRESHOLD),
+                          IntStream.of(ints).distinct().limit(3 * THRESHOLD).toArray());
+
+        long[] longs = r.longs(30 * THRESHOLD, 0, 5 * THRESHOLD).toArray();
+        long[] el = LongStream.of(longs).boxed()
+                              .collect(Collectors.toCollection(LinkedHashSet::new))
+                              .stream().mapToLong(i -> i).toArray();
+        assertArrayEquals(el, LongStream.of(longs).distinct().toArray());
+    }
+
+    /**
+     * Distinct operations followed by a short-circuiting operation push
+     * first occurrences as they are seen, and so terminate on infinite
+     * sources.
+     */
+    @Test
+    public void distinctShortCircuitsOnInfiniteSources() {
+        assertEquals(5 * THRESHOLD,
+                     IntStream.iterate(0, i -> i + 1).distinct().limit(5 * THRESHOLD).count());
+
+        List<Item> items = items(3 * THRESHOLD, 10);
+        List<Item> firsts = Stream.iterate(0, i -> i + 1)
+                                  .map(i -> items.get(i % items.size()))
+                                  .distinct()
+                                  .limit(items.size())
+                                  .collect(Collectors.toList());
+        assertEquals(items.size(), firsts.size());
+        for (int i = 0; i < items.size(); i++)
+            assertSame(items.get(i), firsts.get(i));
+    }
+}